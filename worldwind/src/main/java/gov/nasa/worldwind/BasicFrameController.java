@@ -14,11 +14,13 @@ import gov.nasa.worldwind.draw.Drawable;
 import gov.nasa.worldwind.draw.DrawableSurfaceColor;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.geom.Viewport;
 import gov.nasa.worldwind.render.BasicShaderProgram;
 import gov.nasa.worldwind.render.Color;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Pool;
+import gov.nasa.worldwind.util.TraceBuffer;
 
 public class BasicFrameController implements FrameController {
 
@@ -33,13 +35,23 @@ public class BasicFrameController implements FrameController {
 
     @Override
     public void renderFrame(RenderContext rc) {
-        rc.terrainTessellator.tessellate(rc);
+        TraceBuffer trace = WorldWind.traceBuffer();
+        trace.begin(TraceBuffer.CATEGORY_FRAME, "tessellate");
+        if (rc.frameMetrics != null && rc.frameMetrics.isDetailedMetricsEnabled()) {
+            long begin = System.nanoTime();
+            rc.terrainTessellator.tessellate(rc);
+            rc.frameMetrics.recordTessellationTime(System.nanoTime() - begin);
+        } else {
+            rc.terrainTessellator.tessellate(rc);
+        }
+        trace.end(TraceBuffer.CATEGORY_FRAME, "tessellate");
 
         if (rc.pickMode) {
             this.renderTerrainPickedObject(rc);
         }
 
         rc.layers.render(rc);
+        rc.declutterDrawables();
         rc.sortDrawables();
     }
 
@@ -68,6 +80,20 @@ public class BasicFrameController implements FrameController {
             this.pickPos.altitude = 0; // report the actual altitude, which may not lie on the terrain's surface
             rc.offerPickedObject(PickedObject.fromTerrain(pickedObjectId, this.pickPos));
         }
+
+        // When rendering a coalesced pick frame, each pick request's ray has its own terrain intersection position. Add
+        // a terrain picked object to each pick request's list directly, since all terrain picked objects share the same
+        // picked object ID.
+        if (rc.pickRequests != null) {
+            for (int idx = 0, len = rc.pickRequests.size(); idx < len; idx++) {
+                PickRequest request = rc.pickRequests.get(idx);
+                if (request.pickRay != null && rc.terrain.intersect(request.pickRay, this.pickPoint)) {
+                    rc.globe.cartesianToGeographic(this.pickPoint.x, this.pickPoint.y, this.pickPoint.z, this.pickPos);
+                    this.pickPos.altitude = 0; // report the actual altitude, which may not lie on the terrain's surface
+                    request.pickedObjects.offerPickedObject(PickedObject.fromTerrain(pickedObjectId, this.pickPos));
+                }
+            }
+        }
     }
 
     @Override
@@ -75,7 +101,9 @@ public class BasicFrameController implements FrameController {
         this.clearFrame(dc);
         this.drawDrawables(dc);
 
-        if (dc.pickMode && dc.pickPoint != null) {
+        if (dc.pickMode && dc.pickRequests != null) {
+            this.resolvePickRequests(dc);
+        } else if (dc.pickMode && dc.pickPoint != null) {
             this.resolvePick(dc);
         } else if (dc.pickMode) {
             this.resolvePickRect(dc);
@@ -89,8 +117,42 @@ public class BasicFrameController implements FrameController {
     protected void drawDrawables(DrawContext dc) {
         dc.rewindDrawables();
 
+        // Measure each drawable's draw time only when the frame metrics have detailed metrics enabled, and trace
+        // drawable batches only when tracing is enabled.
+        FrameMetrics metrics = (dc.frameMetrics != null && dc.frameMetrics.isDetailedMetricsEnabled()) ? dc.frameMetrics : null;
+        TraceBuffer trace = WorldWind.traceBuffer().isEnabled() ? WorldWind.traceBuffer() : null;
+        if (metrics != null || trace != null) {
+            this.drawDrawablesInstrumented(dc, metrics, trace);
+            return;
+        }
+
+        Drawable next;
+        while ((next = dc.pollDrawable()) != null) {
+            try {
+                next.draw(dc);
+            } catch (Exception e) {
+                Logger.logMessage(Logger.ERROR, "BasicFrameController", "drawDrawables",
+                    "Exception while drawing \'" + next + "\'", e);
+                // Keep going. Draw the remaining drawables.
+            }
+        }
+    }
+
+    protected void drawDrawablesInstrumented(DrawContext dc, FrameMetrics metrics, TraceBuffer trace) {
+        // Consecutive drawables of the same class form a batch, and are recorded as a single trace event.
+        Class<?> batchClass = null;
+
         Drawable next;
         while ((next = dc.pollDrawable()) != null) {
+            if (trace != null && next.getClass() != batchClass) {
+                if (batchClass != null) {
+                    trace.end(TraceBuffer.CATEGORY_DRAWABLE, batchClass.getName());
+                }
+                batchClass = next.getClass();
+                trace.begin(TraceBuffer.CATEGORY_DRAWABLE, batchClass.getName());
+            }
+
+            long begin = (metrics != null) ? System.nanoTime() : 0;
             try {
                 next.draw(dc);
             } catch (Exception e) {
@@ -98,6 +160,14 @@ public class BasicFrameController implements FrameController {
                     "Exception while drawing \'" + next + "\'", e);
                 // Keep going. Draw the remaining drawables.
             }
+
+            if (metrics != null) {
+                metrics.recordDrawableTime(next, System.nanoTime() - begin);
+            }
+        }
+
+        if (batchClass != null) {
+            trace.end(TraceBuffer.CATEGORY_DRAWABLE, batchClass.getName());
         }
     }
 
@@ -151,4 +221,77 @@ public class BasicFrameController implements FrameController {
         // Remove all picked objects not marked as on top.
         dc.pickedObjects.keepTopObjects();
     }
+
+    protected void resolvePickRequests(DrawContext dc) {
+        for (int idx = 0, len = dc.pickRequests.size(); idx < len; idx++) {
+            PickRequest request = dc.pickRequests.get(idx);
+            if (request.isCancelled()) {
+                continue; // the caller is no longer interested in the results
+            }
+
+            if (request.pickPoint != null) {
+                this.resolvePickRequest(dc, request);
+            } else {
+                this.resolvePickRequestRect(dc, request);
+            }
+        }
+    }
+
+    protected void resolvePickRequest(DrawContext dc, PickRequest request) {
+        // The frame's picked objects contain the candidate shapes for all coalesced pick requests, while the request's
+        // picked objects contain only its terrain picked object, if any.
+        PickedObject terrainObject = request.pickedObjects.terrainPickedObject();
+        if (dc.pickedObjects.count() == 0 && terrainObject == null) {
+            return; // no eligible objects; avoid expensive calls to glReadPixels
+        }
+
+        // Read the fragment color at the pick point.
+        this.pickColor = dc.readPixelColor((int) Math.round(request.pickPoint.x), (int) Math.round(request.pickPoint.y), this.pickColor);
+
+        // Convert the fragment color to a picked object ID. This returns zero if the color cannot indicate a picked
+        // object ID, in which case no objects have been drawn at the pick point.
+        int topObjectId = PickedObject.uniqueColorToIdentifier(this.pickColor);
+        if (topObjectId != 0) {
+            // The frame's picked objects are shared by all coalesced pick requests, and are therefore left unmodified.
+            // Shapes are copied into the request's picked objects before being marked as on top, while the terrain
+            // picked object already belongs to the request.
+            PickedObject topObject = (terrainObject != null && terrainObject.getIdentifier() == topObjectId) ?
+                terrainObject : dc.pickedObjects.pickedObjectWithId(topObjectId);
+            if (topObject == terrainObject) {
+                terrainObject.markOnTop();
+            } else if (topObject != null) {
+                topObject = PickedObject.fromPickedObject(topObject);
+                topObject.markOnTop();
+                request.pickedObjects.offerPickedObject(topObject);
+            } else {
+                request.pickedObjects.clearPickedObjects(); // no eligible objects drawn at the pick point
+            }
+        } else {
+            request.pickedObjects.clearPickedObjects(); // no objects drawn at the pick point
+        }
+    }
+
+    protected void resolvePickRequestRect(DrawContext dc, PickRequest request) {
+        if (dc.pickedObjects.count() == 0) {
+            return; // no eligible objects; avoid expensive calls to glReadPixels
+        }
+
+        // Read the unique fragment colors in the pick request's rectangle.
+        Viewport rect = request.pickViewport;
+        Set<Color> pickColors = dc.readPixelColors(rect.x, rect.y, rect.width, rect.height);
+
+        // Add copies of the objects drawn in the pick request's rectangle to the request's picked objects. The frame's
+        // picked objects are shared by all coalesced pick requests, and are therefore left unmodified.
+        for (Color pickColor : pickColors) {
+            int topObjectId = PickedObject.uniqueColorToIdentifier(pickColor);
+            if (topObjectId != 0) {
+                PickedObject topObject = dc.pickedObjects.pickedObjectWithId(topObjectId);
+                if (topObject != null) {
+                    topObject = PickedObject.fromPickedObject(topObject);
+                    topObject.markOnTop();
+                    request.pickedObjects.offerPickedObject(topObject);
+                }
+            }
+        }
+    }
 }
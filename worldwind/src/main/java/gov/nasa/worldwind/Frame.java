@@ -5,6 +5,7 @@
 
 package gov.nasa.worldwind;
 
+import java.util.List;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -39,6 +40,14 @@ public class Frame {
 
     public Line pickRay;
 
+    public List<PickRequest> pickRequests;
+
+    /**
+     * Pick frame carried by this frame, rendered from the same World Window state and drawn by the OpenGL thread
+     * immediately before this frame.
+     */
+    public Frame pickFrame;
+
     public boolean pickMode;
 
     private boolean isDone;
@@ -76,6 +85,8 @@ public class Frame {
         this.pickViewport = null;
         this.pickPoint = null;
         this.pickRay = null;
+        this.pickRequests = null;
+        this.pickFrame = null;
         this.pickMode = false;
 
         if (this.pool != null) { // return this instance to the pool
@@ -5,11 +5,27 @@
 
 package gov.nasa.worldwind;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.draw.Drawable;
+import gov.nasa.worldwind.globe.ElevationCoverage;
+import gov.nasa.worldwind.globe.ElevationModel;
+import gov.nasa.worldwind.globe.TiledElevationCoverage;
+import gov.nasa.worldwind.layer.Layer;
 import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.util.LatencyHistogram;
+import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.LruMemoryCache;
+import gov.nasa.worldwind.util.RetrieverMetrics;
+import gov.nasa.worldwind.util.RollingLatencyHistogram;
 
 public class FrameMetrics {
 
@@ -21,9 +37,77 @@ public class FrameMetrics {
 
     protected CacheMetrics renderResourceCacheMetrics = new CacheMetrics();
 
+    protected RollingLatencyHistogram renderHistogram = new RollingLatencyHistogram();
+
+    protected RollingLatencyHistogram drawHistogram = new RollingLatencyHistogram();
+
+    protected RollingLatencyHistogram pickHistogram = new RollingLatencyHistogram();
+
+    protected long renderBeginNanos;
+
+    protected long drawBeginNanos;
+
+    protected volatile boolean detailedMetricsEnabled;
+
+    protected List<FrameMetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+    protected LayerTimes layerTimes = new LayerTimes();
+
+    protected volatile List<LayerMetrics> layerMetrics = Collections.emptyList();
+
+    protected volatile long tessellationTime;
+
+    protected DrawableTimes drawableTimes = new DrawableTimes();
+
+    protected List<DrawableMetrics> drawableMetrics = Collections.emptyList();
+
+    protected volatile List<RetrieverMetrics> retrieverMetrics = Collections.emptyList();
+
+    protected ArrayList<RetrieverMetrics> retrieverScratch = new ArrayList<>();
+
     public FrameMetrics() {
     }
 
+    /**
+     * Indicates whether this frame metrics collects the render time of each layer and the draw count and draw time of
+     * each drawable class. Detailed metrics are disabled by default.
+     *
+     * @return true if detailed metrics are enabled, false otherwise
+     */
+    public boolean isDetailedMetricsEnabled() {
+        return this.detailedMetricsEnabled;
+    }
+
+    /**
+     * Sets whether this frame metrics collects the render time of each layer and the draw count and draw time of each
+     * drawable class. Detailed metrics are measured with System.nanoTime, and are reported for the most recent frame
+     * by {@link #getLayerMetrics()}, {@link #getDrawableMetrics()}, {@link #toString()} and any registered {@link
+     * FrameMetricsListener}. Rendering and drawing skip all detailed measurements while disabled.
+     *
+     * @param enabled true to enable detailed metrics, false to disable them
+     */
+    public void setDetailedMetricsEnabled(boolean enabled) {
+        this.detailedMetricsEnabled = enabled;
+    }
+
+    public void addFrameMetricsListener(FrameMetricsListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "FrameMetrics", "addFrameMetricsListener", "missingListener"));
+        }
+
+        this.listeners.add(listener);
+    }
+
+    public void removeFrameMetricsListener(FrameMetricsListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "FrameMetrics", "removeFrameMetricsListener", "missingListener"));
+        }
+
+        this.listeners.remove(listener);
+    }
+
     public long getRenderTime() {
         return this.renderMetrics.time;
     }
@@ -86,6 +170,157 @@ public class FrameMetrics {
         return this.renderResourceCacheMetrics.entryCount;
     }
 
+    /**
+     * Returns the distribution of frame render times since this frame metrics was constructed or last reset. Render
+     * times are recorded with nanosecond resolution.
+     *
+     * @param result a pre-allocated histogram in which to return the render times
+     *
+     * @return the result argument set to the render times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getRenderTimeHistogram(LatencyHistogram result) {
+        return this.renderHistogram.getCumulativeHistogram(result);
+    }
+
+    /**
+     * Returns the distribution of frame render times within the rolling histogram window. Render times are recorded
+     * with nanosecond resolution.
+     *
+     * @param result a pre-allocated histogram in which to return the render times
+     *
+     * @return the result argument set to the render times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getRenderTimeWindowHistogram(LatencyHistogram result) {
+        return this.renderHistogram.getWindowHistogram(result);
+    }
+
+    /**
+     * Returns the distribution of frame draw times since this frame metrics was constructed or last reset. Draw times
+     * are recorded with nanosecond resolution.
+     *
+     * @param result a pre-allocated histogram in which to return the draw times
+     *
+     * @return the result argument set to the draw times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getDrawTimeHistogram(LatencyHistogram result) {
+        return this.drawHistogram.getCumulativeHistogram(result);
+    }
+
+    /**
+     * Returns the distribution of frame draw times within the rolling histogram window. Draw times are recorded with
+     * nanosecond resolution.
+     *
+     * @param result a pre-allocated histogram in which to return the draw times
+     *
+     * @return the result argument set to the draw times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getDrawTimeWindowHistogram(LatencyHistogram result) {
+        return this.drawHistogram.getWindowHistogram(result);
+    }
+
+    /**
+     * Returns the distribution of pick round-trip times since this frame metrics was constructed or last reset. The
+     * round-trip time extends from the pick request until its results are available, and includes the time spent
+     * waiting for the OpenGL thread.
+     *
+     * @param result a pre-allocated histogram in which to return the pick times
+     *
+     * @return the result argument set to the pick times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getPickTimeHistogram(LatencyHistogram result) {
+        return this.pickHistogram.getCumulativeHistogram(result);
+    }
+
+    /**
+     * Returns the distribution of pick round-trip times within the rolling histogram window.
+     *
+     * @param result a pre-allocated histogram in which to return the pick times
+     *
+     * @return the result argument set to the pick times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getPickTimeWindowHistogram(LatencyHistogram result) {
+        return this.pickHistogram.getWindowHistogram(result);
+    }
+
+    /**
+     * Returns the duration of the rolling window used by the window histograms. The default window is 10 seconds.
+     *
+     * @return the window duration in nanoseconds
+     */
+    public long getHistogramWindow() {
+        return this.renderHistogram.getWindow();
+    }
+
+    /**
+     * Sets the duration of the rolling window used by the window histograms. This discards the values currently in the
+     * window histograms.
+     *
+     * @param window the window duration
+     * @param unit   the window duration's time unit
+     *
+     * @throws IllegalArgumentException If the window is less than 1 or the unit is null
+     */
+    public void setHistogramWindow(long window, TimeUnit unit) {
+        this.renderHistogram.setWindow(window, unit);
+        this.drawHistogram.setWindow(window, unit);
+        this.pickHistogram.setWindow(window, unit);
+    }
+
+    /**
+     * Returns the render time of each layer in the most recently rendered frame, in layer list order. The returned list
+     * is empty when detailed metrics are disabled.
+     *
+     * @return an unmodifiable list of layer metrics
+     */
+    public List<LayerMetrics> getLayerMetrics() {
+        return this.layerMetrics;
+    }
+
+    /**
+     * Returns the terrain tessellation time in the most recently rendered frame, in nanoseconds. This returns zero when
+     * detailed metrics are disabled.
+     *
+     * @return the tessellation time in nanoseconds
+     */
+    public long getTessellationTime() {
+        return this.tessellationTime;
+    }
+
+    /**
+     * Returns the draw count and draw time of each drawable class in the most recently drawn frame. The returned list
+     * is empty when detailed metrics are disabled.
+     *
+     * @return an unmodifiable list of drawable metrics
+     */
+    public List<DrawableMetrics> getDrawableMetrics() {
+        synchronized (this.drawLock) {
+            return this.drawableMetrics;
+        }
+    }
+
+    /**
+     * Returns the metrics of the retrievers that load resources for the most recently rendered frame: the render
+     * resource cache's image retrievers, followed by the retriever of each tiled elevation coverage in the globe's
+     * elevation model. Retriever metrics accumulate across frames.
+     *
+     * @return an unmodifiable list of retriever metrics
+     */
+    public List<RetrieverMetrics> getRetrieverMetrics() {
+        return this.retrieverMetrics;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("FrameMetrics");
@@ -97,6 +332,23 @@ public class FrameMetrics {
         this.printCacheMetrics(this.renderResourceCacheMetrics, sb);
         sb.append("}");
 
+        LatencyHistogram histogram = new LatencyHistogram();
+        sb.append(", renderHistogram={").append(this.getRenderTimeHistogram(histogram)).append("}");
+        sb.append(", drawHistogram={").append(this.getDrawTimeHistogram(histogram)).append("}");
+        sb.append(", pickHistogram={").append(this.getPickTimeHistogram(histogram)).append("}");
+        sb.append(", retrieverMetrics={");
+        this.printRetrieverMetrics(this.getRetrieverMetrics(), sb);
+        sb.append("}");
+
+        if (this.detailedMetricsEnabled) {
+            sb.append(", tessellationTime=").append(String.format(Locale.US, "%.3f", this.tessellationTime * 1.0e-6)).append("ms");
+            sb.append(", layerMetrics={");
+            this.printLayerMetrics(this.getLayerMetrics(), sb);
+            sb.append("}, drawableMetrics={");
+            this.printDrawableMetrics(this.getDrawableMetrics(), sb);
+            sb.append("}");
+        }
+
         return sb.toString();
     }
 
@@ -104,12 +356,27 @@ public class FrameMetrics {
         long now = System.currentTimeMillis();
 
         this.markBegin(this.renderMetrics, now);
+        this.renderBeginNanos = System.nanoTime();
+        this.layerTimes.clear();
+        this.tessellationTime = 0;
     }
 
     public void endRendering(RenderContext rc) {
         long now = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
         this.markEnd(this.renderMetrics, now);
+        this.renderHistogram.record(nowNanos - this.renderBeginNanos, nowNanos);
         this.assembleCacheMetrics(this.renderResourceCacheMetrics, rc.renderResourceCache);
+        this.assembleRetrieverMetrics(rc);
+
+        if (this.detailedMetricsEnabled) {
+            this.layerMetrics = this.assembleLayerMetrics(this.layerTimes);
+            for (FrameMetricsListener listener : this.listeners) {
+                listener.onFrameRendered(this, this.layerMetrics, this.tessellationTime);
+            }
+        } else if (!this.layerMetrics.isEmpty()) {
+            this.layerMetrics = Collections.emptyList();
+        }
     }
 
     public void beginDrawing(DrawContext dc) {
@@ -118,18 +385,74 @@ public class FrameMetrics {
         synchronized (this.drawLock) {
             this.markBegin(this.drawMetrics, now);
         }
+
+        this.drawBeginNanos = System.nanoTime();
+        this.drawableTimes.clear();
     }
 
     public void endDrawing(DrawContext dc) {
         long now = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        this.drawHistogram.record(nowNanos - this.drawBeginNanos, nowNanos);
+        List<DrawableMetrics> metrics = this.detailedMetricsEnabled ?
+            this.assembleDrawableMetrics(this.drawableTimes) : Collections.<DrawableMetrics>emptyList();
 
         synchronized (this.drawLock) {
             this.markEnd(this.drawMetrics, now);
+            this.drawableMetrics = metrics;
+        }
+
+        if (this.detailedMetricsEnabled) {
+            for (FrameMetricsListener listener : this.listeners) {
+                listener.onFrameDrawn(this, metrics);
+            }
         }
     }
 
+    /**
+     * Records the round-trip time of a pick, from the pick request until its results are available. May be called from
+     * any thread.
+     *
+     * @param timeNanos the elapsed time in nanoseconds
+     */
+    public void recordPickTime(long timeNanos) {
+        this.pickHistogram.record(timeNanos);
+    }
+
+    /**
+     * Records the time spent rendering the terrain in the current frame. Called on the thread that renders frames.
+     *
+     * @param timeNanos the elapsed time in nanoseconds
+     */
+    public void recordTessellationTime(long timeNanos) {
+        this.tessellationTime += timeNanos;
+    }
+
+    /**
+     * Records the time spent rendering a layer in the current frame. Called on the thread that renders frames.
+     *
+     * @param layer     the layer that has been rendered
+     * @param timeNanos the elapsed time in nanoseconds
+     */
+    public void recordLayerTime(Layer layer, long timeNanos) {
+        this.layerTimes.add(layer, timeNanos);
+    }
+
+    /**
+     * Records the time spent drawing a drawable in the current frame. Called on the OpenGL thread.
+     *
+     * @param drawable  the drawable that has been drawn
+     * @param timeNanos the elapsed time in nanoseconds
+     */
+    public void recordDrawableTime(Drawable drawable, long timeNanos) {
+        this.drawableTimes.add(drawable.getClass(), timeNanos);
+    }
+
     public void reset() {
         this.resetTimeMetrics(this.renderMetrics);
+        this.renderHistogram.reset();
+        this.drawHistogram.reset();
+        this.pickHistogram.reset();
 
         synchronized (this.drawLock) {
             this.resetTimeMetrics(this.drawMetrics);
@@ -172,12 +495,73 @@ public class FrameMetrics {
         }
     }
 
+    protected List<LayerMetrics> assembleLayerMetrics(LayerTimes times) {
+        List<LayerMetrics> list = new ArrayList<>(times.count);
+        for (int idx = 0; idx < times.count; idx++) {
+            list.add(new LayerMetrics(times.layers[idx], times.times[idx]));
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+
+    protected List<DrawableMetrics> assembleDrawableMetrics(DrawableTimes times) {
+        List<DrawableMetrics> list = new ArrayList<>();
+        for (int idx = 0, len = times.entries.size(); idx < len; idx++) {
+            DrawableTimes.Entry entry = times.entries.get(idx);
+            if (entry.count > 0) {
+                list.add(new DrawableMetrics(entry.drawableClass, entry.count, entry.time));
+            }
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+
     protected void assembleCacheMetrics(CacheMetrics metrics, LruMemoryCache cache) {
         metrics.capacity = cache.getCapacity();
         metrics.usedCapacity = cache.getUsedCapacity();
         metrics.entryCount = cache.getEntryCount();
     }
 
+    protected void assembleRetrieverMetrics(RenderContext rc) {
+        this.retrieverScratch.clear();
+
+        if (rc.renderResourceCache != null) {
+            this.retrieverScratch.add(rc.renderResourceCache.getImageRetrieverMetrics());
+            this.retrieverScratch.add(rc.renderResourceCache.getUrlImageRetrieverMetrics());
+        }
+
+        if (rc.globe != null) {
+            ElevationModel elevationModel = rc.globe.getElevationModel();
+            for (int idx = 0, len = elevationModel.count(); idx < len; idx++) {
+                ElevationCoverage coverage = elevationModel.getCoverage(idx);
+                if (coverage instanceof TiledElevationCoverage) {
+                    this.retrieverScratch.add(((TiledElevationCoverage) coverage).getRetrieverMetrics());
+                }
+            }
+        }
+
+        // Replace the published list only when the set of retrievers changes, avoiding an allocation every frame.
+        if (!this.isRetrieverScratchPublished()) {
+            this.retrieverMetrics = Collections.unmodifiableList(new ArrayList<>(this.retrieverScratch));
+        }
+    }
+
+    protected boolean isRetrieverScratchPublished() {
+        // Compare the retrievers by index and identity. AbstractList.equals allocates an iterator for each list.
+        List<RetrieverMetrics> published = this.retrieverMetrics;
+        if (published.size() != this.retrieverScratch.size()) {
+            return false;
+        }
+
+        for (int idx = 0, len = published.size(); idx < len; idx++) {
+            if (published.get(idx) != this.retrieverScratch.get(idx)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     protected void printCacheMetrics(CacheMetrics metrics, StringBuilder out) {
         out.append("capacity=").append(String.format(Locale.US, "%,.0f", metrics.capacity / 1024.0)).append("KB");
         out.append(", usedCapacity=").append(String.format(Locale.US, "%,.0f", metrics.usedCapacity / 1024.0)).append("KB");
@@ -192,6 +576,222 @@ public class FrameMetrics {
         out.append(", stdDev=").append(String.format(Locale.US, "%.1f", this.computeTimeStdDev(metrics))).append("ms");
     }
 
+    protected void printLayerMetrics(List<LayerMetrics> metrics, StringBuilder out) {
+        for (int idx = 0, len = metrics.size(); idx < len; idx++) {
+            LayerMetrics lm = metrics.get(idx);
+            if (idx > 0) {
+                out.append(", ");
+            }
+            out.append(lm.layer.getDisplayName()).append("=");
+            out.append(String.format(Locale.US, "%.3f", lm.renderTime * 1.0e-6)).append("ms");
+        }
+    }
+
+    protected void printDrawableMetrics(List<DrawableMetrics> metrics, StringBuilder out) {
+        for (int idx = 0, len = metrics.size(); idx < len; idx++) {
+            DrawableMetrics dm = metrics.get(idx);
+            if (idx > 0) {
+                out.append(", ");
+            }
+            out.append(dm.drawableClass.getSimpleName()).append("={");
+            out.append("count=").append(dm.count);
+            out.append(", time=").append(String.format(Locale.US, "%.3f", dm.drawTime * 1.0e-6)).append("ms}");
+        }
+    }
+
+    protected void printRetrieverMetrics(List<RetrieverMetrics> metrics, StringBuilder out) {
+        for (int idx = 0, len = metrics.size(); idx < len; idx++) {
+            RetrieverMetrics rm = metrics.get(idx);
+            if (idx > 0) {
+                out.append(", ");
+            }
+            out.append(rm);
+
+            List<RetrieverMetrics.SourceMetrics> sources = rm.getSourceMetrics();
+            if (!sources.isEmpty()) {
+                out.append(", ").append(rm.getDisplayName()).append("Sources={");
+                for (int sidx = 0, slen = sources.size(); sidx < slen; sidx++) {
+                    RetrieverMetrics.SourceMetrics sm = sources.get(sidx);
+                    if (sidx > 0) {
+                        out.append(", ");
+                    }
+                    out.append(this.sourceName(sm.getSource())).append("={");
+                    out.append("queued=").append(sm.getQueuedCount());
+                    out.append(", succeeded=").append(sm.getSucceededCount());
+                    out.append(", failed=").append(sm.getFailedCount());
+                    out.append(", rejected=").append(sm.getRejectedCount()).append("}");
+                }
+                out.append("}");
+            }
+        }
+    }
+
+    protected String sourceName(Object source) {
+        if (source instanceof Layer) {
+            return ((Layer) source).getDisplayName();
+        } else if (source instanceof ElevationCoverage) {
+            return ((ElevationCoverage) source).getDisplayName();
+        } else {
+            return String.valueOf(source);
+        }
+    }
+
+    /**
+     * Render time of a single layer in a frame.
+     */
+    public static class LayerMetrics {
+
+        protected final Layer layer;
+
+        protected final long renderTime;
+
+        public LayerMetrics(Layer layer, long renderTime) {
+            this.layer = layer;
+            this.renderTime = renderTime;
+        }
+
+        public Layer getLayer() {
+            return this.layer;
+        }
+
+        /**
+         * @return the time spent rendering the layer in nanoseconds
+         */
+        public long getRenderTime() {
+            return this.renderTime;
+        }
+
+        @Override
+        public String toString() {
+            return "LayerMetrics{layer=" + this.layer.getDisplayName() + ", renderTime=" + this.renderTime + "ns}";
+        }
+    }
+
+    /**
+     * Draw count and cumulative draw time of a single drawable class in a frame.
+     */
+    public static class DrawableMetrics {
+
+        protected final Class<?> drawableClass;
+
+        protected final int count;
+
+        protected final long drawTime;
+
+        public DrawableMetrics(Class<?> drawableClass, int count, long drawTime) {
+            this.drawableClass = drawableClass;
+            this.count = count;
+            this.drawTime = drawTime;
+        }
+
+        public Class<?> getDrawableClass() {
+            return this.drawableClass;
+        }
+
+        public int getCount() {
+            return this.count;
+        }
+
+        /**
+         * @return the time spent drawing instances of the drawable class in nanoseconds
+         */
+        public long getDrawTime() {
+            return this.drawTime;
+        }
+
+        @Override
+        public String toString() {
+            return "DrawableMetrics{drawableClass=" + this.drawableClass.getSimpleName() + ", count=" + this.count + ", drawTime=" + this.drawTime + "ns}";
+        }
+    }
+
+    /**
+     * Accumulates layer render times for the current frame in pre-allocated arrays.
+     */
+    protected static class LayerTimes {
+
+        public Layer[] layers = new Layer[16];
+
+        public long[] times = new long[16];
+
+        public int count;
+
+        public void add(Layer layer, long time) {
+            if (this.count == this.layers.length) {
+                int newCapacity = this.count * 2;
+                Layer[] newLayers = new Layer[newCapacity];
+                long[] newTimes = new long[newCapacity];
+                System.arraycopy(this.layers, 0, newLayers, 0, this.count);
+                System.arraycopy(this.times, 0, newTimes, 0, this.count);
+                this.layers = newLayers;
+                this.times = newTimes;
+            }
+
+            this.layers[this.count] = layer;
+            this.times[this.count] = time;
+            this.count++;
+        }
+
+        public void clear() {
+            for (int idx = 0; idx < this.count; idx++) {
+                this.layers[idx] = null; // don't retain references to layers
+            }
+
+            this.count = 0;
+        }
+    }
+
+    /**
+     * Accumulates drawable counts and draw times for the current frame, keyed by drawable class. Entries are retained
+     * across frames, so that only the first frame containing a drawable class allocates memory.
+     */
+    protected static class DrawableTimes {
+
+        public List<Entry> entries = new ArrayList<>();
+
+        public Map<Class<?>, Entry> entryMap = new HashMap<>();
+
+        private Entry lastEntry;
+
+        public void add(Class<?> drawableClass, long time) {
+            // Drawables are often drawn in runs of the same class, avoid the map lookup in that case.
+            Entry entry = this.lastEntry;
+            if (entry == null || entry.drawableClass != drawableClass) {
+                entry = this.entryMap.get(drawableClass);
+                if (entry == null) {
+                    entry = new Entry(drawableClass);
+                    this.entryMap.put(drawableClass, entry);
+                    this.entries.add(entry);
+                }
+                this.lastEntry = entry;
+            }
+
+            entry.count++;
+            entry.time += time;
+        }
+
+        public void clear() {
+            for (int idx = 0, len = this.entries.size(); idx < len; idx++) {
+                Entry entry = this.entries.get(idx);
+                entry.count = 0;
+                entry.time = 0;
+            }
+        }
+
+        protected static class Entry {
+
+            public final Class<?> drawableClass;
+
+            public int count;
+
+            public long time;
+
+            public Entry(Class<?> drawableClass) {
+                this.drawableClass = drawableClass;
+            }
+        }
+    }
+
     protected static class CacheMetrics {
 
         public int capacity;
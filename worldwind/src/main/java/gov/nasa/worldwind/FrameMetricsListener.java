@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind;
+
+import java.util.List;
+
+/**
+ * Listener interface for receiving the detailed metrics collected by {@link FrameMetrics} for each frame. Listeners are
+ * notified only while detailed metrics are enabled.
+ */
+public interface FrameMetricsListener {
+
+    /**
+     * Called on the thread that renders frames, the Android main thread, after each frame render completes.
+     *
+     * @param metrics          the frame metrics that collected the layer metrics
+     * @param layerMetrics     the render time of each layer in the frame, in layer list order
+     * @param tessellationTime the terrain tessellation time in nanoseconds
+     */
+    void onFrameRendered(FrameMetrics metrics, List<FrameMetrics.LayerMetrics> layerMetrics, long tessellationTime);
+
+    /**
+     * Called on the OpenGL thread after each frame draw completes.
+     *
+     * @param metrics         the frame metrics that collected the drawable metrics
+     * @param drawableMetrics the count and draw time of each drawable class in the frame
+     */
+    void onFrameDrawn(FrameMetrics metrics, List<FrameMetrics.DrawableMetrics> drawableMetrics);
+}
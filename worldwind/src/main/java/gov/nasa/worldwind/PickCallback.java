@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind;
+
+/**
+ * Callback interface for receiving the results of an asynchronous pick on a {@link WorldWindow}. Callbacks are invoked
+ * on the Android main thread.
+ *
+ * @see WorldWindow#pickAsync(float, float, PickCallback)
+ * @see WorldWindow#pickShapesInRectAsync(float, float, float, float, PickCallback)
+ */
+public interface PickCallback {
+
+    void onPickCompleted(WorldWindow wwd, PickedObjectList pickedObjects);
+}
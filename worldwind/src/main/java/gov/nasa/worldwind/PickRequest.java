@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import gov.nasa.worldwind.geom.Line;
+import gov.nasa.worldwind.geom.Vec2;
+import gov.nasa.worldwind.geom.Viewport;
+
+/**
+ * Pending asynchronous pick on a {@link WorldWindow}. Pick requests submitted between two Choreographer frames are
+ * coalesced into a single pick frame, then resolved individually on the OpenGL thread. A pick request with a non-null
+ * pick point identifies the top object at that point, otherwise the pick request identifies all top shapes in its pick
+ * viewport.
+ * <p/>
+ * PickRequest implements {@link Future}, and may be used to wait for the results from a thread other than the Android
+ * main thread. Waiting on the main thread blocks the thread that renders the pick frame, and therefore never completes.
+ */
+public class PickRequest implements Future<PickedObjectList> {
+
+    public final PickedObjectList pickedObjects = new PickedObjectList();
+
+    public Viewport pickViewport;
+
+    public Vec2 pickPoint;
+
+    public Line pickRay;
+
+    protected PickCallback callback;
+
+    protected long requestTime = System.nanoTime();
+
+    private boolean isDone;
+
+    private boolean isCancelled;
+
+    private final Lock doneLock = new ReentrantLock();
+
+    private final Condition doneCondition = this.doneLock.newCondition();
+
+    public PickRequest(PickCallback callback) {
+        this.callback = callback;
+    }
+
+    public PickCallback getCallback() {
+        return this.callback;
+    }
+
+    /**
+     * @return the time this pick request was created, in the time base of System.nanoTime
+     */
+    public long getRequestTime() {
+        return this.requestTime;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        this.doneLock.lock();
+        try {
+            if (this.isDone) {
+                return false;
+            }
+
+            this.isCancelled = true;
+            this.isDone = true;
+            this.doneCondition.signalAll();
+            return true;
+        } finally {
+            this.doneLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        this.doneLock.lock();
+        try {
+            return this.isCancelled;
+        } finally {
+            this.doneLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        this.doneLock.lock();
+        try {
+            return this.isDone;
+        } finally {
+            this.doneLock.unlock();
+        }
+    }
+
+    @Override
+    public PickedObjectList get() throws InterruptedException {
+        this.doneLock.lock();
+        try {
+            while (!this.isDone) {
+                this.doneCondition.await();
+            }
+
+            return this.pickedObjects;
+        } finally {
+            this.doneLock.unlock();
+        }
+    }
+
+    @Override
+    public PickedObjectList get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        long nanos = unit.toNanos(timeout);
+
+        this.doneLock.lock();
+        try {
+            while (!this.isDone) {
+                if (nanos <= 0) {
+                    throw new TimeoutException();
+                }
+                nanos = this.doneCondition.awaitNanos(nanos);
+            }
+
+            return this.pickedObjects;
+        } finally {
+            this.doneLock.unlock();
+        }
+    }
+
+    /**
+     * Marks this pick request as done and wakes any threads waiting for its results. Returns false if this request has
+     * already been marked as done or has been cancelled, in which case its callback must not be invoked.
+     *
+     * @return true if this call completed the pick request, false otherwise
+     */
+    public boolean signalDone() {
+        this.doneLock.lock();
+        try {
+            if (this.isDone) {
+                return false;
+            }
+
+            this.isDone = true;
+            this.doneCondition.signalAll();
+            return true;
+        } finally {
+            this.doneLock.unlock();
+        }
+    }
+}
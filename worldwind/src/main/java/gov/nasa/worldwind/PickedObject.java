@@ -58,6 +58,21 @@ public class PickedObject {
         return po;
     }
 
+    public static PickedObject fromPickedObject(PickedObject pickedObject) {
+        if (pickedObject == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PickedObject", "fromPickedObject", "missingPickedObject"));
+        }
+
+        PickedObject po = new PickedObject();
+        po.isOnTop = pickedObject.isOnTop;
+        po.identifier = pickedObject.identifier;
+        po.userObject = pickedObject.userObject;
+        po.layer = pickedObject.layer;
+        po.terrainPosition = pickedObject.terrainPosition;
+        return po;
+    }
+
     public static Color identifierToUniqueColor(int identifier, Color result) {
         if (result == null) {
             throw new IllegalArgumentException(
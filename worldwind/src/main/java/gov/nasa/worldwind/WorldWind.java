@@ -11,8 +11,11 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
 import gov.nasa.worldwind.geom.Ellipsoid;
+import gov.nasa.worldwind.util.HttpTransport;
+import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.MessageService;
 import gov.nasa.worldwind.util.TaskService;
+import gov.nasa.worldwind.util.TraceBuffer;
 
 public class WorldWind {
 
@@ -330,6 +333,16 @@ public class WorldWind {
      */
     protected static TaskService taskService = new TaskService();
 
+    /**
+     * Provides a global transport for the HTTP requests of the World Wind library and World Wind applications.
+     */
+    protected static volatile HttpTransport httpTransport = new HttpTransport();
+
+    /**
+     * Provides a global buffer for recording trace events within the World Wind library and World Wind applications.
+     */
+    protected static TraceBuffer traceBuffer = new TraceBuffer();
+
     /**
      * Returns a singleton MessageService instance that provides a mechanism for broadcasting notifications within the
      * World Wind library and World Wind applications.
@@ -350,6 +363,44 @@ public class WorldWind {
         return taskService;
     }
 
+    /**
+     * Returns the HttpTransport instance that performs the HTTP requests of World Wind's retrievers. Configure the
+     * transport's timeouts, per-host connection limit and response cache through this instance.
+     *
+     * @return the HTTP transport
+     */
+    public static HttpTransport httpTransport() {
+        return httpTransport;
+    }
+
+    /**
+     * Replaces the HttpTransport instance that performs the HTTP requests of World Wind's retrievers, typically with a
+     * subclass that customizes how connections are opened.
+     *
+     * @param transport the HTTP transport
+     *
+     * @throws IllegalArgumentException If the transport is null
+     */
+    public static void setHttpTransport(HttpTransport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "WorldWind", "setHttpTransport", "missingTransport"));
+        }
+
+        httpTransport = transport;
+    }
+
+    /**
+     * Returns a singleton TraceBuffer instance that records begin and end events for World Window frames, layer
+     * renders, drawable batches and retrievals. Tracing is disabled by default; enable it with {@link
+     * TraceBuffer#setEnabled(boolean)} and export the recorded events with {@link TraceBuffer#writeChromeTrace}.
+     *
+     * @return the singleton trace buffer
+     */
+    public static TraceBuffer traceBuffer() {
+        return traceBuffer;
+    }
+
     /**
      * Requests that all World Window instances update their display. Internally, this dispatches a REQUEST_REDRAW
      * message to the World Wind message center.
@@ -17,10 +17,13 @@ import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.microedition.khronos.egl.EGLConfig;
@@ -45,6 +48,7 @@ import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.MessageListener;
 import gov.nasa.worldwind.util.Pool;
 import gov.nasa.worldwind.util.SynchronizedPool;
+import gov.nasa.worldwind.util.TraceBuffer;
 
 /**
  * Provides a World Wind window that implements a virtual globe inside of the Android view hierarchy. By default, World
@@ -62,6 +66,8 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
 
     protected static final int MSG_ID_SET_DEPTH_BITS = 4;
 
+    protected static final int MSG_ID_PICK_COMPLETED = 5;
+
     /**
      * Planet or celestial object displayed by this World Window.
      */
@@ -75,6 +81,8 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
 
     protected double fieldOfView = 45;
 
+    protected boolean declutterEnabled;
+
     protected Navigator navigator = new Navigator();
 
     protected NavigatorEventSupport navigatorEvents = new NavigatorEventSupport(this);
@@ -101,12 +109,16 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
 
     protected Queue<Frame> pickQueue = new ConcurrentLinkedQueue<>();
 
+    protected List<PickRequest> pickRequests = new ArrayList<>();
+
     protected Frame currentFrame;
 
     protected boolean isPaused;
 
     protected boolean isWaitingForRedraw;
 
+    protected boolean isWaitingForFrameCallback;
+
     protected Handler mainThreadHandler = new Handler(Looper.getMainLooper(), new Handler.Callback() {
         @Override
         public boolean handleMessage(Message msg) {
@@ -118,6 +130,9 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
                 viewport.set((Viewport) msg.obj);
             } else if (msg.what == MSG_ID_SET_DEPTH_BITS) {
                 depthBits = (Integer) msg.obj;
+            } else if (msg.what == MSG_ID_PICK_COMPLETED) {
+                PickRequest request = (PickRequest) msg.obj;
+                request.getCallback().onPickCompleted(WorldWindow.this, request.pickedObjects);
             }
             return false;
         }
@@ -208,10 +223,14 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         // Clear the frame queue and recycle pending frames back into the frame pool.
         this.clearFrameQueue();
 
+        // Complete pick requests that have not yet been rendered with an empty pick list.
+        this.clearPickRequests();
+
         // Cancel any outstanding request redraw messages.
         Choreographer.getInstance().removeFrameCallback(this);
         this.mainThreadHandler.removeMessages(MSG_ID_REQUEST_REDRAW /*msg.what*/);
         this.isWaitingForRedraw = false;
+        this.isWaitingForFrameCallback = false;
     }
 
     /**
@@ -295,6 +314,21 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         this.fieldOfView = fovyDegrees;
     }
 
+    public boolean isDeclutterEnabled() {
+        return this.declutterEnabled;
+    }
+
+    /**
+     * Sets whether overlapping labels are decluttered. When enabled, labels whose text overlaps the text of a label
+     * with higher priority, or of a closer label with the same priority, are not drawn. Decluttering is disabled by
+     * default.
+     *
+     * @param enabled true to declutter labels, false to draw every label
+     */
+    public void setDeclutterEnabled(boolean enabled) {
+        this.declutterEnabled = enabled;
+    }
+
     public Navigator getNavigator() {
         return this.navigator;
     }
@@ -415,6 +449,7 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
     public PickedObjectList pick(float x, float y) {
         // Allocate a list in which to collect and return the picked objects.
         PickedObjectList pickedObjects = new PickedObjectList();
+        long pickBegin = System.nanoTime();
 
         // Nothing can be picked if the World Window's OpenGL thread is paused.
         if (this.isPaused) {
@@ -448,6 +483,7 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
 
         // Wait until the OpenGL thread is done processing the frame and resolving the picked objects.
         frame.awaitDone();
+        this.frameMetrics.recordPickTime(System.nanoTime() - pickBegin);
 
         return pickedObjects;
     }
@@ -476,6 +512,7 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
     public PickedObjectList pickShapesInRect(float x, float y, float width, float height) {
         // Allocate a list in which to collect and return the picked objects.
         PickedObjectList pickedObjects = new PickedObjectList();
+        long pickBegin = System.nanoTime();
 
         // Nothing can be picked if the World Window's OpenGL thread is paused.
         if (this.isPaused) {
@@ -500,10 +537,109 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
 
         // Wait until the OpenGL thread is done processing the frame and resolving the picked objects.
         frame.awaitDone();
+        this.frameMetrics.recordPickTime(System.nanoTime() - pickBegin);
 
         return pickedObjects;
     }
 
+    /**
+     * Asynchronously determines the World Wind objects displayed at a screen point. The screen point is interpreted as
+     * coordinates in Android screen pixels relative to this View. This method returns immediately without waiting for
+     * the OpenGL thread, and must be called on the Android main thread.
+     * <p/>
+     * The pick is performed during the next Choreographer frame. Pick requests submitted before that frame are
+     * coalesced and rendered together in a single pick frame. A pick submitted while a redraw is pending rides along
+     * with the redrawn frame, and is drawn by the OpenGL thread immediately before that frame. The results are identical
+     * to those of {@link #pick(float, float)}.
+     * <p/>
+     * When the pick completes, the optional callback is invoked on the Android main thread with the list of picked
+     * objects. The returned {@link Future} provides the same list, and may be used to wait for the results from a
+     * thread other than the Android main thread. Cancelling the returned future suppresses the callback.
+     *
+     * @param x        the screen point's X coordinate in Android screen pixels
+     * @param y        the screen point's Y coordinate in Android screen pixels
+     * @param callback the callback to invoke when the pick completes; may be null
+     *
+     * @return a future providing the list of World Wind objects at the screen point
+     */
+    public Future<PickedObjectList> pickAsync(float x, float y, PickCallback callback) {
+        PickRequest request = new PickRequest(callback);
+
+        // Nothing can be picked if the World Window's OpenGL thread is paused.
+        if (this.isPaused) {
+            this.completePickRequest(request);
+            return request;
+        }
+
+        // Compute the pick point in OpenGL screen coordinates, rounding to the nearest whole pixel. Nothing can be picked
+        // if pick point is outside the World Window's viewport.
+        int px = Math.round(x);
+        int py = Math.round(this.getHeight() - y);
+        if (!this.viewport.contains(px, py)) {
+            this.completePickRequest(request);
+            return request;
+        }
+
+        // Compute the line in Cartesian coordinates that passes through the pick point. Nothing can be picked if the
+        // line cannot be constructed.
+        Line pickRay = new Line();
+        if (!this.rayThroughScreenPoint(x, y, pickRay)) { // use the original XY coordinates for the pick ray
+            this.completePickRequest(request);
+            return request;
+        }
+
+        // Enqueue the pick request for processing during the next Choreographer frame.
+        request.pickViewport = new Viewport(px - 1, py - 1, 3, 3); // 3x3 viewport centered on the pick point
+        request.pickViewport.intersect(this.viewport); // limit the 3x3 viewport to the screen viewport
+        request.pickPoint = new Vec2(px, py);
+        request.pickRay = pickRay;
+        this.requestPick(request);
+
+        return request;
+    }
+
+    /**
+     * Asynchronously determines the World Wind shapes displayed in a screen rectangle. The screen rectangle is
+     * interpreted as coordinates in Android screen pixels relative to this view. This method returns immediately
+     * without waiting for the OpenGL thread, and must be called on the Android main thread.
+     * <p/>
+     * Pick requests are coalesced and performed as described in {@link #pickAsync(float, float, PickCallback)}. The
+     * results are identical to those of {@link #pickShapesInRect(float, float, float, float)}.
+     *
+     * @param x        the screen rectangle's X coordinate in Android screen pixels
+     * @param y        the screen rectangle's Y coordinate in Android screen pixels
+     * @param width    the screen rectangle's width in Android screen pixels
+     * @param height   the screen rectangle's height in Android screen pixels
+     * @param callback the callback to invoke when the pick completes; may be null
+     *
+     * @return a future providing the list of World Wind shapes in the screen rectangle
+     */
+    public Future<PickedObjectList> pickShapesInRectAsync(float x, float y, float width, float height, PickCallback callback) {
+        PickRequest request = new PickRequest(callback);
+
+        // Nothing can be picked if the World Window's OpenGL thread is paused.
+        if (this.isPaused) {
+            this.completePickRequest(request);
+            return request;
+        }
+
+        int px = (int) Math.floor(x);
+        int py = (int) Math.floor(this.getHeight() - (y + height));
+        int pw = (int) Math.ceil(width);
+        int ph = (int) Math.ceil(height);
+        if (!this.viewport.intersects(px, py, pw, ph)) {
+            this.completePickRequest(request);
+            return request;
+        }
+
+        // Enqueue the pick request for processing during the next Choreographer frame.
+        request.pickViewport = new Viewport(px, py, pw, ph); // caller-specified pick rectangle
+        request.pickViewport.intersect(this.viewport); // limit the pick viewport to the screen viewport
+        this.requestPick(request);
+
+        return request;
+    }
+
     /**
      * Transforms a Cartesian coordinate point to Android screen coordinates. The resultant screen point is in Android
      * screen pixels relative to this View.
@@ -654,31 +790,73 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         // Suppress duplicate redraw requests, request that occur while the World Window is paused, and requests that
         // occur before we have an Android surface to draw to.
         if (!this.isWaitingForRedraw && !this.isPaused && !this.viewport.isEmpty()) {
-            Choreographer.getInstance().postFrameCallback(this);
+            this.postFrameCallback();
             this.isWaitingForRedraw = true;
         }
     }
 
-    @Override
-    public void doFrame(long frameTimeNanos) {
-        // Skip frames when OpenGL thread has fallen two or more frames behind. Continue to request frame callbacks
-        // until the OpenGL thread catches up.
-        if (this.frameQueue.size() >= MAX_FRAME_QUEUE_SIZE) {
+    protected void requestPick(PickRequest request) {
+        // Accumulate pick requests until the next Choreographer frame. When a redraw is already pending, the pick frame
+        // is carried by the redrawn frame instead of requesting another one.
+        this.pickRequests.add(request);
+        this.postFrameCallback();
+    }
+
+    protected void postFrameCallback() {
+        // Suppress duplicate frame callbacks; redraw requests and pick requests share a single Choreographer callback.
+        if (!this.isWaitingForFrameCallback) {
             Choreographer.getInstance().postFrameCallback(this);
-            return;
+            this.isWaitingForFrameCallback = true;
         }
+    }
 
-        // Allow subsequent redraw requests.
-        this.isWaitingForRedraw = false;
-
-        // Obtain a frame from the pool and render the frame, accumulating Drawables to process in the OpenGL thread.
-        // The frame is recycled by the OpenGL thread.
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // Mark the beginning of the frame callback in the trace buffer. Begin and end have no effect while tracing is
+        // disabled.
+        TraceBuffer trace = WorldWind.traceBuffer();
+        trace.begin(TraceBuffer.CATEGORY_FRAME, "doFrame");
         try {
-            Frame frame = Frame.obtain(this.framePool);
-            this.renderFrame(frame);
-        } catch (Exception e) {
-            Logger.logMessage(Logger.ERROR, "WorldWindow", "doFrame",
-                "Exception while rendering frame in Choreographer callback \'" + frameTimeNanos + "\'", e);
+            // Allow subsequent frame callbacks.
+            this.isWaitingForFrameCallback = false;
+
+            // Coalesce the pick requests accumulated since the last frame into a single pick frame.
+            Frame pickFrame = this.coalescePickRequests();
+
+            // Skip frames when OpenGL thread has fallen two or more frames behind. Continue to request frame callbacks
+            // until the OpenGL thread catches up.
+            if (this.isWaitingForRedraw && this.frameQueue.size() >= MAX_FRAME_QUEUE_SIZE) {
+                this.postFrameCallback();
+            } else if (this.isWaitingForRedraw) {
+                // Allow subsequent redraw requests.
+                this.isWaitingForRedraw = false;
+
+                // Obtain a frame from the pool and render the frame, accumulating Drawables to process in the OpenGL
+                // thread. The pick frame, if any, rides along with the frame and is drawn by the OpenGL thread
+                // immediately before it. The frame is recycled by the OpenGL thread.
+                Frame frame = Frame.obtain(this.framePool);
+                frame.pickFrame = pickFrame;
+                pickFrame = null;
+                try {
+                    this.renderFrame(frame);
+                } catch (Exception e) {
+                    Logger.logMessage(Logger.ERROR, "WorldWindow", "doFrame",
+                        "Exception while rendering frame in Choreographer callback \'" + frameTimeNanos + "\'", e);
+                }
+            }
+
+            // Render the pick frame on its own when there is no frame to carry it. Pick frames rendered on their own
+            // have their own queue, and are therefore not subject to the frame skipping above.
+            if (pickFrame != null) {
+                try {
+                    this.renderFrame(pickFrame);
+                } catch (Exception e) {
+                    Logger.logMessage(Logger.ERROR, "WorldWindow", "doFrame",
+                        "Exception while rendering pick frame in Choreographer callback \'" + frameTimeNanos + "\'", e);
+                }
+            }
+        } finally {
+            trace.end(TraceBuffer.CATEGORY_FRAME, "doFrame");
         }
     }
 
@@ -766,16 +944,8 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         // All frames must be processed or threads waiting on a frame to finish may block indefinitely.
         Frame pickFrame = this.pickQueue.poll();
         if (pickFrame != null) {
-            try {
-                this.drawFrame(pickFrame);
-            } catch (Exception e) {
-                Logger.logMessage(Logger.ERROR, "WorldWindow", "onDrawFrame",
-                    "Exception while processing pick in OpenGL thread", e);
-            } finally {
-                pickFrame.signalDone();
-                pickFrame.recycle();
-                super.requestRender();
-            }
+            this.drawPickFrame(pickFrame);
+            super.requestRender();
         }
 
         // Remove and switch to to the frame at the front of the frame queue, recycling the previous frame back into the
@@ -787,6 +957,13 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
             }
             this.currentFrame = nextFrame;
             super.requestRender();
+
+            // Process the pick frame carried by the new frame. The frame is drawn below in the same call, replacing the
+            // pick colors before the buffers are swapped.
+            if (nextFrame.pickFrame != null) {
+                this.drawPickFrame(nextFrame.pickFrame);
+                nextFrame.pickFrame = null;
+            }
         }
 
         // Process and display the Drawables accumulated in the last frame taken from the front of the queue. This frame
@@ -894,24 +1071,39 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
     }
 
     protected void renderFrame(Frame frame) {
+        // Render the pick frame carried by this frame first, from the same World Window state. The pick frame is drawn
+        // along with this frame on the OpenGL thread, and is therefore not added to the pick queue.
+        if (frame.pickFrame != null) {
+            this.renderFrame(frame.pickFrame, false /*enqueue*/);
+        }
+
+        this.renderFrame(frame, true /*enqueue*/);
+    }
+
+    protected void renderFrame(Frame frame, boolean enqueue) {
         // Mark the beginning of a frame render.
         boolean pickMode = frame.pickMode;
         if (!pickMode) {
             this.frameMetrics.beginRendering(this.rc);
         }
 
+        String traceName = pickMode ? "renderPickFrame" : "renderFrame";
+        WorldWind.traceBuffer().begin(TraceBuffer.CATEGORY_FRAME, traceName);
+
         // Setup the render context according to the World Window's current state.
         this.rc.globe = this.globe;
         this.rc.terrainTessellator = this.tessellator;
         this.rc.layers = this.layers;
         this.rc.verticalExaggeration = this.verticalExaggeration;
         this.rc.fieldOfView = this.fieldOfView;
+        this.rc.declutterEnabled = this.declutterEnabled;
         this.rc.horizonDistance = this.globe.horizonDistance(this.navigator.getAltitude());
         this.rc.camera = this.navigator.getAsCamera(this.globe, this.rc.camera);
         this.rc.cameraPoint = this.globe.geographicToCartesian(this.rc.camera.latitude, this.rc.camera.longitude, this.rc.camera.altitude, this.rc.cameraPoint);
         this.rc.renderResourceCache = this.renderResourceCache;
         this.rc.renderResourceCache.setResources(this.getContext().getResources());
         this.rc.resources = this.getContext().getResources();
+        this.rc.frameMetrics = pickMode ? null : this.frameMetrics; // collect metrics only for displayed frames
 
         // Configure the frame's Cartesian modelview matrix and eye coordinate projection matrix.
         this.computeViewingTransform(frame.projection, frame.modelview);
@@ -935,16 +1127,17 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         this.rc.pickViewport = frame.pickViewport;
         this.rc.pickPoint = frame.pickPoint;
         this.rc.pickRay = frame.pickRay;
+        this.rc.pickRequests = frame.pickRequests;
         this.rc.pickMode = frame.pickMode;
 
         // Let the frame controller render the World Window's current state.
         this.frameController.renderFrame(this.rc);
 
         // Enqueue the frame for processing on the OpenGL thread as soon as possible and wake the OpenGL thread.
-        if (pickMode) {
+        if (enqueue && pickMode) {
             this.pickQueue.offer(frame);
             super.requestRender();
-        } else {
+        } else if (enqueue) {
             this.frameQueue.offer(frame);
             super.requestRender();
         }
@@ -965,6 +1158,8 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
             this.frameMetrics.endRendering(this.rc);
         }
 
+        WorldWind.traceBuffer().end(TraceBuffer.CATEGORY_FRAME, traceName);
+
         // Reset the render context's state in preparation for the next frame.
         this.rc.reset();
     }
@@ -976,6 +1171,9 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
             this.frameMetrics.beginDrawing(this.dc);
         }
 
+        String traceName = pickMode ? "drawPickFrame" : "drawFrame";
+        WorldWind.traceBuffer().begin(TraceBuffer.CATEGORY_FRAME, traceName);
+
         // Setup the draw context according to the frame's current state.
         this.dc.eyePoint = frame.modelview.extractEyePoint(this.dc.eyePoint);
         this.dc.viewport.set(frame.viewport);
@@ -984,6 +1182,7 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         this.dc.modelviewProjection.setToMultiply(frame.projection, frame.modelview);
         this.dc.infiniteProjection.set(frame.infiniteProjection);
         this.dc.screenProjection.setToScreenProjection(frame.viewport.width, frame.viewport.height);
+        this.dc.frameMetrics = pickMode ? null : this.frameMetrics; // collect metrics only for displayed frames
 
         // Process the drawables in the frame's drawable queue and drawable terrain data structures.
         this.dc.drawableQueue = frame.drawableQueue;
@@ -991,6 +1190,7 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         this.dc.pickedObjects = frame.pickedObjects;
         this.dc.pickViewport = frame.pickViewport;
         this.dc.pickPoint = frame.pickPoint;
+        this.dc.pickRequests = frame.pickRequests;
         this.dc.pickMode = frame.pickMode;
 
         // Let the frame controller draw the frame.
@@ -1004,6 +1204,8 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
             this.frameMetrics.endDrawing(this.dc);
         }
 
+        WorldWind.traceBuffer().end(TraceBuffer.CATEGORY_FRAME, traceName);
+
         // Reset the draw context's state in preparation for the next frame.
         this.dc.reset();
     }
@@ -1014,12 +1216,19 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         Frame pickFrame;
         while ((pickFrame = this.pickQueue.poll()) != null) {
             pickFrame.signalDone();
+            this.completePickRequests(pickFrame, true /*discardResults*/);
             pickFrame.recycle();
         }
 
-        // Clear the frame queue and recycle pending frames back into the frame pool.
+        // Clear the frame queue and recycle pending frames back into the frame pool, along with the pick frames they
+        // carry.
         Frame frame;
         while ((frame = this.frameQueue.poll()) != null) {
+            if (frame.pickFrame != null) {
+                frame.pickFrame.signalDone();
+                this.completePickRequests(frame.pickFrame, true /*discardResults*/);
+                frame.pickFrame.recycle();
+            }
             frame.recycle();
         }
 
@@ -1030,6 +1239,86 @@ public class WorldWindow extends GLSurfaceView implements Choreographer.FrameCal
         }
     }
 
+    protected void drawPickFrame(Frame pickFrame) {
+        try {
+            this.drawFrame(pickFrame);
+        } catch (Exception e) {
+            Logger.logMessage(Logger.ERROR, "WorldWindow", "drawPickFrame",
+                "Exception while processing pick in OpenGL thread", e);
+        } finally {
+            pickFrame.signalDone();
+            this.completePickRequests(pickFrame, false /*discardResults*/);
+            pickFrame.recycle();
+        }
+    }
+
+    protected Frame coalescePickRequests() {
+        if (this.pickRequests.isEmpty()) {
+            return null;
+        }
+
+        // Obtain a frame from the pool and configure it to pick the union of all pending pick requests. The frame's
+        // picked objects collect the candidate shapes for every request, and are resolved into each request's picked
+        // objects on the OpenGL thread.
+        Frame frame = Frame.obtain(this.framePool);
+        frame.pickedObjects = new PickedObjectList();
+        frame.pickViewport = new Viewport();
+        frame.pickRequests = new ArrayList<>(this.pickRequests.size());
+        frame.pickMode = true;
+
+        for (int idx = 0, len = this.pickRequests.size(); idx < len; idx++) {
+            PickRequest request = this.pickRequests.get(idx);
+            if (!request.isCancelled()) {
+                frame.pickViewport.union(request.pickViewport);
+                frame.pickRequests.add(request);
+            }
+        }
+
+        this.pickRequests.clear();
+
+        // Frames with no remaining requests are recycled immediately.
+        if (frame.pickRequests.isEmpty()) {
+            frame.recycle();
+            return null;
+        }
+
+        return frame;
+    }
+
+    protected void clearPickRequests() {
+        for (int idx = 0, len = this.pickRequests.size(); idx < len; idx++) {
+            this.completePickRequest(this.pickRequests.get(idx));
+        }
+
+        this.pickRequests.clear();
+    }
+
+    protected void completePickRequests(Frame frame, boolean discardResults) {
+        if (frame.pickRequests == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (int idx = 0, len = frame.pickRequests.size(); idx < len; idx++) {
+            PickRequest request = frame.pickRequests.get(idx);
+            if (discardResults) {
+                request.pickedObjects.clearPickedObjects();
+            } else {
+                this.frameMetrics.recordPickTime(now - request.getRequestTime());
+            }
+            this.completePickRequest(request);
+        }
+    }
+
+    protected void completePickRequest(PickRequest request) {
+        // Wake threads waiting on the request and deliver the results to the request's callback on the main thread.
+        // Cancelled requests have already been marked as done, and their callback is suppressed.
+        if (request.signalDone() && request.getCallback() != null) {
+            this.mainThreadHandler.sendMessage(
+                Message.obtain(this.mainThreadHandler, MSG_ID_PICK_COMPLETED /*msg.what*/, request /*msg.obj*/));
+        }
+    }
+
     protected void computeViewingTransform(Matrix4 projection, Matrix4 modelview) {
         // Compute the clip plane distances. The near distance is set to a large value that does not clip the globe's
         // surface. The far distance is set to the smallest value that does not clip the atmosphere.
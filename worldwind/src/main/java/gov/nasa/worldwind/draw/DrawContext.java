@@ -13,8 +13,11 @@ import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import gov.nasa.worldwind.FrameMetrics;
+import gov.nasa.worldwind.PickRequest;
 import gov.nasa.worldwind.PickedObjectList;
 import gov.nasa.worldwind.geom.Matrix4;
 import gov.nasa.worldwind.geom.Vec2;
@@ -41,6 +44,8 @@ public class DrawContext {
 
     public Matrix4 screenProjection = new Matrix4();
 
+    public FrameMetrics frameMetrics;
+
     public DrawableQueue drawableQueue;
 
     public DrawableQueue drawableTerrain;
@@ -51,6 +56,8 @@ public class DrawContext {
 
     public Vec2 pickPoint;
 
+    public List<PickRequest> pickRequests;
+
     public boolean pickMode;
 
     private int framebufferId;
@@ -86,11 +93,13 @@ public class DrawContext {
         this.modelviewProjection.setToIdentity();
         this.screenProjection.setToIdentity();
         this.infiniteProjection.setToIdentity();
+        this.frameMetrics = null;
         this.drawableQueue = null;
         this.drawableTerrain = null;
         this.pickedObjects = null;
         this.pickViewport = null;
         this.pickPoint = null;
+        this.pickRequests = null;
         this.pickMode = false;
         this.scratchBuffer.clear();
         this.scratchList.clear();
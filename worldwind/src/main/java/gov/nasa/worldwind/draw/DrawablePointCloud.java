@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.draw;
+
+import android.opengl.GLES20;
+
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.render.BufferObject;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.PointCloudProgram;
+import gov.nasa.worldwind.util.Pool;
+
+/**
+ * Draws the chunks of a point cloud selected for the current frame. Each chunk is a vertex buffer object of interleaved
+ * points, each point a 3-component float position relative to the chunk's origin followed by a 4-component unsigned
+ * byte RGBA color. When offsets are enabled, each point's position is followed by a 3-component float offset, which is
+ * scaled by the offset scale and added to the position.
+ */
+public class DrawablePointCloud implements Drawable {
+
+    public static final int VERTEX_STRIDE = 16;
+
+    public static final int OFFSET_VERTEX_STRIDE = 28;
+
+    public PointCloudProgram program;
+
+    public float pointSize = 1;
+
+    public boolean enableOffsets;
+
+    public float offsetScale;
+
+    public Color pickColor = new Color();
+
+    public boolean enableDepthTest = true;
+
+    protected int chunkCount;
+
+    protected BufferObject[] chunkBuffers = new BufferObject[16];
+
+    protected Vec3[] chunkOrigins = new Vec3[16];
+
+    protected int[] chunkPointCounts = new int[16];
+
+    private Matrix4 mvpMatrix = new Matrix4();
+
+    private Pool<DrawablePointCloud> pool;
+
+    public DrawablePointCloud() {
+    }
+
+    public static DrawablePointCloud obtain(Pool<DrawablePointCloud> pool) {
+        DrawablePointCloud instance = pool.acquire(); // get an instance from the pool
+        return (instance != null) ? instance.setPool(pool) : new DrawablePointCloud().setPool(pool);
+    }
+
+    private DrawablePointCloud setPool(Pool<DrawablePointCloud> pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    @Override
+    public void recycle() {
+        this.program = null;
+
+        for (int idx = 0; idx < this.chunkCount; idx++) {
+            this.chunkBuffers[idx] = null;
+            this.chunkOrigins[idx] = null;
+        }
+        this.chunkCount = 0;
+
+        if (this.pool != null) { // return this instance to the pool
+            this.pool.release(this);
+            this.pool = null;
+        }
+    }
+
+    /**
+     * Adds a chunk to draw.
+     *
+     * @param buffer     the chunk's vertex buffer object
+     * @param origin     the Cartesian point the chunk's point positions are relative to
+     * @param pointCount the number of points in the chunk
+     */
+    public void addChunk(BufferObject buffer, Vec3 origin, int pointCount) {
+        int index = this.chunkCount++;
+        if (index == this.chunkBuffers.length) {
+            int capacity = index * 2;
+            BufferObject[] newBuffers = new BufferObject[capacity];
+            Vec3[] newOrigins = new Vec3[capacity];
+            int[] newCounts = new int[capacity];
+            System.arraycopy(this.chunkBuffers, 0, newBuffers, 0, index);
+            System.arraycopy(this.chunkOrigins, 0, newOrigins, 0, index);
+            System.arraycopy(this.chunkPointCounts, 0, newCounts, 0, index);
+            this.chunkBuffers = newBuffers;
+            this.chunkOrigins = newOrigins;
+            this.chunkPointCounts = newCounts;
+        }
+
+        this.chunkBuffers[index] = buffer;
+        this.chunkOrigins[index] = origin;
+        this.chunkPointCounts[index] = pointCount;
+    }
+
+    public int getChunkCount() {
+        return this.chunkCount;
+    }
+
+    @Override
+    public void draw(DrawContext dc) {
+        if (this.program == null || !this.program.useProgram(dc)) {
+            return; // program unspecified or failed to build
+        }
+
+        // Use the draw context's pick mode, and the point cloud's pick color and point size.
+        this.program.enablePickMode(dc.pickMode);
+        this.program.loadPickColor(this.pickColor);
+        this.program.loadPointSize(this.pointSize);
+        this.program.loadOffsetScale(this.enableOffsets ? this.offsetScale : 0);
+
+        // Disable depth testing if requested.
+        if (!this.enableDepthTest) {
+            GLES20.glDisable(GLES20.GL_DEPTH_TEST);
+        }
+
+        GLES20.glEnableVertexAttribArray(1 /*vertexColor*/);
+        if (this.enableOffsets) {
+            GLES20.glEnableVertexAttribArray(2 /*vertexOffset*/);
+        }
+
+        for (int idx = 0; idx < this.chunkCount; idx++) {
+            if (!this.chunkBuffers[idx].bindBuffer(dc)) {
+                continue; // vertex buffer failed to bind
+            }
+
+            // Use the draw context's modelview projection matrix, transformed to the chunk's local coordinates.
+            Vec3 origin = this.chunkOrigins[idx];
+            this.mvpMatrix.set(dc.modelviewProjection);
+            this.mvpMatrix.multiplyByTranslation(origin.x, origin.y, origin.z);
+            this.program.loadModelviewProjection(this.mvpMatrix);
+
+            // Use the chunk's interleaved point positions, offsets and colors.
+            if (this.enableOffsets) {
+                GLES20.glVertexAttribPointer(0 /*vertexPoint*/, 3, GLES20.GL_FLOAT, false, OFFSET_VERTEX_STRIDE, 0);
+                GLES20.glVertexAttribPointer(2 /*vertexOffset*/, 3, GLES20.GL_FLOAT, false, OFFSET_VERTEX_STRIDE, 12);
+                GLES20.glVertexAttribPointer(1 /*vertexColor*/, 4, GLES20.GL_UNSIGNED_BYTE, true, OFFSET_VERTEX_STRIDE, 24);
+            } else {
+                GLES20.glVertexAttribPointer(0 /*vertexPoint*/, 3, GLES20.GL_FLOAT, false, VERTEX_STRIDE, 0);
+                GLES20.glVertexAttribPointer(1 /*vertexColor*/, 4, GLES20.GL_UNSIGNED_BYTE, true, VERTEX_STRIDE, 12);
+            }
+            GLES20.glDrawArrays(GLES20.GL_POINTS, 0, this.chunkPointCounts[idx]);
+        }
+
+        // Restore the default World Wind OpenGL state.
+        GLES20.glDisableVertexAttribArray(1 /*vertexColor*/);
+        if (this.enableOffsets) {
+            GLES20.glDisableVertexAttribArray(2 /*vertexOffset*/);
+        }
+        if (!this.enableDepthTest) {
+            GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.SynchronizedPool;
+
+/**
+ * Decompresses individual Tiff strips or tiles and reverses their predictor. A ChunkDecoder retains its decoded data
+ * buffer, compressed data buffer, LZW string table and Inflater between chunks, so that decoding an image allocates
+ * memory only for its first chunk. ChunkDecoder is not thread safe; each thread decoding chunks obtains its own decoder
+ * from the shared pool.
+ */
+class ChunkDecoder {
+
+    protected static final SynchronizedPool<ChunkDecoder> pool = new SynchronizedPool<>();
+
+    protected static final int LZW_CLEAR_CODE = 256;
+
+    protected static final int LZW_EOI_CODE = 257;
+
+    protected static final int LZW_FIRST_CODE = 258;
+
+    protected static final int LZW_MAX_CODES = 4096;
+
+    /**
+     * The decoded data of the most recent chunk.
+     */
+    protected byte[] data = new byte[0];
+
+    protected byte[] compressed = new byte[0];
+
+    protected Inflater inflater;
+
+    protected short[] lzwPrefix;
+
+    protected byte[] lzwSuffix;
+
+    protected byte[] lzwFirst;
+
+    protected short[] lzwLength;
+
+    protected ChunkDecoder() {
+    }
+
+    protected static ChunkDecoder obtain() {
+        ChunkDecoder decoder = pool.acquire();
+        return (decoder != null) ? decoder : new ChunkDecoder();
+    }
+
+    protected void recycle() {
+        pool.release(this);
+    }
+
+    /**
+     * Decodes a compressed chunk into this decoder's data buffer. Data beyond the expected size is ignored, and data
+     * missing from a truncated or empty chunk is filled with zeros.
+     *
+     * @param compression  the chunk's compression scheme
+     * @param source       the Tiff data
+     * @param offset       the chunk's offset in the Tiff data
+     * @param length       the chunk's compressed length in bytes
+     * @param expectedSize the chunk's decoded length in bytes
+     *
+     * @return the decoded data, with at least expectedSize bytes
+     */
+    protected byte[] decode(int compression, ByteBuffer source, int offset, int length, int expectedSize) {
+        if (this.data.length < expectedSize) {
+            this.data = new byte[expectedSize];
+        }
+
+        // Read the compressed data directly from a heap buffer's array, copying it only from direct buffers.
+        byte[] input;
+        int inputOffset;
+        if (source.hasArray()) {
+            input = source.array();
+            inputOffset = source.arrayOffset() + offset;
+        } else {
+            if (this.compressed.length < length) {
+                this.compressed = new byte[length];
+            }
+            ByteBuffer dup = source.duplicate();
+            dup.limit(offset + length).position(offset);
+            dup.get(this.compressed, 0, length);
+            input = this.compressed;
+            inputOffset = 0;
+        }
+
+        int count;
+        switch (compression) {
+            case Tiff.LZW_COMPRESSION:
+                count = this.decodeLzw(input, inputOffset, length, expectedSize);
+                break;
+            case Tiff.DEFLATE_COMPRESSION:
+            case Tiff.ADOBE_DEFLATE_COMPRESSION:
+                count = this.inflate(input, inputOffset, length, expectedSize);
+                break;
+            case Tiff.PACKBITS_COMPRESSION:
+                count = this.decodePackBits(input, inputOffset, length, expectedSize);
+                break;
+            default:
+                throw new UnsupportedOperationException(
+                    Logger.logMessage(Logger.ERROR, "ChunkDecoder", "decode", "compression type not supported"));
+        }
+
+        // Clear the data left over from the previous chunk when this chunk is truncated or empty.
+        if (count < expectedSize) {
+            Arrays.fill(this.data, count, expectedSize, (byte) 0);
+        }
+
+        return this.data;
+    }
+
+    protected int inflate(byte[] input, int offset, int length, int expectedSize) {
+        if (this.inflater == null) {
+            this.inflater = new Inflater();
+        }
+
+        Inflater inflater = this.inflater;
+        inflater.reset();
+        inflater.setInput(input, offset, length);
+
+        int count = 0;
+        try {
+            while (count < expectedSize && !inflater.finished() && !inflater.needsInput()) {
+                count += inflater.inflate(this.data, count, expectedSize - count);
+            }
+        } catch (DataFormatException ex) {
+            throw new RuntimeException(
+                Logger.logMessage(Logger.ERROR, "ChunkDecoder", "inflate", "invalid deflate data"), ex);
+        }
+
+        return count;
+    }
+
+    protected int decodePackBits(byte[] input, int offset, int length, int expectedSize) {
+        byte[] data = this.data;
+        int pos = offset, end = offset + length, count = 0;
+
+        while (pos < end && count < expectedSize) {
+            int n = input[pos++];
+            if (n >= 0) { // copy the next n + 1 bytes literally
+                int run = Math.min(Math.min(n + 1, end - pos), expectedSize - count);
+                System.arraycopy(input, pos, data, count, run);
+                pos += n + 1;
+                count += run;
+            } else if (n != -128 && pos < end) { // repeat the next byte -n + 1 times
+                int run = Math.min(-n + 1, expectedSize - count);
+                byte b = input[pos++];
+                for (int idx = 0; idx < run; idx++) {
+                    data[count++] = b;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    protected int decodeLzw(byte[] input, int offset, int length, int expectedSize) {
+        if (this.lzwPrefix == null) {
+            this.lzwPrefix = new short[LZW_MAX_CODES];
+            this.lzwSuffix = new byte[LZW_MAX_CODES];
+            this.lzwFirst = new byte[LZW_MAX_CODES];
+            this.lzwLength = new short[LZW_MAX_CODES];
+            for (int code = 0; code < 256; code++) {
+                this.lzwPrefix[code] = -1;
+                this.lzwSuffix[code] = (byte) code;
+                this.lzwFirst[code] = (byte) code;
+                this.lzwLength[code] = 1;
+            }
+        }
+
+        short[] prefix = this.lzwPrefix;
+        byte[] suffix = this.lzwSuffix;
+        byte[] first = this.lzwFirst;
+        short[] lengths = this.lzwLength;
+        byte[] data = this.data;
+
+        int pos = offset, end = offset + length, count = 0;
+        int bitBuffer = 0, bitCount = 0;
+        int codeWidth = 9, nextCode = LZW_FIRST_CODE, oldCode = -1;
+
+        while (count < expectedSize) {
+            // Read the next code, most significant bit first.
+            while (bitCount < codeWidth && pos < end) {
+                bitBuffer = (bitBuffer << 8) | (input[pos++] & 0xFF);
+                bitCount += 8;
+            }
+            if (bitCount < codeWidth) {
+                break; // the chunk ended without an end of information code
+            }
+            int code = (bitBuffer >>> (bitCount - codeWidth)) & ((1 << codeWidth) - 1);
+            bitCount -= codeWidth;
+
+            if (code == LZW_EOI_CODE) {
+                break;
+            } else if (code == LZW_CLEAR_CODE) {
+                codeWidth = 9;
+                nextCode = LZW_FIRST_CODE;
+                oldCode = -1;
+                continue;
+            }
+
+            if (oldCode == -1) { // the first code after a clear code is a literal byte
+                if (code > 255) {
+                    throw new RuntimeException(
+                        Logger.logMessage(Logger.ERROR, "ChunkDecoder", "decodeLzw", "invalid LZW code"));
+                }
+                data[count++] = (byte) code;
+                oldCode = code;
+                continue;
+            }
+
+            // Determine the string for this code. A code equal to the next code is the previous string followed by
+            // its own first byte.
+            int stringCode;
+            byte firstByte;
+            if (code < nextCode) {
+                stringCode = code;
+                firstByte = first[code];
+            } else if (code == nextCode) {
+                stringCode = oldCode;
+                firstByte = first[oldCode];
+            } else {
+                throw new RuntimeException(
+                    Logger.logMessage(Logger.ERROR, "ChunkDecoder", "decodeLzw", "invalid LZW code"));
+            }
+
+            // Write the string back to front by following its prefix chain, truncating it at the expected size.
+            int stringLength = lengths[stringCode];
+            int last = count + stringLength - 1;
+            for (int c = stringCode, idx = last; c != -1; c = prefix[c], idx--) {
+                if (idx < expectedSize) {
+                    data[idx] = suffix[c];
+                }
+            }
+            count += stringLength;
+            if (code == nextCode && count < expectedSize) {
+                data[count] = firstByte;
+            }
+            if (code == nextCode) {
+                count++;
+            }
+
+            // Add the previous string followed by this string's first byte to the table.
+            if (nextCode < LZW_MAX_CODES) {
+                prefix[nextCode] = (short) oldCode;
+                suffix[nextCode] = firstByte;
+                first[nextCode] = first[oldCode];
+                lengths[nextCode] = (short) (lengths[oldCode] + 1);
+                nextCode++;
+            }
+
+            // Tiff LZW increases the code width one code early.
+            if (nextCode + 1 >= (1 << codeWidth) && codeWidth < 12) {
+                codeWidth++;
+            }
+
+            oldCode = code;
+        }
+
+        return Math.min(count, expectedSize);
+    }
+
+    /**
+     * Reverses the predictor applied to the decoded data of a chunk, leaving the samples in the Tiff's byte order.
+     *
+     * @param predictor       the chunk's predictor
+     * @param width           the chunk's width in pixels
+     * @param rows            the number of rows in the chunk
+     * @param samplesPerPixel the number of samples per pixel
+     * @param bytesPerSample  the number of bytes per sample, 1, 2, 4 or 8
+     * @param order           the Tiff's byte order
+     */
+    protected void undoPredictor(int predictor, int width, int rows, int samplesPerPixel, int bytesPerSample,
+                                 ByteOrder order) {
+        if (predictor == Tiff.HORIZONTAL_PREDICTOR) {
+            this.undoHorizontalPredictor(width, rows, samplesPerPixel, bytesPerSample, order);
+        } else if (predictor == Tiff.FLOATING_POINT_PREDICTOR) {
+            this.undoFloatingPointPredictor(width, rows, samplesPerPixel, bytesPerSample, order);
+        } else if (predictor != Tiff.NO_PREDICTOR) {
+            throw new UnsupportedOperationException(
+                Logger.logMessage(Logger.ERROR, "ChunkDecoder", "undoPredictor", "predictor not supported"));
+        }
+    }
+
+    protected void undoHorizontalPredictor(int width, int rows, int samplesPerPixel, int bytesPerSample,
+                                           ByteOrder order) {
+        byte[] data = this.data;
+        int rowBytes = width * samplesPerPixel * bytesPerSample;
+        boolean bigEndian = order == ByteOrder.BIG_ENDIAN;
+
+        for (int row = 0; row < rows; row++) {
+            int begin = row * rowBytes, end = begin + rowBytes;
+
+            if (bytesPerSample == 1) {
+                for (int idx = begin + samplesPerPixel; idx < end; idx++) {
+                    data[idx] += data[idx - samplesPerPixel];
+                }
+            } else if (bytesPerSample == 2) {
+                int stride = samplesPerPixel * 2;
+                int hi = bigEndian ? 0 : 1, lo = bigEndian ? 1 : 0;
+                for (int idx = begin + stride; idx < end; idx += 2) {
+                    int prev = ((data[idx - stride + hi] & 0xFF) << 8) | (data[idx - stride + lo] & 0xFF);
+                    int value = prev + (((data[idx + hi] & 0xFF) << 8) | (data[idx + lo] & 0xFF));
+                    data[idx + hi] = (byte) (value >> 8);
+                    data[idx + lo] = (byte) value;
+                }
+            } else if (bytesPerSample == 4) {
+                int stride = samplesPerPixel * 4;
+                for (int idx = begin + stride; idx < end; idx += 4) {
+                    int value = readInt(data, idx - stride, bigEndian) + readInt(data, idx, bigEndian);
+                    writeInt(data, idx, value, bigEndian);
+                }
+            } else {
+                throw new UnsupportedOperationException(
+                    Logger.logMessage(Logger.ERROR, "ChunkDecoder", "undoHorizontalPredictor", "sample size not supported"));
+            }
+        }
+    }
+
+    protected void undoFloatingPointPredictor(int width, int rows, int samplesPerPixel, int bytesPerSample,
+                                              ByteOrder order) {
+        // The floating point predictor differences the bytes of each row, after rearranging the row's samples into
+        // byte planes ordered from most significant to least significant.
+        byte[] data = this.data;
+        int count = width * samplesPerPixel;
+        int rowBytes = count * bytesPerSample;
+        if (this.compressed.length < rowBytes) {
+            this.compressed = new byte[rowBytes];
+        }
+        byte[] planes = this.compressed; // the compressed data is no longer needed
+        boolean bigEndian = order == ByteOrder.BIG_ENDIAN;
+
+        for (int row = 0; row < rows; row++) {
+            int begin = row * rowBytes;
+
+            for (int idx = begin + samplesPerPixel, end = begin + rowBytes; idx < end; idx++) {
+                data[idx] += data[idx - samplesPerPixel];
+            }
+
+            System.arraycopy(data, begin, planes, 0, rowBytes);
+            for (int sample = 0; sample < count; sample++) {
+                for (int b = 0; b < bytesPerSample; b++) {
+                    int plane = bigEndian ? b : bytesPerSample - 1 - b;
+                    data[begin + sample * bytesPerSample + b] = planes[plane * count + sample];
+                }
+            }
+        }
+    }
+
+    protected static int readInt(byte[] data, int pos, boolean bigEndian) {
+        if (bigEndian) {
+            return ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16) | ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+        } else {
+            return ((data[pos + 3] & 0xFF) << 24) | ((data[pos + 2] & 0xFF) << 16) | ((data[pos + 1] & 0xFF) << 8) | (data[pos] & 0xFF);
+        }
+    }
+
+    protected static void writeInt(byte[] data, int pos, int value, boolean bigEndian) {
+        if (bigEndian) {
+            data[pos] = (byte) (value >> 24);
+            data[pos + 1] = (byte) (value >> 16);
+            data[pos + 2] = (byte) (value >> 8);
+            data[pos + 3] = (byte) value;
+        } else {
+            data[pos + 3] = (byte) (value >> 24);
+            data[pos + 2] = (byte) (value >> 16);
+            data[pos + 1] = (byte) (value >> 8);
+            data[pos] = (byte) value;
+        }
+    }
+}
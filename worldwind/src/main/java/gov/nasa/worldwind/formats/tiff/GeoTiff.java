@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import java.nio.ByteBuffer;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Reads the GeoTIFF georeferencing of Tiff images.
+ */
+public class GeoTiff {
+
+    public static final int MODEL_TYPE_GEO_KEY = 1024;
+
+    public static final int RASTER_TYPE_GEO_KEY = 1025;
+
+    public static final int GEOGRAPHIC_TYPE_GEO_KEY = 2048;
+
+    public static final int MODEL_TYPE_GEOGRAPHIC = 2;
+
+    public static final int RASTER_PIXEL_IS_POINT = 2;
+
+    public static final int GCS_WGS_84 = 4326;
+
+    protected GeoTiff() {
+    }
+
+    /**
+     * Computes the geographic sector covered by a GeoTIFF image from its pixel scale, tie point and geo keys. The image
+     * must be referenced to a geographic coordinate system; geographic systems other than WGS84 are interpreted as
+     * WGS84.
+     *
+     * @param subfile the GeoTIFF image
+     *
+     * @return the image's sector
+     *
+     * @throws IllegalArgumentException If the image is missing its georeferencing, or if it is projected
+     */
+    public static Sector readSector(Subfile subfile) {
+        Field scaleField = subfile.getFields().get(Tiff.MODEL_PIXEL_SCALE_TAG);
+        Field tiepointField = subfile.getFields().get(Tiff.MODEL_TIEPOINT_TAG);
+        if (scaleField == null || tiepointField == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GeoTiff", "readSector", "GeoTIFF georeferencing missing"));
+        }
+
+        boolean pixelIsPoint = false;
+        Field keyField = subfile.getFields().get(Tiff.GEO_KEY_DIRECTORY_TAG);
+        if (keyField != null) {
+            // The key directory is a header of four shorts followed by one entry of four shorts per key: the key's ID,
+            // the tag holding its value, the value count, and the value itself when the tag is zero.
+            ByteBuffer keys = keyField.getDataBuffer();
+            int keyCount = keys.getShort(6) & 0xFFFF;
+            for (int idx = 0; idx < keyCount && (idx + 2) * 8 <= keys.limit(); idx++) {
+                int pos = (idx + 1) * 8;
+                int keyId = keys.getShort(pos) & 0xFFFF;
+                int location = keys.getShort(pos + 2) & 0xFFFF;
+                int value = keys.getShort(pos + 6) & 0xFFFF;
+                if (location != 0) {
+                    continue; // the keys interpreted here are short values stored in the directory
+                } else if (keyId == MODEL_TYPE_GEO_KEY && value != MODEL_TYPE_GEOGRAPHIC) {
+                    throw new IllegalArgumentException(
+                        Logger.logMessage(Logger.ERROR, "GeoTiff", "readSector", "GeoTIFF projection not supported"));
+                } else if (keyId == GEOGRAPHIC_TYPE_GEO_KEY && value != GCS_WGS_84) {
+                    Logger.log(Logger.WARN, "GeoTIFF geographic coordinate system " + value + " interpreted as WGS84");
+                } else if (keyId == RASTER_TYPE_GEO_KEY) {
+                    pixelIsPoint = (value == RASTER_PIXEL_IS_POINT);
+                }
+            }
+        }
+
+        // Compute the sector from the geographic location of the tie point's raster coordinates. Point rasters locate
+        // the center of each pixel rather than its corner.
+        ByteBuffer scale = scaleField.getDataBuffer();
+        double scaleX = scale.getDouble(0);
+        double scaleY = scale.getDouble(8);
+        ByteBuffer tiepoint = tiepointField.getDataBuffer();
+        double rasterX = tiepoint.getDouble(0);
+        double rasterY = tiepoint.getDouble(8);
+        double lon = tiepoint.getDouble(24);
+        double lat = tiepoint.getDouble(32);
+        if (pixelIsPoint) {
+            rasterX += 0.5;
+            rasterY += 0.5;
+        }
+
+        double minLon = lon - rasterX * scaleX;
+        double maxLat = lat + rasterY * scaleY;
+        double deltaLon = subfile.getImageWidth() * scaleX;
+        double deltaLat = subfile.getImageLength() * scaleY;
+        return new Sector(maxLat - deltaLat, minLon, deltaLat, deltaLon);
+    }
+}
@@ -6,8 +6,12 @@
 package gov.nasa.worldwind.formats.tiff;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import gov.nasa.worldwind.util.Logger;
 
@@ -191,9 +195,9 @@ public class Subfile {
         field = this.fields.get(Tiff.COMPRESSION_TAG);
         if (field != null) {
             this.compression = Tiff.readWord(field.getDataBuffer());
-            if (this.compression != 1) {
+            if (!Tiff.isCompressionSupported(this.compression)) {
                 throw new UnsupportedOperationException(
-                    Logger.logMessage(Logger.ERROR, "Subfile", "populateDefineFields", "compressed images are not supported"));
+                    Logger.logMessage(Logger.ERROR, "Subfile", "populateDefineFields", "compression type not supported"));
             }
         }
 
@@ -277,6 +281,10 @@ public class Subfile {
         return this.compression;
     }
 
+    public int getCompressionPredictor() {
+        return this.compressionPredictor;
+    }
+
     public int getPhotometricInterpretation() {
         return this.photometricInterpretation;
     }
@@ -485,12 +493,59 @@ public class Subfile {
      * @return the populated provided ByteBuffer
      */
     public ByteBuffer getData(ByteBuffer result) {
+        return this.getData(0, 0, this.imageWidth, this.imageLength, result, null);
+    }
+
+    /**
+     * Writes the uncompressed data of a rectangular window of the image to the provided ByteBuffer, as consecutive
+     * rows of pixels beginning at the buffer's position. Only the strips or tiles intersecting the window are read.
+     * Compressed strips or tiles are each decompressed into a scratch buffer, then the portion within the window is
+     * copied to the provided buffer. The data copied to the provided buffer will use the original datas byte order and
+     * may override the byte order specified by the provided buffer.
+     *
+     * @param x      the window's first column
+     * @param y      the window's first row
+     * @param width  the window's width in pixels
+     * @param height the window's height in pixels
+     * @param result a ByteBuffer ready for the uncompressed data, should have at least width * height * bytes per
+     *               pixel remaining
+     *
+     * @return the populated provided ByteBuffer
+     */
+    public ByteBuffer getData(int x, int y, int width, int height, ByteBuffer result) {
+        return this.getData(x, y, width, height, result, null);
+    }
+
+    /**
+     * Writes the uncompressed data of a rectangular window of the image to the provided ByteBuffer, as consecutive
+     * rows of pixels beginning at the buffer's position. Bands of strips or tile rows are copied, or decompressed,
+     * concurrently on the provided executor, with the calling thread copying the first band and waiting for the others
+     * to complete. The data copied to the provided buffer will use the original datas byte order and may override the
+     * byte order specified by the provided buffer.
+     *
+     * @param x        the window's first column
+     * @param y        the window's first row
+     * @param width    the window's width in pixels
+     * @param height   the window's height in pixels
+     * @param result   a ByteBuffer ready for the uncompressed data, should have at least width * height * bytes per
+     *                 pixel remaining
+     * @param executor the executor used to copy bands concurrently, or null to copy on the calling thread
+     *
+     * @return the populated provided ByteBuffer
+     */
+    public ByteBuffer getData(int x, int y, int width, int height, ByteBuffer result, Executor executor) {
         if (result == null) {
             throw new IllegalArgumentException(
                 Logger.logMessage(Logger.ERROR, "Subfile", "getUncompressedImage", "null buffer"));
         }
 
-        if (result.remaining() < this.getDataSize()) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.imageWidth || y + height > this.imageLength) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Subfile", "getUncompressedImage", "invalid window"));
+        }
+
+        int size = width * height * this.getTotalBytesPerPixel();
+        if (result.remaining() < size) {
             throw new RuntimeException(
                 Logger.logMessage(Logger.ERROR, "Subfile", "getUncompressedImage", "inadequate buffer size"));
         }
@@ -498,57 +553,355 @@ public class Subfile {
         // set the result ByteBuffer to our datas byte order
         result.order(this.tiff.buffer.order());
 
-        // TODO handle compression
-        if (this.fields.containsKey(Tiff.STRIP_OFFSETS_TAG)) {
-            this.combineStrips(result);
-        } else {
-            this.combineTiles(result);
+        this.combineChunks(x, y, width, height, result, executor);
+        result.position(result.position() + size);
+
+        return result;
+    }
+
+    /**
+     * Indicates whether the image is divided into tiles rather than strips.
+     *
+     * @return true if the image is tiled, otherwise false
+     */
+    public boolean isTiled() {
+        return !this.fields.containsKey(Tiff.STRIP_OFFSETS_TAG) && this.tileOffsets != null;
+    }
+
+    /**
+     * Calculates the uncompressed size of one tile, including any padding beyond the image's right and bottom edges.
+     *
+     * @return the size in bytes of an uncompressed tile
+     */
+    public int getTileDataSize() {
+        return this.tileWidth * this.tileLength * this.getTotalBytesPerPixel();
+    }
+
+    /**
+     * Writes the uncompressed data of one tile to the provided ByteBuffer beginning at the buffer's position, as
+     * consecutive rows of tileWidth pixels. Tiles on the image's right and bottom edges include the padding stored in
+     * the Tiff data. The data copied to the provided buffer will use the original datas byte order and may override
+     * the byte order specified by the provided buffer.
+     *
+     * @param row    the tile's row, counting from the top of the image
+     * @param column the tile's column, counting from the left of the image
+     * @param result a ByteBuffer ready for the uncompressed data, should have at least {@link #getTileDataSize()}
+     *               bytes remaining
+     *
+     * @return the populated provided ByteBuffer
+     */
+    public ByteBuffer getTileData(int row, int column, ByteBuffer result) {
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Subfile", "getTileData", "null buffer"));
+        }
+
+        int index = this.tileIndex(row, column);
+        int length = this.tileByteCounts[index];
+        if (this.compression == Tiff.NO_COMPRESSION && length > 0) {
+            length = this.getTileDataSize(); // ignore any data stored after the uncompressed tile
         }
+        this.decodeTile(this.tiff.buffer, this.tileOffsets[index], length, result);
 
         return result;
     }
 
-    protected void combineStrips(ByteBuffer result) {
-        // this works when the data is not compressed and may work when it is compressed as well
-        for (int i = 0; i < this.stripOffsets.length; i++) {
-            this.tiff.buffer.limit(this.stripOffsets[i] + this.stripByteCounts[i]);
-            this.tiff.buffer.position(this.stripOffsets[i]);
-            result.put(this.tiff.buffer);
+    /**
+     * Writes the uncompressed data of one tile whose stored data has been read separately from the Tiff data, such as
+     * by an HTTP range request, to the provided ByteBuffer beginning at the buffer's position. The tile's stored data
+     * is read from the tileData buffer's position to its limit, and is decompressed according to this Subfile's
+     * compression and predictor. Tiles with no stored data, as in sparse files, are written as zeros. The data copied
+     * to the provided buffer will use the original datas byte order and may override the byte order specified by the
+     * provided buffer.
+     *
+     * @param tileData the tile's stored data
+     * @param result   a ByteBuffer ready for the uncompressed data, should have at least {@link #getTileDataSize()}
+     *                 bytes remaining
+     *
+     * @return the populated provided ByteBuffer
+     */
+    public ByteBuffer decodeTileData(ByteBuffer tileData, ByteBuffer result) {
+        if (tileData == null || result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Subfile", "decodeTileData", "null buffer"));
         }
-        this.tiff.buffer.clear();
+
+        this.decodeTile(tileData, tileData.position(), tileData.remaining(), result);
+
+        return result;
     }
 
-    protected void combineTiles(ByteBuffer result) {
-        // this works when the data is not compressed, but it will cause problems if it is compressed and needs to be
-        // decompressed as this detiles the tiles, each tile should be decompressed prior to this operation
+    protected void decodeTile(ByteBuffer source, int offset, int length, ByteBuffer result) {
+        int size = this.getTileDataSize();
+        if (result.remaining() < size) {
+            throw new RuntimeException(
+                Logger.logMessage(Logger.ERROR, "Subfile", "decodeTile", "inadequate buffer size"));
+        }
+
+        result.order(this.tiff.buffer.order());
+
+        if (length == 0) {
+            for (int idx = 0; idx < size; idx++) {
+                result.put((byte) 0);
+            }
+            return;
+        }
+
+        if (this.compression == Tiff.NO_COMPRESSION) {
+            if (length < size) {
+                throw new RuntimeException(
+                    Logger.logMessage(Logger.ERROR, "Subfile", "decodeTile", "inadequate tile data"));
+            }
+            ByteBuffer data = source.duplicate();
+            data.limit(offset + size);
+            data.position(offset);
+            result.put(data);
+            return;
+        }
+
+        ChunkDecoder decoder = ChunkDecoder.obtain();
+        try {
+            byte[] data = decoder.decode(this.compression, source, offset, length, size);
+            decoder.undoPredictor(this.compressionPredictor, this.tileWidth, this.tileLength, this.samplesPerPixel,
+                this.getTotalBytesPerPixel() / this.samplesPerPixel, this.tiff.buffer.order());
+            result.put(data, 0, size);
+        } finally {
+            decoder.recycle();
+        }
+    }
+
+    /**
+     * Returns a read-only view of one uncompressed tile's data within the Tiff data, without copying the data. The
+     * view's position is zero, its limit is {@link #getTileDataSize()}, and its byte order is the Tiff data's byte
+     * order.
+     *
+     * @param row    the tile's row, counting from the top of the image
+     * @param column the tile's column, counting from the left of the image
+     *
+     * @return a view of the tile's data, or null if the image is compressed
+     */
+    public ByteBuffer getTileBuffer(int row, int column) {
+        int index = this.tileIndex(row, column);
+        if (this.compression != Tiff.NO_COMPRESSION) {
+            return null;
+        }
+
+        ByteBuffer source = this.tiff.buffer.asReadOnlyBuffer();
+        source.limit(this.tileOffsets[index] + this.getTileDataSize());
+        source.position(this.tileOffsets[index]);
+        return source.slice().order(this.tiff.buffer.order());
+    }
+
+    protected int tileIndex(int row, int column) {
+        if (!this.isTiled()) {
+            throw new UnsupportedOperationException(
+                Logger.logMessage(Logger.ERROR, "Subfile", "tileIndex", "image is not tiled"));
+        }
+
         int tilesAcross = (this.imageWidth + this.tileWidth - 1) / this.tileWidth;
-        // int tilesDown = (this.imageLength + this.tileLength - 1) / this.tileLength;
-        int currentTileRow = 0;
-        int currentTileCol = 0;
-        int tileIndex = 0;
-        int tilePixelRow = 0;
-        int tilePixelCol = 0;
-        int tilePixelIndex = 0;
-        int totalBytesPerSample = this.getTotalBytesPerPixel();
-        int offsetIndex = 0;
-        for (int pixelRow = 0; pixelRow < this.imageLength; pixelRow++) {
-            currentTileRow = floorDiv(pixelRow, this.tileLength);
-            tilePixelRow = pixelRow - currentTileRow * this.tileLength;
-            for (int pixelCol = 0; pixelCol < this.imageWidth; pixelCol++) {
-                currentTileCol = floorDiv(pixelCol, this.tileWidth);
-                tileIndex = (currentTileRow * tilesAcross) + currentTileCol;
-
-                // offset byte row/column
-                tilePixelCol = pixelCol - currentTileCol * this.tileWidth;
-                tilePixelIndex = (tilePixelRow * this.tileWidth + tilePixelCol) * totalBytesPerSample;
-
-                offsetIndex = this.tileOffsets[tileIndex] + tilePixelIndex;
-                this.tiff.buffer.limit(offsetIndex + totalBytesPerSample);
-                this.tiff.buffer.position(offsetIndex);
-                result.put(this.tiff.buffer);
+        int tilesDown = (this.imageLength + this.tileLength - 1) / this.tileLength;
+        if (row < 0 || row >= tilesDown || column < 0 || column >= tilesAcross) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Subfile", "tileIndex", "invalid tile"));
+        }
+
+        return row * tilesAcross + column;
+    }
+
+    protected void combineStrips(ByteBuffer result) {
+        this.combineChunks(0, 0, this.imageWidth, this.imageLength, result, null);
+        result.position(result.position() + this.imageWidth * this.imageLength * this.getTotalBytesPerPixel());
+    }
+
+    protected void combineTiles(ByteBuffer result) {
+        this.combineChunks(0, 0, this.imageWidth, this.imageLength, result, null);
+        result.position(result.position() + this.imageWidth * this.imageLength * this.getTotalBytesPerPixel());
+    }
+
+    /**
+     * Copies a window of the image to the result buffer beginning at its position, without modifying the position of
+     * either the result or the Tiff buffer. Strips are treated as tiles as wide as the image. Uncompressed windows are
+     * copied one contiguous span of a tile row at a time, and compressed windows one decoded tile at a time.
+     */
+    protected void combineChunks(int x, int y, int width, int height, final ByteBuffer result, Executor executor) {
+        if (width == 0 || height == 0) {
+            return;
+        }
+
+        final boolean tiled = !this.fields.containsKey(Tiff.STRIP_OFFSETS_TAG);
+        final int chunkLength = tiled ? this.tileLength : this.stripLength();
+        final int resultOffset = result.position();
+
+        // Divide the window into bands of whole strips or tile rows, one band per available processor and at least two
+        // when an executor is provided.
+        int firstChunkRow = y / chunkLength;
+        int lastChunkRow = (y + height - 1) / chunkLength;
+        int bandCount = (executor != null) ? Math.min(lastChunkRow - firstChunkRow + 1, Math.max(2, Runtime.getRuntime().availableProcessors())) : 1;
+        if (bandCount <= 1) {
+            this.readRows(x, y, width, y, y + height, result, resultOffset, tiled);
+            return;
+        }
+
+        int chunkRowsPerBand = (lastChunkRow - firstChunkRow + bandCount) / bandCount;
+        int rowsPerBand = chunkRowsPerBand * chunkLength;
+        int firstBandEnd = Math.min((firstChunkRow * chunkLength) + rowsPerBand, y + height);
+        final CountDownLatch latch = new CountDownLatch(bandCount - 1);
+        final RuntimeException[] failure = new RuntimeException[1];
+
+        for (int bandBegin = firstBandEnd; bandBegin < y + height; bandBegin += rowsPerBand) {
+            final int fx = x, fy = y, fwidth = width, begin = bandBegin, end = Math.min(bandBegin + rowsPerBand, y + height);
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        readRows(fx, fy, fwidth, begin, end, result, resultOffset, tiled);
+                    } catch (RuntimeException ex) {
+                        synchronized (failure) {
+                            failure[0] = ex;
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            };
+
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException ignored) {
+                task.run(); // copy the band on the calling thread
+            }
+        }
+
+        this.readRows(x, y, width, y, firstBandEnd, result, resultOffset, tiled);
+
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException ex) {
+                interrupted = true; // wait for the bands to complete before returning, then restore the interrupt
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+    }
+
+    protected void readRows(int x, int y, int width, int rowBegin, int rowEnd, ByteBuffer result, int resultOffset,
+                            boolean tiled) {
+        if (this.compression == Tiff.NO_COMPRESSION) {
+            this.copyRows(x, y, width, rowBegin, rowEnd, result, resultOffset, tiled);
+        } else {
+            this.decodeRows(x, y, width, rowBegin, rowEnd, result, resultOffset, tiled);
+        }
+    }
+
+    /**
+     * Copies the image rows rowBegin through rowEnd - 1 of a window to the result buffer, where the window's first row
+     * begins at a specified result offset. The Tiff buffer and the result buffer are accessed through duplicates,
+     * allowing bands of rows to be copied concurrently.
+     */
+    protected void copyRows(int x, int y, int width, int rowBegin, int rowEnd, ByteBuffer result, int resultOffset,
+                            boolean tiled) {
+        int bytesPerPixel = this.getTotalBytesPerPixel();
+        int chunkWidth = tiled ? this.tileWidth : this.imageWidth;
+        int chunkLength = tiled ? this.tileLength : this.stripLength();
+        int chunksAcross = tiled ? (this.imageWidth + this.tileWidth - 1) / this.tileWidth : 1;
+        int[] offsets = tiled ? this.tileOffsets : this.stripOffsets;
+
+        ByteBuffer source = this.tiff.buffer.duplicate();
+        ByteBuffer target = result.duplicate();
+        target.position(resultOffset + (rowBegin - y) * width * bytesPerPixel);
+
+        byte[] sourceArray = source.hasArray() ? source.array() : null;
+        int sourceArrayOffset = source.hasArray() ? source.arrayOffset() : 0;
+
+        for (int row = rowBegin; row < rowEnd; row++) {
+            int chunkRow = row / chunkLength;
+            int chunkRowOffset = (row - chunkRow * chunkLength) * chunkWidth;
+
+            // Copy the contiguous span of the row within each strip or tile intersecting the window.
+            for (int col = x, colEnd = x + width; col < colEnd; ) {
+                int chunkCol = col / chunkWidth;
+                int chunkColOffset = col - chunkCol * chunkWidth;
+                int span = Math.min(chunkWidth - chunkColOffset, colEnd - col);
+                int offset = offsets[chunkRow * chunksAcross + chunkCol] + (chunkRowOffset + chunkColOffset) * bytesPerPixel;
+                int length = span * bytesPerPixel;
+
+                if (sourceArray != null) {
+                    target.put(sourceArray, sourceArrayOffset + offset, length);
+                } else {
+                    source.limit(offset + length).position(offset);
+                    target.put(source);
+                    source.clear();
+                }
+
+                col += span;
             }
         }
-        this.tiff.buffer.clear();
+    }
+
+    /**
+     * Decompresses the strips or tiles containing the image rows rowBegin through rowEnd - 1 of a window, and copies
+     * the portion of each within the window to the result buffer, where the window's first row begins at a specified
+     * result offset. Each strip or tile is decoded once, into a buffer retained by a pooled decoder.
+     */
+    protected void decodeRows(int x, int y, int width, int rowBegin, int rowEnd, ByteBuffer result, int resultOffset,
+                              boolean tiled) {
+        int bytesPerPixel = this.getTotalBytesPerPixel();
+        int bytesPerSample = bytesPerPixel / this.samplesPerPixel;
+        int chunkWidth = tiled ? this.tileWidth : this.imageWidth;
+        int chunkLength = tiled ? this.tileLength : this.stripLength();
+        int chunksAcross = tiled ? (this.imageWidth + this.tileWidth - 1) / this.tileWidth : 1;
+        int[] offsets = tiled ? this.tileOffsets : this.stripOffsets;
+        int[] byteCounts = tiled ? this.tileByteCounts : this.stripByteCounts;
+        ByteOrder order = this.tiff.buffer.order();
+
+        ByteBuffer target = result.duplicate();
+        ChunkDecoder decoder = ChunkDecoder.obtain();
+        try {
+            for (int chunkRow = rowBegin / chunkLength, lastChunkRow = (rowEnd - 1) / chunkLength; chunkRow <= lastChunkRow; chunkRow++) {
+                int chunkRowBegin = chunkRow * chunkLength;
+                int chunkRows = tiled ? chunkLength : Math.min(chunkLength, this.imageLength - chunkRowBegin);
+                int copyBegin = Math.max(rowBegin, chunkRowBegin);
+                int copyEnd = Math.min(rowEnd, chunkRowBegin + chunkLength);
+
+                for (int chunkCol = x / chunkWidth, lastChunkCol = (x + width - 1) / chunkWidth; chunkCol <= lastChunkCol; chunkCol++) {
+                    int index = chunkRow * chunksAcross + chunkCol;
+                    byte[] data = decoder.decode(this.compression, this.tiff.buffer, offsets[index], byteCounts[index],
+                        chunkWidth * chunkRows * bytesPerPixel);
+                    decoder.undoPredictor(this.compressionPredictor, chunkWidth, chunkRows, this.samplesPerPixel,
+                        bytesPerSample, order);
+
+                    // Copy the span of each row within the window.
+                    int colBegin = Math.max(x, chunkCol * chunkWidth);
+                    int colEnd = Math.min(x + width, (chunkCol + 1) * chunkWidth);
+                    int length = (colEnd - colBegin) * bytesPerPixel;
+                    for (int row = copyBegin; row < copyEnd; row++) {
+                        int dataOffset = ((row - chunkRowBegin) * chunkWidth + (colBegin - chunkCol * chunkWidth)) * bytesPerPixel;
+                        target.position(resultOffset + ((row - y) * width + (colBegin - x)) * bytesPerPixel);
+                        target.put(data, dataOffset, length);
+                    }
+                }
+            }
+        } finally {
+            decoder.recycle();
+        }
+    }
+
+    /**
+     * @return the number of rows in each strip, clamped to the image length
+     */
+    protected int stripLength() {
+        // RowsPerStrip is an unsigned value, defaulting to 2^32 - 1
+        return (this.rowsPerStrip > 0 && this.rowsPerStrip < this.imageLength) ? this.rowsPerStrip : this.imageLength;
     }
 
     protected int getTotalBytesPerPixel() {
@@ -564,21 +917,4 @@ public class Subfile {
         long denominator = Tiff.readDWord(buffer);
         return numerator / denominator;
     }
-
-    /**
-     * Borrowed from 1.8 Math package
-     *
-     * @param x
-     * @param y
-     *
-     * @return
-     */
-    private static int floorDiv(int x, int y) {
-        int r = x / y;
-        // if the signs are different and modulo not zero, round down
-        if ((x ^ y) < 0 && (r * y != x)) {
-            r--;
-        }
-        return r;
-    }
 }
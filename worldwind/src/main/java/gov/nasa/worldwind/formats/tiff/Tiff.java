@@ -58,6 +58,20 @@ public class Tiff {
 
     public static final int SAMPLE_FORMAT_TAG = 339;
 
+    // GeoTIFF 1.0 tags
+
+    public static final int MODEL_PIXEL_SCALE_TAG = 33550;
+
+    public static final int MODEL_TIEPOINT_TAG = 33922;
+
+    public static final int GEO_KEY_DIRECTORY_TAG = 34735;
+
+    // NewSubfileType bit flags
+
+    public static final int REDUCED_RESOLUTION_SUBFILE = 1;
+
+    public static final int TRANSPARENCY_MASK_SUBFILE = 4;
+
     /**
      * Tiff tags are the integer definitions of individual Image File Directories (IFDs) and set by the Tiff 6.0
      * specification. The tags defined here are a minimal set and not inclusive of the complete 6.0 specification.
@@ -65,7 +79,7 @@ public class Tiff {
     @IntDef({NEW_SUBFILE_TYPE_TAG, IMAGE_WIDTH_TAG, IMAGE_LENGTH_TAG, BITS_PER_SAMPLE_TAG, COMPRESSION_TAG, PHOTOMETRIC_INTERPRETATION_TAG,
         SAMPLES_PER_PIXEL_TAG, X_RESOLUTION_TAG, Y_RESOLUTION_TAG, PLANAR_CONFIGURATION_TAG, RESOLUTION_UNIT_TAG, STRIP_OFFSETS_TAG,
         STRIP_BYTE_COUNTS_TAG, ROWS_PER_STRIP_TAG, COMPRESSION_PREDICTOR_TAG, TILE_OFFSETS_TAG, TILE_BYTE_COUNTS_TAG, TILE_WIDTH_TAG,
-        TILE_LENGTH_TAG, SAMPLE_FORMAT_TAG})
+        TILE_LENGTH_TAG, SAMPLE_FORMAT_TAG, MODEL_PIXEL_SCALE_TAG, MODEL_TIEPOINT_TAG, GEO_KEY_DIRECTORY_TAG})
     @Retention(RetentionPolicy.SOURCE)
     public @interface TIFF_TAGS {
 
@@ -85,6 +99,48 @@ public class Tiff {
 
     }
 
+    public static final int WHITE_IS_ZERO = 0;
+
+    public static final int BLACK_IS_ZERO = 1;
+
+    public static final int RGB = 2;
+
+    public static final int PALETTE_COLOR = 3;
+
+    @IntDef({WHITE_IS_ZERO, BLACK_IS_ZERO, RGB, PALETTE_COLOR})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface PHOTOMETRIC_INTERPRETATION {
+
+    }
+
+    public static final int NO_COMPRESSION = 1;
+
+    public static final int LZW_COMPRESSION = 5;
+
+    public static final int DEFLATE_COMPRESSION = 8;
+
+    public static final int ADOBE_DEFLATE_COMPRESSION = 32946;
+
+    public static final int PACKBITS_COMPRESSION = 32773;
+
+    @IntDef({NO_COMPRESSION, LZW_COMPRESSION, DEFLATE_COMPRESSION, ADOBE_DEFLATE_COMPRESSION, PACKBITS_COMPRESSION})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface COMPRESSION {
+
+    }
+
+    public static final int NO_PREDICTOR = 1;
+
+    public static final int HORIZONTAL_PREDICTOR = 2;
+
+    public static final int FLOATING_POINT_PREDICTOR = 3;
+
+    @IntDef({NO_PREDICTOR, HORIZONTAL_PREDICTOR, FLOATING_POINT_PREDICTOR})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface PREDICTOR {
+
+    }
+
     /**
      * The {@link Subfile} contained within this Tiff.
      */
@@ -155,6 +211,18 @@ public class Tiff {
         }
     }
 
+    /**
+     * Indicates whether Subfile can decode image data with a specified compression scheme.
+     *
+     * @param compression the value of a Subfile's compression field
+     *
+     * @return true if the compression scheme is supported, otherwise false
+     */
+    public static boolean isCompressionSupported(int compression) {
+        return compression == NO_COMPRESSION || compression == LZW_COMPRESSION || compression == DEFLATE_COMPRESSION
+            || compression == ADOBE_DEFLATE_COMPRESSION || compression == PACKBITS_COMPRESSION;
+    }
+
     protected static int readWord(ByteBuffer buffer) {
         return buffer.getShort() & 0xFFFF;
     }
@@ -15,6 +15,24 @@ import gov.nasa.worldwind.util.Logger;
  */
 public class BoundingBox {
 
+    /**
+     * Plane mask identifying all six planes of a {@link Frustum}, in the order left, right, top, bottom, near, far.
+     * Bit {@code 1 << i} identifies the i-th plane.
+     *
+     * @see #intersectsFrustum(Frustum, int)
+     */
+    public static final int FRUSTUM_PLANES = 0x3F;
+
+    /**
+     * Value returned by {@link #intersectsFrustum(Frustum, int)} when a box is entirely outside a frustum.
+     */
+    public static final int FRUSTUM_OUTSIDE = -1;
+
+    /**
+     * Value returned by {@link #intersectsFrustum(Frustum, int)} when a box is entirely inside a frustum.
+     */
+    public static final int FRUSTUM_INSIDE = 0;
+
     /**
      * The box's center point.
      */
@@ -54,6 +72,8 @@ public class BoundingBox {
 
     private Vec3 endPoint2 = new Vec3();
 
+    private boolean insidePlane;
+
     public BoundingBox() {
     }
 
@@ -428,6 +448,56 @@ public class BoundingBox {
         return true;
     }
 
+    /**
+     * Determines whether this bounding box is inside, outside or intersecting a specified frustum, testing only the
+     * frustum planes identified by a plane mask. The returned mask identifies the tested planes this box intersects,
+     * omitting those this box is entirely inside. When this box contains the volume of any box subsequently tested,
+     * such as the extent of a child tile in a quadtree, the returned mask may be passed to that test in order to skip
+     * planes already known to contain it.
+     * <p/>
+     * This method does not allocate memory. A plane mask of {@link #FRUSTUM_INSIDE} returns immediately.
+     *
+     * @param frustum   the frustum of interest
+     * @param planeMask the frustum planes to test, {@link #FRUSTUM_PLANES} to test all planes
+     *
+     * @return {@link #FRUSTUM_OUTSIDE} if this box is outside any tested plane, {@link #FRUSTUM_INSIDE} if this box is
+     * inside all tested planes, otherwise the mask of tested planes this box intersects
+     *
+     * @throws IllegalArgumentException If the specified frustum is null
+     */
+    public int intersectsFrustum(Frustum frustum, int planeMask) {
+        if (frustum == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "BoundingBox", "intersectsFrustum", "missingFrustum"));
+        }
+
+        planeMask &= FRUSTUM_PLANES;
+        if (planeMask == FRUSTUM_INSIDE) {
+            return FRUSTUM_INSIDE;
+        }
+
+        this.endPoint1.set(this.bottomCenter);
+        this.endPoint2.set(this.topCenter);
+
+        Plane[] planes = frustum.planes;
+        int result = planeMask;
+        for (int idx = 0, len = planes.length; idx < len; idx++) {
+            int bit = 1 << idx;
+            if ((planeMask & bit) == 0) {
+                continue; // the box is known to be inside this plane
+            }
+
+            double t = this.intersectsAt(planes[idx]);
+            if (t < 0) {
+                return FRUSTUM_OUTSIDE;
+            } else if (this.insidePlane) {
+                result &= ~bit;
+            }
+        }
+
+        return result;
+    }
+
     private double intersectsAt(Plane plane) {
         Vec3 n = plane.normal;
         double effectiveRadius = 0.5 * (Math.abs(this.s.dot(n)) + Math.abs(this.t.dot(n)));
@@ -440,6 +510,9 @@ public class BoundingBox {
         double dq2 = plane.dot(this.endPoint2);
         boolean bq2 = dq2 <= -effectiveRadius;
 
+        // Both endpoints more distant from plane than effective radius on the positive side; box is inside the plane.
+        this.insidePlane = dq1 >= effectiveRadius && dq2 >= effectiveRadius;
+
         if (bq1 && bq2) { // endpoints more distant from plane than effective radius; box is on neg. side of plane
             return -1;
         }
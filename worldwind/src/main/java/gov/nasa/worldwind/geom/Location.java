@@ -359,6 +359,243 @@ public class Location {
         }
     }
 
+    /**
+     * Computes locations evenly spaced along a path between this location and a specified location, storing them in an
+     * array as interleaved latitude and longitude pairs in degrees. The computed locations divide the path into count +
+     * 1 segments of equal length, and exclude both this location and the end location. This is equivalent to calling
+     * interpolateAlongPath with amounts 1 / (count + 1) through count / (count + 1), but computes the path's geometry
+     * once rather than once per location.
+     * <p/>
+     * Great circle locations are computed by incrementally rotating this location's unit vector toward the end
+     * location's unit vector. Rhumb locations are computed by interpolating latitude and Mercator latitude along the
+     * path.
+     *
+     * @param endLocation the path's end location
+     * @param pathType    {@link gov.nasa.worldwind.WorldWind.PathType} indicating type of path to assume
+     * @param count       the number of locations to compute
+     * @param result      a pre-allocated array of length at least offset + count * 2 in which to return the locations
+     * @param offset      the array index at which to store the first latitude
+     *
+     * @return the path's angular distance in radians, useful for discarding the locations of degenerate paths
+     *
+     * @throws IllegalArgumentException If the end location is null, if the count is negative, or if the result array
+     *                                  is null or has insufficient length
+     */
+    public double intermediateLocations(Location endLocation, @WorldWind.PathType int pathType, int count,
+                                        double[] result, int offset) {
+        if (endLocation == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Location", "intermediateLocations", "missingLocation"));
+        }
+
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Location", "intermediateLocations", "invalidCount"));
+        }
+
+        if (result == null || offset < 0 || result.length < offset + count * 2) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Location", "intermediateLocations", "missingArray"));
+        }
+
+        if (pathType == WorldWind.GREAT_CIRCLE) {
+            return this.greatCircleIntermediateLocations(endLocation, count, result, offset);
+        } else if (pathType == WorldWind.RHUMB_LINE) {
+            return this.rhumbIntermediateLocations(endLocation, count, result, offset);
+        } else {
+            return this.linearIntermediateLocations(endLocation, count, result, offset);
+        }
+    }
+
+    /**
+     * Computes locations evenly spaced along each segment of a path through a list of locations, storing them in an
+     * array as interleaved latitude and longitude pairs in degrees. Each of the path's locations is stored followed by
+     * the count locations computed by {@link #intermediateLocations(Location, int, int, double[], int)} for the segment
+     * beginning at that location. A closed path includes the segment from the last location to the first, but does not
+     * repeat the first location.
+     *
+     * @param locations the path's locations
+     * @param pathType  {@link gov.nasa.worldwind.WorldWind.PathType} indicating type of path to assume
+     * @param count     the number of locations to compute along each segment
+     * @param closed    true to include the segment from the last location to the first, otherwise false
+     * @param result    a pre-allocated array in which to return the locations
+     * @param offset    the array index at which to store the first latitude
+     *
+     * @return the number of locations stored in the result array
+     *
+     * @throws IllegalArgumentException If the list is null, if the count is negative, or if the result array is null
+     *                                  or has insufficient length
+     */
+    public static int densifyPath(List<? extends Location> locations, @WorldWind.PathType int pathType, int count,
+                                  boolean closed, double[] result, int offset) {
+        if (locations == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Location", "densifyPath", "missingList"));
+        }
+
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Location", "densifyPath", "invalidCount"));
+        }
+
+        int size = locations.size();
+        int segments = (size == 0) ? 0 : (closed ? size : size - 1);
+        int total = size + segments * count;
+        if (result == null || offset < 0 || result.length < offset + total * 2) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Location", "densifyPath", "missingArray"));
+        }
+
+        for (int idx = 0; idx < size; idx++) {
+            Location begin = locations.get(idx);
+            result[offset++] = begin.latitude;
+            result[offset++] = begin.longitude;
+
+            if (idx < segments) {
+                Location end = locations.get((idx + 1) % size);
+                begin.intermediateLocations(end, pathType, count, result, offset);
+                offset += count * 2;
+            }
+        }
+
+        return total;
+    }
+
+    protected double greatCircleIntermediateLocations(Location endLocation, int count, double[] result, int offset) {
+        double lat1 = Math.toRadians(this.latitude);
+        double lon1 = Math.toRadians(this.longitude);
+        double lat2 = Math.toRadians(endLocation.latitude);
+        double lon2 = Math.toRadians(endLocation.longitude);
+        double cosLat1 = Math.cos(lat1);
+        double sinLat1 = Math.sin(lat1);
+        double cosLon1 = Math.cos(lon1);
+        double sinLon1 = Math.sin(lon1);
+        double cosLat2 = Math.cos(lat2);
+
+        // Unit vectors of the path's end points.
+        double ax = cosLat1 * cosLon1;
+        double ay = cosLat1 * sinLon1;
+        double az = sinLat1;
+        double bx = cosLat2 * Math.cos(lon2);
+        double by = cosLat2 * Math.sin(lon2);
+        double bz = Math.sin(lat2);
+
+        // The path's angular distance, computed from the cross product and dot product of the end points.
+        double cx = ay * bz - az * by;
+        double cy = az * bx - ax * bz;
+        double cz = ax * by - ay * bx;
+        double sinDistance = Math.sqrt(cx * cx + cy * cy + cz * cz);
+        double cosDistance = ax * bx + ay * by + az * bz;
+        double distanceRadians = Math.atan2(sinDistance, cosDistance);
+
+        // The unit vector perpendicular to this location in the direction of travel.
+        double ux, uy, uz;
+        if (sinDistance > NEAR_ZERO_THRESHOLD) {
+            ux = (bx - ax * cosDistance) / sinDistance;
+            uy = (by - ay * cosDistance) / sinDistance;
+            uz = (bz - az * cosDistance) / sinDistance;
+        } else if (cosDistance > 0) {
+            for (int idx = 0; idx < count; idx++) { // coincident locations; every location is this location
+                result[offset++] = this.latitude;
+                result[offset++] = this.longitude;
+            }
+            return 0;
+        } else {
+            // Antipodal locations do not define a great circle. Travel along the great circle azimuth, as does
+            // greatCircleLocation, expressed in terms of this location's north and east unit vectors.
+            double azimuthRadians = Math.toRadians(this.greatCircleAzimuth(endLocation));
+            double cosAzimuth = Math.cos(azimuthRadians);
+            double sinAzimuth = Math.sin(azimuthRadians);
+            ux = -sinLat1 * cosLon1 * cosAzimuth - sinLon1 * sinAzimuth;
+            uy = -sinLat1 * sinLon1 * cosAzimuth + cosLon1 * sinAzimuth;
+            uz = cosLat1 * cosAzimuth;
+        }
+
+        // Rotate this location toward the end location by a constant angle per location. The rotation's sine and cosine
+        // are advanced by the angle sum identities, avoiding trigonometric functions in the loop.
+        double deltaRadians = distanceRadians / (count + 1);
+        double cosDelta = Math.cos(deltaRadians);
+        double sinDelta = Math.sin(deltaRadians);
+        double cosAngle = cosDelta;
+        double sinAngle = sinDelta;
+
+        for (int idx = 0; idx < count; idx++) {
+            double x = ax * cosAngle + ux * sinAngle;
+            double y = ay * cosAngle + uy * sinAngle;
+            double z = az * cosAngle + uz * sinAngle;
+            result[offset++] = Math.toDegrees(Math.atan2(z, Math.sqrt(x * x + y * y)));
+            result[offset++] = Math.toDegrees(Math.atan2(y, x));
+
+            double cosNext = cosAngle * cosDelta - sinAngle * sinDelta;
+            sinAngle = sinAngle * cosDelta + cosAngle * sinDelta;
+            cosAngle = cosNext;
+        }
+
+        return distanceRadians;
+    }
+
+    protected double rhumbIntermediateLocations(Location endLocation, int count, double[] result, int offset) {
+        double lat1 = Math.toRadians(this.latitude);
+        double lon1 = Math.toRadians(this.longitude);
+        double lat2 = Math.toRadians(endLocation.latitude);
+        double lon2 = Math.toRadians(endLocation.longitude);
+        double dLat = lat2 - lat1;
+        double dLon = lon2 - lon1;
+
+        // If lonChange over 180 take shorter rhumb across 180 meridian.
+        if (Math.abs(dLon) > Math.PI) {
+            dLon = dLon > 0 ? -(2 * Math.PI - dLon) : (2 * Math.PI + dLon);
+        }
+
+        // A rhumb line is straight in Mercator coordinates. Latitude changes linearly with distance, and longitude
+        // changes linearly with Mercator latitude, or linearly with distance along E/W courses.
+        boolean eastWest = Math.abs(dLat) < NEAR_ZERO_THRESHOLD;
+        double tan1 = Math.tan(lat1 / 2.0 + Math.PI / 4);
+        double dPhi = Math.log(Math.tan(lat2 / 2.0 + Math.PI / 4) / tan1);
+        double q = eastWest ? Math.cos(lat1) : dLat / dPhi;
+        double distanceRadians = Math.sqrt(dLat * dLat + q * q * dLon * dLon);
+        if (Double.isNaN(distanceRadians)) {
+            distanceRadians = 0;
+        }
+
+        double step = 1.0 / (count + 1);
+        for (int idx = 1; idx <= count; idx++) {
+            double amount = idx * step;
+            double latRadians = lat1 + dLat * amount;
+            double lonRadians = eastWest ? lon1 + dLon * amount
+                : lon1 + dLon * Math.log(Math.tan(latRadians / 2.0 + Math.PI / 4) / tan1) / dPhi;
+
+            if (Double.isNaN(latRadians) || Double.isNaN(lonRadians)) {
+                result[offset++] = this.latitude;
+                result[offset++] = this.longitude;
+            } else {
+                result[offset++] = normalizeLatitude(Math.toDegrees(latRadians));
+                result[offset++] = normalizeLongitude(Math.toDegrees(lonRadians));
+            }
+        }
+
+        return distanceRadians;
+    }
+
+    protected double linearIntermediateLocations(Location endLocation, int count, double[] result, int offset) {
+        double dLat = endLocation.latitude - this.latitude;
+        double dLon = endLocation.longitude - this.longitude;
+
+        // If longitude change is over 180 take shorter path across 180 meridian.
+        if (Math.abs(dLon) > 180) {
+            dLon = dLon > 0 ? -(360 - dLon) : (360 + dLon);
+        }
+
+        double step = 1.0 / (count + 1);
+        for (int idx = 1; idx <= count; idx++) {
+            double amount = idx * step;
+            result[offset++] = this.latitude + dLat * amount;
+            result[offset++] = normalizeLongitude(this.longitude + dLon * amount);
+        }
+
+        return Math.toRadians(Math.sqrt(dLat * dLat + dLon * dLon));
+    }
+
     /**
      * Computes the azimuth angle (clockwise from North) for the great circle path between this location and a specified
      * location. This angle can be used as the starting azimuth for a great circle path beginning at this location, and
@@ -311,6 +311,43 @@ public class Viewport {
         return false;
     }
 
+    /**
+     * Computes the union of this viewport and a specified viewport, storing the result in this viewport and returning
+     * a reference to this viewport. The union is the smallest viewport containing both viewports. Empty viewports do
+     * not contribute to the union.
+     *
+     * @param viewport the viewport to union with
+     *
+     * @return this viewport set to the union of itself and the specified viewport
+     *
+     * @throws IllegalArgumentException If the viewport is null
+     */
+    @SuppressWarnings("UnnecessaryLocalVariable")
+    public Viewport union(Viewport viewport) {
+        if (viewport == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Viewport", "union", "missingViewport"));
+        }
+
+        Viewport that = viewport;
+        if (that.width <= 0 || that.height <= 0) {
+            return this;
+        }
+
+        if (this.width <= 0 || this.height <= 0) {
+            return this.set(that);
+        }
+
+        int maxX = Math.max(this.x + this.width, that.x + that.width);
+        int maxY = Math.max(this.y + this.height, that.y + that.height);
+        this.x = Math.min(this.x, that.x);
+        this.y = Math.min(this.y, that.y);
+        this.width = maxX - this.x;
+        this.height = maxY - this.y;
+
+        return this;
+    }
+
     /**
      * Indicates whether this viewport contains a specified point. An empty viewport never contains a point.
      *
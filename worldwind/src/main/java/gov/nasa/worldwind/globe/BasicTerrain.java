@@ -22,6 +22,19 @@ public class BasicTerrain implements Terrain {
 
     protected short[] triStripElements;
 
+    protected long timestamp;
+
+    /**
+     * Indicates whether the tiles added since the last call to clear differ from the previous set of tiles.
+     */
+    protected boolean modified;
+
+    protected List<TerrainTile> lastTiles = new ArrayList<>();
+
+    protected long[] lastHeightTimestamps = new long[0];
+
+    protected double[] lastVerticalExaggerations = new double[0];
+
     private Vec3 intersectPoint = new Vec3();
 
     public BasicTerrain() {
@@ -33,13 +46,45 @@ public class BasicTerrain implements Terrain {
                 Logger.logMessage(Logger.ERROR, "BasicTerrain", "addTile", "missingTile"));
         }
 
+        // The terrain's geometry is unchanged when the same tiles are added in the same order as the last time, with
+        // the same heights and vertical exaggeration.
+        int index = this.tiles.size();
+        if (!this.modified && (index >= this.lastTiles.size() || this.lastTiles.get(index) != tile ||
+            this.lastHeightTimestamps[index] != tile.getHeightTimestamp() ||
+            this.lastVerticalExaggerations[index] != tile.getVerticalExaggeration())) {
+            this.markModified();
+        }
+
         this.tiles.add(tile);
         this.sector.union(tile.sector);
     }
 
     public void clear() {
-        this.triStripElements = null;
+        // Account for tiles that were in the last set of tiles but not added since.
+        if (!this.modified && this.tiles.size() != this.lastTiles.size()) {
+            this.markModified();
+        }
+
+        // Remember the current set of tiles in order to detect changes to the next set of tiles.
+        List<TerrainTile> lastTiles = this.lastTiles;
+        this.lastTiles = this.tiles;
+        this.tiles = lastTiles;
         this.tiles.clear();
+
+        int tileCount = this.lastTiles.size();
+        if (this.lastHeightTimestamps.length < tileCount) {
+            this.lastHeightTimestamps = new long[tileCount];
+            this.lastVerticalExaggerations = new double[tileCount];
+        }
+
+        for (int idx = 0; idx < tileCount; idx++) {
+            TerrainTile tile = this.lastTiles.get(idx);
+            this.lastHeightTimestamps[idx] = tile.getHeightTimestamp();
+            this.lastVerticalExaggerations[idx] = tile.getVerticalExaggeration();
+        }
+
+        this.modified = false;
+        this.triStripElements = null;
         this.sector.setEmpty();
     }
 
@@ -47,6 +92,20 @@ public class BasicTerrain implements Terrain {
         this.triStripElements = elements;
     }
 
+    @Override
+    public long getTimestamp() {
+        if (!this.modified && this.tiles.size() != this.lastTiles.size()) {
+            this.markModified(); // fewer tiles than the last set of tiles
+        }
+
+        return this.timestamp;
+    }
+
+    protected void markModified() {
+        this.modified = true;
+        this.timestamp++;
+    }
+
     @Override
     public Sector getSector() {
         return this.sector;
@@ -16,6 +16,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import gov.nasa.worldwind.draw.BasicDrawableTerrain;
+import gov.nasa.worldwind.geom.BoundingBox;
 import gov.nasa.worldwind.geom.Range;
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.Vec3;
@@ -115,7 +116,7 @@ public class BasicTessellator implements Tessellator, TileFactory {
 
         // Subdivide the top level tiles until the desired resolution is achieved in each part of the scene.
         for (int idx = 0, len = this.topLevelTiles.size(); idx < len; idx++) {
-            this.addTileOrDescendants(rc, (TerrainTile) this.topLevelTiles.get(idx));
+            this.addTileOrDescendants(rc, (TerrainTile) this.topLevelTiles.get(idx), BoundingBox.FRUSTUM_PLANES);
         }
 
         // Release references to render resources acquired while assembling tiles.
@@ -130,9 +131,16 @@ public class BasicTessellator implements Tessellator, TileFactory {
         }
     }
 
-    protected void addTileOrDescendants(RenderContext rc, TerrainTile tile) {
-        if (!tile.intersectsSector(this.levelSet.sector) || !tile.intersectsFrustum(rc, rc.frustum)) {
-            return; // ignore the tile and its descendants if it's not needed or not visible
+    protected void addTileOrDescendants(RenderContext rc, TerrainTile tile, int planeMask) {
+        if (!tile.intersectsSector(this.levelSet.sector)) {
+            return; // ignore the tile and its descendants if it's not needed
+        }
+
+        // Test the tile against the frustum planes its parent intersects. Planes the tile is entirely inside are omitted
+        // from the mask passed to its descendants, and subtrees entirely inside the frustum are not tested at all.
+        planeMask = tile.intersectsFrustum(rc, rc.frustum, planeMask);
+        if (planeMask == BoundingBox.FRUSTUM_OUTSIDE) {
+            return; // ignore the tile and its descendants if it's not visible
         }
 
         if (tile.level.isLastLevel() || !tile.mustSubdivide(rc, this.detailControl)) {
@@ -141,7 +149,7 @@ public class BasicTessellator implements Tessellator, TileFactory {
         }
 
         for (Tile child : tile.subdivideToCache(this, this.tileCache, 4)) { // each tile has a cached size of 1
-            this.addTileOrDescendants(rc, (TerrainTile) child); // recursively process the tile's children
+            this.addTileOrDescendants(rc, (TerrainTile) child, planeMask); // recursively process the tile's children
         }
     }
 
@@ -47,6 +47,15 @@ public class ElevationModel implements Iterable<ElevationCoverage> {
         return this.coverages.size();
     }
 
+    public ElevationCoverage getCoverage(int index) {
+        if (index < 0 || index >= this.coverages.size()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ElevationModel", "getCoverage", "invalidIndex"));
+        }
+
+        return this.coverages.get(index);
+    }
+
     public ElevationCoverage getCoverageNamed(String name) {
 
         for (int idx = 0, len = this.coverages.size(); idx < len; idx++) {
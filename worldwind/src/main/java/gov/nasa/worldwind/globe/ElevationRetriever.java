@@ -8,21 +8,27 @@ package gov.nasa.worldwind.globe;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.ShortBuffer;
 
+import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.formats.tiff.Subfile;
 import gov.nasa.worldwind.formats.tiff.Tiff;
 import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.CountingInputStream;
+import gov.nasa.worldwind.util.HttpTransport;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Retriever;
+import gov.nasa.worldwind.util.SlabTileCache;
 import gov.nasa.worldwind.util.SynchronizedPool;
 import gov.nasa.worldwind.util.WWUtil;
 
-public class ElevationRetriever extends Retriever<ImageSource, Void, ShortBuffer> {
+/**
+ * Retrieves and decodes elevation coverage tiles. Decoded tiles are delivered as buffers of native byte order 16-bit
+ * samples. When a tile cache is specified, tiles are decoded directly into slots reserved from the cache, allowing the
+ * cache to add them without copying.
+ */
+public class ElevationRetriever extends Retriever<ImageSource, Void, ByteBuffer> {
 
     protected SynchronizedPool<byte[]> pagePool = new SynchronizedPool<>();
 
@@ -32,14 +38,30 @@ public class ElevationRetriever extends Retriever<ImageSource, Void, ShortBuffer
 
     protected static final int BUFFER_SIZE = 1024 * 132;
 
+    protected volatile SlabTileCache<?> tileCache;
+
     public ElevationRetriever(int maxSimultaneousRetrievals) {
         super(maxSimultaneousRetrievals);
     }
 
+    public SlabTileCache<?> getTileCache() {
+        return this.tileCache;
+    }
+
+    /**
+     * Sets the cache that decoded tiles are destined for. Tiles are decoded into slots reserved from the cache when a
+     * slot is free, and into heap buffers otherwise.
+     *
+     * @param tileCache the destination tile cache, may be null
+     */
+    public void setTileCache(SlabTileCache<?> tileCache) {
+        this.tileCache = tileCache;
+    }
+
     @Override
-    protected void retrieveAsync(ImageSource key, Void unused, Callback<ImageSource, Void, ShortBuffer> callback) {
+    protected void retrieveAsync(ImageSource key, Void unused, Callback<ImageSource, Void, ByteBuffer> callback) {
         try {
-            ShortBuffer buffer = this.decodeCoverage(key);
+            ByteBuffer buffer = this.decodeCoverage(key);
 
             if (buffer != null) {
                 callback.retrievalSucceeded(this, key, unused, buffer);
@@ -51,7 +73,7 @@ public class ElevationRetriever extends Retriever<ImageSource, Void, ShortBuffer
         }
     }
 
-    protected ShortBuffer decodeCoverage(ImageSource imageSource) throws IOException {
+    protected ByteBuffer decodeCoverage(ImageSource imageSource) throws IOException {
         if (imageSource.isUrl()) {
             return this.decodeUrl(imageSource.asUrl());
         }
@@ -59,58 +81,79 @@ public class ElevationRetriever extends Retriever<ImageSource, Void, ShortBuffer
         return this.decodeUnrecognized(imageSource);
     }
 
-    protected ShortBuffer decodeUrl(String urlString) throws IOException {
-        // TODO establish a file caching service for remote resources
-        // TODO retry absent resources, they are currently handled but suppressed entirely after the first failure
-        // TODO configurable connect and read timeouts
-
+    protected ByteBuffer decodeUrl(String urlString) throws IOException {
+        HttpTransport.Response response = null;
+        CountingInputStream counter = null;
         InputStream stream = null;
         try {
-            URLConnection conn = new URL(urlString).openConnection();
-            conn.setConnectTimeout(3000);
-            conn.setReadTimeout(30000);
-
-            stream = new BufferedInputStream(conn.getInputStream());
-            String contentType = conn.getContentType();
-            if (contentType.equalsIgnoreCase("application/bil16")) {
-                return this.readInt16Data(stream);
-            } else if (contentType.equalsIgnoreCase("image/tiff")) {
-                return this.readTiffData(stream);
+            long connectBegin = System.nanoTime();
+            response = WorldWind.httpTransport().get(urlString);
+
+            counter = new CountingInputStream(response.getInputStream());
+            stream = new BufferedInputStream(counter);
+            long decodeBegin = System.nanoTime();
+            this.metrics.recordTimeToFirstByte(decodeBegin - connectBegin);
+
+            ByteBuffer result;
+            String contentType = response.getContentType();
+            if ("application/bil16".equalsIgnoreCase(contentType)) {
+                result = this.readInt16Data(stream, response.getContentLength());
+            } else if ("image/tiff".equalsIgnoreCase(contentType)) {
+                result = this.readTiffData(stream);
             } else {
                 throw new RuntimeException(
                     Logger.logMessage(Logger.ERROR, "ElevationRetriever", "decodeUrl", "Format not supported"));
             }
+
+            this.metrics.recordDecodeTime(System.nanoTime() - decodeBegin);
+            return result;
         } finally {
-            WWUtil.closeSilently(stream);
+            if (counter != null && !response.isFromCache()) {
+                this.metrics.recordBytesFetched(counter.getCount());
+            }
+            WWUtil.closeSilently(response);
         }
     }
 
-    protected ShortBuffer decodeUnrecognized(ImageSource imageSource) {
+    protected ByteBuffer decodeUnrecognized(ImageSource imageSource) {
         Logger.log(Logger.WARN, "Unrecognized image source \'" + imageSource + "\'");
         return null;
     }
 
-    protected ShortBuffer readTiffData(InputStream stream) throws IOException {
+    protected ByteBuffer readTiffData(InputStream stream) throws IOException {
 
         ByteBuffer tiffBuffer = this.bufferPool.acquire();
         if (tiffBuffer == null) {
             tiffBuffer = ByteBuffer.allocate(BUFFER_SIZE);
         }
         tiffBuffer.clear();
-        ByteBuffer buffer = this.bufferStream(stream, tiffBuffer);
-        Tiff tiff = new Tiff(buffer);
-        Subfile subfile = tiff.getSubfiles().get(0);
-        // check that the format of the subfile matches our supported data types
-        if (this.isTiffFormatSupported(subfile)) {
-            int dataSize = subfile.getDataSize();
-            ByteBuffer result = subfile.getData(ByteBuffer.allocate(dataSize));
-            result.clear();
 
+        // Return the TIFF buffer to the pool whether or not the TIFF file can be read.
+        try {
+            ByteBuffer buffer = this.bufferStream(stream, tiffBuffer);
+            Tiff tiff = new Tiff(buffer);
+            Subfile subfile = tiff.getSubfiles().get(0);
+            // check that the format of the subfile matches our supported data types
+            if (this.isTiffFormatSupported(subfile)) {
+                // Decode the samples directly into the tile's destination, then convert them to native byte order in
+                // place.
+                ByteBuffer result = this.allocateTileBuffer(subfile.getDataSize());
+                try {
+                    subfile.getData(result);
+                    result.flip();
+                    toNativeByteOrder(result);
+                } catch (RuntimeException ex) {
+                    this.releaseTileBuffer(result);
+                    throw ex;
+                }
+
+                return result;
+            } else {
+                throw new RuntimeException(
+                    Logger.logMessage(Logger.ERROR, "ElevationRetriever", "readTiffData", "Tiff file format not supported"));
+            }
+        } finally {
             this.bufferPool.release(tiffBuffer);
-            return result.asShortBuffer();
-        } else {
-            throw new RuntimeException(
-                Logger.logMessage(Logger.ERROR, "ElevationRetriever", "readTiffData", "Tiff file format not supported"));
         }
     }
 
@@ -118,14 +161,64 @@ public class ElevationRetriever extends Retriever<ImageSource, Void, ShortBuffer
         return subfile.getSampleFormat()[0] == Tiff.TWOS_COMP_SIGNED_INT &&
             subfile.getBitsPerSample()[0] == 16 &&
             subfile.getSamplesPerPixel() == 1 &&
-            subfile.getCompression() == 1;
+            Tiff.isCompressionSupported(subfile.getCompression());
     }
 
-    protected ShortBuffer readInt16Data(InputStream stream) throws IOException {
-        ShortBuffer result = this.bufferStream(stream, ByteBuffer.allocate(BUFFER_SIZE)).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    protected ByteBuffer readInt16Data(InputStream stream, int contentLength) throws IOException {
+        ByteBuffer tileBuffer = this.allocateTileBuffer((contentLength > 0) ? contentLength : BUFFER_SIZE);
+        ByteBuffer result;
+        try {
+            result = this.bufferStream(stream, tileBuffer);
+        } catch (IOException ex) {
+            this.releaseTileBuffer(tileBuffer);
+            throw ex;
+        }
+
+        if (result != tileBuffer) {
+            this.releaseTileBuffer(tileBuffer); // the data exceeded the tile buffer and was copied to a larger buffer
+        }
+
+        result.order(ByteOrder.LITTLE_ENDIAN);
+        toNativeByteOrder(result);
         return result;
     }
 
+    /**
+     * Allocates a buffer to decode a tile into, preferring a slot reserved from the tile cache.
+     *
+     * @param size the tile's size in bytes
+     *
+     * @return a cleared buffer with a capacity of at least size bytes
+     */
+    protected ByteBuffer allocateTileBuffer(int size) {
+        SlabTileCache<?> cache = this.tileCache;
+        ByteBuffer buffer = (cache != null && size <= cache.getSlotSize()) ? cache.reserve() : null;
+        return (buffer != null) ? buffer : ByteBuffer.allocate(size);
+    }
+
+    protected void releaseTileBuffer(ByteBuffer buffer) {
+        SlabTileCache<?> cache = this.tileCache;
+        if (cache != null) {
+            cache.release(buffer);
+        }
+    }
+
+    /**
+     * Converts the 16-bit samples between a buffer's position and limit from the buffer's byte order to native byte
+     * order in place, and sets the buffer's byte order to native byte order.
+     */
+    protected static void toNativeByteOrder(ByteBuffer buffer) {
+        if (buffer.order() != ByteOrder.nativeOrder()) {
+            for (int idx = buffer.position(), len = buffer.limit() - 1; idx < len; idx += 2) {
+                byte b = buffer.get(idx);
+                buffer.put(idx, buffer.get(idx + 1));
+                buffer.put(idx + 1, b);
+            }
+        }
+
+        buffer.order(ByteOrder.nativeOrder());
+    }
+
     protected ByteBuffer bufferStream(InputStream stream, ByteBuffer buffer) throws IOException {
         byte[] page = this.pagePool.acquire();
         if (page == null) {
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import gov.nasa.worldwind.formats.tiff.GeoTiff;
+import gov.nasa.worldwind.formats.tiff.Subfile;
+import gov.nasa.worldwind.formats.tiff.Tiff;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.geom.TileMatrix;
+import gov.nasa.worldwind.geom.TileMatrixSet;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * Generates elevations from a local tiled GeoTIFF file, such as a Cloud Optimized GeoTIFF.
+ * <p/>
+ * GeoTiffElevationCoverage maps the file into memory and reads only the file's header when constructed. The full
+ * resolution image and each of its internal overviews become one matrix of the coverage's tile matrix set, and
+ * elevation requests read only the internal tiles they touch. Uncompressed tiles are read in place from the mapped file
+ * without copying. Compressed tiles, and tiles on the image's right and bottom edges, are decoded in the background
+ * into the coverage cache.
+ * <p/>
+ * The file must contain tiled 16-bit signed integer elevations referenced to the WGS84 geographic coordinate system by
+ * a pixel scale and tie point. The file must not exceed 2 GB, the largest file that can be mapped to a single buffer.
+ */
+public class GeoTiffElevationCoverage extends TiledElevationCoverage {
+
+    protected Subfile[] levels;
+
+    protected ShortBuffer[][] tileViews;
+
+    /**
+     * Constructs a GeoTIFF elevation coverage with no tiles, for subclasses that read the GeoTIFF header after
+     * construction. Subclasses must provide a coverage retriever and call readGeoTiff when the header is available.
+     */
+    protected GeoTiffElevationCoverage() {
+    }
+
+    /**
+     * Constructs a GeoTIFF elevation coverage for a local file.
+     *
+     * @param pathName the GeoTIFF file's full path
+     *
+     * @throws IllegalArgumentException If the path name is null, or if the file is not a supported GeoTIFF
+     * @throws IOException              If the file cannot be opened or mapped
+     */
+    public GeoTiffElevationCoverage(String pathName) throws IOException {
+        this(mapFile(pathName));
+    }
+
+    /**
+     * Constructs a GeoTIFF elevation coverage for GeoTIFF data in a buffer. The buffer is retained and read as
+     * elevations are requested.
+     *
+     * @param buffer the GeoTIFF data, typically a buffer mapped from a file
+     *
+     * @throws IllegalArgumentException If the buffer is null, or if the buffer does not contain a supported GeoTIFF
+     */
+    public GeoTiffElevationCoverage(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GeoTiffElevationCoverage", "constructor", "missingBuffer"));
+        }
+
+        this.setCoverageRetriever(new GeoTiffRetriever(MAX_SIMULTANEOUS_RETRIEVALS));
+        this.readGeoTiff(new Tiff(buffer));
+    }
+
+    protected static ByteBuffer mapFile(String pathName) throws IOException {
+        if (pathName == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GeoTiffElevationCoverage", "mapFile", "missingPathName"));
+        }
+
+        // The mapping remains valid after the file is closed.
+        RandomAccessFile file = new RandomAccessFile(pathName, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            WWUtil.closeSilently(file);
+        }
+    }
+
+    /**
+     * Returns the Tiff subfile providing the tiles of a specified tile matrix.
+     *
+     * @param index the tile matrix's ordinal
+     *
+     * @return the matrix's subfile, or null if the matrix does not exist
+     */
+    public Subfile getSubfile(int index) {
+        return (this.levels == null || index < 0 || index >= this.levels.length) ? null : this.levels[index];
+    }
+
+    protected void readGeoTiff(Tiff tiff) {
+        List<Subfile> subfiles = tiff.getSubfiles();
+        Subfile image = subfiles.get(0);
+        if (!this.isSubfileSupported(image)) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GeoTiffElevationCoverage", "readGeoTiff", "Tiff file format not supported"));
+        }
+
+        // Use the full resolution image and its overviews as the levels of the tile matrix set, ignoring masks and
+        // overviews in a format the coverage does not support.
+        List<Subfile> levelList = new ArrayList<>();
+        for (Subfile subfile : subfiles) {
+            int type = subfile.getNewSubfileType();
+            if (subfile == image || ((type & Tiff.REDUCED_RESOLUTION_SUBFILE) != 0 &&
+                (type & Tiff.TRANSPARENCY_MASK_SUBFILE) == 0 && this.isSubfileSupported(subfile))) {
+                levelList.add(subfile);
+            }
+        }
+
+        Collections.sort(levelList, new Comparator<Subfile>() {
+            @Override
+            public int compare(Subfile lhs, Subfile rhs) {
+                return lhs.getImageWidth() - rhs.getImageWidth(); // coarsest level first
+            }
+        });
+
+        Sector sector = GeoTiff.readSector(image);
+        List<TileMatrix> matrixList = new ArrayList<>();
+        this.levels = levelList.toArray(new Subfile[levelList.size()]);
+        this.tileViews = new ShortBuffer[this.levels.length][];
+
+        for (int idx = 0; idx < this.levels.length; idx++) {
+            // Each level covers the image's sector. Its tile matrix extends east and south of the sector to include
+            // the padding of the level's edge tiles.
+            Subfile level = this.levels[idx];
+            double deltaLatPerPixel = sector.deltaLatitude() / level.getImageLength();
+            double deltaLonPerPixel = sector.deltaLongitude() / level.getImageWidth();
+            TileMatrix matrix = new TileMatrix();
+            matrix.ordinal = idx;
+            matrix.tileWidth = level.getTileWidth();
+            matrix.tileHeight = level.getTileLength();
+            matrix.matrixWidth = (level.getImageWidth() + matrix.tileWidth - 1) / matrix.tileWidth;
+            matrix.matrixHeight = (level.getImageLength() + matrix.tileHeight - 1) / matrix.tileHeight;
+            double deltaLat = matrix.matrixHeight * matrix.tileHeight * deltaLatPerPixel;
+            double deltaLon = matrix.matrixWidth * matrix.tileWidth * deltaLonPerPixel;
+            matrix.sector.set(sector.maxLatitude() - deltaLat, sector.minLongitude(), deltaLat, deltaLon);
+            matrixList.add(matrix);
+            this.tileViews[idx] = new ShortBuffer[matrix.matrixWidth * matrix.matrixHeight];
+        }
+
+        this.setTileMatrixSet(new TileMatrixSet(sector, matrixList));
+        this.setTileFactory(new TileFactory() {
+            @Override
+            public ImageSource createTileSource(TileMatrix tileMatrix, int row, int column) {
+                return ImageSource.fromObject(new GeoTiffTile(levels[tileMatrix.ordinal], row, column));
+            }
+        });
+    }
+
+    protected boolean isSubfileSupported(Subfile subfile) {
+        return subfile.isTiled() &&
+            subfile.getSampleFormat()[0] == Tiff.TWOS_COMP_SIGNED_INT &&
+            subfile.getBitsPerSample()[0] == 16 &&
+            subfile.getSamplesPerPixel() == 1;
+    }
+
+    @Override
+    protected ShortBuffer fetchTileBuffer(TileMatrix tileMatrix, int row, int column) {
+        Subfile level = this.levels[tileMatrix.ordinal];
+        if (this.isTileInPlace(level, row, column)) {
+            ShortBuffer[] views = this.tileViews[tileMatrix.ordinal];
+            int index = row * tileMatrix.matrixWidth + column;
+            if (views[index] == null) {
+                views[index] = level.getTileBuffer(row, column).asShortBuffer();
+            }
+            return views[index];
+        }
+
+        return super.fetchTileBuffer(tileMatrix, row, column);
+    }
+
+    /**
+     * Indicates whether a tile can be read in place from the GeoTIFF data. Uncompressed tiles are read in place, except
+     * for edge tiles which must have their padding replaced and tiles with no stored data.
+     */
+    protected boolean isTileInPlace(Subfile subfile, int row, int column) {
+        int tilesAcross = (subfile.getImageWidth() + subfile.getTileWidth() - 1) / subfile.getTileWidth();
+        return subfile.getCompression() == Tiff.NO_COMPRESSION && !isEdgeTile(subfile, row, column) &&
+            subfile.getTileByteCounts()[row * tilesAcross + column] > 0;
+    }
+
+    protected static boolean isEdgeTile(Subfile subfile, int row, int column) {
+        return (column + 1) * subfile.getTileWidth() > subfile.getImageWidth() ||
+            (row + 1) * subfile.getTileLength() > subfile.getImageLength();
+    }
+
+    /**
+     * Replaces the padding of an edge tile by extending the image's last column and last row, so that elevations
+     * interpolated at the image's edges do not blend in the padding. The tile contains 16-bit samples beginning at
+     * the buffer's position.
+     */
+    protected static void fillTilePadding(Subfile subfile, int row, int column, ByteBuffer tile) {
+        int tileWidth = subfile.getTileWidth();
+        int tileLength = subfile.getTileLength();
+        int validWidth = Math.min(tileWidth, subfile.getImageWidth() - column * tileWidth);
+        int validLength = Math.min(tileLength, subfile.getImageLength() - row * tileLength);
+        int base = tile.position();
+
+        for (int j = 0; j < validLength; j++) {
+            short edge = tile.getShort(base + (j * tileWidth + validWidth - 1) * 2);
+            for (int i = validWidth; i < tileWidth; i++) {
+                tile.putShort(base + (j * tileWidth + i) * 2, edge);
+            }
+        }
+
+        int rowSize = tileWidth * 2;
+        for (int j = validLength; j < tileLength; j++) {
+            for (int idx = 0; idx < rowSize; idx++) {
+                tile.put(base + j * rowSize + idx, tile.get(base + (validLength - 1) * rowSize + idx));
+            }
+        }
+    }
+
+    protected static class GeoTiffTile {
+
+        public final Subfile subfile;
+
+        public final int row;
+
+        public final int column;
+
+        public GeoTiffTile(Subfile subfile, int row, int column) {
+            this.subfile = subfile;
+            this.row = row;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            GeoTiffTile that = (GeoTiffTile) o;
+            return this.subfile == that.subfile && this.row == that.row && this.column == that.column;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(this.subfile);
+            result = 31 * result + this.row;
+            result = 31 * result + this.column;
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "GeoTIFF tile " + this.subfile.getImageWidth() + "x" + this.subfile.getImageLength() +
+                " row " + this.row + " column " + this.column;
+        }
+    }
+
+    /**
+     * Decodes GeoTIFF tiles into native byte order 16-bit samples, preferring slots reserved from the coverage cache.
+     */
+    protected static class GeoTiffRetriever extends ElevationRetriever {
+
+        public GeoTiffRetriever(int maxSimultaneousRetrievals) {
+            super(maxSimultaneousRetrievals);
+        }
+
+        @Override
+        protected ByteBuffer decodeUnrecognized(ImageSource imageSource) {
+            if (!(imageSource.asObject() instanceof GeoTiffTile)) {
+                return super.decodeUnrecognized(imageSource);
+            }
+
+            long decodeBegin = System.nanoTime();
+            GeoTiffTile tile = (GeoTiffTile) imageSource.asObject();
+            ByteBuffer result = this.allocateTileBuffer(tile.subfile.getTileDataSize());
+            try {
+                tile.subfile.getTileData(tile.row, tile.column, result);
+                result.flip();
+                if (isEdgeTile(tile.subfile, tile.row, tile.column)) {
+                    fillTilePadding(tile.subfile, tile.row, tile.column, result);
+                }
+                toNativeByteOrder(result);
+            } catch (RuntimeException ex) {
+                this.releaseTileBuffer(result);
+                throw ex;
+            }
+
+            this.metrics.recordDecodeTime(System.nanoTime() - decodeBegin);
+            return result;
+        }
+    }
+}
@@ -49,6 +49,48 @@ public interface GeographicProjection {
     float[] geographicToCartesianBorder(Globe globe, Sector sector, int numLat, int numLon, float height,
                                         Vec3 origin, float[] result);
 
+    /**
+     * Converts an array of geographic positions to Cartesian coordinates. The positions are specified as parallel arrays
+     * of latitude, longitude and altitude, and the computed coordinates are stored in parallel arrays of X, Y and Z.
+     *
+     * @param globe      the globe this projection is applied to
+     * @param latitudes  the positions' latitudes in degrees
+     * @param longitudes the positions' longitudes in degrees
+     * @param altitudes  the positions' altitudes in meters, or null to indicate altitude 0
+     * @param count      the number of positions to convert
+     * @param x          a pre-allocated array in which to store the computed X coordinates
+     * @param y          a pre-allocated array in which to store the computed Y coordinates
+     * @param z          a pre-allocated array in which to store the computed Z coordinates
+     *
+     * @throws IllegalArgumentException If the globe is null, if the count is negative, or if any array other than
+     *                                  altitudes is null or shorter than count
+     */
+    void geographicToCartesian(Globe globe, double[] latitudes, double[] longitudes, double[] altitudes, int count,
+                               double[] x, double[] y, double[] z);
+
+    /**
+     * Converts an array of geographic positions to Cartesian coordinates relative to an origin, storing the coordinates
+     * as interleaved X, Y and Z floats. The positions are specified as parallel arrays of latitude, longitude and
+     * altitude.
+     *
+     * @param globe      the globe this projection is applied to
+     * @param latitudes  the positions' latitudes in degrees
+     * @param longitudes the positions' longitudes in degrees
+     * @param altitudes  the positions' altitudes in meters, or null to indicate altitude 0
+     * @param count      the number of positions to convert
+     * @param origin     the Cartesian point subtracted from each computed point, or null to indicate the origin
+     * @param result     a pre-allocated array in which to store the computed coordinates
+     * @param offset     the array index at which to store the first X coordinate
+     * @param stride     the number of array elements between the X coordinates of consecutive points, at least 3
+     *
+     * @return the result argument, set to the computed Cartesian coordinates
+     *
+     * @throws IllegalArgumentException If the globe is null, if the count is negative, if the stride is less than 3,
+     *                                  or if any array other than altitudes is null or has insufficient length
+     */
+    float[] geographicToCartesian(Globe globe, double[] latitudes, double[] longitudes, double[] altitudes, int count,
+                                  Vec3 origin, float[] result, int offset, int stride);
+
     /**
      * Converts a Cartesian point to a geographic position.
      *
@@ -64,6 +106,25 @@ public interface GeographicProjection {
      */
     Position cartesianToGeographic(Globe globe, double x, double y, double z, Position result);
 
+    /**
+     * Converts an array of Cartesian points to geographic positions. The points are specified as parallel arrays of X,
+     * Y and Z, and the computed positions are stored in parallel arrays of latitude, longitude and altitude.
+     *
+     * @param globe      the globe this projection is applied to
+     * @param x          the points' X coordinates
+     * @param y          the points' Y coordinates
+     * @param z          the points' Z coordinates
+     * @param count      the number of points to convert
+     * @param latitudes  a pre-allocated array in which to store the computed latitudes in degrees
+     * @param longitudes a pre-allocated array in which to store the computed longitudes in degrees
+     * @param altitudes  a pre-allocated array in which to store the computed altitudes in meters
+     *
+     * @throws IllegalArgumentException If the globe is null, if the count is negative, or if any array is null or
+     *                                  shorter than count
+     */
+    void cartesianToGeographic(Globe globe, double[] x, double[] y, double[] z, int count,
+                               double[] latitudes, double[] longitudes, double[] altitudes);
+
     Matrix4 cartesianToLocalTransform(Globe globe, double x, double y, double z, Matrix4 result);
 
     /**
@@ -251,6 +251,77 @@ public class Globe {
         return this.projection.geographicToCartesianBorder(this, sector, numLat, numLon, height, origin, result);
     }
 
+    /**
+     * Converts an array of geographic positions to Cartesian coordinates in a single call. This globe's projection
+     * specifies the Cartesian coordinate system. The positions are specified as parallel arrays of latitude, longitude
+     * and altitude, and the computed coordinates are stored in parallel arrays of X, Y and Z.
+     *
+     * @param latitudes  the positions' latitudes in degrees
+     * @param longitudes the positions' longitudes in degrees
+     * @param altitudes  the positions' altitudes in meters, or null to indicate altitude 0
+     * @param count      the number of positions to convert
+     * @param x          a pre-allocated array in which to store the computed X coordinates
+     * @param y          a pre-allocated array in which to store the computed Y coordinates
+     * @param z          a pre-allocated array in which to store the computed Z coordinates
+     *
+     * @throws IllegalArgumentException If the count is negative, or if any array other than altitudes is null or
+     *                                  shorter than count
+     */
+    public void geographicToCartesian(double[] latitudes, double[] longitudes, double[] altitudes, int count,
+                                      double[] x, double[] y, double[] z) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Globe", "geographicToCartesian", "invalidCount"));
+        }
+
+        if (latitudes == null || longitudes == null || x == null || y == null || z == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Globe", "geographicToCartesian", "missingArray"));
+        }
+
+        this.projection.geographicToCartesian(this, latitudes, longitudes, altitudes, count, x, y, z);
+    }
+
+    /**
+     * Converts an array of geographic positions to Cartesian coordinates relative to an origin in a single call,
+     * storing the coordinates as interleaved X, Y and Z floats. This globe's projection specifies the Cartesian
+     * coordinate system.
+     *
+     * @param latitudes  the positions' latitudes in degrees
+     * @param longitudes the positions' longitudes in degrees
+     * @param altitudes  the positions' altitudes in meters, or null to indicate altitude 0
+     * @param count      the number of positions to convert
+     * @param origin     the Cartesian point subtracted from each computed point, or null to indicate the origin
+     * @param result     a pre-allocated array in which to store the computed coordinates
+     * @param offset     the array index at which to store the first X coordinate
+     * @param stride     the number of array elements between the X coordinates of consecutive points, at least 3
+     *
+     * @return the result argument, set to the computed Cartesian coordinates
+     *
+     * @throws IllegalArgumentException If the count is negative, if the stride is less than 3, or if any array other
+     *                                  than altitudes is null or has insufficient length
+     */
+    public float[] geographicToCartesian(double[] latitudes, double[] longitudes, double[] altitudes, int count,
+                                         Vec3 origin, float[] result, int offset, int stride) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Globe", "geographicToCartesian", "invalidCount"));
+        }
+
+        if (latitudes == null || longitudes == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Globe", "geographicToCartesian", "missingArray"));
+        }
+
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Globe", "geographicToCartesian", "missingResult"));
+        }
+
+        return this.projection.geographicToCartesian(this, latitudes, longitudes, altitudes, count, origin, result,
+            offset, stride);
+    }
+
     /**
      * Converts a Cartesian point to a geographic position. This globe's projection specifies the Cartesian coordinate
      * system.
@@ -273,6 +344,36 @@ public class Globe {
         return this.projection.cartesianToGeographic(this, x, y, z, result);
     }
 
+    /**
+     * Converts an array of Cartesian points to geographic positions in a single call. This globe's projection specifies
+     * the Cartesian coordinate system. The points are specified as parallel arrays of X, Y and Z, and the computed
+     * positions are stored in parallel arrays of latitude, longitude and altitude.
+     *
+     * @param x          the points' X coordinates
+     * @param y          the points' Y coordinates
+     * @param z          the points' Z coordinates
+     * @param count      the number of points to convert
+     * @param latitudes  a pre-allocated array in which to store the computed latitudes in degrees
+     * @param longitudes a pre-allocated array in which to store the computed longitudes in degrees
+     * @param altitudes  a pre-allocated array in which to store the computed altitudes in meters
+     *
+     * @throws IllegalArgumentException If the count is negative, or if any array is null or shorter than count
+     */
+    public void cartesianToGeographic(double[] x, double[] y, double[] z, int count,
+                                      double[] latitudes, double[] longitudes, double[] altitudes) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Globe", "cartesianToGeographic", "invalidCount"));
+        }
+
+        if (x == null || y == null || z == null || latitudes == null || longitudes == null || altitudes == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Globe", "cartesianToGeographic", "missingArray"));
+        }
+
+        this.projection.cartesianToGeographic(this, x, y, z, count, latitudes, longitudes, altitudes);
+    }
+
     public Matrix4 cartesianToLocalTransform(double x, double y, double z, Matrix4 result) {
         if (result == null) {
             throw new IllegalArgumentException(
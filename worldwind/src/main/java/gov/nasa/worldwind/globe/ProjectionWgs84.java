@@ -347,7 +347,90 @@ public class ProjectionWgs84 implements GeographicProjection {
         return result;
     }
 
-    @SuppressWarnings({"UnnecessaryLocalVariable", "SuspiciousNameCombination"})
+    @Override
+    public void geographicToCartesian(Globe globe, double[] latitudes, double[] longitudes, double[] altitudes, int count,
+                                      double[] x, double[] y, double[] z) {
+        if (globe == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "geographicToCartesian", "missingGlobe"));
+        }
+
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "geographicToCartesian", "invalidCount"));
+        }
+
+        if (latitudes == null || latitudes.length < count || longitudes == null || longitudes.length < count ||
+            (altitudes != null && altitudes.length < count) ||
+            x == null || x.length < count || y == null || y.length < count || z == null || z.length < count) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "geographicToCartesian", "missingArray"));
+        }
+
+        double eqr = globe.getEquatorialRadius();
+        double ec2 = globe.getEccentricitySquared();
+
+        for (int idx = 0; idx < count; idx++) {
+            double radLat = Math.toRadians(latitudes[idx]);
+            double radLon = Math.toRadians(longitudes[idx]);
+            double alt = (altitudes != null) ? altitudes[idx] : 0;
+            double cosLat = Math.cos(radLat);
+            double sinLat = Math.sin(radLat);
+            double rpm = eqr / Math.sqrt(1.0 - ec2 * sinLat * sinLat);
+
+            x[idx] = (alt + rpm) * cosLat * Math.sin(radLon);
+            y[idx] = (alt + rpm * (1.0 - ec2)) * sinLat;
+            z[idx] = (alt + rpm) * cosLat * Math.cos(radLon);
+        }
+    }
+
+    @Override
+    public float[] geographicToCartesian(Globe globe, double[] latitudes, double[] longitudes, double[] altitudes, int count,
+                                         Vec3 origin, float[] result, int offset, int stride) {
+        if (globe == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "geographicToCartesian", "missingGlobe"));
+        }
+
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "geographicToCartesian", "invalidCount"));
+        }
+
+        if (stride < 3) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "geographicToCartesian", "invalidStride"));
+        }
+
+        if (latitudes == null || latitudes.length < count || longitudes == null || longitudes.length < count ||
+            (altitudes != null && altitudes.length < count) ||
+            result == null || offset < 0 || (count > 0 && result.length < offset + (count - 1) * stride + 3)) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "geographicToCartesian", "missingArray"));
+        }
+
+        double eqr = globe.getEquatorialRadius();
+        double ec2 = globe.getEccentricitySquared();
+        double xOffset = (origin != null) ? -origin.x : 0;
+        double yOffset = (origin != null) ? -origin.y : 0;
+        double zOffset = (origin != null) ? -origin.z : 0;
+
+        for (int idx = 0, resultIndex = offset; idx < count; idx++, resultIndex += stride) {
+            double radLat = Math.toRadians(latitudes[idx]);
+            double radLon = Math.toRadians(longitudes[idx]);
+            double alt = (altitudes != null) ? altitudes[idx] : 0;
+            double cosLat = Math.cos(radLat);
+            double sinLat = Math.sin(radLat);
+            double rpm = eqr / Math.sqrt(1.0 - ec2 * sinLat * sinLat);
+
+            result[resultIndex] = (float) ((alt + rpm) * cosLat * Math.sin(radLon) + xOffset);
+            result[resultIndex + 1] = (float) ((alt + rpm * (1.0 - ec2)) * sinLat + yOffset);
+            result[resultIndex + 2] = (float) ((alt + rpm) * cosLat * Math.cos(radLon) + zOffset);
+        }
+
+        return result;
+    }
+
     @Override
     public Position cartesianToGeographic(Globe globe, double x, double y, double z, Position result) {
         if (globe == null) {
@@ -360,6 +443,45 @@ public class ProjectionWgs84 implements GeographicProjection {
                 Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "cartesianToGeographic", "missingResult"));
         }
 
+        return cartesianToGeographic(globe.getEquatorialRadius(), globe.getEccentricitySquared(), x, y, z, result);
+    }
+
+    @Override
+    public void cartesianToGeographic(Globe globe, double[] x, double[] y, double[] z, int count,
+                                      double[] latitudes, double[] longitudes, double[] altitudes) {
+        if (globe == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "cartesianToGeographic", "missingGlobe"));
+        }
+
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "cartesianToGeographic", "invalidCount"));
+        }
+
+        if (x == null || x.length < count || y == null || y.length < count || z == null || z.length < count ||
+            latitudes == null || latitudes.length < count || longitudes == null || longitudes.length < count ||
+            altitudes == null || altitudes.length < count) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ProjectionWgs84", "cartesianToGeographic", "missingArray"));
+        }
+
+        // Read the globe's parameters once rather than once per point, and convert each point through a single scratch
+        // position.
+        double a = globe.getEquatorialRadius();
+        double e2 = globe.getEccentricitySquared();
+        Position pos = new Position();
+
+        for (int idx = 0; idx < count; idx++) {
+            cartesianToGeographic(a, e2, x[idx], y[idx], z[idx], pos);
+            latitudes[idx] = pos.latitude;
+            longitudes[idx] = pos.longitude;
+            altitudes[idx] = pos.altitude;
+        }
+    }
+
+    @SuppressWarnings({"UnnecessaryLocalVariable", "SuspiciousNameCombination"})
+    protected static Position cartesianToGeographic(double a, double e2, double x, double y, double z, Position result) {
         // According to
         // H. Vermeille,
         // "An analytical method to transform geocentric into geodetic coordinates"
@@ -371,9 +493,7 @@ public class ProjectionWgs84 implements GeographicProjection {
         double XXpYY = X * X + Y * Y;
         double sqrtXXpYY = Math.sqrt(XXpYY);
 
-        double a = globe.getEquatorialRadius();
         double ra2 = 1 / (a * a);
-        double e2 = globe.getEccentricitySquared();
         double e4 = e2 * e2;
 
         // Step 1
@@ -66,4 +66,13 @@ public interface Terrain {
      * @throws IllegalArgumentException if the result is null
      */
     boolean surfacePoint(double latitude, double longitude, Vec3 result);
+
+    /**
+     * Indicates when this terrain's geometry last changed. Computations against the terrain, such as surfacePoint,
+     * return the same results while this timestamp remains unchanged. The timestamp is comparable only to other
+     * timestamps from the same terrain.
+     *
+     * @return the terrain's geometry timestamp
+     */
+    long getTimestamp();
 }
@@ -12,6 +12,7 @@ import android.util.LongSparseArray;
 import android.util.SparseIntArray;
 
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.ShortBuffer;
 import java.util.Locale;
 
@@ -20,12 +21,15 @@ import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.TileMatrix;
 import gov.nasa.worldwind.geom.TileMatrixSet;
 import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.HttpTransport;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.LruMemoryCache;
 import gov.nasa.worldwind.util.Retriever;
+import gov.nasa.worldwind.util.RetrieverMetrics;
+import gov.nasa.worldwind.util.SlabTileCache;
 import gov.nasa.worldwind.util.WWMath;
 
-public class TiledElevationCoverage extends AbstractElevationCoverage implements Retriever.Callback<ImageSource, Void, ShortBuffer> {
+public class TiledElevationCoverage extends AbstractElevationCoverage implements Retriever.Callback<ImageSource, Void, ByteBuffer> {
 
     public interface TileFactory {
 
@@ -38,7 +42,7 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
 
     protected LruMemoryCache<Long, ImageSource> coverageSource;
 
-    protected LruMemoryCache<ImageSource, short[]> coverageCache;
+    protected SlabTileCache<ImageSource> coverageCache;
 
     protected ElevationRetriever coverageRetriever;
 
@@ -48,10 +52,17 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
 
     protected static final int GET_HEIGHT_LIMIT_SAMPLES = 8;
 
+    protected static final int DEFAULT_CACHE_CAPACITY = 1024 * 1024 * 8;
+
+    protected static final int DEFAULT_TILE_SIZE = 256 * 256 * 2;
+
+    protected static final int MAX_SIMULTANEOUS_RETRIEVALS = 4;
+
     public TiledElevationCoverage() {
         this.coverageSource = new LruMemoryCache<>(200);
-        this.coverageCache = new LruMemoryCache<>(1024 * 1024 * 8);
-        this.coverageRetriever = new ElevationRetriever(4);
+        this.coverageRetriever = new ElevationRetriever(MAX_SIMULTANEOUS_RETRIEVALS);
+        this.coverageRetriever.getMetrics().setDisplayName("coverageRetriever");
+        this.setCoverageCache(new SlabTileCache<ImageSource>(DEFAULT_CACHE_CAPACITY, DEFAULT_TILE_SIZE));
         this.coverageHandler = new Handler(Looper.getMainLooper(), new Handler.Callback() {
             @Override
             public boolean handleMessage(Message msg) {
@@ -75,6 +86,18 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
 
         this.tileMatrixSet = tileMatrixSet;
         this.invalidateTiles();
+
+        // Size the coverage cache's slots to fit the largest tile in the tile matrix set.
+        int tileSize = 0;
+        for (int idx = 0, len = tileMatrixSet.count(); idx < len; idx++) {
+            TileMatrix tileMatrix = tileMatrixSet.matrix(idx);
+            tileSize = Math.max(tileSize, tileMatrix.tileWidth * tileMatrix.tileHeight * 2);
+        }
+
+        if (tileSize > 0 && tileSize != this.coverageCache.getSlotSize()) {
+            int capacity = Math.max(this.coverageCache.getCapacity(), tileSize);
+            this.setCoverageCache(new SlabTileCache<ImageSource>(capacity, tileSize));
+        }
     }
 
     public TileFactory getTileFactory() {
@@ -86,6 +109,56 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
         this.invalidateTiles();
     }
 
+    /**
+     * Returns the capacity of the cache holding this coverage's decoded tiles. Tiles are cached outside the Java heap.
+     *
+     * @return the coverage cache capacity in bytes
+     */
+    public int getCoverageCacheCapacity() {
+        return this.coverageCache.getCapacity();
+    }
+
+    /**
+     * Sets the capacity of the cache holding this coverage's decoded tiles, discarding any cached tiles. Tiles are
+     * cached outside the Java heap, and memory is allocated as the cache fills, so large capacities do not increase
+     * Java heap usage.
+     *
+     * @param capacity the coverage cache capacity in bytes
+     *
+     * @throws IllegalArgumentException If the capacity is less than the size of one tile
+     */
+    public void setCoverageCacheCapacity(int capacity) {
+        if (capacity < this.coverageCache.getSlotSize()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TiledElevationCoverage", "setCoverageCacheCapacity", "invalidCapacity"));
+        }
+
+        this.setCoverageCache(new SlabTileCache<ImageSource>(capacity, this.coverageCache.getSlotSize()));
+        this.updateTimestamp();
+    }
+
+    protected void setCoverageRetriever(ElevationRetriever coverageRetriever) {
+        coverageRetriever.getMetrics().setDisplayName("coverageRetriever");
+        coverageRetriever.setTileCache(this.coverageCache);
+        this.coverageRetriever = coverageRetriever;
+    }
+
+    protected void setCoverageCache(SlabTileCache<ImageSource> coverageCache) {
+        coverageCache.setMinFreeSlots(MAX_SIMULTANEOUS_RETRIEVALS); // keep a slot free for each concurrent decode
+        this.coverageCache = coverageCache;
+        this.coverageRetriever.setTileCache(coverageCache);
+    }
+
+    /**
+     * Returns the metrics of the retriever that loads this coverage's tiles. Retrievals are attributed to this
+     * coverage.
+     *
+     * @return the coverage retriever's metrics
+     */
+    public RetrieverMetrics getRetrieverMetrics() {
+        return this.coverageRetriever.getMetrics();
+    }
+
     protected boolean isEnableRetrieval() {
         return this.enableRetrieval;
     }
@@ -212,9 +285,9 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
             for (int cidx = 0, clen = result.cols.size(); cidx < clen; cidx++) {
                 int row = result.rows.keyAt(ridx);
                 int col = result.cols.keyAt(cidx);
-                short[] tileArray = this.fetchTileArray(tileMatrix, row, col);
-                if (tileArray != null) {
-                    result.putTileArray(row, col, tileArray);
+                ShortBuffer tileBuffer = this.fetchTileBuffer(tileMatrix, row, col);
+                if (tileBuffer != null) {
+                    result.putTileBuffer(row, col, tileBuffer);
                 } else {
                     return false;
                 }
@@ -260,11 +333,11 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
 
         for (int row = rowMin; row <= rowMax; row++) {
             for (int col = colMin; col <= colMax; col++) {
-                short[] tileArray = this.fetchTileArray(tileMatrix, row, col);
-                if (tileArray != null) {
+                ShortBuffer tileBuffer = this.fetchTileBuffer(tileMatrix, row, col);
+                if (tileBuffer != null) {
                     result.rows.put(row, 0);
                     result.cols.put(col, 0);
-                    result.putTileArray(row, col, tileArray);
+                    result.putTileBuffer(row, col, tileBuffer);
                 } else {
                     return false;
                 }
@@ -274,7 +347,7 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
         return true;
     }
 
-    protected short[] fetchTileArray(TileMatrix tileMatrix, int row, int column) {
+    protected ShortBuffer fetchTileBuffer(TileMatrix tileMatrix, int row, int column) {
         long key = tileKey(tileMatrix, row, column);
         ImageSource tileSource = this.coverageSource.get(key);
 
@@ -283,12 +356,16 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
             this.coverageSource.put(key, tileSource, 1);
         }
 
-        short[] tileArray = this.coverageCache.get(tileSource);
-        if (tileArray == null && this.isEnableRetrieval()) {
-            this.coverageRetriever.retrieve(tileSource, null, this);
+        ShortBuffer tileBuffer = this.coverageCache.get(tileSource);
+        if (tileBuffer == null && this.isEnableRetrieval()) {
+            this.retrieveTile(tileSource);
         }
 
-        return tileArray;
+        return tileBuffer;
+    }
+
+    protected void retrieveTile(ImageSource tileSource) {
+        this.coverageRetriever.retrieve(tileSource, null, this, this);
     }
 
     protected static long tileKey(TileMatrix tileMatrix, int row, int column) {
@@ -317,6 +394,13 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
         double tMax = 1.0 - tMin;
         int ridx = 0;
 
+        // Limit the samples to the coverage's sector, which may be smaller than the tile matrix when the matrix's edge
+        // tiles extend beyond the coverage.
+        double sampleMinLat = Math.max(matrixMinLat, this.tileMatrixSet.sector.minLatitude());
+        double sampleMaxLat = Math.min(matrixMaxLat, this.tileMatrixSet.sector.maxLatitude());
+        double sampleMinLon = Math.max(matrixMinLon, this.tileMatrixSet.sector.minLongitude());
+        double sampleMaxLon = Math.min(matrixMaxLon, this.tileMatrixSet.sector.maxLongitude());
+
         double lat = gridSector.minLatitude();
         double deltaLat = gridSector.deltaLatitude() / (gridHeight - 1);
         for (int hidx = 0; hidx < gridHeight; hidx++, lat += deltaLat) {
@@ -355,8 +439,8 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
                 int col0 = i0 / tileWidth;
                 int col1 = i1 / tileWidth;
 
-                if (matrixMinLat <= lat && lat <= matrixMaxLat &&
-                    matrixMinLon <= lon && lon <= matrixMaxLon) {
+                if (sampleMinLat <= lat && lat <= sampleMaxLat &&
+                    sampleMinLon <= lon && lon <= sampleMaxLon) {
 
                     short i0j0 = tileBlock.readTexel(row0, col0, i0 % tileWidth, j0 % tileHeight);
                     short i1j0 = tileBlock.readTexel(row0, col1, i1 % tileWidth, j0 % tileHeight);
@@ -385,6 +469,7 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
         double matrixDeltaLon = tileBlock.tileMatrix.sector.deltaLongitude();
 
         Sector intersection = new Sector(tileBlock.tileMatrix.sector);
+        intersection.intersect(this.tileMatrixSet.sector);
         intersection.intersect(sector);
 
         double sMin = (intersection.minLongitude() - matrixMinLon) / matrixDeltaLon;
@@ -415,14 +500,14 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
                 int i0 = (int) WWMath.clamp(iMin, coliMin, coliMax) % tileWidth;
                 int i1 = (int) WWMath.clamp(iMax, coliMin, coliMax) % tileWidth;
 
-                short[] tileArray = tileBlock.getTileArray(row, col);
-                // TODO how often do we read all of tileArray?
+                ShortBuffer tileBuffer = tileBlock.getTileBuffer(row, col);
+                // TODO how often do we read all of tileBuffer?
 
                 for (int j = j0; j <= j1; j++) {
                     for (int i = i0; i <= i1; i++) {
 
                         int pos = i + j * tileWidth;
-                        short texel = tileArray[pos];
+                        short texel = tileBuffer.get(pos);
 
                         if (result[0] > texel) {
                             result[0] = texel;
@@ -436,17 +521,21 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
         }
     }
 
-    public void retrievalSucceeded(Retriever retriever, ImageSource key, Void unused, ShortBuffer value) {
+    public void retrievalSucceeded(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key, Void unused, ByteBuffer value) {
         final ImageSource finalKey = key;
-        final short[] finalArray = new short[value.remaining()];
-        value.get(finalArray);
+        final ByteBuffer finalBuffer = value;
 
+        // Add the tile to the coverage cache on the main thread, where the cache is read. Tiles decoded into a slot
+        // reserved from the cache are added without copying.
         this.coverageHandler.post(new Runnable() {
             @Override
             public void run() {
-                coverageCache.put(finalKey, finalArray, finalArray.length * 2);
-                updateTimestamp();
-                WorldWind.requestRedraw();
+                if (coverageCache.put(finalKey, finalBuffer)) {
+                    updateTimestamp();
+                    WorldWind.requestRedraw();
+                } else {
+                    Logger.log(Logger.WARN, "Coverage tile exceeds the coverage cache tile size \'" + finalKey + "\'");
+                }
             }
         });
 
@@ -456,9 +545,12 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
     }
 
     @Override
-    public void retrievalFailed(Retriever retriever, ImageSource key, Throwable ex) {
+    public void retrievalFailed(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key, Throwable ex) {
         if (ex instanceof SocketTimeoutException) { // log socket timeout exceptions while suppressing the stack trace
             Logger.log(Logger.ERROR, "Socket timeout retrieving coverage \'" + key + "\'");
+        } else if (ex instanceof HttpTransport.StatusException) { // log HTTP error statuses while suppressing the stack trace
+            int responseCode = ((HttpTransport.StatusException) ex).getResponseCode();
+            Logger.log(Logger.ERROR, "Coverage retrieval failed with HTTP status " + responseCode + " \'" + key + "\'");
         } else if (ex != null) { // log checked exceptions with the entire stack trace
             Logger.log(Logger.ERROR, "Coverage retrieval failed with exception \'" + key + "\'", ex);
         } else {
@@ -467,7 +559,7 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
     }
 
     @Override
-    public void retrievalRejected(Retriever retriever, ImageSource key) {
+    public void retrievalRejected(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key) {
         if (Logger.isLoggable(Logger.DEBUG)) {
             Logger.log(Logger.DEBUG, "Coverage retrieval rejected \'" + key + "\'");
         }
@@ -481,43 +573,43 @@ public class TiledElevationCoverage extends AbstractElevationCoverage implements
 
         public SparseIntArray cols = new SparseIntArray();
 
-        public LongSparseArray<short[]> arrays = new LongSparseArray<>();
+        public LongSparseArray<ShortBuffer> buffers = new LongSparseArray<>();
 
         private int texelRow = -1;
 
         private int texelCol = -1;
 
-        private short[] texelArray;
+        private ShortBuffer texelBuffer;
 
         public void clear() {
             this.rows.clear();
             this.cols.clear();
-            this.arrays.clear();
+            this.buffers.clear();
             this.texelRow = -1;
             this.texelCol = -1;
-            this.texelArray = null;
+            this.texelBuffer = null;
         }
 
-        public void putTileArray(int row, int column, short[] array) {
+        public void putTileBuffer(int row, int column, ShortBuffer buffer) {
             long key = tileKey(this.tileMatrix, row, column);
-            this.arrays.put(key, array);
+            this.buffers.put(key, buffer);
         }
 
-        public short[] getTileArray(int row, int column) {
+        public ShortBuffer getTileBuffer(int row, int column) {
             if (this.texelRow != row || this.texelCol != column) {
                 long key = tileKey(this.tileMatrix, row, column);
                 this.texelRow = row;
                 this.texelCol = column;
-                this.texelArray = this.arrays.get(key);
+                this.texelBuffer = this.buffers.get(key);
             }
 
-            return this.texelArray;
+            return this.texelBuffer;
         }
 
         public short readTexel(int row, int column, int i, int j) {
-            short[] array = this.getTileArray(row, column);
+            ShortBuffer buffer = this.getTileBuffer(row, column);
             int pos = i + j * this.tileMatrix.tileWidth;
-            return array[pos];
+            return buffer.get(pos);
         }
     }
 }
@@ -8,7 +8,9 @@ package gov.nasa.worldwind.layer;
 import java.util.HashMap;
 import java.util.Map;
 
+import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.util.TraceBuffer;
 
 public abstract class AbstractLayer implements Layer {
 
@@ -131,7 +133,13 @@ public abstract class AbstractLayer implements Layer {
             return;
         }
 
-        this.doRender(rc);
+        TraceBuffer trace = WorldWind.traceBuffer();
+        trace.begin(TraceBuffer.CATEGORY_LAYER, this.displayName);
+        try {
+            this.doRender(rc);
+        } finally {
+            trace.end(TraceBuffer.CATEGORY_LAYER, this.displayName);
+        }
     }
 
     @Override
@@ -11,13 +11,12 @@ import android.os.Looper;
 
 import java.io.BufferedInputStream;
 import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -46,6 +45,7 @@ import gov.nasa.worldwind.ogc.wmts.WmtsTileFactory;
 import gov.nasa.worldwind.ogc.wmts.WmtsTileMatrix;
 import gov.nasa.worldwind.ogc.wmts.WmtsTileMatrixSet;
 import gov.nasa.worldwind.shape.TiledSurfaceImage;
+import gov.nasa.worldwind.util.HttpTransport;
 import gov.nasa.worldwind.util.LevelSet;
 import gov.nasa.worldwind.util.LevelSetConfig;
 import gov.nasa.worldwind.util.Logger;
@@ -72,6 +72,8 @@ public class LayerFactory {
 
     protected static final int DEFAULT_WMS_NUM_LEVELS = 20;
 
+    protected static final Map<String, String> XML_REQUEST_PROPERTIES = Collections.singletonMap("Accept-Encoding", "gzip");
+
     public Layer createFromGeoPackage(String pathName, Callback callback) {
         if (pathName == null) {
             throw new IllegalArgumentException(
@@ -265,17 +267,12 @@ public class LayerFactory {
                 continue;
             }
 
-            LevelSetConfig config = new LevelSetConfig();
-            config.sector.set(content.getMinY(), content.getMinX(),
-                content.getMaxY() - content.getMinY(), content.getMaxX() - content.getMinX());
-            config.firstLevelDelta = 180;
-            config.numLevels = tileMetrics.getMaxZoomLevel() + 1; // zero when there are no zoom levels, (0 = -1 + 1)
-            config.tileWidth = 256;
-            config.tileHeight = 256;
-
+            // Configure the level set from the GeoPackage's tile matrices, so that World Wind levels match the zoom
+            // levels of the GeoPackage's tiles.
+            GpkgTileFactory tileFactory = new GpkgTileFactory(content);
             TiledSurfaceImage surfaceImage = new TiledSurfaceImage();
-            surfaceImage.setLevelSet(new LevelSet(config));
-            surfaceImage.setTileFactory(new GpkgTileFactory(content));
+            surfaceImage.setLevelSet(tileFactory.createLevelSet());
+            surfaceImage.setTileFactory(tileFactory);
             gpkgRenderables.addRenderable(surfaceImage);
         }
 
@@ -438,6 +435,7 @@ public class LayerFactory {
     }
 
     protected WmsCapabilities retrieveWmsCapabilities(String serviceAddress) throws Exception {
+        HttpTransport.Response response = null;
         InputStream inputStream = null;
         WmsCapabilities wmsCapabilities = null;
         try {
@@ -448,11 +446,9 @@ public class LayerFactory {
                 .appendQueryParameter("REQUEST", "GetCapabilities")
                 .build();
 
-            // Open the connection as an input stream
-            URLConnection conn = new URL(serviceUri.toString()).openConnection();
-            conn.setConnectTimeout(3000);
-            conn.setReadTimeout(30000);
-            inputStream = new BufferedInputStream(conn.getInputStream());
+            // Open the connection as an input stream, requesting that the server compress the capabilities document
+            response = WorldWind.httpTransport().get(serviceUri.toString(), XML_REQUEST_PROPERTIES);
+            inputStream = new BufferedInputStream(response.getInputStream());
 
             // Parse and read the input stream
             wmsCapabilities = WmsCapabilities.getCapabilities(inputStream);
@@ -460,13 +456,14 @@ public class LayerFactory {
             throw new RuntimeException(
                 Logger.makeMessage("LayerFactory", "retrieveWmsCapabilities", "Unable to open connection and read from service address"));
         } finally {
-            WWUtil.closeSilently(inputStream);
+            WWUtil.closeSilently(response);
         }
 
         return wmsCapabilities;
     }
 
     protected WmtsCapabilities retrieveWmtsCapabilities(String serviceAddress) throws Exception {
+        HttpTransport.Response response = null;
         InputStream inputStream = null;
         WmtsCapabilities wmtsCapabilities = null;
         try {
@@ -477,11 +474,9 @@ public class LayerFactory {
                 .appendQueryParameter("REQUEST", "GetCapabilities")
                 .build();
 
-            // Open the connection as an input stream
-            URLConnection conn = new URL(serviceUri.toString()).openConnection();
-            conn.setConnectTimeout(3000);
-            conn.setReadTimeout(30000);
-            inputStream = new BufferedInputStream(conn.getInputStream());
+            // Open the connection as an input stream, requesting that the server compress the capabilities document
+            response = WorldWind.httpTransport().get(serviceUri.toString(), XML_REQUEST_PROPERTIES);
+            inputStream = new BufferedInputStream(response.getInputStream());
 
             // Parse and read the input stream
             wmtsCapabilities = WmtsCapabilities.getCapabilities(inputStream);
@@ -489,7 +484,7 @@ public class LayerFactory {
             throw new RuntimeException(
                 Logger.makeMessage("LayerFactory", "retrieveWmsCapabilities", "Unable to open connection and read from service address " + e.toString()));
         } finally {
-            WWUtil.closeSilently(inputStream);
+            WWUtil.closeSilently(response);
         }
 
         return wmtsCapabilities;
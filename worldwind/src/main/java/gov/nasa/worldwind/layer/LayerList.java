@@ -8,6 +8,7 @@ package gov.nasa.worldwind.layer;
 import java.util.ArrayList;
 import java.util.Iterator;
 
+import gov.nasa.worldwind.FrameMetrics;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.util.Logger;
 
@@ -201,10 +202,19 @@ public class LayerList implements Iterable<Layer> {
     }
 
     public void render(RenderContext rc) {
+        // Measure each layer's render time only when the frame metrics have detailed metrics enabled.
+        FrameMetrics metrics = (rc.frameMetrics != null && rc.frameMetrics.isDetailedMetricsEnabled()) ? rc.frameMetrics : null;
+
         for (int idx = 0, len = this.layers.size(); idx < len; idx++) {
             rc.currentLayer = this.layers.get(idx);
             try {
-                rc.currentLayer.render(rc);
+                if (metrics != null) {
+                    long begin = System.nanoTime();
+                    rc.currentLayer.render(rc);
+                    metrics.recordLayerTime(rc.currentLayer, System.nanoTime() - begin);
+                } else {
+                    rc.currentLayer.render(rc);
+                }
             } catch (Exception e) {
                 Logger.logMessage(Logger.ERROR, "LayerList", "render",
                     "Exception while rendering layer \'" + rc.currentLayer.getDisplayName() + "\'", e);
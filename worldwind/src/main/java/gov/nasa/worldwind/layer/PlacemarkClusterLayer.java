@@ -0,0 +1,501 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.BoundingBox;
+import gov.nasa.worldwind.geom.Offset;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.render.Renderable;
+import gov.nasa.worldwind.shape.Label;
+import gov.nasa.worldwind.shape.Placemark;
+import gov.nasa.worldwind.shape.PlacemarkAttributes;
+import gov.nasa.worldwind.shape.TextAttributes;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Layer that displays large numbers of placemarks by aggregating placemarks that are close together on screen into
+ * cluster markers, each labeled with the number of placemarks it represents. Clusters expand into smaller clusters and
+ * eventually into the individual placemarks as the camera approaches, so the number of drawables is bounded by the
+ * screen area rather than by the number of placemarks.
+ * <p/>
+ * Placemarks are indexed in a hierarchical geographic grid. Each level of the grid divides the cells of the level above
+ * into quadrants, and each cell maintains the number and mean position of the placemarks it contains. Cells are
+ * created only where placemarks exist. Adding, removing and moving a placemark updates the cells along a single path
+ * through the hierarchy. Each frame, the layer draws a cell as a cluster when the cell is smaller on screen than the
+ * layer's cluster size, and otherwise considers the cell's subdivisions or placemarks.
+ * <p/>
+ * The layer indexes a placemark at the position it has when added. Call {@link #updatePlacemark(Placemark)} after
+ * changing the position of a placemark in the layer.
+ */
+public class PlacemarkClusterLayer extends AbstractLayer {
+
+    protected static final double DEFAULT_CLUSTER_SIZE = 60;
+
+    protected static final int NODE_CAPACITY = 16;
+
+    protected static final int MAX_LEVEL = 24;
+
+    /**
+     * Cells larger than this are always subdivided, since their bounding boxes do not tightly bound the globe.
+     */
+    protected static final double MAX_CULLED_NODE_DELTA = 45;
+
+    protected double clusterSize = DEFAULT_CLUSTER_SIZE;
+
+    protected PlacemarkAttributes clusterAttributes = new PlacemarkAttributes()
+        .setImageColor(new Color(0.1f, 0.4f, 0.8f, 0.8f))
+        .setImageScale(32);
+
+    protected TextAttributes clusterTextAttributes = new TextAttributes()
+        .setTextOffset(Offset.center())
+        .setEnableDepthTest(false);
+
+    protected Node[] roots = {
+        new Node(null, 0, -90, -180, 180),
+        new Node(null, 0, -90, 0, 180)};
+
+    protected Map<Placemark, Node> placemarkNodes = new IdentityHashMap<>();
+
+    protected double maxAltitude;
+
+    protected ArrayList<Placemark> clusterPlacemarks = new ArrayList<>();
+
+    protected ArrayList<Label> clusterLabels = new ArrayList<>();
+
+    protected int[] clusterSizes = new int[0];
+
+    protected int clusterCount;
+
+    private Sector scratchSector = new Sector();
+
+    private BoundingBox scratchBox = new BoundingBox();
+
+    private Position scratchPosition = new Position();
+
+    public PlacemarkClusterLayer() {
+    }
+
+    public PlacemarkClusterLayer(String displayName) {
+        super(displayName);
+    }
+
+    /**
+     * @return the number of placemarks in this layer
+     */
+    public int count() {
+        return this.placemarkNodes.size();
+    }
+
+    /**
+     * Indicates the size in screen pixels below which groups of placemarks are displayed as a single cluster.
+     *
+     * @return the cluster size in pixels
+     */
+    public double getClusterSize() {
+        return this.clusterSize;
+    }
+
+    /**
+     * Sets the size in screen pixels below which groups of placemarks are displayed as a single cluster. Smaller sizes
+     * display more clusters, each representing fewer placemarks.
+     *
+     * @param clusterSize the cluster size in pixels
+     *
+     * @throws IllegalArgumentException If the cluster size is not positive
+     */
+    public void setClusterSize(double clusterSize) {
+        if (!(clusterSize > 0)) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "setClusterSize", "invalidClusterSize"));
+        }
+
+        this.clusterSize = clusterSize;
+    }
+
+    public PlacemarkAttributes getClusterAttributes() {
+        return this.clusterAttributes;
+    }
+
+    /**
+     * Sets the attributes used to draw cluster markers.
+     *
+     * @param attributes the cluster marker attributes
+     *
+     * @throws IllegalArgumentException If the attributes are null
+     */
+    public void setClusterAttributes(PlacemarkAttributes attributes) {
+        if (attributes == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "setClusterAttributes", "missingAttributes"));
+        }
+
+        this.clusterAttributes = attributes;
+    }
+
+    public TextAttributes getClusterTextAttributes() {
+        return this.clusterTextAttributes;
+    }
+
+    /**
+     * Sets the attributes used to draw the placemark count displayed on each cluster marker.
+     *
+     * @param attributes the cluster text attributes
+     *
+     * @throws IllegalArgumentException If the attributes are null
+     */
+    public void setClusterTextAttributes(TextAttributes attributes) {
+        if (attributes == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "setClusterTextAttributes", "missingAttributes"));
+        }
+
+        this.clusterTextAttributes = attributes;
+    }
+
+    /**
+     * Adds a placemark to this layer at the placemark's current position. Adding a placemark already in this layer
+     * updates its position in the layer's index.
+     *
+     * @param placemark the placemark to add
+     *
+     * @throws IllegalArgumentException If the placemark is null
+     */
+    public void addPlacemark(Placemark placemark) {
+        if (placemark == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "addPlacemark", "missingPlacemark"));
+        }
+
+        this.removeFromIndex(placemark);
+        this.addToIndex(placemark);
+    }
+
+    /**
+     * Removes a placemark from this layer.
+     *
+     * @param placemark the placemark to remove
+     *
+     * @return true if the placemark was in this layer, otherwise false
+     *
+     * @throws IllegalArgumentException If the placemark is null
+     */
+    public boolean removePlacemark(Placemark placemark) {
+        if (placemark == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "removePlacemark", "missingPlacemark"));
+        }
+
+        return this.removeFromIndex(placemark);
+    }
+
+    /**
+     * Updates this layer's index after a change to a placemark's position.
+     *
+     * @param placemark the placemark whose position changed
+     *
+     * @return true if the placemark is in this layer, otherwise false
+     *
+     * @throws IllegalArgumentException If the placemark is null
+     */
+    public boolean updatePlacemark(Placemark placemark) {
+        if (placemark == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "updatePlacemark", "missingPlacemark"));
+        }
+
+        if (this.removeFromIndex(placemark)) {
+            this.addToIndex(placemark);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes all placemarks from this layer.
+     */
+    public void clearPlacemarks() {
+        this.roots[0] = new Node(null, 0, -90, -180, 180);
+        this.roots[1] = new Node(null, 0, -90, 0, 180);
+        this.placemarkNodes.clear();
+        this.maxAltitude = 0;
+    }
+
+    @Override
+    protected void doRender(RenderContext rc) {
+        this.clusterCount = 0;
+
+        for (Node root : this.roots) {
+            this.renderNode(rc, root);
+        }
+    }
+
+    protected void renderNode(RenderContext rc, Node node) {
+        if (node.count == 0) {
+            return; // no placemarks in this cell
+        }
+
+        boolean expand = true;
+        if (node.delta <= MAX_CULLED_NODE_DELTA) {
+            this.scratchSector.set(node.minLatitude, node.minLongitude, node.delta, node.delta);
+            this.scratchBox.setToSector(this.scratchSector, rc.globe, 0, (float) (this.maxAltitude * rc.verticalExaggeration));
+            if (!this.scratchBox.intersectsFrustum(rc.frustum)) {
+                return; // the cell is outside the view
+            }
+
+            expand = (node.count == 1) || this.mustExpand(rc, node);
+        }
+
+        if (!expand) {
+            this.renderCluster(rc, node);
+        } else if (node.children != null) {
+            for (Node child : node.children) {
+                this.renderNode(rc, child);
+            }
+        } else {
+            for (int idx = 0; idx < node.size; idx++) {
+                this.renderRenderable(rc, node.placemarks[idx]);
+            }
+        }
+    }
+
+    /**
+     * Determines whether a cell is too large on screen to display as a single cluster. Uses the bounding box most
+     * recently computed for the cell.
+     */
+    protected boolean mustExpand(RenderContext rc, Node node) {
+        double distance = this.scratchBox.distanceTo(rc.cameraPoint);
+        double cellSize = Math.toRadians(node.delta) * rc.globe.getEquatorialRadius(); // meters along a meridian
+        return cellSize > this.clusterSize * rc.pixelSizeAtDistance(distance);
+    }
+
+    protected void renderCluster(RenderContext rc, Node node) {
+        int index = this.clusterCount++;
+        if (index == this.clusterPlacemarks.size()) {
+            Placemark placemark = new Placemark(new Position(), this.clusterAttributes);
+            placemark.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+            Label label = new Label(new Position(), this.clusterTextAttributes);
+            label.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+            this.clusterPlacemarks.add(placemark);
+            this.clusterLabels.add(label);
+        }
+
+        if (index >= this.clusterSizes.length) {
+            int[] newSizes = new int[Math.max(16, index * 2)];
+            System.arraycopy(this.clusterSizes, 0, newSizes, 0, this.clusterSizes.length);
+            this.clusterSizes = newSizes;
+        }
+
+        // Display the cluster at the mean position of its placemarks. Reuse the cluster marker's text when its count
+        // is unchanged since the last frame.
+        this.scratchPosition.set(node.sumLatitude / node.count, node.sumLongitude / node.count, 0);
+        Placemark placemark = this.clusterPlacemarks.get(index);
+        placemark.setPosition(this.scratchPosition);
+        placemark.setAttributes(this.clusterAttributes);
+        Label label = this.clusterLabels.get(index);
+        label.setPosition(this.scratchPosition);
+        label.setAttributes(this.clusterTextAttributes);
+        if (this.clusterSizes[index] != node.count || label.getText() == null) {
+            String text = Integer.toString(node.count);
+            placemark.setDisplayName(text);
+            label.setText(text);
+            this.clusterSizes[index] = node.count;
+        }
+
+        this.renderRenderable(rc, placemark);
+        this.renderRenderable(rc, label);
+    }
+
+    protected void renderRenderable(RenderContext rc, Renderable renderable) {
+        try {
+            renderable.render(rc);
+        } catch (Exception e) {
+            Logger.logMessage(Logger.ERROR, "PlacemarkClusterLayer", "renderRenderable",
+                "Exception while rendering shape \'" + renderable.getDisplayName() + "\'", e);
+            // Keep going. Draw the remaining renderables.
+        }
+    }
+
+    protected void addToIndex(Placemark placemark) {
+        Position position = placemark.getPosition();
+        double latitude = Math.max(-90, Math.min(90, position.latitude));
+        double longitude = Math.max(-180, Math.min(180, position.longitude));
+        this.maxAltitude = Math.max(this.maxAltitude, position.altitude);
+
+        // Update the count and position sum of each cell containing the placemark, from the root to the leaf.
+        Node node = this.roots[(longitude < 0) ? 0 : 1];
+        while (true) {
+            node.count++;
+            node.sumLatitude += latitude;
+            node.sumLongitude += longitude;
+            if (node.children == null) {
+                break;
+            }
+            node = node.childFor(latitude, longitude);
+        }
+
+        node.addEntry(placemark, latitude, longitude);
+        this.placemarkNodes.put(placemark, node);
+
+        if (node.size > NODE_CAPACITY && node.level < MAX_LEVEL) {
+            this.subdivide(node);
+        }
+    }
+
+    protected boolean removeFromIndex(Placemark placemark) {
+        Node node = this.placemarkNodes.remove(placemark);
+        if (node == null) {
+            return false;
+        }
+
+        // Remove the placemark from its leaf using the position it was indexed at, then update the count and position
+        // sum of each cell containing the leaf.
+        int index = node.indexOfEntry(placemark);
+        double latitude = node.latitudes[index];
+        double longitude = node.longitudes[index];
+        node.removeEntry(index);
+
+        for (; node != null; node = node.parent) {
+            node.count--;
+            node.sumLatitude -= latitude;
+            node.sumLongitude -= longitude;
+            if (node.count == 0) {
+                node.sumLatitude = 0; // discard accumulated rounding error
+                node.sumLongitude = 0;
+            }
+        }
+
+        return true;
+    }
+
+    protected void subdivide(Node node) {
+        double half = node.delta * 0.5;
+        node.children = new Node[]{
+            new Node(node, node.level + 1, node.minLatitude, node.minLongitude, half),
+            new Node(node, node.level + 1, node.minLatitude, node.minLongitude + half, half),
+            new Node(node, node.level + 1, node.minLatitude + half, node.minLongitude, half),
+            new Node(node, node.level + 1, node.minLatitude + half, node.minLongitude + half, half)};
+
+        // Move the leaf's placemarks to its new children, which inherit the placemark counts and position sums.
+        for (int idx = 0; idx < node.size; idx++) {
+            Placemark placemark = node.placemarks[idx];
+            double latitude = node.latitudes[idx];
+            double longitude = node.longitudes[idx];
+            Node child = node.childFor(latitude, longitude);
+            child.count++;
+            child.sumLatitude += latitude;
+            child.sumLongitude += longitude;
+            child.addEntry(placemark, latitude, longitude);
+            this.placemarkNodes.put(placemark, child);
+        }
+
+        node.placemarks = null;
+        node.latitudes = null;
+        node.longitudes = null;
+        node.size = 0;
+
+        // Subdivide any child that received all of the placemarks.
+        for (Node child : node.children) {
+            if (child.size > NODE_CAPACITY && child.level < MAX_LEVEL) {
+                this.subdivide(child);
+            }
+        }
+    }
+
+    /**
+     * Cell in the layer's hierarchical grid. Leaf cells hold the placemarks they contain; other cells hold four
+     * children dividing the cell into quadrants.
+     */
+    protected static class Node {
+
+        public Node parent;
+
+        public Node[] children;
+
+        public int level;
+
+        public double minLatitude;
+
+        public double minLongitude;
+
+        public double delta;
+
+        public int count;
+
+        public double sumLatitude;
+
+        public double sumLongitude;
+
+        public Placemark[] placemarks = new Placemark[4];
+
+        public double[] latitudes = new double[4];
+
+        public double[] longitudes = new double[4];
+
+        public int size;
+
+        public Node(Node parent, int level, double minLatitude, double minLongitude, double delta) {
+            this.parent = parent;
+            this.level = level;
+            this.minLatitude = minLatitude;
+            this.minLongitude = minLongitude;
+            this.delta = delta;
+        }
+
+        public Node childFor(double latitude, double longitude) {
+            double half = this.delta * 0.5;
+            int row = (latitude >= this.minLatitude + half) ? 1 : 0;
+            int col = (longitude >= this.minLongitude + half) ? 1 : 0;
+            return this.children[row * 2 + col];
+        }
+
+        public void addEntry(Placemark placemark, double latitude, double longitude) {
+            if (this.size == this.placemarks.length) {
+                int capacity = this.size * 2;
+                Placemark[] newPlacemarks = new Placemark[capacity];
+                double[] newLatitudes = new double[capacity];
+                double[] newLongitudes = new double[capacity];
+                System.arraycopy(this.placemarks, 0, newPlacemarks, 0, this.size);
+                System.arraycopy(this.latitudes, 0, newLatitudes, 0, this.size);
+                System.arraycopy(this.longitudes, 0, newLongitudes, 0, this.size);
+                this.placemarks = newPlacemarks;
+                this.latitudes = newLatitudes;
+                this.longitudes = newLongitudes;
+            }
+
+            this.placemarks[this.size] = placemark;
+            this.latitudes[this.size] = latitude;
+            this.longitudes[this.size] = longitude;
+            this.size++;
+        }
+
+        public int indexOfEntry(Placemark placemark) {
+            for (int idx = 0; idx < this.size; idx++) {
+                if (this.placemarks[idx] == placemark) {
+                    return idx;
+                }
+            }
+
+            return -1;
+        }
+
+        public void removeEntry(int index) {
+            int last = --this.size;
+            this.placemarks[index] = this.placemarks[last];
+            this.latitudes[index] = this.latitudes[last];
+            this.longitudes[index] = this.longitudes[last];
+            this.placemarks[last] = null;
+        }
+    }
+}
@@ -8,6 +8,7 @@ package gov.nasa.worldwind.layer;
 import java.util.ArrayList;
 import java.util.Iterator;
 
+import gov.nasa.worldwind.render.ModelPointBatch;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Renderable;
 import gov.nasa.worldwind.util.Logger;
@@ -16,6 +17,8 @@ public class RenderableLayer extends AbstractLayer implements Iterable<Renderabl
 
     protected ArrayList<Renderable> renderables = new ArrayList<>();
 
+    protected ModelPointBatch modelPointBatch = new ModelPointBatch();
+
     public RenderableLayer() {
     }
 
@@ -208,6 +211,22 @@ public class RenderableLayer extends AbstractLayer implements Iterable<Renderabl
 
     @Override
     protected void doRender(RenderContext rc) {
+        // Recompute the out-of-date model points of renderables such as placemarks and labels in a single pass, before
+        // any renderable is drawn. Model points that are current from an earlier frame are left as is.
+        for (int idx = 0, len = this.renderables.size(); idx < len; idx++) {
+            Renderable renderable = this.renderables.get(idx);
+            if (renderable instanceof ModelPointBatch.Source) {
+                try {
+                    ((ModelPointBatch.Source) renderable).addModelPoints(rc, this.modelPointBatch);
+                } catch (Exception e) {
+                    Logger.logMessage(Logger.ERROR, "RenderableLayer", "doRender",
+                        "Exception while computing model points for shape \'" + renderable.getDisplayName() + "\'", e);
+                    // Keep going. The shape computes its own model points when it's rendered.
+                }
+            }
+        }
+        this.modelPointBatch.update(rc);
+
         for (int idx = 0, len = this.renderables.size(); idx < len; idx++) {
             Renderable renderable = this.renderables.get(idx);
             try {
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.HttpTransport;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * A block of adjacent tiles of one level, retrieved with a single WMS Get Map request and split into the bitmaps of
+ * the individual tiles. Each tile's image source is a bitmap factory image source referencing the metatile, provided by
+ * {@link #tileImageSource(int, int)}. Metatiles are equivalent when their Get Map URLs are equivalent.
+ */
+public class WmsMetatile implements ImageSource.BitmapGroupFactory {
+
+    protected String urlString;
+
+    protected int rows;
+
+    protected int columns;
+
+    /**
+     * Constructs a metatile with a specified Get Map URL and number of tile rows and columns. The URL's image must span
+     * the tiles exactly, with its first row of pixels at the northern edge of the metatile's last row of tiles.
+     *
+     * @param urlString the metatile's Get Map URL
+     * @param rows      the number of tile rows
+     * @param columns   the number of tile columns
+     *
+     * @throws IllegalArgumentException If the URL is null, or if either the number of rows or columns is less than 1
+     */
+    public WmsMetatile(String urlString, int rows, int columns) {
+        if (urlString == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "WmsMetatile", "constructor", "missingUrl"));
+        }
+
+        if (rows < 1 || columns < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "WmsMetatile", "constructor", "invalidRowsOrColumns"));
+        }
+
+        this.urlString = urlString;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    public String getUrlString() {
+        return this.urlString;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Returns the image source of one of the metatile's tiles. Row 0 is the metatile's southernmost row, and column 0
+     * its westernmost column, as in a {@link gov.nasa.worldwind.util.Level}'s tiles.
+     *
+     * @param row    the tile's row within the metatile
+     * @param column the tile's column within the metatile
+     *
+     * @return the tile's image source
+     *
+     * @throws IllegalArgumentException If the row or column is outside the metatile
+     */
+    public ImageSource tileImageSource(int row, int column) {
+        if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "WmsMetatile", "tileImageSource", "invalidRowsOrColumns"));
+        }
+
+        return ImageSource.fromBitmapFactory(new TileBitmapFactory(this, row, column));
+    }
+
+    @Override
+    public void createBitmaps(Map<ImageSource, Bitmap> result) {
+        Bitmap image;
+        try {
+            image = this.retrieveImage();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex); // reported by the image retriever as a failed retrieval
+        }
+
+        if (image == null) {
+            return; // the server's response is not an image, such as a WMS service exception
+        }
+
+        // Split the image into the tiles' bitmaps. The image rows are ordered from north to south, while tile rows are
+        // ordered from south to north.
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        boolean imageUsed = false;
+        for (int row = 0; row < this.rows; row++) {
+            int top = (this.rows - row - 1) * imageHeight / this.rows;
+            int bottom = (this.rows - row) * imageHeight / this.rows;
+            for (int column = 0; column < this.columns; column++) {
+                int left = column * imageWidth / this.columns;
+                int right = (column + 1) * imageWidth / this.columns;
+                Bitmap bitmap = Bitmap.createBitmap(image, left, top, right - left, bottom - top);
+                imageUsed |= (bitmap == image); // the metatile has only one tile
+                result.put(this.tileImageSource(row, column), bitmap);
+            }
+        }
+
+        if (!imageUsed) {
+            image.recycle(); // the tiles' bitmaps are copies; release the metatile's pixels now
+        }
+    }
+
+    protected Bitmap retrieveImage() throws IOException {
+        HttpTransport.Response response = null;
+        try {
+            response = WorldWind.httpTransport().get(this.urlString);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inScaled = false; // suppress default image scaling; load the image in its native dimensions
+            return BitmapFactory.decodeStream(new BufferedInputStream(response.getInputStream()), null, options);
+        } finally {
+            WWUtil.closeSilently(response);
+        }
+    }
+
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || this.getClass() != o.getClass()) {
+            return false;
+        }
+
+        WmsMetatile that = (WmsMetatile) o;
+        return this.urlString.equals(that.urlString);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.urlString.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "WmsMetatile " + this.rows + "x" + this.columns + " " + this.urlString;
+    }
+
+    /**
+     * Creates the bitmap of one of a metatile's tiles.
+     */
+    protected static class TileBitmapFactory implements ImageSource.GroupedBitmapFactory {
+
+        protected WmsMetatile metatile;
+
+        protected int row;
+
+        protected int column;
+
+        public TileBitmapFactory(WmsMetatile metatile, int row, int column) {
+            this.metatile = metatile;
+            this.row = row;
+            this.column = column;
+        }
+
+        @Override
+        public ImageSource.BitmapGroupFactory getGroupFactory() {
+            return this.metatile;
+        }
+
+        @Override
+        public Bitmap createBitmap() {
+            Map<ImageSource, Bitmap> bitmaps = new HashMap<>();
+            this.metatile.createBitmaps(bitmaps);
+            return bitmaps.get(ImageSource.fromBitmapFactory(this)); // the other tiles' bitmaps are discarded
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            TileBitmapFactory that = (TileBitmapFactory) o;
+            return this.metatile.equals(that.metatile) && this.row == that.row && this.column == that.column;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * this.metatile.hashCode() + this.row) + this.column;
+        }
+
+        @Override
+        public String toString() {
+            return "WmsMetatile tile row=" + this.row + ", column=" + this.column + " " + this.metatile.urlString;
+        }
+    }
+}
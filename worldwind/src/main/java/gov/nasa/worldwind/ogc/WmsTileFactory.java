@@ -12,11 +12,17 @@ import gov.nasa.worldwind.render.ImageSource;
 import gov.nasa.worldwind.render.ImageTile;
 import gov.nasa.worldwind.util.Level;
 import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.LruMemoryCache;
 import gov.nasa.worldwind.util.Tile;
 import gov.nasa.worldwind.util.TileFactory;
 
 /**
  * Factory for constructing URLs associated with WMS Get Map requests.
+ * <p/>
+ * WmsTileFactory optionally requests tiles in metatiles: square blocks of adjacent tiles of the same level, retrieved
+ * with one Get Map request and split into the individual tiles' bitmaps. Metatiles reduce the number of requests and the
+ * per-request rendering overhead of the WMS server, at the cost of retrieving tiles in each metatile that may not be
+ * visible. Metatiling is disabled by default; see {@link #setMetatileSize(int)}.
  */
 public class WmsTileFactory implements TileFactory {
 
@@ -60,6 +66,17 @@ public class WmsTileFactory implements TileFactory {
      */
     protected String timeString;
 
+    /**
+     * The number of tiles along each side of a metatile. 1 indicates that metatiling is disabled.
+     */
+    protected int metatileSize = 1;
+
+    /**
+     * Recently created metatiles, keyed by level and metatile position, so that adjacent tiles created separately
+     * share their metatile.
+     */
+    protected LruMemoryCache<String, WmsMetatile> metatileCache = new LruMemoryCache<>(256);
+
     /**
      * Constructs a WMS Get Map URL builder with specified WMS service parameters.
      *
@@ -311,6 +328,36 @@ public class WmsTileFactory implements TileFactory {
         this.timeString = timeString;
     }
 
+    /**
+     * Indicates the number of tiles along each side of the metatiles requested with a single Get Map request. 1
+     * indicates that each tile is requested separately.
+     *
+     * @return the metatile size in tiles
+     */
+    public int getMetatileSize() {
+        return this.metatileSize;
+    }
+
+    /**
+     * Sets the number of tiles along each side of the metatiles requested with a single Get Map request, such as 2 for
+     * 2x2 metatiles. Tiles created after this call are requested in metatiles of the specified size. Metatiles at the
+     * edges of the globe are truncated to the tiles that exist. 1 disables metatiling, requesting each tile
+     * separately.
+     *
+     * @param size the metatile size in tiles
+     *
+     * @throws IllegalArgumentException If the size is less than 1
+     */
+    public void setMetatileSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "WmsTileFactory", "setMetatileSize", "invalidSize"));
+        }
+
+        this.metatileSize = size;
+        this.metatileCache.clear();
+    }
+
     @Override
     public Tile createTile(Sector sector, Level level, int row, int column) {
         if (sector == null) {
@@ -325,12 +372,43 @@ public class WmsTileFactory implements TileFactory {
 
         ImageTile tile = new ImageTile(sector, level, row, column);
 
-        String urlString = this.urlForTile(sector, level.tileWidth, level.tileHeight);
-        tile.setImageSource(ImageSource.fromUrl(urlString));
+        if (this.metatileSize > 1) {
+            tile.setImageSource(this.metatileImageSource(level, row, column));
+        } else {
+            String urlString = this.urlForTile(sector, level.tileWidth, level.tileHeight);
+            tile.setImageSource(ImageSource.fromUrl(urlString));
+        }
 
         return tile;
     }
 
+    /**
+     * Returns the image source of a tile within its metatile, creating the metatile if it is not in the metatile cache.
+     * Metatiles are aligned to multiples of the metatile size in the level's global grid of tiles.
+     */
+    protected ImageSource metatileImageSource(Level level, int row, int column) {
+        int size = this.metatileSize;
+        int firstRow = row - row % size;
+        int firstColumn = column - column % size;
+        String key = level.tileDelta + "/" + firstRow + "/" + firstColumn;
+
+        WmsMetatile metatile = this.metatileCache.get(key);
+        if (metatile == null) {
+            int levelRows = (int) Math.round(180 / level.tileDelta);
+            int levelColumns = (int) Math.round(360 / level.tileDelta);
+            int rows = Math.min(size, levelRows - firstRow);
+            int columns = Math.min(size, levelColumns - firstColumn);
+            Sector sector = new Sector(-90 + firstRow * level.tileDelta, -180 + firstColumn * level.tileDelta,
+                rows * level.tileDelta, columns * level.tileDelta);
+
+            String urlString = this.urlForTile(sector, columns * level.tileWidth, rows * level.tileHeight);
+            metatile = new WmsMetatile(urlString, rows, columns);
+            this.metatileCache.put(key, metatile, 1);
+        }
+
+        return metatile.tileImageSource(row - firstRow, column - firstColumn);
+    }
+
     public String urlForTile(Sector sector, int width, int height) {
         if (sector == null) {
             throw new IllegalArgumentException(
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.cog;
+
+import android.graphics.Bitmap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import gov.nasa.worldwind.formats.tiff.GeoTiff;
+import gov.nasa.worldwind.formats.tiff.Subfile;
+import gov.nasa.worldwind.formats.tiff.Tiff;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Creates the bitmap of one image tile from a remote Cloud Optimized GeoTIFF. The bitmap is sampled from the coarsest
+ * of the GeoTIFF's images whose resolution meets the bitmap's resolution, fetching only the GeoTIFF tiles that the
+ * bitmap's sector overlaps. The GeoTIFF must contain 8-bit grayscale, RGB or RGBA images. The factory is a remote
+ * resource, so its bitmaps are retrieved along with URL images.
+ */
+public class CogBitmapFactory implements ImageSource.BitmapFactory, ImageSource.RemoteResource {
+
+    protected CogReader reader;
+
+    protected Sector sector;
+
+    protected int width;
+
+    protected int height;
+
+    public CogBitmapFactory(CogReader reader, Sector sector, int width, int height) {
+        if (reader == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogBitmapFactory", "constructor", "missingReader"));
+        }
+
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogBitmapFactory", "constructor", "missingSector"));
+        }
+
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogBitmapFactory", "constructor", "invalidWidthOrHeight"));
+        }
+
+        this.reader = reader;
+        this.sector = new Sector(sector);
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    @Override
+    public Bitmap createBitmap() {
+        try {
+            Tiff tiff = this.reader.getTiff();
+            Subfile image = tiff.getSubfiles().get(0);
+            Sector imageSector = GeoTiff.readSector(image);
+            if (!imageSector.intersects(this.sector)) {
+                return null; // the GeoTIFF does not cover this tile
+            }
+
+            Subfile subfile = this.selectSubfile(tiff, imageSector);
+            if (subfile == null) {
+                Logger.logMessage(Logger.WARN, "CogBitmapFactory", "createBitmap",
+                    "Cloud Optimized GeoTIFF format not supported \'" + this.reader.getUrlString() + "\'");
+                return null;
+            }
+
+            int[] colors = this.readColors(subfile, imageSector);
+            return Bitmap.createBitmap(colors, this.width, this.height, Bitmap.Config.ARGB_8888);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex); // reported by the image retriever as a failed retrieval
+        }
+    }
+
+    /**
+     * Selects the coarsest supported image whose pixels are no larger than the bitmap's pixels, or the finest
+     * supported image when none are fine enough.
+     */
+    protected Subfile selectSubfile(Tiff tiff, Sector imageSector) {
+        double targetPixelSpan = this.sector.deltaLatitude() / this.height;
+        Subfile image = tiff.getSubfiles().get(0);
+        Subfile coarsest = null, finest = null;
+        for (Subfile subfile : tiff.getSubfiles()) {
+            int type = subfile.getNewSubfileType();
+            if ((subfile != image && (type & Tiff.REDUCED_RESOLUTION_SUBFILE) == 0) ||
+                (type & Tiff.TRANSPARENCY_MASK_SUBFILE) != 0 || !isSubfileSupported(subfile)) {
+                continue; // not the full resolution image or one of its overviews, or not supported
+            }
+
+            double pixelSpan = imageSector.deltaLatitude() / subfile.getImageLength();
+            if (pixelSpan <= targetPixelSpan && (coarsest == null || subfile.getImageLength() < coarsest.getImageLength())) {
+                coarsest = subfile;
+            }
+
+            if (finest == null || subfile.getImageLength() > finest.getImageLength()) {
+                finest = subfile;
+            }
+        }
+
+        return (coarsest != null) ? coarsest : finest;
+    }
+
+    protected static boolean isSubfileSupported(Subfile subfile) {
+        int samplesPerPixel = subfile.getSamplesPerPixel();
+        int photometric = subfile.getPhotometricInterpretation();
+        return subfile.isTiled() &&
+            Tiff.isCompressionSupported(subfile.getCompression()) &&
+            subfile.getBitsPerSample()[0] == 8 &&
+            (samplesPerPixel == 1 && (photometric == Tiff.BLACK_IS_ZERO || photometric == Tiff.WHITE_IS_ZERO) ||
+                (samplesPerPixel == 3 || samplesPerPixel == 4) && photometric == Tiff.RGB);
+    }
+
+    /**
+     * Samples the bitmap's colors from the nearest pixels of a GeoTIFF image, fetching each GeoTIFF tile the bitmap
+     * overlaps once. Bitmap pixels outside the image are transparent.
+     */
+    protected int[] readColors(Subfile subfile, Sector imageSector) throws IOException {
+        int imageWidth = subfile.getImageWidth();
+        int imageLength = subfile.getImageLength();
+        int tileWidth = subfile.getTileWidth();
+        int tileLength = subfile.getTileLength();
+
+        // Compute the image column and row nearest to each bitmap column and row, or -1 outside the image.
+        int[] imageX = new int[this.width];
+        int[] imageY = new int[this.height];
+        for (int i = 0; i < this.width; i++) {
+            double lon = this.sector.minLongitude() + (i + 0.5) * this.sector.deltaLongitude() / this.width;
+            double x = (lon - imageSector.minLongitude()) / imageSector.deltaLongitude() * imageWidth;
+            imageX[i] = (x >= 0 && x < imageWidth) ? (int) x : -1;
+        }
+        for (int j = 0; j < this.height; j++) {
+            double lat = this.sector.maxLatitude() - (j + 0.5) * this.sector.deltaLatitude() / this.height;
+            double y = (imageSector.maxLatitude() - lat) / imageSector.deltaLatitude() * imageLength;
+            imageY[j] = (y >= 0 && y < imageLength) ? (int) y : -1;
+        }
+
+        // Fetch the block of tiles spanning the bitmap's image columns and rows.
+        int minCol = Integer.MAX_VALUE, maxCol = -1, minRow = Integer.MAX_VALUE, maxRow = -1;
+        for (int x : imageX) {
+            if (x >= 0) {
+                minCol = Math.min(minCol, x / tileWidth);
+                maxCol = Math.max(maxCol, x / tileWidth);
+            }
+        }
+        for (int y : imageY) {
+            if (y >= 0) {
+                minRow = Math.min(minRow, y / tileLength);
+                maxRow = Math.max(maxRow, y / tileLength);
+            }
+        }
+
+        int[] colors = new int[this.width * this.height];
+        if (maxCol < 0 || maxRow < 0) {
+            return colors; // the bitmap's pixel centers fall outside the image
+        }
+
+        int blockWidth = maxCol - minCol + 1;
+        int count = blockWidth * (maxRow - minRow + 1);
+        int[] rows = new int[count];
+        int[] columns = new int[count];
+        for (int idx = 0; idx < count; idx++) {
+            rows[idx] = minRow + idx / blockWidth;
+            columns[idx] = minCol + idx % blockWidth;
+        }
+
+        ByteBuffer[] tileData = this.reader.readTiles(subfile, rows, columns, count);
+        byte[][] tiles = new byte[count][];
+        for (int idx = 0; idx < count; idx++) {
+            tiles[idx] = new byte[subfile.getTileDataSize()];
+            subfile.decodeTileData(tileData[idx], ByteBuffer.wrap(tiles[idx]));
+        }
+
+        int samplesPerPixel = subfile.getSamplesPerPixel();
+        boolean invert = (samplesPerPixel == 1 && subfile.getPhotometricInterpretation() == Tiff.WHITE_IS_ZERO);
+        for (int j = 0, pixel = 0; j < this.height; j++) {
+            for (int i = 0; i < this.width; i++, pixel++) {
+                int x = imageX[i], y = imageY[j];
+                if (x < 0 || y < 0) {
+                    continue; // transparent
+                }
+
+                byte[] tile = tiles[(y / tileLength - minRow) * blockWidth + x / tileWidth - minCol];
+                int pos = ((y % tileLength) * tileWidth + x % tileWidth) * samplesPerPixel;
+                if (samplesPerPixel == 1) {
+                    int gray = (tile[pos] & 0xFF) ^ (invert ? 0xFF : 0);
+                    colors[pixel] = 0xFF000000 | (gray << 16) | (gray << 8) | gray;
+                } else {
+                    int alpha = (samplesPerPixel == 4) ? (tile[pos + 3] & 0xFF) : 0xFF;
+                    colors[pixel] = (alpha << 24) | ((tile[pos] & 0xFF) << 16) | ((tile[pos + 1] & 0xFF) << 8) | (tile[pos + 2] & 0xFF);
+                }
+            }
+        }
+
+        return colors;
+    }
+}
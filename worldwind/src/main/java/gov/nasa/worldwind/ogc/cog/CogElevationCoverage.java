@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.cog;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.formats.tiff.Subfile;
+import gov.nasa.worldwind.formats.tiff.Tiff;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.globe.GeoTiffElevationCoverage;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.RetrievalFailureCache;
+import gov.nasa.worldwind.util.Retriever;
+
+/**
+ * Generates elevations from a remote Cloud Optimized GeoTIFF, fetching the GeoTIFF's tiles with HTTP range requests.
+ * <p/>
+ * CogElevationCoverage fetches the GeoTIFF's header in the background the first time elevations are requested, and
+ * provides no elevations until the header arrives. The full resolution image and each of its internal overviews become
+ * one matrix of the coverage's tile matrix set, as in {@link GeoTiffElevationCoverage}. The tiles missing from the
+ * coverage cache at the end of each elevation request are fetched together, merging the ranges of tiles stored near
+ * each other in the file into a single request.
+ */
+public class CogElevationCoverage extends GeoTiffElevationCoverage {
+
+    /**
+     * The largest number of tiles fetched and decoded by a single retrieval.
+     */
+    protected static final int MAX_BATCH_TILES = 16;
+
+    /**
+     * The delay before fetching the header again after a failed attempt.
+     */
+    protected static final long HEADER_RETRY_DELAY = 10000;
+
+    protected CogReader reader;
+
+    protected boolean headerRequested;
+
+    protected boolean headerFailed;
+
+    protected Set<GeoTiffTile> pendingTiles = new LinkedHashSet<>();
+
+    protected Set<GeoTiffTile> activeTiles = new HashSet<>();
+
+    /**
+     * Constructs an elevation coverage for a remote Cloud Optimized GeoTIFF. The GeoTIFF is not contacted until
+     * elevations are first requested.
+     *
+     * @param urlString the GeoTIFF's URL
+     *
+     * @throws IllegalArgumentException If the URL string is null
+     */
+    public CogElevationCoverage(String urlString) {
+        this(new CogReader(urlString));
+    }
+
+    /**
+     * Constructs an elevation coverage for a remote Cloud Optimized GeoTIFF accessed by a specified reader.
+     *
+     * @param reader the GeoTIFF's reader
+     *
+     * @throws IllegalArgumentException If the reader is null
+     */
+    public CogElevationCoverage(CogReader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogElevationCoverage", "constructor", "missingReader"));
+        }
+
+        this.reader = reader;
+        this.setCoverageRetriever(new CogRetriever(reader, MAX_SIMULTANEOUS_RETRIEVALS));
+    }
+
+    public CogReader getReader() {
+        return this.reader;
+    }
+
+    @Override
+    protected void doGetHeightGrid(Sector gridSector, int gridWidth, int gridHeight, float[] result) {
+        if (this.levels == null) {
+            this.retrieveHeader();
+            return; // no coverage until the header arrives
+        }
+
+        super.doGetHeightGrid(gridSector, gridWidth, gridHeight, result);
+        this.retrievePendingTiles();
+    }
+
+    @Override
+    protected void doGetHeightLimits(Sector sector, float[] result) {
+        if (this.levels == null) {
+            this.retrieveHeader();
+            return; // no coverage until the header arrives
+        }
+
+        super.doGetHeightLimits(sector, result);
+        this.retrievePendingTiles();
+    }
+
+    @Override
+    protected boolean isTileInPlace(Subfile subfile, int row, int column) {
+        return false; // remote tiles are always retrieved into the coverage cache
+    }
+
+    protected void retrieveHeader() {
+        if (this.headerRequested || this.headerFailed) {
+            return;
+        }
+
+        this.headerRequested = true;
+        try {
+            WorldWind.taskService().execute(new Runnable() {
+                @Override
+                public void run() {
+                    fetchHeader();
+                }
+            });
+        } catch (RejectedExecutionException ignored) { // singleton task service is full; try again later
+            this.headerRequested = false;
+        }
+    }
+
+    protected void fetchHeader() {
+        try {
+            final Tiff tiff = this.reader.getTiff();
+            this.coverageHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    headerRetrieved(tiff);
+                }
+            });
+        } catch (Exception ex) {
+            Logger.log(Logger.ERROR, "Cloud Optimized GeoTIFF header retrieval failed \'" + this.reader.getUrlString() + "\'", ex);
+            this.coverageHandler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    headerRequested = false; // allow another attempt
+                }
+            }, HEADER_RETRY_DELAY);
+        }
+    }
+
+    protected void headerRetrieved(Tiff tiff) {
+        try {
+            this.readGeoTiff(tiff);
+            this.updateTimestamp();
+            WorldWind.requestRedraw();
+        } catch (RuntimeException ex) {
+            Logger.log(Logger.ERROR, "Cloud Optimized GeoTIFF not supported \'" + this.reader.getUrlString() + "\'", ex);
+            this.headerFailed = true; // the GeoTIFF's format does not change; don't try again
+        }
+    }
+
+    @Override
+    protected void retrieveTile(ImageSource tileSource) {
+        GeoTiffTile tile = (GeoTiffTile) tileSource.asObject();
+        if (this.coverageRetriever.getFailureCache().isSuppressed(tileSource)) {
+            this.coverageRetriever.getMetrics().recordSuppressed(this);
+        } else if (!this.activeTiles.contains(tile)) {
+            this.pendingTiles.add(tile);
+        }
+    }
+
+    /**
+     * Retrieves the tiles requested since the last call, grouping tiles from the same subfile into batches so that
+     * tiles stored near each other are fetched together.
+     */
+    protected void retrievePendingTiles() {
+        while (!this.pendingTiles.isEmpty()) {
+            Iterator<GeoTiffTile> iterator = this.pendingTiles.iterator();
+            Subfile subfile = iterator.next().subfile;
+            List<GeoTiffTile> batch = new ArrayList<>();
+
+            // Collect up to MAX_BATCH_TILES pending tiles from the first pending tile's subfile.
+            for (iterator = this.pendingTiles.iterator(); iterator.hasNext() && batch.size() < MAX_BATCH_TILES; ) {
+                GeoTiffTile tile = iterator.next();
+                if (tile.subfile == subfile) {
+                    batch.add(tile);
+                    iterator.remove();
+                }
+            }
+
+            this.activeTiles.addAll(batch);
+            this.coverageRetriever.retrieve(ImageSource.fromObject(new CogTileBatch(batch)), null, this, this);
+        }
+    }
+
+    @Override
+    public void retrievalSucceeded(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key, Void unused, ByteBuffer value) {
+        super.retrievalSucceeded(retriever, key, unused, value); // adds the tile to the cache on the main thread
+        this.releaseActiveTiles(key);
+    }
+
+    @Override
+    public void retrievalFailed(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key, Throwable ex) {
+        super.retrievalFailed(retriever, key, ex);
+        this.recordTileFailures(key, ex);
+        this.releaseActiveTiles(key);
+    }
+
+    @Override
+    public void retrievalRejected(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key) {
+        super.retrievalRejected(retriever, key);
+        this.releaseActiveTiles(key);
+    }
+
+    /**
+     * Records a failed batch retrieval as a failure of each of the batch's tiles, so that the tiles are not retrieved
+     * again until their backoff delay elapses. Batches fail as a whole only when their tiles cannot be fetched; tiles
+     * that fail to decode are failed individually by the retriever, and recorded under their own keys.
+     */
+    protected void recordTileFailures(ImageSource key, Throwable ex) {
+        Object source = key.asObject();
+        if (source instanceof CogTileBatch) {
+            RetrievalFailureCache<ImageSource> failureCache = this.coverageRetriever.getFailureCache();
+            failureCache.recordSuccess(key); // batches are never retrieved again; forget the batch's own failure
+            for (GeoTiffTile tile : ((CogTileBatch) source).tiles) {
+                failureCache.recordFailure(ImageSource.fromObject(tile), ex);
+            }
+        }
+    }
+
+    /**
+     * Allows the tiles of a completed retrieval to be retrieved again. Runs on the main thread after any tile added to
+     * the coverage cache by the retrieval, so that tiles are never retrieved while they are on their way to the cache.
+     */
+    protected void releaseActiveTiles(ImageSource key) {
+        final Object source = key.asObject();
+        this.coverageHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (source instanceof CogTileBatch) {
+                    activeTiles.removeAll(((CogTileBatch) source).tiles);
+                } else {
+                    activeTiles.remove(source);
+                }
+            }
+        });
+    }
+
+    /**
+     * A list of tiles from one subfile, retrieved together.
+     */
+    protected static class CogTileBatch {
+
+        public final List<GeoTiffTile> tiles;
+
+        public CogTileBatch(List<GeoTiffTile> tiles) {
+            this.tiles = tiles;
+        }
+
+        @Override
+        public String toString() {
+            return "Cloud Optimized GeoTIFF batch of " + this.tiles.size() + " tiles, first " + this.tiles.get(0);
+        }
+    }
+
+    /**
+     * Fetches and decodes batches of Cloud Optimized GeoTIFF tiles. Each batch's tiles are fetched with as few range
+     * requests as possible, and each decoded tile is delivered to the callback under its own tile key.
+     */
+    protected static class CogRetriever extends GeoTiffRetriever {
+
+        protected CogReader reader;
+
+        public CogRetriever(CogReader reader, int maxSimultaneousRetrievals) {
+            super(maxSimultaneousRetrievals);
+            this.reader = reader;
+        }
+
+        @Override
+        protected void retrieveAsync(ImageSource key, Void unused, Callback<ImageSource, Void, ByteBuffer> callback) {
+            if (!(key.asObject() instanceof CogTileBatch)) {
+                super.retrieveAsync(key, unused, callback);
+                return;
+            }
+
+            try {
+                List<GeoTiffTile> tiles = ((CogTileBatch) key.asObject()).tiles;
+                Subfile subfile = tiles.get(0).subfile;
+                int count = tiles.size();
+                int[] rows = new int[count];
+                int[] columns = new int[count];
+                for (int idx = 0; idx < count; idx++) {
+                    rows[idx] = tiles.get(idx).row;
+                    columns[idx] = tiles.get(idx).column;
+                }
+
+                long connectBegin = System.nanoTime();
+                ByteBuffer[] tileData = this.reader.readTiles(subfile, rows, columns, count);
+                long decodeBegin = System.nanoTime();
+                this.metrics.recordTimeToFirstByte(decodeBegin - connectBegin);
+
+                // Deliver each tile as it's decoded. A tile that fails to decode fails alone, leaving the tiles already
+                // delivered in place and the remaining tiles to be decoded.
+                for (int idx = 0; idx < count; idx++) {
+                    ImageSource tileKey = ImageSource.fromObject(tiles.get(idx));
+                    this.metrics.recordBytesFetched(tileData[idx].remaining());
+                    ByteBuffer result;
+                    try {
+                        result = this.decodeTile(subfile, rows[idx], columns[idx], tileData[idx]);
+                    } catch (Throwable logged) {
+                        callback.retrievalFailed(this, tileKey, logged); // failed with exception
+                        continue;
+                    }
+                    callback.retrievalSucceeded(this, tileKey, unused, result);
+                }
+
+                this.metrics.recordDecodeTime(System.nanoTime() - decodeBegin);
+            } catch (Throwable logged) {
+                callback.retrievalFailed(this, key, logged); // failed with exception
+            }
+        }
+
+        protected ByteBuffer decodeTile(Subfile subfile, int row, int column, ByteBuffer tileData) {
+            ByteBuffer result = this.allocateTileBuffer(subfile.getTileDataSize());
+            try {
+                subfile.decodeTileData(tileData, result);
+                result.flip();
+                if (isEdgeTile(subfile, row, column)) {
+                    fillTilePadding(subfile, row, column, result);
+                }
+                toNativeByteOrder(result);
+                return result;
+            } catch (RuntimeException ex) {
+                this.releaseTileBuffer(result);
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.cog;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.formats.tiff.Subfile;
+import gov.nasa.worldwind.formats.tiff.Tiff;
+import gov.nasa.worldwind.util.HttpTransport;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.LruMemoryCache;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * Reads a remote Cloud Optimized GeoTIFF with HTTP range requests. CogReader fetches the GeoTIFF header once, keeping
+ * it in a header cache shared by all readers, then fetches only the tiles it is asked for. Tiles whose data lies close
+ * together in the file are fetched with a single range request.
+ * <p/>
+ * Servers that ignore range requests are supported by reading the requested bytes from the full response, though
+ * doing so downloads the file up to the end of each range.
+ */
+public class CogReader {
+
+    /**
+     * The size of the initial header request, large enough for the header of typical Cloud Optimized GeoTIFFs.
+     */
+    protected static final int HEADER_SIZE = 1024 * 16;
+
+    /**
+     * The largest header request. Headers that do not fit are not supported.
+     */
+    protected static final int MAX_HEADER_SIZE = 1024 * 1024 * 4;
+
+    /**
+     * The largest gap between two tiles' data for which the tiles are fetched with a single range request.
+     */
+    protected static final int MAX_RANGE_GAP = 1024 * 4;
+
+    /**
+     * The largest span of data fetched with a single range request that merges multiple tiles.
+     */
+    protected static final int MAX_RANGE_LENGTH = 1024 * 1024 * 2;
+
+    protected static final LruMemoryCache<String, Tiff> headerCache = new LruMemoryCache<>(1024 * 1024 * 16);
+
+    protected String urlString;
+
+    protected Tiff tiff;
+
+    /**
+     * Constructs a reader for a remote Cloud Optimized GeoTIFF. The header is not fetched until it is first needed.
+     *
+     * @param urlString the GeoTIFF's URL
+     *
+     * @throws IllegalArgumentException If the URL string is null
+     */
+    public CogReader(String urlString) {
+        if (urlString == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogReader", "constructor", "missingUrl"));
+        }
+
+        this.urlString = urlString;
+    }
+
+    public String getUrlString() {
+        return this.urlString;
+    }
+
+    /**
+     * Returns the GeoTIFF's header, fetching it if it is not in the header cache. The returned Tiff provides the
+     * GeoTIFF's subfiles and their fields, but not their image data. This method blocks while the header is fetched and
+     * must not be called on the main thread.
+     *
+     * @return the GeoTIFF's header
+     *
+     * @throws IOException              If the header cannot be fetched
+     * @throws IllegalArgumentException If the header is not a valid Tiff header, or does not fit in the largest header
+     *                                  request
+     */
+    public synchronized Tiff getTiff() throws IOException {
+        if (this.tiff != null) {
+            return this.tiff;
+        }
+
+        synchronized (headerCache) {
+            this.tiff = headerCache.get(this.urlString);
+        }
+
+        if (this.tiff != null) {
+            return this.tiff;
+        }
+
+        // Fetch the start of the file, doubling the request until it contains the entire header. Cloud Optimized
+        // GeoTIFFs place the header, including each subfile's tile offsets, at the start of the file.
+        for (int size = HEADER_SIZE; ; size *= 2) {
+            ByteBuffer buffer = this.readRange(0, size);
+            try {
+                Tiff tiff = new Tiff(buffer);
+                tiff.getSubfiles(); // parse every subfile's fields, including its tile offsets
+
+                synchronized (headerCache) {
+                    headerCache.put(this.urlString, tiff, buffer.capacity());
+                }
+
+                return (this.tiff = tiff);
+            } catch (IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException ex) {
+                if (buffer.capacity() < size || size >= MAX_HEADER_SIZE) {
+                    throw ex; // the header is invalid, or exceeds the largest header request
+                }
+            }
+        }
+    }
+
+    /**
+     * Fetches the stored data of a list of tiles from one of the GeoTIFF's subfiles. Tiles whose data lies close
+     * together in the file are fetched with a single range request. Each tile's data is returned as a separate buffer,
+     * suitable for {@link Subfile#decodeTileData(ByteBuffer, ByteBuffer)}. Tiles with no stored data have an empty
+     * buffer. This method blocks while the tiles are fetched and must not be called on the main thread.
+     *
+     * @param subfile the subfile containing the tiles, from this reader's header
+     * @param rows    the tiles' rows
+     * @param columns the tiles' columns
+     * @param count   the number of tiles in the rows and columns arrays
+     *
+     * @return an array of count buffers containing each tile's data, in the order the tiles were specified
+     *
+     * @throws IOException              If the tiles cannot be fetched
+     * @throws IllegalArgumentException If any argument is null, or if any tile is outside the subfile
+     */
+    public ByteBuffer[] readTiles(Subfile subfile, int[] rows, int[] columns, int count) throws IOException {
+        if (subfile == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogReader", "readTiles", "missingSubfile"));
+        }
+
+        if (rows == null || columns == null || rows.length < count || columns.length < count) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogReader", "readTiles", "missingArray"));
+        }
+
+        int tilesAcross = (subfile.getImageWidth() + subfile.getTileWidth() - 1) / subfile.getTileWidth();
+        int tilesDown = (subfile.getImageLength() + subfile.getTileLength() - 1) / subfile.getTileLength();
+        int[] tileOffsets = subfile.getTileOffsets();
+        int[] tileByteCounts = subfile.getTileByteCounts();
+
+        // Sort the tiles by the location of their data in the file, packing each tile's data offset and its position in
+        // the argument list into a single sortable long.
+        long[] order = new long[count];
+        int orderCount = 0;
+        ByteBuffer[] result = new ByteBuffer[count];
+        for (int idx = 0; idx < count; idx++) {
+            if (rows[idx] < 0 || rows[idx] >= tilesDown || columns[idx] < 0 || columns[idx] >= tilesAcross) {
+                throw new IllegalArgumentException(
+                    Logger.logMessage(Logger.ERROR, "CogReader", "readTiles", "invalid tile"));
+            }
+
+            int index = rows[idx] * tilesAcross + columns[idx];
+            if (tileByteCounts[index] == 0) {
+                result[idx] = ByteBuffer.allocate(0); // sparse tile with no stored data
+            } else {
+                order[orderCount++] = ((long) tileOffsets[index] << 32) | idx;
+            }
+        }
+
+        Arrays.sort(order, 0, orderCount);
+
+        // Merge tiles into spans of nearby data, fetching each span with one range request and slicing each tile's
+        // data from the span.
+        for (int spanBegin = 0, spanEnd; spanBegin < orderCount; spanBegin = spanEnd) {
+            long spanOffset = order[spanBegin] >>> 32;
+            long spanLimit = spanOffset + tileByteCount(order[spanBegin], rows, columns, tilesAcross, tileByteCounts);
+            for (spanEnd = spanBegin + 1; spanEnd < orderCount; spanEnd++) {
+                long offset = order[spanEnd] >>> 32;
+                long limit = offset + tileByteCount(order[spanEnd], rows, columns, tilesAcross, tileByteCounts);
+                if (offset - spanLimit > MAX_RANGE_GAP || Math.max(limit, spanLimit) - spanOffset > MAX_RANGE_LENGTH) {
+                    break;
+                }
+                spanLimit = Math.max(limit, spanLimit);
+            }
+
+            ByteBuffer span = this.readRange(spanOffset, (int) (spanLimit - spanOffset));
+            for (int idx = spanBegin; idx < spanEnd; idx++) {
+                long offset = order[idx] >>> 32;
+                int length = tileByteCount(order[idx], rows, columns, tilesAcross, tileByteCounts);
+                if (offset + length - spanOffset > span.capacity()) {
+                    throw new EOFException(Logger.makeMessage("CogReader", "readTiles", "incomplete tile data"));
+                }
+
+                ByteBuffer data = span.duplicate();
+                data.limit((int) (offset - spanOffset) + length);
+                data.position((int) (offset - spanOffset));
+                result[(int) order[idx]] = data.slice();
+            }
+        }
+
+        return result;
+    }
+
+    protected static int tileByteCount(long order, int[] rows, int[] columns, int tilesAcross, int[] tileByteCounts) {
+        int idx = (int) order;
+        return tileByteCounts[rows[idx] * tilesAcross + columns[idx]];
+    }
+
+    /**
+     * Fetches a range of bytes from the GeoTIFF. The returned buffer is shorter than the requested length when the
+     * range extends beyond the end of the file.
+     *
+     * @param offset the range's first byte
+     * @param length the range's length in bytes
+     *
+     * @return a buffer containing the range's bytes, with position zero and limit equal to its capacity
+     *
+     * @throws IOException If the range cannot be fetched
+     */
+    protected ByteBuffer readRange(long offset, int length) throws IOException {
+        Map<String, String> requestProperties = Collections.singletonMap("Range", "bytes=" + offset + "-" + (offset + length - 1));
+        HttpTransport.Response response = null;
+        try {
+            response = WorldWind.httpTransport().get(this.urlString, requestProperties);
+            InputStream stream = response.getInputStream();
+
+            long skip = offset;
+            if (response.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+                skip = 0; // the server honored the range request
+            } else {
+                Logger.log(Logger.DEBUG, "Range request ignored \'" + this.urlString + "\'");
+            }
+
+            while (skip > 0) {
+                long skipped = stream.skip(skip);
+                if (skipped <= 0) {
+                    if (stream.read() == -1) {
+                        return ByteBuffer.allocate(0); // the range begins after the end of the file
+                    }
+                    skipped = 1;
+                }
+                skip -= skipped;
+            }
+
+            byte[] data = new byte[length];
+            int count = 0;
+            for (int read; count < length && (read = stream.read(data, count, length - count)) != -1; ) {
+                count += read;
+            }
+
+            return ByteBuffer.wrap(data, 0, count).slice();
+        } catch (HttpTransport.StatusException ex) {
+            if (ex.getResponseCode() == 416) { // requested range not satisfiable; the range begins after the file
+                return ByteBuffer.allocate(0);
+            }
+            throw ex;
+        } finally {
+            WWUtil.closeSilently(response);
+        }
+    }
+}
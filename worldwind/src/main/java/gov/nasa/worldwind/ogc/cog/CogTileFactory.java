@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.cog;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.ImageTile;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.TileFactory;
+
+/**
+ * Factory for tiles whose images are read from a remote Cloud Optimized GeoTIFF, typically used with a {@link
+ * gov.nasa.worldwind.shape.TiledSurfaceImage} whose level set spans the GeoTIFF's sector.
+ */
+public class CogTileFactory implements TileFactory {
+
+    protected CogReader reader;
+
+    public CogTileFactory(String urlString) {
+        this(new CogReader(urlString));
+    }
+
+    public CogTileFactory(CogReader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogTileFactory", "constructor", "missingReader"));
+        }
+
+        this.reader = reader;
+    }
+
+    @Override
+    public Tile createTile(Sector sector, Level level, int row, int column) {
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogTileFactory", "createTile", "missingSector"));
+        }
+
+        if (level == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "CogTileFactory", "createTile", "missingLevel"));
+        }
+
+        // Configure the tile with a bitmap factory that reads the tile's image from the GeoTIFF.
+        ImageTile tile = new ImageTile(sector, level, row, column);
+        ImageSource.BitmapFactory bitmapFactory = new CogBitmapFactory(this.reader, sector, level.tileWidth, level.tileHeight);
+        tile.setImageSource(ImageSource.fromBitmapFactory(bitmapFactory));
+
+        return tile;
+    }
+}
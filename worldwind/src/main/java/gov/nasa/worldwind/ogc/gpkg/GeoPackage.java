@@ -11,6 +11,7 @@ import android.util.SparseArray;
 import android.util.SparseIntArray;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,7 +22,7 @@ import gov.nasa.worldwind.util.WWUtil;
 
 public class GeoPackage {
 
-    protected SQLiteConnection connection;
+    protected SQLiteConnectionPool connectionPool;
 
     protected List<GpkgSpatialReferenceSystem> spatialReferenceSystem = new ArrayList<>();
 
@@ -50,7 +51,7 @@ public class GeoPackage {
         // TODO verify its a GeoPackage container
         // TODO select specific columns
         // TODO parameterize table names and column names as constants
-        this.connection = new SQLiteConnection(pathName, SQLiteDatabase.OPEN_READONLY, 60, TimeUnit.SECONDS);
+        this.connectionPool = new SQLiteConnectionPool(pathName, SQLiteDatabase.OPEN_READONLY, 4, 60, TimeUnit.SECONDS);
         this.readSpatialReferenceSystem();
         this.readContent();
         this.readTileMatrixSet();
@@ -100,12 +101,65 @@ public class GeoPackage {
         return (tiles == null) ? null : this.readTileUserData(tiles.getTableName(), zoomLevel, tileColumn, tileRow);
     }
 
+    /**
+     * Reads a list of tiles in one zoom level of a GeoPackage tile table, using a single query. The query selects each
+     * tile column's requested rows with one IN term, and SQLite satisfies each term by seeking the index of the tile
+     * table's required unique constraint on (zoom_level, tile_column, tile_row), so only the requested tiles are read.
+     * Tiles missing from the table are not added to the result.
+     *
+     * @param tiles       the GeoPackage tiles content
+     * @param zoomLevel   the tiles' zoom level
+     * @param tileColumns the tiles' columns
+     * @param tileRows    the tiles' GeoPackage rows
+     * @param count       the number of tiles in the column and row arrays
+     * @param result      a pre-allocated list in which to store the tiles
+     *
+     * @return the result argument populated with the tiles found in the table
+     */
+    public List<GpkgTileUserData> readTileUserData(GpkgContent tiles, int zoomLevel, int[] tileColumns, int[] tileRows,
+                                                   int count, List<GpkgTileUserData> result) {
+        return (tiles == null || count == 0) ? result : this.readTileUserData(tiles.getTableName(), zoomLevel,
+            tileColumns, tileRows, count, result);
+    }
+
+    /**
+     * Reads the encoded image of a tile in a GeoPackage tile table, or returns null if the table has no tile at the
+     * specified address. Only the tile's image is selected, and the query's SQL is the same for every tile in the
+     * table, so each pooled connection reuses the statement prepared by its first read from SQLite's statement cache.
+     *
+     * @param tiles      the GeoPackage tiles content
+     * @param zoomLevel  the tile's zoom level
+     * @param tileColumn the tile's column
+     * @param tileRow    the tile's GeoPackage row
+     *
+     * @return the tile's encoded image, or null if the tile does not exist
+     */
+    public byte[] readTileData(GpkgContent tiles, int zoomLevel, int tileColumn, int tileRow) {
+        if (tiles == null) {
+            return null;
+        }
+
+        SQLiteConnectionPool.PooledConnection connection = null;
+        Cursor cursor = null;
+        try {
+            String[] selectionArgs = new String[]{Integer.toString(zoomLevel), Integer.toString(tileColumn), Integer.toString(tileRow)};
+            connection = this.connectionPool.acquireConnection();
+            cursor = connection.getDatabase().rawQuery("SELECT tile_data FROM '" + tiles.getTableName() + "' " +
+                "WHERE zoom_level=? AND tile_column=? AND tile_row=? LIMIT 1", selectionArgs);
+
+            return cursor.moveToNext() ? cursor.getBlob(0) : null;
+        } finally {
+            WWUtil.closeSilently(cursor);
+            this.connectionPool.releaseConnection(connection);
+        }
+    }
+
     protected void readSpatialReferenceSystem() {
-        SQLiteDatabase database = null;
+        SQLiteConnectionPool.PooledConnection connection = null;
         Cursor cursor = null;
         try {
-            database = this.connection.openDatabase();
-            cursor = database.rawQuery("SELECT * FROM 'gpkg_spatial_ref_sys'", null /*selectionArgs*/);
+            connection = this.connectionPool.acquireConnection();
+            cursor = connection.getDatabase().rawQuery("SELECT * FROM 'gpkg_spatial_ref_sys'", null /*selectionArgs*/);
 
             int srs_name = cursor.getColumnIndex("srs_name");
             int srs_id = cursor.getColumnIndex("srs_id");
@@ -129,16 +183,16 @@ public class GeoPackage {
             }
         } finally {
             WWUtil.closeSilently(cursor);
-            WWUtil.closeSilently(database);
+            this.connectionPool.releaseConnection(connection);
         }
     }
 
     protected void readContent() {
-        SQLiteDatabase database = null;
+        SQLiteConnectionPool.PooledConnection connection = null;
         Cursor cursor = null;
         try {
-            database = this.connection.openDatabase();
-            cursor = database.rawQuery("SELECT * FROM 'gpkg_contents'", null /*selectionArgs*/);
+            connection = this.connectionPool.acquireConnection();
+            cursor = connection.getDatabase().rawQuery("SELECT * FROM 'gpkg_contents'", null /*selectionArgs*/);
 
             int table_name = cursor.getColumnIndex("table_name");
             int data_type = cursor.getColumnIndex("data_type");
@@ -168,16 +222,16 @@ public class GeoPackage {
             }
         } finally {
             WWUtil.closeSilently(cursor);
-            WWUtil.closeSilently(database);
+            this.connectionPool.releaseConnection(connection);
         }
     }
 
     protected void readTileMatrixSet() {
-        SQLiteDatabase database = null;
+        SQLiteConnectionPool.PooledConnection connection = null;
         Cursor cursor = null;
         try {
-            database = this.connection.openDatabase();
-            cursor = database.rawQuery("SELECT * FROM 'gpkg_tile_matrix_set'", null /*selectionArgs*/);
+            connection = this.connectionPool.acquireConnection();
+            cursor = connection.getDatabase().rawQuery("SELECT * FROM 'gpkg_tile_matrix_set'", null /*selectionArgs*/);
 
             int table_name = cursor.getColumnIndex("table_name");
             int srs_id = cursor.getColumnIndex("srs_id");
@@ -202,16 +256,16 @@ public class GeoPackage {
             }
         } finally {
             WWUtil.closeSilently(cursor);
-            WWUtil.closeSilently(database);
+            this.connectionPool.releaseConnection(connection);
         }
     }
 
     protected void readTileMatrix() {
-        SQLiteDatabase database = null;
+        SQLiteConnectionPool.PooledConnection connection = null;
         Cursor cursor = null;
         try {
-            database = this.connection.openDatabase();
-            cursor = database.rawQuery("SELECT * FROM 'gpkg_tile_matrix'", null /*selectionArgs*/);
+            connection = this.connectionPool.acquireConnection();
+            cursor = connection.getDatabase().rawQuery("SELECT * FROM 'gpkg_tile_matrix'", null /*selectionArgs*/);
 
             int table_name = cursor.getColumnIndex("table_name");
             int zoom_level = cursor.getColumnIndex("zoom_level");
@@ -238,7 +292,7 @@ public class GeoPackage {
             }
         } finally {
             WWUtil.closeSilently(cursor);
-            WWUtil.closeSilently(database);
+            this.connectionPool.releaseConnection(connection);
         }
     }
 
@@ -254,11 +308,11 @@ public class GeoPackage {
                 continue;
             }
 
-            SQLiteDatabase database = null;
+            SQLiteConnectionPool.PooledConnection connection = null;
             Cursor cursor = null;
             try {
-                database = this.connection.openDatabase();
-                cursor = database.rawQuery("SELECT DISTINCT zoom_level FROM '" + content.getTableName() + "' ORDER BY zoom_level ASC", null /*selectionArgs*/);
+                connection = this.connectionPool.acquireConnection();
+                cursor = connection.getDatabase().rawQuery("SELECT DISTINCT zoom_level FROM '" + content.getTableName() + "' ORDER BY zoom_level ASC", null /*selectionArgs*/);
 
                 int zoom_level = cursor.getColumnIndex("zoom_level");
                 int[] zoomLevels = new int[cursor.getCount()];
@@ -274,19 +328,18 @@ public class GeoPackage {
                 this.tileUserMetricsIndex.put(content.getTableName(), userMetrics);
             } finally {
                 WWUtil.closeSilently(cursor);
-                WWUtil.closeSilently(database);
+                this.connectionPool.releaseConnection(connection);
             }
         }
     }
 
     protected GpkgTileUserData readTileUserData(String tableName, int zoomLevel, int tileColumn, int tileRow) {
-        // TODO SQLiteDatabase is ambiguous on whether the call to rawQuery and Cursor usage are thread safe
-        SQLiteDatabase database = null;
+        SQLiteConnectionPool.PooledConnection connection = null;
         Cursor cursor = null;
         try {
             String[] selectionArgs = new String[]{Integer.toString(zoomLevel), Integer.toString(tileColumn), Integer.toString(tileRow)};
-            database = this.connection.openDatabase();
-            cursor = database.rawQuery("SELECT * FROM '" + tableName + "' WHERE zoom_level=? AND tile_column=? AND tile_row=? LIMIT 1", selectionArgs);
+            connection = this.connectionPool.acquireConnection();
+            cursor = connection.getDatabase().rawQuery("SELECT * FROM '" + tableName + "' WHERE zoom_level=? AND tile_column=? AND tile_row=? LIMIT 1", selectionArgs);
 
             int id = cursor.getColumnIndex("id");
             int zoom_level = cursor.getColumnIndex("zoom_level");
@@ -308,7 +361,60 @@ public class GeoPackage {
             }
         } finally {
             WWUtil.closeSilently(cursor);
-            WWUtil.closeSilently(database);
+            this.connectionPool.releaseConnection(connection);
+        }
+    }
+
+    protected List<GpkgTileUserData> readTileUserData(String tableName, int zoomLevel, int[] tileColumns,
+                                                      int[] tileRows, int count, List<GpkgTileUserData> result) {
+        SQLiteConnectionPool.PooledConnection connection = null;
+        Cursor cursor = null;
+        try {
+            // Sort the tiles by column, packing each tile's column and row into a single sortable long, then select
+            // each column's rows with a term that repeats the zoom level. SQLite evaluates a disjunction of fully
+            // indexed terms as a union of index seeks, whereas a zoom level shared by all terms would scan the zoom
+            // level's entire index range.
+            long[] addresses = new long[count];
+            for (int idx = 0; idx < count; idx++) {
+                addresses[idx] = ((long) tileColumns[idx] << 32) | (tileRows[idx] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(addresses);
+
+            StringBuilder sql = new StringBuilder("SELECT id, zoom_level, tile_column, tile_row, tile_data FROM '")
+                .append(tableName).append("' WHERE ");
+            List<String> selectionArgs = new ArrayList<>();
+            String zoomArg = Integer.toString(zoomLevel);
+            for (int idx = 0; idx < count; idx++) {
+                int column = (int) (addresses[idx] >> 32);
+                if (idx == 0 || column != (int) (addresses[idx - 1] >> 32)) { // first tile in a column
+                    sql.append((idx == 0) ? "" : ")) OR ").append("(zoom_level=? AND tile_column=? AND tile_row IN (?");
+                    selectionArgs.add(zoomArg);
+                    selectionArgs.add(Integer.toString(column));
+                } else {
+                    sql.append(", ?");
+                }
+                selectionArgs.add(Integer.toString((int) addresses[idx]));
+            }
+            sql.append("))");
+
+            connection = this.connectionPool.acquireConnection();
+            cursor = connection.getDatabase().rawQuery(sql.toString(), selectionArgs.toArray(new String[selectionArgs.size()]));
+
+            while (cursor.moveToNext()) {
+                GpkgTileUserData userData = new GpkgTileUserData();
+                userData.setContainer(this);
+                userData.setId(cursor.getInt(0));
+                userData.setZoomLevel(cursor.getInt(1));
+                userData.setTileColumn(cursor.getInt(2));
+                userData.setTileRow(cursor.getInt(3));
+                userData.setTileData(cursor.getBlob(4));
+                result.add(userData);
+            }
+
+            return result;
+        } finally {
+            WWUtil.closeSilently(cursor);
+            this.connectionPool.releaseConnection(connection);
         }
     }
 }
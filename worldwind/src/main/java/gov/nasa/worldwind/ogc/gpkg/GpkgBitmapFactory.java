@@ -35,19 +35,18 @@ public class GpkgBitmapFactory implements ImageSource.BitmapFactory {
 
     @Override
     public Bitmap createBitmap() {
-        // Attempt to read the GeoPackage tile user data, throwing an exception if it cannot be found.
+        // Attempt to read the GeoPackage tile data, throwing an exception if it cannot be found.
         GeoPackage geoPackage = this.tiles.getContainer();
-        GpkgTileUserData tileUserData = geoPackage.readTileUserData(this.tiles, this.zoomLevel, this.tileColumn, this.tileRow);
+        byte[] tileData = geoPackage.readTileData(this.tiles, this.zoomLevel, this.tileColumn, this.tileRow);
 
-        // Log a message if the tile user data cannot be found, and return a null bitmap indicating this tile is empty.
-        if (tileUserData == null) {
+        // Log a message if the tile data cannot be found, and return a null bitmap indicating this tile is empty.
+        if (tileData == null) {
             Logger.logMessage(Logger.WARN, "GpkgBitmapFactory", "createBitmap",
                 "The GeoPackage tile cannot be found (zoomLevel=" + this.zoomLevel + ", tileColumn=" + this.tileColumn + ", tileRow=" + this.tileRow + ")");
             return null;
         }
 
-        // Decode the tile user data, either a PNG image or a JPEG image.
-        byte[] data = tileUserData.getTileData();
-        return BitmapFactory.decodeByteArray(data, 0, data.length);
+        // Decode the tile data, either a PNG image or a JPEG image.
+        return BitmapFactory.decodeByteArray(tileData, 0, tileData.length);
     }
 }
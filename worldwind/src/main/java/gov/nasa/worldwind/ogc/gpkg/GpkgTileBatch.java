@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.gpkg;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * The tiles requested from one GeoPackage zoom level, read from the tile table with a single query and decoded into the
+ * bitmaps of the individual tiles. Each tile's image source is a bitmap factory image source referencing the batch,
+ * provided by {@link #tileImageSource(int, int)}. World Wind requests each tile's bitmap from the batch before
+ * retrieving the batch, and each retrieval reads only the tiles requested since the previous retrieval, up to the
+ * batch's maximum number of tiles. Requested tiles missing from the tile table are mapped to null, failing their
+ * retrieval without failing the batch.
+ */
+public class GpkgTileBatch implements ImageSource.RequestedBitmapGroupFactory {
+
+    protected GpkgContent tiles;
+
+    protected int zoomLevel;
+
+    protected int maxTiles;
+
+    protected final Object lock = new Object();
+
+    /**
+     * The addresses of the tiles requested since the previous retrieval, in the order they were requested.
+     */
+    protected Set<Long> requestedTiles = new LinkedHashSet<>();
+
+    /**
+     * The addresses of the tiles being read by the retrieval in progress.
+     */
+    protected Set<Long> readingTiles = new HashSet<>();
+
+    /**
+     * Constructs a batch of tiles in a GeoPackage tile table.
+     *
+     * @param tiles     the GeoPackage tiles content
+     * @param zoomLevel the tiles' zoom level
+     * @param maxTiles  the maximum number of tiles read with a single query
+     *
+     * @throws IllegalArgumentException If the tiles content is null, or if the maximum number of tiles is less than 1
+     */
+    public GpkgTileBatch(GpkgContent tiles, int zoomLevel, int maxTiles) {
+        if (tiles == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileBatch", "constructor", "missingTiles"));
+        }
+
+        if (maxTiles < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileBatch", "constructor", "invalidSize"));
+        }
+
+        this.tiles = tiles;
+        this.zoomLevel = zoomLevel;
+        this.maxTiles = maxTiles;
+    }
+
+    public GpkgContent getTiles() {
+        return this.tiles;
+    }
+
+    public int getZoomLevel() {
+        return this.zoomLevel;
+    }
+
+    public int getMaxTiles() {
+        return this.maxTiles;
+    }
+
+    /**
+     * Returns the image source of one of the batch's tiles.
+     *
+     * @param tileColumn the tile's column in the zoom level
+     * @param tileRow    the tile's GeoPackage row in the zoom level
+     *
+     * @return the tile's image source
+     */
+    public ImageSource tileImageSource(int tileColumn, int tileRow) {
+        return ImageSource.fromBitmapFactory(new TileBitmapFactory(this, tileColumn, tileRow));
+    }
+
+    /**
+     * Requests the bitmap of one of the batch's tiles, to be read by the batch's next retrieval.
+     *
+     * @param imageSource the tile's image source, from {@link #tileImageSource(int, int)}
+     *
+     * @return true if the tile is requested, or false if the tile is being read by the retrieval in progress
+     *
+     * @throws IllegalArgumentException If the image source is not one of the batch's tiles
+     */
+    @Override
+    public boolean requestBitmap(ImageSource imageSource) {
+        if (imageSource == null || !(imageSource.asBitmapFactory() instanceof TileBitmapFactory)
+            || ((TileBitmapFactory) imageSource.asBitmapFactory()).batch != this) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileBatch", "requestBitmap", "invalidImageSource"));
+        }
+
+        TileBitmapFactory factory = (TileBitmapFactory) imageSource.asBitmapFactory();
+        Long address = tileAddress(factory.tileColumn, factory.tileRow);
+
+        synchronized (this.lock) {
+            if (this.readingTiles.contains(address)) {
+                return false;
+            }
+
+            this.requestedTiles.add(address);
+            return true;
+        }
+    }
+
+    /**
+     * Reads the tiles requested since the previous call, up to the batch's maximum number of tiles, with a single query.
+     * Tiles requested while this method is in progress are left for the next call.
+     *
+     * @param result the map in which to return the requested tiles' image sources and bitmaps
+     */
+    @Override
+    public void createBitmaps(Map<ImageSource, Bitmap> result) {
+        int count = 0;
+        int[] tileColumns;
+        int[] tileRows;
+
+        synchronized (this.lock) {
+            int size = Math.min(this.requestedTiles.size(), this.maxTiles);
+            tileColumns = new int[size];
+            tileRows = new int[size];
+            for (Iterator<Long> iterator = this.requestedTiles.iterator(); count < size; count++) {
+                long address = iterator.next();
+                iterator.remove();
+                this.readingTiles.add(address);
+                tileColumns[count] = (int) (address >> 32);
+                tileRows[count] = (int) address;
+            }
+        }
+
+        try {
+            if (count == 0) {
+                return; // the requested tiles were read by a retrieval that completed after they were requested
+            }
+
+            GeoPackage geoPackage = this.tiles.getContainer();
+            List<GpkgTileUserData> tileData = geoPackage.readTileUserData(this.tiles, this.zoomLevel,
+                tileColumns, tileRows, count, new ArrayList<GpkgTileUserData>(count));
+
+            // Map every requested tile to null, then replace the null entries of the tiles found in the table with
+            // their bitmaps, either a PNG image or a JPEG image.
+            for (int idx = 0; idx < count; idx++) {
+                result.put(this.tileImageSource(tileColumns[idx], tileRows[idx]), null);
+            }
+
+            for (int idx = 0, len = tileData.size(); idx < len; idx++) {
+                GpkgTileUserData userData = tileData.get(idx);
+                byte[] data = userData.getTileData();
+                Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length);
+                result.put(this.tileImageSource(userData.getTileColumn(), userData.getTileRow()), bitmap);
+            }
+        } finally {
+            synchronized (this.lock) {
+                this.readingTiles.clear();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRemote() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || this.getClass() != o.getClass()) {
+            return false;
+        }
+
+        GpkgTileBatch that = (GpkgTileBatch) o;
+        return this.tiles == that.tiles && this.zoomLevel == that.zoomLevel;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.tiles.hashCode() + this.zoomLevel;
+    }
+
+    @Override
+    public String toString() {
+        return "GpkgTileBatch " + this.tiles.getTableName() + " zoomLevel=" + this.zoomLevel;
+    }
+
+    protected static long tileAddress(int tileColumn, int tileRow) {
+        return ((long) tileColumn << 32) | (tileRow & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Creates the bitmap of one of a batch's tiles. The factory's createBitmap method reads its tile alone, while World
+     * Wind's image retrievers read the tile along with the batch's other requested tiles.
+     */
+    protected static class TileBitmapFactory extends GpkgBitmapFactory implements ImageSource.GroupedBitmapFactory {
+
+        protected GpkgTileBatch batch;
+
+        public TileBitmapFactory(GpkgTileBatch batch, int tileColumn, int tileRow) {
+            super(batch.tiles, batch.zoomLevel, tileColumn, tileRow);
+            this.batch = batch;
+        }
+
+        @Override
+        public ImageSource.BitmapGroupFactory getGroupFactory() {
+            return this.batch;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            TileBitmapFactory that = (TileBitmapFactory) o;
+            return this.batch.equals(that.batch) && this.tileColumn == that.tileColumn && this.tileRow == that.tileRow;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * this.batch.hashCode() + this.tileColumn) + this.tileRow;
+        }
+
+        @Override
+        public String toString() {
+            return "GpkgTileBatch tile tileColumn=" + this.tileColumn + ", tileRow=" + this.tileRow + " " + this.batch;
+        }
+    }
+}
@@ -5,10 +5,15 @@
 
 package gov.nasa.worldwind.ogc.gpkg;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.render.ImageSource;
 import gov.nasa.worldwind.render.ImageTile;
 import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.LevelSetConfig;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Tile;
 import gov.nasa.worldwind.util.TileFactory;
@@ -17,6 +22,10 @@ public class GpkgTileFactory implements TileFactory {
 
     protected GpkgContent tiles;
 
+    protected int batchSize = 32;
+
+    protected Map<Integer, GpkgTileBatch> batches = new HashMap<>();
+
     public GpkgTileFactory(GpkgContent tiles) {
         if (tiles == null) {
             throw new IllegalArgumentException(
@@ -26,6 +35,70 @@ public class GpkgTileFactory implements TileFactory {
         this.tiles = tiles;
     }
 
+    /**
+     * Indicates the maximum number of tiles read with a single GeoPackage query. The default is 32. 1 indicates that
+     * each tile is read separately.
+     *
+     * @return the batch size in tiles
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Sets the maximum number of tiles read with a single GeoPackage query. Each query reads only the tiles of one zoom
+     * level requested since the level's previous query, so larger batches run fewer queries without reading tiles that
+     * are not displayed. Tiles created after this call are read in batches of the specified size. 1 disables batching,
+     * reading each tile separately.
+     *
+     * @param size the batch size in tiles
+     *
+     * @throws IllegalArgumentException If the size is less than 1
+     */
+    public void setBatchSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileFactory", "setBatchSize", "invalidSize"));
+        }
+
+        this.batchSize = size;
+        this.batches.clear();
+    }
+
+    /**
+     * Creates a level set whose levels match the tile matrices of this factory's GeoPackage tiles content. Level
+     * numbers are GeoPackage zoom levels, so the level set's first level delta and tile size are derived from the tile
+     * matrix of the content's lowest zoom level, whichever level set the content's tiles were written from. The level
+     * set spans the content's bounds, and has levels up to the content's highest zoom level.
+     *
+     * @return a new level set for the tiles content
+     */
+    public LevelSet createLevelSet() {
+        String tableName = this.tiles.getTableName();
+        GeoPackage geoPackage = this.tiles.getContainer();
+        GpkgTileUserMetrics tileUserMetrics = geoPackage.getTileUserMetrics(tableName);
+        GpkgTileMatrixSet tileMatrixSet = geoPackage.getTileMatrixSet(tableName);
+
+        LevelSetConfig config = new LevelSetConfig();
+        config.sector.set(this.tiles.getMinY(), this.tiles.getMinX(),
+            this.tiles.getMaxY() - this.tiles.getMinY(), this.tiles.getMaxX() - this.tiles.getMinX());
+        config.firstLevelDelta = 180;
+        config.numLevels = tileUserMetrics.getMaxZoomLevel() + 1; // zero when there are no zoom levels, (0 = -1 + 1)
+
+        // Each zoom level doubles the resolution of the previous level. Scale the tile delta of the content's lowest
+        // zoom level back to zoom level 0.
+        int minZoomLevel = tileUserMetrics.getMinZoomLevel();
+        GpkgTileMatrix tileMatrix = (minZoomLevel < 0) ? null : geoPackage.getTileMatrix(tableName).get(minZoomLevel);
+        if (tileMatrix != null && tileMatrixSet != null) {
+            double tileDelta = (tileMatrixSet.getMaxY() - tileMatrixSet.getMinY()) / tileMatrix.getMatrixHeight();
+            config.firstLevelDelta = tileDelta * (1 << minZoomLevel);
+            config.tileWidth = tileMatrix.getTileWidth();
+            config.tileHeight = tileMatrix.getTileHeight();
+        }
+
+        return new LevelSet(config);
+    }
+
     @Override
     public Tile createTile(Sector sector, Level level, int row, int column) {
         if (sector == null) {
@@ -54,11 +127,30 @@ public class GpkgTileFactory implements TileFactory {
             // Convert the World Wind tile address to the equivalent GeoPackage tile address. Assumes that the World
             // Wind level set matchs the GeoPackage tile matrix set, with the exception of tile rows which are inverted.
             int gpkgRow = tileMatrix.getMatrixHeight() - row - 1;
-            // Configure the tile with a bitmap factory that reads directly from the GeoPackage.
-            ImageSource.BitmapFactory bitmapFactory = new GpkgBitmapFactory(this.tiles, zoomLevel, column, gpkgRow);
-            tile.setImageSource(ImageSource.fromBitmapFactory(bitmapFactory));
+            // Configure the tile with a bitmap factory that reads directly from the GeoPackage, either alone or along
+            // with the other tiles requested from its zoom level.
+            if (this.batchSize > 1) {
+                tile.setImageSource(this.batchFor(zoomLevel).tileImageSource(column, gpkgRow));
+            } else {
+                ImageSource.BitmapFactory bitmapFactory = new GpkgBitmapFactory(this.tiles, zoomLevel, column, gpkgRow);
+                tile.setImageSource(ImageSource.fromBitmapFactory(bitmapFactory));
+            }
         }
 
         return tile;
     }
+
+    /**
+     * Returns the batch that reads the requested tiles of a zoom level, creating the batch the first time the zoom
+     * level's tiles are created.
+     */
+    protected GpkgTileBatch batchFor(int zoomLevel) {
+        GpkgTileBatch batch = this.batches.get(zoomLevel);
+        if (batch == null) {
+            batch = new GpkgTileBatch(this.tiles, zoomLevel, this.batchSize);
+            this.batches.put(zoomLevel, batch);
+        }
+
+        return batch;
+    }
 }
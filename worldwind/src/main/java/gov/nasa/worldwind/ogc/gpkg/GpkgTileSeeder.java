@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.gpkg;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.ImageTile;
+import gov.nasa.worldwind.util.HttpTransport;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.TileFactory;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * Downloads the tiles of a region into a GeoPackage tile table for use without network connectivity. The seeder
+ * creates the tiles of a {@link LevelSet} with a {@link TileFactory}, such as a WMS or WMTS tile factory, retrieves
+ * each tile's image source and writes the tile's encoded image into the table with a {@link GpkgTileWriter}. The
+ * resulting GeoPackage displays the region with {@link gov.nasa.worldwind.layer.LayerFactory#createFromGeoPackage}.
+ * <p/>
+ * Tiles are retrieved by a bounded number of concurrent threads, and written in batches, each batch in one SQLite
+ * transaction. Seeding resumes where a cancelled or failed seeding of the same table stopped: tiles already stored in
+ * the table are not retrieved again. Tiles whose retrieval fails are skipped and counted as failed; seeding the region
+ * again retries them.
+ * <p/>
+ * Image sources referencing a URL are stored in the server's encoding. Image sources referencing a file are stored in
+ * the file's encoding. Image sources referencing a bitmap factory are stored in PNG encoding.
+ */
+public class GpkgTileSeeder {
+
+    /**
+     * Receives the progress of a seeding. Progress is reported on the thread performing the seeding, after each batch
+     * of tiles is written and when the seeding completes.
+     */
+    public interface Callback {
+
+        /**
+         * Notifies the callback of a seeding's progress.
+         *
+         * @param seeder         the seeder reporting its progress
+         * @param tilesCompleted the number of the region's tiles stored in the GeoPackage, including tiles stored by
+         *                       previous seedings
+         * @param tilesFailed    the number of the region's tiles whose retrieval failed
+         * @param tileCount      the total number of the region's tiles
+         */
+        void seedingProgress(GpkgTileSeeder seeder, int tilesCompleted, int tilesFailed, int tileCount);
+    }
+
+    protected GpkgTileWriter writer;
+
+    protected String tableName;
+
+    protected LevelSet levelSet;
+
+    protected TileFactory tileFactory;
+
+    protected int maxConcurrentRetrievals = 4;
+
+    protected int batchSize = 64;
+
+    protected volatile boolean cancelled;
+
+    /**
+     * Constructs a seeder that writes tiles into a specified GeoPackage tile table.
+     *
+     * @param writer      the writer for the GeoPackage the tiles are seeded into
+     * @param tableName   the name of the tile table, created if it does not exist
+     * @param levelSet    the level set defining the tiles
+     * @param tileFactory the factory creating the tiles and their image sources
+     *
+     * @throws IllegalArgumentException If any argument is null
+     */
+    public GpkgTileSeeder(GpkgTileWriter writer, String tableName, LevelSet levelSet, TileFactory tileFactory) {
+        if (writer == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileSeeder", "constructor", "missingWriter"));
+        }
+
+        if (tableName == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileSeeder", "constructor", "missingTableName"));
+        }
+
+        if (levelSet == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileSeeder", "constructor", "missingLevelSet"));
+        }
+
+        if (tileFactory == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileSeeder", "constructor", "missingTileFactory"));
+        }
+
+        this.writer = writer;
+        this.tableName = tableName;
+        this.levelSet = levelSet;
+        this.tileFactory = tileFactory;
+    }
+
+    public GpkgTileWriter getWriter() {
+        return this.writer;
+    }
+
+    public String getTableName() {
+        return this.tableName;
+    }
+
+    public LevelSet getLevelSet() {
+        return this.levelSet;
+    }
+
+    public TileFactory getTileFactory() {
+        return this.tileFactory;
+    }
+
+    /**
+     * Returns the maximum number of tiles retrieved at the same time.
+     */
+    public int getMaxConcurrentRetrievals() {
+        return this.maxConcurrentRetrievals;
+    }
+
+    public void setMaxConcurrentRetrievals(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileSeeder", "setMaxConcurrentRetrievals", "invalidCount"));
+        }
+
+        this.maxConcurrentRetrievals = count;
+    }
+
+    /**
+     * Returns the number of retrieved tiles written in each SQLite transaction.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public void setBatchSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileSeeder", "setBatchSize", "invalidSize"));
+        }
+
+        this.batchSize = size;
+    }
+
+    /**
+     * Requests that the seeding in progress stop. The tiles retrieved so far are written before the seeding returns,
+     * and are not retrieved again when the region is seeded again.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Seeds the tiles of a region into the GeoPackage tile table, returning when every tile has been either stored or
+     * has failed, or when the seeding is cancelled. Seeding blocks the calling thread, and must not be performed on the
+     * main thread.
+     *
+     * @param sector     the geographic region to seed
+     * @param firstLevel the number of the first level to seed
+     * @param lastLevel  the number of the last level to seed
+     * @param callback   the callback receiving the seeding's progress, or null to ignore progress
+     *
+     * @return true if every tile in the region is stored in the GeoPackage, otherwise false
+     *
+     * @throws IllegalArgumentException If the sector is null, or if the level range is not within the level set
+     */
+    public boolean seed(Sector sector, int firstLevel, int lastLevel, Callback callback) {
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileSeeder", "seed", "missingSector"));
+        }
+
+        if (firstLevel < 0 || lastLevel < firstLevel || lastLevel >= this.levelSet.numLevels()) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileSeeder", "seed", "invalidLevelRange"));
+        }
+
+        this.cancelled = false;
+
+        Sector region = new Sector(sector);
+        if (!region.intersect(this.levelSet.sector)) {
+            return true; // the region is outside the level set; there's nothing to seed
+        }
+
+        Progress progress = new Progress(callback);
+        for (int levelNumber = firstLevel; levelNumber <= lastLevel; levelNumber++) {
+            progress.tileCount += this.countTiles(region, this.levelSet.level(levelNumber));
+        }
+
+        ExecutorService executor = this.createExecutor();
+        this.writer.open();
+        try {
+            this.writer.createTileTable(this.tableName, this.levelSet, region);
+
+            for (int levelNumber = firstLevel; levelNumber <= lastLevel && !this.isInterrupted(); levelNumber++) {
+                this.seedLevel(region, this.levelSet.level(levelNumber), executor, progress);
+            }
+
+            progress.awaitResults(0); // wait for the tiles still being retrieved
+            this.writeTiles(progress, 1);
+        } finally {
+            executor.shutdownNow();
+            this.writer.close();
+        }
+
+        progress.report(this);
+        return progress.tilesCompleted == progress.tileCount;
+    }
+
+    protected void seedLevel(Sector region, Level level, ExecutorService executor, Progress progress) {
+        double tileDelta = level.tileDelta;
+        int firstRow = Tile.computeRow(tileDelta, region.minLatitude());
+        int lastRow = Tile.computeLastRow(tileDelta, region.maxLatitude());
+        int firstCol = Tile.computeColumn(tileDelta, region.minLongitude());
+        int lastCol = Tile.computeLastColumn(tileDelta, region.maxLongitude());
+        int matrixHeight = level.levelHeight / level.tileHeight;
+
+        // Find the tiles stored by previous seedings. GeoPackage tile rows are ordered from north to south, while World
+        // Wind tile rows are ordered from south to north.
+        Set<Long> storedTiles = this.writer.readTileAddresses(this.tableName, level.levelNumber, firstCol, lastCol,
+            matrixHeight - lastRow - 1, matrixHeight - firstRow - 1, new HashSet<Long>());
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            int gpkgRow = matrixHeight - row - 1;
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (this.isInterrupted()) {
+                    return;
+                }
+
+                if (storedTiles.contains(GpkgTileWriter.tileAddress(col, gpkgRow))) {
+                    progress.tilesCompleted++;
+                    continue;
+                }
+
+                // Bound the number of tiles retrieved or awaiting their write, then retrieve the tile on the
+                // executor's threads. Completed retrievals are written on this thread.
+                progress.awaitResults(this.maxConcurrentRetrievals - 1);
+                Sector tileSector = new Sector(-90 + row * tileDelta, -180 + col * tileDelta, tileDelta, tileDelta);
+                ImageTile tile = (ImageTile) this.tileFactory.createTile(tileSector, level, row, col);
+                executor.execute(new RetrievalTask(this, tile, gpkgRow, progress.results));
+                progress.tilesPending++;
+
+                this.writeTiles(progress, this.batchSize);
+            }
+        }
+    }
+
+    /**
+     * Writes the retrieved tiles in batches of the seeder's batch size while at least a specified number of tiles
+     * await their write.
+     */
+    protected void writeTiles(Progress progress, int minCount) {
+        while (!progress.batch.isEmpty() && progress.batch.size() >= minCount) {
+            List<GpkgTileUserData> tiles = progress.batch.subList(0, Math.min(this.batchSize, progress.batch.size()));
+            this.writer.writeTiles(this.tableName, tiles);
+            progress.tilesCompleted += tiles.size();
+            tiles.clear(); // removes the written tiles from the batch
+            progress.report(this);
+        }
+    }
+
+    protected int countTiles(Sector region, Level level) {
+        double tileDelta = level.tileDelta;
+        int rows = Tile.computeLastRow(tileDelta, region.maxLatitude()) - Tile.computeRow(tileDelta, region.minLatitude()) + 1;
+        int cols = Tile.computeLastColumn(tileDelta, region.maxLongitude()) - Tile.computeColumn(tileDelta, region.minLongitude()) + 1;
+        return rows * cols;
+    }
+
+    protected boolean isInterrupted() {
+        return this.cancelled || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Retrieves a tile's encoded image.
+     *
+     * @param tile the tile to retrieve
+     *
+     * @return the tile's encoded image, or null if the tile has no image
+     *
+     * @throws IOException If the tile's image cannot be retrieved
+     */
+    protected byte[] retrieveTileData(ImageTile tile) throws IOException {
+        ImageSource imageSource = tile.getImageSource();
+        if (imageSource == null) {
+            return null; // the tile factory provides no image for this tile
+        } else if (imageSource.isUrl()) {
+            return this.retrieveUrl(imageSource.asUrl());
+        } else if (imageSource.isFilePath()) {
+            return readFully(new FileInputStream(imageSource.asFilePath()));
+        } else if (imageSource.isBitmapFactory()) {
+            return this.encodeBitmap(imageSource.asBitmapFactory().createBitmap());
+        } else {
+            Logger.logMessage(Logger.WARN, "GpkgTileSeeder", "retrieveTileData",
+                "Unsupported image source " + imageSource);
+            return null;
+        }
+    }
+
+    protected byte[] retrieveUrl(String urlString) throws IOException {
+        HttpTransport.Response response = WorldWind.httpTransport().get(urlString);
+        try {
+            // Exclude responses that are not images, such as WMS service exceptions.
+            String contentType = response.getContentType();
+            if (contentType != null && !contentType.startsWith("image/")) {
+                Logger.logMessage(Logger.WARN, "GpkgTileSeeder", "retrieveUrl",
+                    "Unexpected content type " + contentType + " \'" + urlString + "\'");
+                return null;
+            }
+
+            return readFully(response.getInputStream());
+        } finally {
+            WWUtil.closeSilently(response);
+        }
+    }
+
+    protected byte[] encodeBitmap(Bitmap bitmap) {
+        if (bitmap == null) {
+            return null;
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            return out.toByteArray();
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    protected ExecutorService createExecutor() {
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            this.maxConcurrentRetrievals, this.maxConcurrentRetrievals, 10, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable r) {
+                    Thread thread = new Thread(r, "World Wind GeoPackage Seeder " + threadNumber.getAndIncrement());
+                    thread.setDaemon(true); // seeding threads do not prevent the process from terminating
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    protected static byte[] readFully(InputStream stream) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] page = new byte[8192];
+            for (int count; (count = stream.read(page)) != -1; ) {
+                out.write(page, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            WWUtil.closeSilently(stream);
+        }
+    }
+
+    /**
+     * The state of a seeding, accessed only by the thread performing the seeding, with the exception of the queue of
+     * retrieved tiles.
+     */
+    protected static class Progress {
+
+        public Callback callback;
+
+        public int tileCount;
+
+        public int tilesCompleted;
+
+        public int tilesFailed;
+
+        public int tilesPending;
+
+        public List<GpkgTileUserData> batch = new ArrayList<>();
+
+        public BlockingQueue<GpkgTileUserData> results = new LinkedBlockingQueue<>();
+
+        public Progress(Callback callback) {
+            this.callback = callback;
+        }
+
+        /**
+         * Moves retrieved tiles into the batch awaiting its write, blocking until no more than a specified number of
+         * tiles are being retrieved. Retrievals that failed are delivered as tiles without data.
+         */
+        public void awaitResults(int maxPending) {
+            try {
+                while (this.tilesPending > maxPending) {
+                    this.addResult(this.results.take());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt(); // the seeding stops; tiles still being retrieved are discarded
+            }
+
+            for (GpkgTileUserData result; (result = this.results.poll()) != null; ) {
+                this.addResult(result);
+            }
+        }
+
+        protected void addResult(GpkgTileUserData result) {
+            this.tilesPending--;
+            if (result.getTileData() != null) {
+                this.batch.add(result);
+            } else {
+                this.tilesFailed++;
+            }
+        }
+
+        public void report(GpkgTileSeeder seeder) {
+            if (this.callback != null) {
+                this.callback.seedingProgress(seeder, this.tilesCompleted, this.tilesFailed, this.tileCount);
+            }
+        }
+    }
+
+    protected static class RetrievalTask implements Runnable {
+
+        protected GpkgTileSeeder seeder;
+
+        protected ImageTile tile;
+
+        protected int gpkgRow;
+
+        protected BlockingQueue<GpkgTileUserData> results;
+
+        public RetrievalTask(GpkgTileSeeder seeder, ImageTile tile, int gpkgRow, BlockingQueue<GpkgTileUserData> results) {
+            this.seeder = seeder;
+            this.tile = tile;
+            this.gpkgRow = gpkgRow;
+            this.results = results;
+        }
+
+        @Override
+        public void run() {
+            GpkgTileUserData result = new GpkgTileUserData();
+            result.setZoomLevel(this.tile.level.levelNumber);
+            result.setTileColumn(this.tile.column);
+            result.setTileRow(this.gpkgRow);
+
+            try {
+                if (!this.seeder.isCancelled()) {
+                    result.setTileData(this.seeder.retrieveTileData(this.tile));
+                }
+            } catch (Throwable ex) {
+                Logger.logMessage(Logger.WARN, "GpkgTileSeeder", "run",
+                    "Tile retrieval failed " + this.tile.getImageSource() + ": " + ex);
+            } finally {
+                this.results.add(result); // always deliver a result; the seeding thread counts pending retrievals
+            }
+        }
+    }
+}
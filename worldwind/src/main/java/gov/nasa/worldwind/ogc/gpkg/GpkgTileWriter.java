@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.gpkg;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.List;
+import java.util.Set;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * Writes tiles into a GeoPackage tile table, creating the GeoPackage and its tile table when they do not exist. The
+ * tile table's tile matrix set covers the globe in the geographic coordinate system EPSG:4326, with one tile matrix for
+ * each level of a {@link LevelSet}. GeoPackage zoom levels are the level numbers, and GeoPackage tile rows are the
+ * level's tile rows inverted, matching the tile addresses read by {@link GpkgTileFactory} with the level set it
+ * creates from the tile matrices.
+ * <p/>
+ * GpkgTileWriter is not thread safe; tiles must be written by one thread at a time.
+ */
+public class GpkgTileWriter {
+
+    /**
+     * The GeoPackage application ID, 'GPKG' in ASCII.
+     */
+    protected static final int APPLICATION_ID = 0x47504B47;
+
+    /**
+     * The GeoPackage version 1.2 user version.
+     */
+    protected static final int USER_VERSION = 10200;
+
+    protected String pathName;
+
+    protected SQLiteDatabase database;
+
+    public GpkgTileWriter(String pathName) {
+        if (pathName == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileWriter", "constructor", "missingPathName"));
+        }
+
+        this.pathName = pathName;
+    }
+
+    public String getPathName() {
+        return this.pathName;
+    }
+
+    /**
+     * Opens the GeoPackage for writing, creating it and its core tables when they do not exist. Has no effect if the
+     * GeoPackage is already open.
+     */
+    public void open() {
+        if (this.database != null) {
+            return;
+        }
+
+        this.database = SQLiteDatabase.openDatabase(this.pathName, null /*factory*/,
+            SQLiteDatabase.OPEN_READWRITE | SQLiteDatabase.CREATE_IF_NECESSARY);
+
+        Cursor cursor = null;
+        try {
+            cursor = this.database.rawQuery("PRAGMA application_id", null /*selectionArgs*/);
+            if (cursor.moveToNext() && cursor.getInt(0) == 0) {
+                this.database.execSQL("PRAGMA application_id = " + APPLICATION_ID);
+                this.database.execSQL("PRAGMA user_version = " + USER_VERSION);
+            }
+        } finally {
+            WWUtil.closeSilently(cursor);
+        }
+
+        this.createCoreTables();
+    }
+
+    /**
+     * Closes the GeoPackage. Has no effect if the GeoPackage is not open.
+     */
+    public void close() {
+        WWUtil.closeSilently(this.database);
+        this.database = null;
+    }
+
+    /**
+     * Creates a tile table along with its content, tile matrix set and tile matrices, or updates an existing tile
+     * table's content bounds to include a sector.
+     *
+     * @param tableName the tile table's name
+     * @param levelSet  the level set whose levels define the tile matrices
+     * @param sector    the geographic region the table's tiles cover
+     *
+     * @throws IllegalArgumentException If any argument is null
+     */
+    public void createTileTable(String tableName, LevelSet levelSet, Sector sector) {
+        if (tableName == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileWriter", "createTileTable", "missingTableName"));
+        }
+
+        if (levelSet == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileWriter", "createTileTable", "missingLevelSet"));
+        }
+
+        if (sector == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "GpkgTileWriter", "createTileTable", "missingSector"));
+        }
+
+        this.database.beginTransaction();
+        try {
+            this.database.execSQL("CREATE TABLE IF NOT EXISTS '" + tableName + "' (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "zoom_level INTEGER NOT NULL, " +
+                "tile_column INTEGER NOT NULL, " +
+                "tile_row INTEGER NOT NULL, " +
+                "tile_data BLOB NOT NULL, " +
+                "UNIQUE (zoom_level, tile_column, tile_row))");
+
+            // Add the table's content, or expand the existing content's bounds to include the sector.
+            this.database.execSQL("INSERT OR IGNORE INTO 'gpkg_contents' " +
+                    "(table_name, data_type, identifier, min_x, min_y, max_x, max_y, srs_id) " +
+                    "VALUES (?, 'tiles', ?, ?, ?, ?, ?, 4326)",
+                new Object[]{tableName, tableName,
+                    sector.minLongitude(), sector.minLatitude(), sector.maxLongitude(), sector.maxLatitude()});
+            this.database.execSQL("UPDATE 'gpkg_contents' SET " +
+                    "min_x = MIN(min_x, ?), min_y = MIN(min_y, ?), max_x = MAX(max_x, ?), max_y = MAX(max_y, ?), " +
+                    "last_change = strftime('%Y-%m-%dT%H:%M:%fZ', 'now') WHERE table_name = ?",
+                new Object[]{sector.minLongitude(), sector.minLatitude(), sector.maxLongitude(), sector.maxLatitude(),
+                    tableName});
+
+            this.database.execSQL("INSERT OR REPLACE INTO 'gpkg_tile_matrix_set' " +
+                    "(table_name, srs_id, min_x, min_y, max_x, max_y) VALUES (?, 4326, -180, -90, 180, 90)",
+                new Object[]{tableName});
+
+            for (int idx = 0, len = levelSet.numLevels(); idx < len; idx++) {
+                GpkgTileMatrix tileMatrix = createTileMatrix(tableName, levelSet.level(idx));
+                this.database.execSQL("INSERT OR REPLACE INTO 'gpkg_tile_matrix' " +
+                        "(table_name, zoom_level, matrix_width, matrix_height, tile_width, tile_height, " +
+                        "pixel_x_size, pixel_y_size) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    new Object[]{tableName, tileMatrix.getZoomLevel(),
+                        tileMatrix.getMatrixWidth(), tileMatrix.getMatrixHeight(),
+                        tileMatrix.getTileWidth(), tileMatrix.getTileHeight(),
+                        tileMatrix.getPixelXSize(), tileMatrix.getPixelYSize()});
+            }
+
+            this.database.setTransactionSuccessful();
+        } finally {
+            this.database.endTransaction();
+        }
+    }
+
+    /**
+     * Reads the addresses of the tiles stored in a tile table within a range of one zoom level's tile columns and
+     * rows. Each address is added to the result as computed by {@link #tileAddress(int, int)}.
+     *
+     * @param tableName the tile table's name
+     * @param zoomLevel the tiles' zoom level
+     * @param minColumn the first tile column in the range
+     * @param maxColumn the last tile column in the range
+     * @param minRow    the first GeoPackage tile row in the range
+     * @param maxRow    the last GeoPackage tile row in the range
+     * @param result    a pre-allocated set in which to store the addresses
+     *
+     * @return the result argument populated with the stored tiles' addresses
+     */
+    public Set<Long> readTileAddresses(String tableName, int zoomLevel, int minColumn, int maxColumn,
+                                       int minRow, int maxRow, Set<Long> result) {
+        Cursor cursor = null;
+        try {
+            String[] selectionArgs = new String[]{Integer.toString(zoomLevel),
+                Integer.toString(minColumn), Integer.toString(maxColumn),
+                Integer.toString(minRow), Integer.toString(maxRow)};
+            cursor = this.database.rawQuery("SELECT tile_column, tile_row FROM '" + tableName + "' " +
+                "WHERE zoom_level=? AND tile_column BETWEEN ? AND ? AND tile_row BETWEEN ? AND ?", selectionArgs);
+
+            while (cursor.moveToNext()) {
+                result.add(tileAddress(cursor.getInt(0), cursor.getInt(1)));
+            }
+
+            return result;
+        } finally {
+            WWUtil.closeSilently(cursor);
+        }
+    }
+
+    /**
+     * Writes tiles into a tile table in a single transaction, replacing any tiles already stored at the same
+     * addresses. Either all of the tiles are written, or none of them are.
+     *
+     * @param tableName the tile table's name
+     * @param tiles     the tiles to write
+     */
+    public void writeTiles(String tableName, List<GpkgTileUserData> tiles) {
+        if (tiles.isEmpty()) {
+            return;
+        }
+
+        this.database.beginTransaction();
+        SQLiteStatement statement = null;
+        try {
+            statement = this.database.compileStatement("INSERT OR REPLACE INTO '" + tableName + "' " +
+                "(zoom_level, tile_column, tile_row, tile_data) VALUES (?, ?, ?, ?)");
+
+            for (int idx = 0, len = tiles.size(); idx < len; idx++) {
+                GpkgTileUserData tile = tiles.get(idx);
+                statement.bindLong(1, tile.getZoomLevel());
+                statement.bindLong(2, tile.getTileColumn());
+                statement.bindLong(3, tile.getTileRow());
+                statement.bindBlob(4, tile.getTileData());
+                statement.executeInsert();
+            }
+
+            this.database.execSQL("UPDATE 'gpkg_contents' SET last_change = strftime('%Y-%m-%dT%H:%M:%fZ', 'now') " +
+                "WHERE table_name = ?", new Object[]{tableName});
+            this.database.setTransactionSuccessful();
+        } finally {
+            WWUtil.closeSilently(statement);
+            this.database.endTransaction();
+        }
+    }
+
+    /**
+     * Computes the tile matrix of a level in a global tile matrix set. The tile matrix's zoom level is the level
+     * number, and {@link GpkgTileFactory#createLevelSet()} derives the level set's first level delta from the tile
+     * matrices, so GeoPackages written from any level set are read with matching levels.
+     *
+     * @param tableName the tile table's name
+     * @param level     the level whose tile matrix to compute
+     *
+     * @return the level's tile matrix
+     */
+    public static GpkgTileMatrix createTileMatrix(String tableName, Level level) {
+        GpkgTileMatrix tileMatrix = new GpkgTileMatrix();
+        tileMatrix.setTableName(tableName);
+        tileMatrix.setZoomLevel(level.levelNumber);
+        tileMatrix.setMatrixWidth(level.levelWidth / level.tileWidth);
+        tileMatrix.setMatrixHeight(level.levelHeight / level.tileHeight);
+        tileMatrix.setTileWidth(level.tileWidth);
+        tileMatrix.setTileHeight(level.tileHeight);
+        tileMatrix.setPixelXSize(level.tileDelta / level.tileWidth);
+        tileMatrix.setPixelYSize(level.tileDelta / level.tileHeight);
+        return tileMatrix;
+    }
+
+    /**
+     * Computes a tile's address within a zoom level, used to identify the tiles read by {@link
+     * #readTileAddresses(String, int, int, int, int, int, Set)}.
+     *
+     * @param tileColumn the tile's column
+     * @param tileRow    the tile's GeoPackage row
+     *
+     * @return the tile's address
+     */
+    public static long tileAddress(int tileColumn, int tileRow) {
+        return ((long) tileColumn << 32) | (tileRow & 0xFFFFFFFFL);
+    }
+
+    protected void createCoreTables() {
+        this.database.beginTransaction();
+        try {
+            this.database.execSQL("CREATE TABLE IF NOT EXISTS 'gpkg_spatial_ref_sys' (" +
+                "srs_name TEXT NOT NULL, " +
+                "srs_id INTEGER NOT NULL PRIMARY KEY, " +
+                "organization TEXT NOT NULL, " +
+                "organization_coordsys_id INTEGER NOT NULL, " +
+                "definition TEXT NOT NULL, " +
+                "description TEXT)");
+
+            this.database.execSQL("INSERT OR IGNORE INTO 'gpkg_spatial_ref_sys' VALUES " +
+                "('Undefined cartesian SRS', -1, 'NONE', -1, 'undefined', 'undefined cartesian coordinate reference system'), " +
+                "('Undefined geographic SRS', 0, 'NONE', 0, 'undefined', 'undefined geographic coordinate reference system'), " +
+                "('WGS 84 geodetic', 4326, 'EPSG', 4326, 'GEOGCS[\"WGS 84\",DATUM[\"WGS_1984\",SPHEROID[\"WGS 84\"," +
+                "6378137,298.257223563,AUTHORITY[\"EPSG\",\"7030\"]],AUTHORITY[\"EPSG\",\"6326\"]],PRIMEM[\"Greenwich\",0," +
+                "AUTHORITY[\"EPSG\",\"8901\"]],UNIT[\"degree\",0.0174532925199433,AUTHORITY[\"EPSG\",\"9122\"]]," +
+                "AUTHORITY[\"EPSG\",\"4326\"]]', 'longitude/latitude coordinates in decimal degrees on the WGS 84 spheroid')");
+
+            this.database.execSQL("CREATE TABLE IF NOT EXISTS 'gpkg_contents' (" +
+                "table_name TEXT NOT NULL PRIMARY KEY, " +
+                "data_type TEXT NOT NULL, " +
+                "identifier TEXT UNIQUE, " +
+                "description TEXT DEFAULT '', " +
+                "last_change DATETIME NOT NULL DEFAULT (strftime('%Y-%m-%dT%H:%M:%fZ', 'now')), " +
+                "min_x DOUBLE, " +
+                "min_y DOUBLE, " +
+                "max_x DOUBLE, " +
+                "max_y DOUBLE, " +
+                "srs_id INTEGER, " +
+                "CONSTRAINT fk_gc_r_srs_id FOREIGN KEY (srs_id) REFERENCES gpkg_spatial_ref_sys(srs_id))");
+
+            this.database.execSQL("CREATE TABLE IF NOT EXISTS 'gpkg_tile_matrix_set' (" +
+                "table_name TEXT NOT NULL PRIMARY KEY, " +
+                "srs_id INTEGER NOT NULL, " +
+                "min_x DOUBLE NOT NULL, " +
+                "min_y DOUBLE NOT NULL, " +
+                "max_x DOUBLE NOT NULL, " +
+                "max_y DOUBLE NOT NULL, " +
+                "CONSTRAINT fk_gtms_table_name FOREIGN KEY (table_name) REFERENCES gpkg_contents(table_name), " +
+                "CONSTRAINT fk_gtms_srs FOREIGN KEY (srs_id) REFERENCES gpkg_spatial_ref_sys (srs_id))");
+
+            this.database.execSQL("CREATE TABLE IF NOT EXISTS 'gpkg_tile_matrix' (" +
+                "table_name TEXT NOT NULL, " +
+                "zoom_level INTEGER NOT NULL, " +
+                "matrix_width INTEGER NOT NULL, " +
+                "matrix_height INTEGER NOT NULL, " +
+                "tile_width INTEGER NOT NULL, " +
+                "tile_height INTEGER NOT NULL, " +
+                "pixel_x_size DOUBLE NOT NULL, " +
+                "pixel_y_size DOUBLE NOT NULL, " +
+                "CONSTRAINT pk_ttm PRIMARY KEY (table_name, zoom_level), " +
+                "CONSTRAINT fk_tmm_table_name FOREIGN KEY (table_name) REFERENCES gpkg_contents(table_name))");
+
+            this.database.setTransactionSuccessful();
+        } finally {
+            this.database.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.gpkg;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * A bounded pool of connections to one SQLite database file, allowing several threads to query the database in
+ * parallel. Each connection is a separate {@link SQLiteDatabase}, used by one thread at a time between its acquisition
+ * and its release. Android's SQLiteDatabase serializes the queries made through one instance unless the database is in
+ * write-ahead logging mode, which requires write access; independent read-only connections read in parallel in both
+ * rollback journal and write-ahead logging modes.
+ * <p/>
+ * Each connection caches the statements compiled with {@link PooledConnection#compileStatement(String)}, avoiding
+ * recompiling frequent queries. Connections left idle longer than the pool's keep alive time are closed.
+ * <p/>
+ * SQLiteConnectionPool is thread safe.
+ */
+public class SQLiteConnectionPool {
+
+    protected String pathName;
+
+    protected int flags;
+
+    protected int maxConnections;
+
+    protected long keepAliveTime;
+
+    protected Handler handler;
+
+    /**
+     * The idle connections, ordered from least recently used to most recently used.
+     */
+    protected final ArrayDeque<PooledConnection> idleConnections = new ArrayDeque<>();
+
+    /**
+     * The number of open connections, both idle and acquired.
+     */
+    protected int connectionCount;
+
+    protected final Object lock = new Object();
+
+    protected static final int CONNECTION_TIMEOUT = 1;
+
+    public SQLiteConnectionPool(String pathName, int flags, int maxConnections, long keepAliveTime, TimeUnit unit) {
+        if (pathName == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SQLiteConnectionPool", "constructor", "missingPathName"));
+        }
+
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SQLiteConnectionPool", "constructor", "invalidCount"));
+        }
+
+        this.pathName = pathName;
+        this.flags = flags;
+        this.maxConnections = maxConnections;
+        this.keepAliveTime = unit.toMillis(keepAliveTime);
+        this.handler = new Handler(Looper.getMainLooper(), new Handler.Callback() {
+            @Override
+            public boolean handleMessage(Message msg) {
+                return SQLiteConnectionPool.this.handleMessage(msg);
+            }
+        });
+    }
+
+    public String getPathName() {
+        return this.pathName;
+    }
+
+    public int getFlags() {
+        return this.flags;
+    }
+
+    public int getMaxConnections() {
+        return this.maxConnections;
+    }
+
+    public long getKeepAliveTime() {
+        return this.keepAliveTime;
+    }
+
+    /**
+     * Acquires a connection for exclusive use by the current thread, blocking while the pool's maximum number of
+     * connections are in use. The most recently used idle connection is acquired first, as its statement cache and
+     * the database's page cache are the most likely to be warm. The connection must be returned to the pool with
+     * {@link #releaseConnection(PooledConnection)}.
+     *
+     * @return an open connection to the database
+     */
+    public PooledConnection acquireConnection() {
+        boolean interrupted = false;
+        try {
+            synchronized (this.lock) {
+                while (true) {
+                    PooledConnection connection = this.idleConnections.pollLast();
+                    if (connection != null) {
+                        return connection;
+                    }
+
+                    if (this.connectionCount < this.maxConnections) {
+                        this.connectionCount++;
+                        break; // open a new connection outside the lock
+                    }
+
+                    try {
+                        this.lock.wait();
+                    } catch (InterruptedException ex) {
+                        interrupted = true; // keep waiting; the interrupt is restored before returning
+                    }
+                }
+            }
+
+            try {
+                return new PooledConnection(this.openDatabase());
+            } catch (RuntimeException ex) {
+                synchronized (this.lock) {
+                    this.connectionCount--;
+                    this.lock.notify();
+                }
+                throw ex;
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns a connection acquired with {@link #acquireConnection()} to the pool. The connection must not be used by
+     * the current thread after its release.
+     *
+     * @param connection the connection to release
+     */
+    public void releaseConnection(PooledConnection connection) {
+        if (connection == null) {
+            return;
+        }
+
+        synchronized (this.lock) {
+            connection.lastUseTime = this.currentTimeMillis();
+            this.idleConnections.addLast(connection);
+            this.lock.notify();
+        }
+
+        this.handler.removeMessages(CONNECTION_TIMEOUT);
+        this.handler.sendEmptyMessageDelayed(CONNECTION_TIMEOUT, this.keepAliveTime);
+    }
+
+    protected SQLiteDatabase openDatabase() {
+        SQLiteDatabase database = SQLiteDatabase.openDatabase(this.pathName, null /*factory*/, this.flags);
+
+        Logger.logMessage(Logger.INFO, "SQLiteConnectionPool", "openDatabase",
+            "SQLite connection opened " + this.pathName);
+
+        return database;
+    }
+
+    /**
+     * Closes the idle connections that have not been used within the pool's keep alive time.
+     */
+    protected void onConnectionTimeout() {
+        long expiredTime = this.currentTimeMillis() - this.keepAliveTime;
+        boolean connectionsIdle;
+
+        synchronized (this.lock) {
+            Iterator<PooledConnection> iterator = this.idleConnections.iterator();
+            while (iterator.hasNext()) {
+                PooledConnection connection = iterator.next();
+                if (connection.lastUseTime > expiredTime) {
+                    break; // the remaining connections were used more recently
+                }
+
+                iterator.remove();
+                this.connectionCount--;
+                connection.close();
+
+                Logger.logMessage(Logger.INFO, "SQLiteConnectionPool", "onConnectionTimeout",
+                    "SQLite connection keep alive timeout " + this.pathName);
+            }
+
+            connectionsIdle = !this.idleConnections.isEmpty();
+            this.lock.notify(); // a waiting thread may now open a connection
+        }
+
+        if (connectionsIdle) {
+            this.handler.sendEmptyMessageDelayed(CONNECTION_TIMEOUT, this.keepAliveTime);
+        }
+    }
+
+    protected boolean handleMessage(Message msg) {
+        if (msg.what == CONNECTION_TIMEOUT) {
+            this.onConnectionTimeout();
+        }
+
+        return false;
+    }
+
+    protected long currentTimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+
+    /**
+     * A connection in an {@link SQLiteConnectionPool}, with a cache of its compiled statements.
+     */
+    public static class PooledConnection {
+
+        protected SQLiteDatabase database;
+
+        protected Map<String, SQLiteStatement> statements = new HashMap<>();
+
+        protected long lastUseTime;
+
+        public PooledConnection(SQLiteDatabase database) {
+            this.database = database;
+        }
+
+        public SQLiteDatabase getDatabase() {
+            return this.database;
+        }
+
+        /**
+         * Returns a compiled statement for a specified SQL string, compiling the statement the first time it's
+         * requested. The statement's bindings persist between uses; each use must bind all of the statement's
+         * arguments.
+         *
+         * @param sql the statement's SQL
+         *
+         * @return the compiled statement
+         */
+        public SQLiteStatement compileStatement(String sql) {
+            SQLiteStatement statement = this.statements.get(sql);
+            if (statement == null) {
+                statement = this.database.compileStatement(sql);
+                this.statements.put(sql, statement);
+            }
+
+            return statement;
+        }
+
+        protected void close() {
+            for (SQLiteStatement statement : this.statements.values()) {
+                WWUtil.closeSilently(statement);
+            }
+
+            this.statements.clear();
+            WWUtil.closeSilently(this.database);
+        }
+    }
+}
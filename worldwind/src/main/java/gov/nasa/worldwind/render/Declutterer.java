@@ -0,0 +1,566 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import java.util.Arrays;
+
+import gov.nasa.worldwind.draw.Drawable;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Screen-space decluttering of shape drawables such as label text. Shapes offer their drawables to the declutterer
+ * along with the drawable's screen bounds and a priority, rather than offering them directly to the render context.
+ * Once the frame's layers have been rendered, the candidates are considered in order of descending priority and then
+ * ascending camera distance, and only candidates whose screen bounds do not overlap a candidate accepted before them
+ * are offered to the render context. The drawables of the remaining candidates are recycled. Drawables offered with a
+ * {@link DrawablePreparer} are prepared only when their candidate is accepted.
+ * <p/>
+ * Candidates are ordered with a most significant digit radix sort that discards candidates already obscured by
+ * accepted candidates before sorting each digit, so that the many candidates rejected in dense scenes are mostly never
+ * sorted. Accepted screen bounds are indexed in a uniform grid of square screen cells, which limits each collision test
+ * to the candidates accepted in the cells it overlaps, and in a bitmap of the screen blocks they cover, which rejects
+ * most obscured candidates without consulting the grid. Declutterer retains its storage from frame to frame, and does
+ * not allocate memory once its storage has grown to accommodate the number of candidates in a frame.
+ */
+public class Declutterer {
+
+    /**
+     * Prepares the drawable of an accepted candidate. Shapes whose drawables need resources that are costly to create,
+     * such as label text textures, offer a preparer along with the drawable, so that only accepted candidates create
+     * those resources.
+     */
+    public interface DrawablePreparer {
+
+        /**
+         * Prepares a drawable that has been accepted by decluttering, just before it is offered to the render context.
+         *
+         * @param rc       the current render context
+         * @param drawable the accepted drawable
+         *
+         * @return true if the drawable is ready to draw, or false if it cannot be drawn and must be recycled
+         */
+        boolean prepareDrawable(RenderContext rc, Drawable drawable);
+    }
+
+    protected static final int DEFAULT_CELL_SHIFT = 5; // 32 pixel cells
+
+    protected static final int INITIAL_CAPACITY = 64;
+
+    protected static final int COVERAGE_SHIFT = 2; // 4 pixel coverage blocks
+
+    protected static final int RADIX_BITS = 8;
+
+    protected static final int RADIX_MASK = (1 << RADIX_BITS) - 1;
+
+    protected static final int INSERTION_SORT_LIMIT = 32;
+
+    protected static final long NO_BLOCKS = -1L;
+
+    protected int cellShift;
+
+    protected int count;
+
+    protected Drawable[] drawables = new Drawable[INITIAL_CAPACITY];
+
+    protected DrawablePreparer[] preparers = new DrawablePreparer[INITIAL_CAPACITY];
+
+    protected int[] bounds = new int[INITIAL_CAPACITY * 4];
+
+    protected double[] cameraDistances = new double[INITIAL_CAPACITY];
+
+    protected long[] keys = new long[INITIAL_CAPACITY];
+
+    protected long[] scratchKeys = new long[INITIAL_CAPACITY];
+
+    protected int[] order = new int[INITIAL_CAPACITY];
+
+    protected int[] scratchOrder = new int[INITIAL_CAPACITY];
+
+    protected long[] blocks = new long[INITIAL_CAPACITY];
+
+    protected long[] scratchBlocks = new long[INITIAL_CAPACITY];
+
+    protected int[][] radixCounts = new int[64 / RADIX_BITS + 1][RADIX_MASK + 2]; // one histogram per digit
+
+    protected int acceptedCount;
+
+    protected int[] cellHeads = new int[0];
+
+    protected int[] entryNext = new int[INITIAL_CAPACITY];
+
+    protected int[] entryCandidates = new int[INITIAL_CAPACITY];
+
+    protected int entryCount;
+
+    protected long[] coverage = new long[0];
+
+    protected int coverageRowWords;
+
+    public Declutterer() {
+        this.cellShift = DEFAULT_CELL_SHIFT;
+    }
+
+    /**
+     * Constructs a declutterer that indexes screen bounds in square cells of a specified size. The cell size is rounded
+     * up to the nearest power of two.
+     *
+     * @param cellSize the collision grid's cell size in screen pixels
+     *
+     * @throws IllegalArgumentException If the cell size is less than 1
+     */
+    public Declutterer(int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Declutterer", "constructor", "invalidCellSize"));
+        }
+
+        this.cellShift = 32 - Integer.numberOfLeadingZeros(cellSize - 1);
+    }
+
+    /**
+     * @return the number of candidates offered since the declutterer was last cleared
+     */
+    public int count() {
+        return this.count;
+    }
+
+    /**
+     * Offers a drawable for decluttering. The drawable may be null, in which case the candidate's screen bounds
+     * obscure lower priority candidates but nothing is drawn. Shapes use null drawables to claim screen space in frames
+     * that would otherwise omit them, such as pick frames limited to a region of the viewport, so that decluttering
+     * produces the same result in every frame.
+     *
+     * @param drawable       the drawable to offer, may be null
+     * @param screenBounds   the drawable's bounds in screen coordinates
+     * @param priority       the drawable's priority; higher priority candidates are accepted first
+     * @param cameraDistance the distance from the camera to the shape, used to order candidates of equal priority and
+     *                       to order the accepted drawables
+     *
+     * @throws IllegalArgumentException If the screen bounds are null
+     */
+    public void offerDrawable(Drawable drawable, Viewport screenBounds, double priority, double cameraDistance) {
+        this.offerDrawable(drawable, null, screenBounds, priority, cameraDistance);
+    }
+
+    /**
+     * Offers a drawable for decluttering, along with a preparer that is called only if the drawable is accepted. See
+     * {@link #offerDrawable(Drawable, Viewport, double, double)}.
+     *
+     * @param drawable       the drawable to offer, may be null
+     * @param preparer       the preparer called when the drawable is accepted, may be null
+     * @param screenBounds   the drawable's bounds in screen coordinates
+     * @param priority       the drawable's priority; higher priority candidates are accepted first
+     * @param cameraDistance the distance from the camera to the shape, used to order candidates of equal priority and
+     *                       to order the accepted drawables
+     *
+     * @throws IllegalArgumentException If the screen bounds are null
+     */
+    public void offerDrawable(Drawable drawable, DrawablePreparer preparer, Viewport screenBounds, double priority,
+                              double cameraDistance) {
+        if (screenBounds == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Declutterer", "offerDrawable", "missingViewport"));
+        }
+
+        int index = this.count++;
+        if (index == this.drawables.length) {
+            this.growCandidates();
+        }
+
+        // Order candidates by descending priority in the key's high bits, and by ascending camera distance in its low
+        // bits. Both are reduced to single precision, which is ample for ordering screen objects.
+        long priorityBits = ~sortableBits((float) priority) & 0xFFFFFFFFL;
+        long distanceBits = sortableBits((float) cameraDistance) & 0xFFFFFFFFL;
+
+        this.drawables[index] = drawable;
+        this.preparers[index] = preparer;
+        this.bounds[index * 4] = screenBounds.x;
+        this.bounds[index * 4 + 1] = screenBounds.y;
+        this.bounds[index * 4 + 2] = screenBounds.x + screenBounds.width;
+        this.bounds[index * 4 + 3] = screenBounds.y + screenBounds.height;
+        this.cameraDistances[index] = cameraDistance;
+        this.keys[index] = (priorityBits << 32) | distanceBits;
+        this.order[index] = index;
+    }
+
+    /**
+     * Offers the non-overlapping candidates to the render context as shape drawables and recycles the drawables of the
+     * remaining candidates. The declutterer is empty when this method returns.
+     *
+     * @param rc the current render context
+     *
+     * @return the number of candidates accepted
+     */
+    public int declutter(RenderContext rc) {
+        try {
+            this.resetGrid(rc.viewport);
+            for (int idx = 0; idx < this.count; idx++) {
+                this.blocks[idx] = this.coverageBlocks(rc.viewport, idx);
+            }
+
+            this.acceptedCount = 0;
+            this.declutterRange(rc, 0, this.count, 0);
+            return this.acceptedCount;
+        } finally {
+            this.clear();
+        }
+    }
+
+    /**
+     * Removes all candidates from the declutterer, recycling their drawables.
+     */
+    public void clear() {
+        for (int idx = 0; idx < this.count; idx++) {
+            if (this.drawables[idx] != null) {
+                this.drawables[idx].recycle();
+                this.drawables[idx] = null;
+            }
+            this.preparers[idx] = null;
+        }
+
+        this.count = 0;
+        this.entryCount = 0;
+    }
+
+    /**
+     * Considers a range of the candidate order in ascending key order, accepting or rejecting each candidate. The range
+     * holds every candidate whose key shares a prefix that no candidate outside the range shares, and is in offer
+     * order. Candidates obscured by a candidate accepted earlier are rejected first, as the accepted candidates precede
+     * the entire range. The remaining candidates are distributed on the most significant digit in which their keys
+     * differ, and each digit's candidates are considered in turn. The distribution is stable, so candidates with equal
+     * keys are considered in the order they were offered. Each candidate's key and coverage blocks move along with the
+     * candidate, so the range is read sequentially.
+     */
+    protected void declutterRange(RenderContext rc, int begin, int end, int depth) {
+        int[] order = this.order;
+        long[] keys = this.keys;
+        long[] blocks = this.blocks;
+
+        // Reject the obscured candidates, then determine which key bits differ in the rest.
+        if (this.acceptedCount > 0) {
+            end = this.removeCovered(begin, end);
+        }
+
+        long firstKey = keys[begin];
+        long differentBits = 0;
+        for (int idx = begin; idx < end; idx++) {
+            differentBits |= keys[idx] ^ firstKey;
+        }
+
+        if (differentBits == 0 || end - begin <= INSERTION_SORT_LIMIT) {
+            this.insertionSort(begin, end);
+            for (int idx = begin; idx < end; idx++) {
+                this.consider(rc, order[idx], blocks[idx]);
+            }
+            return;
+        }
+
+        // Distribute the range on the most significant digit in which its keys differ.
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(differentBits) - RADIX_BITS);
+
+        int[] counts = this.radixCounts[depth];
+        Arrays.fill(counts, 0);
+        for (int idx = begin; idx < end; idx++) {
+            counts[((int) (keys[idx] >>> shift) & RADIX_MASK) + 1]++;
+        }
+
+        for (int digit = 0; digit <= RADIX_MASK; digit++) {
+            counts[digit + 1] += counts[digit];
+        }
+
+        int[] scratchOrder = this.scratchOrder;
+        long[] scratchKeys = this.scratchKeys;
+        long[] scratchBlocks = this.scratchBlocks;
+        for (int idx = begin; idx < end; idx++) {
+            int pos = begin + counts[(int) (keys[idx] >>> shift) & RADIX_MASK]++;
+            scratchOrder[pos] = order[idx];
+            scratchKeys[pos] = keys[idx];
+            scratchBlocks[pos] = blocks[idx];
+        }
+        System.arraycopy(scratchOrder, begin, order, begin, end - begin);
+        System.arraycopy(scratchKeys, begin, keys, begin, end - begin);
+        System.arraycopy(scratchBlocks, begin, blocks, begin, end - begin);
+
+        // Consider each digit's candidates in ascending digit order. After the distribution, counts[digit] is the end
+        // of the digit's candidates relative to the range's beginning.
+        for (int digit = 0, digitBegin = begin; digit <= RADIX_MASK; digit++) {
+            int digitEnd = begin + counts[digit];
+            if (digitEnd > digitBegin) {
+                this.declutterRange(rc, digitBegin, digitEnd, depth + 1);
+            }
+            digitBegin = digitEnd;
+        }
+    }
+
+    /**
+     * Removes the candidates obscured by accepted candidates from a range of the candidate order, preserving the order
+     * of the remaining candidates. The drawables of removed candidates are recycled when the declutterer is cleared.
+     *
+     * @return the end of the remaining candidates
+     */
+    protected int removeCovered(int begin, int end) {
+        int[] order = this.order;
+        long[] keys = this.keys;
+        long[] blocks = this.blocks;
+        int newEnd = begin;
+        for (int idx = begin; idx < end; idx++) {
+            if (!this.isCovered(blocks[idx])) {
+                order[newEnd] = order[idx];
+                keys[newEnd] = keys[idx];
+                blocks[newEnd] = blocks[idx];
+                newEnd++;
+            }
+        }
+
+        return newEnd;
+    }
+
+    /**
+     * Sorts a range of the candidate order by ascending key with a stable insertion sort.
+     */
+    protected void insertionSort(int begin, int end) {
+        int[] order = this.order;
+        long[] keys = this.keys;
+        long[] blocks = this.blocks;
+        for (int idx = begin + 1; idx < end; idx++) {
+            int candidate = order[idx];
+            long key = keys[idx];
+            long candidateBlocks = blocks[idx];
+            int pos = idx;
+            for (; pos > begin && keys[pos - 1] > key; pos--) {
+                order[pos] = order[pos - 1];
+                keys[pos] = keys[pos - 1];
+                blocks[pos] = blocks[pos - 1];
+            }
+            order[pos] = candidate;
+            keys[pos] = key;
+            blocks[pos] = candidateBlocks;
+        }
+    }
+
+    protected void consider(RenderContext rc, int candidate, long candidateBlocks) {
+        // Reject the candidate immediately when it overlaps a block covered by a candidate accepted in this range.
+        if (this.isCovered(candidateBlocks) || !this.addToGrid(rc.viewport, candidate)) {
+            return; // overlaps a candidate accepted before it; the drawable is recycled when the declutterer is cleared
+        }
+
+        this.acceptedCount++;
+        Drawable drawable = this.drawables[candidate];
+        DrawablePreparer preparer = this.preparers[candidate];
+        this.drawables[candidate] = null;
+        this.preparers[candidate] = null;
+
+        if (drawable == null) {
+            return; // claims screen space without drawing
+        }
+
+        if (preparer == null || preparer.prepareDrawable(rc, drawable)) {
+            rc.offerShapeDrawable(drawable, this.cameraDistances[candidate]);
+        } else {
+            drawable.recycle();
+        }
+    }
+
+    protected void resetGrid(Viewport viewport) {
+        int cellCount = Math.max(0, this.gridColumns(viewport) * this.gridRows(viewport));
+        if (this.cellHeads.length < cellCount) {
+            this.cellHeads = new int[cellCount];
+        }
+
+        Arrays.fill(this.cellHeads, 0, cellCount, -1);
+        this.entryCount = 0;
+
+        int blockSize = 1 << COVERAGE_SHIFT;
+        int coverageColumns = Math.max(0, (viewport.width + blockSize - 1) >> COVERAGE_SHIFT);
+        int coverageRows = Math.max(0, (viewport.height + blockSize - 1) >> COVERAGE_SHIFT);
+        this.coverageRowWords = (coverageColumns + 63) >> 6; // each row begins a new word
+        int coverageWords = this.coverageRowWords * coverageRows;
+        if (this.coverage.length < coverageWords) {
+            this.coverage = new long[coverageWords];
+        }
+
+        Arrays.fill(this.coverage, 0, coverageWords, 0);
+    }
+
+    /**
+     * Adds a candidate's screen bounds to the collision grid if they do not overlap the bounds of a candidate already
+     * in the grid.
+     *
+     * @return true if the candidate was added, false if it overlaps a candidate in the grid
+     */
+    protected boolean addToGrid(Viewport viewport, int candidate) {
+        int[] bounds = this.bounds;
+        int x0 = bounds[candidate * 4];
+        int y0 = bounds[candidate * 4 + 1];
+        int x1 = bounds[candidate * 4 + 2];
+        int y1 = bounds[candidate * 4 + 3];
+
+        if (x0 >= x1 || y0 >= y1 || x1 <= viewport.x || y1 <= viewport.y ||
+            x0 >= viewport.x + viewport.width || y0 >= viewport.y + viewport.height) {
+            return true; // empty or outside the viewport; cannot obscure or be obscured by a visible candidate
+        }
+
+        // Determine the range of grid cells the bounds overlap. Bounds are half-open, so bounds sharing an edge do
+        // not overlap.
+        int cols = this.gridColumns(viewport);
+        int rows = this.gridRows(viewport);
+        int col0 = Math.max(0, x0 - viewport.x) >> this.cellShift;
+        int row0 = Math.max(0, y0 - viewport.y) >> this.cellShift;
+        int col1 = Math.min(cols - 1, (x1 - 1 - viewport.x) >> this.cellShift);
+        int row1 = Math.min(rows - 1, (y1 - 1 - viewport.y) >> this.cellShift);
+
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                for (int entry = this.cellHeads[row * cols + col]; entry >= 0; entry = this.entryNext[entry]) {
+                    int other = this.entryCandidates[entry] * 4;
+                    if (x0 < bounds[other + 2] && bounds[other] < x1 && y0 < bounds[other + 3] && bounds[other + 1] < y1) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                int entry = this.entryCount++;
+                if (entry == this.entryNext.length) {
+                    this.entryNext = Arrays.copyOf(this.entryNext, entry * 2);
+                    this.entryCandidates = Arrays.copyOf(this.entryCandidates, entry * 2);
+                }
+
+                int cell = row * cols + col;
+                this.entryNext[entry] = this.cellHeads[cell];
+                this.entryCandidates[entry] = candidate;
+                this.cellHeads[cell] = entry;
+            }
+        }
+
+        // Mark the coverage blocks that lie entirely within the candidate's bounds.
+        int blockSize = 1 << COVERAGE_SHIFT;
+        int blockCol0 = (Math.max(0, x0 - viewport.x) + blockSize - 1) >> COVERAGE_SHIFT;
+        int blockRow0 = (Math.max(0, y0 - viewport.y) + blockSize - 1) >> COVERAGE_SHIFT;
+        int blockCol1 = (Math.min(viewport.width, x1 - viewport.x) >> COVERAGE_SHIFT); // exclusive
+        int blockRow1 = (Math.min(viewport.height, y1 - viewport.y) >> COVERAGE_SHIFT); // exclusive
+        for (int row = blockRow0; row < blockRow1; row++) {
+            for (int col = blockCol0; col < blockCol1; col++) {
+                this.coverage[row * this.coverageRowWords + (col >> 6)] |= 1L << col;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes the range of coverage blocks a candidate's screen bounds overlap, packing the first column, first row,
+     * last column and last row into a long in 16 bit fields.
+     *
+     * @return the candidate's coverage blocks, or NO_BLOCKS if the bounds are empty or outside the viewport
+     */
+    protected long coverageBlocks(Viewport viewport, int candidate) {
+        int[] bounds = this.bounds;
+        int x0 = Math.max(0, bounds[candidate * 4] - viewport.x);
+        int y0 = Math.max(0, bounds[candidate * 4 + 1] - viewport.y);
+        int x1 = Math.min(viewport.width, bounds[candidate * 4 + 2] - viewport.x); // exclusive
+        int y1 = Math.min(viewport.height, bounds[candidate * 4 + 3] - viewport.y); // exclusive
+        if (x0 >= x1 || y0 >= y1) {
+            return NO_BLOCKS;
+        }
+
+        return (long) (x0 >> COVERAGE_SHIFT)
+            | (long) (y0 >> COVERAGE_SHIFT) << 16
+            | (long) ((x1 - 1) >> COVERAGE_SHIFT) << 32
+            | (long) ((y1 - 1) >> COVERAGE_SHIFT) << 48;
+    }
+
+    /**
+     * Indicates whether a range of coverage blocks includes a block marked by an accepted candidate. Marked blocks lie
+     * entirely within an accepted candidate's bounds, so a candidate overlapping one is obscured. Candidates that
+     * overlap accepted candidates only outside their marked blocks are not detected.
+     *
+     * @param candidateBlocks the candidate's coverage blocks, from coverageBlocks
+     *
+     * @return true if the candidate is obscured by an accepted candidate, false if it may not be
+     */
+    protected boolean isCovered(long candidateBlocks) {
+        if (candidateBlocks == NO_BLOCKS) {
+            return false; // empty or outside the viewport
+        }
+
+        // Test each row of blocks with a mask of the blocks in each of the row's coverage words. Rows begin a new word,
+        // so the words and masks are the same in every row.
+        int col0 = (int) candidateBlocks & 0xFFFF;
+        int row0 = (int) (candidateBlocks >>> 16) & 0xFFFF;
+        int col1 = (int) (candidateBlocks >>> 32) & 0xFFFF;
+        int row1 = (int) (candidateBlocks >>> 48) & 0xFFFF;
+        int word0 = col0 >> 6;
+        int word1 = col1 >> 6;
+        long firstMask = -1L << col0; // shift distances are taken modulo 64
+        long lastMask = -1L >>> (63 - (col1 & 63));
+        long[] coverage = this.coverage;
+
+        // Test the block at the center of the bounds first. In dense scenes most candidates are rejected, and many of
+        // those are rejected by this test alone.
+        int centerCol = (col0 + col1) >> 1;
+        int centerRow = (row0 + row1) >> 1;
+        if ((coverage[centerRow * this.coverageRowWords + (centerCol >> 6)] & (1L << centerCol)) != 0) {
+            return true;
+        }
+
+        if (word0 == word1) {
+            long mask = firstMask & lastMask;
+            for (int row = row0, word = row0 * this.coverageRowWords + word0; row <= row1; row++, word += this.coverageRowWords) {
+                if ((coverage[word] & mask) != 0) {
+                    return true;
+                }
+            }
+        } else {
+            for (int row = row0; row <= row1; row++) {
+                int rowWord = row * this.coverageRowWords;
+                if ((coverage[rowWord + word0] & firstMask) != 0 || (coverage[rowWord + word1] & lastMask) != 0) {
+                    return true;
+                }
+                for (int word = word0 + 1; word < word1; word++) {
+                    if (coverage[rowWord + word] != 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    protected int gridColumns(Viewport viewport) {
+        return (viewport.width + (1 << this.cellShift) - 1) >> this.cellShift;
+    }
+
+    protected int gridRows(Viewport viewport) {
+        return (viewport.height + (1 << this.cellShift) - 1) >> this.cellShift;
+    }
+
+    protected void growCandidates() {
+        int capacity = this.drawables.length * 2;
+        this.drawables = Arrays.copyOf(this.drawables, capacity);
+        this.preparers = Arrays.copyOf(this.preparers, capacity);
+        this.bounds = Arrays.copyOf(this.bounds, capacity * 4);
+        this.cameraDistances = Arrays.copyOf(this.cameraDistances, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.scratchKeys = new long[capacity];
+        this.blocks = new long[capacity];
+        this.scratchBlocks = new long[capacity];
+        this.order = Arrays.copyOf(this.order, capacity);
+        this.scratchOrder = new int[capacity];
+    }
+
+    /**
+     * Maps a float to an int whose unsigned order matches the float's numeric order.
+     */
+    protected static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) | 0x80000000);
+    }
+}
@@ -12,10 +12,12 @@ import android.graphics.BitmapFactory;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Map;
 
 import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.util.CountingInputStream;
+import gov.nasa.worldwind.util.HttpTransport;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Retriever;
 import gov.nasa.worldwind.util.WWUtil;
@@ -39,6 +41,11 @@ public class ImageRetriever extends Retriever<ImageSource, ImageOptions, Bitmap>
     @Override
     protected void retrieveAsync(ImageSource imageSource, ImageOptions imageOptions,
                                  Callback<ImageSource, ImageOptions, Bitmap> callback) {
+        if (imageSource.asObject() instanceof ImageSource.BitmapGroupFactory) {
+            this.retrieveGroupAsync(imageSource, imageOptions, callback);
+            return;
+        }
+
         try {
             Bitmap bitmap = this.decodeImage(imageSource, imageOptions);
 
@@ -52,6 +59,36 @@ public class ImageRetriever extends Retriever<ImageSource, ImageOptions, Bitmap>
         }
     }
 
+    /**
+     * Creates the bitmaps of a bitmap group, delivering each bitmap to the callback under its own image source. Image
+     * sources the group maps to null fail under their own image source. The retrieval fails under the group's image
+     * source when the group creates no bitmaps, unless the group creates only requested bitmaps and had none requested.
+     */
+    protected void retrieveGroupAsync(ImageSource groupSource, ImageOptions imageOptions,
+                                      Callback<ImageSource, ImageOptions, Bitmap> callback) {
+        try {
+            Map<ImageSource, Bitmap> bitmaps = new HashMap<>();
+            ((ImageSource.BitmapGroupFactory) groupSource.asObject()).createBitmaps(bitmaps);
+
+            if (bitmaps.isEmpty()) {
+                if (!(groupSource.asObject() instanceof ImageSource.RequestedBitmapGroupFactory)) {
+                    callback.retrievalFailed(this, groupSource, null); // failed but no exception
+                } // else the group's requests were created by a retrieval that completed after they were made
+                return;
+            }
+
+            for (Map.Entry<ImageSource, Bitmap> entry : bitmaps.entrySet()) {
+                if (entry.getValue() != null) {
+                    callback.retrievalSucceeded(this, entry.getKey(), imageOptions, entry.getValue());
+                } else {
+                    callback.retrievalFailed(this, entry.getKey(), null); // the group has no bitmap for this source
+                }
+            }
+        } catch (Throwable logged) {
+            callback.retrievalFailed(this, groupSource, logged); // failed with exception
+        }
+    }
+
     // TODO can we explicitly recycle bitmaps from image sources other than direct Bitmap references?
     // TODO does explicit recycling help?
     protected Bitmap decodeImage(ImageSource imageSource, ImageOptions imageOptions) throws IOException {
@@ -79,32 +116,52 @@ public class ImageRetriever extends Retriever<ImageSource, ImageOptions, Bitmap>
     }
 
     protected Bitmap decodeResource(int id, ImageOptions imageOptions) {
+        if (this.resources == null) {
+            return null;
+        }
+
+        long decodeBegin = System.nanoTime();
         BitmapFactory.Options factoryOptions = this.bitmapFactoryOptions(imageOptions);
-        return (this.resources != null) ? BitmapFactory.decodeResource(this.resources, id, factoryOptions) : null;
+        Bitmap bitmap = BitmapFactory.decodeResource(this.resources, id, factoryOptions);
+        this.metrics.recordDecodeTime(System.nanoTime() - decodeBegin);
+
+        return bitmap;
     }
 
     protected Bitmap decodeFilePath(String pathName, ImageOptions imageOptions) {
+        long decodeBegin = System.nanoTime();
         BitmapFactory.Options factoryOptions = this.bitmapFactoryOptions(imageOptions);
-        return BitmapFactory.decodeFile(pathName, factoryOptions);
+        Bitmap bitmap = BitmapFactory.decodeFile(pathName, factoryOptions);
+        this.metrics.recordDecodeTime(System.nanoTime() - decodeBegin);
+
+        return bitmap;
     }
 
     protected Bitmap decodeUrl(String urlString, ImageOptions imageOptions) throws IOException {
-        // TODO establish a file caching service for remote resources
-        // TODO retry absent resources, they are currently handled but suppressed entirely after the first failure
-        // TODO configurable connect and read timeouts
-
+        HttpTransport.Response response = null;
+        CountingInputStream counter = null;
         InputStream stream = null;
         try {
-            URLConnection conn = new URL(urlString).openConnection();
-            conn.setConnectTimeout(3000);
-            conn.setReadTimeout(30000);
+            long connectBegin = System.nanoTime();
+            response = WorldWind.httpTransport().get(urlString);
 
-            stream = new BufferedInputStream(conn.getInputStream());
+            counter = new CountingInputStream(response.getInputStream());
+            stream = new BufferedInputStream(counter);
+            long decodeBegin = System.nanoTime();
+            this.metrics.recordTimeToFirstByte(decodeBegin - connectBegin);
 
+            // BitmapFactory decodes the image as it streams from the network, so the decode time includes the time
+            // spent receiving the response body.
             BitmapFactory.Options factoryOptions = this.bitmapFactoryOptions(imageOptions);
-            return BitmapFactory.decodeStream(stream, null, factoryOptions);
+            Bitmap bitmap = BitmapFactory.decodeStream(stream, null, factoryOptions);
+            this.metrics.recordDecodeTime(System.nanoTime() - decodeBegin);
+
+            return bitmap;
         } finally {
-            WWUtil.closeSilently(stream);
+            if (counter != null && !response.isFromCache()) {
+                this.metrics.recordBytesFetched(counter.getCount());
+            }
+            WWUtil.closeSilently(response);
         }
     }
 
@@ -11,6 +11,7 @@ import android.support.annotation.DrawableRes;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.WWUtil;
@@ -50,6 +51,78 @@ public class ImageSource {
         Bitmap createBitmap();
     }
 
+    /**
+     * Indicates whether a bitmap factory or a bitmap group creates its bitmaps from a remote resource. World Wind
+     * retrieves the bitmaps of remote resources along with URL images, so that slow servers do not delay the bitmaps
+     * created from local resources. Bitmap factories that do not implement this interface are considered local.
+     */
+    public interface RemoteResource {
+
+        /**
+         * Indicates whether this object's bitmaps are created from a remote resource, such as an image retrieved over
+         * the network, or from a local resource, such as a file on the device.
+         *
+         * @return true if the bitmaps are created from a remote resource, otherwise false
+         */
+        boolean isRemote();
+    }
+
+    /**
+     * Factory for a group of bitmap images that are created together, such as image tiles cut from one larger image.
+     * Each bitmap in the group is identified by a bitmap factory image source whose factory is a {@link
+     * GroupedBitmapFactory} referencing the group. World Wind retrieves the entire group when any of its bitmaps is
+     * requested, and delivers each of the group's bitmaps under its own image source.
+     */
+    public interface BitmapGroupFactory extends RemoteResource {
+
+        /**
+         * Creates the bitmaps of this group, adding each bitmap to the result under the image source that identifies
+         * it. This method may be called more than once and may be called from a non-UI thread. The result may map an
+         * image source to null to indicate that the group has no bitmap for it, and may omit bitmaps that could not be
+         * created.
+         * <p/>
+         * The factory must not retain any reference to the returned bitmaps and must not attempt to recycle them.
+         *
+         * @param result the map in which to return the group's image sources and bitmaps
+         */
+        void createBitmaps(Map<ImageSource, Bitmap> result);
+    }
+
+    /**
+     * Group of bitmap images that creates only the bitmaps requested since its last retrieval, such as GeoPackage tiles
+     * read together with one query. World Wind requests each bitmap before retrieving the group, and the group's
+     * createBitmaps method adds only requested bitmaps to its result. The result is empty when no bitmaps are
+     * requested.
+     */
+    public interface RequestedBitmapGroupFactory extends BitmapGroupFactory {
+
+        /**
+         * Requests one of this group's bitmaps, to be created by the group's next call to createBitmaps. This method may
+         * be called from any thread, including while the group is creating its bitmaps.
+         *
+         * @param imageSource the image source identifying the bitmap, whose factory references this group
+         *
+         * @return true if the bitmap is requested, or false if the bitmap is being created by a call to createBitmaps
+         * already in progress
+         */
+        boolean requestBitmap(ImageSource imageSource);
+    }
+
+    /**
+     * Bitmap factory for one bitmap of a {@link BitmapGroupFactory}. The factory's createBitmap method creates its
+     * bitmap alone, while World Wind's image retrievers create the entire group. Grouped bitmap factories should
+     * implement equals and hashCode, so that factories for the same bitmap of the same group are equivalent.
+     */
+    public interface GroupedBitmapFactory extends BitmapFactory {
+
+        /**
+         * Returns the group that this factory's bitmap is created with.
+         *
+         * @return the bitmap's group
+         */
+        BitmapGroupFactory getGroupFactory();
+    }
+
     protected static final HashMap<Object, BitmapFactory> lineStippleFactories = new HashMap<>();
 
     protected static final int TYPE_UNRECOGNIZED = 0;
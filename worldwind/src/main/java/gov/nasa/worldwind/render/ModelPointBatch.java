@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import java.util.Arrays;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Collects the out-of-date model points of many renderables and recomputes them in a single pass. Absolute positions are
+ * converted by a single bulk call to the globe; positions relative to the terrain are converted individually, as each
+ * requires a terrain query.
+ * <p/>
+ * ModelPointBatch is intended for layers containing many renderables whose positions rarely change, such as
+ * placemarks. Renderables participate by implementing {@link Source}.
+ */
+public class ModelPointBatch {
+
+    /**
+     * Interface implemented by renderables that add their model points to a batch prior to rendering.
+     */
+    public interface Source {
+
+        /**
+         * Adds this renderable's model points to a batch. Points that are current are ignored by the batch.
+         *
+         * @param rc    the current render context
+         * @param batch the batch to add model points to
+         */
+        void addModelPoints(RenderContext rc, ModelPointBatch batch);
+    }
+
+    protected static final int INITIAL_CAPACITY = 64;
+
+    protected ModelPointCache[] absoluteCaches = new ModelPointCache[INITIAL_CAPACITY];
+
+    protected double[] latitudes = new double[INITIAL_CAPACITY];
+
+    protected double[] longitudes = new double[INITIAL_CAPACITY];
+
+    protected double[] altitudes = new double[INITIAL_CAPACITY];
+
+    protected double[] scaledAltitudes = new double[INITIAL_CAPACITY];
+
+    protected double[] x = new double[INITIAL_CAPACITY];
+
+    protected double[] y = new double[INITIAL_CAPACITY];
+
+    protected double[] z = new double[INITIAL_CAPACITY];
+
+    protected int absoluteCount;
+
+    protected ModelPointCache[] terrainCaches = new ModelPointCache[INITIAL_CAPACITY];
+
+    protected double[] terrainPositions = new double[INITIAL_CAPACITY * 3];
+
+    protected int[] terrainAltitudeModes = new int[INITIAL_CAPACITY];
+
+    protected int terrainCount;
+
+    public ModelPointBatch() {
+    }
+
+    /**
+     * Adds a model point to this batch if the cached point is not current for the specified position.
+     *
+     * @param rc           the current render context
+     * @param cache        the model point cache to update
+     * @param latitude     the position's latitude in degrees
+     * @param longitude    the position's longitude in degrees
+     * @param altitude     the position's altitude in meters
+     * @param altitudeMode an altitude mode indicating how to interpret the position's altitude component
+     *
+     * @throws IllegalArgumentException If the cache is null
+     */
+    public void add(RenderContext rc, ModelPointCache cache, double latitude, double longitude, double altitude,
+                    @WorldWind.AltitudeMode int altitudeMode) {
+        if (cache == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "ModelPointBatch", "add", "missingCache"));
+        }
+
+        if (cache.isValid(rc, latitude, longitude, altitude, altitudeMode)) {
+            return; // the cached model point is current
+        }
+
+        if (altitudeMode == WorldWind.ABSOLUTE && rc.globe != null) {
+            int index = this.absoluteCount++;
+            if (index == this.absoluteCaches.length) {
+                this.growAbsolute();
+            }
+            this.absoluteCaches[index] = cache;
+            this.latitudes[index] = latitude;
+            this.longitudes[index] = longitude;
+            this.altitudes[index] = altitude;
+        } else {
+            int index = this.terrainCount++;
+            if (index == this.terrainCaches.length) {
+                this.growTerrain();
+            }
+            this.terrainCaches[index] = cache;
+            this.terrainPositions[index * 3] = latitude;
+            this.terrainPositions[index * 3 + 1] = longitude;
+            this.terrainPositions[index * 3 + 2] = altitude;
+            this.terrainAltitudeModes[index] = altitudeMode;
+        }
+    }
+
+    /**
+     * @return the number of model points added to this batch since it was last updated
+     */
+    public int size() {
+        return this.absoluteCount + this.terrainCount;
+    }
+
+    /**
+     * Recomputes the model points added to this batch, then clears the batch.
+     *
+     * @param rc the current render context
+     *
+     * @return the number of model points recomputed
+     */
+    public int update(RenderContext rc) {
+        int count = this.absoluteCount + this.terrainCount;
+
+        try {
+            this.updateAbsolute(rc);
+            this.updateTerrain(rc);
+        } finally {
+            this.clear();
+        }
+
+        return count;
+    }
+
+    protected void updateAbsolute(RenderContext rc) {
+        if (this.absoluteCount > 0) {
+            // Apply the vertical exaggeration to each altitude, as does RenderContext.geographicToCartesian, then
+            // convert every absolute position in a single call to the globe.
+            for (int idx = 0; idx < this.absoluteCount; idx++) {
+                this.scaledAltitudes[idx] = this.altitudes[idx] * rc.verticalExaggeration;
+            }
+
+            rc.globe.geographicToCartesian(this.latitudes, this.longitudes, this.scaledAltitudes, this.absoluteCount,
+                this.x, this.y, this.z);
+
+            for (int idx = 0; idx < this.absoluteCount; idx++) {
+                ModelPointCache cache = this.absoluteCaches[idx];
+                cache.point.set(this.x[idx], this.y[idx], this.z[idx]);
+                cache.setInputs(rc, this.latitudes[idx], this.longitudes[idx], this.altitudes[idx], WorldWind.ABSOLUTE);
+            }
+        }
+    }
+
+    protected void updateTerrain(RenderContext rc) {
+        for (int idx = 0; idx < this.terrainCount; idx++) {
+            double[] positions = this.terrainPositions;
+            this.terrainCaches[idx].getPoint(rc, positions[idx * 3], positions[idx * 3 + 1], positions[idx * 3 + 2],
+                this.terrainAltitudeModes[idx]);
+        }
+    }
+
+    /**
+     * Removes all model points from this batch without recomputing them.
+     */
+    public void clear() {
+        Arrays.fill(this.absoluteCaches, 0, this.absoluteCount, null);
+        Arrays.fill(this.terrainCaches, 0, this.terrainCount, null);
+        this.absoluteCount = 0;
+        this.terrainCount = 0;
+    }
+
+    protected void growAbsolute() {
+        int capacity = this.absoluteCaches.length * 2;
+        this.absoluteCaches = Arrays.copyOf(this.absoluteCaches, capacity);
+        this.latitudes = Arrays.copyOf(this.latitudes, capacity);
+        this.longitudes = Arrays.copyOf(this.longitudes, capacity);
+        this.altitudes = Arrays.copyOf(this.altitudes, capacity);
+        this.scaledAltitudes = new double[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.z = new double[capacity];
+    }
+
+    protected void growTerrain() {
+        int capacity = this.terrainCaches.length * 2;
+        this.terrainCaches = Arrays.copyOf(this.terrainCaches, capacity);
+        this.terrainPositions = Arrays.copyOf(this.terrainPositions, capacity * 3);
+        this.terrainAltitudeModes = Arrays.copyOf(this.terrainAltitudeModes, capacity);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.globe.Terrain;
+
+/**
+ * Cartesian model point of a geographic position, retained across frames. The model point is computed by {@link
+ * RenderContext#geographicToCartesian(double, double, double, int, Vec3)} and recomputed only when one of its inputs
+ * changes: the position, the altitude mode, the globe or the vertical exaggeration. Points relative to the terrain are
+ * also recomputed when the terrain's geometry changes, as indicated by {@link Terrain#getTimestamp()}.
+ * <p/>
+ * Changes to the globe's ellipsoid or projection are not detected. Call {@link #invalidate()} after modifying the globe
+ * in place.
+ */
+public class ModelPointCache {
+
+    protected Vec3 point = new Vec3();
+
+    protected boolean valid;
+
+    protected double latitude;
+
+    protected double longitude;
+
+    protected double altitude;
+
+    @WorldWind.AltitudeMode
+    protected int altitudeMode;
+
+    protected Globe globe;
+
+    protected double verticalExaggeration;
+
+    protected Terrain terrain;
+
+    protected long terrainTimestamp;
+
+    public ModelPointCache() {
+    }
+
+    /**
+     * Indicates whether the cached model point is the model point of a specified position in the current frame.
+     *
+     * @param rc           the current render context
+     * @param latitude     the position's latitude in degrees
+     * @param longitude    the position's longitude in degrees
+     * @param altitude     the position's altitude in meters
+     * @param altitudeMode an altitude mode indicating how to interpret the position's altitude component
+     *
+     * @return true if the cached model point is current, otherwise false
+     */
+    public boolean isValid(RenderContext rc, double latitude, double longitude, double altitude,
+                           @WorldWind.AltitudeMode int altitudeMode) {
+        if (!this.valid || this.latitude != latitude || this.longitude != longitude || this.altitude != altitude ||
+            this.altitudeMode != altitudeMode || this.globe != rc.globe ||
+            this.verticalExaggeration != rc.verticalExaggeration) {
+            return false;
+        }
+
+        if (altitudeMode == WorldWind.ABSOLUTE && rc.globe != null) {
+            return true; // absolute points are independent of the terrain
+        }
+
+        return this.terrain == rc.terrain && (rc.terrain == null || this.terrainTimestamp == rc.terrain.getTimestamp());
+    }
+
+    /**
+     * Returns the model point of a specified position in the current frame, recomputing the model point only if the
+     * cached point is not current. The returned point is owned by this cache and must not be modified.
+     *
+     * @param rc           the current render context
+     * @param latitude     the position's latitude in degrees
+     * @param longitude    the position's longitude in degrees
+     * @param altitude     the position's altitude in meters
+     * @param altitudeMode an altitude mode indicating how to interpret the position's altitude component
+     *
+     * @return the position's Cartesian model point
+     */
+    public Vec3 getPoint(RenderContext rc, double latitude, double longitude, double altitude,
+                         @WorldWind.AltitudeMode int altitudeMode) {
+        if (!this.isValid(rc, latitude, longitude, altitude, altitudeMode)) {
+            rc.geographicToCartesian(latitude, longitude, altitude, altitudeMode, this.point);
+            this.setInputs(rc, latitude, longitude, altitude, altitudeMode);
+        }
+
+        return this.point;
+    }
+
+    /**
+     * Causes the model point to be recomputed the next time it is requested.
+     */
+    public void invalidate() {
+        this.valid = false;
+        this.globe = null;
+        this.terrain = null;
+    }
+
+    protected void setInputs(RenderContext rc, double latitude, double longitude, double altitude,
+                             @WorldWind.AltitudeMode int altitudeMode) {
+        this.valid = true;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.altitude = altitude;
+        this.altitudeMode = altitudeMode;
+        this.globe = rc.globe;
+        this.verticalExaggeration = rc.verticalExaggeration;
+        this.terrain = rc.terrain;
+        this.terrainTimestamp = (rc.terrain != null) ? rc.terrain.getTimestamp() : 0;
+    }
+}
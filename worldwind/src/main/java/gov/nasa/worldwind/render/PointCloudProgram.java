@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.content.res.Resources;
+import android.opengl.GLES20;
+
+import gov.nasa.worldwind.R;
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.WWUtil;
+
+/**
+ * GLSL program that draws point clouds as GL_POINTS with a per-point RGBA color attribute. Each point is displaced by a
+ * per-point offset attribute multiplied by a uniform offset scale. In pick mode every point is drawn in a single pick
+ * color.
+ */
+public class PointCloudProgram extends ShaderProgram {
+
+    public static final Object KEY = PointCloudProgram.class;
+
+    protected boolean enablePickMode;
+
+    protected Matrix4 mvpMatrix = new Matrix4();
+
+    protected float pointSize = 1;
+
+    protected float offsetScale;
+
+    protected Color pickColor = new Color();
+
+    protected int enablePickModeId;
+
+    protected int mvpMatrixId;
+
+    protected int pointSizeId;
+
+    protected int offsetScaleId;
+
+    protected int pickColorId;
+
+    private float[] array = new float[16];
+
+    public PointCloudProgram(Resources resources) {
+        try {
+            String vs = WWUtil.readResourceAsText(resources, R.raw.gov_nasa_worldwind_pointcloudprogram_vert);
+            String fs = WWUtil.readResourceAsText(resources, R.raw.gov_nasa_worldwind_pointcloudprogram_frag);
+            this.setProgramSources(vs, fs);
+            this.setAttribBindings("vertexPoint", "vertexColor", "vertexOffset");
+        } catch (Exception logged) {
+            Logger.logMessage(Logger.ERROR, "PointCloudProgram", "constructor", "errorReadingProgramSource", logged);
+        }
+    }
+
+    protected void initProgram(DrawContext dc) {
+        this.enablePickModeId = GLES20.glGetUniformLocation(this.programId, "enablePickMode");
+        GLES20.glUniform1i(this.enablePickModeId, this.enablePickMode ? 1 : 0);
+
+        this.mvpMatrixId = GLES20.glGetUniformLocation(this.programId, "mvpMatrix");
+        this.mvpMatrix.transposeToArray(this.array, 0); // 4 x 4 identity matrix
+        GLES20.glUniformMatrix4fv(this.mvpMatrixId, 1, false, this.array, 0);
+
+        this.pointSizeId = GLES20.glGetUniformLocation(this.programId, "pointSize");
+        GLES20.glUniform1f(this.pointSizeId, this.pointSize);
+
+        this.offsetScaleId = GLES20.glGetUniformLocation(this.programId, "offsetScale");
+        GLES20.glUniform1f(this.offsetScaleId, this.offsetScale);
+
+        this.pickColorId = GLES20.glGetUniformLocation(this.programId, "pickColor");
+        GLES20.glUniform4f(this.pickColorId, this.pickColor.red, this.pickColor.green, this.pickColor.blue, this.pickColor.alpha);
+    }
+
+    public void enablePickMode(boolean enable) {
+        if (this.enablePickMode != enable) {
+            this.enablePickMode = enable;
+            GLES20.glUniform1i(this.enablePickModeId, enable ? 1 : 0);
+        }
+    }
+
+    public void loadModelviewProjection(Matrix4 matrix) {
+        // Don't bother testing whether mvpMatrix has changed, the common case is to load a different matrix.
+        matrix.transposeToArray(this.array, 0);
+        GLES20.glUniformMatrix4fv(this.mvpMatrixId, 1, false, this.array, 0);
+    }
+
+    public void loadPointSize(float size) {
+        if (this.pointSize != size) {
+            this.pointSize = size;
+            GLES20.glUniform1f(this.pointSizeId, size);
+        }
+    }
+
+    public void loadOffsetScale(float scale) {
+        if (this.offsetScale != scale) {
+            this.offsetScale = scale;
+            GLES20.glUniform1f(this.offsetScaleId, scale);
+        }
+    }
+
+    public void loadPickColor(Color color) {
+        if (!this.pickColor.equals(color)) {
+            this.pickColor.set(color);
+            GLES20.glUniform4f(this.pickColorId, color.red, color.green, color.blue, color.alpha);
+        }
+    }
+}
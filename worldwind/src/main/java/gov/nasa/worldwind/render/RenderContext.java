@@ -9,9 +9,12 @@ import android.content.res.Resources;
 import android.graphics.Typeface;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import gov.nasa.worldwind.PickedObject;
+import gov.nasa.worldwind.FrameMetrics;
+import gov.nasa.worldwind.PickRequest;
 import gov.nasa.worldwind.PickedObjectList;
 import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.draw.Drawable;
@@ -31,6 +34,7 @@ import gov.nasa.worldwind.globe.Tessellator;
 import gov.nasa.worldwind.layer.Layer;
 import gov.nasa.worldwind.layer.LayerList;
 import gov.nasa.worldwind.shape.TextAttributes;
+import gov.nasa.worldwind.util.EarClipTriangulator;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Pool;
 import gov.nasa.worldwind.util.SynchronizedPool;
@@ -75,6 +79,8 @@ public class RenderContext {
 
     public Resources resources;
 
+    public FrameMetrics frameMetrics;
+
     public DrawableQueue drawableQueue;
 
     public DrawableQueue drawableTerrain;
@@ -87,8 +93,16 @@ public class RenderContext {
 
     public Line pickRay;
 
+    public List<PickRequest> pickRequests;
+
     public boolean pickMode;
 
+    /**
+     * Indicates whether shapes that support decluttering offer their drawables to the render context's declutterer
+     * rather than offering them directly. See {@link #offerDeclutterDrawable(Drawable, Viewport, double, double)}.
+     */
+    public boolean declutterEnabled;
+
     private int pickedObjectId;
 
     private boolean redrawRequested;
@@ -97,8 +111,12 @@ public class RenderContext {
 
     private GLUtessellator tessellator;
 
+    private EarClipTriangulator triangulator;
+
     private TextRenderer textRenderer = new TextRenderer();
 
+    private Declutterer declutterer = new Declutterer();
+
     private TextCacheKey scratchTextCacheKey = new TextCacheKey();
 
     private Map<Object, Pool<?>> drawablePools = new HashMap<>();
@@ -128,13 +146,17 @@ public class RenderContext {
         this.frustum.setToUnitFrustum();
         this.renderResourceCache = null;
         this.resources = null;
+        this.frameMetrics = null;
         this.drawableQueue = null;
         this.drawableTerrain = null;
         this.pickedObjects = null;
         this.pickViewport = null;
         this.pickPoint = null;
         this.pickRay = null;
+        this.pickRequests = null;
         this.pickMode = false;
+        this.declutterEnabled = false;
+        this.declutterer.clear();
         this.pickedObjectId = 0;
         this.redrawRequested = false;
         this.pixelSizeFactor = 0;
@@ -415,7 +437,7 @@ public class RenderContext {
     }
 
     public Texture retrieveTexture(ImageSource imageSource, ImageOptions imageOptions) {
-        return this.renderResourceCache.retrieveTexture(imageSource, imageOptions);
+        return this.renderResourceCache.retrieveTexture(imageSource, imageOptions, this.currentLayer);
     }
 
     public BufferObject getBufferObject(Object key) {
@@ -437,10 +459,7 @@ public class RenderContext {
         Texture texture = null;
 
         if (text != null && attributes != null) {
-            this.textRenderer.setTextSize(attributes.getTextSize());
-            this.textRenderer.setTypeface(attributes.getTypeface());
-            this.textRenderer.setEnableOutline(attributes.isEnableOutline());
-            this.textRenderer.setOutlineWidth(attributes.getOutlineWidth());
+            this.configureTextRenderer(attributes);
             texture = this.textRenderer.renderText(text);
         }
 
@@ -448,6 +467,33 @@ public class RenderContext {
         return texture;
     }
 
+    /**
+     * Computes the width and height of the texture that {@link #renderText(String, TextAttributes)} creates for a text
+     * string, without drawing the text or caching a texture.
+     *
+     * @param text       the text string to measure, may be null
+     * @param attributes the text's attributes, may be null
+     * @param result     a pre-allocated Vec2 in which to return the texture's width and height
+     *
+     * @return the result argument set to the texture's width and height, or to zero if the text or the attributes are
+     * null
+     */
+    public Vec2 measureText(String text, TextAttributes attributes, Vec2 result) {
+        if (text != null && attributes != null) {
+            this.configureTextRenderer(attributes);
+            return this.textRenderer.measureText(text, result);
+        } else {
+            return result.set(0, 0);
+        }
+    }
+
+    protected void configureTextRenderer(TextAttributes attributes) {
+        this.textRenderer.setTextSize(attributes.getTextSize());
+        this.textRenderer.setTypeface(attributes.getTypeface());
+        this.textRenderer.setEnableOutline(attributes.isEnableOutline());
+        this.textRenderer.setOutlineWidth(attributes.getOutlineWidth());
+    }
+
     public void offerDrawable(Drawable drawable, int groupId, double order) {
         if (this.drawableQueue != null) {
             this.drawableQueue.offerDrawable(drawable, groupId, order);
@@ -466,6 +512,50 @@ public class RenderContext {
         }
     }
 
+    /**
+     * Offers a shape drawable to be drawn only if its screen bounds do not overlap those of a drawable with higher
+     * priority. Drawables offered this way are decluttered and enqueued when {@link #declutterDrawables()} is called
+     * after the frame's layers have been rendered. See {@link Declutterer#offerDrawable(Drawable, Viewport, double,
+     * double)}.
+     *
+     * @param drawable       the drawable to offer, may be null
+     * @param screenBounds   the drawable's bounds in screen coordinates
+     * @param priority       the drawable's priority; higher priority drawables are drawn in preference to others
+     * @param cameraDistance the distance from the camera to the shape
+     */
+    public void offerDeclutterDrawable(Drawable drawable, Viewport screenBounds, double priority, double cameraDistance) {
+        this.offerDeclutterDrawable(drawable, null, screenBounds, priority, cameraDistance);
+    }
+
+    /**
+     * Offers a shape drawable to be drawn only if its screen bounds do not overlap those of a drawable with higher
+     * priority, deferring the drawable's preparation until decluttering accepts it. Shapes use this to avoid creating
+     * resources, such as text textures, for drawables that decluttering rejects. See {@link
+     * Declutterer#offerDrawable(Drawable, Declutterer.DrawablePreparer, Viewport, double, double)}.
+     *
+     * @param drawable       the drawable to offer, may be null
+     * @param preparer       the preparer to call when the drawable is accepted, may be null
+     * @param screenBounds   the drawable's bounds in screen coordinates
+     * @param priority       the drawable's priority; higher priority drawables are drawn in preference to others
+     * @param cameraDistance the distance from the camera to the shape
+     */
+    public void offerDeclutterDrawable(Drawable drawable, Declutterer.DrawablePreparer preparer, Viewport screenBounds,
+                                       double priority, double cameraDistance) {
+        if (this.drawableQueue != null) {
+            this.declutterer.offerDrawable(drawable, preparer, screenBounds, priority, cameraDistance);
+        }
+    }
+
+    /**
+     * Enqueues the non-overlapping drawables offered by {@link #offerDeclutterDrawable(Drawable, Viewport, double,
+     * double)} and recycles the others.
+     */
+    public void declutterDrawables() {
+        if (this.declutterer.count() > 0) {
+            this.declutterer.declutter(this);
+        }
+    }
+
     public void offerDrawableTerrain(DrawableTerrain drawable, double cameraDistance) {
         if (this.drawableTerrain != null) {
             this.drawableTerrain.offerDrawable(drawable, WorldWind.SURFACE_DRAWABLE, cameraDistance); // order by increasing distance to the viewer
@@ -483,7 +573,8 @@ public class RenderContext {
     }
 
     public int drawableCount() {
-        return (this.drawableQueue != null) ? this.drawableQueue.count() : 0;
+        // Include the drawables awaiting decluttering, which shapes have offered but are not yet in the queue.
+        return (this.drawableQueue != null) ? this.drawableQueue.count() + this.declutterer.count() : 0;
     }
 
     @SuppressWarnings("unchecked")
@@ -524,6 +615,14 @@ public class RenderContext {
         return (this.tessellator = tess);
     }
 
+    public EarClipTriangulator getTriangulator() {
+        if (this.triangulator != null) {
+            return this.triangulator;
+        }
+
+        return (this.triangulator = new EarClipTriangulator());
+    }
+
     public Object getUserProperty(Object key) {
         return this.userProperties.get(key);
     }
@@ -20,9 +20,11 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 
 import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.util.HttpTransport;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.LruMemoryCache;
 import gov.nasa.worldwind.util.Retriever;
+import gov.nasa.worldwind.util.RetrieverMetrics;
 import gov.nasa.worldwind.util.SynchronizedMemoryCache;
 
 public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
@@ -60,7 +62,9 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
         this.handler = new Handler(this);
         this.evictionQueue = new ConcurrentLinkedQueue<>();
         this.imageRetriever = new ImageRetriever(2);
+        this.imageRetriever.getMetrics().setDisplayName("imageRetriever");
         this.urlImageRetriever = new ImageRetriever(8);
+        this.urlImageRetriever.getMetrics().setDisplayName("urlImageRetriever");
         this.imageRetrieverCache = new SynchronizedMemoryCache<>(this.getCapacity() / 8);
 
         Logger.log(Logger.INFO, String.format(Locale.US, "RenderResourceCache initialized  %,.0f KB  (%,.0f KB retrieval cache)",
@@ -97,6 +101,24 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
         ((ImageRetriever) this.imageRetriever).setResources(res);
     }
 
+    /**
+     * Returns the metrics of the retriever that loads images from local sources, such as resources and files.
+     *
+     * @return the local image retriever's metrics
+     */
+    public RetrieverMetrics getImageRetrieverMetrics() {
+        return this.imageRetriever.getMetrics();
+    }
+
+    /**
+     * Returns the metrics of the retriever that loads images from URLs.
+     *
+     * @return the URL image retriever's metrics
+     */
+    public RetrieverMetrics getUrlImageRetrieverMetrics() {
+        return this.urlImageRetriever.getMetrics();
+    }
+
     public void clear() { // TODO rename as contextLost to clarify this method's purpose for RenderResourceCache
         this.handler.removeMessages(TRIM_STALE_RETRIEVALS);
         this.entries.clear(); // the cache entries are invalid; clear but don't call entryRemoved
@@ -127,6 +149,20 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
     }
 
     public Texture retrieveTexture(ImageSource imageSource, ImageOptions options) {
+        return this.retrieveTexture(imageSource, options, null);
+    }
+
+    /**
+     * Returns the texture associated with an image source, or null if the image must first be retrieved on a separate
+     * thread. Image retrievals are attributed to the specified source in the retriever metrics.
+     *
+     * @param imageSource the image source, may be null
+     * @param options     the image options, may be null
+     * @param source      the object requesting the texture, such as a layer, may be null
+     *
+     * @return the texture, or null if the texture is not in memory
+     */
+    public Texture retrieveTexture(ImageSource imageSource, ImageOptions options, Object source) {
         if (imageSource == null) {
             return null; // a null image source corresponds to a null texture
         }
@@ -154,9 +190,34 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
         // then expected that a subsequent render frame will result in another call to retrieveTexture, in which case
         // the image will be found in the image retrieval cache.
         if (imageSource.isUrl()) {
-            this.urlImageRetriever.retrieve(imageSource, options, this);
+            this.urlImageRetriever.retrieve(imageSource, options, source, this);
+        } else if (imageSource.asBitmapFactory() instanceof ImageSource.GroupedBitmapFactory) {
+            // Retrieve the entire group under the group's key, so that requests for the group's other bitmaps while the
+            // group is in flight are duplicates rather than separate retrievals. Each of the group's bitmaps is added
+            // to the image retrieval cache under its own image source. Remote groups, such as WMS metatiles, are
+            // retrieved along with URL images, and local groups, such as GeoPackage tile batches, along with other
+            // bitmap factories. Bitmaps the group failed to create are suppressed under their own image source in the
+            // failure cache of the group's retriever, as the group's retrieval may succeed without them. Groups that
+            // create only requested bitmaps, such as GeoPackage tile batches, are told which bitmap is needed first.
+            ImageSource.BitmapGroupFactory group = ((ImageSource.GroupedBitmapFactory) imageSource.asBitmapFactory()).getGroupFactory();
+            Retriever<ImageSource, ImageOptions, Bitmap> retriever = group.isRemote() ? this.urlImageRetriever : this.imageRetriever;
+            if (retriever.getFailureCache().isSuppressed(imageSource)) {
+                retriever.getMetrics().recordSuppressed(source);
+                return null;
+            }
+            if (group instanceof ImageSource.RequestedBitmapGroupFactory
+                && !((ImageSource.RequestedBitmapGroupFactory) group).requestBitmap(imageSource)) {
+                retriever.getMetrics().recordDuplicate(source); // the group is already creating this bitmap
+                return null;
+            }
+            retriever.retrieve(ImageSource.fromObject(group), options, source, this);
+        } else if (imageSource.asBitmapFactory() instanceof ImageSource.RemoteResource
+            && ((ImageSource.RemoteResource) imageSource.asBitmapFactory()).isRemote()) {
+            // Bitmap factories that read remote resources, such as Cloud Optimized GeoTIFF tiles, block on the network
+            // and are retrieved along with URL images rather than delaying the bitmaps of local resources.
+            this.urlImageRetriever.retrieve(imageSource, options, source, this);
         } else {
-            this.imageRetriever.retrieve(imageSource, options, this);
+            this.imageRetriever.retrieve(imageSource, options, source, this);
         }
         return null;
     }
@@ -195,6 +256,9 @@ public class RenderResourceCache extends LruMemoryCache<Object, RenderResource>
     public void retrievalFailed(Retriever<ImageSource, ImageOptions, Bitmap> retriever, ImageSource key, Throwable ex) {
         if (ex instanceof SocketTimeoutException) { // log socket timeout exceptions while suppressing the stack trace
             Logger.log(Logger.ERROR, "Socket timeout retrieving image \'" + key + "\'");
+        } else if (ex instanceof HttpTransport.StatusException) { // log HTTP error statuses while suppressing the stack trace
+            int responseCode = ((HttpTransport.StatusException) ex).getResponseCode();
+            Logger.log(Logger.ERROR, "Image retrieval failed with HTTP status " + responseCode + " \'" + key + "\'");
         } else if (ex != null) { // log checked exceptions with the entire stack trace
             Logger.log(Logger.ERROR, "Image retrieval failed with exception \'" + key + "\'", ex);
         } else {
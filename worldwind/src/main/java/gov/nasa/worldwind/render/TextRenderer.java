@@ -12,6 +12,8 @@ import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.Typeface;
 
+import gov.nasa.worldwind.geom.Vec2;
+
 public class TextRenderer {
 
     protected float textSize;
@@ -88,21 +90,50 @@ public class TextRenderer {
         }
     }
 
-    protected Bitmap drawText(String text) {
-        this.paint.getTextBounds(text, 0, text.length(), this.scratchBounds);
-        int x = -this.scratchBounds.left + 1;
-        int y = -this.scratchBounds.top + 1;
-        int width = this.scratchBounds.width() + 2;
-        int height = this.scratchBounds.height() + 2;
+    /**
+     * Computes the width and height of the texture that {@link #renderText(String)} creates for a text string, without
+     * drawing the text.
+     *
+     * @param text   the text string to measure, may be null
+     * @param result a pre-allocated Vec2 in which to return the texture's width and height
+     *
+     * @return the result argument set to the texture's width and height, or to zero if the text is null or empty
+     */
+    public Vec2 measureText(String text, Vec2 result) {
+        if (text != null && text.length() > 0) {
+            Rect bounds = this.textBitmapBounds(text, this.scratchBounds);
+            return result.set(bounds.right - bounds.left, bounds.bottom - bounds.top);
+        } else {
+            return result.set(0, 0);
+        }
+    }
 
+    /**
+     * Computes the bounds of the bitmap drawn for a text string, relative to the text's origin. The bounds include a
+     * one pixel border and the outline's stroke.
+     */
+    protected Rect textBitmapBounds(String text, Rect result) {
+        this.paint.getTextBounds(text, 0, text.length(), result);
+
+        int border = 1;
         if (this.enableOutline) {
-            int strokeWidth_2 = (int) Math.ceil(this.paint.getStrokeWidth() * 0.5f);
-            x += strokeWidth_2;
-            y += strokeWidth_2;
-            width += (strokeWidth_2 * 2);
-            height += (strokeWidth_2 * 2);
+            border += (int) Math.ceil(this.paint.getStrokeWidth() * 0.5f);
         }
 
+        result.left -= border;
+        result.top -= border;
+        result.right += border;
+        result.bottom += border;
+        return result;
+    }
+
+    protected Bitmap drawText(String text) {
+        Rect bounds = this.textBitmapBounds(text, this.scratchBounds);
+        int x = -bounds.left;
+        int y = -bounds.top;
+        int width = bounds.right - bounds.left;
+        int height = bounds.bottom - bounds.top;
+
         Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_4444);
         this.canvas.setBitmap(bitmap);
 
@@ -7,6 +7,7 @@ package gov.nasa.worldwind.shape;
 
 import gov.nasa.worldwind.PickedObject;
 import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.draw.Drawable;
 import gov.nasa.worldwind.draw.DrawableScreenTexture;
 import gov.nasa.worldwind.geom.Matrix4;
 import gov.nasa.worldwind.geom.Position;
@@ -17,6 +18,9 @@ import gov.nasa.worldwind.globe.Globe;
 import gov.nasa.worldwind.render.AbstractRenderable;
 import gov.nasa.worldwind.render.BasicShaderProgram;
 import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.Declutterer;
+import gov.nasa.worldwind.render.ModelPointBatch;
+import gov.nasa.worldwind.render.ModelPointCache;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Texture;
 import gov.nasa.worldwind.util.Logger;
@@ -27,7 +31,7 @@ import gov.nasa.worldwind.util.WWMath;
  * Represents a label at a geographic position. Labels display a single line of text according to specified {@link
  * TextAttributes}.
  */
-public class Label extends AbstractRenderable implements Highlightable, Movable {
+public class Label extends AbstractRenderable implements Highlightable, Movable, ModelPointBatch.Source {
 
     /**
      * The default amount of screen depth offset applied to the label's text during rendering. Values less than zero
@@ -40,6 +44,11 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
      */
     private static RenderData renderData = new RenderData();
 
+    /**
+     * The label's Cartesian model point, retained across frames while the label, globe and terrain are unchanged.
+     */
+    protected ModelPointCache placePointCache = new ModelPointCache();
+
     /**
      * The label's geographic position.
      */
@@ -87,6 +96,17 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
      */
     protected boolean highlighted;
 
+    /**
+     * The label's priority when labels are decluttered. Labels with higher priority are drawn in preference to labels
+     * they overlap.
+     */
+    protected double declutterPriority;
+
+    /**
+     * Renders the label's text texture when decluttering accepts the label.
+     */
+    protected Declutterer.DrawablePreparer textPreparer = new TextPreparer(this);
+
     /**
      * Constructs a label that displays text at a geographic position.
      *
@@ -279,6 +299,31 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
         return this;
     }
 
+    /**
+     * Indicates this label's priority when overlapping labels are decluttered. See {@link
+     * gov.nasa.worldwind.WorldWindow#setDeclutterEnabled(boolean)}.
+     *
+     * @return this label's declutter priority
+     */
+    public double getDeclutterPriority() {
+        return this.declutterPriority;
+    }
+
+    /**
+     * Sets this label's priority when overlapping labels are decluttered. When labels overlap, the label with the
+     * highest priority is drawn, and labels with equal priority are drawn in order of increasing distance from the
+     * camera. Highlighted labels are drawn in preference to labels that are not highlighted, regardless of priority.
+     * The default priority is 0.
+     *
+     * @param priority the label's declutter priority
+     *
+     * @return this label with its declutter priority set to the specified value
+     */
+    public Label setDeclutterPriority(double priority) {
+        this.declutterPriority = priority;
+        return this;
+    }
+
     /**
      * Indicates this label's "normal" attributes, that is the attributes used when the label's highlighted flag is
      * false. If null and this label is not highlighted, this label displays nothing.
@@ -372,15 +417,23 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
         this.setPosition(position);
     }
 
+    @Override
+    public void addModelPoints(RenderContext rc, ModelPointBatch batch) {
+        if (this.enabled && this.text != null && this.text.length() > 0) {
+            batch.add(rc, this.placePointCache, this.position.latitude, this.position.longitude,
+                this.position.altitude, this.altitudeMode);
+        }
+    }
+
     @Override
     protected void doRender(RenderContext rc) {
         if (this.text == null || this.text.length() == 0) {
             return; // no text to render
         }
 
-        // Compute the label's Cartesian model point.
-        rc.geographicToCartesian(this.position.latitude, this.position.longitude, this.position.altitude,
-            this.altitudeMode, renderData.placePoint);
+        // Compute the label's Cartesian model point, or reuse the point computed in an earlier frame.
+        renderData.placePoint.set(this.placePointCache.getPoint(rc, this.position.latitude, this.position.longitude,
+            this.position.altitude, this.altitudeMode));
 
         // Compute the camera distance to the place point, the value which is used for ordering the label drawable and
         // determining the amount of depth offset to apply.
@@ -430,12 +483,23 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
 
     protected void makeDrawable(RenderContext rc) {
         // Render the label's texture when the label's position is in the frustum. If the label's position is outside
-        // the frustum we don't do anything. This ensures that label textures are rendered only as necessary.
+        // the frustum we don't do anything. This ensures that label textures are rendered only as necessary. When
+        // decluttering, measure the text instead, and render the texture only if decluttering accepts the label.
         Texture texture = rc.getText(this.text, this.activeAttributes);
-        if (texture == null && rc.frustum.containsPoint(renderData.placePoint)) {
-            texture = rc.renderText(this.text, this.activeAttributes);
-        } else if (texture == null) {
+        if (texture != null) {
+            renderData.textSize.set(texture.getWidth(), texture.getHeight());
+        } else if (!rc.frustum.containsPoint(renderData.placePoint)) {
             return;
+        } else if (rc.declutterEnabled) {
+            rc.measureText(this.text, this.activeAttributes, renderData.textSize);
+        } else if ((texture = rc.renderText(this.text, this.activeAttributes)) != null) {
+            renderData.textSize.set(texture.getWidth(), texture.getHeight());
+        } else {
+            return; // the label has no text
+        }
+
+        if (renderData.textSize.x == 0 || renderData.textSize.y == 0) {
+            return; // the label has no text
         }
 
         // Initialize the unit square transform to the identity matrix.
@@ -443,8 +507,8 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
 
         // Apply the label's translation according to its text size and text offset. The text offset is defined with its
         // origin at the text's bottom-left corner and axes that extend up and to the right from the origin point.
-        int w = texture.getWidth();
-        int h = texture.getHeight();
+        double w = renderData.textSize.x;
+        double h = renderData.textSize.y;
         this.activeAttributes.textOffset.offsetForSize(w, h, renderData.offset);
         renderData.unitSquareTransform.setTranslation(
             renderData.screenPlacePoint.x - renderData.offset.x,
@@ -466,6 +530,12 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
 
         WWMath.boundingRectForUnitSquare(renderData.unitSquareTransform, renderData.screenBounds);
         if (!rc.frustum.intersectsViewport(renderData.screenBounds)) {
+            if (rc.declutterEnabled) {
+                // Claim the text's screen space without drawing it. Pick frames draw only the labels near the pick
+                // point, and must declutter those labels as they are in the displayed frame.
+                rc.offerDeclutterDrawable(null, renderData.screenBounds, this.activeDeclutterPriority(),
+                    renderData.cameraDistance);
+            }
             return; // the text is outside the viewport
         }
 
@@ -484,13 +554,47 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
 
         // Configure the drawable according to the active attributes. Use a color appropriate for the pick mode. When
         // picking use a unique color associated with the picked object ID. Use the texture associated with the active
-        // attributes' text image and its associated tex coord transform.
+        // attributes' text image and its associated tex coord transform. A label whose texture is not yet rendered
+        // leaves its text preparer to render the texture when decluttering accepts the label.
         drawable.color.set(rc.pickMode ? renderData.pickColor : this.activeAttributes.textColor);
         drawable.texture = texture;
         drawable.enableDepthTest = this.activeAttributes.enableDepthTest;
 
-        // Enqueue a drawable for processing on the OpenGL thread.
-        rc.offerShapeDrawable(drawable, renderData.cameraDistance);
+        // Enqueue a drawable for processing on the OpenGL thread, or for decluttering when enabled.
+        if (rc.declutterEnabled) {
+            rc.offerDeclutterDrawable(drawable, (texture == null) ? this.textPreparer : null, renderData.screenBounds,
+                this.activeDeclutterPriority(), renderData.cameraDistance);
+        } else {
+            rc.offerShapeDrawable(drawable, renderData.cameraDistance);
+        }
+    }
+
+    protected double activeDeclutterPriority() {
+        return this.highlighted ? Double.POSITIVE_INFINITY : this.declutterPriority;
+    }
+
+    /**
+     * Renders a label's text texture for a drawable accepted by decluttering, using the text and the active attributes
+     * with which the label offered the drawable.
+     */
+    protected static class TextPreparer implements Declutterer.DrawablePreparer {
+
+        protected Label label;
+
+        public TextPreparer(Label label) {
+            this.label = label;
+        }
+
+        @Override
+        public boolean prepareDrawable(RenderContext rc, Drawable drawable) {
+            Texture texture = rc.getText(this.label.text, this.label.activeAttributes);
+            if (texture == null) {
+                texture = rc.renderText(this.label.text, this.label.activeAttributes);
+            }
+
+            ((DrawableScreenTexture) drawable).texture = texture;
+            return texture != null;
+        }
     }
 
     /**
@@ -513,6 +617,11 @@ public class Label extends AbstractRenderable implements Highlightable, Movable
          */
         public Vec2 offset = new Vec2();
 
+        /**
+         * The width and height of the label's text texture, in screen coordinates.
+         */
+        public Vec2 textSize = new Vec2();
+
         /**
          * The screen coordinate transform to apply to the drawable unit square.
          */
@@ -19,7 +19,6 @@ import gov.nasa.worldwind.draw.DrawShapeState;
 import gov.nasa.worldwind.draw.Drawable;
 import gov.nasa.worldwind.draw.DrawableShape;
 import gov.nasa.worldwind.draw.DrawableSurfaceShape;
-import gov.nasa.worldwind.geom.Location;
 import gov.nasa.worldwind.geom.Matrix3;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Vec3;
@@ -69,7 +68,7 @@ public class Path extends AbstractShape {
 
     private Matrix3 texCoordMatrix = new Matrix3();
 
-    private Location intermediateLocation = new Location();
+    private double[] intermediateLocations = new double[0];
 
     protected static Object nextCacheKey() {
         return new Object();
@@ -311,37 +310,24 @@ public class Path extends AbstractShape {
             return; // suppress intermediate vertices when configured to do so
         }
 
-        double azimuth = 0;
-        double length = 0;
-        if (this.pathType == WorldWind.GREAT_CIRCLE) {
-            azimuth = begin.greatCircleAzimuth(end);
-            length = begin.greatCircleDistance(end);
-        } else if (this.pathType == WorldWind.RHUMB_LINE) {
-            azimuth = begin.rhumbAzimuth(end);
-            length = begin.rhumbDistance(end);
+        // Compute the intermediate locations for the entire segment at once. Skip degenerate segments.
+        int count = this.maximumIntermediatePoints;
+        if (this.intermediateLocations.length < count * 2) {
+            this.intermediateLocations = new double[count * 2];
         }
 
+        double[] locations = this.intermediateLocations;
+        double length = begin.intermediateLocations(end, this.pathType, count, locations, 0);
         if (length < NEAR_ZERO_THRESHOLD) {
             return; // suppress intermediate vertices when the edge length less than a millimeter (on Earth)
         }
 
-        int numSubsegments = this.maximumIntermediatePoints + 1;
-        double deltaDist = length / numSubsegments;
+        int numSubsegments = count + 1;
         double deltaAlt = (end.altitude - begin.altitude) / numSubsegments;
-        double dist = deltaDist;
         double alt = begin.altitude + deltaAlt;
 
-        for (int idx = 1; idx < numSubsegments; idx++) {
-            Location loc = this.intermediateLocation;
-
-            if (this.pathType == WorldWind.GREAT_CIRCLE) {
-                begin.greatCircleLocation(azimuth, dist, loc);
-            } else if (this.pathType == WorldWind.RHUMB_LINE) {
-                begin.rhumbLocation(azimuth, dist, loc);
-            }
-
-            this.addVertex(rc, loc.latitude, loc.longitude, alt, true /*intermediate*/);
-            dist += deltaDist;
+        for (int idx = 0, len = count * 2; idx < len; idx += 2) {
+            this.addVertex(rc, locations[idx], locations[idx + 1], alt, true /*intermediate*/);
             alt += deltaAlt;
         }
     }
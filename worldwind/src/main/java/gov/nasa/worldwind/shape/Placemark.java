@@ -19,6 +19,8 @@ import gov.nasa.worldwind.render.AbstractRenderable;
 import gov.nasa.worldwind.render.BasicShaderProgram;
 import gov.nasa.worldwind.render.Color;
 import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.ModelPointBatch;
+import gov.nasa.worldwind.render.ModelPointCache;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Texture;
 import gov.nasa.worldwind.util.Logger;
@@ -35,7 +37,7 @@ import gov.nasa.worldwind.util.WWMath;
  * scaled by the image scale attribute. Otherwise, the placemark is drawn as a square with width and height equal to the
  * value of the image scale attribute, in pixels, and color equal to the image color attribute.
  */
-public class Placemark extends AbstractRenderable implements Highlightable, Movable {
+public class Placemark extends AbstractRenderable implements Highlightable, Movable, ModelPointBatch.Source {
 
     /**
      * Presents an interfaced for dynamically determining the PlacemarkAttributes based on the distance between the
@@ -176,6 +178,17 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
 
     protected LevelOfDetailSelector levelOfDetailSelector;
 
+    /**
+     * The placemark's Cartesian model point, retained across frames while the placemark, globe and terrain are
+     * unchanged.
+     */
+    protected ModelPointCache placePointCache = new ModelPointCache();
+
+    /**
+     * The Cartesian model point of the placemark's leader on the terrain. Allocated when the leader is first drawn.
+     */
+    protected ModelPointCache groundPointCache;
+
     /**
      * Constructs a Placemark that draws its representation at the supplied position using default {@link
      * PlacemarkAttributes} bundle. The displayName and label properties are empty.
@@ -667,6 +680,20 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
         setPosition(position);
     }
 
+    /**
+     * Adds the placemark's model point to a batch of model points computed prior to rendering.
+     *
+     * @param rc    the current render context
+     * @param batch the batch to add the model point to
+     */
+    @Override
+    public void addModelPoints(RenderContext rc, ModelPointBatch batch) {
+        if (this.enabled) {
+            batch.add(rc, this.placePointCache, this.position.latitude, this.position.longitude,
+                this.position.altitude, this.altitudeMode);
+        }
+    }
+
     /**
      * Performs the rendering; called by the public render method.
      *
@@ -674,9 +701,9 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
      */
     @Override
     protected void doRender(RenderContext rc) {
-        // Compute the placemark's Cartesian model point.
-        rc.geographicToCartesian(this.position.latitude, this.position.longitude, this.position.altitude,
-            this.altitudeMode, placePoint);
+        // Compute the placemark's Cartesian model point, or reuse the point computed in an earlier frame.
+        placePoint.set(this.placePointCache.getPoint(rc, this.position.latitude, this.position.longitude,
+            this.position.altitude, this.altitudeMode));
 
         // Compute the camera distance to the place point, the value which is used for ordering the placemark drawable
         // and determining the amount of depth offset to apply.
@@ -715,9 +742,12 @@ public class Placemark extends AbstractRenderable implements Highlightable, Mova
         // Prepare a drawable for the placemark's leader, if requested. Enqueue the leader drawable before the icon
         // drawable in order to give the icon visual priority over the leader.
         if (this.mustDrawLeader(rc)) {
-            // Compute the placemark's Cartesian ground point.
-            rc.geographicToCartesian(this.position.latitude, this.position.longitude, 0, WorldWind.CLAMP_TO_GROUND,
-                groundPoint);
+            // Compute the placemark's Cartesian ground point, or reuse the point computed in an earlier frame.
+            if (this.groundPointCache == null) {
+                this.groundPointCache = new ModelPointCache();
+            }
+            groundPoint.set(this.groundPointCache.getPoint(rc, this.position.latitude, this.position.longitude, 0,
+                WorldWind.CLAMP_TO_GROUND));
 
             // If the leader is visible, enqueue a drawable leader for processing on the OpenGL thread.
             if (rc.frustum.intersectsSegment(groundPoint, placePoint)) {
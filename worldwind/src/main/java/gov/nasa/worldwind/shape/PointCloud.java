@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import gov.nasa.worldwind.PickedObject;
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.draw.DrawablePointCloud;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.render.AbstractRenderable;
+import gov.nasa.worldwind.render.BufferObject;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.PointCloudProgram;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Pool;
+
+/**
+ * Displays a large set of geographic points as screen-aligned squares of a fixed pixel size. PointCloud is intended
+ * for point sets too large to draw in their entirety, such as lidar scans with millions of points. The points are
+ * organized in a {@link PointCloudOctree} whose nodes are uploaded to the GPU as vertex buffer objects on demand, and
+ * each frame draws only the nodes that intersect the view at a density sufficient for the current viewing distance.
+ * <p/>
+ * Point altitudes are interpreted as absolute altitudes above the globe's ellipsoid. The octree is built asynchronously
+ * on World Wind's task service when the point cloud is first drawn, and rebuilt when the points or the globe change.
+ * Until a build completes, the point cloud draws the previous octree, if any. Vertical exaggeration is applied when the
+ * points are drawn, by displacing each point along the surface normal in proportion to its altitude, and does not
+ * require a rebuild.
+ */
+public class PointCloud extends AbstractRenderable {
+
+    protected double[] latitudes;
+
+    protected double[] longitudes;
+
+    protected double[] altitudes;
+
+    protected int[] colors;
+
+    protected int pointCount;
+
+    protected float pointSize = 2;
+
+    protected double maxScreenSpaceError = 2;
+
+    protected int chunkSize = PointCloudOctree.DEFAULT_CHUNK_SIZE;
+
+    protected boolean depthTest = true;
+
+    protected PointCloudOctree octree;
+
+    protected Globe octreeGlobe;
+
+    protected BuildTask pendingBuild;
+
+    protected int pickedObjectId;
+
+    protected Color pickColor = new Color();
+
+    protected List<PointCloudOctree.Node> selectedNodes = new ArrayList<>();
+
+    public PointCloud() {
+    }
+
+    public PointCloud(String displayName) {
+        super(displayName);
+    }
+
+    public int getPointCount() {
+        return this.pointCount;
+    }
+
+    /**
+     * Specifies this point cloud's points. The arrays are retained by reference and are not copied; call this method
+     * again after modifying their contents.
+     *
+     * @param latitudes  the points' latitudes in degrees
+     * @param longitudes the points' longitudes in degrees
+     * @param altitudes  the points' altitudes in meters, or null to indicate altitude 0
+     * @param colors     the points' colors as 32-bit ARGB integers, or null to indicate opaque white
+     * @param count      the number of points
+     *
+     * @throws IllegalArgumentException If the count is negative, if the latitudes or longitudes are null, or if any
+     *                                  array is shorter than count
+     */
+    public void setPoints(double[] latitudes, double[] longitudes, double[] altitudes, int[] colors, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setPoints", "invalidCount"));
+        }
+
+        if (latitudes == null || longitudes == null || latitudes.length < count || longitudes.length < count
+            || (altitudes != null && altitudes.length < count) || (colors != null && colors.length < count)) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setPoints", "missingArray"));
+        }
+
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.altitudes = altitudes;
+        this.colors = colors;
+        this.pointCount = count;
+        this.reset();
+    }
+
+    public float getPointSize() {
+        return this.pointSize;
+    }
+
+    /**
+     * Sets the size of each point in pixels.
+     *
+     * @param pointSize the point size in pixels
+     *
+     * @throws IllegalArgumentException If the size is not positive
+     */
+    public void setPointSize(float pointSize) {
+        if (pointSize <= 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setPointSize", "invalidSize"));
+        }
+
+        this.pointSize = pointSize;
+    }
+
+    public double getMaxScreenSpaceError() {
+        return this.maxScreenSpaceError;
+    }
+
+    /**
+     * Sets the maximum spacing between drawn points, in pixels, before finer levels of the point cloud are drawn.
+     * Smaller values draw more points.
+     *
+     * @param maxScreenSpaceError the maximum point spacing in pixels
+     *
+     * @throws IllegalArgumentException If the error is not positive
+     */
+    public void setMaxScreenSpaceError(double maxScreenSpaceError) {
+        if (maxScreenSpaceError <= 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setMaxScreenSpaceError", "invalidSize"));
+        }
+
+        this.maxScreenSpaceError = maxScreenSpaceError;
+    }
+
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Sets the maximum number of points in each vertex buffer object.
+     *
+     * @param chunkSize the maximum number of points per chunk
+     *
+     * @throws IllegalArgumentException If the chunk size is less than 1
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloud", "setChunkSize", "invalidCapacity"));
+        }
+
+        this.chunkSize = chunkSize;
+        this.reset();
+    }
+
+    public boolean isDepthTest() {
+        return this.depthTest;
+    }
+
+    public void setDepthTest(boolean depthTest) {
+        this.depthTest = depthTest;
+    }
+
+    protected void reset() {
+        this.octreeGlobe = null; // keep drawing the current octree until its replacement is built
+        this.pendingBuild = null; // discard the result of any build in progress
+    }
+
+    @Override
+    protected void doRender(RenderContext rc) {
+        if (this.pointCount == 0) {
+            return; // nothing to draw
+        }
+
+        if (this.pendingBuild != null && this.pendingBuild.octree != null) {
+            this.octreeBuilt(this.pendingBuild);
+        } else if (this.pendingBuild != null && this.pendingBuild.failed) {
+            this.pendingBuild = null; // the build failed; try again below
+        }
+
+        if (this.mustBuildOctree(rc)) {
+            this.buildOctree(rc);
+        }
+
+        // Don't render anything until the first octree is built.
+        if (this.octree == null) {
+            return;
+        }
+
+        // Apply vertical exaggeration by scaling the point offsets, which are the altitude along the surface normal.
+        this.octree.setOffsetScale(rc.verticalExaggeration - 1);
+
+        // Select the octree nodes to draw. Don't render anything if no nodes intersect the view.
+        this.selectedNodes.clear();
+        this.octree.selectNodes(rc.frustum, rc.cameraPoint, rc.pixelSizeAtDistance(1), this.maxScreenSpaceError,
+            this.selectedNodes);
+        if (this.selectedNodes.isEmpty()) {
+            return;
+        }
+
+        // Obtain a drawable from the render context pool.
+        Pool<DrawablePointCloud> pool = rc.getDrawablePool(DrawablePointCloud.class);
+        DrawablePointCloud drawable = DrawablePointCloud.obtain(pool);
+
+        // Use the point cloud GLSL program to draw the points.
+        drawable.program = (PointCloudProgram) rc.getShaderProgram(PointCloudProgram.KEY);
+        if (drawable.program == null) {
+            drawable.program = (PointCloudProgram) rc.putShaderProgram(PointCloudProgram.KEY, new PointCloudProgram(rc.resources));
+        }
+
+        // Assemble the vertex buffer object of each selected node that is not already on the GPU.
+        for (int idx = 0, len = this.selectedNodes.size(); idx < len; idx++) {
+            PointCloudOctree.Node node = this.selectedNodes.get(idx);
+            BufferObject buffer = rc.getBufferObject(node.bufferKey);
+            if (buffer == null) {
+                buffer = rc.putBufferObject(node.bufferKey, this.assembleBuffer(node));
+            }
+
+            drawable.addChunk(buffer, node.origin, node.pointCount);
+        }
+
+        drawable.pointSize = this.pointSize;
+        drawable.enableOffsets = this.octree.getRoot().getOffsets() != null;
+        drawable.offsetScale = (float) this.octree.getOffsetScale();
+        drawable.enableDepthTest = this.depthTest;
+
+        if (rc.pickMode) {
+            this.pickedObjectId = rc.nextPickedObjectId();
+            this.pickColor = PickedObject.identifierToUniqueColor(this.pickedObjectId, this.pickColor);
+            drawable.pickColor.set(this.pickColor);
+        }
+
+        // Enqueue a drawable for processing on the OpenGL thread.
+        double cameraDistance = this.octree.root.bounds.distanceTo(rc.cameraPoint);
+        rc.offerShapeDrawable(drawable, cameraDistance);
+
+        // Enqueue a picked object that associates the point cloud's drawable with its picked object ID.
+        if (rc.pickMode) {
+            rc.offerPickedObject(PickedObject.fromRenderable(this.pickedObjectId, this, rc.currentLayer));
+        }
+    }
+
+    protected boolean mustBuildOctree(RenderContext rc) {
+        if (this.octreeGlobe == rc.globe) {
+            return false; // the current octree is up to date
+        }
+
+        return this.pendingBuild == null || this.pendingBuild.globe != rc.globe;
+    }
+
+    protected void buildOctree(RenderContext rc) {
+        BuildTask task = new BuildTask(rc.globe, this.latitudes, this.longitudes, this.altitudes, this.colors,
+            this.pointCount, this.chunkSize);
+
+        try {
+            WorldWind.taskService().execute(task);
+            this.pendingBuild = task;
+        } catch (RejectedExecutionException ignored) { // singleton task service is full; try again next frame
+        }
+    }
+
+    protected void octreeBuilt(BuildTask task) {
+        this.octree = task.octree;
+        this.octreeGlobe = task.globe;
+        this.pendingBuild = null;
+    }
+
+    protected BufferObject assembleBuffer(PointCloudOctree.Node node) {
+        int stride = (node.offsets != null) ? DrawablePointCloud.OFFSET_VERTEX_STRIDE : DrawablePointCloud.VERTEX_STRIDE;
+        int size = node.pointCount * stride;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        float[] points = node.points;
+        float[] offsets = node.offsets;
+        int[] colors = node.colors;
+
+        for (int idx = 0, k = 0; idx < node.pointCount; idx++, k += 3) {
+            int argb = colors[idx];
+            buffer.putFloat(points[k]);
+            buffer.putFloat(points[k + 1]);
+            buffer.putFloat(points[k + 2]);
+            if (offsets != null) {
+                buffer.putFloat(offsets[k]);
+                buffer.putFloat(offsets[k + 1]);
+                buffer.putFloat(offsets[k + 2]);
+            }
+            buffer.put((byte) (argb >> 16)); // red
+            buffer.put((byte) (argb >> 8)); // green
+            buffer.put((byte) argb); // blue
+            buffer.put((byte) (argb >>> 24)); // alpha
+        }
+
+        return new BufferObject(GLES20.GL_ARRAY_BUFFER, size, buffer.rewind());
+    }
+
+    /**
+     * Builds a point cloud's octree on a World Wind task service thread. Points are converted to Cartesian coordinates
+     * at their altitude, and each point's offset is the surface normal scaled by the point's altitude, such that an
+     * offset scale of the vertical exaggeration minus one displaces the point to its exaggerated altitude.
+     */
+    protected static class BuildTask implements Runnable {
+
+        public Globe globe;
+
+        public double[] latitudes;
+
+        public double[] longitudes;
+
+        public double[] altitudes;
+
+        public int[] colors;
+
+        public int count;
+
+        public int chunkSize;
+
+        public volatile PointCloudOctree octree;
+
+        public volatile boolean failed;
+
+        public BuildTask(Globe globe, double[] latitudes, double[] longitudes, double[] altitudes, int[] colors,
+                         int count, int chunkSize) {
+            this.globe = globe;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.altitudes = altitudes;
+            this.colors = colors;
+            this.count = count;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void run() {
+            try {
+                double[] x = new double[this.count];
+                double[] y = new double[this.count];
+                double[] z = new double[this.count];
+                this.globe.geographicToCartesian(this.latitudes, this.longitudes, this.altitudes, this.count, x, y, z);
+
+                float[] offsets = null;
+                if (this.altitudes != null) {
+                    offsets = new float[this.count * 3];
+                    Vec3 normal = new Vec3();
+                    for (int idx = 0, k = 0; idx < this.count; idx++) {
+                        this.globe.geographicToCartesianNormal(this.latitudes[idx], this.longitudes[idx], normal);
+                        double altitude = this.altitudes[idx];
+                        offsets[k++] = (float) (normal.x * altitude);
+                        offsets[k++] = (float) (normal.y * altitude);
+                        offsets[k++] = (float) (normal.z * altitude);
+                    }
+                }
+
+                this.octree = new PointCloudOctree(x, y, z, offsets, this.colors, this.count, this.chunkSize);
+                WorldWind.requestRedraw();
+            } catch (Throwable logged) { // includes running out of memory for large point clouds
+                Logger.log(Logger.ERROR, "Exception building point cloud octree", logged);
+                this.failed = true;
+            }
+        }
+    }
+}
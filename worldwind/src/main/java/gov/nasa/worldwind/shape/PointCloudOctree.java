@@ -0,0 +1,523 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import java.util.List;
+import java.util.Random;
+
+import gov.nasa.worldwind.geom.BoundingBox;
+import gov.nasa.worldwind.geom.Frustum;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.util.Logger;
+
+/**
+ * Level of detail octree over a set of Cartesian points. Each node holds a chunk of at most a fixed number of points,
+ * stored as packed floats relative to the node's origin and suitable for upload as a single vertex buffer object. An
+ * interior node holds a random sample of the points in its volume, and its children hold the remaining points. Drawing
+ * a node together with its ancestors therefore draws a uniformly thinned version of the points in the node's volume,
+ * becoming denser as more levels are drawn.
+ * <p/>
+ * Nodes are selected by screen-space error: a node's children are selected when the node's average point spacing,
+ * projected to the screen, exceeds a specified number of pixels.
+ * <p/>
+ * Points may optionally have a Cartesian offset, displacing each point by its offset times a scale factor shared by
+ * every point. Changing the scale with {@link #setOffsetScale(double)} recomputes the node bounds without rebuilding the
+ * octree, allowing offsets along the surface normal to apply vertical exaggeration at draw time.
+ */
+public class PointCloudOctree {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    protected static final int MAX_DEPTH = 20;
+
+    protected Node root;
+
+    protected int pointCount;
+
+    protected int nodeCount;
+
+    protected double offsetScale;
+
+    private float[] scratchCorners = new float[24];
+
+    private Vec3 scratchPoint = new Vec3();
+
+    /**
+     * Constructs an octree over the specified points, without point offsets. The arrays are read during construction
+     * only, and are not retained.
+     *
+     * @param x         the points' X coordinates
+     * @param y         the points' Y coordinates
+     * @param z         the points' Z coordinates
+     * @param colors    the points' colors as 32-bit ARGB integers, or null to indicate opaque white
+     * @param count     the number of points
+     * @param chunkSize the maximum number of points held by each node
+     *
+     * @throws IllegalArgumentException If any coordinate array is null or shorter than count, if the colors array is
+     *                                  shorter than count, if the count is negative, or if the chunk size is less than
+     *                                  1
+     */
+    public PointCloudOctree(double[] x, double[] y, double[] z, int[] colors, int count, int chunkSize) {
+        this(x, y, z, null, colors, count, chunkSize);
+    }
+
+    /**
+     * Constructs an octree over the specified points. The arrays are read during construction only, and are not
+     * retained. The octree's offset scale is initially 0, placing each point at its specified coordinates.
+     *
+     * @param x         the points' X coordinates
+     * @param y         the points' Y coordinates
+     * @param z         the points' Z coordinates
+     * @param offsets   the points' offsets as interleaved X, Y and Z coordinates, or null to indicate no offsets
+     * @param colors    the points' colors as 32-bit ARGB integers, or null to indicate opaque white
+     * @param count     the number of points
+     * @param chunkSize the maximum number of points held by each node
+     *
+     * @throws IllegalArgumentException If any coordinate array is null or shorter than count, if the offsets or colors
+     *                                  array is shorter than count, if the count is negative, or if the chunk size is
+     *                                  less than 1
+     */
+    public PointCloudOctree(double[] x, double[] y, double[] z, float[] offsets, int[] colors, int count,
+                            int chunkSize) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudOctree", "constructor", "invalidCount"));
+        }
+
+        if (x == null || y == null || z == null || x.length < count || y.length < count || z.length < count
+            || (offsets != null && offsets.length < count * 3) || (colors != null && colors.length < count)) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudOctree", "constructor", "missingArray"));
+        }
+
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudOctree", "constructor", "invalidCapacity"));
+        }
+
+        this.pointCount = count;
+
+        if (count > 0) {
+            int[] indices = new int[count];
+            for (int idx = 0; idx < count; idx++) {
+                indices[idx] = idx;
+            }
+
+            // Use a fixed seed so that building the same points always produces the same octree.
+            Builder builder = new Builder(x, y, z, offsets, colors, indices, chunkSize, new Random(count));
+            this.root = this.buildNode(builder, 0, count, 0);
+        }
+    }
+
+    /**
+     * @return the root node, or null if this octree has no points
+     */
+    public Node getRoot() {
+        return this.root;
+    }
+
+    /**
+     * @return the number of points in this octree
+     */
+    public int getPointCount() {
+        return this.pointCount;
+    }
+
+    /**
+     * @return the number of nodes in this octree
+     */
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * @return the scale applied to each point's offset
+     */
+    public double getOffsetScale() {
+        return this.offsetScale;
+    }
+
+    /**
+     * Sets the scale applied to each point's offset, and recomputes the bounds of every node to contain the displaced
+     * points. Nodes hold their points without offsets applied; the scale must be applied to the offsets when the points
+     * are drawn.
+     *
+     * @param offsetScale the scale applied to each point's offset
+     */
+    public void setOffsetScale(double offsetScale) {
+        if (this.offsetScale != offsetScale) {
+            this.offsetScale = offsetScale;
+            if (this.root != null) {
+                this.scaleNode(this.root, offsetScale);
+            }
+        }
+    }
+
+    /**
+     * Selects the nodes to draw for a specified view. A node is selected when it intersects the frustum, and its
+     * children are considered when the node's point spacing at its distance from the eye point exceeds the maximum
+     * screen-space error. Nodes are added to the result in depth-first order, parents before their children.
+     *
+     * @param frustum          the view frustum
+     * @param eyePoint         the Cartesian eye point
+     * @param pixelSizeFactor  the size of a pixel in meters at a distance of one meter from the eye point
+     * @param maxErrorPixels   the maximum point spacing in pixels before a node's children are selected
+     * @param result           the list to receive the selected nodes
+     *
+     * @return the number of points in the selected nodes
+     *
+     * @throws IllegalArgumentException If any argument is null
+     */
+    public long selectNodes(Frustum frustum, Vec3 eyePoint, double pixelSizeFactor, double maxErrorPixels,
+                            List<Node> result) {
+        if (frustum == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudOctree", "selectNodes", "missingFrustum"));
+        }
+
+        if (eyePoint == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudOctree", "selectNodes", "missingPoint"));
+        }
+
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "PointCloudOctree", "selectNodes", "missingResult"));
+        }
+
+        if (this.root == null) {
+            return 0;
+        }
+
+        // Refine a node when spacing / (distance * pixelSizeFactor) > maxErrorPixels. Compare against the product
+        // rather than dividing for each node.
+        double threshold = pixelSizeFactor * maxErrorPixels;
+        return this.selectNode(this.root, frustum, eyePoint, threshold, BoundingBox.FRUSTUM_PLANES, result);
+    }
+
+    protected long selectNode(Node node, Frustum frustum, Vec3 eyePoint, double threshold, int planeMask,
+                              List<Node> result) {
+        // Children are contained by their parent's bounds, so planes the parent is entirely inside need not be tested.
+        planeMask = node.bounds.intersectsFrustum(frustum, planeMask);
+        if (planeMask == BoundingBox.FRUSTUM_OUTSIDE) {
+            return 0;
+        }
+
+        result.add(node);
+        long count = node.pointCount;
+
+        if (node.children != null && node.spacing > node.bounds.distanceTo(eyePoint) * threshold) {
+            for (Node child : node.children) {
+                if (child != null) {
+                    count += this.selectNode(child, frustum, eyePoint, threshold, planeMask, result);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    protected void scaleNode(Node node, double offsetScale) {
+        this.assignBounds(node, offsetScale);
+
+        if (node.children != null) {
+            for (Node child : node.children) {
+                if (child != null) {
+                    this.scaleNode(child, offsetScale);
+                }
+            }
+        }
+    }
+
+    protected Node buildNode(Builder builder, int start, int end, int depth) {
+        double[] x = builder.x, y = builder.y, z = builder.z;
+        float[] offsets = builder.offsets;
+        int[] indices = builder.indices;
+
+        // Compute the axis-aligned extent of the points in this node's volume.
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int idx = start; idx < end; idx++) {
+            int i = indices[idx];
+            if (minX > x[i]) minX = x[i];
+            if (maxX < x[i]) maxX = x[i];
+            if (minY > y[i]) minY = y[i];
+            if (maxY < y[i]) maxY = y[i];
+            if (minZ > z[i]) minZ = z[i];
+            if (maxZ < z[i]) maxZ = z[i];
+        }
+
+        Node node = new Node();
+        node.depth = depth;
+        node.origin.set((minX + maxX) * 0.5, (minY + maxY) * 0.5, (minZ + maxZ) * 0.5);
+        node.extent = new double[]{minX, minY, minZ, maxX, maxY, maxZ};
+        this.nodeCount++;
+
+        // Compute the axis-aligned extent of the offsets in this node's volume. Scaled offsets displace the points by
+        // at most the scaled offset extent along each axis.
+        if (offsets != null) {
+            float[] offsetExtent = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+            for (int idx = start; idx < end; idx++) {
+                for (int axis = 0, k = indices[idx] * 3; axis < 3; axis++, k++) {
+                    if (offsetExtent[axis] > offsets[k]) offsetExtent[axis] = offsets[k];
+                    if (offsetExtent[axis + 3] < offsets[k]) offsetExtent[axis + 3] = offsets[k];
+                }
+            }
+            node.offsetExtent = offsetExtent;
+        }
+
+        this.assignBounds(node, this.offsetScale);
+
+        // Leaf nodes hold every point in their volume. Interior nodes hold a random sample of the points, moved to the
+        // front of the range with a partial Fisher-Yates shuffle, and pass the remainder to their children.
+        int count = end - start;
+        boolean leaf = count <= builder.chunkSize || depth >= MAX_DEPTH;
+        int sampleCount = leaf ? count : builder.chunkSize;
+        if (!leaf) {
+            for (int idx = start, last = start + sampleCount; idx < last; idx++) {
+                int swap = idx + builder.random.nextInt(end - idx);
+                int tmp = indices[idx];
+                indices[idx] = indices[swap];
+                indices[swap] = tmp;
+            }
+        }
+
+        this.assignPoints(builder, node, start, sampleCount);
+
+        if (!leaf) {
+            // Points are distributed over the node's area rather than its volume, as point clouds typically sample
+            // surfaces. Estimate the sample's spacing accordingly.
+            double diagonal = Math.sqrt((maxX - minX) * (maxX - minX) + (maxY - minY) * (maxY - minY) + (maxZ - minZ) * (maxZ - minZ));
+            node.spacing = diagonal / Math.sqrt(sampleCount);
+            node.children = new Node[8];
+
+            // Partition the remaining points into octants about the node's center, first by X, then each half by Y,
+            // then each quarter by Z.
+            int[] bounds = builder.octantBounds(depth);
+            bounds[0] = start + sampleCount;
+            bounds[8] = end;
+            bounds[4] = partition(indices, x, node.origin.x, bounds[0], bounds[8]);
+            bounds[2] = partition(indices, y, node.origin.y, bounds[0], bounds[4]);
+            bounds[6] = partition(indices, y, node.origin.y, bounds[4], bounds[8]);
+            for (int o = 0; o < 8; o += 2) {
+                bounds[o + 1] = partition(indices, z, node.origin.z, bounds[o], bounds[o + 2]);
+            }
+
+            for (int o = 0; o < 8; o++) {
+                if (bounds[o] < bounds[o + 1]) {
+                    node.children[o] = this.buildNode(builder, bounds[o], bounds[o + 1], depth + 1);
+                }
+            }
+        }
+
+        return node;
+    }
+
+    protected void assignBounds(Node node, double offsetScale) {
+        double[] extent = node.extent;
+        float[] offsetExtent = node.offsetExtent;
+        double[] origin = {node.origin.x, node.origin.y, node.origin.z};
+        float[] corners = this.scratchCorners;
+
+        for (int c = 0, k = 0; c < 8; c++) {
+            for (int axis = 0; axis < 3; axis++) {
+                boolean max = (c & (1 << axis)) != 0;
+                double value = extent[max ? axis + 3 : axis];
+                if (offsetExtent != null) {
+                    double lo = offsetExtent[axis] * offsetScale, hi = offsetExtent[axis + 3] * offsetScale;
+                    value += max ? Math.max(lo, hi) : Math.min(lo, hi);
+                }
+                corners[k++] = (float) (value - origin[axis]);
+            }
+        }
+
+        node.bounds.setToPoints(corners, corners.length, 3);
+        node.bounds.translate(node.origin.x, node.origin.y, node.origin.z);
+    }
+
+    protected void assignPoints(Builder builder, Node node, int start, int count) {
+        double[] x = builder.x, y = builder.y, z = builder.z;
+        float[] offsets = builder.offsets;
+        int[] indices = builder.indices, colors = builder.colors;
+        double ox = node.origin.x, oy = node.origin.y, oz = node.origin.z;
+
+        node.pointCount = count;
+        node.points = new float[count * 3];
+        node.offsets = (offsets != null) ? new float[count * 3] : null;
+        node.colors = new int[count];
+
+        for (int idx = 0, k = 0; idx < count; idx++) {
+            int i = indices[start + idx];
+            if (offsets != null) {
+                System.arraycopy(offsets, i * 3, node.offsets, k, 3);
+            }
+            node.points[k++] = (float) (x[i] - ox);
+            node.points[k++] = (float) (y[i] - oy);
+            node.points[k++] = (float) (z[i] - oz);
+            node.colors[idx] = (colors != null) ? colors[i] : 0xFFFFFFFF;
+        }
+    }
+
+    /**
+     * Partitions a range of point indices in place such that points with a coordinate less than a split value precede
+     * those greater than or equal to the split value.
+     *
+     * @return the index of the first point greater than or equal to the split value
+     */
+    protected static int partition(int[] indices, double[] coords, double split, int start, int end) {
+        int lo = start, hi = end - 1;
+        while (lo <= hi) {
+            if (coords[indices[lo]] < split) {
+                lo++;
+            } else {
+                int tmp = indices[lo];
+                indices[lo] = indices[hi];
+                indices[hi--] = tmp;
+            }
+        }
+
+        return lo;
+    }
+
+    public static class Node {
+
+        /**
+         * The node's depth in the octree, 0 for the root.
+         */
+        protected int depth;
+
+        /**
+         * Bounds of the points in this node and its descendants, with offsets applied at the octree's offset scale.
+         */
+        protected BoundingBox bounds = new BoundingBox();
+
+        /**
+         * Axis-aligned extent of the points in this node and its descendants without offsets, as the minimum X, Y and
+         * Z coordinates followed by the maximum X, Y and Z coordinates.
+         */
+        protected double[] extent;
+
+        /**
+         * Axis-aligned extent of the offsets in this node and its descendants, in the same order as the extent. Null
+         * when the octree has no offsets.
+         */
+        protected float[] offsetExtent;
+
+        /**
+         * The Cartesian point this node's point coordinates are relative to.
+         */
+        protected Vec3 origin = new Vec3();
+
+        /**
+         * The number of points held by this node.
+         */
+        protected int pointCount;
+
+        /**
+         * This node's points as packed X, Y and Z coordinates relative to the origin.
+         */
+        protected float[] points;
+
+        /**
+         * This node's point offsets as packed X, Y and Z coordinates, or null when the octree has no offsets.
+         */
+        protected float[] offsets;
+
+        /**
+         * This node's point colors as 32-bit ARGB integers.
+         */
+        protected int[] colors;
+
+        /**
+         * The approximate distance between this node's points in meters, or 0 if this node has no children.
+         */
+        protected double spacing;
+
+        /**
+         * This node's eight octants, each of which may be null. Null when this node is a leaf.
+         */
+        protected Node[] children;
+
+        /**
+         * Key identifying this node's vertex buffer object in the render resource cache.
+         */
+        protected Object bufferKey = new Object();
+
+        public int getDepth() {
+            return this.depth;
+        }
+
+        public BoundingBox getBounds() {
+            return this.bounds;
+        }
+
+        public Vec3 getOrigin() {
+            return this.origin;
+        }
+
+        public int getPointCount() {
+            return this.pointCount;
+        }
+
+        public float[] getPoints() {
+            return this.points;
+        }
+
+        public float[] getOffsets() {
+            return this.offsets;
+        }
+
+        public int[] getColors() {
+            return this.colors;
+        }
+
+        public double getSpacing() {
+            return this.spacing;
+        }
+
+        public Node[] getChildren() {
+            return this.children;
+        }
+    }
+
+    protected static class Builder {
+
+        public double[] x;
+
+        public double[] y;
+
+        public double[] z;
+
+        public float[] offsets;
+
+        public int[] colors;
+
+        public int[] indices;
+
+        public int chunkSize;
+
+        public Random random;
+
+        private int[][] octantBounds = new int[MAX_DEPTH + 1][9];
+
+        public Builder(double[] x, double[] y, double[] z, float[] offsets, int[] colors, int[] indices, int chunkSize,
+                       Random random) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.offsets = offsets;
+            this.colors = colors;
+            this.indices = indices;
+            this.chunkSize = chunkSize;
+            this.random = random;
+        }
+
+        public int[] octantBounds(int depth) {
+            return this.octantBounds[depth];
+        }
+    }
+}
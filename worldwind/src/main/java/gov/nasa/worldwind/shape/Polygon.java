@@ -19,7 +19,6 @@ import gov.nasa.worldwind.draw.DrawShapeState;
 import gov.nasa.worldwind.draw.Drawable;
 import gov.nasa.worldwind.draw.DrawableShape;
 import gov.nasa.worldwind.draw.DrawableSurfaceShape;
-import gov.nasa.worldwind.geom.Location;
 import gov.nasa.worldwind.geom.Matrix3;
 import gov.nasa.worldwind.geom.Matrix4;
 import gov.nasa.worldwind.geom.Position;
@@ -29,6 +28,7 @@ import gov.nasa.worldwind.render.BufferObject;
 import gov.nasa.worldwind.render.ImageOptions;
 import gov.nasa.worldwind.render.RenderContext;
 import gov.nasa.worldwind.render.Texture;
+import gov.nasa.worldwind.util.EarClipTriangulator;
 import gov.nasa.worldwind.util.FloatArray;
 import gov.nasa.worldwind.util.Logger;
 import gov.nasa.worldwind.util.Pool;
@@ -95,6 +95,13 @@ public class Polygon extends AbstractShape {
         }
     };
 
+    protected EarClipTriangulator.Callback triangulatorCallback = new EarClipTriangulator.Callback() {
+        @Override
+        public void triangle(int v0, int v1, int v2, boolean edge0, boolean edge1, boolean edge2) {
+            addTriangle(v0, v1, v2, edge0, edge1, edge2);
+        }
+    };
+
     protected static final int VERTEX_ORIGINAL = 0;
 
     protected static final int VERTEX_INTERMEDIATE = 1;
@@ -111,9 +118,7 @@ public class Polygon extends AbstractShape {
 
     private Matrix4 modelToLocal = new Matrix4();
 
-    private Location intermediateLocation = new Location();
-
-    private double[] tessCoords = new double[3];
+    private double[] intermediateLocations = new double[0];
 
     private int[] tessVertices = new int[3];
 
@@ -433,13 +438,9 @@ public class Polygon extends AbstractShape {
 
         this.determineShapeOrigin(rc);
 
-        GLUtessellator tess = rc.getTessellator();
-        GLU.gluTessNormal(tess, 0, 0, 1);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, this.tessCallback);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, this.tessCallback);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, this.tessCallback);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_ERROR_DATA, this.tessCallback);
-        GLU.gluTessBeginPolygon(tess, rc);
+        // Assemble the boundary vertices, accumulating each boundary's geographic coordinates in the triangulator.
+        EarClipTriangulator triangulator = rc.getTriangulator();
+        triangulator.beginPolygon();
 
         for (int boundaryIdx = 0, boundaryCount = this.boundaries.size(); boundaryIdx < boundaryCount; boundaryIdx++) {
 
@@ -448,7 +449,7 @@ public class Polygon extends AbstractShape {
                 continue; // no boundary positions to assemble
             }
 
-            GLU.gluTessBeginContour(tess);
+            triangulator.beginContour();
 
             // Add the boundary's first vertex.
             Position begin = positions.get(0);
@@ -468,15 +469,13 @@ public class Polygon extends AbstractShape {
             if (!begin.equals(positions.get(0))) {
                 this.addIntermediateVertices(rc, begin, positions.get(0));
             }
-
-            GLU.gluTessEndContour(tess);
         }
 
-        GLU.gluTessEndPolygon(tess);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, null);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, null);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, null);
-        GLU.gluTessCallback(tess, GLU.GLU_TESS_ERROR_DATA, null);
+        // Triangulate simple polygons by ear clipping. Polygons that intersect themselves or are otherwise degenerate
+        // are tessellated by the general-purpose GLU tessellator.
+        if (!triangulator.triangulate(this.triangulatorCallback)) {
+            this.tessellateBoundaries(rc, triangulator);
+        }
 
         // Compute the shape's bounding box or bounding sector from its assembled coordinates.
         if (this.isSurfaceShape) {
@@ -490,6 +489,22 @@ public class Polygon extends AbstractShape {
         }
     }
 
+    protected void tessellateBoundaries(RenderContext rc, EarClipTriangulator triangulator) {
+        GLUtessellator tess = rc.getTessellator();
+        GLU.gluTessNormal(tess, 0, 0, 1);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, this.tessCallback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, this.tessCallback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, this.tessCallback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_ERROR_DATA, this.tessCallback);
+        GLU.gluTessBeginPolygon(tess, rc);
+        triangulator.tessellateContours(tess);
+        GLU.gluTessEndPolygon(tess);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, null);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, null);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, null);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_ERROR_DATA, null);
+    }
+
     protected void addIntermediateVertices(RenderContext rc, Position begin, Position end) {
         if (this.pathType == WorldWind.LINEAR) {
             return; // suppress intermediate vertices when the path type is linear
@@ -499,37 +514,24 @@ public class Polygon extends AbstractShape {
             return; // suppress intermediate vertices when configured to do so
         }
 
-        double azimuth = 0;
-        double length = 0;
-        if (this.pathType == WorldWind.GREAT_CIRCLE) {
-            azimuth = begin.greatCircleAzimuth(end);
-            length = begin.greatCircleDistance(end);
-        } else if (this.pathType == WorldWind.RHUMB_LINE) {
-            azimuth = begin.rhumbAzimuth(end);
-            length = begin.rhumbDistance(end);
+        // Compute the intermediate locations for the entire segment at once. Skip degenerate segments.
+        int count = this.maximumIntermediatePoints;
+        if (this.intermediateLocations.length < count * 2) {
+            this.intermediateLocations = new double[count * 2];
         }
 
+        double[] locations = this.intermediateLocations;
+        double length = begin.intermediateLocations(end, this.pathType, count, locations, 0);
         if (length < NEAR_ZERO_THRESHOLD) {
             return; // suppress intermediate vertices when the edge length less than a millimeter (on Earth)
         }
 
-        int numSubsegments = this.maximumIntermediatePoints + 1;
-        double deltaDist = length / numSubsegments;
+        int numSubsegments = count + 1;
         double deltaAlt = (end.altitude - begin.altitude) / numSubsegments;
-        double dist = deltaDist;
         double alt = begin.altitude + deltaAlt;
 
-        for (int idx = 1; idx < numSubsegments; idx++) {
-            Location loc = this.intermediateLocation;
-
-            if (this.pathType == WorldWind.GREAT_CIRCLE) {
-                begin.greatCircleLocation(azimuth, dist, loc);
-            } else if (this.pathType == WorldWind.RHUMB_LINE) {
-                begin.rhumbLocation(azimuth, dist, loc);
-            }
-
-            this.addVertex(rc, loc.latitude, loc.longitude, alt, VERTEX_INTERMEDIATE /*type*/);
-            dist += deltaDist;
+        for (int idx = 0, len = count * 2; idx < len; idx += 2) {
+            this.addVertex(rc, locations[idx], locations[idx + 1], alt, VERTEX_INTERMEDIATE /*type*/);
             alt += deltaAlt;
         }
     }
@@ -540,10 +542,7 @@ public class Polygon extends AbstractShape {
         Vec3 texCoord2d = this.texCoord2d.set(point).multiplyByMatrix(this.modelToLocal);
 
         if (type != VERTEX_COMBINED) {
-            this.tessCoords[0] = (float) longitude;
-            this.tessCoords[1] = (float) latitude;
-            this.tessCoords[2] = (float) altitude;
-            GLU.gluTessVertex(rc.getTessellator(), this.tessCoords, 0 /*coords_offset*/, vertex);
+            rc.getTriangulator().addVertex((float) longitude, (float) latitude, (float) altitude, vertex);
         }
 
         this.texCoord1d += point.distanceTo(this.prevPoint);
@@ -629,34 +628,35 @@ public class Polygon extends AbstractShape {
             this.tessVertexCount = 0; // reset the vertex count and process one triangle
         }
 
-        int v0 = this.tessVertices[0];
-        int v1 = this.tessVertices[1];
-        int v2 = this.tessVertices[2];
+        this.addTriangle(this.tessVertices[0], this.tessVertices[1], this.tessVertices[2],
+            this.tessEdgeFlags[0], this.tessEdgeFlags[1], this.tessEdgeFlags[2]);
+    }
 
+    protected void addTriangle(int v0, int v1, int v2, boolean edge0, boolean edge1, boolean edge2) {
         this.topElements.add((short) v0).add((short) v1).add((short) v2);
 
-        if (this.tessEdgeFlags[0] && this.extrude && !this.isSurfaceShape) {
+        if (edge0 && this.extrude && !this.isSurfaceShape) {
             this.sideElements.add((short) v0).add((short) (v0 + 1)).add((short) v1);
             this.sideElements.add((short) v1).add((short) (v0 + 1)).add((short) (v1 + 1));
         }
-        if (this.tessEdgeFlags[1] && this.extrude && !this.isSurfaceShape) {
+        if (edge1 && this.extrude && !this.isSurfaceShape) {
             this.sideElements.add((short) v1).add((short) (v1 + 1)).add((short) v2);
             this.sideElements.add((short) v2).add((short) (v1 + 1)).add((short) (v2 + 1));
         }
-        if (this.tessEdgeFlags[2] && this.extrude && !this.isSurfaceShape) {
+        if (edge2 && this.extrude && !this.isSurfaceShape) {
             this.sideElements.add((short) v2).add((short) (v2 + 1)).add((short) v0);
             this.sideElements.add((short) v0).add((short) (v2 + 1)).add((short) (v0 + 1));
         }
 
-        if (this.tessEdgeFlags[0]) {
+        if (edge0) {
             this.outlineElements.add((short) v0);
             this.outlineElements.add((short) v1);
         }
-        if (this.tessEdgeFlags[1]) {
+        if (edge1) {
             this.outlineElements.add((short) v1);
             this.outlineElements.add((short) v2);
         }
-        if (this.tessEdgeFlags[2]) {
+        if (edge2) {
             this.outlineElements.add((short) v2);
             this.outlineElements.add((short) v0);
         }
@@ -10,6 +10,7 @@ import java.util.List;
 
 import gov.nasa.worldwind.draw.Drawable;
 import gov.nasa.worldwind.draw.DrawableSurfaceTexture;
+import gov.nasa.worldwind.geom.BoundingBox;
 import gov.nasa.worldwind.geom.Matrix3;
 import gov.nasa.worldwind.render.AbstractRenderable;
 import gov.nasa.worldwind.render.ImageOptions;
@@ -131,7 +132,7 @@ public class TiledSurfaceImage extends AbstractRenderable {
         }
 
         for (int idx = 0, len = this.topLevelTiles.size(); idx < len; idx++) {
-            this.addTileOrDescendants(rc, (ImageTile) this.topLevelTiles.get(idx));
+            this.addTileOrDescendants(rc, (ImageTile) this.topLevelTiles.get(idx), BoundingBox.FRUSTUM_PLANES);
         }
     }
 
@@ -142,9 +143,16 @@ public class TiledSurfaceImage extends AbstractRenderable {
         }
     }
 
-    protected void addTileOrDescendants(RenderContext rc, ImageTile tile) {
-        if (!tile.intersectsSector(this.levelSet.sector) || !tile.intersectsFrustum(rc, rc.frustum)) {
-            return; // ignore the tile and its descendants if it's not needed or not visible
+    protected void addTileOrDescendants(RenderContext rc, ImageTile tile, int planeMask) {
+        if (!tile.intersectsSector(this.levelSet.sector)) {
+            return; // ignore the tile and its descendants if it's not needed
+        }
+
+        // Test the tile against the frustum planes its parent intersects. Planes the tile is entirely inside are omitted
+        // from the mask passed to its descendants, and subtrees entirely inside the frustum are not tested at all.
+        planeMask = tile.intersectsFrustum(rc, rc.frustum, planeMask);
+        if (planeMask == BoundingBox.FRUSTUM_OUTSIDE) {
+            return; // ignore the tile and its descendants if it's not visible
         }
 
         if (tile.level.isLastLevel() || !tile.mustSubdivide(rc, this.detailControl)) {
@@ -165,7 +173,7 @@ public class TiledSurfaceImage extends AbstractRenderable {
         }
 
         for (Tile child : tile.subdivideToCache(this.tileFactory, this.tileCache, 4)) { // each tile has a cached size of 1
-            this.addTileOrDescendants(rc, (ImageTile) child); // recursively process the tile's children
+            this.addTileOrDescendants(rc, (ImageTile) child, planeMask); // recursively process the tile's children
         }
 
         this.ancestorTile = currentAncestorTile; // restore the last fallback tile, even if it was null
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that counts the number of bytes read from an underlying input stream. Skipped bytes are counted as read.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    protected long count;
+
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * @return the number of bytes read or skipped since this stream was constructed
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            this.count++;
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        int readCount = super.read(buffer, offset, count);
+        if (readCount > 0) {
+            this.count += readCount;
+        }
+
+        return readCount;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipCount = super.skip(count);
+        this.count += skipCount;
+        return skipCount;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false; // resetting to a mark would count the same bytes twice
+    }
+}
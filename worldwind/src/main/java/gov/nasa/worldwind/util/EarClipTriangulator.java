@@ -0,0 +1,848 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.Arrays;
+
+import gov.nasa.worldwind.util.glu.GLU;
+import gov.nasa.worldwind.util.glu.GLUtessellator;
+
+/**
+ * Ear-clipping triangulator for simple planar polygons with holes. EarClipTriangulator is a fast path for the common
+ * case handled by the general-purpose GLU tessellator: a single outer boundary, optionally with non-overlapping holes,
+ * none of which intersect or touch one another. Holes are bridged to the outer boundary, and the resulting boundary is
+ * triangulated by clipping ears. Large boundaries use a z-order curve to limit each ear test to nearby vertices.
+ * <p/>
+ * Polygons are specified one contour at a time, the first contour being the outer boundary. The triangulate method
+ * returns false without producing triangles when the polygon fails the simplicity check or is otherwise degenerate, in
+ * which case the caller should tessellate the contours with GLU instead; see {@link #tessellateContours}. Triangles are
+ * produced in counter-clockwise order with edge flags equivalent to those produced by the GLU tessellator, indicating
+ * whether each triangle edge lies on a polygon boundary.
+ * <p/>
+ * EarClipTriangulator retains its storage between polygons and is not thread safe.
+ */
+public class EarClipTriangulator {
+
+    /**
+     * Receives the triangles produced by an EarClipTriangulator.
+     */
+    public interface Callback {
+
+        /**
+         * Notifies the callback of a counter-clockwise triangle.
+         *
+         * @param v0    the first vertex index
+         * @param v1    the second vertex index
+         * @param v2    the third vertex index
+         * @param edge0 true if the edge from v0 to v1 is a boundary edge
+         * @param edge1 true if the edge from v1 to v2 is a boundary edge
+         * @param edge2 true if the edge from v2 to v0 is a boundary edge
+         */
+        void triangle(int v0, int v1, int v2, boolean edge0, boolean edge1, boolean edge2);
+    }
+
+    protected static final int HASH_THRESHOLD = 80;
+
+    protected static final int SWEEP_BUDGET = 64;
+
+    protected double[] coords = new double[48];
+
+    protected int[] indices = new int[16];
+
+    protected int vertexCount;
+
+    protected int[] contourStarts = new int[4];
+
+    protected int contourCount;
+
+    protected double[] nodeX = new double[0];
+
+    protected double[] nodeY = new double[0];
+
+    protected int[] nodeVertex = new int[0];
+
+    protected int[] prev = new int[0];
+
+    protected int[] next = new int[0];
+
+    protected boolean[] boundary = new boolean[0];
+
+    protected int[] z = new int[0];
+
+    protected int[] prevZ = new int[0];
+
+    protected int[] nextZ = new int[0];
+
+    protected int nodeCount;
+
+    protected boolean hashed;
+
+    protected int[] ringStarts = new int[4];
+
+    protected int[] holes = new int[0];
+
+    protected double[] holeLeftX = new double[0];
+
+    protected int[] active = new int[0];
+
+    protected long[] sortKeys = new long[0];
+
+    protected int[] triangles = new int[48];
+
+    protected int triangleCount;
+
+    protected double minX;
+
+    protected double minY;
+
+    protected double invSize;
+
+    public EarClipTriangulator() {
+    }
+
+    /**
+     * Discards the current polygon's contours and prepares to receive a new polygon.
+     */
+    public void beginPolygon() {
+        this.vertexCount = 0;
+        this.contourCount = 0;
+        this.triangleCount = 0;
+    }
+
+    /**
+     * Begins a polygon contour. The first contour is the polygon's outer boundary, and subsequent contours are holes.
+     * Contours may be specified in either winding order, and need not be explicitly closed.
+     */
+    public void beginContour() {
+        if (this.contourCount == this.contourStarts.length) {
+            this.contourStarts = Arrays.copyOf(this.contourStarts, this.contourCount << 1);
+        }
+
+        this.contourStarts[this.contourCount++] = this.vertexCount;
+    }
+
+    /**
+     * Adds a vertex to the current contour. The z coordinate is ignored by the triangulator, and is retained only for
+     * {@link #tessellateContours}.
+     *
+     * @param x     the vertex X coordinate
+     * @param y     the vertex Y coordinate
+     * @param z     the vertex Z coordinate
+     * @param index the vertex index reported in triangles
+     */
+    public void addVertex(double x, double y, double z, int index) {
+        if (this.vertexCount == this.indices.length) {
+            this.indices = Arrays.copyOf(this.indices, this.vertexCount << 1);
+            this.coords = Arrays.copyOf(this.coords, (this.vertexCount << 1) * 3);
+        }
+
+        int offset = this.vertexCount * 3;
+        this.coords[offset] = x;
+        this.coords[offset + 1] = y;
+        this.coords[offset + 2] = z;
+        this.indices[this.vertexCount++] = index;
+    }
+
+    /**
+     * Triangulates the current polygon, passing each triangle to the specified callback. Triangles are produced only
+     * when the whole polygon is triangulated successfully.
+     *
+     * @param callback the callback to receive triangles
+     *
+     * @return true if the polygon was triangulated, false if the polygon must be tessellated with GLU
+     *
+     * @throws IllegalArgumentException If the callback is null
+     */
+    public boolean triangulate(Callback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "EarClipTriangulator", "triangulate", "missingCallback"));
+        }
+
+        this.triangleCount = 0;
+        if (this.contourCount == 0) {
+            return true; // nothing to triangulate
+        }
+
+        if (!this.assembleRings() || !this.isSimple() || !this.eliminateHoles() || !this.clipEars()) {
+            this.triangleCount = 0;
+            return false;
+        }
+
+        for (int idx = 0, len = this.triangleCount * 4; idx < len; idx += 4) {
+            int flags = this.triangles[idx + 3];
+            callback.triangle(this.triangles[idx], this.triangles[idx + 1], this.triangles[idx + 2],
+                (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0);
+        }
+
+        return true;
+    }
+
+    /**
+     * Passes the current polygon's contours to a GLU tessellator, as though each contour and vertex had been specified
+     * directly. This must be called between calls to gluTessBeginPolygon and gluTessEndPolygon. Vertex data is the
+     * vertex index as an Integer.
+     *
+     * @param tess the GLU tessellator to receive the contours
+     *
+     * @throws IllegalArgumentException If the tessellator is null
+     */
+    public void tessellateContours(GLUtessellator tess) {
+        if (tess == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "EarClipTriangulator", "tessellateContours", "missingTessellator"));
+        }
+
+        for (int contour = 0; contour < this.contourCount; contour++) {
+            GLU.gluTessBeginContour(tess);
+            for (int idx = this.contourStarts[contour], end = this.contourEnd(contour); idx < end; idx++) {
+                GLU.gluTessVertex(tess, this.coords, idx * 3, this.indices[idx]);
+            }
+            GLU.gluTessEndContour(tess);
+        }
+    }
+
+    protected int contourEnd(int contour) {
+        return (contour < this.contourCount - 1) ? this.contourStarts[contour + 1] : this.vertexCount;
+    }
+
+    /**
+     * Assembles each contour into a circular linked ring of nodes, discarding consecutive duplicate vertices. The outer
+     * ring is oriented counter-clockwise and holes are oriented clockwise, so the polygon interior is always to the
+     * left.
+     */
+    protected boolean assembleRings() {
+        int capacity = this.vertexCount + 2 * this.contourCount;
+        if (this.prev.length < capacity) {
+            this.nodeX = new double[capacity];
+            this.nodeY = new double[capacity];
+            this.nodeVertex = new int[capacity];
+            this.prev = new int[capacity];
+            this.next = new int[capacity];
+            this.boundary = new boolean[capacity];
+            this.z = new int[capacity];
+            this.prevZ = new int[capacity];
+            this.nextZ = new int[capacity];
+        }
+
+        if (this.ringStarts.length < this.contourCount) {
+            this.ringStarts = new int[this.contourCount];
+        }
+
+        this.nodeCount = 0;
+        for (int contour = 0; contour < this.contourCount; contour++) {
+            int first = this.nodeCount;
+            for (int idx = this.contourStarts[contour], end = this.contourEnd(contour); idx < end; idx++) {
+                double x = this.coords[idx * 3];
+                double y = this.coords[idx * 3 + 1];
+                if (this.nodeCount > first && x == this.nodeX[this.nodeCount - 1] && y == this.nodeY[this.nodeCount - 1]) {
+                    continue; // discard consecutive duplicate vertices
+                }
+
+                this.nodeX[this.nodeCount] = x;
+                this.nodeY[this.nodeCount] = y;
+                this.nodeVertex[this.nodeCount] = this.indices[idx];
+                this.nodeCount++;
+            }
+
+            if (this.nodeCount - first > 1 && this.nodeX[first] == this.nodeX[this.nodeCount - 1]
+                && this.nodeY[first] == this.nodeY[this.nodeCount - 1]) {
+                this.nodeCount--; // discard the explicit closing vertex
+            }
+
+            if (this.nodeCount - first < 3) {
+                return false; // degenerate contour
+            }
+
+            double area = 0;
+            for (int node = first, last = this.nodeCount - 1; node <= last; node++) {
+                int nextNode = (node < last) ? node + 1 : first;
+                area += (this.nodeX[node] * this.nodeY[nextNode] - this.nodeX[nextNode] * this.nodeY[node]);
+            }
+
+            if (area == 0) {
+                return false; // degenerate contour
+            }
+
+            // Link the ring in the orientation that places the polygon interior to the left of each edge.
+            boolean reverse = (contour == 0) == (area < 0);
+            for (int node = first, last = this.nodeCount - 1; node <= last; node++) {
+                int before = (node > first) ? node - 1 : last;
+                int after = (node < last) ? node + 1 : first;
+                this.prev[node] = reverse ? after : before;
+                this.next[node] = reverse ? before : after;
+                this.boundary[node] = true;
+            }
+
+            this.ringStarts[contour] = first;
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines whether the polygon's rings are simple, do not intersect or touch one another, and whether every hole
+     * lies inside the outer ring and outside every other hole. Edge pairs are tested by sweeping a line across the
+     * polygon, testing each edge against the edges whose X extent overlaps it. The test gives up, indicating the
+     * polygon is not simple, if the sweep becomes too expensive for the polygon's shape.
+     */
+    protected boolean isSimple() {
+        int edgeCount = this.nodeCount;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int node = 0; node < edgeCount; node++) {
+            minX = Math.min(minX, this.nodeX[node]);
+            minY = Math.min(minY, this.nodeY[node]);
+            maxX = Math.max(maxX, this.nodeX[node]);
+            maxY = Math.max(maxY, this.nodeY[node]);
+        }
+
+        this.minX = minX;
+        this.minY = minY;
+        double size = Math.max(maxX - minX, maxY - minY);
+        this.invSize = (size != 0) ? 32767 / size : 0;
+
+        // Sort the edges by their minimum X coordinate, quantized to 30 bits with the node index in the low 32 bits.
+        // Edges are retired from the sweep conservatively, allowing for the quantization.
+        double scale = (maxX > minX) ? (1 << 30) / (maxX - minX) : 0;
+        double slack = (maxX > minX) ? 2 / scale : 0;
+        long[] order = this.sortKeys(edgeCount);
+        for (int node = 0; node < edgeCount; node++) {
+            double xmin = Math.min(this.nodeX[node], this.nodeX[this.next[node]]);
+            order[node] = ((long) ((xmin - minX) * scale) << 32) | node;
+        }
+        Arrays.sort(order, 0, edgeCount);
+
+        if (this.active.length < edgeCount) {
+            this.active = new int[edgeCount];
+        }
+
+        int[] active = this.active;
+        int activeCount = 0;
+        long testCount = 0;
+        long budget = (long) SWEEP_BUDGET * edgeCount + 4096;
+        for (int idx = 0; idx < edgeCount; idx++) {
+            int edge = (int) order[idx];
+            int edgeNext = this.next[edge];
+            double xmin = Math.min(this.nodeX[edge], this.nodeX[edgeNext]);
+            double ymin = Math.min(this.nodeY[edge], this.nodeY[edgeNext]);
+            double ymax = Math.max(this.nodeY[edge], this.nodeY[edgeNext]);
+
+            int keptCount = 0;
+            for (int activeIdx = 0; activeIdx < activeCount; activeIdx++) {
+                int other = active[activeIdx];
+                int otherNext = this.next[other];
+                if (Math.max(this.nodeX[other], this.nodeX[otherNext]) < xmin - slack) {
+                    continue; // the sweep has passed this edge
+                }
+
+                active[keptCount++] = other;
+                if (Math.max(this.nodeY[other], this.nodeY[otherNext]) >= ymin
+                    && Math.min(this.nodeY[other], this.nodeY[otherNext]) <= ymax) {
+                    if (++testCount > budget || this.edgesIntersect(other, edge)) {
+                        return false;
+                    }
+                }
+            }
+
+            activeCount = keptCount;
+            active[activeCount++] = edge;
+        }
+
+        // With no intersections, a single vertex determines whether one ring lies inside another.
+        for (int hole = 1; hole < this.contourCount; hole++) {
+            int node = this.ringStarts[hole];
+            if (!this.ringContains(this.ringStarts[0], this.nodeX[node], this.nodeY[node])) {
+                return false; // hole outside the outer ring, or more than one outer ring
+            }
+
+            for (int other = 1; other < this.contourCount; other++) {
+                if (other != hole && this.ringContains(this.ringStarts[other], this.nodeX[node], this.nodeY[node])) {
+                    return false; // nested holes
+                }
+            }
+        }
+
+        return true;
+    }
+
+    protected long[] sortKeys(int count) {
+        if (this.sortKeys.length < count) {
+            this.sortKeys = new long[count];
+        }
+
+        return this.sortKeys;
+    }
+
+    protected boolean edgesIntersect(int e1, int e2) {
+        int a = e1, b = this.next[e1];
+        int c = e2, d = this.next[e2];
+
+        if (b == c || d == a) {
+            // Adjacent edges share a vertex, and intersect elsewhere only when they overlap in a spike.
+            int p = (b == c) ? a : c, q = (b == c) ? b : a, r = (b == c) ? d : b;
+            return orient(p, q, r) == 0 && this.dot(p, q, r) < 0;
+        }
+
+        return segmentsIntersect(this.nodeX[a], this.nodeY[a], this.nodeX[b], this.nodeY[b],
+            this.nodeX[c], this.nodeY[c], this.nodeX[d], this.nodeY[d]);
+    }
+
+    protected boolean ringContains(int start, double x, double y) {
+        boolean inside = false;
+        int node = start;
+        do {
+            int nextNode = this.next[node];
+            double x0 = this.nodeX[node], y0 = this.nodeY[node];
+            double x1 = this.nodeX[nextNode], y1 = this.nodeY[nextNode];
+            if ((y0 > y) != (y1 > y) && x < x0 + (y - y0) * (x1 - x0) / (y1 - y0)) {
+                inside = !inside;
+            }
+            node = nextNode;
+        } while (node != start);
+
+        return inside;
+    }
+
+    /**
+     * Merges each hole into the outer ring by connecting the hole's leftmost vertex to a visible vertex of the outer
+     * ring with a pair of coincident bridge edges. Holes are merged in order of their leftmost vertex, from left to
+     * right, so holes merged earlier become part of the outer ring available to later holes.
+     */
+    protected boolean eliminateHoles() {
+        int holeCount = this.contourCount - 1;
+        if (holeCount == 0) {
+            return true;
+        }
+
+        if (this.holes.length < holeCount) {
+            this.holes = new int[holeCount];
+            this.holeLeftX = new double[holeCount];
+        }
+
+        int[] holes = this.holes;
+        for (int hole = 1; hole <= holeCount; hole++) {
+            int leftmost = this.ringStarts[hole], node = leftmost;
+            do {
+                if (this.nodeX[node] < this.nodeX[leftmost]
+                    || (this.nodeX[node] == this.nodeX[leftmost] && this.nodeY[node] < this.nodeY[leftmost])) {
+                    leftmost = node;
+                }
+                node = this.next[node];
+            } while (node != this.ringStarts[hole]);
+
+            this.ringStarts[hole] = leftmost;
+            holes[hole - 1] = leftmost;
+        }
+
+        // Sort the holes by their leftmost vertex's X coordinate.
+        double[] leftX = this.holeLeftX;
+        for (int idx = 0; idx < holeCount; idx++) {
+            leftX[idx] = this.nodeX[holes[idx]];
+        }
+        sortByKey(holes, leftX, holeCount);
+
+        int outer = this.ringStarts[0];
+        for (int idx = 0; idx < holeCount; idx++) {
+            int hole = holes[idx];
+            int bridge = this.findHoleBridge(hole, outer);
+            if (bridge < 0 || !this.isValidBridge(bridge, hole, outer, holes, idx + 1, holeCount)) {
+                return false; // no bridge found; fall back to GLU
+            }
+
+            this.splitRing(bridge, hole);
+        }
+
+        return true;
+    }
+
+    protected static void sortByKey(int[] values, double[] keys, int count) {
+        // Insertion sort; polygons seldom have more than a handful of holes.
+        for (int i = 1; i < count; i++) {
+            int value = values[i];
+            double key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                values[j + 1] = values[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            values[j + 1] = value;
+            keys[j + 1] = key;
+        }
+    }
+
+    /**
+     * Finds an outer ring vertex visible from a hole's leftmost vertex. A ray cast to the left from the hole vertex
+     * determines the nearest outer ring edge; the edge's leftmost end point is visible unless an outer ring vertex lies
+     * within the triangle formed by the hole vertex, the ray intersection and the end point, in which case the vertex in
+     * that triangle forming the smallest angle with the ray is chosen.
+     */
+    protected int findHoleBridge(int hole, int outer) {
+        double hx = this.nodeX[hole], hy = this.nodeY[hole];
+        double qx = -Double.MAX_VALUE;
+        int m = -1;
+
+        int node = outer;
+        do {
+            int nextNode = this.next[node];
+            double y0 = this.nodeY[node], y1 = this.nodeY[nextNode];
+            if (y0 != y1 && (y0 <= hy) == (hy <= y1)) {
+                double x0 = this.nodeX[node], x1 = this.nodeX[nextNode];
+                double x = x0 + (hy - y0) * (x1 - x0) / (y1 - y0);
+                if (x <= hx && x > qx) {
+                    qx = x;
+                    m = (x0 < x1) ? node : nextNode;
+                }
+            }
+            node = nextNode;
+        } while (node != outer);
+
+        if (m < 0) {
+            return -1;
+        }
+
+        double mx = this.nodeX[m], my = this.nodeY[m];
+        double tanMin = Double.MAX_VALUE;
+        int stop = m;
+        node = m;
+        do {
+            double px = this.nodeX[node], py = this.nodeY[node];
+            if (hx >= px && px >= mx && hx != px && pointInTriangle(hx, hy, qx, hy, mx, my, px, py)) {
+                double tan = Math.abs(hy - py) / (hx - px);
+                if (this.locallyInside(node, hole)
+                    && (tan < tanMin || (tan == tanMin && px > this.nodeX[m]))) {
+                    m = node;
+                    tanMin = tan;
+                }
+            }
+            node = this.next[node];
+        } while (node != stop);
+
+        return m;
+    }
+
+    /**
+     * Determines whether a bridge between an outer ring vertex and a hole vertex lies inside the polygon, by confirming
+     * that the bridge leaves each end point into the polygon interior and crosses no outer ring or hole edge.
+     */
+    protected boolean isValidBridge(int a, int b, int outer, int[] holes, int holeIdx, int holeCount) {
+        if (!this.locallyInside(a, b) || !this.locallyInside(b, a)) {
+            return false;
+        }
+
+        if (this.bridgeIntersectsRing(a, b, outer) || this.bridgeIntersectsRing(a, b, b)) {
+            return false;
+        }
+
+        for (int idx = holeIdx; idx < holeCount; idx++) {
+            if (this.bridgeIntersectsRing(a, b, holes[idx])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected boolean bridgeIntersectsRing(int a, int b, int start) {
+        double ax = this.nodeX[a], ay = this.nodeY[a];
+        double bx = this.nodeX[b], by = this.nodeY[b];
+        int node = start;
+        do {
+            int nextNode = this.next[node];
+            double cx = this.nodeX[node], cy = this.nodeY[node];
+            double dx = this.nodeX[nextNode], dy = this.nodeY[nextNode];
+            boolean sharesC = (cx == ax && cy == ay) || (cx == bx && cy == by);
+            boolean sharesD = (dx == ax && dy == ay) || (dx == bx && dy == by);
+            if (sharesC && sharesD) {
+                return true; // the edge coincides with the bridge
+            } else if (sharesC || sharesD) {
+                // Segments sharing an end point intersect elsewhere only when they are collinear and overlap. Test
+                // whether the edge's other end lies on the bridge, or the bridge's other end lies on the edge.
+                double sx = sharesC ? cx : dx, sy = sharesC ? cy : dy;
+                double ex = sharesC ? dx : cx, ey = sharesC ? dy : cy;
+                double tx = (sx == ax && sy == ay) ? bx : ax, ty = (sx == ax && sy == ay) ? by : ay;
+                if (orient(ax, ay, bx, by, ex, ey) == 0
+                    && (onSegment(ax, ay, bx, by, ex, ey) || onSegment(cx, cy, dx, dy, tx, ty))) {
+                    return true;
+                }
+            } else if (segmentsIntersect(ax, ay, bx, by, cx, cy, dx, dy)) {
+                return true;
+            }
+            node = nextNode;
+        } while (node != start);
+
+        return false;
+    }
+
+    /**
+     * Connects vertex a to vertex b with a pair of coincident bridge edges, duplicating both vertices. Vertex a is on
+     * the outer ring and vertex b is on a hole, which becomes part of the outer ring.
+     */
+    protected void splitRing(int a, int b) {
+        int a2 = this.copyNode(a);
+        int b2 = this.copyNode(b);
+        int an = this.next[a];
+        int bp = this.prev[b];
+
+        this.next[a] = b;
+        this.prev[b] = a;
+        this.next[a2] = an;
+        this.prev[an] = a2;
+        this.next[b2] = a2;
+        this.prev[a2] = b2;
+        this.next[bp] = b2;
+        this.prev[b2] = bp;
+
+        this.boundary[a2] = this.boundary[a];
+        this.boundary[a] = false; // bridge edge from a to b
+        this.boundary[b2] = false; // bridge edge from b2 to a2
+    }
+
+    protected int copyNode(int node) {
+        int copy = this.nodeCount++;
+        this.nodeX[copy] = this.nodeX[node];
+        this.nodeY[copy] = this.nodeY[node];
+        this.nodeVertex[copy] = this.nodeVertex[node];
+        return copy;
+    }
+
+    /**
+     * Triangulates the merged ring by repeatedly clipping ears. Returns false if no ear can be found before the ring is
+     * exhausted, which indicates a degeneracy better handled by GLU.
+     */
+    protected boolean clipEars() {
+        int ear = this.ringStarts[0];
+        this.hashed = this.nodeCount > HASH_THRESHOLD;
+        if (this.hashed) {
+            this.indexCurve(ear);
+        }
+
+        int stop = ear;
+        while (this.prev[ear] != this.next[ear]) {
+            int a = this.prev[ear];
+            int c = this.next[ear];
+
+            if (this.hashed ? this.isEarHashed(ear) : this.isEar(ear)) {
+                int flags = (this.boundary[a] ? 1 : 0) | (this.boundary[ear] ? 2 : 0)
+                    | ((this.next[c] == a && this.boundary[c]) ? 4 : 0);
+                this.addTriangle(this.nodeVertex[a], this.nodeVertex[ear], this.nodeVertex[c], flags);
+                this.removeNode(ear);
+                this.boundary[a] = false; // the edge from a to c is a diagonal
+
+                ear = this.next[c];
+                stop = ear;
+                continue;
+            }
+
+            ear = c;
+            if (ear == stop) {
+                return false; // no ear found in a complete pass around the ring
+            }
+        }
+
+        return true;
+    }
+
+    protected boolean isEar(int ear) {
+        int a = this.prev[ear], b = ear, c = this.next[ear];
+        double area = this.orient(a, b, c);
+        if (area < 0) {
+            return false; // reflex vertex
+        } else if (area == 0) {
+            return this.dot(a, b, c) > 0; // straight vertex; clipping it produces a degenerate triangle
+        }
+
+        double ax = this.nodeX[a], ay = this.nodeY[a], bx = this.nodeX[b], by = this.nodeY[b];
+        double cx = this.nodeX[c], cy = this.nodeY[c];
+        double x0 = Math.min(ax, Math.min(bx, cx)), y0 = Math.min(ay, Math.min(by, cy));
+        double x1 = Math.max(ax, Math.max(bx, cx)), y1 = Math.max(ay, Math.max(by, cy));
+
+        // The ear is valid if no reflex or straight vertex lies within the triangle.
+        for (int p = this.next[c]; p != a; p = this.next[p]) {
+            if (this.blocksEar(p, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected boolean isEarHashed(int ear) {
+        int a = this.prev[ear], b = ear, c = this.next[ear];
+        double area = this.orient(a, b, c);
+        if (area < 0) {
+            return false; // reflex vertex
+        } else if (area == 0) {
+            return this.dot(a, b, c) > 0; // straight vertex; clipping it produces a degenerate triangle
+        }
+
+        double ax = this.nodeX[a], ay = this.nodeY[a], bx = this.nodeX[b], by = this.nodeY[b];
+        double cx = this.nodeX[c], cy = this.nodeY[c];
+        double x0 = Math.min(ax, Math.min(bx, cx)), y0 = Math.min(ay, Math.min(by, cy));
+        double x1 = Math.max(ax, Math.max(bx, cx)), y1 = Math.max(ay, Math.max(by, cy));
+        int minZ = this.zOrder(x0, y0);
+        int maxZ = this.zOrder(x1, y1);
+
+        // Search outward from the ear in z-order, limited to the z range of the triangle's bounding box.
+        int p = this.prevZ[ear], n = this.nextZ[ear];
+        while (p >= 0 && this.z[p] >= minZ && n >= 0 && this.z[n] <= maxZ) {
+            if (p != a && p != c && this.blocksEar(p, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+            p = this.prevZ[p];
+
+            if (n != a && n != c && this.blocksEar(n, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+            n = this.nextZ[n];
+        }
+
+        while (p >= 0 && this.z[p] >= minZ) {
+            if (p != a && p != c && this.blocksEar(p, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+            p = this.prevZ[p];
+        }
+
+        while (n >= 0 && this.z[n] <= maxZ) {
+            if (n != a && n != c && this.blocksEar(n, ax, ay, bx, by, cx, cy, x0, y0, x1, y1)) {
+                return false;
+            }
+            n = this.nextZ[n];
+        }
+
+        return true;
+    }
+
+    protected boolean blocksEar(int p, double ax, double ay, double bx, double by, double cx, double cy,
+                                double x0, double y0, double x1, double y1) {
+        double px = this.nodeX[p], py = this.nodeY[p];
+        return px >= x0 && px <= x1 && py >= y0 && py <= y1
+            && !(px == ax && py == ay) // vertices coincident with the ear's first vertex are bridge duplicates
+            && pointInTriangle(ax, ay, bx, by, cx, cy, px, py)
+            && this.orient(this.prev[p], p, this.next[p]) <= 0;
+    }
+
+    protected void indexCurve(int start) {
+        int count = 0;
+        long[] order = this.sortKeys(this.nodeCount);
+        int node = start;
+        do {
+            this.z[node] = this.zOrder(this.nodeX[node], this.nodeY[node]);
+            order[count++] = ((long) this.z[node] << 32) | node;
+            node = this.next[node];
+        } while (node != start);
+
+        Arrays.sort(order, 0, count);
+        for (int idx = 0; idx < count; idx++) {
+            int current = (int) order[idx];
+            this.prevZ[current] = (idx > 0) ? (int) order[idx - 1] : -1;
+            this.nextZ[current] = (idx < count - 1) ? (int) order[idx + 1] : -1;
+        }
+    }
+
+    protected int zOrder(double x, double y) {
+        // Interleave the bits of 15-bit coordinates scaled to the polygon's bounding box.
+        int ix = (int) ((x - this.minX) * this.invSize);
+        int iy = (int) ((y - this.minY) * this.invSize);
+
+        ix = (ix | (ix << 8)) & 0x00FF00FF;
+        ix = (ix | (ix << 4)) & 0x0F0F0F0F;
+        ix = (ix | (ix << 2)) & 0x33333333;
+        ix = (ix | (ix << 1)) & 0x55555555;
+
+        iy = (iy | (iy << 8)) & 0x00FF00FF;
+        iy = (iy | (iy << 4)) & 0x0F0F0F0F;
+        iy = (iy | (iy << 2)) & 0x33333333;
+        iy = (iy | (iy << 1)) & 0x55555555;
+
+        return ix | (iy << 1);
+    }
+
+    protected void removeNode(int node) {
+        this.next[this.prev[node]] = this.next[node];
+        this.prev[this.next[node]] = this.prev[node];
+
+        if (!this.hashed) {
+            return;
+        }
+
+        int pz = this.prevZ[node], nz = this.nextZ[node];
+        if (pz >= 0) {
+            this.nextZ[pz] = nz;
+        }
+        if (nz >= 0) {
+            this.prevZ[nz] = pz;
+        }
+    }
+
+    protected void addTriangle(int v0, int v1, int v2, int flags) {
+        int offset = this.triangleCount * 4;
+        if (offset == this.triangles.length) {
+            this.triangles = Arrays.copyOf(this.triangles, offset << 1);
+        }
+
+        this.triangles[offset] = v0;
+        this.triangles[offset + 1] = v1;
+        this.triangles[offset + 2] = v2;
+        this.triangles[offset + 3] = flags;
+        this.triangleCount++;
+    }
+
+    protected boolean locallyInside(int a, int b) {
+        // The polygon interior lies to the left of each ring edge.
+        int p = this.prev[a], n = this.next[a];
+        if (this.orient(p, a, n) > 0) {
+            return this.orient(a, n, b) > 0 && this.orient(p, a, b) > 0;
+        } else {
+            return this.orient(a, n, b) > 0 || this.orient(p, a, b) > 0;
+        }
+    }
+
+    protected double orient(int a, int b, int c) {
+        return orient(this.nodeX[a], this.nodeY[a], this.nodeX[b], this.nodeY[b], this.nodeX[c], this.nodeY[c]);
+    }
+
+    protected double dot(int a, int b, int c) {
+        return (this.nodeX[b] - this.nodeX[a]) * (this.nodeX[c] - this.nodeX[b])
+            + (this.nodeY[b] - this.nodeY[a]) * (this.nodeY[c] - this.nodeY[b]);
+    }
+
+    protected static double orient(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    protected static boolean onSegment(double ax, double ay, double bx, double by, double px, double py) {
+        return px >= Math.min(ax, bx) && px <= Math.max(ax, bx) && py >= Math.min(ay, by) && py <= Math.max(ay, by);
+    }
+
+    protected static boolean segmentsIntersect(double ax, double ay, double bx, double by,
+                                               double cx, double cy, double dx, double dy) {
+        double d1 = orient(cx, cy, dx, dy, ax, ay);
+        double d2 = orient(cx, cy, dx, dy, bx, by);
+        double d3 = orient(ax, ay, bx, by, cx, cy);
+        double d4 = orient(ax, ay, bx, by, dx, dy);
+
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true; // proper intersection
+        }
+
+        return (d1 == 0 && onSegment(cx, cy, dx, dy, ax, ay))
+            || (d2 == 0 && onSegment(cx, cy, dx, dy, bx, by))
+            || (d3 == 0 && onSegment(ax, ay, bx, by, cx, cy))
+            || (d4 == 0 && onSegment(ax, ay, bx, by, dx, dy));
+    }
+
+    protected static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy,
+                                             double px, double py) {
+        // Inclusive of the triangle's edges, for either triangle orientation.
+        double d1 = orient(ax, ay, bx, by, px, py);
+        double d2 = orient(bx, by, cx, cy, px, py);
+        double d3 = orient(cx, cy, ax, ay, px, py);
+        return (d1 >= 0 && d2 >= 0 && d3 >= 0) || (d1 <= 0 && d2 <= 0 && d3 <= 0);
+    }
+}
@@ -0,0 +1,748 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Performs the HTTP requests of the World Wind library's retrievers. Use the singleton instance provided by {@link
+ * gov.nasa.worldwind.WorldWind#httpTransport()}, replacing it with a subclass to customize how connections are opened,
+ * for example to add authentication headers.
+ * <p/>
+ * Connections are reused by the platform's HttpURLConnection keep-alive pool. HttpTransport returns connections to the
+ * pool by consuming and closing error responses, and bounds the number of concurrent requests to each host so that
+ * bursts of tile requests do not exceed the pool and open new connections.
+ * <p/>
+ * Responses compressed with gzip are decompressed transparently. Callers request compression for compressible content
+ * such as XML by specifying the Accept-Encoding request property; images and elevation tiles are already compressed
+ * and are requested without it.
+ * <p/>
+ * When configured with a cache directory, HttpTransport stores responses with an ETag, a Last-Modified date or an
+ * expiration time. Cached responses are returned without a request until they expire, then revalidated with a
+ * conditional request that returns the cached response when the server reports that it has not been modified.
+ * Responses reporting that a resource is not found or gone are also cached, until they expire or for the absent
+ * expiration when the server does not specify an expiration, so that requests for resources outside a server's coverage
+ * are not repeated across sessions.
+ */
+public class HttpTransport {
+
+    /**
+     * Thrown when a server responds to a request with an HTTP error status.
+     */
+    public static class StatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        protected int responseCode;
+
+        public StatusException(String message, int responseCode) {
+            super(message);
+            this.responseCode = responseCode;
+        }
+
+        public int getResponseCode() {
+            return this.responseCode;
+        }
+    }
+
+    protected static final int CACHE_MAGIC = 0x57574332; // "WWC2"
+
+    protected static final int PAGE_SIZE = 1024 * 16;
+
+    protected static final String TEMP_FILE_PREFIX = "partial-"; // cache entries are named by their URL's SHA-1 digest
+
+    protected static final long TEMP_FILE_EXPIRATION = 1000 * 60 * 60; // one hour
+
+    protected int connectTimeout = 3000;
+
+    protected int readTimeout = 30000;
+
+    protected int maxConnectionsPerHost = 5; // HttpURLConnection's default keep-alive connections per host
+
+    protected final Map<String, Semaphore> hostPermits = new HashMap<>();
+
+    protected File cacheDirectory;
+
+    protected long cacheCapacity = 1024 * 1024 * 64;
+
+    protected long cacheUsedCapacity = -1; // unknown until the cache directory is scanned
+
+    protected long absentExpiration = 1000 * 60 * 60 * 24; // one day
+
+    protected final Object cacheLock = new Object();
+
+    public HttpTransport() {
+    }
+
+    public int getConnectTimeout() {
+        return this.connectTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for a connection to a host.
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        if (connectTimeout < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "HttpTransport", "setConnectTimeout", "invalidTimeout"));
+        }
+
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return this.readTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for data from a host, and to wait for one of the host's connection permits.
+     * A permit is held while another request reads its response, so waiting for a permit is bounded by the read
+     * timeout rather than the connect timeout.
+     */
+    public void setReadTimeout(int readTimeout) {
+        if (readTimeout < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "HttpTransport", "setReadTimeout", "invalidTimeout"));
+        }
+
+        this.readTimeout = readTimeout;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return this.maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "HttpTransport", "setMaxConnectionsPerHost", "invalidCount"));
+        }
+
+        synchronized (this.hostPermits) {
+            this.maxConnectionsPerHost = maxConnections;
+            this.hostPermits.clear(); // requests in progress release their permits to the previous semaphores
+        }
+    }
+
+    public File getCacheDirectory() {
+        return this.cacheDirectory;
+    }
+
+    /**
+     * Sets the directory in which responses are cached, or null to disable caching. The directory is created if it
+     * does not exist. Typically an application's cache directory provided by Context.getCacheDir.
+     */
+    public void setCacheDirectory(File directory) {
+        synchronized (this.cacheLock) {
+            if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+                Logger.log(Logger.WARN, "Unable to create HTTP cache directory \'" + directory + "\'");
+                directory = null;
+            }
+
+            this.cacheDirectory = directory;
+            this.cacheUsedCapacity = -1;
+        }
+    }
+
+    public long getCacheCapacity() {
+        return this.cacheCapacity;
+    }
+
+    public void setCacheCapacity(long capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "HttpTransport", "setCacheCapacity", "invalidCapacity"));
+        }
+
+        this.cacheCapacity = capacity;
+    }
+
+    public long getAbsentExpiration() {
+        return this.absentExpiration;
+    }
+
+    /**
+     * Sets the time in milliseconds that a response reporting a resource as not found or gone is cached, when the
+     * response does not specify its own expiration.
+     */
+    public void setAbsentExpiration(long expiration) {
+        if (expiration < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "HttpTransport", "setAbsentExpiration", "invalidDelay"));
+        }
+
+        this.absentExpiration = expiration;
+    }
+
+    /**
+     * Requests a resource with an HTTP GET, blocking until the response arrives.
+     *
+     * @param urlString the resource's URL
+     *
+     * @return the response, which the caller must close
+     *
+     * @throws IOException If the request fails, or if the server responds with an error status
+     */
+    public Response get(String urlString) throws IOException {
+        return this.get(urlString, null);
+    }
+
+    /**
+     * Requests a resource with an HTTP GET and a set of request properties, blocking until the response arrives.
+     * Requests with a Range property are not cached.
+     *
+     * @param urlString         the resource's URL
+     * @param requestProperties request properties such as Accept-Encoding or Range, may be null
+     *
+     * @return the response, which the caller must close
+     *
+     * @throws IllegalArgumentException If the URL string is null
+     * @throws StatusException          If the server responds with an error status, or if the cache holds an
+     *                                  unexpired response reporting the resource as not found or gone
+     * @throws IOException              If the request fails
+     */
+    public Response get(String urlString, Map<String, String> requestProperties) throws IOException {
+        if (urlString == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "HttpTransport", "get", "missingUrl"));
+        }
+
+        File cacheFile = (requestProperties == null || !requestProperties.containsKey("Range")) ? this.cacheFile(urlString) : null;
+        CacheEntry entry = (cacheFile != null) ? CacheEntry.open(cacheFile, urlString) : null;
+        if (entry != null && entry.expires > System.currentTimeMillis()) {
+            if (entry.responseCode != HttpURLConnection.HTTP_OK) { // fresh absent resource; no request
+                entry.close();
+                throw new StatusException("HTTP " + entry.responseCode + " (cached) \'" + urlString + "\'", entry.responseCode);
+            }
+            return entry.response(); // fresh; no request
+        } else if (entry != null) {
+            entry.close(); // stale; revalidated below
+            if (entry.responseCode != HttpURLConnection.HTTP_OK) {
+                entry = null; // stale absent resource; request it again unconditionally
+            }
+        }
+
+        URL url = new URL(urlString);
+        Semaphore permit = this.acquireHostPermit(url.getHost());
+        try {
+            URLConnection conn = this.openConnection(url);
+            conn.setConnectTimeout(this.connectTimeout);
+            conn.setReadTimeout(this.readTimeout);
+            if (requestProperties != null) {
+                for (Map.Entry<String, String> property : requestProperties.entrySet()) {
+                    conn.setRequestProperty(property.getKey(), property.getValue());
+                }
+            }
+
+            if (entry != null) { // stale; revalidate
+                if (entry.etag.length() > 0) {
+                    conn.setRequestProperty("If-None-Match", entry.etag);
+                }
+                if (entry.lastModified.length() > 0) {
+                    conn.setRequestProperty("If-Modified-Since", entry.lastModified);
+                }
+            }
+
+            int responseCode = (conn instanceof HttpURLConnection) ? ((HttpURLConnection) conn).getResponseCode() : HttpURLConnection.HTTP_OK;
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                WWUtil.closeSilently(conn.getInputStream()); // return the connection to the keep-alive pool
+                permit.release();
+                permit = null;
+                entry.expires = expiration(conn);
+                this.rewriteCacheEntry(cacheFile, entry);
+                return this.openCacheEntry(cacheFile, urlString);
+            } else if (responseCode >= 300) {
+                InputStream error = ((HttpURLConnection) conn).getErrorStream();
+                if (error != null) {
+                    drainSilently(error); // return the connection to the keep-alive pool
+                }
+                if (cacheFile != null && isAbsent(responseCode) && !isNoStore(conn)) {
+                    this.writeAbsentEntry(cacheFile, new CacheEntry(urlString, conn), responseCode);
+                }
+                throw new StatusException("HTTP " + responseCode + " \'" + urlString + "\'", responseCode);
+            }
+
+            InputStream stream = conn.getInputStream();
+            int contentLength = conn.getContentLength();
+            if ("gzip".equalsIgnoreCase(conn.getContentEncoding())) {
+                stream = new GZIPInputStream(stream);
+                contentLength = -1; // the response's length is the length of the compressed content
+            }
+
+            if (cacheFile != null && responseCode == HttpURLConnection.HTTP_OK && isCacheable(conn)) {
+                CacheEntry newEntry = new CacheEntry(urlString, conn);
+                try {
+                    this.writeCacheEntry(cacheFile, newEntry, stream);
+                } finally {
+                    WWUtil.closeSilently(stream);
+                    permit.release();
+                    permit = null;
+                }
+                Response response = this.openCacheEntry(cacheFile, urlString);
+                response.fromCache = false; // the response was fetched from the network into the cache
+                return response;
+            }
+
+            Response response = new Response(responseCode, conn.getContentType(), contentLength, stream, permit);
+            permit = null; // released when the response is closed
+            return response;
+        } finally {
+            if (permit != null) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * Opens a connection to a URL. Subclasses may override this method to configure connections, for example to add
+     * authentication headers, or to use another HTTP client.
+     */
+    protected URLConnection openConnection(URL url) throws IOException {
+        return url.openConnection();
+    }
+
+    protected Semaphore acquireHostPermit(String host) throws IOException {
+        Semaphore permit;
+        synchronized (this.hostPermits) {
+            permit = this.hostPermits.get(host);
+            if (permit == null) {
+                permit = new Semaphore(this.maxConnectionsPerHost);
+                this.hostPermits.put(host, permit);
+            }
+        }
+
+        try {
+            if (!permit.tryAcquire(this.readTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SocketTimeoutException("Timed out waiting for a connection to \'" + host + "\'");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SocketTimeoutException("Interrupted waiting for a connection to \'" + host + "\'");
+        }
+
+        return permit;
+    }
+
+    protected static boolean isCacheable(URLConnection conn) {
+        if (isNoStore(conn)) {
+            return false;
+        }
+
+        return conn.getHeaderField("ETag") != null || conn.getHeaderField("Last-Modified") != null ||
+            expiration(conn) > System.currentTimeMillis();
+    }
+
+    protected static boolean isNoStore(URLConnection conn) {
+        String cacheControl = conn.getHeaderField("Cache-Control");
+        return cacheControl != null && cacheControl.toLowerCase().contains("no-store");
+    }
+
+    protected static boolean isAbsent(int responseCode) {
+        return responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE;
+    }
+
+    /**
+     * Computes the time a response expires from its Cache-Control max-age directive or its Expires header. Responses
+     * with neither are revalidated on every request.
+     */
+    protected static long expiration(URLConnection conn) {
+        String cacheControl = conn.getHeaderField("Cache-Control");
+        if (cacheControl != null) {
+            for (String directive : cacheControl.toLowerCase().split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-cache")) {
+                    return 0;
+                } else if (directive.startsWith("max-age=")) {
+                    try {
+                        return System.currentTimeMillis() + Long.parseLong(directive.substring(8).trim()) * 1000;
+                    } catch (NumberFormatException ignored) {
+                        return 0;
+                    }
+                }
+            }
+        }
+
+        return conn.getExpiration();
+    }
+
+    protected File cacheFile(String urlString) {
+        File directory = this.cacheDirectory;
+        if (directory == null) {
+            return null;
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(urlString.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return new File(directory, sb.toString());
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException ex) {
+            return null; // SHA-1 and UTF-8 are available on every platform World Wind supports
+        }
+    }
+
+    /**
+     * Writes a cache entry and its content to a temporary file, then moves it into place so that concurrent readers
+     * never see a partial entry. Temporary files are named with a distinct prefix so that eviction skips the entries
+     * other requests are writing.
+     */
+    protected void writeCacheEntry(File cacheFile, CacheEntry entry, InputStream content) throws IOException {
+        File tempFile = File.createTempFile(TEMP_FILE_PREFIX, null, cacheFile.getParentFile());
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tempFile), PAGE_SIZE);
+            entry.writeHeader(out);
+            byte[] page = new byte[PAGE_SIZE];
+            for (int count; (count = content.read(page)) != -1; ) {
+                out.write(page, 0, count);
+            }
+            out.close();
+            out = null;
+
+            synchronized (this.cacheLock) {
+                long replacedLength = cacheFile.length(); // zero when the entry is new
+                if (!tempFile.renameTo(cacheFile)) {
+                    throw new IOException("Unable to write HTTP cache entry \'" + cacheFile + "\'");
+                }
+                tempFile = null;
+                this.addCacheUsage(cacheFile, replacedLength);
+            }
+        } finally {
+            WWUtil.closeSilently(out);
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Caches a response reporting a resource as not found or gone. The entry has no content, and expires after the
+     * absent expiration when the response does not specify an expiration.
+     */
+    protected void writeAbsentEntry(File cacheFile, CacheEntry entry, int responseCode) {
+        entry.responseCode = responseCode;
+        entry.etag = ""; // absent resources are requested again unconditionally
+        entry.lastModified = "";
+        if (entry.expires <= System.currentTimeMillis()) {
+            entry.expires = System.currentTimeMillis() + this.absentExpiration;
+        }
+
+        try {
+            this.writeCacheEntry(cacheFile, entry, new ByteArrayInputStream(new byte[0]));
+        } catch (IOException ex) {
+            Logger.log(Logger.WARN, "Unable to write HTTP cache entry \'" + entry.url + "\'", ex);
+        }
+    }
+
+    /**
+     * Replaces the validators and expiration time of a cached response, keeping its content.
+     */
+    protected void rewriteCacheEntry(File cacheFile, CacheEntry entry) {
+        CacheEntry current = CacheEntry.open(cacheFile, entry.url);
+        if (current == null) {
+            return; // replaced or evicted by another request
+        }
+
+        try {
+            this.writeCacheEntry(cacheFile, entry, current.content);
+        } catch (IOException ex) {
+            Logger.log(Logger.WARN, "Unable to update HTTP cache entry \'" + entry.url + "\'", ex);
+        } finally {
+            current.close();
+        }
+    }
+
+    protected Response openCacheEntry(File cacheFile, String urlString) throws IOException {
+        CacheEntry entry = CacheEntry.open(cacheFile, urlString);
+        if (entry == null) {
+            throw new IOException("Unable to read HTTP cache entry '" + urlString + "'");
+        }
+
+        return entry.response();
+    }
+
+    /**
+     * Records the size of a newly written cache entry less the size of the entry it replaced, deleting the least
+     * recently written entries other than the new entry when the cache exceeds its capacity. Temporary files are
+     * neither counted nor deleted while they are being written, and are deleted once they have been abandoned for the
+     * temporary file expiration.
+     */
+    protected void addCacheUsage(File cacheFile, long replacedLength) {
+        synchronized (this.cacheLock) {
+            File directory = this.cacheDirectory;
+            if (directory == null) {
+                return;
+            }
+
+            if (this.cacheUsedCapacity < 0) {
+                this.cacheUsedCapacity = 0;
+                for (File file : listFiles(directory)) {
+                    if (!isTempFile(file)) {
+                        this.cacheUsedCapacity += file.length();
+                    }
+                }
+            } else {
+                this.cacheUsedCapacity += cacheFile.length() - replacedLength;
+            }
+
+            if (this.cacheUsedCapacity <= this.cacheCapacity) {
+                return;
+            }
+
+            // Delete the oldest entries until the cache is three quarters full.
+            File[] files = listFiles(directory);
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File lhs, File rhs) {
+                    long lhsTime = lhs.lastModified(), rhsTime = rhs.lastModified();
+                    return (lhsTime < rhsTime) ? -1 : (lhsTime == rhsTime ? 0 : 1);
+                }
+            });
+
+            long lowWater = this.cacheCapacity * 3 / 4;
+            long abandonedTime = System.currentTimeMillis() - TEMP_FILE_EXPIRATION;
+            for (int idx = 0; idx < files.length && this.cacheUsedCapacity > lowWater; idx++) {
+                File file = files[idx];
+                if (isTempFile(file)) {
+                    if (file.lastModified() < abandonedTime) {
+                        file.delete(); // abandoned by a request that did not complete; never counted
+                    }
+                } else if (!file.equals(cacheFile)) {
+                    long length = file.length();
+                    if (file.delete()) {
+                        this.cacheUsedCapacity -= length;
+                    }
+                }
+            }
+        }
+    }
+
+    protected static boolean isTempFile(File file) {
+        return file.getName().startsWith(TEMP_FILE_PREFIX);
+    }
+
+    protected static File[] listFiles(File directory) {
+        File[] files = directory.listFiles();
+        return (files != null) ? files : new File[0];
+    }
+
+    protected static void drainSilently(InputStream stream) {
+        try {
+            byte[] page = new byte[1024];
+            while (stream.read(page) != -1) {
+                // discard the error response's body
+            }
+        } catch (IOException ignored) {
+            // the connection is not reused
+        } finally {
+            WWUtil.closeSilently(stream);
+        }
+    }
+
+    /**
+     * The response to an HTTP request. The response's stream provides the response's content, decompressed if the
+     * server compressed it. Closing the response closes its stream and allows another request to the same host.
+     */
+    public static class Response implements Closeable {
+
+        protected int responseCode;
+
+        protected String contentType;
+
+        protected int contentLength;
+
+        protected InputStream stream;
+
+        protected boolean fromCache;
+
+        protected Semaphore permit;
+
+        public Response(int responseCode, String contentType, int contentLength, InputStream stream, Semaphore permit) {
+            this.responseCode = responseCode;
+            this.contentType = contentType;
+            this.contentLength = contentLength;
+            this.stream = stream;
+            this.permit = permit;
+        }
+
+        /**
+         * Returns the response's HTTP status code, either 200 or, for requests with a Range property, 206.
+         */
+        public int getResponseCode() {
+            return this.responseCode;
+        }
+
+        public String getContentType() {
+            return this.contentType;
+        }
+
+        /**
+         * Returns the length of the response's content, or -1 if the length is not known.
+         */
+        public int getContentLength() {
+            return this.contentLength;
+        }
+
+        public InputStream getInputStream() {
+            return this.stream;
+        }
+
+        /**
+         * Indicates whether the response's content was read from the cache rather than the network, either because the
+         * cached response had not expired or because the server confirmed that it had not been modified.
+         */
+        public boolean isFromCache() {
+            return this.fromCache;
+        }
+
+        @Override
+        public void close() {
+            WWUtil.closeSilently(this.stream);
+            if (this.permit != null) {
+                this.permit.release();
+                this.permit = null;
+            }
+        }
+    }
+
+    /**
+     * A cached response's URL, validators, expiration time and status, stored ahead of the response's content in the
+     * cache file. Entries read from the cache hold the cache file open, positioned at the start of the content.
+     */
+    protected static class CacheEntry implements Closeable {
+
+        public String url;
+
+        public String etag;
+
+        public String lastModified;
+
+        public long expires;
+
+        public String contentType;
+
+        public int responseCode = HttpURLConnection.HTTP_OK;
+
+        public int contentLength;
+
+        public InputStream content;
+
+        public CacheEntry() {
+        }
+
+        public CacheEntry(String url, URLConnection conn) {
+            this.url = url;
+            this.etag = nonNull(conn.getHeaderField("ETag"));
+            this.lastModified = nonNull(conn.getHeaderField("Last-Modified"));
+            this.expires = expiration(conn);
+            this.contentType = nonNull(conn.getContentType());
+        }
+
+        /**
+         * Opens a cache file and reads its entry, returning null if the file does not exist, does not contain an entry
+         * for the specified URL, or cannot be read.
+         */
+        public static CacheEntry open(File cacheFile, String url) {
+            if (!cacheFile.exists()) {
+                return null;
+            }
+
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), PAGE_SIZE));
+                int headerLength = in.readInt();
+                byte[] header = new byte[headerLength];
+                in.readFully(header);
+
+                DataInputStream headerIn = new DataInputStream(new ByteArrayInputStream(header));
+                if (headerIn.readInt() != CACHE_MAGIC || !url.equals(headerIn.readUTF())) {
+                    return null; // from an incompatible version, or a URL whose digest collides
+                }
+
+                CacheEntry entry = new CacheEntry();
+                entry.url = url;
+                entry.etag = headerIn.readUTF();
+                entry.lastModified = headerIn.readUTF();
+                entry.expires = headerIn.readLong();
+                entry.contentType = headerIn.readUTF();
+                entry.responseCode = headerIn.readInt();
+                entry.contentLength = (int) (cacheFile.length() - 4 - headerLength);
+                entry.content = in;
+                in = null; // owned by the entry
+                return entry;
+            } catch (IOException ex) {
+                return null; // missing or partial; replaced by the next response
+            } finally {
+                WWUtil.closeSilently(in);
+            }
+        }
+
+        public void writeHeader(OutputStream out) throws IOException {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream headerOut = new DataOutputStream(header);
+            headerOut.writeInt(CACHE_MAGIC);
+            headerOut.writeUTF(this.url);
+            headerOut.writeUTF(this.etag);
+            headerOut.writeUTF(this.lastModified);
+            headerOut.writeLong(this.expires);
+            headerOut.writeUTF(this.contentType);
+            headerOut.writeInt(this.responseCode);
+            headerOut.flush();
+
+            new DataOutputStream(out).writeInt(header.size());
+            header.writeTo(out);
+        }
+
+        /**
+         * Returns a response providing this entry's content. The response takes ownership of the open cache file.
+         */
+        public Response response() {
+            String contentType = (this.contentType.length() > 0) ? this.contentType : null;
+            Response response = new Response(HttpURLConnection.HTTP_OK, contentType, this.contentLength, this.content, null);
+            response.fromCache = true;
+            this.content = null;
+            return response;
+        }
+
+        @Override
+        public void close() {
+            WWUtil.closeSilently(this.content);
+            this.content = null;
+        }
+
+        protected static String nonNull(String value) {
+            return (value != null) ? value : "";
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fixed-memory histogram of latency values in nanoseconds. LatencyHistogram uses log-linear buckets in the style of
+ * HdrHistogram: values below 64 nanoseconds have exact buckets, and every power of two above that is divided into 32
+ * linear sub-buckets, giving a relative error of at most 1/32. Values up to {@link #HIGHEST_TRACKABLE_VALUE} are
+ * tracked with that precision, while larger values are counted in the highest bucket. The minimum and maximum recorded
+ * values are always tracked exactly.
+ * <p/>
+ * Recording a value performs no memory allocation. LatencyHistogram is not thread safe.
+ */
+public class LatencyHistogram {
+
+    protected static final int SUB_BUCKET_BITS = 6;
+
+    protected static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    protected static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    protected static final int HIGHEST_BIT = 35;
+
+    protected static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (HIGHEST_BIT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF_COUNT;
+
+    /**
+     * The highest value tracked with full precision, in nanoseconds; approximately 68.7 seconds.
+     */
+    public static final long HIGHEST_TRACKABLE_VALUE = (1L << (HIGHEST_BIT + 1)) - 1;
+
+    protected int[] counts = new int[BUCKET_COUNT];
+
+    protected long totalCount;
+
+    protected long totalValue;
+
+    protected long minValue = Long.MAX_VALUE;
+
+    protected long maxValue;
+
+    public LatencyHistogram() {
+    }
+
+    public LatencyHistogram(LatencyHistogram histogram) {
+        if (histogram == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "LatencyHistogram", "constructor", "missingHistogram"));
+        }
+
+        this.set(histogram);
+    }
+
+    /**
+     * Records a single value. Negative values are recorded as zero.
+     *
+     * @param value the value to record in nanoseconds
+     *
+     * @return this histogram
+     */
+    public LatencyHistogram record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        this.counts[bucketIndex(value)]++;
+        this.totalCount++;
+        this.totalValue += value;
+
+        if (this.minValue > value) {
+            this.minValue = value;
+        }
+
+        if (this.maxValue < value) {
+            this.maxValue = value;
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds the values recorded in a specified histogram to this histogram.
+     *
+     * @param histogram the histogram to add
+     *
+     * @return this histogram
+     *
+     * @throws IllegalArgumentException If the histogram is null
+     */
+    public LatencyHistogram add(LatencyHistogram histogram) {
+        if (histogram == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "LatencyHistogram", "add", "missingHistogram"));
+        }
+
+        if (histogram.totalCount == 0) {
+            return this;
+        }
+
+        int[] thatCounts = histogram.counts;
+        for (int idx = 0; idx < BUCKET_COUNT; idx++) {
+            this.counts[idx] += thatCounts[idx];
+        }
+
+        this.totalCount += histogram.totalCount;
+        this.totalValue += histogram.totalValue;
+
+        if (this.minValue > histogram.minValue) {
+            this.minValue = histogram.minValue;
+        }
+
+        if (this.maxValue < histogram.maxValue) {
+            this.maxValue = histogram.maxValue;
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets this histogram to a copy of a specified histogram.
+     *
+     * @param histogram the histogram to copy
+     *
+     * @return this histogram
+     *
+     * @throws IllegalArgumentException If the histogram is null
+     */
+    public LatencyHistogram set(LatencyHistogram histogram) {
+        if (histogram == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "LatencyHistogram", "set", "missingHistogram"));
+        }
+
+        System.arraycopy(histogram.counts, 0, this.counts, 0, BUCKET_COUNT);
+        this.totalCount = histogram.totalCount;
+        this.totalValue = histogram.totalValue;
+        this.minValue = histogram.minValue;
+        this.maxValue = histogram.maxValue;
+
+        return this;
+    }
+
+    /**
+     * Removes all recorded values from this histogram.
+     *
+     * @return this histogram
+     */
+    public LatencyHistogram reset() {
+        if (this.totalCount > 0) {
+            Arrays.fill(this.counts, 0);
+        }
+
+        this.totalCount = 0;
+        this.totalValue = 0;
+        this.minValue = Long.MAX_VALUE;
+        this.maxValue = 0;
+
+        return this;
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * @return the minimum recorded value in nanoseconds, or zero if the histogram is empty
+     */
+    public long getMinValue() {
+        return (this.totalCount > 0) ? this.minValue : 0;
+    }
+
+    /**
+     * @return the maximum recorded value in nanoseconds, or zero if the histogram is empty
+     */
+    public long getMaxValue() {
+        return this.maxValue;
+    }
+
+    /**
+     * @return the mean of the recorded values in nanoseconds, or zero if the histogram is empty
+     */
+    public double getMean() {
+        return (this.totalCount > 0) ? (double) this.totalValue / (double) this.totalCount : 0;
+    }
+
+    /**
+     * Returns the value at a specified percentile of the recorded values. The returned value is the highest value
+     * equivalent to the bucket containing the percentile, limited to the maximum recorded value.
+     *
+     * @param percentile the percentile in the range [0, 100]
+     *
+     * @return the value at the percentile in nanoseconds, or zero if the histogram is empty
+     *
+     * @throws IllegalArgumentException If the percentile is outside the range [0, 100]
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "LatencyHistogram", "getValueAtPercentile", "invalidPercentile"));
+        }
+
+        if (this.totalCount == 0) {
+            return 0;
+        }
+
+        long targetCount = Math.max(1, (long) Math.ceil(percentile / 100 * this.totalCount));
+        long cumulativeCount = 0;
+        for (int idx = 0; idx < BUCKET_COUNT; idx++) {
+            cumulativeCount += this.counts[idx];
+            if (cumulativeCount >= targetCount) {
+                return Math.max(this.getMinValue(), Math.min(this.maxValue, highestEquivalentValue(idx)));
+            }
+        }
+
+        return this.maxValue;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "count=%d, p50=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms",
+            this.totalCount,
+            this.getValueAtPercentile(50) * 1.0e-6,
+            this.getValueAtPercentile(90) * 1.0e-6,
+            this.getValueAtPercentile(99) * 1.0e-6,
+            this.maxValue * 1.0e-6);
+    }
+
+    protected static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value; // exact buckets for small values
+        }
+
+        if (value > HIGHEST_TRACKABLE_VALUE) {
+            return BUCKET_COUNT - 1; // values beyond the trackable range are counted in the highest bucket
+        }
+
+        // Keep the SUB_BUCKET_BITS most significant bits of the value. The highest of those bits is always set, so each
+        // power of two contributes SUB_BUCKET_HALF_COUNT buckets.
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    protected static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
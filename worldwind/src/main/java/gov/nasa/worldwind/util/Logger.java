@@ -29,20 +29,31 @@ public class Logger {
         messageTable.put("errorReadingProgramSource", "Error reading program sources");
         messageTable.put("invalidBitmap", "The bitmap is recycled");
         messageTable.put("invalidCapacity", "The capacity is less than 1");
+        messageTable.put("invalidCellSize", "The cell size is invalid");
         messageTable.put("invalidClass", "The class is null or cannot be found");
+        messageTable.put("invalidClusterSize", "The cluster size is invalid");
         messageTable.put("invalidCount", "The count is invalid");
         messageTable.put("invalidClipDistance", "The clip distance is invalid");
+        messageTable.put("invalidDelay", "The delay is less than 0");
+        messageTable.put("invalidFailureClass", "The failure class is invalid");
         messageTable.put("invalidFieldOfView", "The field of view is invalid");
         messageTable.put("invalidHeight", "The height is invalid");
+        messageTable.put("invalidImageSource", "The image source is invalid");
         messageTable.put("invalidIndex", "The index is invalid");
+        messageTable.put("invalidLevelRange", "The level range is invalid");
         messageTable.put("invalidNumLevels", "The number of levels is invalid");
+        messageTable.put("invalidPercentile", "The percentile is invalid");
         messageTable.put("invalidRadius", "The radius is invalid");
         messageTable.put("invalidResolution", "The resolution is invalid");
         messageTable.put("invalidResource", "The resource is invalid");
+        messageTable.put("invalidRowsOrColumns", "The number of rows or columns is invalid");
+        messageTable.put("invalidSize", "The size is invalid");
         messageTable.put("invalidStride", "The stride is invalid");
         messageTable.put("invalidTileDelta", "The tile delta is invalid");
+        messageTable.put("invalidTimeout", "The timeout is less than 0");
         messageTable.put("invalidWidth", "The width is invalid");
         messageTable.put("invalidWidthOrHeight", "The width or the height is invalid");
+        messageTable.put("invalidWindow", "The window is invalid");
         messageTable.put("missingArray", "The array is null or insufficient length");
         messageTable.put("missingBitmap", "The bitmap is null");
         messageTable.put("missingBuffer", "The buffer is null");
@@ -57,7 +68,9 @@ public class Logger {
         messageTable.put("missingFactory", "The factory is null");
         messageTable.put("missingFormat", "The format is null");
         messageTable.put("missingFrameMetrics", "The frame metrics argument is null");
+        messageTable.put("missingFrustum", "The frustum is null");
         messageTable.put("missingGlobe", "The globe is null");
+        messageTable.put("missingHistogram", "The histogram is null");
         messageTable.put("missingImageFormat", "The image format is null");
         messageTable.put("missingIterable", "The iterable is null");
         messageTable.put("missingKey", "The key is null");
@@ -75,11 +88,14 @@ public class Logger {
         messageTable.put("missingName", "The name is null");
         messageTable.put("missingOffset", "The offset name is null");
         messageTable.put("missingPathName", "The path name is null");
+        messageTable.put("missingPickedObject", "The picked object is null");
+        messageTable.put("missingPlacemark", "The placemark is null");
         messageTable.put("missingPoint", "The point is null");
         messageTable.put("missingPlane", "The plane is null");
         messageTable.put("missingPosition", "The position is null");
         messageTable.put("missingProjection", "The projection is null");
         messageTable.put("missingRange", "The range is null");
+        messageTable.put("missingReader", "The reader is null");
         messageTable.put("missingRecognizer", "The recognizer is null");
         messageTable.put("missingRenderable", "The renderable is null");
         messageTable.put("missingResources", "The resources argument is null");
@@ -88,16 +104,22 @@ public class Logger {
         messageTable.put("missingSector", "The sector is null");
         messageTable.put("missingServiceAddress", "The service address is null");
         messageTable.put("missingSource", "The source is null");
+        messageTable.put("missingSubfile", "The subfile is null");
+        messageTable.put("missingTableName", "The table name is null");
+        messageTable.put("missingTessellator", "The tessellator is null");
         messageTable.put("missingTile", "The tile is null");
         messageTable.put("missingTileFactory", "The tile factory is null");
         messageTable.put("missingTileMatrixSet", "The tile matrix set is null");
         messageTable.put("missingTileUrlFactory", "The tile url factory is null");
+        messageTable.put("missingTransport", "The transport is null");
         messageTable.put("missingTypeface", "The typeface is null");
+        messageTable.put("missingUnit", "The unit is null");
         messageTable.put("missingUrl", "The url is null");
         messageTable.put("missingViewport", "The viewport is null");
         messageTable.put("missingVector", "The vector is null");
         messageTable.put("missingVersion", "The version is null");
         messageTable.put("missingWorldWindow", "The world window is null");
+        messageTable.put("missingWriter", "The writer is null");
         messageTable.put("singularMatrix", "The matrix cannot be inverted");
     }
 
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Records the keys whose retrieval has failed, and suppresses further retrievals of those keys until a backoff delay
+ * elapses. Failures are classified as either absent, meaning that the resource does not exist, or transient, meaning
+ * that the resource may be available when retrieved again.
+ * <p/>
+ * Absent resources, such as tiles outside a server's coverage, are suppressed for a long delay. Transient failures,
+ * such as timeouts or server errors, are suppressed for a delay that starts short and doubles with each consecutive
+ * failure, up to a maximum. Each delay is randomly shortened by up to half, so that the retrievals of tiles that failed
+ * together are spread out over time rather than repeated together. A successful retrieval clears the key's failures.
+ * <p/>
+ * RetrievalFailureCache holds a bounded number of keys, discarding the least recently used key when full.
+ * RetrievalFailureCache is thread safe.
+ */
+public class RetrievalFailureCache<K> {
+
+    /**
+     * The failure class of a resource that does not exist, such as a resource the server reported as not found or
+     * gone, or a resource retrieved with no content to decode.
+     */
+    public static final int ABSENT = 1;
+
+    /**
+     * The failure class of a resource whose retrieval failed for a reason that may not recur, such as a timeout, a
+     * network error, a server error or an unexpected exception.
+     */
+    public static final int TRANSIENT = 2;
+
+    protected final Map<K, Entry> entries;
+
+    protected int maxEntries = 4096;
+
+    protected long absentDelay = 1000 * 60 * 60; // one hour
+
+    protected long transientDelay = 1000; // one second
+
+    protected long maxTransientDelay = 1000 * 60 * 5; // five minutes
+
+    protected Random random = new Random();
+
+    public RetrievalFailureCache() {
+        this.entries = new LinkedHashMap<K, Entry>(16, 0.75f, true) { // access order
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry> eldest) {
+                return this.size() > maxEntries;
+            }
+        };
+    }
+
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RetrievalFailureCache", "setMaxEntries", "invalidCount"));
+        }
+
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the time in milliseconds that retrievals of an absent resource are suppressed.
+     */
+    public long getAbsentDelay() {
+        return this.absentDelay;
+    }
+
+    public void setAbsentDelay(long delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RetrievalFailureCache", "setAbsentDelay", "invalidDelay"));
+        }
+
+        this.absentDelay = delay;
+    }
+
+    /**
+     * Returns the time in milliseconds that retrievals are suppressed after a resource's first transient failure. The
+     * delay doubles with each consecutive transient failure.
+     */
+    public long getTransientDelay() {
+        return this.transientDelay;
+    }
+
+    public void setTransientDelay(long delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RetrievalFailureCache", "setTransientDelay", "invalidDelay"));
+        }
+
+        this.transientDelay = delay;
+    }
+
+    /**
+     * Returns the longest time in milliseconds that retrievals are suppressed after consecutive transient failures.
+     */
+    public long getMaxTransientDelay() {
+        return this.maxTransientDelay;
+    }
+
+    public void setMaxTransientDelay(long delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RetrievalFailureCache", "setMaxTransientDelay", "invalidDelay"));
+        }
+
+        this.maxTransientDelay = delay;
+    }
+
+    /**
+     * Indicates whether retrievals of a key are suppressed because its last retrieval failed and its backoff delay has
+     * not elapsed.
+     *
+     * @param key the key to test
+     *
+     * @return true if the key's retrieval should not be attempted, otherwise false
+     */
+    public boolean isSuppressed(K key) {
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(key);
+            return entry != null && entry.retryTime > this.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Returns the failure class of a key's most recent failure.
+     *
+     * @param key the key to query
+     *
+     * @return ABSENT or TRANSIENT, or 0 if the key has no recorded failures
+     */
+    public int getFailureClass(K key) {
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(key);
+            return (entry != null) ? entry.failureClass : 0;
+        }
+    }
+
+    /**
+     * Returns the number of consecutive failed retrievals of a key.
+     *
+     * @param key the key to query
+     *
+     * @return the number of failures since the key's last successful retrieval
+     */
+    public int getFailureCount(K key) {
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(key);
+            return (entry != null) ? entry.failureCount : 0;
+        }
+    }
+
+    /**
+     * Records a failed retrieval of a key, classifying the failure by the exception that caused it, and suppresses the
+     * key's retrievals for the failure's backoff delay.
+     *
+     * @param key the key whose retrieval failed
+     * @param ex  the exception that caused the failure, or null if the retrieval failed without an exception
+     */
+    public void recordFailure(K key, Throwable ex) {
+        this.recordFailure(key, classifyFailure(ex));
+    }
+
+    /**
+     * Records a failed retrieval of a key and suppresses the key's retrievals for the failure's backoff delay.
+     *
+     * @param key          the key whose retrieval failed
+     * @param failureClass the failure's class, either ABSENT or TRANSIENT
+     *
+     * @throws IllegalArgumentException If the failure class is not one of the accepted values
+     */
+    public void recordFailure(K key, int failureClass) {
+        if (failureClass != ABSENT && failureClass != TRANSIENT) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RetrievalFailureCache", "recordFailure", "invalidFailureClass"));
+        }
+
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                this.entries.put(key, entry);
+            }
+
+            entry.failureClass = failureClass;
+            entry.failureCount++;
+            entry.retryTime = this.currentTimeMillis() + this.backoffDelay(failureClass, entry.failureCount);
+        }
+    }
+
+    /**
+     * Records a successful retrieval of a key, clearing its failures.
+     *
+     * @param key the key whose retrieval succeeded
+     */
+    public void recordSuccess(K key) {
+        synchronized (this.entries) {
+            this.entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    /**
+     * Classifies a retrieval failure by its exception. Only servers reporting a resource as not found or gone, and
+     * retrievals that complete with nothing to decode, indicate an absent resource. Every other failure is transient,
+     * including other client errors such as an expired authorization, and unexpected exceptions, so that a failure
+     * that is not known to be permanent is retried with backoff rather than suppressed for the absent delay.
+     *
+     * @param ex the exception that caused the failure, or null if the retrieval failed without an exception
+     *
+     * @return ABSENT or TRANSIENT
+     */
+    public static int classifyFailure(Throwable ex) {
+        if (ex == null) {
+            return ABSENT; // retrieved, but nothing to decode; an empty tile or an error document
+        }
+
+        // Look for the failure's underlying cause, as failures may be wrapped by runtime exceptions.
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpTransport.StatusException) {
+                int responseCode = ((HttpTransport.StatusException) cause).getResponseCode();
+                return HttpTransport.isAbsent(responseCode) ? ABSENT : TRANSIENT;
+            }
+        }
+
+        return TRANSIENT;
+    }
+
+    /**
+     * Computes the delay before a key may be retrieved again, randomly shortened by up to half.
+     */
+    protected long backoffDelay(int failureClass, int failureCount) {
+        long delay;
+        if (failureClass == ABSENT) {
+            delay = this.absentDelay;
+        } else {
+            int doublings = Math.min(failureCount - 1, 30);
+            delay = Math.min(this.transientDelay << doublings, this.maxTransientDelay);
+        }
+
+        return delay - (long) (delay * 0.5 * this.random.nextDouble());
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    protected static class Entry {
+
+        public int failureClass;
+
+        public int failureCount;
+
+        public long retryTime;
+    }
+}
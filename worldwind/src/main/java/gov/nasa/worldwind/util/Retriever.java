@@ -30,13 +30,59 @@ public abstract class Retriever<K, O, V> {
 
     protected Pool<AsyncTask<K, O, V>> asyncTaskPool;
 
+    protected RetrieverMetrics metrics;
+
+    protected RetrievalFailureCache<K> failureCache;
+
     public Retriever(int maxSimultaneousRetrievals) {
         this.maxAsyncTasks = maxSimultaneousRetrievals;
         this.asyncTaskSet = new HashSet<>();
         this.asyncTaskPool = new BasicPool<>();
+        this.metrics = new RetrieverMetrics(this.getClass().getSimpleName());
+        this.failureCache = new RetrievalFailureCache<>();
+    }
+
+    public int getMaxSimultaneousRetrievals() {
+        return this.maxAsyncTasks;
+    }
+
+    /**
+     * Returns the counters and latency histograms describing the retrievals performed by this retriever.
+     *
+     * @return this retriever's metrics
+     */
+    public RetrieverMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns the record of this retriever's failed retrievals. Retrievals of a key whose last retrieval failed are
+     * rejected until the failure's backoff delay elapses.
+     *
+     * @return this retriever's failure cache
+     */
+    public RetrievalFailureCache<K> getFailureCache() {
+        return this.failureCache;
     }
 
     public void retrieve(K key, O options, Callback<K, O, V> callback) {
+        this.retrieve(key, options, null, callback);
+    }
+
+    /**
+     * Retrieves the value associated with a key on a task service thread, attributing the retrieval to a specified
+     * source in this retriever's metrics. The callback is notified when the retrieval succeeds or fails, or immediately
+     * when this retriever cannot accept the retrieval. Retrievals of a key whose last retrieval failed are rejected
+     * until the failure's backoff delay elapses.
+     *
+     * @param key      the key to retrieve
+     * @param options  the retrieval options, may be null
+     * @param source   the object requesting the retrieval, such as a layer, may be null
+     * @param callback the callback to notify
+     *
+     * @throws IllegalArgumentException If either the key or the callback is null
+     */
+    public void retrieve(K key, O options, Object source, Callback<K, O, V> callback) {
         if (key == null) {
             throw new IllegalArgumentException(
                 Logger.logMessage(Logger.ERROR, "Retriever", "retrieve", "missingKey"));
@@ -47,32 +93,49 @@ public abstract class Retriever<K, O, V> {
                 Logger.logMessage(Logger.ERROR, "Retriever", "retrieve", "missingCallback"));
         }
 
-        AsyncTask<K, O, V> task = this.obtainAsyncTask(key, options, callback);
+        if (this.failureCache.isSuppressed(key)) { // failed recently; wait for the backoff delay
+            this.metrics.recordSuppressed(source);
+            callback.retrievalRejected(this, key);
+            return;
+        }
+
+        AsyncTask<K, O, V> task = this.obtainAsyncTask(key, options, source, callback);
         if (task == null) { // too many async tasks running, or a task for 'key' is already running
             callback.retrievalRejected(this, key);
             return;
         }
 
+        // Record the retrieval as queued before handing it to the task service, which may start it immediately.
+        this.metrics.recordQueued(source);
+
         try {
             WorldWind.taskService().execute(task);
         } catch (RejectedExecutionException ignored) { // singleton task service is full
             this.recycleAsyncTask(task);
+            this.metrics.recordUnqueued(source);
+            this.metrics.recordRejected(source);
             callback.retrievalRejected(this, key);
         }
     }
 
     protected abstract void retrieveAsync(K key, O options, Callback<K, O, V> callback);
 
-    protected AsyncTask<K, O, V> obtainAsyncTask(K key, O options, Callback<K, O, V> callback) {
+    protected AsyncTask<K, O, V> obtainAsyncTask(K key, O options, Object source, Callback<K, O, V> callback) {
         synchronized (this.lock) {
-            if (this.asyncTaskSet.size() >= this.maxAsyncTasks || this.asyncTaskSet.contains(key)) {
+            if (this.asyncTaskSet.contains(key)) {
+                this.metrics.recordDuplicate(source);
+                return null;
+            }
+
+            if (this.asyncTaskSet.size() >= this.maxAsyncTasks) {
+                this.metrics.recordRejected(source);
                 return null;
             }
 
             this.asyncTaskSet.add(key);
 
             AsyncTask<K, O, V> instance = this.asyncTaskPool.acquire();
-            return (instance != null ? instance : new AsyncTask<K, O, V>()).set(this, key, options, callback);
+            return (instance != null ? instance : new AsyncTask<K, O, V>()).set(this, key, options, source, callback);
         }
     }
 
@@ -83,7 +146,13 @@ public abstract class Retriever<K, O, V> {
         }
     }
 
-    protected static class AsyncTask<K, O, V> implements Runnable {
+    /**
+     * Retrieval task executed on a task service thread. AsyncTask passes itself to retrieveAsync as the callback in
+     * order to record the retrieval's outcome in the retriever's metrics and failure cache, then forwards each
+     * notification to the callback specified in the retrieval request. A retrieval that delivers several keys succeeds
+     * when any of its deliveries succeeds.
+     */
+    protected static class AsyncTask<K, O, V> implements Runnable, Callback<K, O, V> {
 
         protected Retriever<K, O, V> retriever;
 
@@ -91,13 +160,24 @@ public abstract class Retriever<K, O, V> {
 
         protected O options;
 
+        protected Object source;
+
         protected Callback<K, O, V> callback;
 
-        public AsyncTask<K, O, V> set(Retriever<K, O, V> retriever, K key, O options, Callback<K, O, V> callback) {
+        protected long queueTime;
+
+        protected long startTime;
+
+        protected int succeededCount;
+
+        public AsyncTask<K, O, V> set(Retriever<K, O, V> retriever, K key, O options, Object source,
+                                      Callback<K, O, V> callback) {
             this.retriever = retriever;
             this.key = key;
             this.options = options;
+            this.source = source;
             this.callback = callback;
+            this.queueTime = System.nanoTime();
             return this;
         }
 
@@ -105,19 +185,57 @@ public abstract class Retriever<K, O, V> {
             this.retriever = null;
             this.key = null;
             this.options = null;
+            this.source = null;
             this.callback = null;
+            this.succeededCount = 0;
             return this;
         }
 
         @Override
         public void run() {
+            this.startTime = System.nanoTime();
+            this.retriever.metrics.recordStarted(this.startTime - this.queueTime);
+
+            // Trace the retrieval using the retriever's metrics name, which identifies the retriever's purpose.
+            TraceBuffer trace = WorldWind.traceBuffer();
+            String traceName = this.retriever.metrics.getDisplayName();
+            trace.begin(TraceBuffer.CATEGORY_RETRIEVAL, traceName, this.key);
+
             try {
-                this.retriever.retrieveAsync(this.key, this.options, this.callback);
+                this.retriever.retrieveAsync(this.key, this.options, this);
             } catch (Throwable ex) {
-                this.callback.retrievalFailed(this.retriever, this.key, ex);
+                this.retrievalFailed(this.retriever, this.key, ex);
             } finally {
+                // Record the retrieval's outcome once all of its deliveries are known. A retrieval that returned
+                // without notifying its callback has failed.
+                long retrievalTime = System.nanoTime() - this.startTime;
+                if (this.succeededCount > 0) {
+                    this.retriever.metrics.recordSucceeded(this.source, retrievalTime);
+                } else {
+                    this.retriever.metrics.recordFailed(this.source, retrievalTime);
+                }
+                trace.end(TraceBuffer.CATEGORY_RETRIEVAL, traceName);
                 this.retriever.recycleAsyncTask(this);
             }
         }
+
+        @Override
+        public void retrievalSucceeded(Retriever<K, O, V> retriever, K key, O options, V value) {
+            this.succeededCount++;
+            this.retriever.failureCache.recordSuccess(key);
+            this.retriever.failureCache.recordSuccess(this.key); // the retrieval's key, when it delivers other keys
+            this.callback.retrievalSucceeded(retriever, key, options, value);
+        }
+
+        @Override
+        public void retrievalFailed(Retriever<K, O, V> retriever, K key, Throwable ex) {
+            this.retriever.failureCache.recordFailure(key, ex);
+            this.callback.retrievalFailed(retriever, key, ex);
+        }
+
+        @Override
+        public void retrievalRejected(Retriever<K, O, V> retriever, K key) {
+            this.callback.retrievalRejected(retriever, key);
+        }
     }
 }
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe counters and latency histograms describing the retrievals performed by a {@link Retriever}. A retrieval
+ * is queued when the retriever accepts it, started when a task service thread begins executing it, and then either
+ * succeeds or fails. Retrievals the retriever cannot accept are counted as rejected, with the exception of duplicate
+ * retrievals for a key that is already in flight and retrievals of a key that failed recently, which are counted
+ * separately.
+ * <p/>
+ * Retrievals may be attributed to a source object, such as the layer that requested them. Their counters are then also
+ * tracked for each source, and reported by {@link #getSourceMetrics()}. Sources are weakly referenced; a source's
+ * counters are discarded when the source is no longer in use, such as a layer removed from the World Window.
+ */
+public class RetrieverMetrics {
+
+    protected String displayName;
+
+    protected AtomicLong queuedCount = new AtomicLong();
+
+    protected AtomicLong startedCount = new AtomicLong();
+
+    protected AtomicLong succeededCount = new AtomicLong();
+
+    protected AtomicLong failedCount = new AtomicLong();
+
+    protected AtomicLong rejectedCount = new AtomicLong();
+
+    protected AtomicLong duplicateCount = new AtomicLong();
+
+    protected AtomicLong suppressedCount = new AtomicLong();
+
+    protected AtomicLong bytesFetched = new AtomicLong();
+
+    protected RollingLatencyHistogram queueTimeHistogram = new RollingLatencyHistogram();
+
+    protected RollingLatencyHistogram retrievalTimeHistogram = new RollingLatencyHistogram();
+
+    protected RollingLatencyHistogram timeToFirstByteHistogram = new RollingLatencyHistogram();
+
+    protected RollingLatencyHistogram decodeTimeHistogram = new RollingLatencyHistogram();
+
+    protected final Map<Object, SourceCounts> sourceCounts = new WeakHashMap<>();
+
+    protected long sourceSequence;
+
+    public RetrieverMetrics(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return this.displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return the number of retrievals accepted by the retriever
+     */
+    public long getQueuedCount() {
+        return this.queuedCount.get();
+    }
+
+    /**
+     * @return the number of accepted retrievals that have begun executing on a task service thread
+     */
+    public long getStartedCount() {
+        return this.startedCount.get();
+    }
+
+    public long getSucceededCount() {
+        return this.succeededCount.get();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    /**
+     * @return the number of retrievals rejected because the retriever or the task service was at capacity
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * @return the number of retrievals ignored because a retrieval for the same key was already in flight
+     */
+    public long getDuplicateCount() {
+        return this.duplicateCount.get();
+    }
+
+    /**
+     * @return the number of retrievals ignored because the key's last retrieval failed and its backoff delay had not
+     * elapsed
+     */
+    public long getSuppressedCount() {
+        return this.suppressedCount.get();
+    }
+
+    /**
+     * @return the number of retrievals that have been started but have not yet succeeded or failed
+     */
+    public long getActiveCount() {
+        return this.startedCount.get() - this.succeededCount.get() - this.failedCount.get();
+    }
+
+    /**
+     * @return the number of bytes read from remote resources
+     */
+    public long getBytesFetched() {
+        return this.bytesFetched.get();
+    }
+
+    /**
+     * Returns the distribution of the time retrievals spend waiting for a task service thread, from the time they are
+     * queued until they start.
+     *
+     * @param result a pre-allocated histogram in which to return the queue times
+     *
+     * @return the result argument set to the queue times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getQueueTimeHistogram(LatencyHistogram result) {
+        return this.queueTimeHistogram.getCumulativeHistogram(result);
+    }
+
+    /**
+     * Returns the distribution of the time retrievals spend executing, from the time they start until they succeed or
+     * fail.
+     *
+     * @param result a pre-allocated histogram in which to return the retrieval times
+     *
+     * @return the result argument set to the retrieval times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getRetrievalTimeHistogram(LatencyHistogram result) {
+        return this.retrievalTimeHistogram.getCumulativeHistogram(result);
+    }
+
+    /**
+     * Returns the distribution of the time remote retrievals spend waiting for the server, from the time the connection
+     * is opened until the response headers are available.
+     *
+     * @param result a pre-allocated histogram in which to return the times to first byte
+     *
+     * @return the result argument set to the times to first byte
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getTimeToFirstByteHistogram(LatencyHistogram result) {
+        return this.timeToFirstByteHistogram.getCumulativeHistogram(result);
+    }
+
+    /**
+     * Returns the distribution of the time retrievals spend decoding their resource. Decoders that read directly from
+     * a network stream include the time spent receiving the response body.
+     *
+     * @param result a pre-allocated histogram in which to return the decode times
+     *
+     * @return the result argument set to the decode times
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getDecodeTimeHistogram(LatencyHistogram result) {
+        return this.decodeTimeHistogram.getCumulativeHistogram(result);
+    }
+
+    /**
+     * Returns the retrieval counters of each source that has attributed retrievals to this retriever metrics, in the
+     * order the sources first appeared. Retrievals without a source, and sources no longer in use, are omitted.
+     *
+     * @return an unmodifiable snapshot of the per-source metrics
+     */
+    public List<SourceMetrics> getSourceMetrics() {
+        synchronized (this.sourceCounts) {
+            List<Map.Entry<Object, SourceCounts>> entries = new ArrayList<>(this.sourceCounts.entrySet());
+            Collections.sort(entries, new Comparator<Map.Entry<Object, SourceCounts>>() {
+                @Override
+                public int compare(Map.Entry<Object, SourceCounts> lhs, Map.Entry<Object, SourceCounts> rhs) {
+                    return (lhs.getValue().sequence < rhs.getValue().sequence) ? -1
+                        : ((lhs.getValue().sequence == rhs.getValue().sequence) ? 0 : 1);
+                }
+            });
+
+            List<SourceMetrics> list = new ArrayList<>(entries.size());
+            for (Map.Entry<Object, SourceCounts> entry : entries) {
+                SourceCounts counts = entry.getValue();
+                list.add(new SourceMetrics(entry.getKey(), counts.queued, counts.succeeded, counts.failed,
+                    counts.rejected));
+            }
+
+            return Collections.unmodifiableList(list);
+        }
+    }
+
+    public void recordQueued(Object source) {
+        this.queuedCount.incrementAndGet();
+
+        if (source != null) {
+            synchronized (this.sourceCounts) {
+                this.sourceCounts(source).queued++;
+            }
+        }
+    }
+
+    /**
+     * Reverses a call to {@link #recordQueued(Object)} for a retrieval that could not be queued after all.
+     *
+     * @param source the retrieval's source, or null if the retrieval has no source
+     */
+    public void recordUnqueued(Object source) {
+        this.queuedCount.decrementAndGet();
+
+        if (source != null) {
+            synchronized (this.sourceCounts) {
+                this.sourceCounts(source).queued--;
+            }
+        }
+    }
+
+    public void recordRejected(Object source) {
+        this.rejectedCount.incrementAndGet();
+
+        if (source != null) {
+            synchronized (this.sourceCounts) {
+                this.sourceCounts(source).rejected++;
+            }
+        }
+    }
+
+    public void recordDuplicate(Object source) {
+        this.duplicateCount.incrementAndGet();
+    }
+
+    public void recordSuppressed(Object source) {
+        this.suppressedCount.incrementAndGet();
+    }
+
+    /**
+     * Records the start of a queued retrieval.
+     *
+     * @param queueTimeNanos the time the retrieval spent queued in nanoseconds
+     */
+    public void recordStarted(long queueTimeNanos) {
+        this.startedCount.incrementAndGet();
+        this.queueTimeHistogram.record(queueTimeNanos);
+    }
+
+    /**
+     * Records the successful completion of a retrieval.
+     *
+     * @param source             the retrieval's source, or null if the retrieval has no source
+     * @param retrievalTimeNanos the time the retrieval spent executing in nanoseconds
+     */
+    public void recordSucceeded(Object source, long retrievalTimeNanos) {
+        this.succeededCount.incrementAndGet();
+        this.retrievalTimeHistogram.record(retrievalTimeNanos);
+
+        if (source != null) {
+            synchronized (this.sourceCounts) {
+                this.sourceCounts(source).succeeded++;
+            }
+        }
+    }
+
+    /**
+     * Records the failed completion of a retrieval.
+     *
+     * @param source             the retrieval's source, or null if the retrieval has no source
+     * @param retrievalTimeNanos the time the retrieval spent executing in nanoseconds
+     */
+    public void recordFailed(Object source, long retrievalTimeNanos) {
+        this.failedCount.incrementAndGet();
+        this.retrievalTimeHistogram.record(retrievalTimeNanos);
+
+        if (source != null) {
+            synchronized (this.sourceCounts) {
+                this.sourceCounts(source).failed++;
+            }
+        }
+    }
+
+    /**
+     * Records the number of bytes read from a remote resource.
+     *
+     * @param bytes the number of bytes read
+     */
+    public void recordBytesFetched(long bytes) {
+        this.bytesFetched.addAndGet(bytes);
+    }
+
+    /**
+     * Records the time a remote retrieval spent waiting for the server's response headers.
+     *
+     * @param timeNanos the elapsed time in nanoseconds
+     */
+    public void recordTimeToFirstByte(long timeNanos) {
+        this.timeToFirstByteHistogram.record(timeNanos);
+    }
+
+    /**
+     * Records the time a retrieval spent decoding its resource.
+     *
+     * @param timeNanos the elapsed time in nanoseconds
+     */
+    public void recordDecodeTime(long timeNanos) {
+        this.decodeTimeHistogram.record(timeNanos);
+    }
+
+    public void reset() {
+        this.queuedCount.set(0);
+        this.startedCount.set(0);
+        this.succeededCount.set(0);
+        this.failedCount.set(0);
+        this.rejectedCount.set(0);
+        this.duplicateCount.set(0);
+        this.suppressedCount.set(0);
+        this.bytesFetched.set(0);
+        this.queueTimeHistogram.reset();
+        this.retrievalTimeHistogram.reset();
+        this.timeToFirstByteHistogram.reset();
+        this.decodeTimeHistogram.reset();
+
+        synchronized (this.sourceCounts) {
+            this.sourceCounts.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        StringBuilder sb = new StringBuilder(String.valueOf(this.displayName));
+        sb.append("{queued=").append(this.getQueuedCount());
+        sb.append(", started=").append(this.getStartedCount());
+        sb.append(", succeeded=").append(this.getSucceededCount());
+        sb.append(", failed=").append(this.getFailedCount());
+        sb.append(", rejected=").append(this.getRejectedCount());
+        sb.append(", duplicate=").append(this.getDuplicateCount());
+        sb.append(", suppressed=").append(this.getSuppressedCount());
+        sb.append(", bytesFetched=").append(String.format(Locale.US, "%,.0f", this.getBytesFetched() / 1024.0)).append("KB");
+        sb.append(", queueTime={").append(this.getQueueTimeHistogram(histogram)).append("}");
+        sb.append(", retrievalTime={").append(this.getRetrievalTimeHistogram(histogram)).append("}");
+        sb.append(", timeToFirstByte={").append(this.getTimeToFirstByteHistogram(histogram)).append("}");
+        sb.append(", decodeTime={").append(this.getDecodeTimeHistogram(histogram)).append("}");
+        sb.append("}");
+        return sb.toString();
+    }
+
+    protected SourceCounts sourceCounts(Object source) {
+        SourceCounts counts = this.sourceCounts.get(source);
+        if (counts == null) {
+            counts = new SourceCounts();
+            counts.sequence = this.sourceSequence++;
+            this.sourceCounts.put(source, counts);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Retrieval counters attributed to a single source.
+     */
+    public static class SourceMetrics {
+
+        protected final Object source;
+
+        protected final long queuedCount;
+
+        protected final long succeededCount;
+
+        protected final long failedCount;
+
+        protected final long rejectedCount;
+
+        public SourceMetrics(Object source, long queuedCount, long succeededCount, long failedCount, long rejectedCount) {
+            this.source = source;
+            this.queuedCount = queuedCount;
+            this.succeededCount = succeededCount;
+            this.failedCount = failedCount;
+            this.rejectedCount = rejectedCount;
+        }
+
+        public Object getSource() {
+            return this.source;
+        }
+
+        public long getQueuedCount() {
+            return this.queuedCount;
+        }
+
+        public long getSucceededCount() {
+            return this.succeededCount;
+        }
+
+        public long getFailedCount() {
+            return this.failedCount;
+        }
+
+        public long getRejectedCount() {
+            return this.rejectedCount;
+        }
+    }
+
+    protected static class SourceCounts {
+
+        public long sequence;
+
+        public long queued;
+
+        public long succeeded;
+
+        public long failed;
+
+        public long rejected;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread safe latency histogram that tracks both the values recorded since the last reset and the values recorded
+ * within a rolling time window. The window is divided into a fixed number of intervals, each backed by a {@link
+ * LatencyHistogram}. Recording into an interval that has rolled out of the window reuses that interval's memory, so
+ * recording performs no memory allocation.
+ */
+public class RollingLatencyHistogram {
+
+    protected static final int DEFAULT_INTERVAL_COUNT = 5;
+
+    protected static final long DEFAULT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    protected LatencyHistogram cumulative = new LatencyHistogram();
+
+    protected LatencyHistogram[] intervals;
+
+    protected long[] intervalEpochs;
+
+    protected long intervalNanos;
+
+    public RollingLatencyHistogram() {
+        this(DEFAULT_WINDOW_NANOS, TimeUnit.NANOSECONDS, DEFAULT_INTERVAL_COUNT);
+    }
+
+    /**
+     * Constructs a rolling latency histogram with a specified window duration.
+     *
+     * @param window        the rolling window duration
+     * @param unit          the rolling window duration's time unit
+     * @param intervalCount the number of intervals the window is divided into; higher values track the window more
+     *                      closely at the expense of memory
+     *
+     * @throws IllegalArgumentException If the window or the interval count is less than 1
+     */
+    public RollingLatencyHistogram(long window, TimeUnit unit, int intervalCount) {
+        if (intervalCount < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RollingLatencyHistogram", "constructor", "invalidCount"));
+        }
+
+        this.intervals = new LatencyHistogram[intervalCount];
+        this.intervalEpochs = new long[intervalCount];
+        for (int idx = 0; idx < intervalCount; idx++) {
+            this.intervals[idx] = new LatencyHistogram();
+            this.intervalEpochs[idx] = Long.MIN_VALUE;
+        }
+
+        this.setWindow(window, unit);
+    }
+
+    /**
+     * @return the rolling window duration in nanoseconds
+     */
+    public synchronized long getWindow() {
+        return this.intervalNanos * this.intervals.length;
+    }
+
+    /**
+     * Sets the rolling window duration. This discards the values currently in the window, but retains the values
+     * recorded since the last reset.
+     *
+     * @param window the rolling window duration
+     * @param unit   the rolling window duration's time unit
+     *
+     * @throws IllegalArgumentException If the window is less than 1 or the unit is null
+     */
+    public synchronized void setWindow(long window, TimeUnit unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RollingLatencyHistogram", "setWindow", "missingUnit"));
+        }
+
+        long windowNanos = unit.toNanos(window);
+        if (windowNanos < this.intervals.length) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RollingLatencyHistogram", "setWindow", "invalidWindow"));
+        }
+
+        this.intervalNanos = windowNanos / this.intervals.length;
+        this.resetWindow();
+    }
+
+    /**
+     * Records a single value at the current time, as indicated by System.nanoTime.
+     *
+     * @param value the value to record in nanoseconds
+     */
+    public void record(long value) {
+        this.record(value, System.nanoTime());
+    }
+
+    /**
+     * Records a single value at a specified time.
+     *
+     * @param value     the value to record in nanoseconds
+     * @param timeNanos the time the value was recorded, in the time base of System.nanoTime
+     */
+    public synchronized void record(long value, long timeNanos) {
+        long epoch = floorDiv(timeNanos, this.intervalNanos);
+        int index = (int) floorMod(epoch, this.intervals.length);
+
+        // Reuse the interval when it last held values for an epoch that has since rolled out of the window.
+        if (this.intervalEpochs[index] != epoch) {
+            this.intervalEpochs[index] = epoch;
+            this.intervals[index].reset();
+        }
+
+        this.intervals[index].record(value);
+        this.cumulative.record(value);
+    }
+
+    /**
+     * Copies the values recorded within the rolling window ending at the current time into a specified histogram.
+     *
+     * @param result a pre-allocated histogram in which to return the window's values
+     *
+     * @return the result argument set to the window's values
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public LatencyHistogram getWindowHistogram(LatencyHistogram result) {
+        return this.getWindowHistogram(System.nanoTime(), result);
+    }
+
+    /**
+     * Copies the values recorded within the rolling window ending at a specified time into a specified histogram.
+     *
+     * @param timeNanos the time at which the window ends, in the time base of System.nanoTime
+     * @param result    a pre-allocated histogram in which to return the window's values
+     *
+     * @return the result argument set to the window's values
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public synchronized LatencyHistogram getWindowHistogram(long timeNanos, LatencyHistogram result) {
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RollingLatencyHistogram", "getWindowHistogram", "missingResult"));
+        }
+
+        result.reset();
+
+        long epoch = floorDiv(timeNanos, this.intervalNanos);
+        long oldestEpoch = epoch - this.intervals.length + 1;
+        for (int idx = 0, len = this.intervals.length; idx < len; idx++) {
+            long intervalEpoch = this.intervalEpochs[idx];
+            if (intervalEpoch >= oldestEpoch && intervalEpoch <= epoch) {
+                result.add(this.intervals[idx]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Copies the values recorded since this histogram was constructed or last reset into a specified histogram.
+     *
+     * @param result a pre-allocated histogram in which to return the values
+     *
+     * @return the result argument set to the cumulative values
+     *
+     * @throws IllegalArgumentException If the result is null
+     */
+    public synchronized LatencyHistogram getCumulativeHistogram(LatencyHistogram result) {
+        if (result == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "RollingLatencyHistogram", "getCumulativeHistogram", "missingResult"));
+        }
+
+        return result.set(this.cumulative);
+    }
+
+    /**
+     * Removes all recorded values from this histogram, including the values in the rolling window.
+     */
+    public synchronized void reset() {
+        this.cumulative.reset();
+        this.resetWindow();
+    }
+
+    protected void resetWindow() {
+        for (int idx = 0, len = this.intervals.length; idx < len; idx++) {
+            this.intervals[idx].reset();
+            this.intervalEpochs[idx] = Long.MIN_VALUE;
+        }
+    }
+
+    protected static long floorDiv(long x, long y) {
+        long q = x / y;
+        return ((x % y) != 0 && ((x ^ y) < 0)) ? q - 1 : q; // Math.floorDiv requires Android API level 24
+    }
+
+    protected static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+}
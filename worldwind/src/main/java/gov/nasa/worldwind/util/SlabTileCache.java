@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of fixed-size tiles stored outside the Java heap. The cache's memory is divided into slots
+ * of equal size, allocated as direct buffers in segments of several slots as the cache fills. Entries occupy one slot
+ * each, and evicted or removed entries return their slot to a free list for reuse, so the cache's memory is never
+ * reallocated once allocated and never scanned by the garbage collector.
+ * <p/>
+ * Tiles are added to the cache without copying by decoding directly into a slot: a decoder on any thread reserves a
+ * slot with {@link #reserve()}, writes the tile's samples to it, and passes it to {@link #put(Object, ByteBuffer)}, or
+ * returns it with {@link #release(ByteBuffer)} if decoding fails. Tiles decoded into other buffers are copied into a
+ * slot when added.
+ * <p/>
+ * Bookkeeping is thread safe. Tile contents, however, are read without synchronization, and entries are evicted only
+ * by put, so a buffer returned by {@link #get(Object)} remains valid until the next call to put, remove or clear. These
+ * methods and the reading of tile contents are expected to occur on a single thread. Reserve and release may be called
+ * from any thread; reserve never evicts an entry, and instead returns null when no slot is free. Put keeps a minimum
+ * number of slots free for reservation by evicting the least recently used entries.
+ */
+public class SlabTileCache<K> {
+
+    protected static final int SEGMENT_SIZE = 1024 * 1024 * 4;
+
+    protected final Object lock = new Object();
+
+    protected final int slotSize;
+
+    protected final int slotCount;
+
+    protected final int segmentSlots;
+
+    protected int minFreeSlots = 4;
+
+    protected LinkedHashMap<K, Integer> entries = new LinkedHashMap<>(16, 0.75f, true); // access order
+
+    protected IdentityHashMap<ByteBuffer, Integer> slotIndices = new IdentityHashMap<>();
+
+    protected ByteBuffer[] slots;
+
+    protected ShortBuffer[] slotViews;
+
+    protected boolean[] reserved;
+
+    protected int[] freeSlots;
+
+    protected int freeCount;
+
+    protected int allocatedCount;
+
+    /**
+     * Constructs a tile cache with a specified capacity and slot size. No memory is allocated until tiles are reserved
+     * or added.
+     *
+     * @param capacity the cache's capacity in bytes
+     * @param slotSize the size of each tile slot in bytes, an even number
+     *
+     * @throws IllegalArgumentException If the slot size is less than 2 or odd, or if the capacity is less than the slot
+     *                                  size
+     */
+    public SlabTileCache(int capacity, int slotSize) {
+        if (slotSize < 2 || (slotSize & 1) != 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SlabTileCache", "constructor", "invalidSize"));
+        }
+
+        if (capacity < slotSize) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SlabTileCache", "constructor", "invalidCapacity"));
+        }
+
+        this.slotSize = slotSize;
+        this.slotCount = capacity / slotSize;
+        this.segmentSlots = Math.max(1, Math.min(this.slotCount, SEGMENT_SIZE / slotSize));
+        this.slots = new ByteBuffer[this.slotCount];
+        this.slotViews = new ShortBuffer[this.slotCount];
+        this.reserved = new boolean[this.slotCount];
+        this.freeSlots = new int[this.slotCount];
+    }
+
+    /**
+     * @return the cache's capacity in bytes, a multiple of the slot size
+     */
+    public int getCapacity() {
+        return this.slotCount * this.slotSize;
+    }
+
+    /**
+     * @return the size of each tile slot in bytes
+     */
+    public int getSlotSize() {
+        return this.slotSize;
+    }
+
+    /**
+     * @return the number of bytes occupied by cached tiles
+     */
+    public int getUsedCapacity() {
+        synchronized (this.lock) {
+            return this.entries.size() * this.slotSize;
+        }
+    }
+
+    /**
+     * @return the number of bytes of direct memory allocated to the cache
+     */
+    public int getAllocatedCapacity() {
+        synchronized (this.lock) {
+            return this.allocatedCount * this.slotSize;
+        }
+    }
+
+    public int getEntryCount() {
+        synchronized (this.lock) {
+            return this.entries.size();
+        }
+    }
+
+    public int getMinFreeSlots() {
+        return this.minFreeSlots;
+    }
+
+    /**
+     * Sets the number of slots put keeps free for reservation, typically the number of tiles decoded concurrently.
+     *
+     * @param minFreeSlots the minimum number of free slots
+     *
+     * @throws IllegalArgumentException If the number is negative
+     */
+    public void setMinFreeSlots(int minFreeSlots) {
+        if (minFreeSlots < 0) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SlabTileCache", "setMinFreeSlots", "invalidCount"));
+        }
+
+        synchronized (this.lock) {
+            this.minFreeSlots = minFreeSlots;
+        }
+    }
+
+    /**
+     * Returns the tile associated with a key, as a native byte order view of the tile's 16-bit samples. The view's
+     * limit indicates the number of samples in the tile. The view is shared; callers should read it with absolute
+     * indices, and must not retain it beyond the next call to put, remove or clear.
+     *
+     * @param key the tile's key
+     *
+     * @return the tile's samples, or null if the key is not in the cache
+     */
+    public ShortBuffer get(K key) {
+        synchronized (this.lock) {
+            Integer slot = this.entries.get(key);
+            return (slot != null) ? this.slotViews[slot] : null;
+        }
+    }
+
+    public boolean containsKey(K key) {
+        synchronized (this.lock) {
+            return this.entries.containsKey(key);
+        }
+    }
+
+    /**
+     * Reserves a free slot for decoding a tile. The returned buffer is cleared, in native byte order, and has a
+     * capacity of the slot size. The slot must subsequently be passed to put or release. This may be called from any
+     * thread, and never evicts an entry.
+     *
+     * @return a reserved slot, or null if no slot is free
+     */
+    public ByteBuffer reserve() {
+        synchronized (this.lock) {
+            int slot = this.takeFreeSlot();
+            if (slot < 0) {
+                return null;
+            }
+
+            this.reserved[slot] = true;
+            ByteBuffer buffer = this.slots[slot];
+            buffer.clear();
+            buffer.order(ByteOrder.nativeOrder());
+            return buffer;
+        }
+    }
+
+    /**
+     * Returns a slot obtained from reserve to the free list without adding it to the cache. Buffers that are not
+     * reserved slots of this cache are ignored.
+     *
+     * @param buffer the reserved slot
+     */
+    public void release(ByteBuffer buffer) {
+        synchronized (this.lock) {
+            Integer slot = this.slotIndices.get(buffer);
+            if (slot != null && this.reserved[slot]) {
+                this.reserved[slot] = false;
+                this.freeSlots[this.freeCount++] = slot;
+            }
+        }
+    }
+
+    /**
+     * Adds a tile to the cache, replacing any tile associated with the same key. The tile's samples are the native byte
+     * order 16-bit values between the buffer's position and limit. A slot obtained from reserve whose samples begin at
+     * position 0 is added without copying; any other buffer is copied into a free slot, evicting the least recently
+     * used entry if no slot is free.
+     *
+     * @param key    the tile's key
+     * @param buffer the tile's samples
+     *
+     * @return true if the tile was added, false if the tile is larger than the slot size
+     *
+     * @throws IllegalArgumentException If the key or the buffer is null
+     */
+    public boolean put(K key, ByteBuffer buffer) {
+        if (key == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SlabTileCache", "put", "missingKey"));
+        }
+
+        if (buffer == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "SlabTileCache", "put", "missingBuffer"));
+        }
+
+        synchronized (this.lock) {
+            int size = buffer.remaining();
+            if (size > this.slotSize) {
+                return false;
+            }
+
+            Integer index = this.slotIndices.get(buffer);
+            int slot;
+            if (index != null && this.reserved[index] && buffer.position() == 0) {
+                slot = index; // the tile was decoded into a reserved slot
+                this.reserved[slot] = false;
+            } else {
+                this.makeSpace(1);
+                slot = this.takeFreeSlot();
+                if (slot < 0) {
+                    return false; // every slot is reserved
+                }
+
+                ByteBuffer slotBuffer = this.slots[slot];
+                slotBuffer.clear();
+                slotBuffer.put(buffer.duplicate());
+                if (index != null && this.reserved[index]) {
+                    this.release(buffer);
+                }
+            }
+
+            this.slotViews[slot].clear().limit(size / 2);
+
+            Integer oldSlot = this.entries.put(key, slot);
+            if (oldSlot != null) {
+                this.freeSlots[this.freeCount++] = oldSlot;
+            }
+
+            // Keep slots free for decoding subsequent tiles, retaining at least the tile just added.
+            this.makeSpace(Math.min(this.minFreeSlots, this.slotCount - 1));
+            return true;
+        }
+    }
+
+    public boolean remove(K key) {
+        synchronized (this.lock) {
+            Integer slot = this.entries.remove(key);
+            if (slot != null) {
+                this.freeSlots[this.freeCount++] = slot;
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes every tile from the cache. Reserved slots remain reserved. Allocated memory is retained for reuse.
+     */
+    public void clear() {
+        synchronized (this.lock) {
+            for (Integer slot : this.entries.values()) {
+                this.freeSlots[this.freeCount++] = slot;
+            }
+
+            this.entries.clear();
+        }
+    }
+
+    protected int takeFreeSlot() {
+        if (this.freeCount == 0 && this.allocatedCount < this.slotCount) {
+            this.allocateSegment();
+        }
+
+        return (this.freeCount > 0) ? this.freeSlots[--this.freeCount] : -1;
+    }
+
+    protected void allocateSegment() {
+        int count = Math.min(this.segmentSlots, this.slotCount - this.allocatedCount);
+        ByteBuffer segment = ByteBuffer.allocateDirect(count * this.slotSize).order(ByteOrder.nativeOrder());
+
+        // Push the new slots in reverse order so that they are taken in address order.
+        for (int idx = count - 1; idx >= 0; idx--) {
+            int slot = this.allocatedCount + idx;
+            segment.limit((idx + 1) * this.slotSize).position(idx * this.slotSize);
+            ByteBuffer buffer = segment.slice().order(ByteOrder.nativeOrder());
+            this.slots[slot] = buffer;
+            this.slotViews[slot] = buffer.asShortBuffer();
+            this.slotIndices.put(buffer, slot);
+            this.freeSlots[this.freeCount++] = slot;
+        }
+
+        this.allocatedCount += count;
+    }
+
+    protected void makeSpace(int freeSlotsRequired) {
+        int unallocated = this.slotCount - this.allocatedCount;
+
+        // Evict the least recently used entries until the required number of slots are free or may be allocated.
+        Iterator<Map.Entry<K, Integer>> iterator = this.entries.entrySet().iterator();
+        while (this.freeCount + unallocated < freeSlotsRequired && iterator.hasNext()) {
+            this.freeSlots[this.freeCount++] = iterator.next().getValue();
+            iterator.remove();
+        }
+    }
+}
@@ -257,6 +257,34 @@ public class Tile {
         return this.getExtent(rc).intersectsFrustum(frustum);
     }
 
+    /**
+     * Determines whether this tile's Cartesian extent is inside, outside or intersecting a specified frustum, testing
+     * only the frustum planes identified by a plane mask. See {@link BoundingBox#intersectsFrustum(Frustum, int)}.
+     * Passing the mask returned for a tile when testing its descendants skips the planes the tile is entirely inside,
+     * and a mask of {@link BoundingBox#FRUSTUM_INSIDE} skips the test entirely, without computing this tile's extent.
+     *
+     * @param rc        the current render context
+     * @param frustum   the frustum of interest
+     * @param planeMask the frustum planes to test, {@link BoundingBox#FRUSTUM_PLANES} to test all planes
+     *
+     * @return {@link BoundingBox#FRUSTUM_OUTSIDE} if this tile's extent is outside the frustum, {@link
+     * BoundingBox#FRUSTUM_INSIDE} if it is inside the tested planes, otherwise the mask of tested planes it intersects
+     *
+     * @throws IllegalArgumentException If the frustum is null
+     */
+    public int intersectsFrustum(RenderContext rc, Frustum frustum, int planeMask) {
+        if (frustum == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "Tile", "intersectsFrustum", "missingFrustum"));
+        }
+
+        if (planeMask == BoundingBox.FRUSTUM_INSIDE) {
+            return BoundingBox.FRUSTUM_INSIDE; // the tile's ancestor is inside the frustum
+        }
+
+        return this.getExtent(rc).intersectsFrustum(frustum, planeMask);
+    }
+
     /**
      * Indicates whether this tile intersects a specified sector.
      *
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity ring buffer of begin and end trace events, exportable in the Chrome trace-event JSON format for viewing
+ * in Perfetto or chrome://tracing. Tracing is disabled by default, in which case recording an event has no effect
+ * beyond reading a volatile flag.
+ * <p/>
+ * TraceBuffer is lock free and may be written from any thread. Once the buffer is full the oldest events are
+ * overwritten. Events are recorded without memory allocation; event names and categories are therefore expected to
+ * be existing strings, and event arguments are converted to strings only when the buffer is exported.
+ * <p/>
+ * Each slot is guarded by a sequence number in the manner of a seqlock. The slot's fields are atomic array elements
+ * rather than plain array elements, which keeps the reads of a slot's fields between the reader's two sequence number
+ * reads; plain reads may be reordered past the second sequence number read, exporting a torn event.
+ */
+public class TraceBuffer {
+
+    public static final String CATEGORY_FRAME = "frame";
+
+    public static final String CATEGORY_LAYER = "layer";
+
+    public static final String CATEGORY_DRAWABLE = "drawable";
+
+    public static final String CATEGORY_RETRIEVAL = "retrieval";
+
+    protected static final int DEFAULT_CAPACITY = 1 << 16;
+
+    protected static final char PHASE_BEGIN = 'B';
+
+    protected static final char PHASE_END = 'E';
+
+    protected volatile boolean enabled;
+
+    protected int mask;
+
+    protected AtomicLong cursor = new AtomicLong();
+
+    protected AtomicLongArray sequences;
+
+    protected AtomicLongArray times;
+
+    protected AtomicIntegerArray phases;
+
+    protected AtomicReferenceArray<String> categories;
+
+    protected AtomicReferenceArray<String> names;
+
+    protected AtomicReferenceArray<Object> args;
+
+    protected AtomicLongArray threadIds;
+
+    protected AtomicReferenceArray<String> threadNames;
+
+    public TraceBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a trace buffer with a specified capacity.
+     *
+     * @param capacity the maximum number of events retained, rounded up to the nearest power of two
+     *
+     * @throws IllegalArgumentException If the capacity is less than 1
+     */
+    public TraceBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TraceBuffer", "constructor", "invalidCapacity"));
+        }
+
+        int size = (capacity > 1) ? Integer.highestOneBit(capacity - 1) << 1 : 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.times = new AtomicLongArray(size);
+        this.phases = new AtomicIntegerArray(size);
+        this.categories = new AtomicReferenceArray<>(size);
+        this.names = new AtomicReferenceArray<>(size);
+        this.args = new AtomicReferenceArray<>(size);
+        this.threadIds = new AtomicLongArray(size);
+        this.threadNames = new AtomicReferenceArray<>(size);
+        this.clear();
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Sets whether this trace buffer records events. Disabling tracing retains the events recorded so far.
+     *
+     * @param enabled true to record events, false to ignore them
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the maximum number of events retained by this trace buffer
+     */
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * @return the number of events currently retained by this trace buffer
+     */
+    public int getEventCount() {
+        return (int) Math.min(this.cursor.get(), this.mask + 1);
+    }
+
+    /**
+     * Records the beginning of a traced operation on the current thread.
+     *
+     * @param category the event category
+     * @param name     the event name
+     */
+    public void begin(String category, String name) {
+        this.record(PHASE_BEGIN, category, name, null);
+    }
+
+    /**
+     * Records the beginning of a traced operation on the current thread, with an argument describing the operation. The
+     * argument is converted to a string when this buffer is exported.
+     *
+     * @param category the event category
+     * @param name     the event name
+     * @param arg      the event argument, may be null
+     */
+    public void begin(String category, String name, Object arg) {
+        this.record(PHASE_BEGIN, category, name, arg);
+    }
+
+    /**
+     * Records the end of a traced operation on the current thread. The category and name should match the
+     * corresponding call to begin.
+     *
+     * @param category the event category
+     * @param name     the event name
+     */
+    public void end(String category, String name) {
+        this.record(PHASE_END, category, name, null);
+    }
+
+    /**
+     * Removes all events from this trace buffer. Events recorded concurrently with this call may be lost.
+     */
+    public void clear() {
+        for (int idx = 0, len = this.mask + 1; idx < len; idx++) {
+            this.sequences.set(idx, -1);
+            this.categories.set(idx, null);
+            this.names.set(idx, null);
+            this.args.set(idx, null);
+            this.threadNames.set(idx, null);
+        }
+
+        this.cursor.set(0);
+    }
+
+    /**
+     * Writes the events in this trace buffer as a Chrome trace-event JSON object, oldest first, followed by metadata
+     * events naming each thread. Events overwritten while the export is in progress are omitted.
+     *
+     * @param out the writer to receive the JSON text
+     *
+     * @throws IllegalArgumentException If the writer is null
+     * @throws IOException              If an error occurs while writing
+     */
+    public void writeChromeTrace(Writer out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException(
+                Logger.logMessage(Logger.ERROR, "TraceBuffer", "writeChromeTrace", "missingWriter"));
+        }
+
+        Map<Long, String> threads = new LinkedHashMap<>();
+        long end = this.cursor.get();
+        long begin = Math.max(0, end - (this.mask + 1));
+        boolean first = true;
+
+        out.write("{\"traceEvents\":[");
+
+        for (long seq = begin; seq < end; seq++) {
+            int idx = (int) (seq & this.mask);
+            if (this.sequences.get(idx) != seq) {
+                continue; // the event is being written or has been overwritten
+            }
+
+            long time = this.times.get(idx);
+            char phase = (char) this.phases.get(idx);
+            String category = this.categories.get(idx);
+            String name = this.names.get(idx);
+            Object arg = this.args.get(idx);
+            long threadId = this.threadIds.get(idx);
+            String threadName = this.threadNames.get(idx);
+
+            if (this.sequences.get(idx) != seq) {
+                continue; // the event was overwritten while it was being read
+            }
+
+            if (!threads.containsKey(threadId)) {
+                threads.put(threadId, threadName);
+            }
+
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+
+            out.write("{\"name\":");
+            writeString(String.valueOf(name), out);
+            out.write(",\"cat\":");
+            writeString(String.valueOf(category), out);
+            out.write(",\"ph\":\"");
+            out.write(phase);
+            out.write("\",\"ts\":");
+            writeMicros(time, out);
+            out.write(",\"pid\":0,\"tid\":");
+            out.write(Long.toString(threadId));
+            if (arg != null) {
+                out.write(",\"args\":{\"arg\":");
+                writeString(arg.toString(), out);
+                out.write('}');
+            }
+            out.write('}');
+        }
+
+        for (Map.Entry<Long, String> entry : threads.entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+
+            out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":0,\"tid\":");
+            out.write(entry.getKey().toString());
+            out.write(",\"args\":{\"name\":");
+            writeString(String.valueOf(entry.getValue()), out);
+            out.write("}}");
+        }
+
+        out.write("],\"displayTimeUnit\":\"ms\"}");
+        out.flush();
+    }
+
+    protected void record(char phase, String category, String name, Object arg) {
+        if (!this.enabled) {
+            return;
+        }
+
+        long seq = this.cursor.getAndIncrement();
+        int idx = (int) (seq & this.mask);
+        Thread thread = Thread.currentThread();
+
+        // Invalidate the slot while its fields are written, then publish the slot by storing its sequence number.
+        // Readers compare the sequence number before and after reading the fields to detect concurrent writes. The
+        // fields are written with lazySet, which cannot be reordered before the invalidating write.
+        this.sequences.set(idx, -1);
+        this.times.lazySet(idx, System.nanoTime());
+        this.phases.lazySet(idx, phase);
+        this.categories.lazySet(idx, category);
+        this.names.lazySet(idx, name);
+        this.args.lazySet(idx, arg);
+        this.threadIds.lazySet(idx, thread.getId());
+        this.threadNames.lazySet(idx, thread.getName());
+        this.sequences.set(idx, seq);
+    }
+
+    protected static void writeMicros(long nanos, Writer out) throws IOException {
+        // Trace-event timestamps are in microseconds. Write the nanosecond remainder as a three digit fraction.
+        long micros = nanos / 1000;
+        int fraction = (int) Math.abs(nanos % 1000);
+        out.write(Long.toString(micros));
+        out.write('.');
+        out.write('0' + fraction / 100);
+        out.write('0' + (fraction / 10) % 10);
+        out.write('0' + fraction % 10);
+    }
+
+    protected static void writeString(String string, Writer out) throws IOException {
+        out.write('"');
+        for (int idx = 0, len = string.length(); idx < len; idx++) {
+            char c = string.charAt(idx);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
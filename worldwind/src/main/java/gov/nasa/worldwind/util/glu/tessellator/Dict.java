@@ -56,13 +56,14 @@ class Dict {
     DictNode head;
     Object frame;
     DictLeq leq;
+    TessArena arena;
 
     private Dict() {
     }
 
-    static Dict dictNewDict(Object frame, DictLeq leq) {
+    static Dict dictNewDict(Object frame, DictLeq leq, TessArena arena) {
         Dict dict = new Dict();
-        dict.head = new DictNode();
+        dict.head = arena.obtainDictNode();
 
         dict.head.key = null;
         dict.head.next = dict.head;
@@ -70,6 +71,7 @@ class Dict {
 
         dict.frame = frame;
         dict.leq = leq;
+        dict.arena = arena;
 
         return dict;
     }
@@ -78,6 +80,7 @@ class Dict {
         dict.head = null;
         dict.frame = null;
         dict.leq = null;
+        dict.arena = null;
     }
 
     static DictNode dictInsert(Dict dict, Object key) {
@@ -89,7 +92,7 @@ class Dict {
             node = node.prev;
         } while (node.key != null && !dict.leq.leq(dict.frame, node.key, key));
 
-        DictNode newNode = new DictNode();
+        DictNode newNode = dict.arena.obtainDictNode();
         newNode.key = key;
         newNode.next = node.next;
         node.next.prev = newNode;
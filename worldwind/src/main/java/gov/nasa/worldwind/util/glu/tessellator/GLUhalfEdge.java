@@ -66,6 +66,7 @@ class GLUhalfEdge {
     public ActiveRegion activeRegion;	/* a region with this upper edge (sweep.c) */
     public int winding;	/* change in winding number when crossing */
     public boolean first;
+    TessArena arena;	/* arena which owns this edge; see TessArena */
 
     public GLUhalfEdge(boolean first) {
         this.first = first;
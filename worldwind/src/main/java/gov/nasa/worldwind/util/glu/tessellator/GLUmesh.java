@@ -55,8 +55,17 @@ package gov.nasa.worldwind.util.glu.tessellator;
 
 
 class GLUmesh {
-    GLUvertex vHead = new GLUvertex();		/* dummy header for vertex list */
-    GLUface fHead = new GLUface();		/* dummy header for face list */
-    GLUhalfEdge eHead = new GLUhalfEdge(true);		/* dummy header for edge list */
-    GLUhalfEdge eHeadSym = new GLUhalfEdge(false);	/* and its symmetric counterpart */
+    GLUvertex vHead;		/* dummy header for vertex list */
+    GLUface fHead;		/* dummy header for face list */
+    GLUhalfEdge eHead;		/* dummy header for edge list */
+    GLUhalfEdge eHeadSym;	/* and its symmetric counterpart */
+    TessArena arena;		/* arena which owns every mesh structure */
+
+    GLUmesh(TessArena arena) {
+        this.arena = arena;
+        this.vHead = arena.obtainVertex();
+        this.fHead = arena.obtainFace();
+        this.eHead = arena.obtainHalfEdge(true);
+        this.eHeadSym = arena.obtainHalfEdge(false);
+    }
 }
@@ -82,6 +82,17 @@ public class GLUtessellatorImpl implements GLUtessellator {
     PriorityQ pq;		/* priority queue of vertex events */
     GLUvertex event;		/* current sweep event being processed */
 
+    /*** storage reused between polygons ***/
+
+    TessArena arena = new TessArena();	/* mesh, dictionary and sweep structures */
+    double[] combineCoords = new double[3];	/* scratch arguments for the combine callback */
+    Object[] combineData = new Object[4];
+    float[] combineWeights = new float[4];
+    float[] combineWeights1 = new float[2];
+    float[] combineWeights2 = new float[2];
+    Object[] combineOutData = new Object[1];
+    private double[] clamped = new double[3];	/* clamped coordinates of the current vertex */
+
     /*** state needed for rendering callbacks (see render.c) ***/
 
     boolean flagBoundary;	/* mark boundary edges (use EdgeFlag) */
@@ -168,6 +179,7 @@ public class GLUtessellatorImpl implements GLUtessellator {
 
         if (mesh != null) {
             Mesh.__gl_meshDeleteMesh(mesh);
+            arena.reset();
         }
         state = TessState.T_DORMANT;
         lastEdge = null;
@@ -385,7 +397,8 @@ public class GLUtessellatorImpl implements GLUtessellator {
     private boolean flushCache() {
         CachedVertex[] v = cache;
 
-        mesh = Mesh.__gl_meshNewMesh();
+        arena.reset();
+        mesh = Mesh.__gl_meshNewMesh(arena);
         if (mesh == null) return false;
 
         for (int i = 0; i < cacheCount; i++) {
@@ -402,7 +415,7 @@ public class GLUtessellatorImpl implements GLUtessellator {
         int i;
         boolean tooLarge = false;
         double x;
-        double[] clamped = new double[3];
+        double[] clamped = this.clamped;
 
         requireState(TessState.T_IN_CONTOUR);
 
@@ -561,6 +574,7 @@ public class GLUtessellatorImpl implements GLUtessellator {
 //                }
             }
             Mesh.__gl_meshDeleteMesh(mesh);
+            arena.reset();
             polygonData = null;
             mesh = null;
         } catch (Exception e) {
@@ -71,9 +71,9 @@ class Mesh {
 //        if (pair == NULL) return NULL;
 //
 //        e = &pair - > e;
-        e = new GLUhalfEdge(true);
+        e = eNext.arena.obtainHalfEdge(true);
 //        eSym = &pair - > eSym;
-        eSym = new GLUhalfEdge(false);
+        eSym = eNext.arena.obtainHalfEdge(false);
 
 
         /* Make sure eNext points to the first edge of the edge pair */
@@ -264,9 +264,9 @@ class Mesh {
  * The loop consists of the two new half-edges.
  */
     public static GLUhalfEdge __gl_meshMakeEdge(GLUmesh mesh) {
-        GLUvertex newVertex1 = new GLUvertex();
-        GLUvertex newVertex2 = new GLUvertex();
-        GLUface newFace = new GLUface();
+        GLUvertex newVertex1 = mesh.arena.obtainVertex();
+        GLUvertex newVertex2 = mesh.arena.obtainVertex();
+        GLUface newFace = mesh.arena.obtainFace();
         GLUhalfEdge e;
 
         e = MakeEdge(mesh.eHead);
@@ -323,7 +323,7 @@ class Mesh {
         Splice(eDst, eOrg);
 
         if (!joiningVertices) {
-            GLUvertex newVertex = new GLUvertex();
+            GLUvertex newVertex = eOrg.arena.obtainVertex();
 
             /* We split one vertex into two -- the new vertex is eDst.Org.
              * Make sure the old vertex points to a valid half-edge.
@@ -332,7 +332,7 @@ class Mesh {
             eOrg.Org.anEdge = eOrg;
         }
         if (!joiningLoops) {
-            GLUface newFace = new GLUface();
+            GLUface newFace = eOrg.arena.obtainFace();
 
             /* We split one loop into two -- the new loop is eDst.Lface.
              * Make sure the old face points to a valid half-edge.
@@ -377,7 +377,7 @@ class Mesh {
 
             Splice(eDel, eDel.Sym.Lnext);
             if (!joiningLoops) {
-                GLUface newFace = new GLUface();
+                GLUface newFace = eDel.arena.obtainFace();
 
                 /* We are splitting one loop into two -- create a new loop for eDel. */
                 MakeFace(newFace, eDel, eDel.Lface);
@@ -427,7 +427,7 @@ class Mesh {
         /* Set the vertex and face information */
         eNew.Org = eOrg.Sym.Org;
         {
-            GLUvertex newVertex = new GLUvertex();
+            GLUvertex newVertex = eOrg.arena.obtainVertex();
 
             MakeVertex(newVertex, eNewSym, eNew.Org);
         }
@@ -498,7 +498,7 @@ class Mesh {
         eOrg.Lface.anEdge = eNewSym;
 
         if (!joiningLoops) {
-            GLUface newFace = new GLUface();
+            GLUface newFace = eOrg.arena.obtainFace();
 
             /* We split one loop into two -- the new loop is eNew.Lface */
             MakeFace(newFace, eNew, eOrg.Lface);
@@ -558,15 +558,16 @@ class Mesh {
     }
 
 
-/* __gl_meshNewMesh() creates a new mesh with no edges, no vertices,
- * and no loops (what we usually call a "face").
+/* __gl_meshNewMesh( arena ) creates a new mesh with no edges, no vertices,
+ * and no loops (what we usually call a "face").  Every structure of the
+ * mesh is obtained from the given arena.
  */
-    public static GLUmesh __gl_meshNewMesh() {
+    public static GLUmesh __gl_meshNewMesh(TessArena arena) {
         GLUvertex v;
         GLUface f;
         GLUhalfEdge e;
         GLUhalfEdge eSym;
-        GLUmesh mesh = new GLUmesh();
+        GLUmesh mesh = new GLUmesh(arena);
 
         v = mesh.vHead;
         f = mesh.fHead;
@@ -55,8 +55,12 @@ package gov.nasa.worldwind.util.glu.tessellator;
 
 
 class PriorityQHeap extends PriorityQ {
-    PriorityQ.PQnode[] nodes;
-    PriorityQ.PQhandleElem[] handles;
+    /* The C implementation's PQnode and PQhandleElem arrays are stored as
+     * parallel primitive arrays, avoiding an object per heap slot.
+     */
+    int[] nodeHandles;		/* nodes[i].handle */
+    Object[] handleKeys;	/* handles[i].key */
+    int[] handleNodes;		/* handles[i].node */
     int size, max;
     int freeList;
     boolean initialized;
@@ -66,74 +70,71 @@ class PriorityQHeap extends PriorityQ {
     public PriorityQHeap(PriorityQ.Leq leq) {
         size = 0;
         max = PriorityQ.INIT_SIZE;
-        nodes = new PriorityQ.PQnode[PriorityQ.INIT_SIZE + 1];
-        for (int i = 0; i < nodes.length; i++) {
-            nodes[i] = new PQnode();
-        }
-        handles = new PriorityQ.PQhandleElem[PriorityQ.INIT_SIZE + 1];
-        for (int i = 0; i < handles.length; i++) {
-            handles[i] = new PQhandleElem();
-        }
+        nodeHandles = new int[PriorityQ.INIT_SIZE + 1];
+        handleKeys = new Object[PriorityQ.INIT_SIZE + 1];
+        handleNodes = new int[PriorityQ.INIT_SIZE + 1];
         initialized = false;
         freeList = 0;
         this.leq = leq;
 
-        nodes[1].handle = 1;	/* so that Minimum() returns NULL */
-        handles[1].key = null;
+        nodeHandles[1] = 1;	/* so that Minimum() returns NULL */
+        handleKeys[1] = null;
     }
 
 /* really __gl_pqHeapDeletePriorityQ */
     void pqDeletePriorityQ() {
-        handles = null;
-        nodes = null;
+        nodeHandles = null;
+        handleKeys = null;
+        handleNodes = null;
     }
 
     void FloatDown(int curr) {
-        PriorityQ.PQnode[] n = nodes;
-        PriorityQ.PQhandleElem[] h = handles;
+        int[] n = nodeHandles;
+        Object[] hKey = handleKeys;
+        int[] hNode = handleNodes;
         int hCurr, hChild;
         int child;
 
-        hCurr = n[curr].handle;
+        hCurr = n[curr];
         for (; ;) {
             child = curr << 1;
-            if (child < size && LEQ(leq, h[n[child + 1].handle].key,
-                    h[n[child].handle].key)) {
+            if (child < size && LEQ(leq, hKey[n[child + 1]], hKey[n[child]])) {
                 ++child;
             }
 
             assert (child <= max);
 
-            hChild = n[child].handle;
-            if (child > size || LEQ(leq, h[hCurr].key, h[hChild].key)) {
-                n[curr].handle = hCurr;
-                h[hCurr].node = curr;
+            hChild = n[child];
+            if (child > size || LEQ(leq, hKey[hCurr], hKey[hChild])) {
+                n[curr] = hCurr;
+                hNode[hCurr] = curr;
                 break;
             }
-            n[curr].handle = hChild;
-            h[hChild].node = curr;
+            n[curr] = hChild;
+            hNode[hChild] = curr;
             curr = child;
         }
     }
 
 
     void FloatUp(int curr) {
-        PriorityQ.PQnode[] n = nodes;
-        PriorityQ.PQhandleElem[] h = handles;
+        int[] n = nodeHandles;
+        Object[] hKey = handleKeys;
+        int[] hNode = handleNodes;
         int hCurr, hParent;
         int parent;
 
-        hCurr = n[curr].handle;
+        hCurr = n[curr];
         for (; ;) {
             parent = curr >> 1;
-            hParent = n[parent].handle;
-            if (parent == 0 || LEQ(leq, h[hParent].key, h[hCurr].key)) {
-                n[curr].handle = hCurr;
-                h[hCurr].node = curr;
+            hParent = n[parent];
+            if (parent == 0 || LEQ(leq, hKey[hParent], hKey[hCurr])) {
+                n[curr] = hCurr;
+                hNode[hCurr] = curr;
                 break;
             }
-            n[curr].handle = hParent;
-            h[hParent].node = curr;
+            n[curr] = hParent;
+            hNode[hParent] = curr;
             curr = parent;
         }
     }
@@ -160,46 +161,33 @@ class PriorityQHeap extends PriorityQ {
 
         curr = ++size;
         if ((curr * 2) > max) {
-            PriorityQ.PQnode[] saveNodes = nodes;
-            PriorityQ.PQhandleElem[] saveHandles = handles;
-
             /* If the heap overflows, double its size. */
             max <<= 1;
 //            pq->nodes = (PQnode *)memRealloc( pq->nodes, (size_t) ((pq->max + 1) * sizeof( pq->nodes[0] )));
-            PriorityQ.PQnode[] pqNodes = new PriorityQ.PQnode[max + 1];
-            System.arraycopy( nodes, 0, pqNodes, 0, nodes.length );
-            for (int i = nodes.length; i < pqNodes.length; i++) {
-                pqNodes[i] = new PQnode();
-            }
-            nodes = pqNodes;
-            if (nodes == null) {
-                nodes = saveNodes;	/* restore ptr to free upon return */
-                return Integer.MAX_VALUE;
-            }
+            int[] newNodeHandles = new int[max + 1];
+            System.arraycopy(nodeHandles, 0, newNodeHandles, 0, nodeHandles.length);
+            nodeHandles = newNodeHandles;
 
 //            pq->handles = (PQhandleElem *)memRealloc( pq->handles,(size_t)((pq->max + 1) * sizeof( pq->handles[0] )));
-            PriorityQ.PQhandleElem[] pqHandles = new PriorityQ.PQhandleElem[max + 1];
-            System.arraycopy( handles, 0, pqHandles, 0, handles.length );
-            for (int i = handles.length; i < pqHandles.length; i++) {
-                pqHandles[i] = new PQhandleElem();
-            }
-            handles = pqHandles;
-            if (handles == null) {
-                handles = saveHandles; /* restore ptr to free upon return */
-                return Integer.MAX_VALUE;
-            }
+            Object[] newHandleKeys = new Object[max + 1];
+            System.arraycopy(handleKeys, 0, newHandleKeys, 0, handleKeys.length);
+            handleKeys = newHandleKeys;
+
+            int[] newHandleNodes = new int[max + 1];
+            System.arraycopy(handleNodes, 0, newHandleNodes, 0, handleNodes.length);
+            handleNodes = newHandleNodes;
         }
 
         if (freeList == 0) {
             free = curr;
         } else {
             free = freeList;
-            freeList = handles[free].node;
+            freeList = handleNodes[free];
         }
 
-        nodes[curr].handle = free;
-        handles[free].node = curr;
-        handles[free].key = keyNew;
+        nodeHandles[curr] = free;
+        handleNodes[free] = curr;
+        handleKeys[free] = keyNew;
 
         if (initialized) {
             FloatUp(curr);
@@ -210,17 +198,18 @@ class PriorityQHeap extends PriorityQ {
 
 /* really __gl_pqHeapExtractMin */
     Object pqExtractMin() {
-        PriorityQ.PQnode[] n = nodes;
-        PriorityQ.PQhandleElem[] h = handles;
-        int hMin = n[1].handle;
-        Object min = h[hMin].key;
+        int[] n = nodeHandles;
+        Object[] hKey = handleKeys;
+        int[] hNode = handleNodes;
+        int hMin = n[1];
+        Object min = hKey[hMin];
 
         if (size > 0) {
-            n[1].handle = n[size].handle;
-            h[n[1].handle].node = 1;
+            n[1] = n[size];
+            hNode[n[1]] = 1;
 
-            h[hMin].key = null;
-            h[hMin].node = freeList;
+            hKey[hMin] = null;
+            hNode[hMin] = freeList;
             freeList = hMin;
 
             if (--size > 0) {
@@ -232,30 +221,31 @@ class PriorityQHeap extends PriorityQ {
 
 /* really __gl_pqHeapDelete */
     void pqDelete(int hCurr) {
-        PriorityQ.PQnode[] n = nodes;
-        PriorityQ.PQhandleElem[] h = handles;
+        int[] n = nodeHandles;
+        Object[] hKey = handleKeys;
+        int[] hNode = handleNodes;
         int curr;
 
-        assert (hCurr >= 1 && hCurr <= max && h[hCurr].key != null);
+        assert (hCurr >= 1 && hCurr <= max && hKey[hCurr] != null);
 
-        curr = h[hCurr].node;
-        n[curr].handle = n[size].handle;
-        h[n[curr].handle].node = curr;
+        curr = hNode[hCurr];
+        n[curr] = n[size];
+        hNode[n[curr]] = curr;
 
         if (curr <= --size) {
-            if (curr <= 1 || LEQ(leq, h[n[curr >> 1].handle].key, h[n[curr].handle].key)) {
+            if (curr <= 1 || LEQ(leq, hKey[n[curr >> 1]], hKey[n[curr]])) {
                 FloatDown(curr);
             } else {
                 FloatUp(curr);
             }
         }
-        h[hCurr].key = null;
-        h[hCurr].node = freeList;
+        hKey[hCurr] = null;
+        hNode[hCurr] = freeList;
         freeList = hCurr;
     }
 
     Object pqMinimum() {
-        return handles[nodes[1].handle].key;
+        return handleKeys[nodeHandles[1]];
     }
 
     boolean pqIsEmpty() {
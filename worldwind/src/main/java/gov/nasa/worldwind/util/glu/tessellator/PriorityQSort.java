@@ -97,18 +97,12 @@ class PriorityQSort extends PriorityQ {
         }
     }
 
-    private static class Stack {
-        int p, r;
-    }
-
 /* really __gl_pqSortInit */
     boolean pqInit() {
         int p, r, i, j;
         int piv;
-        Stack[] stack = new Stack[50];
-        for (int k = 0; k < stack.length; k++) {
-            stack[k] = new Stack();
-        }
+        int[] stackP = new int[50];
+        int[] stackR = new int[50];
         int top = 0;
 
         int seed = 2016473283;
@@ -131,12 +125,12 @@ class PriorityQSort extends PriorityQ {
         /* Sort the indirect pointers in descending order,
          * using randomized Quicksort
          */
-        stack[top].p = p;
-        stack[top].r = r;
+        stackP[top] = p;
+        stackR[top] = r;
         ++top;
         while (--top >= 0) {
-            p = stack[top].p;
-            r = stack[top].r;
+            p = stackP[top];
+            r = stackR[top];
             while (r > p + 10) {
                 seed = Math.abs( seed * 1539415821 + 1 );
                 i = p + seed % (r - p + 1);
@@ -156,13 +150,13 @@ class PriorityQSort extends PriorityQ {
                 } while (i < j);
                 Swap(order, i, j);	/* Undo last swap */
                 if (i - p < r - j) {
-                    stack[top].p = j + 1;
-                    stack[top].r = r;
+                    stackP[top] = j + 1;
+                    stackR[top] = r;
                     ++top;
                     r = i - 1;
                 } else {
-                    stack[top].p = p;
-                    stack[top].r = i - 1;
+                    stackP[top] = p;
+                    stackR[top] = i - 1;
                     ++top;
                     p = j + 1;
                 }
@@ -221,7 +221,7 @@ class Sweep {
  * The upper edge of the new region will be "eNewUp".
  * Winding number and "inside" flag are not updated.
  */ {
-        ActiveRegion regNew = new ActiveRegion();
+        ActiveRegion regNew = tess.arena.obtainRegion();
         if (regNew == null) throw new RuntimeException();
 
         regNew.eUp = eNewUp;
@@ -407,14 +407,15 @@ class Sweep {
 
     static void CallCombine(GLUtessellatorImpl tess, GLUvertex isect,
                             Object[] data, float[] weights, boolean needed) {
-        double[] coords = new double[3];
+        double[] coords = tess.combineCoords;
 
         /* Copy coord data in case the callback changes it. */
         coords[0] = isect.coords[0];
         coords[1] = isect.coords[1];
         coords[2] = isect.coords[2];
 
-        Object[] outData = new Object[1];
+        Object[] outData = tess.combineOutData;
+        outData[0] = null;
         tess.callCombineOrCombineData(coords, data, weights, outData);
         isect.data = outData[0];
         if (isect.data == null) {
@@ -437,11 +438,14 @@ class Sweep {
  * Two vertices with idential coordinates are combined into one.
  * e1.Org is kept, while e2.Org is discarded.
  */ {
-        Object[] data = new Object[4];
-        float[] weights = new float[]{0.5f, 0.5f, 0.0f, 0.0f};
+        Object[] data = tess.combineData;
+        float[] weights = tess.combineWeights;
 
         data[0] = e1.Org.data;
         data[1] = e2.Org.data;
+        data[2] = data[3] = null;
+        weights[0] = weights[1] = 0.5f;
+        weights[2] = weights[3] = 0.0f;
         CallCombine(tess, e1.Org, data, weights, false);
         if (!Mesh.__gl_meshSplice(e1, e2)) throw new RuntimeException();
     }
@@ -474,10 +478,10 @@ class Sweep {
  * from the user so that we can refer to this new vertex in the
  * rendering callbacks.
  */ {
-        Object[] data = new Object[4];
-        float[] weights = new float[4];
-        float[] weights1 = new float[2];
-        float[] weights2 = new float[2];
+        Object[] data = tess.combineData;
+        float[] weights = tess.combineWeights;
+        float[] weights1 = tess.combineWeights1;
+        float[] weights2 = tess.combineWeights2;
 
         data[0] = orgUp.data;
         data[1] = dstUp.data;
@@ -616,7 +620,7 @@ class Sweep {
         GLUvertex dstUp = eUp.Sym.Org;
         GLUvertex dstLo = eLo.Sym.Org;
         double tMinUp, tMaxLo;
-        GLUvertex isect = new GLUvertex();
+        GLUvertex isect = tess.arena.obtainVertex();
         GLUvertex orgMin;
         GLUhalfEdge e;
 
@@ -1006,7 +1010,7 @@ class Sweep {
  */ {
         ActiveRegion regUp, regLo, reg;
         GLUhalfEdge eUp, eLo, eNew;
-        ActiveRegion tmp = new ActiveRegion();
+        ActiveRegion tmp = tess.arena.obtainRegion();
 
         /* assert ( vEvent.anEdge.Onext.Onext == vEvent.anEdge ); */
 
@@ -1119,7 +1123,7 @@ class Sweep {
  * to avoid special cases at the top and bottom.
  */ {
         GLUhalfEdge e;
-        ActiveRegion reg = new ActiveRegion();
+        ActiveRegion reg = tess.arena.obtainRegion();
         if (reg == null) throw new RuntimeException();
 
         e = Mesh.__gl_meshMakeEdge(tess.mesh);
@@ -1142,17 +1146,19 @@ class Sweep {
     }
 
 
-    static void InitEdgeDict(final GLUtessellatorImpl tess)
+    private static final Dict.DictLeq EDGE_LEQ = new Dict.DictLeq() {
+        public boolean leq(Object frame, Object key1, Object key2) {
+            return EdgeLeq((GLUtessellatorImpl) frame, (ActiveRegion) key1, (ActiveRegion) key2);
+        }
+    };
+
+    static void InitEdgeDict(GLUtessellatorImpl tess)
 /*
  * We maintain an ordering of edge intersections with the sweep line.
  * This order is maintained in a dynamic dictionary.
  */ {
         /* __gl_dictListNewDict */
-        tess.dict = Dict.dictNewDict(tess, new Dict.DictLeq() {
-            public boolean leq(Object frame, Object key1, Object key2) {
-                return EdgeLeq(tess, (ActiveRegion) key1, (ActiveRegion) key2);
-            }
-        });
+        tess.dict = Dict.dictNewDict(tess, EDGE_LEQ, tess.arena);
         if (tess.dict == null) throw new RuntimeException();
 
         AddSentinel(tess, -SENTINEL_COORD);
@@ -1220,6 +1226,12 @@ class Sweep {
         }
     }
 
+    private static final PriorityQ.Leq VERTEX_LEQ = new PriorityQ.Leq() {
+        public boolean leq(Object key1, Object key2) {
+            return Geom.VertLeq(((GLUvertex) key1), (GLUvertex) key2);
+        }
+    };
+
     static boolean InitPriorityQ(GLUtessellatorImpl tess)
 /*
  * Insert all vertices into the priority queue which determines the
@@ -1229,11 +1241,7 @@ class Sweep {
         GLUvertex v, vHead;
 
         /* __gl_pqSortNewPriorityQ */
-        pq = tess.pq = PriorityQ.pqNewPriorityQ(new PriorityQ.Leq() {
-            public boolean leq(Object key1, Object key2) {
-                return Geom.VertLeq(((GLUvertex) key1), (GLUvertex) key2);
-            }
-        });
+        pq = tess.pq = PriorityQ.pqNewPriorityQ(VERTEX_LEQ);
         if (pq == null) return false;
 
         vHead = tess.mesh.vHead;
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util.glu.tessellator;
+
+import java.util.Arrays;
+
+/**
+ * Arena of the mesh and sweep structures used to tessellate a single polygon. The original C implementation allocates
+ * and frees these structures individually; the Java port previously allocated a new object for each of them, producing
+ * millions of short-lived objects for large polygons. TessArena instead hands out structures from arrays that grow to
+ * the largest polygon tessellated so far, and reclaims every structure at once when reset between polygons. Storage
+ * beyond MAX_RETAINED_SIZE structures of each kind is released on reset, so one very large polygon does not pin its
+ * structures for the tessellator's lifetime.
+ * <p/>
+ * Structures obtained from the arena are reinitialized to their default state. Structures must not be referenced after
+ * the arena is reset. TessArena is not thread safe; each tessellator owns its own arena.
+ */
+class TessArena {
+    private static final int INIT_SIZE = 64;
+
+    private static final int MAX_RETAINED_SIZE = 1 << 12;
+
+    private GLUhalfEdge[] edges = new GLUhalfEdge[INIT_SIZE];
+    private int edgeCount;
+
+    private GLUvertex[] vertices = new GLUvertex[INIT_SIZE];
+    private int vertexCount;
+
+    private GLUface[] faces = new GLUface[INIT_SIZE];
+    private int faceCount;
+
+    private ActiveRegion[] regions = new ActiveRegion[INIT_SIZE];
+    private int regionCount;
+
+    private DictNode[] dictNodes = new DictNode[INIT_SIZE];
+    private int dictNodeCount;
+
+    TessArena() {
+    }
+
+    GLUhalfEdge obtainHalfEdge(boolean first) {
+        if (edgeCount == edges.length) {
+            GLUhalfEdge[] newEdges = new GLUhalfEdge[edges.length << 1];
+            System.arraycopy(edges, 0, newEdges, 0, edges.length);
+            edges = newEdges;
+        }
+
+        GLUhalfEdge e = edges[edgeCount];
+        if (e == null) {
+            e = edges[edgeCount] = new GLUhalfEdge(first);
+            e.arena = this;
+        } else {
+            e.next = null;
+            e.Sym = null;
+            e.Onext = null;
+            e.Lnext = null;
+            e.Org = null;
+            e.Lface = null;
+            e.activeRegion = null;
+            e.winding = 0;
+            e.first = first;
+        }
+
+        edgeCount++;
+        return e;
+    }
+
+    GLUvertex obtainVertex() {
+        if (vertexCount == vertices.length) {
+            GLUvertex[] newVertices = new GLUvertex[vertices.length << 1];
+            System.arraycopy(vertices, 0, newVertices, 0, vertices.length);
+            vertices = newVertices;
+        }
+
+        GLUvertex v = vertices[vertexCount];
+        if (v == null) {
+            v = vertices[vertexCount] = new GLUvertex();
+        } else {
+            v.next = null;
+            v.prev = null;
+            v.anEdge = null;
+            v.data = null;
+            v.coords[0] = v.coords[1] = v.coords[2] = 0;
+            v.s = v.t = 0;
+            v.pqHandle = 0;
+        }
+
+        vertexCount++;
+        return v;
+    }
+
+    GLUface obtainFace() {
+        if (faceCount == faces.length) {
+            GLUface[] newFaces = new GLUface[faces.length << 1];
+            System.arraycopy(faces, 0, newFaces, 0, faces.length);
+            faces = newFaces;
+        }
+
+        GLUface f = faces[faceCount];
+        if (f == null) {
+            f = faces[faceCount] = new GLUface();
+        } else {
+            f.next = null;
+            f.prev = null;
+            f.anEdge = null;
+            f.data = null;
+            f.trail = null;
+            f.marked = false;
+            f.inside = false;
+        }
+
+        faceCount++;
+        return f;
+    }
+
+    ActiveRegion obtainRegion() {
+        if (regionCount == regions.length) {
+            ActiveRegion[] newRegions = new ActiveRegion[regions.length << 1];
+            System.arraycopy(regions, 0, newRegions, 0, regions.length);
+            regions = newRegions;
+        }
+
+        ActiveRegion r = regions[regionCount];
+        if (r == null) {
+            r = regions[regionCount] = new ActiveRegion();
+        } else {
+            r.eUp = null;
+            r.nodeUp = null;
+            r.windingNumber = 0;
+            r.inside = false;
+            r.sentinel = false;
+            r.dirty = false;
+            r.fixUpperEdge = false;
+        }
+
+        regionCount++;
+        return r;
+    }
+
+    DictNode obtainDictNode() {
+        if (dictNodeCount == dictNodes.length) {
+            DictNode[] newNodes = new DictNode[dictNodes.length << 1];
+            System.arraycopy(dictNodes, 0, newNodes, 0, dictNodes.length);
+            dictNodes = newNodes;
+        }
+
+        DictNode n = dictNodes[dictNodeCount];
+        if (n == null) {
+            n = dictNodes[dictNodeCount] = new DictNode();
+        } else {
+            n.key = null;
+            n.next = null;
+            n.prev = null;
+        }
+
+        dictNodeCount++;
+        return n;
+    }
+
+    /* Reclaims every structure obtained since the last reset. Client vertex data is released immediately, rather than
+     * when the vertex is next obtained, so the arena does not keep the client's objects reachable. Arrays grown beyond
+     * MAX_RETAINED_SIZE are trimmed back to that size, releasing the structures past it.
+     */
+    void reset() {
+        for (int i = 0; i < vertexCount; i++) {
+            vertices[i].data = null;
+        }
+
+        edges = trim(edges);
+        vertices = trim(vertices);
+        faces = trim(faces);
+        regions = trim(regions);
+        dictNodes = trim(dictNodes);
+
+        edgeCount = 0;
+        vertexCount = 0;
+        faceCount = 0;
+        regionCount = 0;
+        dictNodeCount = 0;
+    }
+
+    private static <T> T[] trim(T[] array) {
+        return (array.length > MAX_RETAINED_SIZE) ? Arrays.copyOf(array, MAX_RETAINED_SIZE) : array;
+    }
+
+    int getEdgeCount() {
+        return edgeCount;
+    }
+
+    int getVertexCount() {
+        return vertexCount;
+    }
+}
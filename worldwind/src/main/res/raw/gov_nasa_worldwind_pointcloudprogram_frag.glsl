@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+precision mediump float;
+
+uniform bool enablePickMode;
+uniform vec4 pickColor;
+
+varying vec4 pointColor;
+
+void main() {
+    if (enablePickMode) {
+        /* Return the point cloud's unique pick color. */
+        gl_FragColor = pickColor;
+    } else {
+        /* Return the point's RGBA color with premultiplied alpha. */
+        gl_FragColor = vec4(pointColor.rgb * pointColor.a, pointColor.a);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+uniform mat4 mvpMatrix;
+uniform float pointSize;
+uniform float offsetScale;
+
+attribute vec4 vertexPoint;
+attribute vec4 vertexColor;
+attribute vec4 vertexOffset;
+
+varying vec4 pointColor;
+
+void main() {
+    /* Displace the vertex position by its scaled offset, then transform it by the modelview-projection matrix. */
+    gl_Position = mvpMatrix * vec4(vertexPoint.xyz + vertexOffset.xyz * offsetScale, 1.0);
+
+    /* Draw each point as a square of the specified size in screen pixels. */
+    gl_PointSize = pointSize;
+
+    /* Pass the point's RGBA color to the fragment shader. */
+    pointColor = vertexColor;
+}
\ No newline at end of file
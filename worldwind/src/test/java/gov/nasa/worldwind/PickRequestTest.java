@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Message;
+import android.util.SparseArray;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Vec2;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.layer.RenderableLayer;
+import gov.nasa.worldwind.render.Color;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.shape.Placemark;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest({Logger.class, View.class, DrawContext.class}) // We mock the Logger class to avoid its calls to android.util.log
+public class PickRequestTest {
+
+    private WorldWindow wwd;
+
+    private List<Boolean> renderedPickModes = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        // Render and draw frames with a frame controller that records the frames it renders, in a World Window whose
+        // context provides the resources used while rendering.
+        Context context = PowerMockito.mock(Context.class);
+        PowerMockito.when(context.getResources()).thenReturn(PowerMockito.mock(Resources.class));
+        this.wwd = PowerMockito.spy(new WorldWindow(context));
+        PowerMockito.doReturn(context).when(this.wwd).getContext();
+        this.wwd.mainThreadHandler = PowerMockito.mock(Handler.class);
+        this.wwd.viewport.set(0, 0, 100, 100);
+        this.wwd.frameController = new FrameController() {
+            @Override
+            public void renderFrame(RenderContext rc) {
+                renderedPickModes.add(rc.pickMode);
+            }
+
+            @Override
+            public void drawFrame(DrawContext dc) {
+            }
+        };
+    }
+
+    @Test
+    public void testCoalescePickRequests() throws Exception {
+        PickRequest first = this.pointRequest(10, 10, null);
+        PickRequest second = this.pointRequest(50, 60, null);
+        PickRequest cancelled = this.pointRequest(90, 90, null);
+        cancelled.cancel(false);
+        this.wwd.pickRequests.add(first);
+        this.wwd.pickRequests.add(cancelled);
+        this.wwd.pickRequests.add(second);
+
+        Frame pickFrame = this.wwd.coalescePickRequests();
+
+        // The pick frame's viewport is the union of the live requests' viewports, ignoring the cancelled request.
+        assertTrue("pick mode", pickFrame.pickMode);
+        assertEquals("pick requests", 2, pickFrame.pickRequests.size());
+        assertSame("first request", first, pickFrame.pickRequests.get(0));
+        assertSame("second request", second, pickFrame.pickRequests.get(1));
+        assertEquals("pick viewport", new Viewport(9, 9, 43, 53), pickFrame.pickViewport);
+        assertTrue("pending requests cleared", this.wwd.pickRequests.isEmpty());
+    }
+
+    @Test
+    public void testCoalescePickRequests_AllCancelled() throws Exception {
+        PickRequest cancelled = this.pointRequest(10, 10, null);
+        cancelled.cancel(false);
+        this.wwd.pickRequests.add(cancelled);
+
+        assertNull("pick frame", this.wwd.coalescePickRequests());
+        assertNull("no pending requests", this.wwd.coalescePickRequests());
+    }
+
+    @Test
+    public void testDoFrame_PickCarriedByRedraw() throws Exception {
+        PickRequest request = this.pointRequest(10, 10, null);
+        this.wwd.pickRequests.add(request);
+        this.wwd.isWaitingForRedraw = true;
+
+        this.wwd.doFrame(0);
+
+        // The pick frame is rendered from the same state as the redrawn frame, and rides along with it on the frame
+        // queue instead of occupying the pick queue.
+        assertEquals("frames rendered", 2, this.renderedPickModes.size());
+        assertTrue("pick frame rendered first", this.renderedPickModes.get(0));
+        assertFalse("displayed frame rendered second", this.renderedPickModes.get(1));
+        assertTrue("pick queue", this.wwd.pickQueue.isEmpty());
+        assertEquals("frame queue", 1, this.wwd.frameQueue.size());
+        assertNotNull("carried pick frame", this.wwd.frameQueue.peek().pickFrame);
+        assertFalse("not yet done", request.isDone());
+
+        this.wwd.onDrawFrame(null);
+
+        // The pick frame and the displayed frame are drawn in the same OpenGL frame.
+        assertTrue("done", request.isDone());
+        assertNotNull("current frame", this.wwd.currentFrame);
+        assertNull("pick frame released", this.wwd.currentFrame.pickFrame);
+    }
+
+    @Test
+    public void testDoFrame_PickWithoutRedraw() throws Exception {
+        PickRequest request = this.pointRequest(10, 10, null);
+        this.wwd.pickRequests.add(request);
+
+        this.wwd.doFrame(0);
+
+        // Without a pending redraw, the pick frame is rendered on its own and placed on the pick queue.
+        assertEquals("frames rendered", 1, this.renderedPickModes.size());
+        assertTrue("pick frame rendered", this.renderedPickModes.get(0));
+        assertEquals("pick queue", 1, this.wwd.pickQueue.size());
+        assertTrue("frame queue", this.wwd.frameQueue.isEmpty());
+
+        this.wwd.onDrawFrame(null);
+
+        assertTrue("done", request.isDone());
+        assertTrue("pick queue drained", this.wwd.pickQueue.isEmpty());
+    }
+
+    @Test
+    public void testCompletePickRequests() throws Exception {
+        PickCallback callback = PowerMockito.mock(PickCallback.class);
+        PickRequest request = this.pointRequest(10, 10, callback);
+        PickRequest cancelled = this.pointRequest(20, 20, callback);
+        backWithMap(request.pickedObjects).offerPickedObject(PickedObject.fromTerrain(1, new Position()));
+        Frame pickFrame = Frame.obtain(this.wwd.framePool);
+        pickFrame.pickRequests = new ArrayList<>();
+        pickFrame.pickRequests.add(request);
+        pickFrame.pickRequests.add(cancelled);
+        cancelled.cancel(false);
+
+        this.wwd.completePickRequests(pickFrame, false /*discardResults*/);
+
+        // Completed requests keep their results, and only live requests post their callback to the main thread.
+        assertTrue("done", request.isDone());
+        assertEquals("results", 1, request.get().count());
+        assertTrue("cancelled", cancelled.isCancelled());
+        verify(this.wwd.mainThreadHandler, times(1)).sendMessage(any(Message.class));
+    }
+
+    @Test
+    public void testClearFrameQueue_DiscardsCarriedPicks() throws Exception {
+        PickRequest request = this.pointRequest(10, 10, null);
+        this.wwd.pickRequests.add(request);
+        this.wwd.isWaitingForRedraw = true;
+        this.wwd.doFrame(0);
+        backWithMap(request.pickedObjects).offerPickedObject(PickedObject.fromTerrain(1, new Position()));
+
+        this.wwd.clearFrameQueue();
+
+        // Pick frames carried by frames that are never drawn complete their requests with an empty pick list.
+        assertTrue("frame queue", this.wwd.frameQueue.isEmpty());
+        assertTrue("done", request.isDone());
+        assertEquals("results discarded", 0, request.get().count());
+    }
+
+    @Test
+    public void testResolvePickRequests_SeparateResults() throws Exception {
+        // Two rectangle picks see the same shape, whose picked object is shared by the pick frame.
+        Placemark placemark = new Placemark(new Position());
+        PickedObject shared = PickedObject.fromRenderable(1, placemark, new RenderableLayer());
+        PickRequest first = new PickRequest(null);
+        first.pickViewport = new Viewport(0, 0, 10, 10);
+        backWithMap(first.pickedObjects);
+        PickRequest second = new PickRequest(null);
+        second.pickViewport = new Viewport(5, 5, 10, 10);
+        backWithMap(second.pickedObjects);
+        DrawContext dc = PowerMockito.mock(DrawContext.class);
+        dc.pickedObjects = backWithMap(new PickedObjectList());
+        dc.pickedObjects.offerPickedObject(shared);
+        dc.pickRequests = new ArrayList<>();
+        dc.pickRequests.add(first);
+        dc.pickRequests.add(second);
+        PowerMockito.when(dc.readPixelColors(anyInt(), anyInt(), anyInt(), anyInt()))
+            .thenReturn(Collections.singleton(PickedObject.identifierToUniqueColor(1, new Color())));
+
+        new BasicFrameController().resolvePickRequests(dc);
+
+        // Each request has its own picked object, marked as on top, and the frame's picked object is left unmodified.
+        PickedObject firstObject = first.pickedObjects.pickedObjectWithId(1);
+        PickedObject secondObject = second.pickedObjects.pickedObjectWithId(1);
+        assertNotSame("separate picked objects", firstObject, secondObject);
+        assertNotSame("copied picked object", shared, firstObject);
+        assertSame("user object", placemark, firstObject.getUserObject());
+        assertTrue("first on top", firstObject.isOnTop());
+        assertTrue("second on top", secondObject.isOnTop());
+        assertFalse("shared object unmodified", shared.isOnTop());
+    }
+
+    /**
+     * Replaces a picked object list's entries, an Android SparseArray with no implementation in unit tests, with a
+     * working sparse array.
+     */
+    private static PickedObjectList backWithMap(PickedObjectList pickedObjects) {
+        pickedObjects.entries = new SparseArrayMap<>();
+        return pickedObjects;
+    }
+
+    private PickRequest pointRequest(int x, int y, PickCallback callback) {
+        PickRequest request = new PickRequest(callback);
+        request.pickViewport = new Viewport(x - 1, y - 1, 3, 3);
+        request.pickPoint = new Vec2(x, y);
+        return request;
+    }
+
+    private static class SparseArrayMap<E> extends SparseArray<E> {
+
+        private TreeMap<Integer, E> map = new TreeMap<>();
+
+        @Override
+        public E get(int key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public void put(int key, E value) {
+            this.map.put(key, value);
+        }
+
+        @Override
+        public int size() {
+            return this.map.size();
+        }
+
+        @Override
+        public int keyAt(int index) {
+            return new ArrayList<>(this.map.keySet()).get(index);
+        }
+
+        @Override
+        public E valueAt(int index) {
+            return this.map.get(this.keyAt(index));
+        }
+
+        @Override
+        public void removeAt(int index) {
+            this.map.remove(this.keyAt(index));
+        }
+
+        @Override
+        public void clear() {
+            this.map.clear();
+        }
+    }
+}
@@ -14,7 +14,16 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
 
 import gov.nasa.worldwind.util.Logger;
 
@@ -433,4 +442,434 @@ public class TiffTest {
         assertEquals("tile 7 value", expectedTile7, actualTile7);
         assertEquals("tile 8 value", expectedTile8, actualTile8);
     }
+
+    @Test
+    public void testGetData_Window_GeoTiff() throws Exception {
+        Tiff tiff = new Tiff(ByteBuffer.wrap(this.geotiffData));
+        Subfile file = tiff.getSubfiles().get(0);
+        ByteBuffer image = file.getData(ByteBuffer.allocate(file.getDataSize()));
+        ByteBuffer window = ByteBuffer.allocate(100 * 30 * 2);
+
+        file.getData(200, 17, 100, 30, window);
+
+        assertEquals("window position", window.capacity(), window.position());
+        for (int row = 0; row < 30; row++) {
+            for (int col = 0; col < 100 * 2; col++) {
+                assertEquals("window byte", image.get((row + 17) * 512 * 2 + 200 * 2 + col), window.get(row * 100 * 2 + col));
+            }
+        }
+    }
+
+    @Test
+    public void testGetData_Window_Tiled() throws Exception {
+        Subfile file = this.createTiledSubfile();
+        ByteBuffer window = ByteBuffer.allocate(20 * 5 * 3);
+
+        // The window spans the boundary between the first and second columns of tiles, in the second row of tiles.
+        file.getData(10, 20, 20, 5, window);
+
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 20; col++) {
+                byte expected = (byte) (3 + (col + 10) / 16);
+                assertEquals("window pixel", expected, window.get((row * 20 + col) * 3));
+            }
+        }
+    }
+
+    @Test
+    public void testGetData_Executor() throws Exception {
+        Subfile file = this.createTiledSubfile();
+        ByteBuffer expected = ByteBuffer.allocate(6912);
+        ByteBuffer actual = ByteBuffer.allocateDirect(6912);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            file.getData(0, 0, 40, 40, expected, null);
+            file.getData(0, 0, 40, 40, actual, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        expected.flip();
+        actual.flip();
+        assertEquals("concurrent copy", expected, actual);
+    }
+
+    @Test
+    public void testGetData_Window_Bands() throws Exception {
+        Tiff tiff = new Tiff(ByteBuffer.wrap(this.geotiffData));
+        Subfile file = tiff.getSubfiles().get(0);
+        ByteBuffer image = file.getData(ByteBuffer.allocate(file.getDataSize()));
+        ByteBuffer window = ByteBuffer.allocate(5 + 100 * 300 * 2);
+        window.position(5); // the window's first row begins after the buffer's first bytes
+        RecordingExecutor executor = new RecordingExecutor();
+
+        // The window begins within a strip and spans several strips, which are divided into bands.
+        file.getData(200, 17, 100, 300, window, executor);
+
+        assertTrue("bands", executor.tasks.size() >= 1);
+        assertEquals("window position", window.capacity(), window.position());
+        for (int row = 0; row < 300; row++) {
+            for (int col = 0; col < 100 * 2; col++) {
+                assertEquals("window byte", image.get((row + 17) * 512 * 2 + 200 * 2 + col), window.get(5 + row * 100 * 2 + col));
+            }
+        }
+    }
+
+    @Test
+    public void testGetData_Compressed_Window_Bands() throws Exception {
+        ByteBuffer image = this.createSampleImage(2);
+        Subfile file = this.createCompressedSubfile(image, 2, Tiff.DEFLATE_COMPRESSION, Tiff.HORIZONTAL_PREDICTOR, true);
+        ByteBuffer window = ByteBuffer.allocate(3 + 20 * 30 * 2);
+        window.position(3); // the window's first row begins after the buffer's first bytes
+        RecordingExecutor executor = new RecordingExecutor();
+
+        // The window begins in the first row of tiles and ends in the last, dividing the tile rows into bands.
+        file.getData(10, 5, 20, 30, window, executor);
+
+        assertTrue("bands", executor.tasks.size() >= 1);
+        for (int row = 0; row < 30; row++) {
+            for (int col = 0; col < 20; col++) {
+                assertEquals("window sample", image.getShort(((row + 5) * 40 + col + 10) * 2), window.getShort(3 + (row * 20 + col) * 2));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetData_InvalidWindow() throws Exception {
+        Subfile file = this.createTiledSubfile();
+
+        file.getData(30, 0, 20, 20, ByteBuffer.allocate(6912));
+    }
+
+    @Test
+    public void testGetData_Deflate_HorizontalPredictor() throws Exception {
+        ByteBuffer expected = this.createSampleImage(2);
+        Subfile file = this.createCompressedSubfile(expected, 2, Tiff.DEFLATE_COMPRESSION, Tiff.HORIZONTAL_PREDICTOR, true);
+        ByteBuffer actual = ByteBuffer.allocate(expected.capacity());
+
+        file.getData(actual);
+
+        actual.flip();
+        assertEquals("decoded image", expected, actual);
+    }
+
+    @Test
+    public void testGetData_Lzw_HorizontalPredictor() throws Exception {
+        ByteBuffer expected = this.createSampleImage(2);
+        Subfile file = this.createCompressedSubfile(expected, 2, Tiff.LZW_COMPRESSION, Tiff.HORIZONTAL_PREDICTOR, false);
+        ByteBuffer actual = ByteBuffer.allocate(expected.capacity());
+
+        file.getData(actual);
+
+        actual.flip();
+        assertEquals("decoded image", expected, actual);
+    }
+
+    @Test
+    public void testGetData_PackBits_Window() throws Exception {
+        ByteBuffer image = this.createSampleImage(2);
+        Subfile file = this.createCompressedSubfile(image, 2, Tiff.PACKBITS_COMPRESSION, Tiff.NO_PREDICTOR, true);
+        ByteBuffer window = ByteBuffer.allocate(20 * 5 * 2);
+
+        // The window spans the boundary between the first and second columns of tiles, in the second row of tiles.
+        file.getData(10, 20, 20, 5, window);
+
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 20; col++) {
+                assertEquals("window sample", image.getShort(((row + 20) * 40 + col + 10) * 2), window.getShort((row * 20 + col) * 2));
+            }
+        }
+    }
+
+    @Test
+    public void testGetData_Deflate_FloatingPointPredictor() throws Exception {
+        ByteBuffer expected = this.createSampleImage(4);
+        Subfile file = this.createCompressedSubfile(expected, 4, Tiff.ADOBE_DEFLATE_COMPRESSION, Tiff.FLOATING_POINT_PREDICTOR, false);
+        ByteBuffer actual = ByteBuffer.allocate(expected.capacity());
+
+        file.getData(actual);
+
+        actual.flip();
+        assertEquals("decoded image", expected, actual);
+    }
+
+    @Test
+    public void testGetData_Compressed_Executor() throws Exception {
+        ByteBuffer expected = this.createSampleImage(2);
+        Subfile file = this.createCompressedSubfile(expected, 2, Tiff.LZW_COMPRESSION, Tiff.HORIZONTAL_PREDICTOR, true);
+        ByteBuffer actual = ByteBuffer.allocateDirect(expected.capacity());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            file.getData(0, 0, 40, 40, actual, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        actual.flip();
+        assertEquals("concurrent decode", expected, actual);
+    }
+
+    /**
+     * Runs each task on the calling thread, recording the tasks it runs.
+     */
+    protected static class RecordingExecutor implements Executor {
+
+        public List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.tasks.add(command);
+            command.run();
+        }
+    }
+
+    @Test
+    public void testGetData_Compressed_EmptyTile() throws Exception {
+        ByteBuffer image = this.createSampleImage(2);
+        Subfile file = this.createCompressedSubfile(image, 2, Tiff.DEFLATE_COMPRESSION, Tiff.NO_PREDICTOR, true);
+        file.tileByteCounts[4] = 0; // the center tile has no stored data
+        ByteBuffer actual = ByteBuffer.allocate(image.capacity());
+
+        file.getData(actual);
+
+        // The center tile is zero, rather than the data of the tile decoded before it.
+        for (int row = 0; row < 40; row++) {
+            for (int col = 0; col < 40; col++) {
+                boolean empty = row >= 16 && row < 32 && col >= 16 && col < 32;
+                short expected = empty ? 0 : image.getShort((row * 40 + col) * 2);
+                assertEquals("sample", expected, actual.getShort((row * 40 + col) * 2));
+            }
+        }
+    }
+
+    @Test
+    public void testGetData_Compressed_TruncatedTile() throws Exception {
+        ByteBuffer image = this.createSampleImage(2);
+        Subfile file = this.createCompressedSubfile(image, 2, Tiff.PACKBITS_COMPRESSION, Tiff.NO_PREDICTOR, true);
+        file.tileByteCounts[1] /= 2; // the second tile's stored data ends partway through the tile
+        ByteBuffer actual = ByteBuffer.allocate(image.capacity());
+
+        file.getData(actual);
+
+        // The second tile's last row is zero, rather than the data of the tile decoded before it.
+        for (int col = 16; col < 32; col++) {
+            assertEquals("missing sample", 0, actual.getShort((15 * 40 + col) * 2));
+        }
+        assertEquals("decoded sample", image.getShort(16 * 2), actual.getShort(16 * 2));
+    }
+
+    protected Subfile createTiledSubfile() {
+        // A 3x3 grid of 16x16 tiles with 3 samples per pixel covering a 40x40 image. Each tile's bytes are the tile's
+        // index, as in testTileCombination.
+        ByteBuffer raw = ByteBuffer.allocate(6912);
+        raw.put((byte) 'M');
+        raw.put((byte) 'M');
+        raw.putShort((short) 42);
+        Subfile file = new Subfile();
+        Tiff tiff = new Tiff(raw);
+        raw.clear();
+        tiff.buffer = raw;
+        file.tiff = tiff;
+        file.tileWidth = 16;
+        file.tileLength = 16;
+        file.imageWidth = 40;
+        file.imageLength = 40;
+        file.samplesPerPixel = 3;
+        file.bitsPerSample = new int[]{8, 8, 8};
+        file.tileOffsets = new int[9];
+        for (int idx = 0; idx < 9; idx++) {
+            byte[] bytes = new byte[768];
+            Arrays.fill(bytes, (byte) idx);
+            file.tileOffsets[idx] = raw.position();
+            raw.put(bytes);
+        }
+        raw.clear();
+
+        return file;
+    }
+
+    protected ByteBuffer createSampleImage(int bytesPerSample) {
+        // A 40x40 big-endian image of random 16-bit integers or smoothly varying 32-bit floats.
+        ByteBuffer image = ByteBuffer.allocate(40 * 40 * bytesPerSample);
+        Random random = new Random(42);
+        for (int idx = 0; idx < 40 * 40; idx++) {
+            if (bytesPerSample == 2) {
+                image.putShort((short) random.nextInt());
+            } else {
+                image.putFloat((float) (1000 * Math.sin(idx / 40 * 0.1) * Math.cos(idx % 40 * 0.1)));
+            }
+        }
+        image.flip();
+
+        return image;
+    }
+
+    protected Subfile createCompressedSubfile(ByteBuffer image, int bytesPerSample, int compression, int predictor,
+                                              boolean tiled) throws Exception {
+        // A 40x40 image with one sample per pixel, divided into 16x16 tiles or strips of 16 rows. Tiles on the image's
+        // right and bottom edges are padded, and the last strip contains only the remaining 8 rows.
+        int chunkWidth = tiled ? 16 : 40;
+        int chunksAcross = tiled ? 3 : 1;
+        int[] offsets = new int[3 * chunksAcross];
+        int[] byteCounts = new int[3 * chunksAcross];
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(new byte[]{'M', 'M', 0, 42});
+
+        for (int chunkRow = 0; chunkRow < 3; chunkRow++) {
+            for (int chunkCol = 0; chunkCol < chunksAcross; chunkCol++) {
+                int rows = tiled ? 16 : Math.min(16, 40 - chunkRow * 16);
+                byte[] chunk = new byte[chunkWidth * rows * bytesPerSample];
+                for (int row = 0; row < rows && chunkRow * 16 + row < 40; row++) {
+                    int width = Math.min(chunkWidth, 40 - chunkCol * chunkWidth);
+                    image.position(((chunkRow * 16 + row) * 40 + chunkCol * chunkWidth) * bytesPerSample);
+                    image.get(chunk, row * chunkWidth * bytesPerSample, width * bytesPerSample);
+                }
+                image.clear();
+
+                applyPredictor(chunk, chunkWidth, bytesPerSample, predictor);
+                byte[] encoded = (compression == Tiff.LZW_COMPRESSION) ? encodeLzw(chunk) :
+                    (compression == Tiff.PACKBITS_COMPRESSION) ? encodePackBits(chunk) : encodeDeflate(chunk);
+                offsets[chunkRow * chunksAcross + chunkCol] = stream.size();
+                byteCounts[chunkRow * chunksAcross + chunkCol] = encoded.length;
+                stream.write(encoded);
+            }
+        }
+
+        Subfile file = new Subfile();
+        file.tiff = new Tiff(ByteBuffer.wrap(stream.toByteArray()));
+        file.imageWidth = 40;
+        file.imageLength = 40;
+        file.bitsPerSample = new int[]{bytesPerSample * 8};
+        file.compression = compression;
+        file.compressionPredictor = predictor;
+        if (tiled) {
+            file.tileWidth = 16;
+            file.tileLength = 16;
+            file.tileOffsets = offsets;
+            file.tileByteCounts = byteCounts;
+        } else {
+            file.fields.put(Tiff.STRIP_OFFSETS_TAG, new Field());
+            file.rowsPerStrip = 16;
+            file.stripOffsets = offsets;
+            file.stripByteCounts = byteCounts;
+        }
+
+        return file;
+    }
+
+    protected static void applyPredictor(byte[] chunk, int width, int bytesPerSample, int predictor) {
+        int rowLength = width * bytesPerSample;
+        for (int rowStart = 0; rowStart < chunk.length; rowStart += rowLength) {
+            if (predictor == Tiff.HORIZONTAL_PREDICTOR) {
+                // Difference each big-endian 16-bit sample from its predecessor, last sample first.
+                for (int idx = rowLength - 2; idx >= 2; idx -= 2) {
+                    int pos = rowStart + idx;
+                    int value = ((chunk[pos] << 8) | (chunk[pos + 1] & 0xFF)) - ((chunk[pos - 2] << 8) | (chunk[pos - 1] & 0xFF));
+                    chunk[pos] = (byte) (value >> 8);
+                    chunk[pos + 1] = (byte) value;
+                }
+            } else if (predictor == Tiff.FLOATING_POINT_PREDICTOR) {
+                // Arrange each row's bytes in planes from most to least significant, then difference the bytes.
+                byte[] row = Arrays.copyOfRange(chunk, rowStart, rowStart + rowLength);
+                for (int idx = 0; idx < width; idx++) {
+                    for (int b = 0; b < bytesPerSample; b++) {
+                        chunk[rowStart + b * width + idx] = row[idx * bytesPerSample + b];
+                    }
+                }
+                for (int idx = rowLength - 1; idx >= 1; idx--) {
+                    chunk[rowStart + idx] -= chunk[rowStart + idx - 1];
+                }
+            }
+        }
+    }
+
+    protected static byte[] encodeDeflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            stream.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        return stream.toByteArray();
+    }
+
+    protected static byte[] encodePackBits(byte[] data) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int idx = 0;
+        while (idx < data.length) {
+            int run = 1;
+            while (idx + run < data.length && run < 128 && data[idx + run] == data[idx]) {
+                run++;
+            }
+            if (run > 1) {
+                stream.write(1 - run);
+                stream.write(data[idx]);
+                idx += run;
+            } else {
+                int literal = 1;
+                while (idx + literal < data.length && literal < 128 &&
+                    (idx + literal + 1 >= data.length || data[idx + literal] != data[idx + literal + 1])) {
+                    literal++;
+                }
+                stream.write(literal - 1);
+                stream.write(data, idx, literal);
+                idx += literal;
+            }
+        }
+
+        return stream.toByteArray();
+    }
+
+    protected static byte[] encodeLzw(byte[] data) {
+        // Tiff LZW with codes packed most significant bit first, and the code width increasing one code early.
+        Map<Integer, Integer> table = new HashMap<>();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int[] bits = new int[2]; // pending bits, pending bit count
+        int width = 9, nextCode = 258, prefix = data[0] & 0xFF;
+        writeCode(stream, bits, 256, width);
+        for (int idx = 1; idx < data.length; idx++) {
+            int key = (prefix << 8) | (data[idx] & 0xFF);
+            Integer code = table.get(key);
+            if (code != null) {
+                prefix = code;
+                continue;
+            }
+            writeCode(stream, bits, prefix, width);
+            if (nextCode == 4093) {
+                writeCode(stream, bits, 256, width);
+                table.clear();
+                width = 9;
+                nextCode = 258;
+            } else {
+                table.put(key, nextCode++);
+                if (nextCode > (1 << width) - 1) {
+                    width++;
+                }
+            }
+            prefix = data[idx] & 0xFF;
+        }
+        writeCode(stream, bits, prefix, width);
+        writeCode(stream, bits, 257, width);
+        if (bits[1] > 0) {
+            stream.write(bits[0] << (8 - bits[1]));
+        }
+
+        return stream.toByteArray();
+    }
+
+    protected static void writeCode(ByteArrayOutputStream stream, int[] bits, int code, int width) {
+        bits[0] = (bits[0] << width) | code;
+        bits[1] += width;
+        while (bits[1] >= 8) {
+            bits[1] -= 8;
+            stream.write(bits[0] >> bits[1]);
+            bits[0] &= (1 << bits[1]) - 1;
+        }
+    }
 }
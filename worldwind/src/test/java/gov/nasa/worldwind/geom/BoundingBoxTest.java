@@ -20,7 +20,9 @@ import gov.nasa.worldwind.globe.ProjectionWgs84;
 import gov.nasa.worldwind.util.Logger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith(PowerMockRunner.class) // Support for mocking static methods
@@ -102,6 +104,44 @@ public class BoundingBoxTest {
         fail("The test case is a stub.");
     }
 
+    @Test
+    public void testIntersectsFrustum_PlaneMask() throws Exception {
+        Frustum frustum = new Frustum(); // unit frustum, planes 1 meter from the origin
+        BoundingBox boundingBox = new BoundingBox(); // unit box centered on the origin
+
+        translate(boundingBox, 0, 0, 0);
+        assertEquals("inside", BoundingBox.FRUSTUM_INSIDE, boundingBox.intersectsFrustum(frustum, BoundingBox.FRUSTUM_PLANES));
+        assertTrue("inside boolean", boundingBox.intersectsFrustum(frustum));
+
+        translate(boundingBox, 1, 0, 0);
+        assertEquals("intersects right", 1 << 1, boundingBox.intersectsFrustum(frustum, BoundingBox.FRUSTUM_PLANES));
+        assertTrue("intersects boolean", boundingBox.intersectsFrustum(frustum));
+
+        translate(boundingBox, 0, -1, 0);
+        assertEquals("intersects bottom", 1 << 3, boundingBox.intersectsFrustum(frustum, BoundingBox.FRUSTUM_PLANES));
+
+        translate(boundingBox, 3, 0, 0);
+        assertEquals("outside", BoundingBox.FRUSTUM_OUTSIDE, boundingBox.intersectsFrustum(frustum, BoundingBox.FRUSTUM_PLANES));
+        assertFalse("outside boolean", boundingBox.intersectsFrustum(frustum));
+    }
+
+    @Test
+    public void testIntersectsFrustum_SkipsMaskedPlanes() throws Exception {
+        Frustum frustum = new Frustum();
+        BoundingBox boundingBox = new BoundingBox();
+        translate(boundingBox, 3, 0, 0); // outside the right plane only
+
+        int withoutRight = BoundingBox.FRUSTUM_PLANES & ~(1 << 1);
+        assertEquals("right plane skipped", BoundingBox.FRUSTUM_INSIDE, boundingBox.intersectsFrustum(frustum, withoutRight));
+        assertEquals("right plane tested", BoundingBox.FRUSTUM_OUTSIDE, boundingBox.intersectsFrustum(frustum, 1 << 1));
+        assertEquals("no planes", BoundingBox.FRUSTUM_INSIDE, boundingBox.intersectsFrustum(frustum, BoundingBox.FRUSTUM_INSIDE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntersectsFrustum_PlaneMaskNullFrustum() throws Exception {
+        new BoundingBox().intersectsFrustum(null, BoundingBox.FRUSTUM_PLANES);
+    }
+
     @Test
     public void testDistanceTo() throws Exception {
         BoundingBox boundingBox = new BoundingBox();
@@ -117,6 +157,15 @@ public class BoundingBoxTest {
         assertEquals(boundingBox.center.z - radius, result, 1e-3);
     }
 
+    /**
+     * Moves a unit bounding box whose R axis is aligned with the X axis to the specified center point.
+     */
+    private static void translate(BoundingBox boundingBox, double x, double y, double z) {
+        boundingBox.center.set(x, y, z);
+        boundingBox.bottomCenter.set(x - 0.5, y, z);
+        boundingBox.topCenter.set(x + 0.5, y, z);
+    }
+
     /**
      * Creates Sector with a centroid set to the specified latitude and longitude.
      *
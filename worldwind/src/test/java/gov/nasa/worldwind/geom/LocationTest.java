@@ -1473,4 +1473,147 @@ public class LocationTest {
 
         assertEquals("Rhumb distance", expected, result, 1e-15);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIntermediateLocations_GreatCircle() {
+        assertIntermediateLocationsMatchPerPoint(WorldWind.GREAT_CIRCLE);
+    }
+
+    @Test
+    public void testIntermediateLocations_RhumbLine() {
+        assertIntermediateLocationsMatchPerPoint(WorldWind.RHUMB_LINE);
+    }
+
+    @Test
+    public void testIntermediateLocations_Linear() {
+        assertIntermediateLocationsMatchPerPoint(WorldWind.LINEAR);
+    }
+
+    @Test
+    public void testIntermediateLocations_Coincident() {
+        Location begin = Location.fromDegrees(THETA, PHI);
+        double[] result = new double[6];
+
+        double distance = begin.intermediateLocations(new Location(begin), WorldWind.GREAT_CIRCLE, 3, result, 0);
+
+        assertEquals("distance", 0, distance, 0);
+        for (int idx = 0; idx < result.length; idx += 2) {
+            assertEquals("latitude", THETA, result[idx], 0);
+            assertEquals("longitude", PHI, result[idx + 1], 0);
+        }
+    }
+
+    @Test
+    public void testIntermediateLocations_Antipodal() {
+        Location begin = Location.fromDegrees(0, 0);
+        Location end = Location.fromDegrees(0, 180);
+        double[] result = new double[2];
+
+        double distance = begin.intermediateLocations(end, WorldWind.GREAT_CIRCLE, 1, result, 0);
+        Location expected = begin.greatCircleLocation(begin.greatCircleAzimuth(end), Math.PI / 2, new Location());
+
+        assertEquals("distance", Math.PI, distance, TOLERANCE);
+        assertEquals("latitude", expected.latitude, result[0], TOLERANCE);
+        assertEquals("longitude", expected.longitude, result[1], TOLERANCE);
+    }
+
+    @Test
+    public void testIntermediateLocations_AcrossAntimeridian() {
+        Location begin = Location.fromDegrees(10, 170);
+        Location end = Location.fromDegrees(10, -170);
+        double[] result = new double[2 + 4]; // offset by one location
+
+        begin.intermediateLocations(end, WorldWind.RHUMB_LINE, 2, result, 2);
+
+        assertEquals("first latitude", 10, result[2], TOLERANCE);
+        assertEquals("first longitude", 176.6666666666, result[3], 1e-9);
+        assertEquals("second latitude", 10, result[4], TOLERANCE);
+        assertEquals("second longitude", -176.6666666666, result[5], 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntermediateLocations_InsufficientArray() {
+        Location.fromDegrees(0, 0).intermediateLocations(Location.fromDegrees(1, 1), WorldWind.GREAT_CIRCLE, 2, new double[3], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntermediateLocations_NegativeCount() {
+        Location.fromDegrees(0, 0).intermediateLocations(Location.fromDegrees(1, 1), WorldWind.GREAT_CIRCLE, -1, new double[2], 0);
+    }
+
+    @Test
+    public void testDensifyPath_Closed() {
+        List<Location> locations = new ArrayList<>();
+        locations.add(Location.fromDegrees(0, 0));
+        locations.add(Location.fromDegrees(0, 10));
+        locations.add(Location.fromDegrees(10, 10));
+        double[] result = new double[(3 + 3 * 4) * 2];
+
+        int count = Location.densifyPath(locations, WorldWind.GREAT_CIRCLE, 4, true /*closed*/, result, 0);
+
+        assertEquals("count", 15, count);
+        double[] segment = new double[8];
+        for (int idx = 0; idx < 3; idx++) {
+            Location begin = locations.get(idx);
+            Location end = locations.get((idx + 1) % 3);
+            begin.intermediateLocations(end, WorldWind.GREAT_CIRCLE, 4, segment, 0);
+            assertEquals("location latitude " + idx, begin.latitude, result[idx * 10], 0);
+            assertEquals("location longitude " + idx, begin.longitude, result[idx * 10 + 1], 0);
+            for (int i = 0; i < 8; i++) {
+                assertEquals("intermediate " + idx + "," + i, segment[i], result[idx * 10 + 2 + i], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testDensifyPath_Open() {
+        List<Location> locations = new ArrayList<>();
+        locations.add(Location.fromDegrees(0, 0));
+        locations.add(Location.fromDegrees(0, 10));
+
+        double[] result = new double[(2 + 3) * 2];
+        int count = Location.densifyPath(locations, WorldWind.RHUMB_LINE, 3, false /*closed*/, result, 0);
+
+        assertEquals("count", 5, count);
+        assertEquals("last longitude", 10, result[9], 0);
+        assertEquals("middle longitude", 5, result[5], TOLERANCE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDensifyPath_InsufficientArray() {
+        List<Location> locations = new ArrayList<>();
+        locations.add(Location.fromDegrees(0, 0));
+        locations.add(Location.fromDegrees(0, 10));
+
+        Location.densifyPath(locations, WorldWind.RHUMB_LINE, 3, true /*closed*/, new double[10], 0);
+    }
+
+    /**
+     * Compares intermediateLocations against locations computed one at a time by interpolateAlongPath, for random
+     * paths of lengths ranging from meters to thousands of kilometers.
+     */
+    private static void assertIntermediateLocationsMatchPerPoint(@WorldWind.PathType int pathType) {
+        java.util.Random random = new java.util.Random(34);
+        int count = 8;
+        double[] result = new double[count * 2];
+        Location expected = new Location();
+        Location actual = new Location();
+
+        for (int trial = 0; trial < 60; trial++) {
+            Location begin = Location.fromDegrees(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180);
+            double scale = Math.pow(10, -random.nextInt(6));
+            Location end = Location.fromDegrees(
+                Location.clampLatitude(begin.latitude + (random.nextDouble() * 80 - 40) * scale),
+                Location.normalizeLongitude(begin.longitude + (random.nextDouble() * 160 - 80) * scale));
+
+            begin.intermediateLocations(end, pathType, count, result, 0);
+
+            for (int idx = 0; idx < count; idx++) {
+                begin.interpolateAlongPath(end, pathType, (idx + 1) / (double) (count + 1), expected);
+                actual.set(result[idx * 2], result[idx * 2 + 1]);
+                double error = expected.greatCircleDistance(actual);
+                assertTrue("trial " + trial + " location " + idx + " error " + error, error < 1e-11);
+            }
+        }
+    }
+}
@@ -501,5 +501,40 @@ public class ViewportTest {
         assertFalse("coincident nw point", a.intersects(31, 99, 1, 1));
         assertFalse("coincident sw point", a.intersects(29, 99, 1, 1));
     }
-}
 
+    @Test
+    public void testUnion() throws Exception {
+        Viewport a = new Viewport(30, 100, 2, 2);
+        Viewport b = new Viewport(40, 90, 3, 3);
+        Viewport expected = new Viewport(30, 90, 13, 12);
+
+        Viewport result = a.union(b);
+
+        assertTrue("fluent api result", result == a);
+        assertEquals("union", expected, a);
+    }
+
+    @Test
+    public void testUnion_Inside() throws Exception {
+        Viewport a = new Viewport(30, 100, 3, 3);
+        Viewport inside = new Viewport(31, 101, 1, 1);
+        Viewport expected = new Viewport(a);
+
+        a.union(inside);
+
+        assertEquals("inside, union is exterior viewport", expected, a);
+    }
+
+    @Test
+    public void testUnion_Empty() throws Exception {
+        Viewport a = new Viewport(30, 100, 3, 3);
+        Viewport empty = new Viewport();
+        Viewport expected = new Viewport(a);
+
+        a.union(new Viewport(0, 0, 5, 0));
+        empty.union(expected);
+
+        assertEquals("empty does not contribute", expected, a);
+        assertEquals("union with empty", expected, empty);
+    }
+}
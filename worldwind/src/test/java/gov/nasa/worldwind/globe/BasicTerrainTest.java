@@ -20,6 +20,7 @@ import gov.nasa.worldwind.util.LevelSet;
 import gov.nasa.worldwind.util.Logger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 @RunWith(PowerMockRunner.class) // Support for mocking static methods
 @PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
@@ -349,4 +350,52 @@ public class BasicTerrainTest {
         assertEquals("surfacePoint centroid z", expected.z, actual.z, TOLERANCE);
         assertEquals("surfacePoint centroid return", expectedReturn, actualReturn);
     }
+
+    @Test
+    public void testGetTimestamp_SameTiles() throws Exception {
+        BasicTerrain terrain = (BasicTerrain) this.terrain;
+        TerrainTile tile = terrain.tiles.get(0);
+        long timestamp = terrain.getTimestamp();
+
+        terrain.clear();
+        terrain.addTile(tile);
+
+        assertEquals("timestamp", timestamp, terrain.getTimestamp());
+    }
+
+    @Test
+    public void testGetTimestamp_AddedTile() throws Exception {
+        BasicTerrain terrain = (BasicTerrain) this.terrain;
+        TerrainTile tile = terrain.tiles.get(0);
+        long timestamp = terrain.getTimestamp();
+
+        terrain.clear();
+        terrain.addTile(tile);
+        terrain.addTile(new TerrainTile(new Sector(1, 0, 1, 1), tile.level, 91, 180));
+
+        assertNotEquals("timestamp", timestamp, terrain.getTimestamp());
+    }
+
+    @Test
+    public void testGetTimestamp_RemovedTile() throws Exception {
+        BasicTerrain terrain = (BasicTerrain) this.terrain;
+        long timestamp = terrain.getTimestamp();
+
+        terrain.clear();
+
+        assertNotEquals("timestamp", timestamp, terrain.getTimestamp());
+    }
+
+    @Test
+    public void testGetTimestamp_ModifiedHeights() throws Exception {
+        BasicTerrain terrain = (BasicTerrain) this.terrain;
+        TerrainTile tile = terrain.tiles.get(0);
+        long timestamp = terrain.getTimestamp();
+
+        terrain.clear();
+        tile.setHeightTimestamp(tile.getHeightTimestamp() + 1);
+        terrain.addTile(tile);
+
+        assertNotEquals("timestamp", timestamp, terrain.getTimestamp());
+    }
 }
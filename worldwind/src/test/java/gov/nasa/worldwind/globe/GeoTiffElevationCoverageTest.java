@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globe;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import gov.nasa.worldwind.formats.tiff.Subfile;
+import gov.nasa.worldwind.formats.tiff.Tiff;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.geom.TileMatrix;
+import gov.nasa.worldwind.geom.TileMatrixSet;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class GeoTiffElevationCoverageTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+    }
+
+    @Test
+    public void testConstructor_Levels() throws Exception {
+        GeoTiffElevationCoverage coverage = new GeoTiffElevationCoverage(createGeoTiff(Tiff.NO_COMPRESSION, 1, 2));
+        TileMatrixSet tileMatrixSet = coverage.getTileMatrixSet();
+
+        // The 48x40 image spans 4.8 by 4.0 degrees with its upper left corner at 10N 20E.
+        assertSector(6, 20, 4, 4.8, tileMatrixSet.sector);
+        assertEquals("matrix count", 2, tileMatrixSet.count());
+
+        TileMatrix overview = tileMatrixSet.matrix(0);
+        assertEquals("overview width", 2, overview.matrixWidth);
+        assertEquals("overview height", 2, overview.matrixHeight);
+        assertEquals("overview degrees per pixel", 0.2, overview.degreesPerPixel(), TOLERANCE);
+        assertEquals("overview subfile", 24, coverage.getSubfile(0).getImageWidth());
+
+        // The full resolution matrix extends east and south to include the padding of its 16x16 edge tiles.
+        TileMatrix image = tileMatrixSet.matrix(1);
+        assertEquals("image width", 3, image.matrixWidth);
+        assertEquals("image height", 3, image.matrixHeight);
+        assertEquals("image degrees per pixel", 0.1, image.degreesPerPixel(), TOLERANCE);
+        assertEquals("image matrix min latitude", 5.2, image.sector.minLatitude(), TOLERANCE);
+        assertEquals("image matrix max longitude", 24.8, image.sector.maxLongitude(), TOLERANCE);
+    }
+
+    @Test
+    public void testConstructor_PixelIsPoint() throws Exception {
+        GeoTiffElevationCoverage coverage = new GeoTiffElevationCoverage(createGeoTiff(Tiff.NO_COMPRESSION, 2, 2));
+
+        // The tie point locates the center of the upper left pixel.
+        assertSector(6.05, 19.95, 4, 4.8, coverage.getTileMatrixSet().sector);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_Projected() throws Exception {
+        new GeoTiffElevationCoverage(createGeoTiff(Tiff.NO_COMPRESSION, 1, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_NullBuffer() throws Exception {
+        new GeoTiffElevationCoverage((ByteBuffer) null);
+    }
+
+    @Test
+    public void testFetchTileBuffer_InPlace() throws Exception {
+        ByteBuffer buffer = createGeoTiff(Tiff.NO_COMPRESSION, 1, 2);
+        GeoTiffElevationCoverage coverage = new GeoTiffElevationCoverage(buffer);
+        TileMatrix image = coverage.getTileMatrixSet().matrix(1);
+
+        ShortBuffer tile = coverage.fetchTileBuffer(image, 1, 1);
+
+        assertNotNull("tile", tile);
+        assertEquals("first sample", sample(16, 16), tile.get(0));
+        assertEquals("last sample", sample(31, 31), tile.get(255));
+
+        // The tile is a view of the GeoTIFF data rather than a copy.
+        int offset = coverage.getSubfile(1).getTileOffsets()[4];
+        buffer.putShort(offset, (short) -1);
+        assertEquals("view of GeoTIFF data", -1, tile.get(0));
+    }
+
+    @Test
+    public void testDecodeTile_Sparse() throws Exception {
+        GeoTiffElevationCoverage coverage = new GeoTiffElevationCoverage(createGeoTiff(Tiff.NO_COMPRESSION, 1, 2));
+        Subfile subfile = coverage.getSubfile(1);
+        subfile.getTileByteCounts()[4] = 0; // the center tile is omitted, as in a sparse GeoTIFF
+        GeoTiffElevationCoverage.GeoTiffRetriever retriever = new GeoTiffElevationCoverage.GeoTiffRetriever(1);
+        ImageSource source = ImageSource.fromObject(new GeoTiffElevationCoverage.GeoTiffTile(subfile, 1, 1));
+
+        // The sparse tile is decoded as zeros instead of being read in place from its tile offset.
+        assertFalse("sparse tile in place", coverage.isTileInPlace(subfile, 1, 1));
+        assertTrue("stored tile in place", coverage.isTileInPlace(subfile, 0, 0));
+
+        ShortBuffer tile = retriever.decodeUnrecognized(source).asShortBuffer();
+
+        assertEquals("tile size", 16 * 16, tile.remaining());
+        for (int idx = 0; idx < 16 * 16; idx++) {
+            assertEquals("sample", 0, tile.get(idx));
+        }
+    }
+
+    @Test
+    public void testDecodeTile_EdgePadding() throws Exception {
+        GeoTiffElevationCoverage coverage = new GeoTiffElevationCoverage(createGeoTiff(Tiff.NO_COMPRESSION, 1, 2));
+        GeoTiffElevationCoverage.GeoTiffRetriever retriever = new GeoTiffElevationCoverage.GeoTiffRetriever(1);
+        ImageSource source = ImageSource.fromObject(new GeoTiffElevationCoverage.GeoTiffTile(coverage.getSubfile(1), 2, 2));
+
+        ShortBuffer tile = retriever.decodeUnrecognized(source).asShortBuffer();
+
+        // The bottom right tile contains 16x8 image pixels. Its padding repeats the image's last column and last row.
+        assertEquals("image sample", sample(32, 32), tile.get(0));
+        assertEquals("image corner", sample(47, 39), tile.get(7 * 16 + 15));
+        assertEquals("padding", sample(47, 39), tile.get(15 * 16 + 15));
+        assertEquals("padding column", sample(47, 32), tile.get(0 * 16 + 15));
+        assertEquals("padding row", sample(40, 39), tile.get(12 * 16 + 8));
+    }
+
+    @Test
+    public void testDecodeTile_Compressed() throws Exception {
+        GeoTiffElevationCoverage coverage = new GeoTiffElevationCoverage(createGeoTiff(Tiff.DEFLATE_COMPRESSION, 1, 2));
+        GeoTiffElevationCoverage.GeoTiffRetriever retriever = new GeoTiffElevationCoverage.GeoTiffRetriever(1);
+        ImageSource source = ImageSource.fromObject(new GeoTiffElevationCoverage.GeoTiffTile(coverage.getSubfile(1), 0, 1));
+
+        ByteBuffer tile = retriever.decodeUnrecognized(source);
+
+        assertEquals("native byte order", ByteOrder.nativeOrder(), tile.order());
+        assertEquals("tile size", 16 * 16 * 2, tile.remaining());
+        for (int j = 0; j < 16; j++) {
+            for (int i = 0; i < 16; i++) {
+                assertEquals("sample", sample(16 + i, j), tile.getShort((j * 16 + i) * 2));
+            }
+        }
+    }
+
+    private static void assertSector(double minLat, double minLon, double deltaLat, double deltaLon, Sector sector) {
+        assertEquals("min latitude", minLat, sector.minLatitude(), TOLERANCE);
+        assertEquals("min longitude", minLon, sector.minLongitude(), TOLERANCE);
+        assertEquals("delta latitude", deltaLat, sector.deltaLatitude(), TOLERANCE);
+        assertEquals("delta longitude", deltaLon, sector.deltaLongitude(), TOLERANCE);
+    }
+
+    private static short sample(int x, int y) {
+        return (short) (y * 100 + x);
+    }
+
+    /**
+     * Creates a little-endian GeoTIFF containing a 48x40 image and a 24x20 overview, both divided into 16x16 tiles.
+     * Image samples are computed by the sample method, and overview samples are their negation.
+     */
+    private static ByteBuffer createGeoTiff(int compression, int rasterType, int modelType) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024 * 64).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(0);
+
+        int imageIfd = writeLevel(buffer, 48, 40, 0, compression, rasterType, modelType, 1);
+        int overviewIfd = writeLevel(buffer, 24, 20, Tiff.REDUCED_RESOLUTION_SUBFILE, compression, rasterType, modelType, -1);
+        buffer.putInt(4, imageIfd);
+        buffer.putInt(imageIfd + 2 + 15 * 12, overviewIfd);
+        buffer.flip();
+
+        return buffer;
+    }
+
+    private static int writeLevel(ByteBuffer buffer, int width, int height, int subfileType, int compression,
+                                  int rasterType, int modelType, int sign) {
+        int tilesAcross = (width + 15) / 16, tilesDown = (height + 15) / 16;
+        long[] offsets = new long[tilesAcross * tilesDown];
+        long[] byteCounts = new long[tilesAcross * tilesDown];
+
+        for (int row = 0; row < tilesDown; row++) {
+            for (int col = 0; col < tilesAcross; col++) {
+                ByteBuffer tile = ByteBuffer.allocate(16 * 16 * 2).order(ByteOrder.LITTLE_ENDIAN);
+                for (int j = 0; j < 16; j++) {
+                    for (int i = 0; i < 16; i++) {
+                        int x = col * 16 + i, y = row * 16 + j;
+                        tile.putShort((x < width && y < height) ? (short) (sign * sample(x, y)) : 0);
+                    }
+                }
+
+                byte[] data = tile.array();
+                if (compression == Tiff.DEFLATE_COMPRESSION) {
+                    Deflater deflater = new Deflater();
+                    deflater.setInput(data);
+                    deflater.finish();
+                    byte[] compressed = new byte[data.length * 2];
+                    int length = deflater.deflate(compressed);
+                    deflater.end();
+                    data = new byte[length];
+                    System.arraycopy(compressed, 0, data, 0, length);
+                }
+
+                offsets[row * tilesAcross + col] = buffer.position();
+                byteCounts[row * tilesAcross + col] = data.length;
+                buffer.put(data);
+            }
+        }
+
+        double degreesPerPixel = 4.8 / width;
+        List<Object[]> entries = new ArrayList<>();
+        entries.add(new Object[]{Tiff.NEW_SUBFILE_TYPE_TAG, 4, new long[]{subfileType}});
+        entries.add(new Object[]{Tiff.IMAGE_WIDTH_TAG, 4, new long[]{width}});
+        entries.add(new Object[]{Tiff.IMAGE_LENGTH_TAG, 4, new long[]{height}});
+        entries.add(new Object[]{Tiff.BITS_PER_SAMPLE_TAG, 3, new long[]{16}});
+        entries.add(new Object[]{Tiff.COMPRESSION_TAG, 3, new long[]{compression}});
+        entries.add(new Object[]{Tiff.PHOTOMETRIC_INTERPRETATION_TAG, 3, new long[]{1}});
+        entries.add(new Object[]{Tiff.SAMPLES_PER_PIXEL_TAG, 3, new long[]{1}});
+        entries.add(new Object[]{Tiff.TILE_WIDTH_TAG, 3, new long[]{16}});
+        entries.add(new Object[]{Tiff.TILE_LENGTH_TAG, 3, new long[]{16}});
+        entries.add(new Object[]{Tiff.TILE_OFFSETS_TAG, 4, offsets});
+        entries.add(new Object[]{Tiff.TILE_BYTE_COUNTS_TAG, 4, byteCounts});
+        entries.add(new Object[]{Tiff.SAMPLE_FORMAT_TAG, 3, new long[]{Tiff.TWOS_COMP_SIGNED_INT}});
+        entries.add(new Object[]{Tiff.MODEL_PIXEL_SCALE_TAG, 12, new double[]{degreesPerPixel, degreesPerPixel, 0}});
+        entries.add(new Object[]{Tiff.MODEL_TIEPOINT_TAG, 12, new double[]{0, 0, 0, 20, 10, 0}});
+        entries.add(new Object[]{Tiff.GEO_KEY_DIRECTORY_TAG, 3, new long[]{1, 1, 0, 3, 1024, 0, 1, modelType,
+            1025, 0, 1, rasterType, 2048, 0, 1, 4326}});
+
+        return writeIfd(buffer, entries);
+    }
+
+    private static int writeIfd(ByteBuffer buffer, List<Object[]> entries) {
+        int ifdOffset = buffer.position();
+        int dataOffset = ifdOffset + 2 + entries.size() * 12 + 4;
+        buffer.putShort((short) entries.size());
+
+        for (Object[] entry : entries) {
+            int type = (Integer) entry[1];
+            int typeSize = (type == 3) ? 2 : (type == 4) ? 4 : 8;
+            int count = (type == 12) ? ((double[]) entry[2]).length : ((long[]) entry[2]).length;
+            int valueOffset = (count * typeSize <= 4) ? buffer.position() + 8 : dataOffset;
+            buffer.putShort((short) (int) (Integer) entry[0]).putShort((short) type).putInt(count);
+            buffer.putInt((valueOffset == dataOffset) ? dataOffset : 0);
+            if (valueOffset == dataOffset) {
+                dataOffset += (count * typeSize + 1) & ~1;
+            }
+
+            for (int idx = 0; idx < count; idx++) {
+                if (type == 3) {
+                    buffer.putShort(valueOffset + idx * 2, (short) ((long[]) entry[2])[idx]);
+                } else if (type == 4) {
+                    buffer.putInt(valueOffset + idx * 4, (int) ((long[]) entry[2])[idx]);
+                } else {
+                    buffer.putDouble(valueOffset + idx * 8, ((double[]) entry[2])[idx]);
+                }
+            }
+        }
+
+        buffer.putInt(0); // no next IFD
+        buffer.position(dataOffset);
+        return ifdOffset;
+    }
+}
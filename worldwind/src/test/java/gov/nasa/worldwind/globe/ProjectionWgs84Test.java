@@ -260,6 +260,93 @@ public class ProjectionWgs84Test {
         assertFalse("EMP backward intersection", intersection);
     }
 
+    /**
+     * Tests that the bulk conversion computes the same coordinates as converting one position at a time.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGeographicToCartesian_Bulk() throws Exception {
+        ProjectionWgs84 wgs84 = new ProjectionWgs84();
+        double[] lat = {0, 34.2, -89.9, 90, 45.5};
+        double[] lon = {0, -119.2, 180, 0, 10.25};
+        double[] alt = {0, 10000, -100, 5, 1e6};
+        double[] x = new double[5], y = new double[5], z = new double[5];
+
+        wgs84.geographicToCartesian(this.globe, lat, lon, alt, 5, x, y, z);
+
+        for (int idx = 0; idx < 5; idx++) {
+            Vec3 expected = wgs84.geographicToCartesian(this.globe, lat[idx], lon[idx], alt[idx], new Vec3());
+            assertEquals("x " + idx, expected.x, x[idx], 0);
+            assertEquals("y " + idx, expected.y, y[idx], 0);
+            assertEquals("z " + idx, expected.z, z[idx], 0);
+        }
+    }
+
+    /**
+     * Tests the bulk conversion to interleaved floats relative to an origin, at an offset and a stride.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGeographicToCartesian_BulkInterleaved() throws Exception {
+        ProjectionWgs84 wgs84 = new ProjectionWgs84();
+        double[] lat = {34.2, 34.3, 34.4};
+        double[] lon = {-119.2, -119.1, -119.0};
+        Vec3 origin = wgs84.geographicToCartesian(this.globe, 34.3, -119.1, 0, new Vec3());
+        int offset = 2, stride = 5;
+        float[] result = new float[offset + stride * 2 + 3];
+
+        wgs84.geographicToCartesian(this.globe, lat, lon, null /*altitudes*/, 3, origin, result, offset, stride);
+
+        for (int idx = 0; idx < 3; idx++) {
+            Vec3 expected = wgs84.geographicToCartesian(this.globe, lat[idx], lon[idx], 0, new Vec3()).subtract(origin);
+            int i = offset + idx * stride;
+            assertEquals("x " + idx, expected.x, result[i], 1e-2);
+            assertEquals("y " + idx, expected.y, result[i + 1], 1e-2);
+            assertEquals("z " + idx, expected.z, result[i + 2], 1e-2);
+        }
+        assertEquals("leading element untouched", 0, result[0], 0);
+        assertEquals("stride padding untouched", 0, result[offset + 3], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGeographicToCartesian_BulkInsufficientResult() throws Exception {
+        new ProjectionWgs84().geographicToCartesian(this.globe, new double[3], new double[3], null, 3, null, new float[8], 0, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGeographicToCartesian_BulkInvalidStride() throws Exception {
+        new ProjectionWgs84().geographicToCartesian(this.globe, new double[3], new double[3], null, 3, null, new float[9], 0, 2);
+    }
+
+    /**
+     * Tests that the bulk conversion computes the same positions as converting one point at a time, for points on,
+     * above, below and far from the ellipsoid.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCartesianToGeographic_Bulk() throws Exception {
+        ProjectionWgs84 wgs84 = new ProjectionWgs84();
+        double[] lat = {0, 34.2, -89.9, 90, 45.5, -12};
+        double[] lon = {0, -119.2, 180, 0, 10.25, 100};
+        double[] alt = {0, 10000, -100, 5, 1e6, -6e6};
+        double[] x = new double[6], y = new double[6], z = new double[6];
+        double[] resultLat = new double[6], resultLon = new double[6], resultAlt = new double[6];
+        wgs84.geographicToCartesian(this.globe, lat, lon, alt, 6, x, y, z);
+
+        wgs84.cartesianToGeographic(this.globe, x, y, z, 6, resultLat, resultLon, resultAlt);
+
+        for (int idx = 0; idx < 6; idx++) {
+            Position expected = wgs84.cartesianToGeographic(this.globe, x[idx], y[idx], z[idx], new Position());
+            assertEquals("latitude " + idx, expected.latitude, resultLat[idx], 0);
+            assertEquals("longitude " + idx, expected.longitude, resultLon[idx], 0);
+            assertEquals("altitude " + idx, expected.altitude, resultAlt[idx], 0);
+            assertEquals("reciprocal altitude " + idx, alt[idx], resultAlt[idx], 1e-6);
+        }
+    }
+
     /**
      * An instance which is easily visualized for understanding the backwards intersection instance.
      *
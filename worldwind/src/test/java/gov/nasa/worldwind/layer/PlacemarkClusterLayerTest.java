@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.shape.Placemark;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class PlacemarkClusterLayerTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    private PlacemarkClusterLayer layer;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        this.layer = new PlacemarkClusterLayer();
+    }
+
+    @Test
+    public void testAddPlacemark() throws Exception {
+        Placemark west = new Placemark(Position.fromDegrees(10, -20, 0));
+        Placemark east = new Placemark(Position.fromDegrees(30, 40, 0));
+
+        this.layer.addPlacemark(west);
+        this.layer.addPlacemark(east);
+
+        assertEquals("count", 2, this.layer.count());
+        assertEquals("west count", 1, this.layer.roots[0].count);
+        assertEquals("east count", 1, this.layer.roots[1].count);
+        assertEquals("east mean latitude", 30, this.layer.roots[1].sumLatitude, TOLERANCE);
+    }
+
+    @Test
+    public void testAddPlacemark_Subdivide() throws Exception {
+        List<Placemark> placemarks = this.addRandomPlacemarks(500, 10, 20, 5);
+
+        PlacemarkClusterLayer.Node root = this.layer.roots[1];
+        assertEquals("count", 500, this.layer.count());
+        assertEquals("root count", 500, root.count);
+        assertNotNull("subdivided", root.children);
+        assertMeanPosition(root, placemarks);
+
+        // Every placemark must be in a leaf containing its position, and every cell's count must equal the sum of its
+        // children's counts.
+        for (Placemark placemark : placemarks) {
+            PlacemarkClusterLayer.Node leaf = this.layer.placemarkNodes.get(placemark);
+            assertNull("leaf", leaf.children);
+            assertTrue("in leaf", leaf.indexOfEntry(placemark) >= 0);
+            assertTrue("leaf contains latitude", placemark.getPosition().latitude >= leaf.minLatitude &&
+                placemark.getPosition().latitude <= leaf.minLatitude + leaf.delta);
+            assertTrue("leaf contains longitude", placemark.getPosition().longitude >= leaf.minLongitude &&
+                placemark.getPosition().longitude <= leaf.minLongitude + leaf.delta);
+        }
+        assertConsistent(root);
+    }
+
+    @Test
+    public void testAddPlacemark_Coincident() throws Exception {
+        for (int idx = 0; idx < 100; idx++) {
+            this.layer.addPlacemark(new Placemark(Position.fromDegrees(1, 2, 0)));
+        }
+
+        assertEquals("count", 100, this.layer.roots[1].count);
+        assertConsistent(this.layer.roots[1]);
+    }
+
+    @Test
+    public void testRemovePlacemark() throws Exception {
+        List<Placemark> placemarks = this.addRandomPlacemarks(200, -30, -60, 10);
+
+        for (int idx = 0; idx < 150; idx++) {
+            assertTrue("removed", this.layer.removePlacemark(placemarks.remove(placemarks.size() - 1)));
+        }
+
+        assertEquals("count", 50, this.layer.count());
+        assertEquals("root count", 50, this.layer.roots[0].count);
+        assertMeanPosition(this.layer.roots[0], placemarks);
+        assertConsistent(this.layer.roots[0]);
+        assertFalse("not in layer", this.layer.removePlacemark(new Placemark(Position.fromDegrees(0, 0, 0))));
+    }
+
+    @Test
+    public void testUpdatePlacemark() throws Exception {
+        List<Placemark> placemarks = this.addRandomPlacemarks(100, 10, 20, 5);
+        Placemark placemark = placemarks.get(0);
+
+        placemark.setPosition(Position.fromDegrees(-45, -90, 0));
+        assertTrue("updated", this.layer.updatePlacemark(placemark));
+
+        assertEquals("count", 100, this.layer.count());
+        assertEquals("east count", 99, this.layer.roots[1].count);
+        assertEquals("west count", 1, this.layer.roots[0].count);
+        assertSame("west leaf", this.layer.roots[0], this.layer.placemarkNodes.get(placemark));
+        assertMeanPosition(this.layer.roots[1], placemarks.subList(1, placemarks.size()));
+        assertConsistent(this.layer.roots[1]);
+        assertFalse("not in layer", this.layer.updatePlacemark(new Placemark(Position.fromDegrees(0, 0, 0))));
+    }
+
+    @Test
+    public void testClearPlacemarks() throws Exception {
+        this.addRandomPlacemarks(100, 10, 20, 5);
+
+        this.layer.clearPlacemarks();
+
+        assertEquals("count", 0, this.layer.count());
+        assertEquals("east count", 0, this.layer.roots[1].count);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddPlacemark_Null() throws Exception {
+        this.layer.addPlacemark(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetClusterSize_Invalid() throws Exception {
+        this.layer.setClusterSize(0);
+    }
+
+    private List<Placemark> addRandomPlacemarks(int count, double latitude, double longitude, double spread) {
+        Random random = new Random(38);
+        List<Placemark> placemarks = new ArrayList<>();
+        for (int idx = 0; idx < count; idx++) {
+            double lat = latitude + (random.nextDouble() - 0.5) * spread;
+            double lon = longitude + (random.nextDouble() - 0.5) * spread;
+            Placemark placemark = new Placemark(Position.fromDegrees(lat, lon, 0));
+            this.layer.addPlacemark(placemark);
+            placemarks.add(placemark);
+        }
+
+        return placemarks;
+    }
+
+    private static void assertMeanPosition(PlacemarkClusterLayer.Node node, List<Placemark> placemarks) {
+        double sumLatitude = 0;
+        double sumLongitude = 0;
+        for (Placemark placemark : placemarks) {
+            sumLatitude += placemark.getPosition().latitude;
+            sumLongitude += placemark.getPosition().longitude;
+        }
+
+        assertEquals("mean latitude", sumLatitude / placemarks.size(), node.sumLatitude / node.count, 1e-6);
+        assertEquals("mean longitude", sumLongitude / placemarks.size(), node.sumLongitude / node.count, 1e-6);
+    }
+
+    private static void assertConsistent(PlacemarkClusterLayer.Node node) {
+        if (node.children == null) {
+            assertEquals("leaf count", node.size, node.count);
+            return;
+        }
+
+        int count = 0;
+        for (PlacemarkClusterLayer.Node child : node.children) {
+            assertSame("parent", node, child.parent);
+            assertConsistent(child);
+            count += child.count;
+        }
+
+        assertEquals("cell count", count, node.count);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc;
+
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest({Logger.class, Bitmap.class}) // We mock the Logger class to avoid its calls to android.util.log
+public class WmsMetatileTest {
+
+    private Bitmap image;
+
+    private Bitmap[] tiles;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        PowerMockito.mockStatic(Bitmap.class);
+
+        // Mock a 512x256 metatile image, and the 256x128 tile bitmaps cut from its quadrants.
+        this.image = PowerMockito.mock(Bitmap.class);
+        PowerMockito.when(this.image.getWidth()).thenReturn(512);
+        PowerMockito.when(this.image.getHeight()).thenReturn(256);
+        this.tiles = new Bitmap[4];
+        for (int idx = 0; idx < 4; idx++) {
+            this.tiles[idx] = PowerMockito.mock(Bitmap.class);
+        }
+        PowerMockito.when(Bitmap.createBitmap(this.image, 0, 128, 256, 128)).thenReturn(this.tiles[0]); // southwest
+        PowerMockito.when(Bitmap.createBitmap(this.image, 256, 128, 256, 128)).thenReturn(this.tiles[1]); // southeast
+        PowerMockito.when(Bitmap.createBitmap(this.image, 0, 0, 256, 128)).thenReturn(this.tiles[2]); // northwest
+        PowerMockito.when(Bitmap.createBitmap(this.image, 256, 0, 256, 128)).thenReturn(this.tiles[3]); // northeast
+    }
+
+    @Test
+    public void testCreateBitmaps() throws Exception {
+        WmsMetatile metatile = new TestMetatile("http://example.com/wms?BBOX=0,0,2,2", 2, 2, this.image);
+        Map<ImageSource, Bitmap> result = new HashMap<>();
+
+        metatile.createBitmaps(result);
+
+        assertEquals("tile count", 4, result.size());
+        assertSame("southwest tile", this.tiles[0], result.get(metatile.tileImageSource(0, 0)));
+        assertSame("southeast tile", this.tiles[1], result.get(metatile.tileImageSource(0, 1)));
+        assertSame("northwest tile", this.tiles[2], result.get(metatile.tileImageSource(1, 0)));
+        assertSame("northeast tile", this.tiles[3], result.get(metatile.tileImageSource(1, 1)));
+        verify(this.image).recycle();
+    }
+
+    @Test
+    public void testCreateBitmaps_SingleTile() throws Exception {
+        PowerMockito.when(Bitmap.createBitmap(this.image, 0, 0, 512, 256)).thenReturn(this.image);
+        WmsMetatile metatile = new TestMetatile("http://example.com/wms?BBOX=0,0,1,1", 1, 1, this.image);
+        Map<ImageSource, Bitmap> result = new HashMap<>();
+
+        metatile.createBitmaps(result);
+
+        assertSame("tile", this.image, result.get(metatile.tileImageSource(0, 0)));
+        verify(this.image, never()).recycle();
+    }
+
+    @Test
+    public void testCreateBitmaps_NotAnImage() throws Exception {
+        WmsMetatile metatile = new TestMetatile("http://example.com/wms?BBOX=0,0,2,2", 2, 2, null);
+        Map<ImageSource, Bitmap> result = new HashMap<>();
+
+        metatile.createBitmaps(result);
+
+        assertTrue("no tiles", result.isEmpty());
+        PowerMockito.verifyStatic(never());
+        Bitmap.createBitmap(any(Bitmap.class), anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testTileBitmapFactory() throws Exception {
+        WmsMetatile metatile = new TestMetatile("http://example.com/wms?BBOX=0,0,2,2", 2, 2, this.image);
+        ImageSource tileSource = metatile.tileImageSource(1, 0);
+
+        Bitmap bitmap = tileSource.asBitmapFactory().createBitmap();
+
+        assertSame("northwest tile", this.tiles[2], bitmap);
+        assertSame("group", metatile, ((ImageSource.GroupedBitmapFactory) tileSource.asBitmapFactory()).getGroupFactory());
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        WmsMetatile metatile = new WmsMetatile("http://example.com/wms?BBOX=0,0,2,2", 2, 2);
+        WmsMetatile same = new WmsMetatile("http://example.com/wms?BBOX=0,0,2,2", 2, 2);
+        WmsMetatile other = new WmsMetatile("http://example.com/wms?BBOX=2,0,4,2", 2, 2);
+
+        assertEquals("equivalent metatiles", metatile, same);
+        assertEquals("equivalent tile sources", metatile.tileImageSource(0, 1), same.tileImageSource(0, 1));
+        assertEquals("equivalent hash codes", metatile.tileImageSource(0, 1).hashCode(), same.tileImageSource(0, 1).hashCode());
+        assertNotEquals("other tile", metatile.tileImageSource(0, 1), metatile.tileImageSource(1, 0));
+        assertNotEquals("other metatile", metatile.tileImageSource(0, 1), other.tileImageSource(0, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTileImageSource_OutsideMetatile() throws Exception {
+        new WmsMetatile("http://example.com/wms?BBOX=0,0,2,2", 2, 2).tileImageSource(2, 0);
+    }
+
+    private static class TestMetatile extends WmsMetatile {
+
+        private Bitmap image;
+
+        public TestMetatile(String urlString, int rows, int columns, Bitmap image) {
+            super(urlString, rows, columns);
+            this.image = image;
+        }
+
+        @Override
+        protected Bitmap retrieveImage() throws IOException {
+            return this.image;
+        }
+    }
+}
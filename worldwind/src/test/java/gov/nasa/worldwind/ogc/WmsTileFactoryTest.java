@@ -16,6 +16,10 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.ImageTile;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.LevelSet;
 import gov.nasa.worldwind.util.Logger;
 
 import static junit.framework.Assert.assertEquals;
@@ -1032,6 +1036,62 @@ public class WmsTileFactoryTest {
         }
     }
 
+    @Test
+    public void testCreateTile_Metatile() {
+        WmsTileFactory wmsFactory = new WmsTileFactory(COMMON_SERVICE_ADDRESS, "1.1.1", COMMON_LAYER_NAMES, null);
+        wmsFactory.setMetatileSize(2);
+        Level level = new LevelSet(new Sector().setFullSphere(), 90, 5, 256, 256).level(3); // 11.25 degree tiles
+
+        ImageTile tile = (ImageTile) wmsFactory.createTile(new Sector(-22.5, -22.5, 11.25, 11.25), level, 6, 14);
+        ImageTile sibling = (ImageTile) wmsFactory.createTile(new Sector(-11.25, -11.25, 11.25, 11.25), level, 7, 15);
+        ImageTile other = (ImageTile) wmsFactory.createTile(new Sector(0, -22.5, 11.25, 11.25), level, 8, 14);
+
+        ImageSource.GroupedBitmapFactory tileFactory = (ImageSource.GroupedBitmapFactory) tile.getImageSource().asBitmapFactory();
+        ImageSource.GroupedBitmapFactory siblingFactory = (ImageSource.GroupedBitmapFactory) sibling.getImageSource().asBitmapFactory();
+        ImageSource.GroupedBitmapFactory otherFactory = (ImageSource.GroupedBitmapFactory) other.getImageSource().asBitmapFactory();
+        WmsMetatile metatile = (WmsMetatile) tileFactory.getGroupFactory();
+
+        assertTrue("siblings share a metatile", metatile == siblingFactory.getGroupFactory());
+        assertFalse("other metatile", metatile.equals(otherFactory.getGroupFactory()));
+        assertFalse("sibling image sources", tile.getImageSource().equals(sibling.getImageSource()));
+        assertEquals("equivalent image source", metatile.tileImageSource(0, 0), tile.getImageSource());
+        assertEquals("rows", 2, metatile.getRows());
+        assertEquals("columns", 2, metatile.getColumns());
+        assertTrue("metatile bbox", metatile.getUrlString().contains("&BBOX=-22.5,-22.5,0.0,0.0&"));
+        assertTrue("metatile width", metatile.getUrlString().contains("&WIDTH=512&HEIGHT=512&"));
+    }
+
+    @Test
+    public void testCreateTile_MetatileTruncated() {
+        WmsTileFactory wmsFactory = new WmsTileFactory(COMMON_SERVICE_ADDRESS, "1.1.1", COMMON_LAYER_NAMES, null);
+        wmsFactory.setMetatileSize(4);
+        Level level = new LevelSet(new Sector().setFullSphere(), 90, 5, 256, 256).firstLevel(); // 2x4 tiles
+
+        ImageTile tile = (ImageTile) wmsFactory.createTile(new Sector(0, 90, 90, 90), level, 1, 3);
+
+        WmsMetatile metatile = (WmsMetatile) ((ImageSource.GroupedBitmapFactory) tile.getImageSource().asBitmapFactory()).getGroupFactory();
+        assertEquals("rows", 2, metatile.getRows());
+        assertEquals("columns", 4, metatile.getColumns());
+        assertTrue("metatile bbox", metatile.getUrlString().contains("&BBOX=-180.0,-90.0,180.0,90.0&"));
+        assertTrue("metatile width", metatile.getUrlString().contains("&WIDTH=1024&HEIGHT=512&"));
+    }
+
+    @Test
+    public void testCreateTile_MetatileDisabled() {
+        WmsTileFactory wmsFactory = new WmsTileFactory(COMMON_SERVICE_ADDRESS, "1.1.1", COMMON_LAYER_NAMES, null);
+        Level level = new LevelSet(new Sector().setFullSphere(), 90, 5, 256, 256).firstLevel();
+
+        ImageTile tile = (ImageTile) wmsFactory.createTile(new Sector(0, 90, 90, 90), level, 1, 3);
+
+        assertEquals("metatile size", 1, wmsFactory.getMetatileSize());
+        assertTrue("tile url", tile.getImageSource().isUrl());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMetatileSize_Invalid() {
+        new WmsTileFactory(COMMON_SERVICE_ADDRESS, "1.1.1", COMMON_LAYER_NAMES, null).setMetatileSize(0);
+    }
+
     /**
      * Tests the provided url {@link String} with four tests. The first test ensures a query delimiter is present in the
      * {@link String}. The second test ensures only one query delimiter is present. The third test ensures that the url
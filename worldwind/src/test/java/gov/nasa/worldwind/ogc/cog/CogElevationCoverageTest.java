@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.cog;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.formats.tiff.Subfile;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Retriever;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class CogElevationCoverageTest {
+
+    private byte[] content;
+
+    private List<String> events = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        this.content = CogReaderTest.createCog(0);
+    }
+
+    @Test
+    public void testRetrieveAsync_TileDecodeFailure() throws Exception {
+        // The second tile's data is truncated, and fails to decode.
+        CogReader reader = new ContentReader("testRetrieveAsync_TileDecodeFailure") {
+            @Override
+            public ByteBuffer[] readTiles(Subfile subfile, int[] rows, int[] columns, int count) throws IOException {
+                ByteBuffer[] tileData = super.readTiles(subfile, rows, columns, count);
+                tileData[1].limit(tileData[1].position() + 10);
+                return tileData;
+            }
+        };
+        CogElevationCoverage.CogTileBatch batch = TileBatches.create(reader.getTiff().getSubfiles().get(0), 0, 0, 1, 2);
+
+        new CogElevationCoverage.CogRetriever(reader, 1).retrieveAsync(ImageSource.fromObject(batch), null, new RecordingCallback());
+
+        // Only the tile that failed to decode fails. The tiles before and after it are delivered.
+        assertEquals("events", 3, this.events.size());
+        assertEquals("first tile", "succeeded " + batch.tiles.get(0), this.events.get(0));
+        assertEquals("second tile", "failed " + batch.tiles.get(1), this.events.get(1));
+        assertEquals("third tile", "succeeded " + batch.tiles.get(2), this.events.get(2));
+    }
+
+    @Test
+    public void testRetrieveAsync_FetchFailure() throws Exception {
+        // The tiles cannot be fetched.
+        CogReader reader = new ContentReader("testRetrieveAsync_FetchFailure") {
+            @Override
+            public ByteBuffer[] readTiles(Subfile subfile, int[] rows, int[] columns, int count) throws IOException {
+                throw new IOException();
+            }
+        };
+        CogElevationCoverage.CogTileBatch batch = TileBatches.create(reader.getTiff().getSubfiles().get(0), 0, 0, 1);
+
+        new CogElevationCoverage.CogRetriever(reader, 1).retrieveAsync(ImageSource.fromObject(batch), null, new RecordingCallback());
+
+        // The batch fails as a whole.
+        assertEquals("events", 1, this.events.size());
+        assertEquals("batch", "failed " + batch, this.events.get(0));
+    }
+
+    /**
+     * Creates batches of GeoTIFF tiles, whose class is visible to coverage subclasses.
+     */
+    private abstract static class TileBatches extends CogElevationCoverage {
+
+        private TileBatches() {
+            super("unused");
+        }
+
+        public static CogTileBatch create(Subfile subfile, int row, int... columns) {
+            List<GeoTiffTile> tiles = new ArrayList<>();
+            for (int column : columns) {
+                tiles.add(new GeoTiffTile(subfile, row, column));
+            }
+
+            return new CogTileBatch(tiles);
+        }
+    }
+
+    /**
+     * Reads ranges of the test's content instead of fetching them over HTTP.
+     */
+    private class ContentReader extends CogReader {
+
+        public ContentReader(String name) {
+            super("http://127.0.0.1/" + name + ".tif");
+        }
+
+        @Override
+        protected ByteBuffer readRange(long offset, int length) throws IOException {
+            int begin = (int) Math.min(offset, content.length);
+            int end = (int) Math.min(offset + length, content.length);
+            return ByteBuffer.wrap(content, begin, end - begin).slice();
+        }
+    }
+
+    private class RecordingCallback implements Retriever.Callback<ImageSource, Void, ByteBuffer> {
+
+        @Override
+        public void retrievalSucceeded(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key, Void unused, ByteBuffer value) {
+            events.add("succeeded " + key.asObject());
+        }
+
+        @Override
+        public void retrievalFailed(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key, Throwable ex) {
+            events.add("failed " + key.asObject());
+        }
+
+        @Override
+        public void retrievalRejected(Retriever<ImageSource, Void, ByteBuffer> retriever, ImageSource key) {
+            events.add("rejected " + key.asObject());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.cog;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gov.nasa.worldwind.formats.tiff.GeoTiff;
+import gov.nasa.worldwind.formats.tiff.Subfile;
+import gov.nasa.worldwind.formats.tiff.Tiff;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+@PowerMockIgnore({"com.sun.net.httpserver.*", "sun.net.httpserver.*"}) // Load the test server with the system class loader
+public class CogReaderTest {
+
+    private HttpServer server;
+
+    private byte[] content;
+
+    private boolean rangeSupported = true;
+
+    private AtomicInteger requestCount = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        // Serve the content with support for single range requests, counting the requests received.
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                int begin = 0, end = content.length - 1, status = 200;
+                if (range != null && rangeSupported) {
+                    String[] bounds = range.substring("bytes=".length()).split("-");
+                    begin = Integer.parseInt(bounds[0]);
+                    end = Math.min(Integer.parseInt(bounds[1]), content.length - 1);
+                    status = 206;
+                    exchange.getResponseHeaders().add("Content-Range", "bytes " + begin + "-" + end + "/" + content.length);
+                }
+
+                exchange.sendResponseHeaders(status, end - begin + 1);
+                OutputStream stream = exchange.getResponseBody();
+                stream.write(content, begin, end - begin + 1);
+                stream.close();
+            }
+        });
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testGetTiff() throws Exception {
+        this.content = createCog(0);
+        CogReader reader = new CogReader(this.url("testGetTiff"));
+
+        Tiff tiff = reader.getTiff();
+        Subfile subfile = tiff.getSubfiles().get(0);
+        Sector sector = GeoTiff.readSector(subfile);
+
+        assertEquals("header requests", 1, this.requestCount.get());
+        assertEquals("image width", 64, subfile.getImageWidth());
+        assertEquals("tile count", 16, subfile.getTileOffsets().length);
+        assertEquals("min latitude", 10.0, sector.minLatitude(), 1e-9);
+        assertEquals("max longitude", 30.0, sector.maxLongitude(), 1e-9);
+    }
+
+    @Test
+    public void testGetTiff_HeaderCache() throws Exception {
+        this.content = createCog(0);
+        String url = this.url("testGetTiff_HeaderCache");
+        Tiff tiff = new CogReader(url).getTiff();
+
+        Tiff cached = new CogReader(url).getTiff();
+
+        assertSame("cached header", tiff, cached);
+        assertEquals("header requests", 1, this.requestCount.get());
+    }
+
+    @Test
+    public void testGetTiff_LargeHeader() throws Exception {
+        // Place 40 KB of unused data before the header's tile offsets, exceeding the first two header requests.
+        this.content = createCog(1024 * 40);
+        CogReader reader = new CogReader(this.url("testGetTiff_LargeHeader"));
+
+        Subfile subfile = reader.getTiff().getSubfiles().get(0);
+
+        assertEquals("header requests", 3, this.requestCount.get());
+        assertEquals("tile count", 16, subfile.getTileOffsets().length);
+    }
+
+    @Test
+    public void testReadTiles_MergedRange() throws Exception {
+        this.content = createCog(0);
+        CogReader reader = new CogReader(this.url("testReadTiles_MergedRange"));
+        Subfile subfile = reader.getTiff().getSubfiles().get(0);
+        this.requestCount.set(0);
+
+        // Request the first row of tiles out of order. Their data is adjacent in the file.
+        int[] rows = {0, 0, 0, 0};
+        int[] columns = {2, 0, 3, 1};
+        ByteBuffer[] tileData = reader.readTiles(subfile, rows, columns, 4);
+
+        assertEquals("tile requests", 1, this.requestCount.get());
+        for (int idx = 0; idx < 4; idx++) {
+            assertTile(subfile, rows[idx], columns[idx], tileData[idx]);
+        }
+    }
+
+    @Test
+    public void testReadTiles_SeparateRanges() throws Exception {
+        this.content = createCog(0);
+        CogReader reader = new CogReader(this.url("testReadTiles_SeparateRanges"));
+        Subfile subfile = reader.getTiff().getSubfiles().get(0);
+        this.requestCount.set(0);
+
+        // Request the first and last tiles, whose data is separated by 7 KB of other tiles.
+        int[] rows = {3, 0};
+        int[] columns = {3, 0};
+        ByteBuffer[] tileData = reader.readTiles(subfile, rows, columns, 2);
+
+        assertEquals("tile requests", 2, this.requestCount.get());
+        assertTile(subfile, 3, 3, tileData[0]);
+        assertTile(subfile, 0, 0, tileData[1]);
+    }
+
+    @Test
+    public void testReadTiles_RangeNotSupported() throws Exception {
+        this.content = createCog(0);
+        this.rangeSupported = false;
+        CogReader reader = new CogReader(this.url("testReadTiles_RangeNotSupported"));
+        Subfile subfile = reader.getTiff().getSubfiles().get(0);
+
+        ByteBuffer[] tileData = reader.readTiles(subfile, new int[]{2}, new int[]{1}, 1);
+
+        assertTile(subfile, 2, 1, tileData[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadTiles_InvalidTile() throws Exception {
+        this.content = createCog(0);
+        CogReader reader = new CogReader(this.url("testReadTiles_InvalidTile"));
+        Subfile subfile = reader.getTiff().getSubfiles().get(0);
+
+        reader.readTiles(subfile, new int[]{4}, new int[]{0}, 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testGetTiff_NotFound() throws Exception {
+        this.server.removeContext("/");
+        this.content = createCog(0);
+
+        new CogReader(this.url("testGetTiff_NotFound")).getTiff();
+    }
+
+    private String url(String name) {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort() + "/" + name + ".tif";
+    }
+
+    private static void assertTile(Subfile subfile, int row, int column, ByteBuffer tileData) {
+        ByteBuffer tile = subfile.decodeTileData(tileData, ByteBuffer.allocate(subfile.getTileDataSize()));
+        tile.flip();
+        for (int j = 0; j < 16; j++) {
+            for (int i = 0; i < 16; i++) {
+                assertEquals("sample", sample(column * 16 + i, row * 16 + j), tile.getShort());
+            }
+        }
+    }
+
+    private static short sample(int x, int y) {
+        return (short) (y * 100 + x);
+    }
+
+    /**
+     * Creates a little-endian Cloud Optimized GeoTIFF containing a 64x64 image divided into 16x16 tiles, with the
+     * image's header ahead of its tile data. The header's tile offsets and byte counts follow a specified amount of
+     * unused data.
+     */
+    static byte[] createCog(int headerPadding) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024 * 64 + headerPadding).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(8);
+
+        // Write the image's directory, followed by the data of the values that don't fit in their entry.
+        int entryCount = 14;
+        int valueOffset = 8 + 2 + entryCount * 12 + 4;
+        int scaleOffset = valueOffset, tiepointOffset = scaleOffset + 24, geoKeyOffset = tiepointOffset + 48;
+        int tileOffsetsOffset = geoKeyOffset + 32 + headerPadding, byteCountsOffset = tileOffsetsOffset + 64;
+        int dataOffset = byteCountsOffset + 64;
+
+        buffer.putShort((short) entryCount);
+        putEntry(buffer, Tiff.IMAGE_WIDTH_TAG, 4, 1, 64);
+        putEntry(buffer, Tiff.IMAGE_LENGTH_TAG, 4, 1, 64);
+        putEntry(buffer, Tiff.BITS_PER_SAMPLE_TAG, 3, 1, 16);
+        putEntry(buffer, Tiff.COMPRESSION_TAG, 3, 1, Tiff.NO_COMPRESSION);
+        putEntry(buffer, Tiff.PHOTOMETRIC_INTERPRETATION_TAG, 3, 1, Tiff.BLACK_IS_ZERO);
+        putEntry(buffer, Tiff.SAMPLES_PER_PIXEL_TAG, 3, 1, 1);
+        putEntry(buffer, Tiff.TILE_WIDTH_TAG, 3, 1, 16);
+        putEntry(buffer, Tiff.TILE_LENGTH_TAG, 3, 1, 16);
+        putEntry(buffer, Tiff.TILE_OFFSETS_TAG, 4, 16, tileOffsetsOffset);
+        putEntry(buffer, Tiff.TILE_BYTE_COUNTS_TAG, 4, 16, byteCountsOffset);
+        putEntry(buffer, Tiff.SAMPLE_FORMAT_TAG, 3, 1, Tiff.TWOS_COMP_SIGNED_INT);
+        putEntry(buffer, Tiff.MODEL_PIXEL_SCALE_TAG, 12, 3, scaleOffset);
+        putEntry(buffer, Tiff.MODEL_TIEPOINT_TAG, 12, 6, tiepointOffset);
+        putEntry(buffer, Tiff.GEO_KEY_DIRECTORY_TAG, 3, 16, geoKeyOffset);
+        buffer.putInt(0); // no next IFD
+
+        buffer.putDouble(scaleOffset, 0.25).putDouble(scaleOffset + 8, 0.25);
+        buffer.putDouble(tiepointOffset + 24, 14).putDouble(tiepointOffset + 32, 26);
+        short[] geoKeys = {1, 1, 0, 3, 1024, 0, 1, 2, 1025, 0, 1, 1, 2048, 0, 1, 4326};
+        for (int idx = 0; idx < geoKeys.length; idx++) {
+            buffer.putShort(geoKeyOffset + idx * 2, geoKeys[idx]);
+        }
+
+        // Write the tiles in row-major order following the header.
+        buffer.position(dataOffset);
+        for (int idx = 0; idx < 16; idx++) {
+            int row = idx / 4, col = idx % 4;
+            buffer.putInt(tileOffsetsOffset + idx * 4, buffer.position());
+            buffer.putInt(byteCountsOffset + idx * 4, 16 * 16 * 2);
+            for (int pixel = 0; pixel < 16 * 16; pixel++) {
+                buffer.putShort(sample(col * 16 + pixel % 16, row * 16 + pixel / 16));
+            }
+        }
+
+        byte[] result = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, result, 0, result.length);
+        return result;
+    }
+
+    private static void putEntry(ByteBuffer buffer, int tag, int type, int count, int value) {
+        buffer.putShort((short) tag).putShort((short) type).putInt(count);
+        if (type == 3 && count == 1) {
+            buffer.putShort((short) value).putShort((short) 0);
+        } else {
+            buffer.putInt(value);
+        }
+    }
+}
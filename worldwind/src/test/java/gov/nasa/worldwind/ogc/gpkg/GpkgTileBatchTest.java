@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.gpkg;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest({Logger.class, Bitmap.class, BitmapFactory.class}) // We mock the Logger class to avoid its calls to android.util.log
+public class GpkgTileBatchTest {
+
+    private GeoPackage geoPackage;
+
+    private GpkgContent tiles;
+
+    private Map<byte[], Bitmap> decodedBitmaps = new HashMap<>();
+
+    private List<Long> tilesRead = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        // Decode each tile's data to a distinct bitmap.
+        PowerMockito.mockStatic(BitmapFactory.class);
+        PowerMockito.when(BitmapFactory.decodeByteArray(any(byte[].class), anyInt(), anyInt())).thenAnswer(new Answer<Bitmap>() {
+            @Override
+            public Bitmap answer(InvocationOnMock invocation) throws Throwable {
+                Bitmap bitmap = PowerMockito.mock(Bitmap.class);
+                decodedBitmaps.put((byte[]) invocation.getArguments()[0], bitmap);
+                return bitmap;
+            }
+        });
+
+        this.geoPackage = PowerMockito.mock(GeoPackage.class);
+        this.tiles = new GpkgContent();
+        this.tiles.setContainer(this.geoPackage);
+        this.tiles.setTableName("tiles");
+    }
+
+    @Test
+    public void testCreateBitmaps() throws Exception {
+        final GpkgTileUserData first = tileUserData(5, 2, 4);
+        final GpkgTileUserData second = tileUserData(5, 3, 5);
+        this.answerTiles(first, second);
+        GpkgTileBatch batch = new GpkgTileBatch(this.tiles, 5, 32);
+        batch.requestBitmap(batch.tileImageSource(2, 4));
+        batch.requestBitmap(batch.tileImageSource(3, 5));
+        batch.requestBitmap(batch.tileImageSource(3, 4));
+        Map<ImageSource, Bitmap> bitmaps = new HashMap<>();
+
+        batch.createBitmaps(bitmaps);
+
+        // Only the requested tiles are read, with one query, and the requested tiles missing from the table are mapped
+        // to null.
+        verify(this.geoPackage, times(1)).readTileUserData(any(GpkgContent.class), anyInt(), any(int[].class),
+            any(int[].class), anyInt(), Matchers.<List<GpkgTileUserData>>any());
+        assertEquals("tiles read", 3, this.tilesRead.size());
+        assertEquals("bitmap count", 3, bitmaps.size());
+        assertSame("first bitmap", this.decodedBitmaps.get(first.getTileData()), bitmaps.get(batch.tileImageSource(2, 4)));
+        assertSame("second bitmap", this.decodedBitmaps.get(second.getTileData()), bitmaps.get(batch.tileImageSource(3, 5)));
+        assertTrue("missing tile", bitmaps.containsKey(batch.tileImageSource(3, 4)));
+        assertNull("missing bitmap", bitmaps.get(batch.tileImageSource(3, 4)));
+        assertFalse("unrequested tile", bitmaps.containsKey(batch.tileImageSource(2, 5)));
+    }
+
+    @Test
+    public void testCreateBitmaps_MaxTiles() throws Exception {
+        this.answerTiles();
+        GpkgTileBatch batch = new GpkgTileBatch(this.tiles, 5, 2);
+        batch.requestBitmap(batch.tileImageSource(2, 4));
+        batch.requestBitmap(batch.tileImageSource(3, 4));
+        batch.requestBitmap(batch.tileImageSource(4, 4));
+        Map<ImageSource, Bitmap> bitmaps = new HashMap<>();
+
+        batch.createBitmaps(bitmaps);
+        int firstCount = this.tilesRead.size();
+        batch.createBitmaps(bitmaps);
+
+        // Each query reads at most the batch's maximum number of tiles, in the order the tiles were requested, leaving
+        // the remaining tiles for the next query.
+        assertEquals("first query", 2, firstCount);
+        assertEquals("second query", 3, this.tilesRead.size());
+        assertEquals("last tile", Long.valueOf(GpkgTileBatch.tileAddress(4, 4)), this.tilesRead.get(2));
+        assertEquals("bitmap count", 3, bitmaps.size());
+    }
+
+    @Test
+    public void testCreateBitmaps_NoRequests() throws Exception {
+        GpkgTileBatch batch = new GpkgTileBatch(this.tiles, 5, 32);
+        Map<ImageSource, Bitmap> bitmaps = new HashMap<>();
+
+        batch.createBitmaps(bitmaps);
+
+        verify(this.geoPackage, times(0)).readTileUserData(any(GpkgContent.class), anyInt(), any(int[].class),
+            any(int[].class), anyInt(), Matchers.<List<GpkgTileUserData>>any());
+        assertTrue("no bitmaps", bitmaps.isEmpty());
+    }
+
+    @Test
+    public void testRequestBitmap_WhileReading() throws Exception {
+        final GpkgTileBatch batch = new GpkgTileBatch(this.tiles, 5, 32);
+        final boolean[] requested = new boolean[2];
+        PowerMockito.when(this.geoPackage.readTileUserData(eq(this.tiles), eq(5), any(int[].class), any(int[].class), anyInt(), Matchers.<List<GpkgTileUserData>>any()))
+            .thenAnswer(new Answer<List<GpkgTileUserData>>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public List<GpkgTileUserData> answer(InvocationOnMock invocation) throws Throwable {
+                    if (requested[1]) {
+                        return (List<GpkgTileUserData>) invocation.getArguments()[5]; // the second read
+                    }
+                    requested[0] = batch.requestBitmap(batch.tileImageSource(2, 4)); // being read
+                    requested[1] = batch.requestBitmap(batch.tileImageSource(3, 4)); // not being read
+                    return (List<GpkgTileUserData>) invocation.getArguments()[5];
+                }
+            });
+        batch.requestBitmap(batch.tileImageSource(2, 4));
+        Map<ImageSource, Bitmap> first = new HashMap<>();
+        Map<ImageSource, Bitmap> second = new HashMap<>();
+
+        batch.createBitmaps(first);
+        batch.createBitmaps(second);
+
+        // Tiles being read are not requested again, while tiles requested during a read are left for the next read.
+        assertFalse("tile being read", requested[0]);
+        assertTrue("tile not being read", requested[1]);
+        assertEquals("first read", 1, first.size());
+        assertTrue("first read", first.containsKey(batch.tileImageSource(2, 4)));
+        assertEquals("second read", 1, second.size());
+        assertTrue("second read", second.containsKey(batch.tileImageSource(3, 4)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequestBitmap_OtherBatch() throws Exception {
+        GpkgTileBatch batch = new GpkgTileBatch(this.tiles, 5, 32);
+        GpkgTileBatch other = new GpkgTileBatch(this.tiles, 6, 32);
+
+        batch.requestBitmap(other.tileImageSource(2, 4));
+    }
+
+    @Test
+    public void testTileImageSource() throws Exception {
+        GpkgTileBatch batch = new GpkgTileBatch(this.tiles, 5, 32);
+        GpkgTileBatch equivalent = new GpkgTileBatch(this.tiles, 5, 32);
+
+        ImageSource imageSource = batch.tileImageSource(3, 4);
+        ImageSource.GroupedBitmapFactory factory = (ImageSource.GroupedBitmapFactory) imageSource.asBitmapFactory();
+
+        assertEquals("equivalent image source", equivalent.tileImageSource(3, 4), imageSource);
+        assertNotEquals("other tile's image source", batch.tileImageSource(2, 4), imageSource);
+        assertNotEquals("other zoom level's image source", new GpkgTileBatch(this.tiles, 6, 32).tileImageSource(3, 4), imageSource);
+        assertSame("group factory", batch, factory.getGroupFactory());
+    }
+
+    /**
+     * Answers the batch's queries with the specified tiles, recording the address of each tile the queries read.
+     */
+    private void answerTiles(final GpkgTileUserData... tileData) {
+        PowerMockito.when(this.geoPackage.readTileUserData(eq(this.tiles), eq(5), any(int[].class), any(int[].class), anyInt(), Matchers.<List<GpkgTileUserData>>any()))
+            .thenAnswer(new Answer<List<GpkgTileUserData>>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public List<GpkgTileUserData> answer(InvocationOnMock invocation) throws Throwable {
+                    int[] tileColumns = (int[]) invocation.getArguments()[2];
+                    int[] tileRows = (int[]) invocation.getArguments()[3];
+                    int count = (Integer) invocation.getArguments()[4];
+                    for (int idx = 0; idx < count; idx++) {
+                        tilesRead.add(GpkgTileBatch.tileAddress(tileColumns[idx], tileRows[idx]));
+                    }
+                    List<GpkgTileUserData> result = (List<GpkgTileUserData>) invocation.getArguments()[5];
+                    result.addAll(Arrays.asList(tileData));
+                    return result;
+                }
+            });
+    }
+
+    private static GpkgTileUserData tileUserData(int zoomLevel, int tileColumn, int tileRow) {
+        GpkgTileUserData userData = new GpkgTileUserData();
+        userData.setZoomLevel(zoomLevel);
+        userData.setTileColumn(tileColumn);
+        userData.setTileRow(tileRow);
+        userData.setTileData(new byte[]{(byte) tileColumn, (byte) tileRow});
+        return userData;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.gpkg;
+
+import android.util.SparseArray;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.ImageTile;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class GpkgTileFactoryTest {
+
+    private GpkgContent tiles;
+
+    // A global level set with 180 degree tiles at level 0, matching the tile matrix below. Level 2 has 4 rows and 8
+    // columns of 45 degree tiles.
+    private LevelSet levelSet = new LevelSet(new Sector().setFullSphere(), 180, 3, 256, 256);
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        GpkgTileMatrix tileMatrix = new GpkgTileMatrix();
+        tileMatrix.setZoomLevel(2);
+        tileMatrix.setMatrixWidth(8);
+        tileMatrix.setMatrixHeight(4);
+        SparseArray<GpkgTileMatrix> tileMatrices = PowerMockito.mock(SparseArray.class);
+        PowerMockito.when(tileMatrices.get(2)).thenReturn(tileMatrix);
+        GpkgTileUserMetrics userMetrics = new GpkgTileUserMetrics();
+        userMetrics.setZoomLevels(new int[]{2});
+
+        GeoPackage geoPackage = PowerMockito.mock(GeoPackage.class);
+        PowerMockito.when(geoPackage.getTileMatrix("tiles")).thenReturn(tileMatrices);
+        PowerMockito.when(geoPackage.getTileUserMetrics("tiles")).thenReturn(userMetrics);
+        this.tiles = new GpkgContent();
+        this.tiles.setContainer(geoPackage);
+        this.tiles.setTableName("tiles");
+    }
+
+    @Test
+    public void testCreateTile_Batched() throws Exception {
+        GpkgTileFactory factory = new GpkgTileFactory(this.tiles);
+        Level level = this.levelSet.level(2);
+
+        // Tiles are batched by default. Row 3 is GeoPackage row 0, and every tile in a zoom level shares one batch.
+        ImageTile tile = (ImageTile) factory.createTile(this.tileSector(level, 3, 4), level, 3, 4);
+        GpkgTileBatch batch = this.batchOf(factory, level, 3, 4);
+
+        assertSame("same batch", batch, this.batchOf(factory, level, 0, 7));
+        assertEquals("zoom level", 2, batch.getZoomLevel());
+        assertEquals("max tiles", factory.getBatchSize(), batch.getMaxTiles());
+        assertEquals("image source", batch.tileImageSource(4, 0), tile.getImageSource());
+    }
+
+    @Test
+    public void testSetBatchSize() throws Exception {
+        GpkgTileFactory factory = new GpkgTileFactory(this.tiles);
+        Level level = this.levelSet.level(2);
+        GpkgTileBatch batch = this.batchOf(factory, level, 3, 4);
+
+        factory.setBatchSize(8);
+
+        // Tiles created after the batch size changes are read by a new batch of the specified size.
+        GpkgTileBatch resized = this.batchOf(factory, level, 3, 4);
+        assertNotSame("new batch", batch, resized);
+        assertEquals("max tiles", 8, resized.getMaxTiles());
+    }
+
+    @Test
+    public void testCreateTile_Unbatched() throws Exception {
+        GpkgTileFactory factory = new GpkgTileFactory(this.tiles);
+        factory.setBatchSize(1);
+        Level level = this.levelSet.level(2);
+
+        ImageTile tile = (ImageTile) factory.createTile(this.tileSector(level, 3, 4), level, 3, 4);
+
+        assertTrue("bitmap factory", tile.getImageSource().isBitmapFactory());
+        assertFalse("grouped", tile.getImageSource().asBitmapFactory() instanceof ImageSource.GroupedBitmapFactory);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetBatchSize_Invalid() throws Exception {
+        new GpkgTileFactory(this.tiles).setBatchSize(0);
+    }
+
+    private GpkgTileBatch batchOf(GpkgTileFactory factory, Level level, int row, int column) {
+        ImageTile tile = (ImageTile) factory.createTile(this.tileSector(level, row, column), level, row, column);
+        ImageSource.GroupedBitmapFactory bitmapFactory = (ImageSource.GroupedBitmapFactory) tile.getImageSource().asBitmapFactory();
+        return (GpkgTileBatch) bitmapFactory.getGroupFactory();
+    }
+
+    private Sector tileSector(Level level, int row, int column) {
+        return new Sector(-90 + row * level.tileDelta, -180 + column * level.tileDelta, level.tileDelta, level.tileDelta);
+    }
+}
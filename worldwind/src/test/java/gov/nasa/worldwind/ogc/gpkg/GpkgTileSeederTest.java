@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.gpkg;
+
+import android.util.SparseArray;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.ImageSource;
+import gov.nasa.worldwind.render.ImageTile;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.TileFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+@PowerMockIgnore({"com.sun.net.httpserver.*", "sun.net.httpserver.*"}) // Load the test server with the system class loader
+public class GpkgTileSeederTest {
+
+    private HttpServer server;
+
+    private AtomicInteger requestCount = new AtomicInteger();
+
+    private AtomicInteger activeRequests = new AtomicInteger();
+
+    private AtomicInteger maxActiveRequests = new AtomicInteger();
+
+    private volatile String absentPath;
+
+    private MemoryTileWriter writer = new MemoryTileWriter();
+
+    // A global level set with 90 degree tiles at level 0. The region spans 1, 1, 4 and 16 tiles in levels 0 to 3.
+    private LevelSet levelSet = new LevelSet(new Sector().setFullSphere(), 90, 4, 256, 256);
+
+    private Sector region = new Sector(0, 0, 45, 45);
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        // Serve each tile's image as its path, counting the requests received and the requests active at once.
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                int active = activeRequests.incrementAndGet();
+                while (active > maxActiveRequests.get()) {
+                    maxActiveRequests.compareAndSet(maxActiveRequests.get(), active);
+                }
+
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException ignored) {
+                }
+
+                String path = exchange.getRequestURI().getPath();
+                activeRequests.decrementAndGet();
+                if (path.equals(absentPath)) {
+                    exchange.sendResponseHeaders(404, -1);
+                    exchange.close();
+                    return;
+                }
+
+                byte[] body = path.getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Type", "image/png");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream stream = exchange.getResponseBody();
+                stream.write(body);
+                stream.close();
+            }
+        });
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testSeed() throws Exception {
+        GpkgTileSeeder seeder = new GpkgTileSeeder(this.writer, "tiles", this.levelSet, new UrlTileFactory());
+        seeder.setBatchSize(5);
+        List<int[]> progress = new ArrayList<>();
+
+        boolean complete = seeder.seed(this.region, 0, 3, new ProgressRecorder(progress));
+
+        assertTrue("complete", complete);
+        assertEquals("requests", 22, this.requestCount.get());
+        assertEquals("stored tiles", 22, this.writer.tiles.size());
+        assertEquals("transactions", 5, this.writer.transactionCount); // 4 full batches and the remaining 2 tiles
+        assertEquals("table sector", this.region, this.writer.tableSector);
+        assertFalse("closed", this.writer.open);
+        // Level 2's tile at row 4, column 8 is GeoPackage row 3, as level 2 has 8 rows.
+        assertEquals("tile data", "/2/4/8", new String(this.writer.tiles.get("2/8/3"), "UTF-8"));
+        assertEquals("level 0 tile data", "/0/1/2", new String(this.writer.tiles.get("0/2/0"), "UTF-8"));
+        int[] last = progress.get(progress.size() - 1);
+        assertEquals("completed", 22, last[0]);
+        assertEquals("failed", 0, last[1]);
+        assertEquals("count", 22, last[2]);
+    }
+
+    @Test
+    public void testSeed_ReadBack() throws Exception {
+        GpkgTileSeeder seeder = new GpkgTileSeeder(this.writer, "tiles", this.levelSet, new UrlTileFactory());
+        seeder.seed(this.region, 0, 3, null);
+        GpkgTileFactory factory = new GpkgTileFactory(this.writer.content());
+        factory.setBatchSize(1);
+
+        LevelSet readLevelSet = factory.createLevelSet();
+
+        // The level set read from the tile matrices matches the level set the tiles were seeded from, and each of the
+        // factory's tiles in the seeded region reads the tile seeded at the same level, row and column.
+        assertEquals("first level delta", this.levelSet.firstLevelDelta, readLevelSet.firstLevelDelta, 0);
+        assertEquals("levels", 4, readLevelSet.numLevels());
+        assertEquals("sector", this.region, readLevelSet.sector);
+        int tileCount = 0;
+        for (int idx = 0; idx < readLevelSet.numLevels(); idx++) {
+            Level level = readLevelSet.level(idx);
+            int firstRow = Tile.computeRow(level.tileDelta, this.region.minLatitude());
+            int lastRow = Tile.computeLastRow(level.tileDelta, this.region.maxLatitude());
+            int firstColumn = Tile.computeColumn(level.tileDelta, this.region.minLongitude());
+            int lastColumn = Tile.computeLastColumn(level.tileDelta, this.region.maxLongitude());
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    Sector sector = new Sector(-90 + row * level.tileDelta, -180 + column * level.tileDelta, level.tileDelta, level.tileDelta);
+                    ImageTile tile = (ImageTile) factory.createTile(sector, level, row, column);
+                    GpkgBitmapFactory bitmapFactory = (GpkgBitmapFactory) tile.getImageSource().asBitmapFactory();
+                    String key = bitmapFactory.zoomLevel + "/" + bitmapFactory.tileColumn + "/" + bitmapFactory.tileRow;
+                    String expected = "/" + idx + "/" + row + "/" + column;
+                    assertEquals("tile data " + expected, expected, new String(this.writer.tiles.get(key), "UTF-8"));
+                    tileCount++;
+                }
+            }
+        }
+        assertEquals("tiles read", 22, tileCount);
+    }
+
+    @Test
+    public void testSeed_Resume() throws Exception {
+        GpkgTileSeeder seeder = new GpkgTileSeeder(this.writer, "tiles", this.levelSet, new UrlTileFactory());
+        seeder.seed(this.region, 0, 2, null);
+        this.requestCount.set(0);
+        List<int[]> progress = new ArrayList<>();
+
+        boolean complete = seeder.seed(this.region, 0, 3, new ProgressRecorder(progress));
+
+        assertTrue("complete", complete);
+        assertEquals("requests for unseeded tiles", 16, this.requestCount.get());
+        assertEquals("stored tiles", 22, this.writer.tiles.size());
+        assertEquals("completed", 22, progress.get(progress.size() - 1)[0]);
+    }
+
+    @Test
+    public void testSeed_Failure() throws Exception {
+        this.absentPath = "/2/4/8";
+        GpkgTileSeeder seeder = new GpkgTileSeeder(this.writer, "tiles", this.levelSet, new UrlTileFactory());
+        List<int[]> progress = new ArrayList<>();
+
+        boolean complete = seeder.seed(this.region, 0, 3, new ProgressRecorder(progress));
+
+        assertFalse("complete", complete);
+        assertEquals("stored tiles", 21, this.writer.tiles.size());
+        assertEquals("failed", 1, progress.get(progress.size() - 1)[1]);
+
+        // Seeding the region again retries the failed tile.
+        this.absentPath = null;
+        this.requestCount.set(0);
+        assertTrue("complete after retry", seeder.seed(this.region, 0, 3, null));
+        assertEquals("retry requests", 1, this.requestCount.get());
+    }
+
+    @Test
+    public void testSeed_MaxConcurrentRetrievals() throws Exception {
+        GpkgTileSeeder seeder = new GpkgTileSeeder(this.writer, "tiles", this.levelSet, new UrlTileFactory());
+        seeder.setMaxConcurrentRetrievals(2);
+
+        seeder.seed(this.region, 0, 3, null);
+
+        assertEquals("stored tiles", 22, this.writer.tiles.size());
+        assertTrue("concurrent requests", this.maxActiveRequests.get() <= 2);
+    }
+
+    @Test
+    public void testSeed_Cancel() throws Exception {
+        final GpkgTileSeeder seeder = new GpkgTileSeeder(this.writer, "tiles", this.levelSet, new UrlTileFactory());
+        seeder.setBatchSize(4);
+        seeder.setMaxConcurrentRetrievals(1);
+
+        boolean complete = seeder.seed(this.region, 0, 3, new GpkgTileSeeder.Callback() {
+            @Override
+            public void seedingProgress(GpkgTileSeeder seeder, int tilesCompleted, int tilesFailed, int tileCount) {
+                seeder.cancel();
+            }
+        });
+
+        assertFalse("complete", complete);
+        assertTrue("stored tiles", this.writer.tiles.size() >= 4 && this.writer.tiles.size() < 22);
+        assertFalse("closed", this.writer.open);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeed_InvalidLevelRange() throws Exception {
+        GpkgTileSeeder seeder = new GpkgTileSeeder(this.writer, "tiles", this.levelSet, new UrlTileFactory());
+
+        seeder.seed(this.region, 0, 4, null);
+    }
+
+    private class UrlTileFactory implements TileFactory {
+
+        @Override
+        public Tile createTile(Sector sector, Level level, int row, int column) {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/" + level.levelNumber + "/" + row + "/" + column;
+            ImageTile tile = new ImageTile(sector, level, row, column);
+            tile.setImageSource(ImageSource.fromUrl(url));
+            return tile;
+        }
+    }
+
+    private static class ProgressRecorder implements GpkgTileSeeder.Callback {
+
+        private List<int[]> progress;
+
+        public ProgressRecorder(List<int[]> progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public void seedingProgress(GpkgTileSeeder seeder, int tilesCompleted, int tilesFailed, int tileCount) {
+            this.progress.add(new int[]{tilesCompleted, tilesFailed, tileCount});
+        }
+    }
+
+    /**
+     * A tile writer that stores tiles in memory by their zoom level, column and GeoPackage row, in place of SQLite.
+     */
+    private static class MemoryTileWriter extends GpkgTileWriter {
+
+        public Map<String, byte[]> tiles = new HashMap<>();
+
+        public Sector tableSector;
+
+        public Map<Integer, GpkgTileMatrix> tileMatrices = new HashMap<>();
+
+        public int transactionCount;
+
+        public boolean open;
+
+        public MemoryTileWriter() {
+            super("memory");
+        }
+
+        @Override
+        public void open() {
+            this.open = true;
+        }
+
+        @Override
+        public void close() {
+            this.open = false;
+        }
+
+        @Override
+        public void createTileTable(String tableName, LevelSet levelSet, Sector sector) {
+            this.tableSector = new Sector(sector);
+            for (int idx = 0; idx < levelSet.numLevels(); idx++) {
+                GpkgTileMatrix tileMatrix = createTileMatrix(tableName, levelSet.level(idx));
+                this.tileMatrices.put(tileMatrix.getZoomLevel(), tileMatrix);
+            }
+        }
+
+        /**
+         * Returns the tiles content of a GeoPackage holding the written tile table, as read by GeoPackage.
+         */
+        public GpkgContent content() {
+            SparseArray<GpkgTileMatrix> tileMatrixIndex = new SparseArray<GpkgTileMatrix>() {
+                @Override
+                public GpkgTileMatrix get(int key) {
+                    return tileMatrices.get(key);
+                }
+            };
+            GpkgTileMatrixSet tileMatrixSet = new GpkgTileMatrixSet();
+            tileMatrixSet.setMinX(-180);
+            tileMatrixSet.setMinY(-90);
+            tileMatrixSet.setMaxX(180);
+            tileMatrixSet.setMaxY(90);
+            Set<Integer> zoomLevelSet = new TreeSet<>();
+            for (String key : this.tiles.keySet()) {
+                zoomLevelSet.add(Integer.parseInt(key.split("/")[0]));
+            }
+            int[] zoomLevels = new int[zoomLevelSet.size()];
+            int pos = 0;
+            for (int zoomLevel : zoomLevelSet) {
+                zoomLevels[pos++] = zoomLevel;
+            }
+            GpkgTileUserMetrics userMetrics = new GpkgTileUserMetrics();
+            userMetrics.setZoomLevels(zoomLevels);
+
+            GeoPackage geoPackage = PowerMockito.mock(GeoPackage.class);
+            PowerMockito.when(geoPackage.getTileMatrix("tiles")).thenReturn(tileMatrixIndex);
+            PowerMockito.when(geoPackage.getTileMatrixSet("tiles")).thenReturn(tileMatrixSet);
+            PowerMockito.when(geoPackage.getTileUserMetrics("tiles")).thenReturn(userMetrics);
+            GpkgContent content = new GpkgContent();
+            content.setContainer(geoPackage);
+            content.setTableName("tiles");
+            content.setMinX(this.tableSector.minLongitude());
+            content.setMinY(this.tableSector.minLatitude());
+            content.setMaxX(this.tableSector.maxLongitude());
+            content.setMaxY(this.tableSector.maxLatitude());
+            return content;
+        }
+
+        @Override
+        public Set<Long> readTileAddresses(String tableName, int zoomLevel, int minColumn, int maxColumn,
+                                           int minRow, int maxRow, Set<Long> result) {
+            for (String key : this.tiles.keySet()) {
+                String[] address = key.split("/");
+                int column = Integer.parseInt(address[1]);
+                int row = Integer.parseInt(address[2]);
+                if (Integer.parseInt(address[0]) == zoomLevel && column >= minColumn && column <= maxColumn
+                    && row >= minRow && row <= maxRow) {
+                    result.add(tileAddress(column, row));
+                }
+            }
+
+            return result;
+        }
+
+        @Override
+        public void writeTiles(String tableName, List<GpkgTileUserData> tiles) {
+            this.transactionCount++;
+            for (GpkgTileUserData tile : tiles) {
+                this.tiles.put(tile.getZoomLevel() + "/" + tile.getTileColumn() + "/" + tile.getTileRow(), tile.getTileData());
+            }
+        }
+    }
+}
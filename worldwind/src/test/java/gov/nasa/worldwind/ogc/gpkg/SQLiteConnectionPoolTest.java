@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.gpkg;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest({Logger.class, SQLiteDatabase.class, SQLiteStatement.class}) // We mock the Logger class to avoid its calls to android.util.log
+public class SQLiteConnectionPoolTest {
+
+    private MockConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        this.pool = new MockConnectionPool(2);
+    }
+
+    @Test
+    public void testAcquireConnection_ReusesIdle() throws Exception {
+        SQLiteConnectionPool.PooledConnection first = this.pool.acquireConnection();
+        this.pool.releaseConnection(first);
+
+        SQLiteConnectionPool.PooledConnection second = this.pool.acquireConnection();
+
+        assertSame("reused connection", first, second);
+        assertEquals("databases opened", 1, this.pool.databases.size());
+    }
+
+    @Test
+    public void testAcquireConnection_Concurrent() throws Exception {
+        SQLiteConnectionPool.PooledConnection first = this.pool.acquireConnection();
+
+        SQLiteConnectionPool.PooledConnection second = this.pool.acquireConnection();
+
+        assertNotSame("separate connections", first.getDatabase(), second.getDatabase());
+        assertEquals("databases opened", 2, this.pool.databases.size());
+    }
+
+    @Test
+    public void testAcquireConnection_BlocksAtMaxConnections() throws Exception {
+        final SQLiteConnectionPool.PooledConnection first = this.pool.acquireConnection();
+        this.pool.acquireConnection();
+        final AtomicReference<SQLiteConnectionPool.PooledConnection> third = new AtomicReference<>();
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                third.set(pool.acquireConnection());
+            }
+        });
+        thread.start();
+        thread.join(100);
+        assertTrue("waiting for a connection", thread.isAlive());
+
+        this.pool.releaseConnection(first);
+        thread.join(1000);
+
+        assertSame("released connection", first, third.get());
+        assertEquals("databases opened", 2, this.pool.databases.size());
+    }
+
+    @Test
+    public void testCompileStatement_Cached() throws Exception {
+        SQLiteConnectionPool.PooledConnection connection = this.pool.acquireConnection();
+
+        SQLiteStatement statement = connection.compileStatement("SELECT tile_data FROM 'a'");
+        SQLiteStatement cached = connection.compileStatement("SELECT tile_data FROM 'a'");
+        SQLiteStatement other = connection.compileStatement("SELECT tile_data FROM 'b'");
+
+        assertSame("cached statement", statement, cached);
+        assertNotSame("other table's statement", statement, other);
+        verify(connection.getDatabase(), times(2)).compileStatement(anyString());
+    }
+
+    @Test
+    public void testConnectionTimeout() throws Exception {
+        SQLiteConnectionPool.PooledConnection expired = this.pool.acquireConnection();
+        SQLiteConnectionPool.PooledConnection recent = this.pool.acquireConnection();
+        SQLiteStatement statement = expired.compileStatement("SELECT tile_data FROM 'a'");
+        this.pool.releaseConnection(expired);
+        this.pool.time += 30000;
+        this.pool.releaseConnection(recent);
+        this.pool.time += 40000; // the first connection has been idle longer than the 60 second keep alive
+
+        this.pool.onConnectionTimeout();
+
+        verify(statement).close();
+        verify(expired.getDatabase()).close();
+        verify(recent.getDatabase(), times(0)).close();
+        assertSame("remaining connection", recent, this.pool.acquireConnection());
+        assertFalse("connection opened", this.pool.acquireConnection() == expired);
+        assertEquals("databases opened", 3, this.pool.databases.size());
+    }
+
+    private static class MockConnectionPool extends SQLiteConnectionPool {
+
+        public List<SQLiteDatabase> databases = new ArrayList<>();
+
+        public long time;
+
+        public MockConnectionPool(int maxConnections) {
+            super("test.gpkg", SQLiteDatabase.OPEN_READONLY, maxConnections, 60, TimeUnit.SECONDS);
+        }
+
+        @Override
+        protected SQLiteDatabase openDatabase() {
+            SQLiteDatabase database = PowerMockito.mock(SQLiteDatabase.class);
+            PowerMockito.when(database.compileStatement(anyString())).thenAnswer(new Answer<SQLiteStatement>() {
+                @Override
+                public SQLiteStatement answer(InvocationOnMock invocation) throws Throwable {
+                    return PowerMockito.mock(SQLiteStatement.class);
+                }
+            });
+            this.databases.add(database);
+            return database;
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return this.time;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.draw.Drawable;
+import gov.nasa.worldwind.draw.DrawableQueue;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class DecluttererTest {
+
+    private RenderContext rc;
+
+    private Declutterer declutterer;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        this.rc = new RenderContext();
+        this.rc.viewport.set(0, 0, 500, 400);
+        this.rc.drawableQueue = new DrawableQueue();
+        this.declutterer = new Declutterer();
+    }
+
+    @Test
+    public void testDeclutter_Priority() throws Exception {
+        TestDrawable low = new TestDrawable();
+        TestDrawable high = new TestDrawable();
+        this.declutterer.offerDrawable(low, new Viewport(10, 10, 100, 20), 1, 10);
+        this.declutterer.offerDrawable(high, new Viewport(50, 20, 100, 20), 2, 20);
+
+        assertEquals("accepted", 1, this.declutterer.declutter(this.rc));
+        assertEquals("queue count", 1, this.rc.drawableQueue.count());
+        assertSame("accepted drawable", high, this.rc.drawableQueue.getDrawable(0));
+        assertTrue("recycled", low.recycled);
+        assertFalse("not recycled", high.recycled);
+        assertEquals("count", 0, this.declutterer.count());
+    }
+
+    @Test
+    public void testDeclutter_CameraDistance() throws Exception {
+        TestDrawable far = new TestDrawable();
+        TestDrawable near = new TestDrawable();
+        this.declutterer.offerDrawable(far, new Viewport(10, 10, 100, 20), 0, 2000);
+        this.declutterer.offerDrawable(near, new Viewport(50, 20, 100, 20), 0, 1000);
+
+        assertEquals("accepted", 1, this.declutterer.declutter(this.rc));
+        assertSame("accepted drawable", near, this.rc.drawableQueue.getDrawable(0));
+        assertTrue("recycled", far.recycled);
+    }
+
+    @Test
+    public void testDeclutter_AdjacentBounds() throws Exception {
+        this.declutterer.offerDrawable(new TestDrawable(), new Viewport(0, 0, 64, 20), 0, 1);
+        this.declutterer.offerDrawable(new TestDrawable(), new Viewport(64, 0, 64, 20), 0, 1);
+        this.declutterer.offerDrawable(new TestDrawable(), new Viewport(0, 20, 64, 20), 0, 1);
+
+        assertEquals("accepted", 3, this.declutterer.declutter(this.rc));
+    }
+
+    @Test
+    public void testDeclutter_NullDrawable() throws Exception {
+        TestDrawable drawable = new TestDrawable();
+        this.declutterer.offerDrawable(null, new Viewport(10, 10, 100, 20), 1, 10);
+        this.declutterer.offerDrawable(drawable, new Viewport(50, 20, 100, 20), 0, 10);
+
+        assertEquals("accepted", 1, this.declutterer.declutter(this.rc));
+        assertEquals("queue count", 0, this.rc.drawableQueue.count());
+        assertTrue("recycled", drawable.recycled);
+    }
+
+    @Test
+    public void testDeclutter_Preparer() throws Exception {
+        TestDrawable accepted = new TestDrawable();
+        TestDrawable rejected = new TestDrawable();
+        TestPreparer preparer = new TestPreparer(true);
+        this.declutterer.offerDrawable(accepted, preparer, new Viewport(10, 10, 100, 20), 1, 10);
+        this.declutterer.offerDrawable(rejected, preparer, new Viewport(50, 20, 100, 20), 0, 10);
+
+        // Only the accepted drawable is prepared.
+        assertEquals("accepted", 1, this.declutterer.declutter(this.rc));
+        assertEquals("prepared", 1, preparer.prepared.size());
+        assertSame("prepared drawable", accepted, preparer.prepared.get(0));
+        assertEquals("queue count", 1, this.rc.drawableQueue.count());
+        assertTrue("rejected recycled", rejected.recycled);
+    }
+
+    @Test
+    public void testDeclutter_PreparerFailed() throws Exception {
+        TestDrawable drawable = new TestDrawable();
+        TestDrawable other = new TestDrawable();
+        this.declutterer.offerDrawable(drawable, new TestPreparer(false), new Viewport(10, 10, 100, 20), 1, 10);
+        this.declutterer.offerDrawable(other, new Viewport(50, 20, 100, 20), 0, 10);
+
+        // A drawable that fails to prepare is recycled, but still claims its screen space.
+        assertEquals("accepted", 1, this.declutterer.declutter(this.rc));
+        assertEquals("queue count", 0, this.rc.drawableQueue.count());
+        assertTrue("recycled", drawable.recycled);
+        assertTrue("other recycled", other.recycled);
+    }
+
+    @Test
+    public void testDeclutter_OutsideViewport() throws Exception {
+        this.declutterer.offerDrawable(new TestDrawable(), new Viewport(-200, 10, 100, 20), 0, 1);
+        this.declutterer.offerDrawable(new TestDrawable(), new Viewport(-150, 10, 100, 20), 0, 2);
+
+        assertEquals("accepted", 2, this.declutterer.declutter(this.rc));
+    }
+
+    @Test
+    public void testDeclutter_Random() throws Exception {
+        Random random = new Random(37);
+        List<Viewport> bounds = new ArrayList<>();
+        List<double[]> orders = new ArrayList<>();
+        List<TestDrawable> drawables = new ArrayList<>();
+        for (int idx = 0; idx < 120; idx++) { // more than the declutterer's initial capacity
+            Viewport rect = new Viewport(random.nextInt(560) - 30, random.nextInt(460) - 30, 1 + random.nextInt(120), 1 + random.nextInt(30));
+            double[] order = {random.nextInt(3), random.nextDouble() * 1000};
+            TestDrawable drawable = new TestDrawable();
+            bounds.add(rect);
+            orders.add(order);
+            drawables.add(drawable);
+            this.declutterer.offerDrawable(drawable, rect, order[0], order[1]);
+        }
+
+        int accepted = this.declutterer.declutter(this.rc);
+
+        // Candidates are accepted greedily, so each rejected candidate must overlap an accepted candidate that is
+        // ordered before it, and no two accepted candidates may overlap.
+        int queued = 0;
+        for (int i = 0; i < drawables.size(); i++) {
+            TestDrawable di = drawables.get(i);
+            if (di.recycled) {
+                boolean obscured = false;
+                for (int j = 0; j < drawables.size(); j++) {
+                    if (!drawables.get(j).recycled && overlaps(bounds.get(i), bounds.get(j)) && precedes(orders.get(j), orders.get(i))) {
+                        obscured = true;
+                    }
+                }
+                assertTrue("rejected candidate " + i + " is obscured", obscured);
+            } else {
+                queued++;
+                for (int j = i + 1; j < drawables.size(); j++) {
+                    if (!drawables.get(j).recycled && isVisible(bounds.get(i)) && isVisible(bounds.get(j))) {
+                        assertFalse("accepted candidates " + i + " and " + j + " overlap", overlaps(bounds.get(i), bounds.get(j)));
+                    }
+                }
+            }
+        }
+
+        assertEquals("accepted", queued, accepted);
+        assertEquals("queue count", queued, this.rc.drawableQueue.count());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        TestDrawable drawable = new TestDrawable();
+        this.declutterer.offerDrawable(drawable, new Viewport(10, 10, 100, 20), 0, 1);
+
+        this.declutterer.clear();
+
+        assertEquals("count", 0, this.declutterer.count());
+        assertTrue("recycled", drawable.recycled);
+        assertEquals("accepted", 0, this.declutterer.declutter(this.rc));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfferDrawable_NullBounds() throws Exception {
+        this.declutterer.offerDrawable(new TestDrawable(), null, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_InvalidCellSize() throws Exception {
+        new Declutterer(0);
+    }
+
+    private boolean isVisible(Viewport rect) {
+        return this.rc.viewport.intersects(rect);
+    }
+
+    private static boolean overlaps(Viewport a, Viewport b) {
+        return a.x < b.x + b.width && b.x < a.x + a.width && a.y < b.y + b.height && b.y < a.y + a.height;
+    }
+
+    private static boolean precedes(double[] a, double[] b) {
+        return a[0] > b[0] || (a[0] == b[0] && (float) a[1] < (float) b[1]);
+    }
+
+    private static class TestPreparer implements Declutterer.DrawablePreparer {
+
+        private boolean result;
+
+        private List<Drawable> prepared = new ArrayList<>();
+
+        public TestPreparer(boolean result) {
+            this.result = result;
+        }
+
+        @Override
+        public boolean prepareDrawable(RenderContext rc, Drawable drawable) {
+            this.prepared.add(drawable);
+            return this.result;
+        }
+    }
+
+    private static class TestDrawable implements Drawable {
+
+        public boolean recycled;
+
+        @Override
+        public void recycle() {
+            this.recycled = true;
+        }
+
+        @Override
+        public void draw(DrawContext dc) {
+        }
+    }
+}
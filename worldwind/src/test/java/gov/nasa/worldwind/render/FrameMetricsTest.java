@@ -5,16 +5,217 @@
 
 package gov.nasa.worldwind.render;
 
-import org.junit.Ignore;
+import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.FrameMetrics;
+import gov.nasa.worldwind.FrameMetricsListener;
+import gov.nasa.worldwind.draw.DrawContext;
+import gov.nasa.worldwind.draw.DrawableScreenTexture;
+import gov.nasa.worldwind.draw.DrawableShape;
+import gov.nasa.worldwind.layer.Layer;
+import gov.nasa.worldwind.layer.RenderableLayer;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.RetrieverMetrics;
 
 import static org.junit.Assert.*;
 
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
 public class FrameMetricsTest {
-    @Ignore("not implemented")
+
+    private RenderContext rc;
+
+    private DrawContext dc;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        this.rc = new RenderContext();
+        this.rc.renderResourceCache = new RenderResourceCache(1024);
+        this.dc = new DrawContext();
+    }
+
     @Test
     public void testConstructor_default() throws Exception {
-        fail("The test case is a stub");
+        FrameMetrics metrics = new FrameMetrics();
+
+        assertNotNull(metrics);
+        assertFalse("detailed metrics disabled", metrics.isDetailedMetricsEnabled());
+        assertTrue("no layer metrics", metrics.getLayerMetrics().isEmpty());
+        assertTrue("no drawable metrics", metrics.getDrawableMetrics().isEmpty());
+    }
+
+    @Test
+    public void testLayerMetrics() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.setDetailedMetricsEnabled(true);
+        Layer layer1 = new RenderableLayer("layer1");
+        Layer layer2 = new RenderableLayer("layer2");
+
+        metrics.beginRendering(this.rc);
+        metrics.recordTessellationTime(500);
+        metrics.recordLayerTime(layer1, 1000);
+        metrics.recordLayerTime(layer2, 2000);
+        metrics.endRendering(this.rc);
+
+        List<FrameMetrics.LayerMetrics> layerMetrics = metrics.getLayerMetrics();
+        assertEquals("layer count", 2, layerMetrics.size());
+        assertSame("layer 1", layer1, layerMetrics.get(0).getLayer());
+        assertEquals("layer 1 time", 1000, layerMetrics.get(0).getRenderTime());
+        assertSame("layer 2", layer2, layerMetrics.get(1).getLayer());
+        assertEquals("layer 2 time", 2000, layerMetrics.get(1).getRenderTime());
+        assertEquals("tessellation time", 500, metrics.getTessellationTime());
+    }
+
+    @Test
+    public void testLayerMetrics_NextFrame() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.setDetailedMetricsEnabled(true);
+        Layer layer = new RenderableLayer("layer");
+
+        metrics.beginRendering(this.rc);
+        metrics.recordLayerTime(layer, 1000);
+        metrics.endRendering(this.rc);
+        metrics.beginRendering(this.rc);
+        metrics.recordLayerTime(layer, 3000);
+        metrics.endRendering(this.rc);
+
+        assertEquals("layer count", 1, metrics.getLayerMetrics().size());
+        assertEquals("layer time", 3000, metrics.getLayerMetrics().get(0).getRenderTime());
+    }
+
+    @Test
+    public void testRetrieverMetrics() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.setDetailedMetricsEnabled(true);
+
+        metrics.beginRendering(this.rc);
+        metrics.endRendering(this.rc);
+        List<RetrieverMetrics> retrieverMetrics = metrics.getRetrieverMetrics();
+        metrics.beginRendering(this.rc);
+        metrics.endRendering(this.rc);
+
+        // The published list is replaced only when the retrievers change.
+        assertEquals("retriever count", 2, retrieverMetrics.size());
+        assertSame("image retriever", this.rc.renderResourceCache.getImageRetrieverMetrics(), retrieverMetrics.get(0));
+        assertSame("unchanged list", retrieverMetrics, metrics.getRetrieverMetrics());
+
+        this.rc.renderResourceCache = new RenderResourceCache(1024);
+        metrics.beginRendering(this.rc);
+        metrics.endRendering(this.rc);
+
+        assertNotSame("changed list", retrieverMetrics, metrics.getRetrieverMetrics());
+        assertSame("new image retriever", this.rc.renderResourceCache.getImageRetrieverMetrics(),
+            metrics.getRetrieverMetrics().get(0));
     }
-}
 
+    @Test
+    public void testDrawableMetrics() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.setDetailedMetricsEnabled(true);
+
+        metrics.beginDrawing(this.dc);
+        metrics.recordDrawableTime(new DrawableShape(), 100);
+        metrics.recordDrawableTime(new DrawableShape(), 200);
+        metrics.recordDrawableTime(new DrawableScreenTexture(), 300);
+        metrics.recordDrawableTime(new DrawableShape(), 400);
+        metrics.endDrawing(this.dc);
+
+        List<FrameMetrics.DrawableMetrics> drawableMetrics = metrics.getDrawableMetrics();
+        assertEquals("drawable class count", 2, drawableMetrics.size());
+        assertEquals("shape class", DrawableShape.class, drawableMetrics.get(0).getDrawableClass());
+        assertEquals("shape count", 3, drawableMetrics.get(0).getCount());
+        assertEquals("shape time", 700, drawableMetrics.get(0).getDrawTime());
+        assertEquals("texture class", DrawableScreenTexture.class, drawableMetrics.get(1).getDrawableClass());
+        assertEquals("texture count", 1, drawableMetrics.get(1).getCount());
+        assertEquals("texture time", 300, drawableMetrics.get(1).getDrawTime());
+    }
+
+    @Test
+    public void testDrawableMetrics_OmitsAbsentClasses() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.setDetailedMetricsEnabled(true);
+
+        metrics.beginDrawing(this.dc);
+        metrics.recordDrawableTime(new DrawableScreenTexture(), 300);
+        metrics.endDrawing(this.dc);
+        metrics.beginDrawing(this.dc);
+        metrics.recordDrawableTime(new DrawableShape(), 100);
+        metrics.endDrawing(this.dc);
+
+        List<FrameMetrics.DrawableMetrics> drawableMetrics = metrics.getDrawableMetrics();
+        assertEquals("drawable class count", 1, drawableMetrics.size());
+        assertEquals("shape class", DrawableShape.class, drawableMetrics.get(0).getDrawableClass());
+    }
+
+    @Test
+    public void testDetailedMetricsDisabled() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.setDetailedMetricsEnabled(true);
+        metrics.beginRendering(this.rc);
+        metrics.recordLayerTime(new RenderableLayer(), 1000);
+        metrics.endRendering(this.rc);
+
+        metrics.setDetailedMetricsEnabled(false);
+        metrics.beginRendering(this.rc);
+        metrics.endRendering(this.rc);
+
+        assertTrue("no layer metrics", metrics.getLayerMetrics().isEmpty());
+        assertFalse("toString omits detailed metrics", metrics.toString().contains("layerMetrics"));
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        final List<Object> notifications = new ArrayList<>();
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.setDetailedMetricsEnabled(true);
+        metrics.addFrameMetricsListener(new FrameMetricsListener() {
+            @Override
+            public void onFrameRendered(FrameMetrics metrics, List<FrameMetrics.LayerMetrics> layerMetrics, long tessellationTime) {
+                notifications.add(layerMetrics);
+            }
+
+            @Override
+            public void onFrameDrawn(FrameMetrics metrics, List<FrameMetrics.DrawableMetrics> drawableMetrics) {
+                notifications.add(drawableMetrics);
+            }
+        });
+
+        metrics.beginRendering(this.rc);
+        metrics.recordLayerTime(new RenderableLayer(), 1000);
+        metrics.endRendering(this.rc);
+        metrics.beginDrawing(this.dc);
+        metrics.recordDrawableTime(new DrawableShape(), 100);
+        metrics.endDrawing(this.dc);
+
+        assertEquals("notification count", 2, notifications.size());
+        assertSame("layer metrics", metrics.getLayerMetrics(), notifications.get(0));
+        assertSame("drawable metrics", metrics.getDrawableMetrics(), notifications.get(1));
+    }
+
+    @Test
+    public void testToString() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.setDetailedMetricsEnabled(true);
+
+        metrics.beginRendering(this.rc);
+        metrics.recordLayerTime(new RenderableLayer("Placemarks"), 1500000);
+        metrics.endRendering(this.rc);
+        metrics.beginDrawing(this.dc);
+        metrics.recordDrawableTime(new DrawableShape(), 2500000);
+        metrics.endDrawing(this.dc);
+        String string = metrics.toString();
+
+        assertTrue("layer metrics", string.contains("layerMetrics={Placemarks=1.500ms}"));
+        assertTrue("drawable metrics", string.contains("drawableMetrics={DrawableShape={count=1, time=2.500ms}}"));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.Retriever;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest({Logger.class, Bitmap.class}) // We mock the Logger class to avoid its calls to android.util.log
+public class ImageRetrieverTest {
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+    }
+
+    @Test
+    public void testRetrieveAsync_BitmapGroup() throws Exception {
+        ImageSource first = ImageSource.fromUrl("http://example.com/first.png");
+        ImageSource second = ImageSource.fromUrl("http://example.com/second.png");
+        TestGroup group = new TestGroup();
+        group.bitmaps.put(first, PowerMockito.mock(Bitmap.class));
+        group.bitmaps.put(second, PowerMockito.mock(Bitmap.class));
+        TestCallback callback = new TestCallback();
+
+        new ImageRetriever(1).retrieveAsync(ImageSource.fromObject(group), null, callback);
+
+        assertEquals("succeeded", 2, callback.succeeded.size());
+        assertSame("first bitmap", group.bitmaps.get(first), callback.succeeded.get(first));
+        assertSame("second bitmap", group.bitmaps.get(second), callback.succeeded.get(second));
+        assertNull("failed", callback.failed);
+    }
+
+    @Test
+    public void testRetrieveAsync_BitmapGroupMissingBitmap() throws Exception {
+        ImageSource first = ImageSource.fromUrl("http://example.com/first.png");
+        ImageSource missing = ImageSource.fromUrl("http://example.com/missing.png");
+        TestGroup group = new TestGroup();
+        group.bitmaps.put(first, PowerMockito.mock(Bitmap.class));
+        group.bitmaps.put(missing, null);
+        TestCallback callback = new TestCallback();
+
+        new ImageRetriever(1).retrieveAsync(ImageSource.fromObject(group), null, callback);
+
+        assertEquals("succeeded", 1, callback.succeeded.size());
+        assertSame("first bitmap", group.bitmaps.get(first), callback.succeeded.get(first));
+        assertEquals("failed", missing, callback.failed);
+    }
+
+    @Test
+    public void testRetrieveAsync_EmptyBitmapGroup() throws Exception {
+        ImageSource groupSource = ImageSource.fromObject(new TestGroup());
+        TestCallback callback = new TestCallback();
+
+        new ImageRetriever(1).retrieveAsync(groupSource, null, callback);
+
+        assertEquals("succeeded", 0, callback.succeeded.size());
+        assertEquals("failed", groupSource, callback.failed);
+    }
+
+    @Test
+    public void testRetrieveAsync_EmptyRequestedBitmapGroup() throws Exception {
+        ImageSource groupSource = ImageSource.fromObject(new TestRequestedGroup());
+        TestCallback callback = new TestCallback();
+
+        new ImageRetriever(1).retrieveAsync(groupSource, null, callback);
+
+        // A group with no requested bitmaps has nothing to create, and does not fail.
+        assertEquals("succeeded", 0, callback.succeeded.size());
+        assertNull("failed", callback.failed);
+    }
+
+    private static class TestRequestedGroup extends TestGroup implements ImageSource.RequestedBitmapGroupFactory {
+
+        @Override
+        public boolean requestBitmap(ImageSource imageSource) {
+            return true;
+        }
+    }
+
+    private static class TestGroup implements ImageSource.BitmapGroupFactory {
+
+        public Map<ImageSource, Bitmap> bitmaps = new HashMap<>();
+
+        @Override
+        public void createBitmaps(Map<ImageSource, Bitmap> result) {
+            result.putAll(this.bitmaps);
+        }
+
+        @Override
+        public boolean isRemote() {
+            return false;
+        }
+    }
+
+    private static class TestCallback implements Retriever.Callback<ImageSource, ImageOptions, Bitmap> {
+
+        public Map<ImageSource, Bitmap> succeeded = new HashMap<>();
+
+        public ImageSource failed;
+
+        @Override
+        public void retrievalSucceeded(Retriever<ImageSource, ImageOptions, Bitmap> retriever, ImageSource key, ImageOptions options, Bitmap value) {
+            this.succeeded.put(key, value);
+        }
+
+        @Override
+        public void retrievalFailed(Retriever<ImageSource, ImageOptions, Bitmap> retriever, ImageSource key, Throwable ex) {
+            this.failed = key;
+        }
+
+        @Override
+        public void retrievalRejected(Retriever<ImageSource, ImageOptions, Bitmap> retriever, ImageSource key) {
+        }
+    }
+}
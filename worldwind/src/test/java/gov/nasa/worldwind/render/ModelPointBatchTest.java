@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.globe.ProjectionWgs84;
+import gov.nasa.worldwind.globe.Terrain;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class ModelPointBatchTest {
+
+    private static final double TOLERANCE = 1e-6;
+
+    private RenderContext rc;
+
+    private ModelPointBatch batch;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        this.rc = new RenderContext();
+        this.rc.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+        this.rc.verticalExaggeration = 2;
+        this.batch = new ModelPointBatch();
+    }
+
+    @Test
+    public void testUpdate_Absolute() throws Exception {
+        ModelPointCache[] caches = new ModelPointCache[100]; // more than the batch's initial capacity
+        for (int idx = 0; idx < caches.length; idx++) {
+            caches[idx] = new ModelPointCache();
+            this.batch.add(this.rc, caches[idx], idx - 50, idx * 3 - 150, idx * 100, WorldWind.ABSOLUTE);
+        }
+
+        assertEquals("update count", caches.length, this.batch.update(this.rc));
+        assertEquals("size after update", 0, this.batch.size());
+
+        for (int idx = 0; idx < caches.length; idx++) {
+            Vec3 expected = this.rc.geographicToCartesian(idx - 50, idx * 3 - 150, idx * 100, WorldWind.ABSOLUTE, new Vec3());
+            assertTrue("valid " + idx, caches[idx].isValid(this.rc, idx - 50, idx * 3 - 150, idx * 100, WorldWind.ABSOLUTE));
+            Vec3 actual = caches[idx].getPoint(this.rc, idx - 50, idx * 3 - 150, idx * 100, WorldWind.ABSOLUTE);
+            assertEquals("x " + idx, expected.x, actual.x, TOLERANCE);
+            assertEquals("y " + idx, expected.y, actual.y, TOLERANCE);
+            assertEquals("z " + idx, expected.z, actual.z, TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testAdd_ValidPoint() throws Exception {
+        ModelPointCache cache = new ModelPointCache();
+        cache.getPoint(this.rc, 10, 20, 30, WorldWind.ABSOLUTE);
+
+        this.batch.add(this.rc, cache, 10, 20, 30, WorldWind.ABSOLUTE);
+
+        assertEquals("size", 0, this.batch.size());
+    }
+
+    @Test
+    public void testIsValid_ChangedInputs() throws Exception {
+        ModelPointCache cache = new ModelPointCache();
+        cache.getPoint(this.rc, 10, 20, 30, WorldWind.ABSOLUTE);
+
+        assertTrue("unchanged", cache.isValid(this.rc, 10, 20, 30, WorldWind.ABSOLUTE));
+        assertFalse("latitude", cache.isValid(this.rc, 11, 20, 30, WorldWind.ABSOLUTE));
+        assertFalse("longitude", cache.isValid(this.rc, 10, 21, 30, WorldWind.ABSOLUTE));
+        assertFalse("altitude", cache.isValid(this.rc, 10, 20, 31, WorldWind.ABSOLUTE));
+        assertFalse("altitude mode", cache.isValid(this.rc, 10, 20, 30, WorldWind.RELATIVE_TO_GROUND));
+
+        this.rc.verticalExaggeration = 3;
+        assertFalse("vertical exaggeration", cache.isValid(this.rc, 10, 20, 30, WorldWind.ABSOLUTE));
+        this.rc.verticalExaggeration = 2;
+
+        this.rc.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+        assertFalse("globe", cache.isValid(this.rc, 10, 20, 30, WorldWind.ABSOLUTE));
+    }
+
+    @Test
+    public void testIsValid_Terrain() throws Exception {
+        Terrain terrain = PowerMockito.mock(Terrain.class);
+        PowerMockito.when(terrain.getTimestamp()).thenReturn(1L);
+        this.rc.terrain = terrain;
+
+        ModelPointCache absolute = new ModelPointCache();
+        ModelPointCache clamped = new ModelPointCache();
+        this.batch.add(this.rc, absolute, 10, 20, 30, WorldWind.ABSOLUTE);
+        this.batch.add(this.rc, clamped, 10, 20, 0, WorldWind.CLAMP_TO_GROUND);
+        this.batch.update(this.rc);
+
+        assertTrue("absolute before terrain change", absolute.isValid(this.rc, 10, 20, 30, WorldWind.ABSOLUTE));
+        assertTrue("clamped before terrain change", clamped.isValid(this.rc, 10, 20, 0, WorldWind.CLAMP_TO_GROUND));
+
+        PowerMockito.when(terrain.getTimestamp()).thenReturn(2L);
+
+        assertTrue("absolute after terrain change", absolute.isValid(this.rc, 10, 20, 30, WorldWind.ABSOLUTE));
+        assertFalse("clamped after terrain change", clamped.isValid(this.rc, 10, 20, 0, WorldWind.CLAMP_TO_GROUND));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ModelPointCache cache = new ModelPointCache();
+        cache.getPoint(this.rc, 10, 20, 30, WorldWind.ABSOLUTE);
+
+        cache.invalidate();
+
+        assertFalse("valid", cache.isValid(this.rc, 10, 20, 30, WorldWind.ABSOLUTE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdd_NullCache() throws Exception {
+        this.batch.add(this.rc, null, 10, 20, 30, WorldWind.ABSOLUTE);
+    }
+}
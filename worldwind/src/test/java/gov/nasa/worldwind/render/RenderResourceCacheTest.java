@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import android.graphics.Bitmap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.ogc.cog.CogBitmapFactory;
+import gov.nasa.worldwind.ogc.cog.CogReader;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.RetrievalFailureCache;
+import gov.nasa.worldwind.util.TaskService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class RenderResourceCacheTest {
+
+    private TaskService taskService;
+
+    private List<Runnable> tasks = new ArrayList<>();
+
+    private RenderResourceCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        // Record the retrieval tasks without running them.
+        this.taskService = WorldWind.taskService();
+        Whitebox.setInternalState(WorldWind.class, "taskService", new TaskService() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+
+        this.cache = new RenderResourceCache(1024 * 1024);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Whitebox.setInternalState(WorldWind.class, "taskService", this.taskService);
+    }
+
+    @Test
+    public void testRetrieveTexture_LocalGroup() throws Exception {
+        ImageSource tileSource = new TestGroup(false).tileImageSource();
+
+        assertNull("texture", this.cache.retrieveTexture(tileSource, null));
+
+        // Local groups, such as GeoPackage tile batches, are retrieved along with other bitmap factories.
+        assertEquals("tasks", 1, this.tasks.size());
+        assertEquals("image retriever queued", 1, this.cache.imageRetriever.getMetrics().getQueuedCount());
+        assertEquals("URL image retriever queued", 0, this.cache.urlImageRetriever.getMetrics().getQueuedCount());
+    }
+
+    @Test
+    public void testRetrieveTexture_RemoteGroup() throws Exception {
+        ImageSource tileSource = new TestGroup(true).tileImageSource();
+
+        assertNull("texture", this.cache.retrieveTexture(tileSource, null));
+
+        // Remote groups, such as WMS metatiles, are retrieved along with URL images.
+        assertEquals("tasks", 1, this.tasks.size());
+        assertEquals("image retriever queued", 0, this.cache.imageRetriever.getMetrics().getQueuedCount());
+        assertEquals("URL image retriever queued", 1, this.cache.urlImageRetriever.getMetrics().getQueuedCount());
+    }
+
+    @Test
+    public void testRetrieveTexture_CogBitmapFactory() throws Exception {
+        CogReader reader = new CogReader("http://example.com/image.tif");
+        ImageSource imageSource = ImageSource.fromBitmapFactory(new CogBitmapFactory(reader, new Sector(0, 0, 1, 1), 256, 256));
+
+        assertNull("texture", this.cache.retrieveTexture(imageSource, null));
+
+        // Cloud Optimized GeoTIFF tiles block on HTTP range requests, and are retrieved along with URL images.
+        assertEquals("tasks", 1, this.tasks.size());
+        assertEquals("image retriever queued", 0, this.cache.imageRetriever.getMetrics().getQueuedCount());
+        assertEquals("URL image retriever queued", 1, this.cache.urlImageRetriever.getMetrics().getQueuedCount());
+    }
+
+    @Test
+    public void testRetrieveTexture_LocalBitmapFactory() throws Exception {
+        ImageSource imageSource = ImageSource.fromBitmapFactory(new ImageSource.BitmapFactory() {
+            @Override
+            public Bitmap createBitmap() {
+                return null;
+            }
+        });
+
+        assertNull("texture", this.cache.retrieveTexture(imageSource, null));
+
+        // Bitmap factories that are not remote resources are retrieved by the local image retriever.
+        assertEquals("image retriever queued", 1, this.cache.imageRetriever.getMetrics().getQueuedCount());
+        assertEquals("URL image retriever queued", 0, this.cache.urlImageRetriever.getMetrics().getQueuedCount());
+    }
+
+    @Test
+    public void testRetrieveTexture_LocalGroupSuppressed() throws Exception {
+        ImageSource tileSource = new TestGroup(false).tileImageSource();
+        this.cache.imageRetriever.getFailureCache().recordFailure(tileSource, RetrievalFailureCache.ABSENT);
+
+        assertNull("texture", this.cache.retrieveTexture(tileSource, null));
+
+        // A local group's failed bitmaps are suppressed by the failure cache of the retriever that retrieves the group.
+        assertEquals("tasks", 0, this.tasks.size());
+        assertEquals("image retriever suppressed", 1, this.cache.imageRetriever.getMetrics().getSuppressedCount());
+        assertEquals("URL image retriever suppressed", 0, this.cache.urlImageRetriever.getMetrics().getSuppressedCount());
+    }
+
+    @Test
+    public void testRetrieveTexture_RequestedGroup() throws Exception {
+        TestRequestedGroup group = new TestRequestedGroup();
+        ImageSource tileSource = group.tileImageSource();
+
+        assertNull("texture", this.cache.retrieveTexture(tileSource, null));
+
+        // The bitmap is requested from the group before the group is retrieved.
+        assertEquals("requests", 1, group.requests.size());
+        assertSame("request", tileSource, group.requests.get(0));
+        assertEquals("tasks", 1, this.tasks.size());
+    }
+
+    @Test
+    public void testRetrieveTexture_RequestedGroupReading() throws Exception {
+        TestRequestedGroup group = new TestRequestedGroup();
+        group.reading = true;
+
+        assertNull("texture", this.cache.retrieveTexture(group.tileImageSource(), null));
+
+        // A bitmap the group is already creating is not retrieved again.
+        assertEquals("tasks", 0, this.tasks.size());
+        assertEquals("image retriever duplicates", 1, this.cache.imageRetriever.getMetrics().getDuplicateCount());
+    }
+
+    private static class TestRequestedGroup extends TestGroup implements ImageSource.RequestedBitmapGroupFactory {
+
+        private List<ImageSource> requests = new ArrayList<>();
+
+        private boolean reading;
+
+        public TestRequestedGroup() {
+            super(false);
+        }
+
+        @Override
+        public boolean requestBitmap(ImageSource imageSource) {
+            this.requests.add(imageSource);
+            return !this.reading;
+        }
+    }
+
+    private static class TestGroup implements ImageSource.BitmapGroupFactory {
+
+        private boolean remote;
+
+        public TestGroup(boolean remote) {
+            this.remote = remote;
+        }
+
+        public ImageSource tileImageSource() {
+            return ImageSource.fromBitmapFactory(new ImageSource.GroupedBitmapFactory() {
+                @Override
+                public ImageSource.BitmapGroupFactory getGroupFactory() {
+                    return TestGroup.this;
+                }
+
+                @Override
+                public Bitmap createBitmap() {
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public void createBitmaps(Map<ImageSource, Bitmap> result) {
+        }
+
+        @Override
+        public boolean isRemote() {
+            return this.remote;
+        }
+    }
+}
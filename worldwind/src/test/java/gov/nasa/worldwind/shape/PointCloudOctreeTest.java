@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.nasa.worldwind.geom.Frustum;
+import gov.nasa.worldwind.geom.Matrix4;
+import gov.nasa.worldwind.geom.Vec3;
+import gov.nasa.worldwind.geom.Viewport;
+import gov.nasa.worldwind.util.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class PointCloudOctreeTest {
+
+    private static final int COUNT = 2000;
+
+    private static final int CHUNK_SIZE = 64;
+
+    private double[] x = new double[COUNT];
+
+    private double[] y = new double[COUNT];
+
+    private double[] z = new double[COUNT];
+
+    private int[] colors = new int[COUNT];
+
+    private Frustum frustum = new Frustum();
+
+    private Vec3 eyePoint = new Vec3(0, 0, 0);
+
+    private double pixelSizeFactor;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        // Points on a 100 x 100 meter patch, 100 to 200 meters in front of an eye point at the origin looking down the
+        // negative Z axis.
+        Random random = new Random(7);
+        for (int idx = 0; idx < COUNT; idx++) {
+            this.x[idx] = random.nextDouble() * 100 - 50;
+            this.y[idx] = random.nextDouble() * 100 - 50;
+            this.z[idx] = random.nextDouble() * -100 - 100;
+            this.colors[idx] = idx;
+        }
+
+        Viewport viewport = new Viewport(0, 0, 100, 100);
+        Matrix4 projection = new Matrix4().setToPerspectiveProjection(100, 100, 90, 1, 1000);
+        this.frustum.setToModelviewProjection(projection, new Matrix4(), viewport);
+        this.pixelSizeFactor = 2 * Math.tan(Math.toRadians(45)) / 100;
+    }
+
+    @Test
+    public void testConstructor() throws Exception {
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, this.colors, COUNT, CHUNK_SIZE);
+
+        assertEquals("point count", COUNT, octree.getPointCount());
+        assertNotNull("root", octree.getRoot());
+
+        // Every point appears exactly once, in a node whose origin-relative coordinates reproduce the point.
+        List<PointCloudOctree.Node> nodes = new ArrayList<>();
+        collect(octree.getRoot(), nodes);
+        boolean[] found = new boolean[COUNT];
+        for (PointCloudOctree.Node node : nodes) {
+            for (int idx = 0; idx < node.getPointCount(); idx++) {
+                int i = node.getColors()[idx];
+                assertTrue("duplicate point " + i, !found[i]);
+                found[i] = true;
+                assertEquals("x", this.x[i], node.getOrigin().x + node.getPoints()[idx * 3], 1e-4);
+                assertEquals("y", this.y[i], node.getOrigin().y + node.getPoints()[idx * 3 + 1], 1e-4);
+                assertEquals("z", this.z[i], node.getOrigin().z + node.getPoints()[idx * 3 + 2], 1e-4);
+            }
+        }
+
+        for (int i = 0; i < COUNT; i++) {
+            assertTrue("missing point " + i, found[i]);
+        }
+
+        assertEquals("node count", nodes.size(), octree.getNodeCount());
+    }
+
+    @Test
+    public void testConstructor_Chunks() throws Exception {
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, null, COUNT, CHUNK_SIZE);
+
+        List<PointCloudOctree.Node> nodes = new ArrayList<>();
+        collect(octree.getRoot(), nodes);
+        for (PointCloudOctree.Node node : nodes) {
+            assertTrue("chunk size", node.getPointCount() <= CHUNK_SIZE);
+            assertEquals("default color", 0xFFFFFFFF, node.getColors()[0]);
+            if (node.getChildren() != null) {
+                assertEquals("interior point count", CHUNK_SIZE, node.getPointCount());
+                assertTrue("interior spacing", node.getSpacing() > 0);
+            } else {
+                assertEquals("leaf spacing", 0, node.getSpacing(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testConstructor_Deterministic() throws Exception {
+        PointCloudOctree octree1 = new PointCloudOctree(this.x, this.y, this.z, this.colors, COUNT, CHUNK_SIZE);
+        PointCloudOctree octree2 = new PointCloudOctree(this.x, this.y, this.z, this.colors, COUNT, CHUNK_SIZE);
+
+        assertEquals("node count", octree1.getNodeCount(), octree2.getNodeCount());
+        for (int idx = 0; idx < CHUNK_SIZE; idx++) {
+            assertEquals("root sample", octree1.getRoot().getColors()[idx], octree2.getRoot().getColors()[idx]);
+        }
+    }
+
+    @Test
+    public void testConstructor_Empty() throws Exception {
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, null, 0, CHUNK_SIZE);
+        List<PointCloudOctree.Node> result = new ArrayList<>();
+
+        assertNull("root", octree.getRoot());
+        assertEquals("selected points", 0, octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 1, result));
+        assertTrue("selected nodes", result.isEmpty());
+    }
+
+    @Test
+    public void testSelectNodes_Coarse() throws Exception {
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, this.colors, COUNT, CHUNK_SIZE);
+        List<PointCloudOctree.Node> result = new ArrayList<>();
+
+        long count = octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 1e6, result);
+
+        assertEquals("selected nodes", 1, result.size());
+        assertSame("root", octree.getRoot(), result.get(0));
+        assertEquals("selected points", CHUNK_SIZE, count);
+    }
+
+    @Test
+    public void testSelectNodes_Fine() throws Exception {
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, this.colors, COUNT, CHUNK_SIZE);
+        List<PointCloudOctree.Node> result = new ArrayList<>();
+
+        long count = octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 1e-6, result);
+
+        assertEquals("selected nodes", octree.getNodeCount(), result.size());
+        assertEquals("selected points", COUNT, count);
+    }
+
+    @Test
+    public void testSelectNodes_ScreenSpaceError() throws Exception {
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, this.colors, COUNT, CHUNK_SIZE);
+        List<PointCloudOctree.Node> coarse = new ArrayList<>();
+        List<PointCloudOctree.Node> fine = new ArrayList<>();
+
+        long coarseCount = octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 8, coarse);
+        long fineCount = octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 2, fine);
+
+        assertTrue("finer selection", fineCount > coarseCount && fine.containsAll(coarse));
+
+        // Each selected node's parent is selected and exceeds the screen-space error.
+        for (PointCloudOctree.Node node : fine) {
+            PointCloudOctree.Node parent = findParent(octree.getRoot(), node);
+            if (parent != null) {
+                assertTrue("parent selected", fine.contains(parent));
+                double pixels = parent.getSpacing() / (parent.getBounds().distanceTo(this.eyePoint) * this.pixelSizeFactor);
+                assertTrue("parent error", pixels > 2);
+            }
+        }
+    }
+
+    @Test
+    public void testSelectNodes_OutsideFrustum() throws Exception {
+        for (int idx = 0; idx < COUNT; idx++) {
+            this.z[idx] = -this.z[idx]; // move the points behind the eye point
+        }
+
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, this.colors, COUNT, CHUNK_SIZE);
+        List<PointCloudOctree.Node> result = new ArrayList<>();
+
+        assertEquals("selected points", 0, octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 1e-6, result));
+        assertTrue("selected nodes", result.isEmpty());
+    }
+
+    @Test
+    public void testSetOffsetScale() throws Exception {
+        // Move the points behind the eye point, with offsets that move them back in front of the eye point.
+        float[] offsets = new float[COUNT * 3];
+        for (int idx = 0; idx < COUNT; idx++) {
+            this.z[idx] = -this.z[idx];
+            offsets[idx * 3 + 2] = -300;
+        }
+
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, offsets, this.colors, COUNT, CHUNK_SIZE);
+        List<PointCloudOctree.Node> result = new ArrayList<>();
+
+        assertEquals("unscaled points", 0, octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 1e-6, result));
+
+        octree.setOffsetScale(1);
+
+        // The node bounds contain the displaced points, while the nodes hold the points and offsets as specified.
+        assertEquals("offset scale", 1, octree.getOffsetScale(), 0);
+        assertEquals("scaled points", COUNT, octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 1e-6, result));
+        for (PointCloudOctree.Node node : result) {
+            for (int idx = 0; idx < node.getPointCount(); idx++) {
+                int i = node.getColors()[idx];
+                assertEquals("z", this.z[i], node.getOrigin().z + node.getPoints()[idx * 3 + 2], 1e-4);
+                assertEquals("offset", -300, node.getOffsets()[idx * 3 + 2], 0);
+            }
+        }
+
+        octree.setOffsetScale(0);
+        result.clear();
+
+        assertEquals("restored points", 0, octree.selectNodes(this.frustum, this.eyePoint, this.pixelSizeFactor, 1e-6, result));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ShortOffsets() throws Exception {
+        new PointCloudOctree(this.x, this.y, this.z, new float[COUNT], null, COUNT, CHUNK_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_ShortArray() throws Exception {
+        new PointCloudOctree(this.x, this.y, new double[1], null, COUNT, CHUNK_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelectNodes_NullFrustum() throws Exception {
+        PointCloudOctree octree = new PointCloudOctree(this.x, this.y, this.z, null, COUNT, CHUNK_SIZE);
+
+        octree.selectNodes(null, this.eyePoint, this.pixelSizeFactor, 1, new ArrayList<PointCloudOctree.Node>());
+    }
+
+    private static void collect(PointCloudOctree.Node node, List<PointCloudOctree.Node> result) {
+        result.add(node);
+        if (node.getChildren() != null) {
+            for (PointCloudOctree.Node child : node.getChildren()) {
+                if (child != null) {
+                    collect(child, result);
+                }
+            }
+        }
+    }
+
+    private static PointCloudOctree.Node findParent(PointCloudOctree.Node node, PointCloudOctree.Node target) {
+        if (node.getChildren() != null) {
+            for (PointCloudOctree.Node child : node.getChildren()) {
+                if (child == target) {
+                    return node;
+                } else if (child != null) {
+                    PointCloudOctree.Node parent = findParent(child, target);
+                    if (parent != null) {
+                        return parent;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+}
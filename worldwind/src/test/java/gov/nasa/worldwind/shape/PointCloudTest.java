@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.shape;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.globe.Globe;
+import gov.nasa.worldwind.globe.ProjectionWgs84;
+import gov.nasa.worldwind.render.RenderContext;
+import gov.nasa.worldwind.util.Logger;
+import gov.nasa.worldwind.util.TaskService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class PointCloudTest {
+
+    private TaskService taskService;
+
+    private List<Runnable> tasks = new ArrayList<>();
+
+    private RenderContext rc = new RenderContext();
+
+    private PointCloud pointCloud = new PointCloud();
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        // Record the tasks submitted to World Wind's task service instead of running them.
+        this.taskService = WorldWind.taskService();
+        Whitebox.setInternalState(WorldWind.class, "taskService", new TaskService() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+
+        this.rc.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+        this.pointCloud.setPoints(new double[]{10, 11, 12}, new double[]{20, 21, 22}, new double[]{100, 200, 300}, null, 3);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Whitebox.setInternalState(WorldWind.class, "taskService", this.taskService);
+    }
+
+    @Test
+    public void testRender_BuildsAsynchronously() throws Exception {
+        this.pointCloud.render(this.rc);
+        this.pointCloud.render(this.rc);
+
+        // The octree is built once on the task service, and nothing is drawn until the build completes.
+        assertEquals("builds", 1, this.tasks.size());
+        assertNull("octree", this.pointCloud.octree);
+
+        this.tasks.get(0).run();
+        this.pointCloud.render(this.rc);
+
+        assertNotNull("octree", this.pointCloud.octree);
+        assertEquals("octree points", 3, this.pointCloud.octree.getPointCount());
+        assertEquals("builds", 1, this.tasks.size());
+    }
+
+    @Test
+    public void testRender_VerticalExaggeration() throws Exception {
+        this.pointCloud.render(this.rc);
+        this.tasks.get(0).run();
+        this.pointCloud.render(this.rc);
+        PointCloudOctree octree = this.pointCloud.octree;
+
+        this.rc.verticalExaggeration = 3;
+        this.pointCloud.render(this.rc);
+
+        // Vertical exaggeration scales the points' offsets along the surface normal without rebuilding the octree.
+        assertSame("octree", octree, this.pointCloud.octree);
+        assertEquals("offset scale", 2, octree.getOffsetScale(), 0);
+        assertEquals("builds", 1, this.tasks.size());
+    }
+
+    @Test
+    public void testRender_DrawsPreviousOctree() throws Exception {
+        this.pointCloud.render(this.rc);
+        this.tasks.get(0).run();
+        this.pointCloud.render(this.rc);
+        PointCloudOctree octree = this.pointCloud.octree;
+
+        this.pointCloud.setPoints(new double[]{30, 31}, new double[]{40, 41}, null, null, 2);
+        this.pointCloud.render(this.rc);
+
+        // The previous octree is drawn until the new points' octree is built.
+        assertEquals("builds", 2, this.tasks.size());
+        assertSame("previous octree", octree, this.pointCloud.octree);
+
+        this.tasks.get(1).run();
+        this.pointCloud.render(this.rc);
+
+        assertEquals("octree points", 2, this.pointCloud.octree.getPointCount());
+    }
+
+    @Test
+    public void testRender_DiscardsStaleBuild() throws Exception {
+        this.pointCloud.render(this.rc);
+        this.pointCloud.setPoints(new double[]{30, 31}, new double[]{40, 41}, null, null, 2);
+        this.pointCloud.render(this.rc);
+
+        // The build for the replaced points completes after the replacement's build is submitted.
+        this.tasks.get(0).run();
+        this.pointCloud.render(this.rc);
+
+        assertNull("stale octree", this.pointCloud.octree);
+        assertEquals("builds", 2, this.tasks.size());
+    }
+
+    @Test
+    public void testRender_GlobeChanged() throws Exception {
+        this.pointCloud.render(this.rc);
+        this.tasks.get(0).run();
+        this.pointCloud.render(this.rc);
+
+        this.rc.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84());
+        this.pointCloud.render(this.rc);
+
+        assertEquals("builds", 2, this.tasks.size());
+    }
+
+    @Test
+    public void testRender_RetriesFailedBuild() throws Exception {
+        this.rc.globe = new Globe(WorldWind.WGS84_ELLIPSOID, new ProjectionWgs84()) {
+            @Override
+            public void geographicToCartesian(double[] latitudes, double[] longitudes, double[] altitudes, int count,
+                                              double[] x, double[] y, double[] z) {
+                throw new RuntimeException("build failed");
+            }
+        };
+
+        this.pointCloud.render(this.rc);
+        this.tasks.get(0).run();
+        this.pointCloud.render(this.rc);
+
+        // A failed build is not awaited forever; the next frame submits another build.
+        assertNull("octree", this.pointCloud.octree);
+        assertEquals("builds", 2, this.tasks.size());
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.nasa.worldwind.util.glu.GLU;
+import gov.nasa.worldwind.util.glu.GLUtessellator;
+import gov.nasa.worldwind.util.glu.GLUtessellatorCallbackAdapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class EarClipTriangulatorTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    private EarClipTriangulator triangulator;
+
+    private TriangleRecorder recorder;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        this.triangulator = new EarClipTriangulator();
+        this.recorder = new TriangleRecorder();
+    }
+
+    @Test
+    public void testTriangulate_Square() throws Exception {
+        this.addPolygon(new double[][]{{0, 0, 1, 0, 1, 1, 0, 1}});
+
+        assertTrue("triangulated", this.triangulator.triangulate(this.recorder));
+        assertEquals("triangle count", 2, this.recorder.triangleCount());
+        assertEquals("area", 1, this.recorder.area, TOLERANCE);
+        assertTrue("counter-clockwise", this.recorder.counterClockwise);
+        assertEquals("boundary edges", 4, this.recorder.boundaryEdgeCount);
+    }
+
+    @Test
+    public void testTriangulate_Clockwise() throws Exception {
+        this.addPolygon(new double[][]{{0, 0, 0, 1, 1, 1, 1, 0}});
+
+        assertTrue("triangulated", this.triangulator.triangulate(this.recorder));
+        assertEquals("area", 1, this.recorder.area, TOLERANCE);
+        assertTrue("counter-clockwise", this.recorder.counterClockwise);
+    }
+
+    @Test
+    public void testTriangulate_Closed() throws Exception {
+        this.addPolygon(new double[][]{{0, 0, 2, 0, 2, 2, 1, 1, 0, 2, 0, 0}});
+
+        assertTrue("triangulated", this.triangulator.triangulate(this.recorder));
+        assertEquals("triangle count", 3, this.recorder.triangleCount());
+        assertEquals("area", 3, this.recorder.area, TOLERANCE);
+        assertEquals("boundary edges", 5, this.recorder.boundaryEdgeCount);
+    }
+
+    @Test
+    public void testTriangulate_Collinear() throws Exception {
+        this.addPolygon(new double[][]{{0, 0, 1, 0, 2, 0, 2, 2, 0, 2}});
+
+        assertTrue("triangulated", this.triangulator.triangulate(this.recorder));
+        assertEquals("area", 4, this.recorder.area, TOLERANCE);
+        assertEquals("boundary edges", 5, this.recorder.boundaryEdgeCount);
+        assertTrue("collinear vertex retained", this.recorder.vertices.contains(1));
+    }
+
+    @Test
+    public void testTriangulate_Holes() throws Exception {
+        this.addPolygon(new double[][]{
+            {0, 0, 10, 0, 10, 10, 0, 10},
+            {1, 1, 4, 1, 4, 4, 1, 4},
+            {6, 6, 6, 9, 9, 9, 9, 6}});
+
+        assertTrue("triangulated", this.triangulator.triangulate(this.recorder));
+        assertEquals("area", 100 - 9 - 9, this.recorder.area, TOLERANCE);
+        assertTrue("counter-clockwise", this.recorder.counterClockwise);
+        assertEquals("boundary edges", 12, this.recorder.boundaryEdgeCount);
+    }
+
+    @Test
+    public void testTriangulate_SelfIntersecting() throws Exception {
+        this.addPolygon(new double[][]{{0, 0, 1, 1, 1, 0, 0, 1}});
+
+        assertFalse("not triangulated", this.triangulator.triangulate(this.recorder));
+        assertEquals("triangle count", 0, this.recorder.triangleCount());
+    }
+
+    @Test
+    public void testTriangulate_HoleTouchingBoundary() throws Exception {
+        this.addPolygon(new double[][]{
+            {0, 0, 10, 0, 10, 10, 0, 10},
+            {0, 5, 5, 4, 5, 6}});
+
+        assertFalse("not triangulated", this.triangulator.triangulate(this.recorder));
+    }
+
+    @Test
+    public void testTriangulate_HoleOutsideBoundary() throws Exception {
+        this.addPolygon(new double[][]{
+            {0, 0, 10, 0, 10, 10, 0, 10},
+            {20, 20, 21, 20, 21, 21}});
+
+        assertFalse("not triangulated", this.triangulator.triangulate(this.recorder));
+    }
+
+    @Test
+    public void testTriangulate_NestedHoles() throws Exception {
+        this.addPolygon(new double[][]{
+            {0, 0, 10, 0, 10, 10, 0, 10},
+            {1, 1, 9, 1, 9, 9, 1, 9},
+            {2, 2, 8, 2, 8, 8, 2, 8}});
+
+        assertFalse("not triangulated", this.triangulator.triangulate(this.recorder));
+    }
+
+    @Test
+    public void testTriangulate_Degenerate() throws Exception {
+        this.addPolygon(new double[][]{{0, 0, 1, 1, 0, 0}});
+
+        assertFalse("not triangulated", this.triangulator.triangulate(this.recorder));
+    }
+
+    @Test
+    public void testTriangulate_Large() throws Exception {
+        // Exercises the z-order ear search with a star-shaped polygon containing star-shaped holes.
+        Random random = new Random(123);
+        double[][] contours = {
+            star(random, 0, 0, 100, 20000, false),
+            star(random, -40, 0, 10, 500, true),
+            star(random, 40, 0, 10, 500, false),
+            star(random, 0, 40, 10, 500, true)};
+        this.addPolygon(contours);
+
+        assertTrue("triangulated", this.triangulator.triangulate(this.recorder));
+        assertTrue("counter-clockwise", this.recorder.counterClockwise);
+        double expectedArea = Math.abs(area(contours[0])) - Math.abs(area(contours[1]))
+            - Math.abs(area(contours[2])) - Math.abs(area(contours[3]));
+        assertEquals("area", expectedArea, this.recorder.area, expectedArea * 1e-9);
+        assertEquals("boundary edges", 21500, this.recorder.boundaryEdgeCount);
+    }
+
+    @Test
+    public void testTriangulate_Reused() throws Exception {
+        this.addPolygon(new double[][]{{0, 0, 1, 1, 1, 0, 0, 1}});
+        this.triangulator.triangulate(this.recorder);
+
+        this.addPolygon(new double[][]{{0, 0, 1, 0, 0, 1}});
+
+        assertTrue("triangulated", this.triangulator.triangulate(this.recorder));
+        assertEquals("triangle count", 1, this.recorder.triangleCount());
+        assertEquals("area", 0.5, this.recorder.area, TOLERANCE);
+    }
+
+    @Test
+    public void testTessellateContours() throws Exception {
+        final TriangleRecorder gluRecorder = new TriangleRecorder();
+        GLUtessellatorCallbackAdapter callback = new GLUtessellatorCallbackAdapter() {
+            List<Integer> triangle = new ArrayList<>();
+
+            @Override
+            public void vertexData(Object vertexData, Object polygonData) {
+                this.triangle.add((Integer) vertexData);
+                if (this.triangle.size() == 3) {
+                    gluRecorder.triangle(this.triangle.get(0), this.triangle.get(1), this.triangle.get(2), false, false, false);
+                    this.triangle.clear();
+                }
+            }
+
+            @Override
+            public void edgeFlagData(boolean boundaryEdge, Object polygonData) {
+            }
+        };
+        this.addPolygon(new double[][]{
+            {0, 0, 10, 0, 10, 10, 0, 10},
+            {1, 1, 9, 1, 9, 9, 1, 9},
+            {2, 2, 8, 2, 8, 8, 2, 8}});
+        gluRecorder.coords = this.recorder.coords;
+
+        GLUtessellator tess = GLU.gluNewTess();
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, callback);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, callback);
+        GLU.gluTessNormal(tess, 0, 0, 1);
+        GLU.gluTessBeginPolygon(tess, null);
+        this.triangulator.tessellateContours(tess);
+        GLU.gluTessEndPolygon(tess);
+
+        assertFalse("not triangulated", this.triangulator.triangulate(this.recorder));
+        assertEquals("GLU area", 100 - 64 + 36, gluRecorder.area, TOLERANCE);
+        assertTrue("GLU counter-clockwise", gluRecorder.counterClockwise);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTriangulate_NullCallback() throws Exception {
+        this.triangulator.triangulate(null);
+    }
+
+    private void addPolygon(double[][] contours) {
+        this.recorder.reset();
+        this.triangulator.beginPolygon();
+        for (double[] contour : contours) {
+            this.triangulator.beginContour();
+            for (int idx = 0; idx < contour.length; idx += 2) {
+                int index = this.recorder.coords.size() / 2;
+                this.recorder.coords.add(contour[idx]);
+                this.recorder.coords.add(contour[idx + 1]);
+                this.triangulator.addVertex(contour[idx], contour[idx + 1], 0, index);
+            }
+        }
+    }
+
+    private static double[] star(Random random, double cx, double cy, double radius, int points, boolean clockwise) {
+        double[] contour = new double[points * 2];
+        for (int idx = 0; idx < points; idx++) {
+            double angle = 2 * Math.PI * idx / points * (clockwise ? -1 : 1);
+            double r = radius * (0.9 + 0.1 * Math.sin(7 * angle) + 0.001 * random.nextDouble());
+            contour[idx * 2] = cx + r * Math.cos(angle);
+            contour[idx * 2 + 1] = cy + r * Math.sin(angle);
+        }
+
+        return contour;
+    }
+
+    private static double area(double[] contour) {
+        double area = 0;
+        for (int idx = 0, len = contour.length; idx < len; idx += 2) {
+            int next = (idx + 2) % len;
+            area += contour[idx] * contour[next + 1] - contour[next] * contour[idx + 1];
+        }
+
+        return area / 2;
+    }
+
+    private static class TriangleRecorder implements EarClipTriangulator.Callback {
+
+        public List<Double> coords = new ArrayList<>();
+
+        public List<Integer> vertices = new ArrayList<>();
+
+        public double area;
+
+        public boolean counterClockwise = true;
+
+        public int boundaryEdgeCount;
+
+        public void reset() {
+            this.coords.clear();
+            this.vertices.clear();
+            this.area = 0;
+            this.counterClockwise = true;
+            this.boundaryEdgeCount = 0;
+        }
+
+        public int triangleCount() {
+            return this.vertices.size() / 3;
+        }
+
+        @Override
+        public void triangle(int v0, int v1, int v2, boolean edge0, boolean edge1, boolean edge2) {
+            double x0 = this.coords.get(v0 * 2), y0 = this.coords.get(v0 * 2 + 1);
+            double x1 = this.coords.get(v1 * 2), y1 = this.coords.get(v1 * 2 + 1);
+            double x2 = this.coords.get(v2 * 2), y2 = this.coords.get(v2 * 2 + 1);
+            double area = ((x1 - x0) * (y2 - y0) - (y1 - y0) * (x2 - x0)) / 2;
+
+            this.vertices.add(v0);
+            this.vertices.add(v1);
+            this.vertices.add(v2);
+            this.area += area;
+            this.counterClockwise &= area >= 0;
+            this.boundaryEdgeCount += (edge0 ? 1 : 0) + (edge1 ? 1 : 0) + (edge2 ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+@PowerMockIgnore({"com.sun.net.httpserver.*", "sun.net.httpserver.*"}) // Load the test server with the system class loader
+public class HttpTransportTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    private HttpTransport transport;
+
+    private String content = "<Capabilities version=\"1\"/>";
+
+    private String etag;
+
+    private String cacheControl;
+
+    private String ifNoneMatch;
+
+    private AtomicInteger requestCount = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+
+        // Serve the content, with support for gzip encoding and conditional requests on the content's ETag.
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/content", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                exchange.getResponseHeaders().add("Content-Type", "text/xml");
+                if (etag != null) {
+                    exchange.getResponseHeaders().add("ETag", etag);
+                }
+                if (cacheControl != null) {
+                    exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+                }
+
+                if (etag != null && etag.equals(ifNoneMatch)) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+
+                byte[] body = content.getBytes("UTF-8");
+                if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+                    gzip.write(body);
+                    gzip.close();
+                    body = compressed.toByteArray();
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                }
+
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream stream = exchange.getResponseBody();
+                stream.write(body);
+                stream.close();
+            }
+        });
+        this.server.createContext("/absent", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        this.server.start();
+        this.transport = new HttpTransport();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        HttpTransport.Response response = this.transport.get(this.url("/content"));
+
+        assertEquals("response code", 200, response.getResponseCode());
+        assertEquals("content type", "text/xml", response.getContentType());
+        assertEquals("content length", this.content.length(), response.getContentLength());
+        assertEquals("content", this.content, readContent(response));
+        assertFalse("from cache", response.isFromCache());
+    }
+
+    @Test
+    public void testGet_Gzip() throws Exception {
+        HttpTransport.Response response = this.transport.get(this.url("/content"),
+            Collections.singletonMap("Accept-Encoding", "gzip"));
+
+        assertEquals("content length", -1, response.getContentLength());
+        assertEquals("decompressed content", this.content, readContent(response));
+    }
+
+    @Test
+    public void testGet_NotFound() throws Exception {
+        try {
+            this.transport.get(this.url("/missing"));
+            fail("expected StatusException");
+        } catch (HttpTransport.StatusException ex) {
+            assertEquals("response code", 404, ex.getResponseCode());
+        }
+
+        // The host's connection permit is released after the failed request.
+        this.transport.setMaxConnectionsPerHost(1);
+        try {
+            this.transport.get(this.url("/missing"));
+        } catch (HttpTransport.StatusException ignored) {
+        }
+        readContent(this.transport.get(this.url("/content")));
+    }
+
+    @Test
+    public void testGet_CacheFresh() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+        this.cacheControl = "max-age=60";
+        readContent(this.transport.get(this.url("/content")));
+
+        HttpTransport.Response response = this.transport.get(this.url("/content"));
+
+        assertEquals("requests", 1, this.requestCount.get());
+        assertTrue("from cache", response.isFromCache());
+        assertEquals("content type", "text/xml", response.getContentType());
+        assertEquals("content length", this.content.length(), response.getContentLength());
+        assertEquals("cached content", this.content, readContent(response));
+    }
+
+    @Test
+    public void testGet_CacheRevalidated() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+        this.etag = "\"v1\"";
+        HttpTransport.Response first = this.transport.get(this.url("/content"));
+        assertFalse("first response from cache", first.isFromCache());
+        readContent(first);
+        assertNull("unconditional request", this.ifNoneMatch);
+
+        HttpTransport.Response response = this.transport.get(this.url("/content"));
+
+        assertEquals("requests", 2, this.requestCount.get());
+        assertEquals("conditional request", "\"v1\"", this.ifNoneMatch);
+        assertTrue("from cache", response.isFromCache());
+        assertEquals("cached content", this.content, readContent(response));
+    }
+
+    @Test
+    public void testGet_CacheModified() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+        this.etag = "\"v1\"";
+        readContent(this.transport.get(this.url("/content")));
+        this.etag = "\"v2\"";
+        this.content = "<Capabilities version=\"2\"/>";
+
+        HttpTransport.Response response = this.transport.get(this.url("/content"));
+
+        assertFalse("from cache", response.isFromCache());
+        assertEquals("modified content", this.content, readContent(response));
+        assertEquals("cached modified content", this.content, readContent(this.transport.get(this.url("/content"))));
+    }
+
+    @Test
+    public void testGet_CacheAbsent() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+
+        for (int idx = 0; idx < 3; idx++) {
+            try {
+                this.transport.get(this.url("/absent"));
+                fail("expected StatusException");
+            } catch (HttpTransport.StatusException ex) {
+                assertEquals("response code", 404, ex.getResponseCode());
+            }
+        }
+
+        assertEquals("requests", 1, this.requestCount.get());
+    }
+
+    @Test
+    public void testGet_CacheAbsentExpired() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+        this.transport.setAbsentExpiration(0);
+
+        for (int idx = 0; idx < 2; idx++) {
+            try {
+                this.transport.get(this.url("/absent"));
+                fail("expected StatusException");
+            } catch (HttpTransport.StatusException ignored) {
+            }
+        }
+
+        assertEquals("requests", 2, this.requestCount.get());
+    }
+
+    @Test
+    public void testGet_RangeNotCached() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+        this.cacheControl = "max-age=60";
+        readContent(this.transport.get(this.url("/content"), Collections.singletonMap("Range", "bytes=0-3")));
+        readContent(this.transport.get(this.url("/content"), Collections.singletonMap("Range", "bytes=0-3")));
+
+        assertEquals("requests", 2, this.requestCount.get());
+    }
+
+    @Test
+    public void testGet_CacheCapacity() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+        this.transport.setCacheCapacity(200);
+        this.cacheControl = "max-age=60";
+
+        for (int idx = 0; idx < 10; idx++) {
+            readContent(this.transport.get(this.url("/content?" + idx)));
+        }
+
+        long usedCapacity = 0;
+        for (File file : this.transport.getCacheDirectory().listFiles()) {
+            usedCapacity += file.length();
+        }
+        assertTrue("cache trimmed", usedCapacity <= 200);
+        assertEquals("newest entry retained", this.content, readContent(this.transport.get(this.url("/content?9"))));
+        assertEquals("requests", 10, this.requestCount.get());
+    }
+
+    @Test
+    public void testGet_CacheReplacedEntry() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+        this.etag = "\"v1\"";
+
+        // Each request revalidates the cached response and rewrites its entry in place.
+        for (int idx = 0; idx < 5; idx++) {
+            readContent(this.transport.get(this.url("/content")));
+        }
+
+        File[] files = this.transport.getCacheDirectory().listFiles();
+        assertEquals("cache entries", 1, files.length);
+        assertEquals("used capacity", files[0].length(), this.transport.cacheUsedCapacity);
+    }
+
+    @Test
+    public void testGet_CacheCapacity_TempFiles() throws Exception {
+        this.transport.setCacheDirectory(this.folder.newFolder("cache"));
+        this.transport.setCacheCapacity(200);
+        this.cacheControl = "max-age=60";
+        File inProgress = new File(this.transport.getCacheDirectory(), HttpTransport.TEMP_FILE_PREFIX + "1.tmp");
+        File abandoned = new File(this.transport.getCacheDirectory(), HttpTransport.TEMP_FILE_PREFIX + "2.tmp");
+        assertTrue("in progress temp file", inProgress.createNewFile());
+        assertTrue("abandoned temp file", abandoned.createNewFile());
+        assertTrue("abandoned time", abandoned.setLastModified(System.currentTimeMillis() - HttpTransport.TEMP_FILE_EXPIRATION * 2));
+
+        for (int idx = 0; idx < 10; idx++) {
+            readContent(this.transport.get(this.url("/content?" + idx)));
+        }
+
+        // Eviction skips another request's temp file, and deletes temp files abandoned by incomplete requests.
+        assertTrue("in progress temp file retained", inProgress.exists());
+        assertFalse("abandoned temp file deleted", abandoned.exists());
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void testGet_HostConnectionLimit() throws Exception {
+        this.transport.setMaxConnectionsPerHost(1);
+        this.transport.setReadTimeout(100);
+
+        // The open response holds the host's only connection permit.
+        HttpTransport.Response response = this.transport.get(this.url("/content"));
+        try {
+            this.transport.get(this.url("/content"));
+        } finally {
+            response.close();
+        }
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort() + path;
+    }
+
+    private static String readContent(HttpTransport.Response response) throws IOException {
+        try {
+            InputStream stream = response.getInputStream();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] page = new byte[256];
+            for (int count; (count = stream.read(page)) != -1; ) {
+                out.write(page, 0, count);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class LatencyHistogramTest {
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+    }
+
+    @Test
+    public void testConstructor() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals("count", 0, histogram.getTotalCount());
+        assertEquals("min", 0, histogram.getMinValue());
+        assertEquals("max", 0, histogram.getMaxValue());
+        assertEquals("mean", 0, histogram.getMean(), 0);
+        assertEquals("p50", 0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testRecord_ExactSmallValues() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals("count", 10, histogram.getTotalCount());
+        assertEquals("min", 1, histogram.getMinValue());
+        assertEquals("max", 10, histogram.getMaxValue());
+        assertEquals("mean", 5.5, histogram.getMean(), 0);
+        assertEquals("p50", 5, histogram.getValueAtPercentile(50));
+        assertEquals("p90", 9, histogram.getValueAtPercentile(90));
+        assertEquals("p100", 10, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testRecord_Precision() throws Exception {
+        long[] values = {100, 1000, 16666667, 120000000, 5000000000L};
+
+        for (long value : values) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(0).record(value).record(value * 10);
+
+            long p50 = histogram.getValueAtPercentile(50);
+            assertTrue("not less than value " + value, p50 >= value);
+            assertEquals("relative error " + value, 1.0, p50 / (double) value, 1.0 / 32);
+        }
+    }
+
+    @Test
+    public void testRecord_Tail() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // 98 frames at 16 ms and 2 frames at 120 ms.
+        for (int i = 0; i < 98; i++) {
+            histogram.record(16000000);
+        }
+        histogram.record(120000000);
+        histogram.record(120000000);
+
+        assertEquals("p50", 16, histogram.getValueAtPercentile(50) / 1000000);
+        assertEquals("p90", 16, histogram.getValueAtPercentile(90) / 1000000);
+        assertEquals("p99", 120, histogram.getValueAtPercentile(99) / 1000000);
+        assertEquals("max", 120000000, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testRecord_BeyondTrackableRange() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long value = LatencyHistogram.HIGHEST_TRACKABLE_VALUE * 4;
+
+        histogram.record(value);
+
+        assertEquals("max", value, histogram.getMaxValue());
+        assertEquals("p100", value, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testRecord_Negative() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-5);
+
+        assertEquals("count", 1, histogram.getTotalCount());
+        assertEquals("max", 0, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testBucketIndex_Monotonic() throws Exception {
+        int lastIndex = -1;
+        for (long value = 0; value < LatencyHistogram.HIGHEST_TRACKABLE_VALUE; value = value * 3 / 2 + 1) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue("monotonic " + value, index >= lastIndex);
+            assertTrue("within bucket " + value, value <= LatencyHistogram.highestEquivalentValue(index));
+            lastIndex = index;
+        }
+
+        assertEquals("highest index", LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(LatencyHistogram.HIGHEST_TRACKABLE_VALUE));
+    }
+
+    @Test
+    public void testAdd() throws Exception {
+        LatencyHistogram a = new LatencyHistogram().record(10).record(20);
+        LatencyHistogram b = new LatencyHistogram().record(5).record(40);
+
+        a.add(b);
+
+        assertEquals("count", 4, a.getTotalCount());
+        assertEquals("min", 5, a.getMinValue());
+        assertEquals("max", 40, a.getMaxValue());
+        assertEquals("mean", 18.75, a.getMean(), 0);
+    }
+
+    @Test
+    public void testSet() throws Exception {
+        LatencyHistogram a = new LatencyHistogram().record(10).record(20);
+        LatencyHistogram b = new LatencyHistogram().record(5);
+
+        b.set(a);
+
+        assertEquals("count", 2, b.getTotalCount());
+        assertEquals("min", 10, b.getMinValue());
+        assertEquals("max", 20, b.getMaxValue());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram().record(10).record(20);
+
+        histogram.reset();
+
+        assertEquals("count", 0, histogram.getTotalCount());
+        assertEquals("max", 0, histogram.getMaxValue());
+        assertEquals("p99", 0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetValueAtPercentile_Invalid() throws Exception {
+        new LatencyHistogram().getValueAtPercentile(101);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdd_WithNull() throws Exception {
+        new LatencyHistogram().add(null);
+    }
+}
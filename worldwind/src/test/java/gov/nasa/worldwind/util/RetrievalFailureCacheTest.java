@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class RetrievalFailureCacheTest {
+
+    private TestFailureCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        this.cache = new TestFailureCache();
+    }
+
+    @Test
+    public void testClassifyFailure() throws Exception {
+        assertEquals("no content", RetrievalFailureCache.ABSENT, RetrievalFailureCache.classifyFailure(null));
+        assertEquals("not found", RetrievalFailureCache.ABSENT, RetrievalFailureCache.classifyFailure(status(404)));
+        assertEquals("gone", RetrievalFailureCache.ABSENT, RetrievalFailureCache.classifyFailure(status(410)));
+        assertEquals("wrapped not found", RetrievalFailureCache.ABSENT, RetrievalFailureCache.classifyFailure(new RuntimeException(status(404))));
+        assertEquals("unauthorized", RetrievalFailureCache.TRANSIENT, RetrievalFailureCache.classifyFailure(status(401)));
+        assertEquals("forbidden", RetrievalFailureCache.TRANSIENT, RetrievalFailureCache.classifyFailure(status(403)));
+        assertEquals("too many requests", RetrievalFailureCache.TRANSIENT, RetrievalFailureCache.classifyFailure(status(429)));
+        assertEquals("server error", RetrievalFailureCache.TRANSIENT, RetrievalFailureCache.classifyFailure(status(503)));
+        assertEquals("timeout", RetrievalFailureCache.TRANSIENT, RetrievalFailureCache.classifyFailure(new SocketTimeoutException()));
+        assertEquals("wrapped I/O error", RetrievalFailureCache.TRANSIENT, RetrievalFailureCache.classifyFailure(new RuntimeException(new IOException())));
+        assertEquals("out of memory", RetrievalFailureCache.TRANSIENT, RetrievalFailureCache.classifyFailure(new OutOfMemoryError()));
+        assertEquals("unknown error", RetrievalFailureCache.TRANSIENT, RetrievalFailureCache.classifyFailure(new RuntimeException("Format not supported")));
+    }
+
+    @Test
+    public void testRecordFailure_Absent() throws Exception {
+        this.cache.recordFailure("key", status(404));
+
+        assertTrue("suppressed", this.cache.isSuppressed("key"));
+        assertEquals("failure class", RetrievalFailureCache.ABSENT, this.cache.getFailureClass("key"));
+        assertEquals("failure count", 1, this.cache.getFailureCount("key"));
+        assertFalse("other key", this.cache.isSuppressed("other"));
+
+        // Absent resources are suppressed for between half and all of the absent delay.
+        this.cache.time += this.cache.getAbsentDelay() / 2 - 1;
+        assertTrue("suppressed before half the delay", this.cache.isSuppressed("key"));
+        this.cache.time += this.cache.getAbsentDelay() / 2 + 1;
+        assertFalse("retried after the delay", this.cache.isSuppressed("key"));
+    }
+
+    @Test
+    public void testRecordFailure_TransientBackoff() throws Exception {
+        this.cache.setTransientDelay(1000);
+        this.cache.setMaxTransientDelay(8000);
+        long[] maxDelays = {1000, 2000, 4000, 8000, 8000};
+
+        for (int idx = 0; idx < maxDelays.length; idx++) {
+            this.cache.recordFailure("key", status(503));
+            assertEquals("failure count", idx + 1, this.cache.getFailureCount("key"));
+
+            this.cache.time += maxDelays[idx] / 2 - 1;
+            assertTrue("suppressed before half the delay", this.cache.isSuppressed("key"));
+            this.cache.time += maxDelays[idx] / 2 + 1;
+            assertFalse("retried after the delay", this.cache.isSuppressed("key"));
+        }
+    }
+
+    @Test
+    public void testRecordFailure_Jitter() throws Exception {
+        // Keys failing together are retried at different times.
+        long minRetry = Long.MAX_VALUE, maxRetry = Long.MIN_VALUE;
+        for (int idx = 0; idx < 100; idx++) {
+            this.cache.recordFailure(idx, RetrievalFailureCache.TRANSIENT);
+            long retryTime = this.cache.entries.get(idx).retryTime;
+            minRetry = Math.min(minRetry, retryTime);
+            maxRetry = Math.max(maxRetry, retryTime);
+        }
+
+        assertTrue("retry times spread", maxRetry - minRetry > this.cache.getTransientDelay() / 4);
+    }
+
+    @Test
+    public void testRecordSuccess() throws Exception {
+        this.cache.recordFailure("key", RetrievalFailureCache.TRANSIENT);
+        this.cache.recordFailure("key", RetrievalFailureCache.TRANSIENT);
+
+        this.cache.recordSuccess("key");
+
+        assertFalse("suppressed", this.cache.isSuppressed("key"));
+        assertEquals("failure count", 0, this.cache.getFailureCount("key"));
+    }
+
+    @Test
+    public void testMaxEntries() throws Exception {
+        this.cache.setMaxEntries(2);
+        this.cache.recordFailure("key1", RetrievalFailureCache.ABSENT);
+        this.cache.recordFailure("key2", RetrievalFailureCache.ABSENT);
+        this.cache.isSuppressed("key1"); // most recently used
+
+        this.cache.recordFailure("key3", RetrievalFailureCache.ABSENT);
+
+        assertTrue("key1", this.cache.isSuppressed("key1"));
+        assertFalse("least recently used key2", this.cache.isSuppressed("key2"));
+        assertTrue("key3", this.cache.isSuppressed("key3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordFailure_InvalidClass() throws Exception {
+        this.cache.recordFailure("key", 0);
+    }
+
+    private static HttpTransport.StatusException status(int responseCode) {
+        return new HttpTransport.StatusException("HTTP " + responseCode, responseCode);
+    }
+
+    private static class TestFailureCache extends RetrievalFailureCache<Object> {
+
+        public long time = 1000000;
+
+        @Override
+        protected long currentTimeMillis() {
+            return this.time;
+        }
+    }
+}
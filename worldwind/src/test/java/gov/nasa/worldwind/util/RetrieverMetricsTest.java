@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import gov.nasa.worldwind.WorldWind;
+
+import static org.junit.Assert.*;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class RetrieverMetricsTest {
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+        RetrieverMetrics metrics = new RetrieverMetrics("retriever");
+
+        metrics.recordQueued(null);
+        metrics.recordQueued(null);
+        metrics.recordStarted(1000);
+        metrics.recordStarted(2000);
+        metrics.recordSucceeded(null, 3000);
+        metrics.recordRejected(null);
+        metrics.recordDuplicate(null);
+        metrics.recordSuppressed(null);
+        metrics.recordBytesFetched(4096);
+
+        assertEquals("queued", 2, metrics.getQueuedCount());
+        assertEquals("started", 2, metrics.getStartedCount());
+        assertEquals("succeeded", 1, metrics.getSucceededCount());
+        assertEquals("failed", 0, metrics.getFailedCount());
+        assertEquals("active", 1, metrics.getActiveCount());
+        assertEquals("rejected", 1, metrics.getRejectedCount());
+        assertEquals("duplicate", 1, metrics.getDuplicateCount());
+        assertEquals("suppressed", 1, metrics.getSuppressedCount());
+        assertEquals("bytes", 4096, metrics.getBytesFetched());
+        assertEquals("queue time count", 2, metrics.getQueueTimeHistogram(new LatencyHistogram()).getTotalCount());
+        assertEquals("retrieval time max", 3000, metrics.getRetrievalTimeHistogram(new LatencyHistogram()).getMaxValue());
+    }
+
+    @Test
+    public void testSourceMetrics() throws Exception {
+        RetrieverMetrics metrics = new RetrieverMetrics("retriever");
+        Object source1 = "source1";
+        Object source2 = "source2";
+
+        metrics.recordQueued(source1);
+        metrics.recordQueued(source2);
+        metrics.recordQueued(null);
+        metrics.recordSucceeded(source1, 0);
+        metrics.recordFailed(source2, 0);
+        metrics.recordRejected(source2);
+
+        List<RetrieverMetrics.SourceMetrics> sources = metrics.getSourceMetrics();
+        assertEquals("source count", 2, sources.size());
+        assertSame("source 1", source1, sources.get(0).getSource());
+        assertEquals("source 1 queued", 1, sources.get(0).getQueuedCount());
+        assertEquals("source 1 succeeded", 1, sources.get(0).getSucceededCount());
+        assertSame("source 2", source2, sources.get(1).getSource());
+        assertEquals("source 2 failed", 1, sources.get(1).getFailedCount());
+        assertEquals("source 2 rejected", 1, sources.get(1).getRejectedCount());
+    }
+
+    @Test
+    public void testSourceMetrics_ReleasedSource() throws Exception {
+        RetrieverMetrics metrics = new RetrieverMetrics("retriever");
+        Object source = new Object();
+        metrics.recordQueued(source);
+        assertEquals("source count", 1, metrics.getSourceMetrics().size());
+
+        // The metrics do not keep a source, such as a removed layer, from being garbage collected.
+        source = null;
+        for (int attempt = 0; attempt < 50 && !metrics.getSourceMetrics().isEmpty(); attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertTrue("sources", metrics.getSourceMetrics().isEmpty());
+        assertEquals("queued", 1, metrics.getQueuedCount());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        RetrieverMetrics metrics = new RetrieverMetrics("retriever");
+        metrics.recordQueued("source");
+        metrics.recordStarted(1000);
+        metrics.recordDecodeTime(1000);
+
+        metrics.reset();
+
+        assertEquals("queued", 0, metrics.getQueuedCount());
+        assertEquals("started", 0, metrics.getStartedCount());
+        assertTrue("sources", metrics.getSourceMetrics().isEmpty());
+        assertEquals("decode time count", 0, metrics.getDecodeTimeHistogram(new LatencyHistogram()).getTotalCount());
+    }
+
+    @Test
+    public void testAsyncTask_Succeeded() throws Exception {
+        TestRetriever retriever = new TestRetriever(1, "value");
+        TestCallback callback = new TestCallback();
+
+        Retriever.AsyncTask<String, Void, String> task = retriever.obtainAsyncTask("key", null, "source", callback);
+        task.run();
+
+        RetrieverMetrics metrics = retriever.getMetrics();
+        assertEquals("started", 1, metrics.getStartedCount());
+        assertEquals("succeeded", 1, metrics.getSucceededCount());
+        assertEquals("active", 0, metrics.getActiveCount());
+        assertEquals("source succeeded", 1, metrics.getSourceMetrics().get(0).getSucceededCount());
+        assertEquals("callback", "succeeded", callback.events.get(0));
+    }
+
+    @Test
+    public void testAsyncTask_Failed() throws Exception {
+        TestRetriever retriever = new TestRetriever(1, null);
+        TestCallback callback = new TestCallback();
+
+        Retriever.AsyncTask<String, Void, String> task = retriever.obtainAsyncTask("key", null, null, callback);
+        task.run();
+
+        RetrieverMetrics metrics = retriever.getMetrics();
+        assertEquals("failed", 1, metrics.getFailedCount());
+        assertEquals("active", 0, metrics.getActiveCount());
+        assertEquals("callback", "failed", callback.events.get(0));
+    }
+
+    @Test
+    public void testAsyncTask_GroupedDeliveries() throws Exception {
+        TestRetriever retriever = new TestRetriever(1, "value");
+        retriever.failedMembers.add("member1");
+        retriever.succeededMembers.add("member2");
+        TestCallback callback = new TestCallback();
+
+        Retriever.AsyncTask<String, Void, String> task = retriever.obtainAsyncTask("group", null, null, callback);
+        task.run();
+
+        // The retrieval succeeds because one of its deliveries succeeded, even though the first delivery failed.
+        RetrieverMetrics metrics = retriever.getMetrics();
+        assertEquals("succeeded", 1, metrics.getSucceededCount());
+        assertEquals("failed", 0, metrics.getFailedCount());
+        assertEquals("active", 0, metrics.getActiveCount());
+        assertEquals("callback", "failed", callback.events.get(0));
+        assertEquals("callback", "succeeded", callback.events.get(1));
+    }
+
+    @Test
+    public void testRetrieve_QueuedBeforeExecution() throws Exception {
+        TaskService taskService = WorldWind.taskService();
+        Whitebox.setInternalState(WorldWind.class, "taskService", new TaskService() {
+            @Override
+            public void execute(Runnable command) {
+                command.run(); // run the retrieval on the calling thread
+            }
+        });
+
+        try {
+            TestRetriever retriever = new TestRetriever(1, "value");
+            retriever.retrieve("key", null, new TestCallback());
+
+            // The retrieval was counted as queued by the time it ran.
+            assertEquals("queued while running", 1, retriever.queuedCountWhileRunning);
+        } finally {
+            Whitebox.setInternalState(WorldWind.class, "taskService", taskService);
+        }
+    }
+
+    @Test
+    public void testRetrieve_RejectedByTaskService() throws Exception {
+        TaskService taskService = WorldWind.taskService();
+        Whitebox.setInternalState(WorldWind.class, "taskService", new TaskService() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+
+        try {
+            TestRetriever retriever = new TestRetriever(1, "value");
+            TestCallback callback = new TestCallback();
+            retriever.retrieve("key", null, "source", callback);
+
+            // The queued count is restored when the task service rejects the retrieval.
+            RetrieverMetrics metrics = retriever.getMetrics();
+            assertEquals("queued", 0, metrics.getQueuedCount());
+            assertEquals("rejected", 1, metrics.getRejectedCount());
+            assertEquals("source queued", 0, metrics.getSourceMetrics().get(0).getQueuedCount());
+            assertEquals("source rejected", 1, metrics.getSourceMetrics().get(0).getRejectedCount());
+            assertEquals("callback", "rejected", callback.events.get(0));
+        } finally {
+            Whitebox.setInternalState(WorldWind.class, "taskService", taskService);
+        }
+    }
+
+    @Test
+    public void testRetrieve_Suppressed() throws Exception {
+        TestRetriever retriever = new TestRetriever(1, null);
+        TestCallback callback = new TestCallback();
+        retriever.obtainAsyncTask("key", null, null, callback).run();
+
+        // The failed key is rejected without a retrieval task until its backoff delay elapses.
+        retriever.retrieve("key", null, callback);
+
+        RetrieverMetrics metrics = retriever.getMetrics();
+        assertEquals("failure class", RetrievalFailureCache.ABSENT, retriever.getFailureCache().getFailureClass("key"));
+        assertEquals("suppressed", 1, metrics.getSuppressedCount());
+        assertEquals("queued", 0, metrics.getQueuedCount());
+        assertEquals("callback", "rejected", callback.events.get(1));
+    }
+
+    @Test
+    public void testObtainAsyncTask_Rejected() throws Exception {
+        TestRetriever retriever = new TestRetriever(1, "value");
+        TestCallback callback = new TestCallback();
+
+        assertNotNull("first task", retriever.obtainAsyncTask("key1", null, null, callback));
+        assertNull("duplicate task", retriever.obtainAsyncTask("key1", null, null, callback));
+        assertNull("rejected task", retriever.obtainAsyncTask("key2", null, null, callback));
+
+        RetrieverMetrics metrics = retriever.getMetrics();
+        assertEquals("duplicate", 1, metrics.getDuplicateCount());
+        assertEquals("rejected", 1, metrics.getRejectedCount());
+    }
+
+    private static class TestRetriever extends Retriever<String, Void, String> {
+
+        private String value;
+
+        public List<String> failedMembers = new ArrayList<>();
+
+        public List<String> succeededMembers = new ArrayList<>();
+
+        public long queuedCountWhileRunning;
+
+        public TestRetriever(int maxSimultaneousRetrievals, String value) {
+            super(maxSimultaneousRetrievals);
+            this.value = value;
+        }
+
+        @Override
+        protected void retrieveAsync(String key, Void options, Callback<String, Void, String> callback) {
+            this.queuedCountWhileRunning = this.metrics.getQueuedCount();
+
+            if (!this.failedMembers.isEmpty() || !this.succeededMembers.isEmpty()) { // deliver a group of keys
+                for (String member : this.failedMembers) {
+                    callback.retrievalFailed(this, member, null);
+                }
+                for (String member : this.succeededMembers) {
+                    callback.retrievalSucceeded(this, member, options, this.value);
+                }
+            } else if (this.value != null) {
+                callback.retrievalSucceeded(this, key, options, this.value);
+            } else {
+                callback.retrievalFailed(this, key, null);
+            }
+        }
+    }
+
+    private static class TestCallback implements Retriever.Callback<String, Void, String> {
+
+        public List<String> events = new ArrayList<>();
+
+        @Override
+        public void retrievalSucceeded(Retriever<String, Void, String> retriever, String key, Void options, String value) {
+            this.events.add("succeeded");
+        }
+
+        @Override
+        public void retrievalFailed(Retriever<String, Void, String> retriever, String key, Throwable ex) {
+            this.events.add("failed");
+        }
+
+        @Override
+        public void retrievalRejected(Retriever<String, Void, String> retriever, String key) {
+            this.events.add("rejected");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class RollingLatencyHistogramTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+    }
+
+    @Test
+    public void testConstructor() throws Exception {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(10, TimeUnit.SECONDS, 5);
+
+        assertEquals("window", 10 * SECOND, histogram.getWindow());
+    }
+
+    @Test
+    public void testGetWindowHistogram() throws Exception {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(10, TimeUnit.SECONDS, 5);
+        LatencyHistogram result = new LatencyHistogram();
+
+        histogram.record(100, 1 * SECOND);
+        histogram.record(200, 5 * SECOND);
+        histogram.record(300, 9 * SECOND);
+
+        assertEquals("all values in window", 3, histogram.getWindowHistogram(9 * SECOND, result).getTotalCount());
+        assertEquals("oldest interval expired", 2, histogram.getWindowHistogram(12 * SECOND, result).getTotalCount());
+        assertEquals("window max", 300, result.getMaxValue());
+        assertEquals("all intervals expired", 0, histogram.getWindowHistogram(30 * SECOND, result).getTotalCount());
+    }
+
+    @Test
+    public void testRecord_ReusesExpiredInterval() throws Exception {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(10, TimeUnit.SECONDS, 5);
+        LatencyHistogram result = new LatencyHistogram();
+
+        histogram.record(100, 1 * SECOND);
+        histogram.record(200, 11 * SECOND); // same interval slot as the first value, one window later
+
+        histogram.getWindowHistogram(11 * SECOND, result);
+        assertEquals("window count", 1, result.getTotalCount());
+        assertEquals("window min", 200, result.getMinValue());
+    }
+
+    @Test
+    public void testGetCumulativeHistogram() throws Exception {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(10, TimeUnit.SECONDS, 5);
+        LatencyHistogram result = new LatencyHistogram();
+
+        histogram.record(100, 1 * SECOND);
+        histogram.record(200, 100 * SECOND);
+
+        assertEquals("cumulative count", 2, histogram.getCumulativeHistogram(result).getTotalCount());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(10, TimeUnit.SECONDS, 5);
+        LatencyHistogram result = new LatencyHistogram();
+        histogram.record(100, 1 * SECOND);
+
+        histogram.reset();
+
+        assertEquals("cumulative count", 0, histogram.getCumulativeHistogram(result).getTotalCount());
+        assertEquals("window count", 0, histogram.getWindowHistogram(1 * SECOND, result).getTotalCount());
+    }
+
+    @Test
+    public void testSetWindow() throws Exception {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(10, TimeUnit.SECONDS, 5);
+        LatencyHistogram result = new LatencyHistogram();
+        histogram.record(100, 1 * SECOND);
+
+        histogram.setWindow(1, TimeUnit.MINUTES);
+
+        assertEquals("window", 60 * SECOND, histogram.getWindow());
+        assertEquals("window discarded", 0, histogram.getWindowHistogram(1 * SECOND, result).getTotalCount());
+        assertEquals("cumulative retained", 1, histogram.getCumulativeHistogram(result).getTotalCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_InvalidIntervalCount() throws Exception {
+        new RollingLatencyHistogram(10, TimeUnit.SECONDS, 0);
+    }
+}
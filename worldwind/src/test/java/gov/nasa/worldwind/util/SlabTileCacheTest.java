@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class SlabTileCacheTest {
+
+    private static final int SLOT_SIZE = 8;
+
+    private SlabTileCache<String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+        this.cache = new SlabTileCache<>(SLOT_SIZE * 4, SLOT_SIZE);
+        this.cache.setMinFreeSlots(0);
+    }
+
+    @Test
+    public void testConstructor() throws Exception {
+        SlabTileCache<String> cache = new SlabTileCache<>(SLOT_SIZE * 4 + 3, SLOT_SIZE);
+
+        assertEquals("capacity", SLOT_SIZE * 4, cache.getCapacity());
+        assertEquals("slot size", SLOT_SIZE, cache.getSlotSize());
+        assertEquals("allocated capacity", 0, cache.getAllocatedCapacity());
+    }
+
+    @Test
+    public void testReserveAndPut() throws Exception {
+        ByteBuffer slot = this.cache.reserve();
+        assertNotNull("reserved slot", slot);
+        assertTrue("direct", slot.isDirect());
+        assertEquals("byte order", ByteOrder.nativeOrder(), slot.order());
+        assertEquals("slot capacity", SLOT_SIZE, slot.capacity());
+
+        slot.putShort((short) 1).putShort((short) -2).putShort((short) 3).flip();
+
+        assertTrue("put", this.cache.put("a", slot));
+        ShortBuffer tile = this.cache.get("a");
+        assertEquals("samples", 3, tile.limit());
+        assertEquals("sample 0", 1, tile.get(0));
+        assertEquals("sample 1", -2, tile.get(1));
+        assertEquals("sample 2", 3, tile.get(2));
+        assertEquals("used capacity", SLOT_SIZE, this.cache.getUsedCapacity());
+
+        // Writing to the slot after put modifies the cached tile, as the tile was not copied.
+        slot.putShort(0, (short) 7);
+        assertEquals("zero copy", 7, tile.get(0));
+    }
+
+    @Test
+    public void testPut_Copy() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+        buffer.putShort((short) 5).putShort((short) 6).flip();
+
+        assertTrue("put", this.cache.put("a", buffer));
+        buffer.putShort(0, (short) 7);
+
+        ShortBuffer tile = this.cache.get("a");
+        assertEquals("samples", 2, tile.limit());
+        assertEquals("sample 0", 5, tile.get(0));
+        assertEquals("sample 1", 6, tile.get(1));
+    }
+
+    @Test
+    public void testPut_TooLarge() throws Exception {
+        assertFalse("put", this.cache.put("a", ByteBuffer.allocate(SLOT_SIZE + 2)));
+        assertNull("get", this.cache.get("a"));
+    }
+
+    @Test
+    public void testPut_Replace() throws Exception {
+        this.cache.put("a", ByteBuffer.allocate(2));
+        this.cache.put("a", ByteBuffer.allocate(4));
+
+        assertEquals("entry count", 1, this.cache.getEntryCount());
+        assertEquals("samples", 2, this.cache.get("a").limit());
+    }
+
+    @Test
+    public void testPut_EvictsLeastRecentlyUsed() throws Exception {
+        this.cache.put("a", ByteBuffer.allocate(2));
+        this.cache.put("b", ByteBuffer.allocate(2));
+        this.cache.put("c", ByteBuffer.allocate(2));
+        this.cache.put("d", ByteBuffer.allocate(2));
+        this.cache.get("a"); // make b the least recently used
+        this.cache.put("e", ByteBuffer.allocate(2));
+
+        assertEquals("entry count", 4, this.cache.getEntryCount());
+        assertTrue("a retained", this.cache.containsKey("a"));
+        assertFalse("b evicted", this.cache.containsKey("b"));
+        assertTrue("e added", this.cache.containsKey("e"));
+        assertEquals("allocated capacity", SLOT_SIZE * 4, this.cache.getAllocatedCapacity());
+    }
+
+    @Test
+    public void testPut_MinFreeSlots() throws Exception {
+        this.cache.setMinFreeSlots(2);
+        this.cache.put("a", ByteBuffer.allocate(2));
+        this.cache.put("b", ByteBuffer.allocate(2));
+        this.cache.put("c", ByteBuffer.allocate(2));
+
+        assertEquals("entry count", 2, this.cache.getEntryCount());
+        assertFalse("a evicted", this.cache.containsKey("a"));
+        assertNotNull("slot available", this.cache.reserve());
+        assertNotNull("slot available", this.cache.reserve());
+    }
+
+    @Test
+    public void testReserve_NoFreeSlots() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            this.cache.put("tile" + i, ByteBuffer.allocate(2));
+        }
+
+        assertNull("reserve does not evict", this.cache.reserve());
+        assertEquals("entry count", 4, this.cache.getEntryCount());
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+        ByteBuffer[] slots = new ByteBuffer[4];
+        for (int i = 0; i < 4; i++) {
+            slots[i] = this.cache.reserve();
+        }
+
+        assertNull("all reserved", this.cache.reserve());
+
+        this.cache.release(slots[2]);
+        this.cache.release(ByteBuffer.allocate(SLOT_SIZE)); // ignored
+
+        assertSame("released slot", slots[2], this.cache.reserve());
+        assertNull("all reserved", this.cache.reserve());
+    }
+
+    @Test
+    public void testRemoveAndClear() throws Exception {
+        this.cache.put("a", ByteBuffer.allocate(2));
+        this.cache.put("b", ByteBuffer.allocate(2));
+
+        assertTrue("removed", this.cache.remove("a"));
+        assertFalse("removed", this.cache.remove("a"));
+        assertEquals("entry count", 1, this.cache.getEntryCount());
+
+        this.cache.clear();
+        assertEquals("entry count", 0, this.cache.getEntryCount());
+        assertEquals("used capacity", 0, this.cache.getUsedCapacity());
+        for (int i = 0; i < 4; i++) {
+            assertNotNull("slot available", this.cache.reserve());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_OddSlotSize() throws Exception {
+        new SlabTileCache<String>(100, 7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_InvalidCapacity() throws Exception {
+        new SlabTileCache<String>(4, 8);
+    }
+}
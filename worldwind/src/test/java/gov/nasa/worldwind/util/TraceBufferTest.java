@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+@RunWith(PowerMockRunner.class) // Support for mocking static methods
+@PrepareForTest(Logger.class)   // We mock the Logger class to avoid its calls to android.util.log
+public class TraceBufferTest {
+
+    @Before
+    public void setUp() throws Exception {
+        PowerMockito.mockStatic(Logger.class);
+    }
+
+    @Test
+    public void testConstructor() throws Exception {
+        TraceBuffer buffer = new TraceBuffer(100);
+
+        assertEquals("capacity", 128, buffer.getCapacity());
+        assertFalse("disabled", buffer.isEnabled());
+        assertEquals("event count", 0, buffer.getEventCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_InvalidCapacity() throws Exception {
+        new TraceBuffer(0);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        TraceBuffer buffer = new TraceBuffer(16);
+
+        buffer.begin(TraceBuffer.CATEGORY_FRAME, "frame");
+        buffer.end(TraceBuffer.CATEGORY_FRAME, "frame");
+
+        assertEquals("event count", 0, buffer.getEventCount());
+    }
+
+    @Test
+    public void testWriteChromeTrace() throws Exception {
+        TraceBuffer buffer = new TraceBuffer(16);
+        buffer.setEnabled(true);
+
+        buffer.begin(TraceBuffer.CATEGORY_RETRIEVAL, "retriever", "http://host/\"tile\"");
+        buffer.end(TraceBuffer.CATEGORY_RETRIEVAL, "retriever");
+        StringWriter writer = new StringWriter();
+        buffer.writeChromeTrace(writer);
+        String json = writer.toString();
+
+        assertEquals("event count", 2, buffer.getEventCount());
+        assertTrue("trace events", json.startsWith("{\"traceEvents\":["));
+        assertTrue("begin event", json.contains("{\"name\":\"retriever\",\"cat\":\"retrieval\",\"ph\":\"B\",\"ts\":"));
+        assertTrue("end event", json.contains("\"ph\":\"E\""));
+        assertTrue("escaped argument", json.contains("\"args\":{\"arg\":\"http://host/\\\"tile\\\"\"}"));
+        assertTrue("thread name", json.contains("\"name\":\"thread_name\",\"ph\":\"M\""));
+        assertTrue("end of trace", json.endsWith("],\"displayTimeUnit\":\"ms\"}"));
+    }
+
+    @Test
+    public void testWriteChromeTrace_Overwritten() throws Exception {
+        TraceBuffer buffer = new TraceBuffer(4);
+        buffer.setEnabled(true);
+
+        for (int idx = 0; idx < 6; idx++) {
+            buffer.begin(TraceBuffer.CATEGORY_LAYER, "layer" + idx);
+        }
+        StringWriter writer = new StringWriter();
+        buffer.writeChromeTrace(writer);
+        String json = writer.toString();
+
+        assertEquals("event count", 4, buffer.getEventCount());
+        assertFalse("oldest event overwritten", json.contains("\"layer1\""));
+        assertTrue("oldest retained event", json.contains("\"layer2\""));
+        assertTrue("newest event", json.contains("\"layer5\""));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        TraceBuffer buffer = new TraceBuffer(4);
+        buffer.setEnabled(true);
+        buffer.begin(TraceBuffer.CATEGORY_FRAME, "frame");
+
+        buffer.clear();
+        StringWriter writer = new StringWriter();
+        buffer.writeChromeTrace(writer);
+
+        assertEquals("event count", 0, buffer.getEventCount());
+        assertEquals("empty trace", "{\"traceEvents\":[],\"displayTimeUnit\":\"ms\"}", writer.toString());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration. All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util.glu.tessellator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.worldwind.util.glu.GLU;
+import gov.nasa.worldwind.util.glu.GLUtessellator;
+import gov.nasa.worldwind.util.glu.GLUtessellatorCallbackAdapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class GLUtessellatorImplTest {
+
+    private static final double[][] SQUARE_WITH_HOLE = {
+        {0, 0, 0, 10, 0, 0, 10, 10, 0, 0, 10, 0},
+        {3, 3, 0, 3, 7, 0, 7, 7, 0, 7, 3, 0}};
+
+    private static final double[][] BOWTIE = {
+        {0, 0, 0, 10, 10, 0, 10, 0, 0, 0, 10, 0}};
+
+    @Test
+    public void testTessellate_PolygonWithHole() throws Exception {
+        GLUtessellator tess = GLU.gluNewTess();
+        TriangleRecorder recorder = new TriangleRecorder();
+
+        List<Object> triangles = tessellate(tess, recorder, SQUARE_WITH_HOLE);
+
+        assertEquals("triangle count", 8, triangles.size() / 3);
+    }
+
+    @Test
+    public void testTessellate_SelfIntersecting() throws Exception {
+        GLUtessellator tess = GLU.gluNewTess();
+        TriangleRecorder recorder = new TriangleRecorder();
+
+        List<Object> triangles = tessellate(tess, recorder, BOWTIE);
+
+        assertEquals("triangle count", 2, triangles.size() / 3);
+        assertEquals("combined vertices", 1, recorder.combineCount);
+    }
+
+    @Test
+    public void testArenaReset_TrimsLargePools() throws Exception {
+        TessArena arena = new TessArena();
+        List<GLUhalfEdge> edges = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            edges.add(arena.obtainHalfEdge(true));
+        }
+
+        arena.reset();
+
+        // The arena keeps reusing the structures below its retained size, and releases the structures beyond it.
+        assertSame("retained edge", edges.get(0), arena.obtainHalfEdge(true));
+        for (int i = 1; i < 4096; i++) {
+            arena.obtainHalfEdge(true);
+        }
+        assertNotSame("released edge", edges.get(4096), arena.obtainHalfEdge(true));
+    }
+
+    @Test
+    public void testTessellate_Repeated() throws Exception {
+        GLUtessellator tess = GLU.gluNewTess();
+        TriangleRecorder recorder = new TriangleRecorder();
+        double[][] star = star(500);
+
+        // Tessellating a polygon must produce the same triangles regardless of the polygons tessellated before it,
+        // including polygons large enough to grow the tessellator's reusable storage.
+        List<Object> expectedHole = tessellate(GLU.gluNewTess(), new TriangleRecorder(), SQUARE_WITH_HOLE);
+        List<Object> expectedBowtie = tessellate(GLU.gluNewTess(), new TriangleRecorder(), BOWTIE);
+        List<Object> expectedStar = tessellate(GLU.gluNewTess(), new TriangleRecorder(), star);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("polygon with hole " + i, expectedHole, tessellate(tess, recorder, SQUARE_WITH_HOLE));
+            assertEquals("star " + i, expectedStar, tessellate(tess, recorder, star));
+            assertEquals("self intersecting " + i, expectedBowtie, tessellate(tess, recorder, BOWTIE));
+        }
+    }
+
+    private static List<Object> tessellate(GLUtessellator tess, TriangleRecorder recorder, double[][] contours) {
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_VERTEX_DATA, recorder);
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_EDGE_FLAG_DATA, recorder); // forces individual triangles
+        GLU.gluTessCallback(tess, GLU.GLU_TESS_COMBINE_DATA, recorder);
+        GLU.gluTessProperty(tess, GLU.GLU_TESS_WINDING_RULE, GLU.GLU_TESS_WINDING_ODD);
+        GLU.gluTessNormal(tess, 0, 0, 1);
+
+        recorder.vertices.clear();
+        recorder.combineCount = 0;
+
+        GLU.gluTessBeginPolygon(tess, null);
+        for (double[] contour : contours) {
+            GLU.gluTessBeginContour(tess);
+            for (int idx = 0; idx < contour.length; idx += 3) {
+                GLU.gluTessVertex(tess, contour, idx, "(" + contour[idx] + "," + contour[idx + 1] + ")");
+            }
+            GLU.gluTessEndContour(tess);
+        }
+        GLU.gluTessEndPolygon(tess);
+
+        return new ArrayList<>(recorder.vertices);
+    }
+
+    private static double[][] star(int points) {
+        double[] contour = new double[points * 6];
+        for (int idx = 0; idx < points * 2; idx++) {
+            double angle = Math.PI * idx / points;
+            double radius = (idx % 2 == 0) ? 10 : 4;
+            contour[idx * 3] = radius * Math.cos(angle);
+            contour[idx * 3 + 1] = radius * Math.sin(angle);
+        }
+
+        return new double[][]{contour};
+    }
+
+    private static class TriangleRecorder extends GLUtessellatorCallbackAdapter {
+
+        public List<Object> vertices = new ArrayList<>();
+
+        public int combineCount;
+
+        @Override
+        public void vertexData(Object vertexData, Object polygonData) {
+            this.vertices.add(vertexData);
+        }
+
+        @Override
+        public void edgeFlagData(boolean boundaryEdge, Object polygonData) {
+        }
+
+        @Override
+        public void combineData(double[] coords, Object[] data, float[] weight, Object[] outData, Object polygonData) {
+            outData[0] = "(" + coords[0] + "," + coords[1] + ")";
+            this.combineCount++;
+        }
+    }
+}